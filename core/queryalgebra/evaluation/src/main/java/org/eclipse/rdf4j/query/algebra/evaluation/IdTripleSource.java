@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation;
+
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+
+/**
+ * A source of quads in which values are identified by integer IDs, for stores that use such IDs internally. Evaluating
+ * joins and filters on IDs avoids looking up values and creating statements for intermediate results that are
+ * discarded right away; values only need to be looked up for the bindings of the final results.
+ * <p>
+ * IDs are non-negative and unique: two values are equal if and only if they have the same ID. The ID
+ * {@link #DEFAULT_CONTEXT_ID} identifies the default context.
+ *
+ * @see TripleSource
+ */
+public interface IdTripleSource {
+
+	/**
+	 * The ID that matches any value in a quad pattern.
+	 */
+	int WILDCARD = -1;
+
+	/**
+	 * The ID that is returned for values that are not known to this source.
+	 */
+	int UNKNOWN_ID = -2;
+
+	/**
+	 * The ID of the default context, i.e. the context of statements without a context.
+	 */
+	int DEFAULT_CONTEXT_ID = 0;
+
+	/**
+	 * Gets the ID of a value.
+	 *
+	 * @param value A value.
+	 * @return The ID of the value, or {@link #UNKNOWN_ID} if no quad in this source can contain the value.
+	 * @throws QueryEvaluationException If the ID of the value could not be retrieved.
+	 */
+	int getID(Value value) throws QueryEvaluationException;
+
+	/**
+	 * Gets the value with the specified ID. Values may be looked up for as long as the results of a query that used
+	 * this source are in use.
+	 *
+	 * @param id The ID of a value, as returned by {@link #getID(Value)} or {@link #getQuads(int, int, int, int)}.
+	 * @return The value with the specified ID.
+	 * @throws QueryEvaluationException If the value could not be retrieved.
+	 */
+	Value getValue(int id) throws QueryEvaluationException;
+
+	/**
+	 * Gets all quads that match a pattern of subject, predicate, object and context IDs.
+	 *
+	 * @param subj    The ID of the subject, or {@link #WILDCARD}.
+	 * @param pred    The ID of the predicate, or {@link #WILDCARD}.
+	 * @param obj     The ID of the object, or {@link #WILDCARD}.
+	 * @param context The ID of the context, {@link #DEFAULT_CONTEXT_ID} for the default context only, or
+	 *                {@link #WILDCARD} for all contexts.
+	 * @return An iterator over the matching quads.
+	 * @throws QueryEvaluationException If the quads could not be retrieved.
+	 */
+	QuadIterator getQuads(int subj, int pred, int obj, int context) throws QueryEvaluationException;
+
+	/**
+	 * Combines this source with another source into a source that contains the quads of both. This is only possible
+	 * if both sources identify values by the same IDs and don't have any quads in common, e.g. the explicit and
+	 * inferred statements of a store.
+	 *
+	 * @param other Another source.
+	 * @return The combined source, or <tt>null</tt> if the sources can not be combined.
+	 */
+	default IdTripleSource union(IdTripleSource other) {
+		return null;
+	}
+}
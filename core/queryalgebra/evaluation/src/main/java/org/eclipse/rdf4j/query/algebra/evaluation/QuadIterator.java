@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation;
+
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+
+/**
+ * An iterator over the quads of an {@link IdTripleSource}. Instead of creating an object for each quad, the IDs of the
+ * next quad are copied into an array supplied by the caller, which can be reused for all quads.
+ */
+public interface QuadIterator extends AutoCloseable {
+
+	/**
+	 * The index of the subject ID in a quad array.
+	 */
+	int SUBJ_IDX = 0;
+
+	/**
+	 * The index of the predicate ID in a quad array.
+	 */
+	int PRED_IDX = 1;
+
+	/**
+	 * The index of the object ID in a quad array.
+	 */
+	int OBJ_IDX = 2;
+
+	/**
+	 * The index of the context ID in a quad array.
+	 */
+	int CONTEXT_IDX = 3;
+
+	/**
+	 * Advances to the next quad, if any.
+	 *
+	 * @param quad An array with at least four elements, which receives the subject, predicate, object and context ID
+	 *             of the next quad.
+	 * @return <tt>true</tt> if the array has been filled with the next quad, <tt>false</tt> if there are no more
+	 *         quads.
+	 * @throws QueryEvaluationException If the next quad could not be retrieved.
+	 */
+	boolean next(int[] quad) throws QueryEvaluationException;
+
+	/**
+	 * Releases the resources of this iterator. This method can be called more than once.
+	 *
+	 * @throws QueryEvaluationException If the resources could not be released.
+	 */
+	@Override
+	void close() throws QueryEvaluationException;
+}
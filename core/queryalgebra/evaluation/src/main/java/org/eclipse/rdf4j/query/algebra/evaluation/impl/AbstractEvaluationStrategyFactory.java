@@ -26,6 +26,8 @@ public abstract class AbstractEvaluationStrategyFactory implements EvaluationStr
 
 	private QueryOptimizerPipeline pipeline;
 
+	private long queryMemoryBudget;
+
 	@Override
 	public void setQuerySolutionCacheThreshold(long threshold) {
 		this.querySolutionCacheThreshold = threshold;
@@ -36,6 +38,20 @@ public abstract class AbstractEvaluationStrategyFactory implements EvaluationStr
 		return querySolutionCacheThreshold;
 	}
 
+	/**
+	 * Sets the amount of memory that the hash joins of a query may use before they move their solutions to disk.
+	 *
+	 * @param limit The estimated number of bytes, or <tt>0</tt> for no limit.
+	 * @see StrictEvaluationStrategy#setQueryMemoryBudget(long)
+	 */
+	public void setQueryMemoryBudget(long limit) {
+		this.queryMemoryBudget = limit;
+	}
+
+	public long getQueryMemoryBudget() {
+		return queryMemoryBudget;
+	}
+
 	@Override
 	public void setOptimizerPipeline(QueryOptimizerPipeline pipeline) {
 		this.pipeline = pipeline;
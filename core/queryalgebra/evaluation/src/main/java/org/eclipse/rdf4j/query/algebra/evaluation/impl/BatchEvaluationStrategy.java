@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.impl;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
+import org.eclipse.rdf4j.common.iteration.SingletonIteration;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.Extension;
+import org.eclipse.rdf4j.query.algebra.Filter;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.Projection;
+import org.eclipse.rdf4j.query.algebra.Service;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.ValueExprEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolver;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.BatchExtensionIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.BatchFilterIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.BatchJoinIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.BatchProjectionIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.BatchStatementPatternIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.BatchingIteration;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.BindingSetBatch;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.JoinIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.UnbatchingIteration;
+
+/**
+ * A {@link StrictEvaluationStrategy} that evaluates joins, filters, projections and extensions batch-at-a-time. The
+ * operators of a (sub)tree of such expressions exchange {@link BindingSetBatch}es of a fixed size instead of single
+ * binding sets, so the overhead of the iterations is paid once per batch, and statement patterns write the values of
+ * the matching statements to the columns of a batch without creating a binding set for each statement. Only the
+ * results of the root of the tree are returned as binding sets, which are views on the batches. Other expressions are
+ * evaluated by {@link StrictEvaluationStrategy} and their results are grouped into batches as needed.
+ *
+ * @see BatchEvaluationStrategyFactory
+ */
+public class BatchEvaluationStrategy extends StrictEvaluationStrategy {
+
+	/**
+	 * The default number of rows of a batch.
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 256;
+
+	private final int batchSize;
+
+	private boolean trackResultSize;
+
+	private boolean trackTime;
+
+	public BatchEvaluationStrategy(TripleSource tripleSource, Dataset dataset,
+			FederatedServiceResolver serviceResolver, long iterationCacheSyncTreshold,
+			EvaluationStatistics evaluationStatistics, boolean trackResultSize, int batchSize) {
+		super(tripleSource, dataset, serviceResolver, iterationCacheSyncTreshold, evaluationStatistics,
+				trackResultSize);
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batch size must be positive");
+		}
+		this.batchSize = batchSize;
+		this.trackResultSize = trackResultSize;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	@Override
+	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(Join join, BindingSet bindings)
+			throws QueryEvaluationException {
+		if (!isBatchJoin(join)) {
+			return super.evaluate(join, bindings);
+		}
+		return new UnbatchingIteration(evaluateBatches(join, bindings));
+	}
+
+	@Override
+	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(Filter filter, BindingSet bindings)
+			throws QueryEvaluationException {
+		if (isTracking()) {
+			return super.evaluate(filter, bindings);
+		}
+		return new UnbatchingIteration(evaluateBatches(filter, bindings));
+	}
+
+	@Override
+	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(Projection projection,
+			BindingSet bindings) throws QueryEvaluationException {
+		if (isTracking()) {
+			return super.evaluate(projection, bindings);
+		}
+		return new UnbatchingIteration(evaluateBatches(projection, bindings));
+	}
+
+	@Override
+	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(Extension extension,
+			BindingSet bindings) throws QueryEvaluationException {
+		if (isTracking()) {
+			return super.evaluate(extension, bindings);
+		}
+		return new UnbatchingIteration(evaluateBatches(extension, bindings));
+	}
+
+	/**
+	 * Evaluates an expression batch-at-a-time.
+	 *
+	 * @param expr     The expression to evaluate.
+	 * @param bindings The bindings to evaluate the expression with.
+	 * @return The results of the expression, in batches of at most {@link #getBatchSize()} rows.
+	 */
+	public CloseableIteration<BindingSetBatch, QueryEvaluationException> evaluateBatches(TupleExpr expr,
+			BindingSet bindings) throws QueryEvaluationException {
+		if (expr instanceof StatementPattern) {
+			CloseableIteration<BindingSet, QueryEvaluationException> idResult = evaluateIds(expr, bindings);
+			if (idResult != null) {
+				return new BatchingIteration(idResult, batchSize);
+			}
+			return new BatchStatementPatternIterator(this, singleton(bindings), (StatementPattern) expr, batchSize);
+		} else if (expr instanceof Join && isBatchJoin((Join) expr)) {
+			return evaluateBatches((Join) expr, bindings);
+		} else if (expr instanceof Filter && !isTracking()) {
+			Filter filter = (Filter) expr;
+			return new BatchFilterIterator(filter, evaluateBatches(filter.getArg(), bindings), this);
+		} else if (expr instanceof Projection && !isTracking()) {
+			Projection projection = (Projection) expr;
+			return new BatchProjectionIterator(projection, evaluateBatches(projection.getArg(), bindings), bindings);
+		} else if (expr instanceof Extension && !isTracking()) {
+			Extension extension = (Extension) expr;
+			CloseableIteration<BindingSetBatch, QueryEvaluationException> result;
+			try {
+				result = evaluateBatches(extension.getArg(), bindings);
+			} catch (ValueExprEvaluationException e) {
+				// a type error in an extension argument should be silently ignored and result in zero bindings.
+				result = new EmptyIteration<>();
+			}
+			return new BatchExtensionIterator(extension, result, this);
+		} else {
+			return new BatchingIteration(evaluate(expr, bindings), batchSize);
+		}
+	}
+
+	private CloseableIteration<BindingSetBatch, QueryEvaluationException> evaluateBatches(Join join,
+			BindingSet bindings) throws QueryEvaluationException {
+		CloseableIteration<BindingSet, QueryEvaluationException> idResult = evaluateIds(join, bindings);
+		if (idResult != null) {
+			return new BatchingIteration(idResult, batchSize);
+		}
+
+		CloseableIteration<BindingSetBatch, QueryEvaluationException> leftIter = evaluateBatches(join.getLeftArg(),
+				bindings);
+		if (join.getRightArg() instanceof StatementPattern) {
+			return new BatchStatementPatternIterator(this, leftIter, (StatementPattern) join.getRightArg(),
+					batchSize);
+		} else {
+			return new BatchJoinIterator(this, leftIter, join.getRightArg(), batchSize);
+		}
+	}
+
+	/**
+	 * Determines whether a join can be evaluated batch-at-a-time, which is the case for joins that
+	 * {@link StrictEvaluationStrategy} evaluates with a {@link JoinIterator}.
+	 */
+	private boolean isBatchJoin(Join join) {
+		return !isTracking() && !(join.getRightArg() instanceof Service)
+				&& !isOutOfScopeForLeftArgBindings(join.getRightArg());
+	}
+
+	/**
+	 * Determines whether result sizes or times are tracked, which is done for each operator by
+	 * {@link StrictEvaluationStrategy}, so batches can't be used.
+	 */
+	private boolean isTracking() {
+		return trackResultSize || trackTime;
+	}
+
+	private CloseableIteration<BindingSetBatch, QueryEvaluationException> singleton(BindingSet bindings) {
+		BindingSetBatch batch = new BindingSetBatch(1);
+		batch.addRow(bindings);
+		return new SingletonIteration<>(batch);
+	}
+
+	@Override
+	public void setTrackResultSize(boolean trackResultSize) {
+		super.setTrackResultSize(trackResultSize);
+		this.trackResultSize = trackResultSize;
+	}
+
+	@Override
+	public void setTrackTime(boolean trackTime) {
+		super.setTrackTime(trackTime);
+		this.trackTime = trackTime;
+	}
+}
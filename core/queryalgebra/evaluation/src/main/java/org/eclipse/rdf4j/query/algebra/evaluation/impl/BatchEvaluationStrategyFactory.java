@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.impl;
+
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolver;
+
+/**
+ * Creates {@link BatchEvaluationStrategy}s, which evaluate queries batch-at-a-time. A store can be configured to use
+ * this factory with its <tt>setEvaluationStrategyFactory</tt> method.
+ */
+public class BatchEvaluationStrategyFactory extends StrictEvaluationStrategyFactory {
+
+	private int batchSize = BatchEvaluationStrategy.DEFAULT_BATCH_SIZE;
+
+	public BatchEvaluationStrategyFactory() {
+	}
+
+	public BatchEvaluationStrategyFactory(FederatedServiceResolver resolver) {
+		super(resolver);
+	}
+
+	/**
+	 * Sets the number of rows of the batches that the operators of a query exchange.
+	 *
+	 * @param batchSize A positive number of rows.
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batch size must be positive");
+		}
+		this.batchSize = batchSize;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	@Override
+	public EvaluationStrategy createEvaluationStrategy(Dataset dataset, TripleSource tripleSource,
+			EvaluationStatistics evaluationStatistics) {
+		BatchEvaluationStrategy strategy = new BatchEvaluationStrategy(tripleSource, dataset,
+				getFederatedServiceResolver(), getQuerySolutionCacheThreshold(), evaluationStatistics,
+				isTrackResultSize(), batchSize);
+		strategy.setQueryMemoryBudget(getQueryMemoryBudget());
+		getOptimizerPipeline().ifPresent(strategy::setOptimizerPipeline);
+
+		return strategy;
+	}
+}
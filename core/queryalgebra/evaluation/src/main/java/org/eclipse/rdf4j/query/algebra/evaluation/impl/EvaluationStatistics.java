@@ -8,6 +8,7 @@
 package org.eclipse.rdf4j.query.algebra.evaluation.impl;
 
 import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
 
 import org.eclipse.rdf4j.query.algebra.ArbitraryLengthPath;
@@ -50,6 +51,20 @@ public class EvaluationStatistics {
 		return new CardinalityCalculator();
 	}
 
+	/**
+	 * Estimates the number of results of a statement pattern for a single combination of values of the variables that
+	 * are bound by previously evaluated expressions, e.g. for the right-hand side of a join. Implementations that keep
+	 * statistics about the distribution of values can use this to improve on the generic heuristics of the query
+	 * optimizer.
+	 *
+	 * @param sp        the statement pattern
+	 * @param boundVars the names of the variables that are bound by previously evaluated expressions
+	 * @return the estimated number of results, or a negative value if no such estimate is available
+	 */
+	public double getCardinality(StatementPattern sp, Set<String> boundVars) {
+		return -1;
+	}
+
 	/*-----------------------------------*
 	 * Inner class CardinalityCalculator *
 	 *-----------------------------------*/
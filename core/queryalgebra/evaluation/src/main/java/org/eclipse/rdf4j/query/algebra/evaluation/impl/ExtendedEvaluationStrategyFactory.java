@@ -38,8 +38,10 @@ public class ExtendedEvaluationStrategyFactory extends AbstractEvaluationStrateg
 	@Override
 	public EvaluationStrategy createEvaluationStrategy(Dataset dataset, TripleSource tripleSource,
 			EvaluationStatistics evaluationStatistics) {
-		return new ExtendedEvaluationStrategy(tripleSource, dataset, serviceResolver, getQuerySolutionCacheThreshold(),
-				evaluationStatistics);
+		ExtendedEvaluationStrategy strategy = new ExtendedEvaluationStrategy(tripleSource, dataset, serviceResolver,
+				getQuerySolutionCacheThreshold(), evaluationStatistics);
+		strategy.setQueryMemoryBudget(getQueryMemoryBudget());
+		return strategy;
 	}
 
 }
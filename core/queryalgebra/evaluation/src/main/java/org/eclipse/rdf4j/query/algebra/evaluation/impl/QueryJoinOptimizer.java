@@ -421,9 +421,18 @@ public class QueryJoinOptimizer implements QueryOptimizer {
 			List<Var> unboundVars = getUnboundVars(vars);
 			List<Var> constantVars = getConstantVars(vars);
 			int nonConstantVarCount = vars.size() - constantVars.size();
-			if (nonConstantVarCount > 0) {
-				double exp = (double) unboundVars.size() / nonConstantVarCount;
-				cost = Math.pow(cost, exp);
+			if (nonConstantVarCount > 0 && unboundVars.size() < nonConstantVarCount) {
+				double boundCardinality = -1;
+				if (tupleExpr instanceof StatementPattern) {
+					// use the statistics of the store, if available
+					boundCardinality = statistics.getCardinality((StatementPattern) tupleExpr, boundVars);
+				}
+				if (boundCardinality >= 0) {
+					cost = boundCardinality;
+				} else {
+					double exp = (double) unboundVars.size() / nonConstantVarCount;
+					cost = Math.pow(cost, exp);
+				}
 			}
 
 			if (unboundVars.isEmpty()) {
@@ -117,6 +117,7 @@ import org.eclipse.rdf4j.query.algebra.ValueExprTripleRef;
 import org.eclipse.rdf4j.query.algebra.Var;
 import org.eclipse.rdf4j.query.algebra.ZeroLengthPath;
 import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.IdTripleSource;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryOptimizer;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryOptimizerPipeline;
@@ -136,6 +137,7 @@ import org.eclipse.rdf4j.query.algebra.evaluation.iterator.ExtensionIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.FilterIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.GroupIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.HashJoinIteration;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.IdJoinIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.JoinIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.LeftJoinIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.MultiProjectionIterator;
@@ -146,6 +148,7 @@ import org.eclipse.rdf4j.query.algebra.evaluation.iterator.SPARQLMinusIteration;
 import org.eclipse.rdf4j.query.algebra.evaluation.iterator.ZeroLengthPathIteration;
 import org.eclipse.rdf4j.query.algebra.evaluation.util.EvaluationStrategies;
 import org.eclipse.rdf4j.query.algebra.evaluation.util.MathUtil;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.MemoryBudget;
 import org.eclipse.rdf4j.query.algebra.evaluation.util.OrderComparator;
 import org.eclipse.rdf4j.query.algebra.evaluation.util.QueryEvaluationUtil;
 import org.eclipse.rdf4j.query.algebra.evaluation.util.ValueComparator;
@@ -197,6 +200,9 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 
 	private QueryOptimizerPipeline pipeline;
 
+	// the memory that the hash joins of the query may use before they move their solutions to disk
+	private MemoryBudget memoryBudget;
+
 	/*--------------*
 	 * Constructors *
 	 *--------------*/
@@ -475,6 +481,54 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 
 	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(StatementPattern statementPattern,
 			final BindingSet bindings) throws QueryEvaluationException {
+		CloseableIteration<BindingSet, QueryEvaluationException> idResult = evaluateIds(statementPattern, bindings);
+		if (idResult != null) {
+			return idResult;
+		}
+
+		final Var subjVar = statementPattern.getSubjectVar();
+		final Var predVar = statementPattern.getPredicateVar();
+		final Var objVar = statementPattern.getObjectVar();
+		final Var conVar = statementPattern.getContextVar();
+
+		CloseableIteration<? extends Statement, QueryEvaluationException> stIter = getStatements(statementPattern,
+				bindings);
+		// Return an iterator that converts the statements to var bindings
+		return new ConvertingIteration<Statement, BindingSet, QueryEvaluationException>(stIter) {
+
+			@Override
+			protected BindingSet convert(Statement st) {
+				QueryBindingSet result = new QueryBindingSet(bindings);
+
+				if (subjVar != null && !subjVar.isConstant() && !result.hasBinding(subjVar.getName())) {
+					result.addBinding(subjVar.getName(), st.getSubject());
+				}
+				if (predVar != null && !predVar.isConstant() && !result.hasBinding(predVar.getName())) {
+					result.addBinding(predVar.getName(), st.getPredicate());
+				}
+				if (objVar != null && !objVar.isConstant() && !result.hasBinding(objVar.getName())) {
+					result.addBinding(objVar.getName(), st.getObject());
+				}
+				if (conVar != null && !conVar.isConstant() && !result.hasBinding(conVar.getName())
+						&& st.getContext() != null) {
+					result.addBinding(conVar.getName(), st.getContext());
+				}
+
+				return result;
+			}
+		};
+	}
+
+	/**
+	 * Gets the statements that match a statement pattern, taking into account the supplied bindings and the dataset
+	 * of this strategy.
+	 *
+	 * @param statementPattern The statement pattern.
+	 * @param bindings         The bindings of the variables of the pattern.
+	 * @return The matching statements.
+	 */
+	public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(
+			StatementPattern statementPattern, final BindingSet bindings) throws QueryEvaluationException {
 		final Var subjVar = statementPattern.getSubjectVar();
 		final Var predVar = statementPattern.getPredicateVar();
 		final Var objVar = statementPattern.getObjectVar();
@@ -488,7 +542,6 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 		CloseableIteration<? extends Statement, QueryEvaluationException> stIter1 = null;
 		CloseableIteration<? extends Statement, QueryEvaluationException> stIter2 = null;
 		CloseableIteration<? extends Statement, QueryEvaluationException> stIter3 = null;
-		ConvertingIteration<Statement, BindingSet, QueryEvaluationException> resultingIterator = null;
 
 		if (isUnbound(subjVar, bindings) || isUnbound(predVar, bindings) || isUnbound(objVar, bindings)
 				|| isUnbound(conVar, bindings)) {
@@ -619,54 +672,24 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 				}
 			};
 
-			// Return an iterator that converts the statements to var bindings
-			resultingIterator = new ConvertingIteration<Statement, BindingSet, QueryEvaluationException>(stIter3) {
-
-				@Override
-				protected BindingSet convert(Statement st) {
-					QueryBindingSet result = new QueryBindingSet(bindings);
-
-					if (subjVar != null && !subjVar.isConstant() && !result.hasBinding(subjVar.getName())) {
-						result.addBinding(subjVar.getName(), st.getSubject());
-					}
-					if (predVar != null && !predVar.isConstant() && !result.hasBinding(predVar.getName())) {
-						result.addBinding(predVar.getName(), st.getPredicate());
-					}
-					if (objVar != null && !objVar.isConstant() && !result.hasBinding(objVar.getName())) {
-						result.addBinding(objVar.getName(), st.getObject());
-					}
-					if (conVar != null && !conVar.isConstant() && !result.hasBinding(conVar.getName())
-							&& st.getContext() != null) {
-						result.addBinding(conVar.getName(), st.getContext());
-					}
-
-					return result;
-				}
-			};
 			allGood = true;
 
-			return resultingIterator;
+			return stIter3;
 
 		} finally {
 			if (!allGood) {
 				try {
-					if (resultingIterator != null) {
-						resultingIterator.close();
+					if (stIter3 != null) {
+						stIter3.close();
 					}
 				} finally {
 					try {
-						if (stIter3 != null) {
-							stIter3.close();
+						if (stIter2 != null) {
+							stIter2.close();
 						}
 					} finally {
-						try {
-							if (stIter2 != null) {
-								stIter2.close();
-							}
-						} finally {
-							if (stIter1 != null) {
-								stIter1.close();
-							}
+						if (stIter1 != null) {
+							stIter1.close();
 						}
 					}
 				}
@@ -800,7 +823,11 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 
 	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(Filter filter, BindingSet bindings)
 			throws QueryEvaluationException {
-		CloseableIteration<BindingSet, QueryEvaluationException> result;
+		CloseableIteration<BindingSet, QueryEvaluationException> result = evaluateIds(filter, bindings);
+		if (result != null) {
+			return result;
+		}
+
 		result = this.evaluate(filter.getArg(), bindings);
 		result = new FilterIterator(filter, result, this);
 		return result;
@@ -889,21 +916,44 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 			return new ServiceJoinIterator(leftIter, (Service) join.getRightArg(), bindings, this);
 		}
 
+		CloseableIteration<BindingSet, QueryEvaluationException> idResult = evaluateIds(join, bindings);
+		if (idResult != null) {
+			return idResult;
+		}
+
 		if (isOutOfScopeForLeftArgBindings(join.getRightArg())) {
-			return new HashJoinIteration(this, join, bindings);
+			return new HashJoinIteration(this, join, bindings, memoryBudget);
 		} else {
 			return new JoinIterator(this, join, bindings);
 		}
 	}
 
-	private boolean isOutOfScopeForLeftArgBindings(TupleExpr expr) {
+	/**
+	 * Evaluates an expression on the IDs of the {@link IdTripleSource} of this strategy, if possible.
+	 *
+	 * @return An iteration over the results, or <tt>null</tt> if the expression can not be evaluated on IDs.
+	 * @see IdJoinIterator
+	 */
+	protected CloseableIteration<BindingSet, QueryEvaluationException> evaluateIds(TupleExpr expr,
+			BindingSet bindings) throws QueryEvaluationException {
+		if (!(tripleSource instanceof IdTripleSource) || trackResultSize || trackTime) {
+			return null;
+		}
+		if (dataset != null && (!dataset.getDefaultGraphs().isEmpty() || !dataset.getNamedGraphs().isEmpty())) {
+			// the patterns would have to be evaluated against specific contexts
+			return null;
+		}
+		return IdJoinIterator.create((IdTripleSource) tripleSource, expr, bindings);
+	}
+
+	protected boolean isOutOfScopeForLeftArgBindings(TupleExpr expr) {
 		return (TupleExprs.isVariableScopeChange(expr) || TupleExprs.containsSubquery(expr));
 	}
 
 	public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(LeftJoin leftJoin,
 			final BindingSet bindings) throws QueryEvaluationException {
 		if (TupleExprs.containsSubquery(leftJoin.getRightArg())) {
-			return new HashJoinIteration(this, leftJoin, bindings);
+			return new HashJoinIteration(this, leftJoin, bindings, memoryBudget);
 		}
 
 		// Check whether optional join is "well designed" as defined in section
@@ -2101,4 +2151,22 @@ public class StrictEvaluationStrategy implements EvaluationStrategy, FederatedSe
 	public void setTrackTime(boolean trackTime) {
 		this.trackTime = trackTime;
 	}
+
+	/**
+	 * Sets the amount of memory that the hash joins of a query may use for their hash tables. A hash join that
+	 * exceeds it partitions its arguments to temporary files instead.
+	 *
+	 * @param limit The estimated number of bytes, or <tt>0</tt> to keep hash tables in memory regardless of their
+	 *              size.
+	 */
+	public void setQueryMemoryBudget(long limit) {
+		this.memoryBudget = limit > 0 ? new MemoryBudget(limit) : null;
+	}
+
+	/**
+	 * @return The amount of memory that the hash joins of a query may use, or <tt>0</tt> if it is not limited.
+	 */
+	public long getQueryMemoryBudget() {
+		return memoryBudget != null ? memoryBudget.getLimit() : 0;
+	}
 }
@@ -40,6 +40,7 @@ public class StrictEvaluationStrategyFactory extends AbstractEvaluationStrategyF
 			EvaluationStatistics evaluationStatistics) {
 		StrictEvaluationStrategy strategy = new StrictEvaluationStrategy(tripleSource, dataset, serviceResolver,
 				getQuerySolutionCacheThreshold(), evaluationStatistics, isTrackResultSize());
+		strategy.setQueryMemoryBudget(getQueryMemoryBudget());
 		getOptimizerPipeline().ifPresent(strategy::setOptimizerPipeline);
 
 		return strategy;
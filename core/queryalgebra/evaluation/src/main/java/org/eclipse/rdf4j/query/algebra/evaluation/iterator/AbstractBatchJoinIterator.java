@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+
+/**
+ * Base class for batch-at-a-time joins that evaluate their right argument for each row of the batches of their left
+ * argument, like {@link JoinIterator} does for each binding set. The results for consecutive rows are collected in the
+ * same batch.
+ *
+ * @param <E> The type of the results of the right argument.
+ */
+public abstract class AbstractBatchJoinIterator<E>
+		extends LookAheadIteration<BindingSetBatch, QueryEvaluationException> {
+
+	private final CloseableIteration<BindingSetBatch, QueryEvaluationException> leftIter;
+
+	private final int batchSize;
+
+	private BindingSetBatch leftBatch;
+
+	/**
+	 * The row of the left batch that the right argument is currently evaluated for.
+	 */
+	private int leftRow;
+
+	private CloseableIteration<? extends E, QueryEvaluationException> rightIter = new EmptyIteration<>();
+
+	protected AbstractBatchJoinIterator(CloseableIteration<BindingSetBatch, QueryEvaluationException> leftIter,
+			int batchSize) {
+		this.leftIter = leftIter;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Evaluates the right argument for a row of a batch of the left argument.
+	 */
+	protected abstract CloseableIteration<? extends E, QueryEvaluationException> evaluate(BindingSetBatch left,
+			int row) throws QueryEvaluationException;
+
+	/**
+	 * Adds a row to a batch for a result of the right argument.
+	 *
+	 * @param output  The batch to add the row to.
+	 * @param left    The batch of the left argument.
+	 * @param leftRow The row of the left batch that the right argument was evaluated for.
+	 * @param result  The result of the right argument.
+	 */
+	protected abstract void addRow(BindingSetBatch output, BindingSetBatch left, int leftRow, E result)
+			throws QueryEvaluationException;
+
+	@Override
+	protected BindingSetBatch getNextElement() throws QueryEvaluationException {
+		BindingSetBatch output = new BindingSetBatch(batchSize);
+
+		while (!output.isFull()) {
+			if (rightIter.hasNext()) {
+				addRow(output, leftBatch, leftRow, rightIter.next());
+				continue;
+			}
+
+			// Right iteration exhausted
+			rightIter.close();
+
+			if (!nextLeftRow()) {
+				break;
+			}
+			rightIter = evaluate(leftBatch, leftRow);
+		}
+
+		return output.isEmpty() ? null : output;
+	}
+
+	private boolean nextLeftRow() throws QueryEvaluationException {
+		if (leftBatch != null && leftRow + 1 < leftBatch.size()) {
+			leftRow++;
+			return true;
+		}
+
+		while (leftIter.hasNext()) {
+			leftBatch = leftIter.next();
+			if (!leftBatch.isEmpty()) {
+				leftRow = 0;
+				return true;
+			}
+		}
+
+		leftBatch = null;
+		return false;
+	}
+
+	@Override
+	protected void handleClose() throws QueryEvaluationException {
+		try {
+			super.handleClose();
+		} finally {
+			try {
+				rightIter.close();
+			} finally {
+				leftIter.close();
+			}
+		}
+	}
+}
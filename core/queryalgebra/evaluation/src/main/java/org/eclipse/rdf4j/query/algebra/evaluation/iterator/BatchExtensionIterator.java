@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.ConvertingIteration;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.AggregateOperator;
+import org.eclipse.rdf4j.query.algebra.Extension;
+import org.eclipse.rdf4j.query.algebra.ExtensionElem;
+import org.eclipse.rdf4j.query.algebra.ValueExpr;
+import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.ValueExprEvaluationException;
+
+/**
+ * The batch-at-a-time equivalent of {@link ExtensionIterator}. Each extension element is evaluated for all rows of a
+ * batch before the next element is evaluated, and its values are stored in a column of the batch itself.
+ */
+public class BatchExtensionIterator
+		extends ConvertingIteration<BindingSetBatch, BindingSetBatch, QueryEvaluationException> {
+
+	private final Extension extension;
+
+	private final EvaluationStrategy strategy;
+
+	public BatchExtensionIterator(Extension extension,
+			CloseableIteration<BindingSetBatch, QueryEvaluationException> iter, EvaluationStrategy strategy)
+			throws QueryEvaluationException {
+		super(iter);
+		this.extension = extension;
+		this.strategy = strategy;
+	}
+
+	@Override
+	protected BindingSetBatch convert(BindingSetBatch batch) throws QueryEvaluationException {
+		for (ExtensionElem extElem : extension.getElements()) {
+			ValueExpr expr = extElem.getExpr();
+			if (expr instanceof AggregateOperator) {
+				continue;
+			}
+
+			int column = batch.addColumn(extElem.getName());
+			for (int row = 0; row < batch.size(); row++) {
+				try {
+					// later extension elements can use the values of earlier ones, as they are stored in the batch
+					Value targetValue = strategy.evaluate(expr, batch.getRow(row));
+
+					if (targetValue != null) {
+						batch.setValue(column, row, targetValue);
+					}
+				} catch (ValueExprEvaluationException e) {
+					// silently ignore type errors in extension arguments, the binding must remain unbound
+					// see https://www.w3.org/TR/sparql11-query/#assignment
+					batch.setValue(column, row, null);
+				}
+			}
+		}
+
+		return batch;
+	}
+}
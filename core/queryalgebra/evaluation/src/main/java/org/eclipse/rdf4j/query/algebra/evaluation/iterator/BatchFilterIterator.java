@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import java.util.Set;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.Filter;
+import org.eclipse.rdf4j.query.algebra.QueryModelNode;
+import org.eclipse.rdf4j.query.algebra.SubQueryValueOperator;
+import org.eclipse.rdf4j.query.algebra.ValueExpr;
+import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.ValueExprEvaluationException;
+
+/**
+ * The batch-at-a-time equivalent of {@link FilterIterator}. The rows of each batch that do not satisfy the condition
+ * are removed from the batch in place, and batches without remaining rows are skipped.
+ */
+public class BatchFilterIterator extends LookAheadIteration<BindingSetBatch, QueryEvaluationException> {
+
+	private final Filter filter;
+
+	private final CloseableIteration<BindingSetBatch, QueryEvaluationException> iter;
+
+	private final EvaluationStrategy strategy;
+
+	/**
+	 * The set of binding names that are "in scope" for the filter, or <tt>null</tt> if all bindings are in scope.
+	 *
+	 * @see FilterIterator
+	 */
+	private final Set<String> scopeBindingNames;
+
+	private int[] selection = new int[0];
+
+	public BatchFilterIterator(Filter filter, CloseableIteration<BindingSetBatch, QueryEvaluationException> iter,
+			EvaluationStrategy strategy) throws QueryEvaluationException {
+		this.filter = filter;
+		this.iter = iter;
+		this.strategy = strategy;
+		this.scopeBindingNames = isPartOfSubQuery(filter) ? null : filter.getBindingNames();
+	}
+
+	private static boolean isPartOfSubQuery(QueryModelNode node) {
+		for (QueryModelNode n = node; n != null; n = n.getParentNode()) {
+			if (n instanceof SubQueryValueOperator) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected BindingSetBatch getNextElement() throws QueryEvaluationException {
+		while (iter.hasNext()) {
+			BindingSetBatch batch = iter.next();
+			if (selection.length < batch.size()) {
+				selection = new int[batch.getCapacity()];
+			}
+
+			ValueExpr condition = filter.getCondition();
+			boolean[] visibleColumns = scopeBindingNames == null ? null : batch.getColumnMask(scopeBindingNames);
+			int count = 0;
+			for (int row = 0; row < batch.size(); row++) {
+				if (accept(condition, batch, row, visibleColumns)) {
+					selection[count++] = row;
+				}
+			}
+
+			if (count > 0) {
+				batch.retainRows(selection, count);
+				return batch;
+			}
+		}
+		return null;
+	}
+
+	private boolean accept(ValueExpr condition, BindingSetBatch batch, int row, boolean[] visibleColumns)
+			throws QueryEvaluationException {
+		try {
+			return strategy.isTrue(condition, batch.getRow(row, visibleColumns));
+		} catch (ValueExprEvaluationException e) {
+			// failed to evaluate condition
+			return false;
+		}
+	}
+
+	@Override
+	protected void handleClose() throws QueryEvaluationException {
+		try {
+			super.handleClose();
+		} finally {
+			iter.close();
+		}
+	}
+}
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
+
+/**
+ * The batch-at-a-time equivalent of {@link JoinIterator}, for right arguments that are evaluated row by row.
+ *
+ * @see BatchStatementPatternIterator
+ */
+public class BatchJoinIterator extends AbstractBatchJoinIterator<BindingSet> {
+
+	private final EvaluationStrategy strategy;
+
+	private final TupleExpr rightArg;
+
+	public BatchJoinIterator(EvaluationStrategy strategy,
+			CloseableIteration<BindingSetBatch, QueryEvaluationException> leftIter, TupleExpr rightArg, int batchSize) {
+		super(leftIter, batchSize);
+		this.strategy = strategy;
+		this.rightArg = rightArg;
+	}
+
+	@Override
+	protected CloseableIteration<BindingSet, QueryEvaluationException> evaluate(BindingSetBatch left, int row)
+			throws QueryEvaluationException {
+		return strategy.evaluate(rightArg, left.getRow(row));
+	}
+
+	@Override
+	protected void addRow(BindingSetBatch output, BindingSetBatch left, int leftRow, BindingSet result) {
+		// the results of the right argument include the bindings of the left row
+		output.addRow(result);
+	}
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import java.util.List;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.ConvertingIteration;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.MultiProjection;
+import org.eclipse.rdf4j.query.algebra.Projection;
+import org.eclipse.rdf4j.query.algebra.ProjectionElem;
+import org.eclipse.rdf4j.query.algebra.QueryModelNode;
+
+/**
+ * The batch-at-a-time equivalent of {@link ProjectionIterator}. The projected columns are shared with the batches of
+ * the underlying iteration rather than copied row by row.
+ */
+public class BatchProjectionIterator
+		extends ConvertingIteration<BindingSetBatch, BindingSetBatch, QueryEvaluationException> {
+
+	private final BindingSet parentBindings;
+
+	private final boolean isOuterProjection;
+
+	private final String[] sourceNames;
+
+	private final String[] targetNames;
+
+	public BatchProjectionIterator(Projection projection,
+			CloseableIteration<BindingSetBatch, QueryEvaluationException> iter, BindingSet parentBindings)
+			throws QueryEvaluationException {
+		super(iter);
+		this.parentBindings = parentBindings;
+		this.isOuterProjection = determineOuterProjection(projection);
+
+		List<ProjectionElem> elements = projection.getProjectionElemList().getElements();
+		sourceNames = new String[elements.size()];
+		targetNames = new String[elements.size()];
+		for (int i = 0; i < sourceNames.length; i++) {
+			sourceNames[i] = elements.get(i).getSourceName();
+			targetNames[i] = elements.get(i).getTargetName();
+		}
+	}
+
+	private static boolean determineOuterProjection(Projection projection) {
+		QueryModelNode ancestor = projection;
+		while (ancestor.getParentNode() != null) {
+			ancestor = ancestor.getParentNode();
+			if (ancestor instanceof Projection || ancestor instanceof MultiProjection) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	protected BindingSetBatch convert(BindingSetBatch batch) throws QueryEvaluationException {
+		BindingSetBatch result = batch.rename(sourceNames, targetNames);
+
+		// the values that are not bound in the underlying batch are taken from the parent bindings, as in
+		// ProjectionIterator.project(...)
+		for (int i = 0; i < sourceNames.length; i++) {
+			int column = result.addColumn(targetNames[i]);
+			Value parentValue = isOuterProjection ? parentBindings.getValue(sourceNames[i])
+					: parentBindings.getValue(targetNames[i]);
+			for (int row = 0; row < result.size(); row++) {
+				if (result.getValue(column, row) != null) {
+					continue;
+				}
+				if (parentValue != null) {
+					result.setValue(column, row, parentValue);
+				} else {
+					result.removeValue(column, row);
+				}
+			}
+		}
+
+		if (!isOuterProjection) {
+			// inner projections include all parent bindings
+			for (Binding binding : parentBindings) {
+				if (result.getColumn(binding.getName()) < 0) {
+					int column = result.addColumn(binding.getName());
+					for (int row = 0; row < result.size(); row++) {
+						result.setValue(column, row, binding.getValue());
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+}
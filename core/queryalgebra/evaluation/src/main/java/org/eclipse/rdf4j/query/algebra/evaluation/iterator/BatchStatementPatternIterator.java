@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.StrictEvaluationStrategy;
+
+/**
+ * Joins the rows of batches with the statements that match a statement pattern. The values of the statements are
+ * written to the columns of the resulting batches directly, without creating a binding set for each statement. A
+ * statement pattern on its own is evaluated by joining it with a batch that only contains the supplied bindings.
+ */
+public class BatchStatementPatternIterator extends AbstractBatchJoinIterator<Statement> {
+
+	private static final int SUBJ = 0;
+
+	private static final int PRED = 1;
+
+	private static final int OBJ = 2;
+
+	private static final int CONTEXT = 3;
+
+	private final StrictEvaluationStrategy strategy;
+
+	private final StatementPattern statementPattern;
+
+	/**
+	 * The names of the variables of the statement pattern that can be bound by a statement, or <tt>null</tt> for
+	 * constants and missing variables.
+	 */
+	private final String[] varNames = new String[4];
+
+	private BindingSetBatch output;
+
+	private BindingSetBatch left;
+
+	/**
+	 * The columns of the output batch for the columns of the left batch.
+	 */
+	private int[] leftMapping;
+
+	/**
+	 * The columns of the output batch for the variables of the statement pattern.
+	 */
+	private final int[] varColumns = new int[4];
+
+	public BatchStatementPatternIterator(StrictEvaluationStrategy strategy,
+			CloseableIteration<BindingSetBatch, QueryEvaluationException> leftIter, StatementPattern statementPattern,
+			int batchSize) {
+		super(leftIter, batchSize);
+		this.strategy = strategy;
+		this.statementPattern = statementPattern;
+
+		Var[] vars = { statementPattern.getSubjectVar(), statementPattern.getPredicateVar(),
+				statementPattern.getObjectVar(), statementPattern.getContextVar() };
+		for (int i = 0; i < vars.length; i++) {
+			if (vars[i] != null && !vars[i].isConstant()) {
+				varNames[i] = vars[i].getName();
+			}
+		}
+	}
+
+	@Override
+	protected CloseableIteration<? extends Statement, QueryEvaluationException> evaluate(BindingSetBatch left, int row)
+			throws QueryEvaluationException {
+		return strategy.getStatements(statementPattern, left.getRow(row));
+	}
+
+	@Override
+	protected void addRow(BindingSetBatch output, BindingSetBatch left, int leftRow, Statement st) {
+		if (output != this.output || left != this.left) {
+			// the columns only need to be looked up once for each pair of batches
+			this.output = output;
+			this.left = left;
+			leftMapping = output.getColumnMapping(left);
+			for (int i = 0; i < varNames.length; i++) {
+				varColumns[i] = varNames[i] == null ? -1 : output.addColumn(varNames[i]);
+			}
+		}
+
+		int row = output.addRow();
+		output.copyRow(left, leftRow, row, leftMapping);
+
+		// the same variable can occur more than once in the pattern, the statements have been filtered on that
+		setValue(output, row, SUBJ, st.getSubject());
+		setValue(output, row, PRED, st.getPredicate());
+		setValue(output, row, OBJ, st.getObject());
+		if (st.getContext() != null) {
+			setValue(output, row, CONTEXT, st.getContext());
+		}
+	}
+
+	private void setValue(BindingSetBatch output, int row, int position, Value value) {
+		int column = varColumns[position];
+		if (column >= 0 && !output.hasBinding(column, row)) {
+			output.setValue(column, row, value);
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+
+/**
+ * Groups the binding sets of an iteration into {@link BindingSetBatch}es.
+ */
+public class BatchingIteration extends LookAheadIteration<BindingSetBatch, QueryEvaluationException> {
+
+	private final CloseableIteration<BindingSet, QueryEvaluationException> iter;
+
+	private final int batchSize;
+
+	public BatchingIteration(CloseableIteration<BindingSet, QueryEvaluationException> iter, int batchSize) {
+		this.iter = iter;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	protected BindingSetBatch getNextElement() throws QueryEvaluationException {
+		if (!iter.hasNext()) {
+			return null;
+		}
+
+		BindingSetBatch batch = new BindingSetBatch(batchSize);
+		while (!batch.isFull() && iter.hasNext()) {
+			batch.addRow(iter.next());
+		}
+		return batch;
+	}
+
+	@Override
+	protected void handleClose() throws QueryEvaluationException {
+		try {
+			super.handleClose();
+		} finally {
+			iter.close();
+		}
+	}
+}
@@ -0,0 +1,430 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.AbstractBindingSet;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.impl.SimpleBinding;
+
+/**
+ * A fixed-size batch of query solutions that stores the values of each binding name in a separate column. Operators
+ * that exchange batches only pay the cost of an iteration step once per batch, and can process the values of a column
+ * in a tight loop.
+ * <p>
+ * A batch is owned by the operator that currently processes it, which may modify it before passing it on. The rows of
+ * a batch that has been passed on to the consumer of the query results must not be modified anymore, as the binding
+ * sets returned by {@link #getRow(int)} are views on the batch.
+ */
+public final class BindingSetBatch {
+
+	/**
+	 * Placeholder for bindings that have explicitly been set to no value, which are reported by
+	 * {@link BindingSet#hasBinding(String)} but have a <tt>null</tt> value, like in a {@link QueryBindingSet}.
+	 */
+	private static final Object UNBOUND = new Object();
+
+	private String[] names;
+
+	/**
+	 * The values of the rows, indexed by column and row. Elements are either a {@link Value}, {@link #UNBOUND} or
+	 * <tt>null</tt> for rows in which the binding name is not bound.
+	 */
+	private Object[][] columns;
+
+	private final int capacity;
+
+	private int size;
+
+	/**
+	 * Creates a new batch without columns.
+	 *
+	 * @param capacity The maximum number of rows of the batch.
+	 */
+	public BindingSetBatch(int capacity) {
+		this(new String[0], new Object[0][], capacity, 0);
+	}
+
+	private BindingSetBatch(String[] names, Object[][] columns, int capacity, int size) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+		this.names = names;
+		this.columns = columns;
+		this.capacity = capacity;
+		this.size = size;
+	}
+
+	/**
+	 * @return The number of rows in this batch.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return <tt>true</tt> if no more rows can be added to this batch.
+	 */
+	public boolean isFull() {
+		return size == capacity;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public int getColumnCount() {
+		return names.length;
+	}
+
+	/**
+	 * @param column The index of a column.
+	 * @return The binding name of the column.
+	 */
+	public String getName(int column) {
+		return names[column];
+	}
+
+	/**
+	 * Gets the index of the column for a binding name.
+	 *
+	 * @return The index, or <tt>-1</tt> if this batch has no column for the binding name.
+	 */
+	public int getColumn(String name) {
+		for (int i = 0; i < names.length; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the index of the column for a binding name, adding an empty column if this batch has none.
+	 */
+	public int addColumn(String name) {
+		int column = getColumn(name);
+		if (column < 0) {
+			column = names.length;
+			names = Arrays.copyOf(names, column + 1);
+			names[column] = name;
+			columns = Arrays.copyOf(columns, column + 1);
+			columns[column] = new Object[capacity];
+		}
+		return column;
+	}
+
+	/**
+	 * Adds an empty row to this batch.
+	 *
+	 * @return The index of the new row.
+	 * @throws IllegalStateException If the batch is full.
+	 */
+	public int addRow() {
+		if (isFull()) {
+			throw new IllegalStateException("Batch is full");
+		}
+		return size++;
+	}
+
+	/**
+	 * Adds a row with the bindings of a binding set to this batch.
+	 *
+	 * @return The index of the new row.
+	 * @throws IllegalStateException If the batch is full.
+	 */
+	public int addRow(BindingSet bindings) {
+		int row = addRow();
+		if (bindings instanceof RowBindingSet && ((RowBindingSet) bindings).visibleColumns == null) {
+			RowBindingSet source = (RowBindingSet) bindings;
+			copyRow(source.batch, source.row, row);
+		} else {
+			for (String name : bindings.getBindingNames()) {
+				setValue(addColumn(name), row, bindings.getValue(name));
+			}
+		}
+		return row;
+	}
+
+	/**
+	 * Copies all bindings of a row of another batch to a row of this batch.
+	 */
+	public void copyRow(BindingSetBatch source, int sourceRow, int row) {
+		copyRow(source, sourceRow, row, getColumnMapping(source));
+	}
+
+	/**
+	 * Copies all bindings of a row of another batch to a row of this batch.
+	 *
+	 * @param mapping The mapping of the columns of the other batch to the columns of this batch, as returned by
+	 *                {@link #getColumnMapping(BindingSetBatch)}.
+	 */
+	public void copyRow(BindingSetBatch source, int sourceRow, int row, int[] mapping) {
+		for (int i = 0; i < mapping.length; i++) {
+			Object value = source.columns[i][sourceRow];
+			if (value != null) {
+				columns[mapping[i]][row] = value;
+			}
+		}
+	}
+
+	/**
+	 * Maps the columns of another batch to the columns of this batch with the same binding names, adding columns to
+	 * this batch as needed. The mapping remains valid as long as no columns are added to the other batch.
+	 *
+	 * @return The indexes of the columns of this batch, indexed by the columns of the other batch.
+	 */
+	public int[] getColumnMapping(BindingSetBatch source) {
+		int[] mapping = new int[source.names.length];
+		for (int i = 0; i < mapping.length; i++) {
+			mapping[i] = addColumn(source.names[i]);
+		}
+		return mapping;
+	}
+
+	/**
+	 * Gets the value of a row in a column.
+	 *
+	 * @return The value, or <tt>null</tt> if the row has no value for the binding name of the column.
+	 */
+	public Value getValue(int column, int row) {
+		Object value = columns[column][row];
+		return value == UNBOUND ? null : (Value) value;
+	}
+
+	/**
+	 * @return <tt>true</tt> if the row has a binding for the binding name of the column, which can be explicitly set
+	 *         to no value.
+	 */
+	public boolean hasBinding(int column, int row) {
+		return columns[column][row] != null;
+	}
+
+	/**
+	 * Sets the value of a row in a column.
+	 *
+	 * @param value The value, or <tt>null</tt> for a binding that has explicitly been set to no value.
+	 */
+	public void setValue(int column, int row, Value value) {
+		columns[column][row] = value == null ? UNBOUND : value;
+	}
+
+	/**
+	 * Removes the value of a row in a column, so the row has no binding for the binding name of the column.
+	 */
+	public void removeValue(int column, int row) {
+		columns[column][row] = null;
+	}
+
+	/**
+	 * Retains the selected rows of this batch, in the order of selection.
+	 *
+	 * @param selection The indexes of the rows to retain, in ascending order.
+	 * @param count     The number of selected rows.
+	 */
+	public void retainRows(int[] selection, int count) {
+		if (count == size) {
+			return;
+		}
+		for (Object[] column : columns) {
+			for (int i = 0; i < count; i++) {
+				column[i] = column[selection[i]];
+			}
+			Arrays.fill(column, count, size, null);
+		}
+		size = count;
+	}
+
+	/**
+	 * Creates a batch with the same rows as this batch, in which the columns of the source binding names are renamed
+	 * to the target binding names. Other columns are not included. The column arrays are shared with this batch, which
+	 * must not be used anymore.
+	 */
+	public BindingSetBatch rename(String[] sourceNames, String[] targetNames) {
+		String[] newNames = new String[targetNames.length];
+		Object[][] newColumns = new Object[targetNames.length][];
+		boolean[] shared = new boolean[columns.length];
+		int count = 0;
+		for (int i = 0; i < sourceNames.length; i++) {
+			int column = getColumn(sourceNames[i]);
+			if (column >= 0 && indexOf(newNames, count, targetNames[i]) < 0) {
+				newNames[count] = targetNames[i];
+				// a column that is renamed to more than one name is copied, so each can be modified separately
+				newColumns[count] = shared[column] ? columns[column].clone() : columns[column];
+				shared[column] = true;
+				count++;
+			}
+		}
+		return new BindingSetBatch(Arrays.copyOf(newNames, count), Arrays.copyOf(newColumns, count), capacity, size);
+	}
+
+	private static int indexOf(String[] names, int count, String name) {
+		for (int i = 0; i < count; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets a view on a row of this batch.
+	 */
+	public BindingSet getRow(int row) {
+		return getRow(row, null);
+	}
+
+	/**
+	 * Gets a view on some of the columns of a row of this batch.
+	 *
+	 * @param visibleColumns The columns that are visible in the view, as returned by {@link #getColumnMask(Set)}, or
+	 *                       <tt>null</tt> for all columns.
+	 */
+	public BindingSet getRow(int row, boolean[] visibleColumns) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("row: " + row);
+		}
+		return new RowBindingSet(this, row, visibleColumns);
+	}
+
+	/**
+	 * Determines which columns of this batch have one of the specified binding names.
+	 */
+	public boolean[] getColumnMask(Set<String> bindingNames) {
+		boolean[] mask = new boolean[names.length];
+		for (int i = 0; i < names.length; i++) {
+			mask[i] = bindingNames.contains(names[i]);
+		}
+		return mask;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(names) + " " + size + "/" + capacity;
+	}
+
+	/*---------------------------*
+	 * Inner class RowBindingSet *
+	 *---------------------------*/
+
+	/**
+	 * A view on a row of a batch.
+	 */
+	private static class RowBindingSet extends AbstractBindingSet {
+
+		private static final long serialVersionUID = -6479463521617359311L;
+
+		private final transient BindingSetBatch batch;
+
+		private final transient int row;
+
+		private final transient boolean[] visibleColumns;
+
+		RowBindingSet(BindingSetBatch batch, int row, boolean[] visibleColumns) {
+			this.batch = batch;
+			this.row = row;
+			this.visibleColumns = visibleColumns;
+		}
+
+		private boolean isVisible(int column) {
+			return visibleColumns == null || column < visibleColumns.length && visibleColumns[column];
+		}
+
+		private int getColumn(String bindingName) {
+			int column = batch.getColumn(bindingName);
+			return column >= 0 && isVisible(column) ? column : -1;
+		}
+
+		@Override
+		public Iterator<Binding> iterator() {
+			return new Iterator<Binding>() {
+
+				private int column = findNext(0);
+
+				private int findNext(int start) {
+					int i = start;
+					while (i < batch.names.length && (batch.getValue(i, row) == null || !isVisible(i))) {
+						i++;
+					}
+					return i;
+				}
+
+				@Override
+				public boolean hasNext() {
+					return column < batch.names.length;
+				}
+
+				@Override
+				public Binding next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					Binding binding = new SimpleBinding(batch.names[column], batch.getValue(column, row));
+					column = findNext(column + 1);
+					return binding;
+				}
+			};
+		}
+
+		@Override
+		public Set<String> getBindingNames() {
+			Set<String> bindingNames = new LinkedHashSet<>(batch.names.length * 2);
+			for (int i = 0; i < batch.names.length; i++) {
+				if (batch.hasBinding(i, row) && isVisible(i)) {
+					bindingNames.add(batch.names[i]);
+				}
+			}
+			return bindingNames;
+		}
+
+		@Override
+		public Binding getBinding(String bindingName) {
+			Value value = getValue(bindingName);
+			return value == null ? null : new SimpleBinding(bindingName, value);
+		}
+
+		@Override
+		public boolean hasBinding(String bindingName) {
+			int column = getColumn(bindingName);
+			return column >= 0 && batch.hasBinding(column, row);
+		}
+
+		@Override
+		public Value getValue(String bindingName) {
+			int column = getColumn(bindingName);
+			return column >= 0 ? batch.getValue(column, row) : null;
+		}
+
+		@Override
+		public int size() {
+			int count = 0;
+			for (int i = 0; i < batch.names.length; i++) {
+				if (batch.hasBinding(i, row) && isVisible(i)) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		private Object writeReplace() {
+			return new QueryBindingSet(this);
+		}
+	}
+}
@@ -8,9 +8,14 @@
 package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -19,8 +24,10 @@ import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.Set;
 
+import org.eclipse.rdf4j.common.io.FileUtil;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
 import org.eclipse.rdf4j.common.lang.ObjectUtil;
 import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Value;
@@ -46,13 +53,19 @@ import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
 import org.eclipse.rdf4j.query.algebra.evaluation.ValueExprEvaluationException;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.ExtendedEvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.BinaryBindingSetInput;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.BinaryBindingSetOutput;
 import org.eclipse.rdf4j.query.algebra.evaluation.util.MathUtil;
 import org.eclipse.rdf4j.query.algebra.evaluation.util.ValueComparator;
 import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
 
 /**
+ * Groups the solutions of its argument and computes the aggregates of each group.
+ * <p>
+ * If more groups than the iteration cache sync threshold are found, the solutions of the groups that do not fit in
+ * memory are partitioned by their group key to temporary files. The partitions are aggregated one at a time once the
+ * groups in memory have been returned.
+ *
  * @author David Huynh
  * @author Arjohn Kampman
  * @author Jeen Broekstra
@@ -64,6 +77,11 @@ public class GroupIterator extends CloseableIteratorIteration<BindingSet, QueryE
 	 * Constants *
 	 *-----------*/
 
+	/**
+	 * The number of partitions that the solutions of groups which do not fit in memory are written to.
+	 */
+	private static final int PARTITION_COUNT = 32;
+
 	private final SimpleValueFactory vf = SimpleValueFactory.getInstance();
 
 	private final EvaluationStrategy strategy;
@@ -76,16 +94,19 @@ public class GroupIterator extends CloseableIteratorIteration<BindingSet, QueryE
 
 	private final Object lock = new Object();
 
-	private final File tempFile;
-
-	private final DB db;
-
 	/**
-	 * Number of items cached before internal collections are synced to disk. If set to 0, no disk-syncing is done and
-	 * all internal caching is kept in memory.
+	 * Number of groups kept in memory before the solutions of further groups are written to disk. If set to 0, all
+	 * groups are kept in memory.
 	 */
 	private final long iterationCacheSyncThreshold;
 
+	/**
+	 * The partitions that have not been aggregated yet.
+	 */
+	private final Deque<Partition> partitions = new ArrayDeque<>();
+
+	private File tempDir;
+
 	/*--------------*
 	 * Constructors *
 	 *--------------*/
@@ -101,18 +122,6 @@ public class GroupIterator extends CloseableIteratorIteration<BindingSet, QueryE
 		this.group = group;
 		this.parentBindings = parentBindings;
 		this.iterationCacheSyncThreshold = iterationCacheSyncThreshold;
-
-		if (this.iterationCacheSyncThreshold > 0) {
-			try {
-				this.tempFile = File.createTempFile("group-eval", null);
-			} catch (IOException e) {
-				throw new QueryEvaluationException("could not initialize temp db", e);
-			}
-			this.db = DBMaker.newFileDB(tempFile).deleteFilesAfterClose().closeOnJvmShutdown().make();
-		} else {
-			this.tempFile = null;
-			this.db = null;
-		}
 	}
 
 	/*---------*
@@ -150,44 +159,38 @@ public class GroupIterator extends CloseableIteratorIteration<BindingSet, QueryE
 		try {
 			super.handleClose();
 		} finally {
-			if (db != null) {
-				db.close();
+			partitions.clear();
+			if (tempDir != null) {
+				FileUtil.deltree(tempDir);
 			}
 		}
 	}
 
-	private <T> Set<T> createSet(String setName) {
-		if (db != null) {
-			return db.getHashSet(setName);
-		} else {
-			return new HashSet<>();
-		}
+	private <T> Set<T> createSet() {
+		return new HashSet<>();
 	}
 
 	private Iterator<BindingSet> createIterator() throws QueryEvaluationException {
-		Collection<Entry> entries = buildEntries();
-		Set<BindingSet> bindingSets = createSet("bindingsets");
+		return new SolutionIterator(buildEntries());
+	}
 
-		for (Entry entry : entries) {
-			QueryBindingSet sol = new QueryBindingSet(parentBindings);
+	private BindingSet createSolution(Entry entry) throws QueryEvaluationException {
+		QueryBindingSet sol = new QueryBindingSet(parentBindings);
 
-			for (String name : group.getGroupBindingNames()) {
-				BindingSet prototype = entry.getPrototype();
-				if (prototype != null) {
-					Value value = prototype.getValue(name);
-					if (value != null) {
-						// Potentially overwrites bindings from super
-						sol.setBinding(name, value);
-					}
+		for (String name : group.getGroupBindingNames()) {
+			BindingSet prototype = entry.getPrototype();
+			if (prototype != null) {
+				Value value = prototype.getValue(name);
+				if (value != null) {
+					// Potentially overwrites bindings from super
+					sol.setBinding(name, value);
 				}
 			}
-
-			entry.bindSolution(sol);
-
-			bindingSets.add(sol);
 		}
 
-		return bindingSets.iterator();
+		entry.bindSolution(sol);
+
+		return sol;
 	}
 
 	private Collection<Entry> buildEntries() throws QueryEvaluationException {
@@ -209,6 +212,23 @@ public class GroupIterator extends CloseableIteratorIteration<BindingSet, QueryE
 				}
 			}
 
+			return aggregate(iter, entries, 0);
+		} finally {
+			iter.close();
+		}
+
+	}
+
+	/**
+	 * Adds the solutions of an iteration to their groups. Solutions of new groups are written to partitions on disk
+	 * once the number of groups reaches the iteration cache sync threshold.
+	 *
+	 * @param depth The number of times that the solutions have been partitioned before.
+	 */
+	private Collection<Entry> aggregate(CloseableIteration<BindingSet, QueryEvaluationException> iter,
+			Map<Key, Entry> entries, int depth) throws QueryEvaluationException {
+		PartitionWriter writer = null;
+		try {
 			while (iter.hasNext()) {
 				BindingSet sol;
 				try {
@@ -220,18 +240,170 @@ public class GroupIterator extends CloseableIteratorIteration<BindingSet, QueryE
 				Entry entry = entries.get(key);
 
 				if (entry == null) {
+					if (iterationCacheSyncThreshold > 0 && entries.size() >= iterationCacheSyncThreshold) {
+						// the group doesn't fit in memory, it is aggregated later
+						if (writer == null) {
+							writer = new PartitionWriter(depth);
+						}
+						writer.write(key, sol);
+						continue;
+					}
 					entry = new Entry(sol);
 					entries.put(key, entry);
 				}
 
 				entry.addSolution(sol);
 			}
+		} catch (IOException e) {
+			throw new QueryEvaluationException(e);
+		} finally {
+			if (writer != null) {
+				writer.close();
+			}
+		}
 
-			return entries.values();
+		return entries.values();
+	}
+
+	private Collection<Entry> aggregate(Partition partition) throws QueryEvaluationException {
+		try (PartitionIteration iter = new PartitionIteration(partition.file)) {
+			return aggregate(iter, new LinkedHashMap<>(), partition.depth + 1);
 		} finally {
-			iter.close();
+			partition.file.delete();
 		}
+	}
 
+	/**
+	 * Returns the solutions of the groups in memory, followed by the solutions of the partitions on disk.
+	 */
+	private class SolutionIterator implements Iterator<BindingSet> {
+
+		private Iterator<Entry> entries;
+
+		public SolutionIterator(Collection<Entry> entries) {
+			this.entries = entries.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (!entries.hasNext()) {
+				Partition partition = partitions.poll();
+				if (partition == null) {
+					return false;
+				}
+				entries = aggregate(partition).iterator();
+			}
+			return true;
+		}
+
+		@Override
+		public BindingSet next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return createSolution(entries.next());
+		}
+	}
+
+	/**
+	 * A temporary file with the solutions of groups that did not fit in memory.
+	 */
+	private static class Partition {
+
+		final File file;
+
+		final int depth;
+
+		Partition(File file, int depth) {
+			this.file = file;
+			this.depth = depth;
+		}
+	}
+
+	/**
+	 * Writes solutions to partitions by the hash of their group key.
+	 */
+	private class PartitionWriter {
+
+		private final int depth;
+
+		private final File[] files = new File[PARTITION_COUNT];
+
+		private final BinaryBindingSetOutput[] outputs = new BinaryBindingSetOutput[PARTITION_COUNT];
+
+		public PartitionWriter(int depth) throws IOException {
+			this.depth = depth;
+			if (tempDir == null) {
+				tempDir = Files.createTempDirectory("group-eval").toFile();
+			}
+		}
+
+		public void write(Key key, BindingSet sol) throws IOException {
+			// mix the bits of the hash code, so that each depth partitions differently
+			int h = key.hashCode() + depth * 0x9E3779B9;
+			h ^= h >>> 16;
+			h *= 0x85EBCA6B;
+			h ^= h >>> 13;
+			h *= 0xC2B2AE35;
+			h ^= h >>> 16;
+			int i = (h & Integer.MAX_VALUE) % PARTITION_COUNT;
+			if (outputs[i] == null) {
+				files[i] = File.createTempFile("partition", ".bin", tempDir);
+				outputs[i] = new BinaryBindingSetOutput(new FileOutputStream(files[i]));
+			}
+			outputs[i].write(sol);
+		}
+
+		public void close() throws QueryEvaluationException {
+			try {
+				for (int i = 0; i < PARTITION_COUNT; i++) {
+					if (outputs[i] != null) {
+						outputs[i].close();
+						partitions.addFirst(new Partition(files[i], depth));
+					}
+				}
+			} catch (IOException e) {
+				throw new QueryEvaluationException(e);
+			}
+		}
+	}
+
+	/**
+	 * Reads the solutions of a partition.
+	 */
+	private static class PartitionIteration extends LookAheadIteration<BindingSet, QueryEvaluationException> {
+
+		private final BinaryBindingSetInput input;
+
+		public PartitionIteration(File file) throws QueryEvaluationException {
+			try {
+				input = new BinaryBindingSetInput(new FileInputStream(file));
+			} catch (IOException e) {
+				throw new QueryEvaluationException(e);
+			}
+		}
+
+		@Override
+		protected BindingSet getNextElement() throws QueryEvaluationException {
+			try {
+				return input.read();
+			} catch (IOException e) {
+				throw new QueryEvaluationException(e);
+			}
+		}
+
+		@Override
+		protected void handleClose() throws QueryEvaluationException {
+			try {
+				super.handleClose();
+			} finally {
+				try {
+					input.close();
+				} catch (IOException e) {
+					throw new QueryEvaluationException(e);
+				}
+			}
+		}
 	}
 
 	/**
@@ -372,7 +544,7 @@ public class GroupIterator extends CloseableIteratorIteration<BindingSet, QueryE
 			this.arg = operator.getArg();
 
 			if (operator.isDistinct()) {
-				distinctValues = createSet("distinct-values-" + this.hashCode());
+				distinctValues = createSet();
 			} else {
 				distinctValues = null;
 			}
@@ -387,13 +559,7 @@ public class GroupIterator extends CloseableIteratorIteration<BindingSet, QueryE
 				return true;
 			}
 
-			final boolean result = distinctValues.add(value);
-			if (db != null && distinctValues.size() % iterationCacheSyncThreshold == 0) {
-				// write to disk every $iterationCacheSyncThreshold items
-				db.commit();
-			}
-
-			return result;
+			return distinctValues.add(value);
 		}
 
 		protected ValueExpr getArg() {
@@ -421,7 +587,7 @@ public class GroupIterator extends CloseableIteratorIteration<BindingSet, QueryE
 			// for a wildcarded count with a DISTINCT clause we need to filter on
 			// distinct bindingsets rather than individual values.
 			if (operator.isDistinct() && getArg() == null) {
-				distinctBindingSets = createSet("distinct-bs-" + this.hashCode());
+				distinctBindingSets = createSet();
 			} else {
 				distinctBindingSets = null;
 			}
@@ -447,13 +613,7 @@ public class GroupIterator extends CloseableIteratorIteration<BindingSet, QueryE
 				return true;
 			}
 
-			final boolean result = distinctBindingSets.add(s);
-			if (db != null && distinctBindingSets.size() % iterationCacheSyncThreshold == 0) {
-				// write to disk every
-				db.commit();
-			}
-
-			return result;
+			return distinctBindingSets.add(s);
 		}
 
 		@Override
@@ -27,11 +27,15 @@ import org.eclipse.rdf4j.query.algebra.LeftJoin;
 import org.eclipse.rdf4j.query.algebra.TupleExpr;
 import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.MemoryBudget;
 import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
 import org.eclipse.rdf4j.util.iterators.EmptyIterator;
 
 /**
  * Generic hash join implementation suitable for use by Sail implementations.
+ * <p>
+ * If a {@link MemoryBudget} is specified and the solutions that are held for the hash table exceed it, both arguments
+ * are partitioned to temporary files and joined one partition at a time.
  *
  * @author MJAHale
  */
@@ -59,32 +63,72 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 
 	private final boolean leftJoin;
 
+	private final MemoryBudget memoryBudget;
+
+	/**
+	 * The number of bytes reserved from the memory budget.
+	 */
+	private long reserved;
+
+	/**
+	 * The join of the partitioned arguments, once the memory budget has been exceeded.
+	 */
+	private volatile CloseableIteration<BindingSet, QueryEvaluationException> partitionedIter;
+
 	/*--------------*
 	 * Constructors *
 	 *--------------*/
 
 	public HashJoinIteration(EvaluationStrategy strategy, Join join, BindingSet bindings)
 			throws QueryEvaluationException {
-		this(strategy, join.getLeftArg(), join.getRightArg(), bindings, false);
+		this(strategy, join, bindings, null);
+	}
+
+	/**
+	 * @param memoryBudget The memory budget of the query, or <tt>null</tt> to keep the hash table in memory.
+	 */
+	public HashJoinIteration(EvaluationStrategy strategy, Join join, BindingSet bindings, MemoryBudget memoryBudget)
+			throws QueryEvaluationException {
+		this(strategy, join.getLeftArg(), join.getRightArg(), bindings, false, memoryBudget);
 		join.setAlgorithm(this);
 	}
 
 	public HashJoinIteration(EvaluationStrategy strategy, LeftJoin join, BindingSet bindings)
 			throws QueryEvaluationException {
-		this(strategy, join.getLeftArg(), join.getRightArg(), bindings, true);
+		this(strategy, join, bindings, null);
+	}
+
+	/**
+	 * @param memoryBudget The memory budget of the query, or <tt>null</tt> to keep the hash table in memory.
+	 */
+	public HashJoinIteration(EvaluationStrategy strategy, LeftJoin join, BindingSet bindings,
+			MemoryBudget memoryBudget) throws QueryEvaluationException {
+		this(strategy, join.getLeftArg(), join.getRightArg(), bindings, true, memoryBudget);
 		join.setAlgorithm(this);
 	}
 
 	public HashJoinIteration(EvaluationStrategy strategy, TupleExpr left, TupleExpr right, BindingSet bindings,
 			boolean leftJoin) throws QueryEvaluationException {
+		this(strategy, left, right, bindings, leftJoin, null);
+	}
+
+	public HashJoinIteration(EvaluationStrategy strategy, TupleExpr left, TupleExpr right, BindingSet bindings,
+			boolean leftJoin, MemoryBudget memoryBudget) throws QueryEvaluationException {
 		this(strategy, strategy.evaluate(left, bindings), left.getBindingNames(), strategy.evaluate(right, bindings),
-				right.getBindingNames(), leftJoin);
+				right.getBindingNames(), leftJoin, memoryBudget);
 	}
 
 	public HashJoinIteration(EvaluationStrategy strategy,
 			CloseableIteration<BindingSet, QueryEvaluationException> leftIter, Set<String> leftBindingNames,
 			CloseableIteration<BindingSet, QueryEvaluationException> rightIter, Set<String> rightBindingNames,
 			boolean leftJoin) throws QueryEvaluationException {
+		this(strategy, leftIter, leftBindingNames, rightIter, rightBindingNames, leftJoin, null);
+	}
+
+	public HashJoinIteration(EvaluationStrategy strategy,
+			CloseableIteration<BindingSet, QueryEvaluationException> leftIter, Set<String> leftBindingNames,
+			CloseableIteration<BindingSet, QueryEvaluationException> rightIter, Set<String> rightBindingNames,
+			boolean leftJoin, MemoryBudget memoryBudget) throws QueryEvaluationException {
 		this.leftIter = leftIter;
 		this.rightIter = rightIter;
 
@@ -93,6 +137,7 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 		joinAttributes = joinAttributeNames.toArray(new String[joinAttributeNames.size()]);
 
 		this.leftJoin = leftJoin;
+		this.memoryBudget = memoryBudget;
 	}
 
 	/*---------*
@@ -110,6 +155,10 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 				}
 			}
 		}
+		CloseableIteration<BindingSet, QueryEvaluationException> nextPartitionedIter = partitionedIter;
+		if (nextPartitionedIter != null) {
+			return nextPartitionedIter.hasNext() ? nextPartitionedIter.next() : null;
+		}
 		Iterator<BindingSet> nextHashTableValues = hashTableValues;
 
 		while (currentScanElem == null) {
@@ -210,10 +259,14 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 								disposeCache(toCloseScanList);
 							}
 						} finally {
-							Map<BindingSetHashKey, List<BindingSet>> toCloseHashTable = hashTable;
-							hashTable = null;
-							if (toCloseHashTable != null) {
-								disposeHashTable(toCloseHashTable);
+							try {
+								Map<BindingSetHashKey, List<BindingSet>> toCloseHashTable = hashTable;
+								hashTable = null;
+								if (toCloseHashTable != null) {
+									disposeHashTable(toCloseHashTable);
+								}
+							} finally {
+								closePartitionedIter();
 							}
 						}
 					}
@@ -230,14 +283,23 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 			leftArgResults = makeIterationCache(leftIter);
 
 			while (leftIter.hasNext() && rightIter.hasNext()) {
-				add(leftArgResults, leftIter.next());
-				add(rightArgResults, rightIter.next());
+				BindingSet leftNext = leftIter.next();
+				add(leftArgResults, leftNext);
+				BindingSet rightNext = rightIter.next();
+				add(rightArgResults, rightNext);
+				if (!reserveMemory(leftNext) || !reserveMemory(rightNext)) {
+					return partition(leftArgResults, rightArgResults);
+				}
 			}
 		} else {
 			leftArgResults = Collections.emptyList();
 
 			while (rightIter.hasNext()) {
-				add(rightArgResults, rightIter.next());
+				BindingSet rightNext = rightIter.next();
+				add(rightArgResults, rightNext);
+				if (!reserveMemory(rightNext)) {
+					return partition(leftArgResults, rightArgResults);
+				}
 			}
 		}
 
@@ -279,6 +341,56 @@ public class HashJoinIteration extends LookAheadIteration<BindingSet, QueryEvalu
 		return resultHashTable;
 	}
 
+	/**
+	 * Reserves memory for a solution that is held for the hash table.
+	 *
+	 * @return <tt>false</tt> if the memory budget has been exceeded.
+	 */
+	private boolean reserveMemory(BindingSet b) {
+		if (memoryBudget == null) {
+			return true;
+		}
+		long size = MemoryBudget.estimateSize(b);
+		if (!memoryBudget.tryReserve(size)) {
+			return false;
+		}
+		reserved += size;
+		return true;
+	}
+
+	private void releaseMemory() {
+		if (memoryBudget != null) {
+			memoryBudget.release(reserved);
+			reserved = 0;
+		}
+	}
+
+	/**
+	 * Moves the solutions of both arguments to partitions on disk, which are joined by {@link #partitionedIter}.
+	 *
+	 * @return An empty hash table.
+	 */
+	private Map<BindingSetHashKey, List<BindingSet>> partition(Collection<BindingSet> leftArgResults,
+			Collection<BindingSet> rightArgResults) throws QueryEvaluationException {
+		partitionedIter = new PartitionedHashJoinIteration(leftArgResults, leftIter, rightArgResults, rightIter,
+				joinAttributes, leftJoin, memoryBudget);
+		// the solutions that have been read are on disk now
+		releaseMemory();
+		return Collections.emptyMap();
+	}
+
+	private void closePartitionedIter() throws QueryEvaluationException {
+		try {
+			CloseableIteration<BindingSet, QueryEvaluationException> toClose = partitionedIter;
+			partitionedIter = null;
+			if (toClose != null) {
+				toClose.close();
+			}
+		} finally {
+			releaseMemory();
+		}
+	}
+
 	protected void putHashTableEntry(Map<BindingSetHashKey, List<BindingSet>> nextHashTable, BindingSetHashKey hashKey,
 			List<BindingSet> hashValue, boolean newEntry) throws QueryEvaluationException {
 		// by default, we use a standard memory hash map
@@ -0,0 +1,771 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.vocabulary.RDF4J;
+import org.eclipse.rdf4j.model.vocabulary.SESAME;
+import org.eclipse.rdf4j.query.AbstractBindingSet;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.And;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.Compare.CompareOp;
+import org.eclipse.rdf4j.query.algebra.Filter;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.Not;
+import org.eclipse.rdf4j.query.algebra.Or;
+import org.eclipse.rdf4j.query.algebra.QueryModelNode;
+import org.eclipse.rdf4j.query.algebra.SameTerm;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.StatementPattern.Scope;
+import org.eclipse.rdf4j.query.algebra.SubQueryValueOperator;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.ValueConstant;
+import org.eclipse.rdf4j.query.algebra.ValueExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.IdTripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.QuadIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.impl.SimpleBinding;
+
+/**
+ * Evaluates statement patterns, joins of statement patterns and filters on them at the level of the IDs of an
+ * {@link IdTripleSource}.
+ * <p>
+ * The join arguments are evaluated as nested loops in the order in which they appear in the query model, like
+ * {@link JoinIterator} does. Variables are bound to IDs in a single array that is reused for all intermediate results,
+ * and the quads of each pattern are read into a reused array as well, so no statements or binding sets are created
+ * for intermediate results. Filters are supported as far as they can be decided on IDs alone, i.e. term equality
+ * combined with boolean operators. The values of the variables are only looked up when the bindings of a result are
+ * accessed, typically by a projection, so values that are only needed to join patterns are never looked up.
+ */
+public class IdJoinIterator extends LookAheadIteration<BindingSet, QueryEvaluationException> {
+
+	private static final int UNBOUND = -1;
+
+	private static final int TRUE = 1;
+
+	private static final int FALSE = 0;
+
+	private static final int ERROR = -1;
+
+	private final IdTripleSource source;
+
+	private final BindingSet bindings;
+
+	/**
+	 * The names of the variables, indexed by slot.
+	 */
+	private final String[] varNames;
+
+	/**
+	 * The slots of the variables that are not bound by the supplied bindings, and therefore appear in the results.
+	 */
+	private final int[] outputSlots;
+
+	private final Step[] steps;
+
+	/**
+	 * The IDs that the variables are currently bound to, indexed by slot.
+	 */
+	private final int[] row;
+
+	/**
+	 * The IDs of the values that denote the default context when used as context.
+	 */
+	private final int[] nilIDs;
+
+	private final int[] quad = new int[4];
+
+	private int level = -1;
+
+	private boolean exhausted;
+
+	private IdJoinIterator(IdTripleSource source, BindingSet bindings, String[] varNames, int[] outputSlots,
+			Step[] steps, int[] row, int[] nilIDs, boolean empty) {
+		this.source = source;
+		this.bindings = bindings;
+		this.varNames = varNames;
+		this.outputSlots = outputSlots;
+		this.steps = steps;
+		this.row = row;
+		this.nilIDs = nilIDs;
+		this.exhausted = empty;
+	}
+
+	/**
+	 * Creates an iterator that evaluates an expression at the level of IDs, if possible. This is the case for
+	 * statement patterns and (nested) joins of statement patterns, optionally with filters on term equality. The
+	 * statement patterns are evaluated against all contexts, so the query must not specify a dataset.
+	 *
+	 * @param source   The source of the quads.
+	 * @param expr     The expression to evaluate.
+	 * @param bindings The bindings to evaluate the expression with.
+	 * @return The iterator, or <tt>null</tt> if the expression can not be evaluated at the level of IDs.
+	 */
+	public static IdJoinIterator create(IdTripleSource source, TupleExpr expr, BindingSet bindings)
+			throws QueryEvaluationException {
+		List<QueryModelNode> args = new ArrayList<>();
+		if (!collectArgs(expr, args)) {
+			return null;
+		}
+
+		Planner planner = new Planner(source, bindings);
+		List<Step> steps = new ArrayList<>();
+		for (QueryModelNode arg : args) {
+			if (arg instanceof StatementPattern) {
+				Step step = planner.plan((StatementPattern) arg);
+				if (step == null) {
+					return null;
+				}
+				steps.add(step);
+			} else {
+				Condition condition = planner.plan((Filter) arg);
+				if (condition == null) {
+					return null;
+				}
+				Step step = steps.get(steps.size() - 1);
+				step.conditions = Arrays.copyOf(step.conditions, step.conditions.length + 1);
+				step.conditions[step.conditions.length - 1] = condition;
+			}
+		}
+
+		IdJoinIterator iter = planner.createIterator(steps.toArray(new Step[0]));
+		for (QueryModelNode arg : args) {
+			if (arg.getParentNode() instanceof Join) {
+				((Join) arg.getParentNode()).setAlgorithm(iter);
+			}
+		}
+		return iter;
+	}
+
+	/**
+	 * Collects the statement patterns and filters of an expression in evaluation order.
+	 *
+	 * @return <tt>false</tt> if the expression contains other operators.
+	 */
+	private static boolean collectArgs(TupleExpr expr, List<QueryModelNode> args) {
+		if (expr instanceof StatementPattern) {
+			args.add(expr);
+			return true;
+		} else if (expr instanceof Join) {
+			Join join = (Join) expr;
+			return collectArgs(join.getLeftArg(), args) && collectArgs(join.getRightArg(), args);
+		} else if (expr instanceof Filter) {
+			Filter filter = (Filter) expr;
+			if (!collectArgs(filter.getArg(), args)) {
+				return false;
+			}
+			args.add(filter);
+			return true;
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	protected BindingSet getNextElement() throws QueryEvaluationException {
+		if (exhausted) {
+			return null;
+		}
+
+		if (level < 0) {
+			level = 0;
+			open(level);
+		}
+
+		while (level >= 0) {
+			if (advance(steps[level])) {
+				if (level == steps.length - 1) {
+					return createBindingSet();
+				}
+				open(++level);
+			} else {
+				steps[level].close();
+				level--;
+			}
+		}
+
+		exhausted = true;
+		return null;
+	}
+
+	/**
+	 * Starts the evaluation of a statement pattern, using the current bindings of its variables.
+	 */
+	private void open(int level) throws QueryEvaluationException {
+		Step step = steps[level];
+		for (int pos = 0; pos < 4; pos++) {
+			int id = step.constants[pos];
+			int slot = step.slots[pos];
+			if (slot >= 0) {
+				id = row[slot];
+				if (id == UNBOUND) {
+					id = IdTripleSource.WILDCARD;
+				} else if (pos == QuadIterator.CONTEXT_IDX && isNil(id)) {
+					id = IdTripleSource.DEFAULT_CONTEXT_ID;
+				}
+			}
+			step.pattern[pos] = id;
+		}
+		step.boundSlotCount = 0;
+		step.iter = source.getQuads(step.pattern[0], step.pattern[1], step.pattern[2], step.pattern[3]);
+	}
+
+	/**
+	 * Advances to the next quad of a statement pattern that is compatible with the current bindings and passes the
+	 * filters, binding the variables of the pattern.
+	 *
+	 * @return <tt>false</tt> if the pattern has no more matching quads.
+	 */
+	private boolean advance(Step step) throws QueryEvaluationException {
+		while (true) {
+			step.unbind(row);
+			if (!step.iter.next(quad)) {
+				return false;
+			}
+			if (bind(step) && accept(step)) {
+				return true;
+			}
+		}
+	}
+
+	private boolean bind(Step step) {
+		if (step.namedContexts && step.pattern[QuadIterator.CONTEXT_IDX] == IdTripleSource.WILDCARD
+				&& quad[QuadIterator.CONTEXT_IDX] == IdTripleSource.DEFAULT_CONTEXT_ID) {
+			// named contexts only
+			return false;
+		}
+
+		for (int pos = 0; pos < 4; pos++) {
+			int slot = step.slots[pos];
+			if (slot < 0 || step.pattern[pos] != IdTripleSource.WILDCARD) {
+				continue;
+			}
+
+			int id = quad[pos];
+			if (pos == QuadIterator.CONTEXT_IDX && id == IdTripleSource.DEFAULT_CONTEXT_ID) {
+				// the context variable remains unbound for the default context, so can't be equal to another field
+				if (step.sharedContextVar) {
+					return false;
+				}
+				continue;
+			}
+
+			if (row[slot] == UNBOUND) {
+				row[slot] = id;
+				step.boundSlots[step.boundSlotCount++] = slot;
+			} else if (row[slot] != id) {
+				// the same variable occurs more than once in the pattern
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean accept(Step step) {
+		for (Condition condition : step.conditions) {
+			if (condition.evaluate(row) != TRUE) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isNil(int id) {
+		for (int nilID : nilIDs) {
+			if (id == nilID) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private BindingSet createBindingSet() {
+		int size = 0;
+		for (int slot : outputSlots) {
+			if (row[slot] != UNBOUND) {
+				size++;
+			}
+		}
+
+		String[] names = new String[size];
+		int[] ids = new int[size];
+		int i = 0;
+		for (int slot : outputSlots) {
+			if (row[slot] != UNBOUND) {
+				names[i] = varNames[slot];
+				ids[i] = row[slot];
+				i++;
+			}
+		}
+
+		return new IdBindingSet(source, bindings, names, ids);
+	}
+
+	@Override
+	protected void handleClose() throws QueryEvaluationException {
+		try {
+			super.handleClose();
+		} finally {
+			for (Step step : steps) {
+				step.close();
+			}
+		}
+	}
+
+	/*---------------------*
+	 * Inner class Planner *
+	 *---------------------*/
+
+	/**
+	 * Assigns the variables of the statement patterns to slots, and translates the constants to IDs.
+	 */
+	private static class Planner {
+
+		private final IdTripleSource source;
+
+		private final BindingSet bindings;
+
+		private final Map<String, Integer> slots = new HashMap<>();
+
+		private final List<Integer> initialIDs = new ArrayList<>();
+
+		private final List<Integer> outputSlots = new ArrayList<>();
+
+		private boolean empty;
+
+		Planner(IdTripleSource source, BindingSet bindings) {
+			this.source = source;
+			this.bindings = bindings;
+		}
+
+		Step plan(StatementPattern sp) throws QueryEvaluationException {
+			Var[] vars = { sp.getSubjectVar(), sp.getPredicateVar(), sp.getObjectVar(), sp.getContextVar() };
+			Step step = new Step(sp.getScope() == Scope.NAMED_CONTEXTS);
+
+			for (int pos = 0; pos < 4; pos++) {
+				Var var = vars[pos];
+				if (var == null) {
+					step.constants[pos] = IdTripleSource.WILDCARD;
+				} else if (var.isConstant()) {
+					Value value = var.getValue();
+					if (pos == QuadIterator.CONTEXT_IDX && (RDF4J.NIL.equals(value) || SESAME.NIL.equals(value))) {
+						step.constants[pos] = IdTripleSource.DEFAULT_CONTEXT_ID;
+					} else {
+						step.constants[pos] = getID(value);
+					}
+				} else {
+					Integer slot = getSlot(var);
+					if (slot == null) {
+						return null;
+					}
+					step.slots[pos] = slot;
+				}
+			}
+
+			int contextSlot = step.slots[QuadIterator.CONTEXT_IDX];
+			for (int pos = 0; pos < QuadIterator.CONTEXT_IDX; pos++) {
+				if (contextSlot >= 0 && step.slots[pos] == contextSlot) {
+					step.sharedContextVar = true;
+				}
+			}
+
+			return step;
+		}
+
+		Condition plan(Filter filter) throws QueryEvaluationException {
+			if (isPartOfSubQuery(filter)) {
+				return null;
+			}
+			return plan(filter.getCondition(), filter.getArg().getBindingNames());
+		}
+
+		private Condition plan(ValueExpr expr, Set<String> scope) throws QueryEvaluationException {
+			if (expr instanceof SameTerm) {
+				SameTerm sameTerm = (SameTerm) expr;
+				return planEquals(sameTerm.getLeftArg(), sameTerm.getRightArg(), scope, true, false);
+			} else if (expr instanceof Compare) {
+				Compare compare = (Compare) expr;
+				if (compare.getOperator() != CompareOp.EQ && compare.getOperator() != CompareOp.NE) {
+					return null;
+				}
+				return planEquals(compare.getLeftArg(), compare.getRightArg(), scope,
+						compare.getOperator() == CompareOp.EQ, true);
+			} else if (expr instanceof Not) {
+				Condition arg = plan(((Not) expr).getArg(), scope);
+				return arg == null ? null : row -> {
+					int result = arg.evaluate(row);
+					return result == ERROR ? ERROR : TRUE - result;
+				};
+			} else if (expr instanceof And) {
+				Condition left = plan(((And) expr).getLeftArg(), scope);
+				Condition right = plan(((And) expr).getRightArg(), scope);
+				return left == null || right == null ? null : row -> {
+					int leftResult = left.evaluate(row);
+					if (leftResult == FALSE) {
+						return FALSE;
+					}
+					int rightResult = right.evaluate(row);
+					return rightResult == FALSE ? FALSE : Math.min(leftResult, rightResult);
+				};
+			} else if (expr instanceof Or) {
+				Condition left = plan(((Or) expr).getLeftArg(), scope);
+				Condition right = plan(((Or) expr).getRightArg(), scope);
+				return left == null || right == null ? null : row -> {
+					int leftResult = left.evaluate(row);
+					if (leftResult == TRUE) {
+						return TRUE;
+					}
+					int rightResult = right.evaluate(row);
+					return rightResult == TRUE ? TRUE : Math.min(leftResult, rightResult);
+				};
+			} else {
+				return null;
+			}
+		}
+
+		/**
+		 * Plans a comparison of two terms. A comparison with the <tt>=</tt> or <tt>!=</tt> operator is only equivalent
+		 * to comparing terms if one of its arguments is an IRI or a blank node.
+		 */
+		private Condition planEquals(ValueExpr leftArg, ValueExpr rightArg, Set<String> scope, boolean equal,
+				boolean valueComparison) throws QueryEvaluationException {
+			Value leftValue = getConstantValue(leftArg);
+			Value rightValue = getConstantValue(rightArg);
+			if (valueComparison && !isResource(leftValue) && !isResource(rightValue)) {
+				return null;
+			}
+
+			if (leftValue != null && rightValue != null) {
+				return null;
+			} else if (leftValue != null || rightValue != null) {
+				Var var = (Var) (leftValue == null ? leftArg : rightArg);
+				Integer slot = getFilterSlot(var, scope);
+				if (slot == null) {
+					return null;
+				}
+				// an unknown value is not equal to any variable, but doesn't make the result empty
+				int id = source.getID(leftValue != null ? leftValue : rightValue);
+				return row -> row[slot] == UNBOUND ? ERROR : (row[slot] == id) == equal ? TRUE : FALSE;
+			} else {
+				if (!(leftArg instanceof Var) || !(rightArg instanceof Var)) {
+					return null;
+				}
+				Integer leftSlot = getFilterSlot((Var) leftArg, scope);
+				Integer rightSlot = getFilterSlot((Var) rightArg, scope);
+				if (leftSlot == null || rightSlot == null) {
+					return null;
+				}
+				return row -> row[leftSlot] == UNBOUND || row[rightSlot] == UNBOUND ? ERROR
+						: (row[leftSlot] == row[rightSlot]) == equal ? TRUE : FALSE;
+			}
+		}
+
+		private static Value getConstantValue(ValueExpr expr) {
+			if (expr instanceof ValueConstant) {
+				return ((ValueConstant) expr).getValue();
+			} else if (expr instanceof Var && ((Var) expr).hasValue()) {
+				return ((Var) expr).getValue();
+			}
+			return null;
+		}
+
+		private static boolean isResource(Value value) {
+			return value instanceof IRI || value instanceof BNode;
+		}
+
+		private static boolean isPartOfSubQuery(QueryModelNode node) {
+			for (QueryModelNode n = node; n != null; n = n.getParentNode()) {
+				if (n instanceof SubQueryValueOperator) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Gets the slot of a variable in a filter condition, which must be in scope of the filter and bound by a
+		 * statement pattern.
+		 */
+		private Integer getFilterSlot(Var var, Set<String> scope) {
+			return scope.contains(var.getName()) ? slots.get(var.getName()) : null;
+		}
+
+		/**
+		 * Gets the slot of a variable, assigning one if needed.
+		 *
+		 * @return The slot, or <tt>null</tt> if the variable is explicitly unbound by the supplied bindings.
+		 */
+		private Integer getSlot(Var var) throws QueryEvaluationException {
+			String name = var.getName();
+			Integer slot = slots.get(name);
+			if (slot != null) {
+				return slot;
+			}
+
+			int id = UNBOUND;
+			if (bindings.hasBinding(name)) {
+				Value value = bindings.getValue(name);
+				if (value == null) {
+					// the variable must remain unbound
+					return null;
+				}
+				id = getID(value);
+			} else if (var.hasValue()) {
+				id = getID(var.getValue());
+			}
+			if (id == IdTripleSource.UNKNOWN_ID) {
+				empty = true;
+			}
+
+			slot = slots.size();
+			slots.put(name, slot);
+			initialIDs.add(id);
+			if (!bindings.hasBinding(name)) {
+				outputSlots.add(slot);
+			}
+			return slot;
+		}
+
+		private int getID(Value value) throws QueryEvaluationException {
+			int id = source.getID(value);
+			if (id == IdTripleSource.UNKNOWN_ID) {
+				// no quads can match
+				empty = true;
+			}
+			return id;
+		}
+
+		IdJoinIterator createIterator(Step[] steps) throws QueryEvaluationException {
+			String[] varNames = new String[slots.size()];
+			for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+				varNames[entry.getValue()] = entry.getKey();
+			}
+
+			int[] row = new int[initialIDs.size()];
+			for (int i = 0; i < row.length; i++) {
+				row[i] = initialIDs.get(i);
+			}
+
+			int[] outputs = new int[outputSlots.size()];
+			for (int i = 0; i < outputs.length; i++) {
+				outputs[i] = outputSlots.get(i);
+			}
+
+			int[] nilIDs = { source.getID(RDF4J.NIL), source.getID(SESAME.NIL) };
+
+			return new IdJoinIterator(source, bindings, varNames, outputs, steps, row, nilIDs, empty);
+		}
+	}
+
+	/*------------------*
+	 * Inner class Step *
+	 *------------------*/
+
+	/**
+	 * The evaluation of a single statement pattern, including the filters that are applied to its results.
+	 */
+	private static class Step {
+
+		/**
+		 * The IDs of the constants of the pattern, or {@link IdTripleSource#WILDCARD} for positions without a constant.
+		 */
+		final int[] constants = { IdTripleSource.WILDCARD, IdTripleSource.WILDCARD, IdTripleSource.WILDCARD,
+				IdTripleSource.WILDCARD };
+
+		/**
+		 * The slots of the variables of the pattern, or <tt>-1</tt> for positions without a variable.
+		 */
+		final int[] slots = { -1, -1, -1, -1 };
+
+		final boolean namedContexts;
+
+		/**
+		 * Whether the context variable also occurs in another position of the pattern.
+		 */
+		boolean sharedContextVar;
+
+		Condition[] conditions = new Condition[0];
+
+		/**
+		 * The pattern that is currently evaluated.
+		 */
+		final int[] pattern = new int[4];
+
+		/**
+		 * The slots that are bound by the current quad.
+		 */
+		final int[] boundSlots = new int[4];
+
+		int boundSlotCount;
+
+		QuadIterator iter;
+
+		Step(boolean namedContexts) {
+			this.namedContexts = namedContexts;
+		}
+
+		void unbind(int[] row) {
+			for (int i = 0; i < boundSlotCount; i++) {
+				row[boundSlots[i]] = UNBOUND;
+			}
+			boundSlotCount = 0;
+		}
+
+		void close() throws QueryEvaluationException {
+			if (iter != null) {
+				try {
+					iter.close();
+				} finally {
+					iter = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A filter condition on the IDs of variables.
+	 */
+	@FunctionalInterface
+	private interface Condition {
+
+		/**
+		 * @return {@link #TRUE}, {@link #FALSE} or {@link #ERROR}.
+		 */
+		int evaluate(int[] row);
+	}
+
+	/*--------------------------*
+	 * Inner class IdBindingSet *
+	 *--------------------------*/
+
+	/**
+	 * A binding set that extends the bindings the expression was evaluated with by variables bound to IDs, which are
+	 * only looked up when the binding is accessed.
+	 */
+	private static class IdBindingSet extends AbstractBindingSet {
+
+		private static final long serialVersionUID = 3178541366296432531L;
+
+		private final transient IdTripleSource source;
+
+		private final BindingSet parent;
+
+		private final String[] names;
+
+		private final int[] ids;
+
+		private final transient Value[] values;
+
+		IdBindingSet(IdTripleSource source, BindingSet parent, String[] names, int[] ids) {
+			this.source = source;
+			this.parent = parent;
+			this.names = names;
+			this.ids = ids;
+			this.values = new Value[ids.length];
+		}
+
+		private Value getValue(int idx) {
+			Value value = values[idx];
+			if (value == null) {
+				value = source.getValue(ids[idx]);
+				values[idx] = value;
+			}
+			return value;
+		}
+
+		private int indexOf(String bindingName) {
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].equals(bindingName)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public Iterator<Binding> iterator() {
+			Iterator<Binding> parentIter = parent.iterator();
+
+			return new Iterator<Binding>() {
+
+				private int idx;
+
+				@Override
+				public boolean hasNext() {
+					return parentIter.hasNext() || idx < names.length;
+				}
+
+				@Override
+				public Binding next() {
+					if (parentIter.hasNext()) {
+						return parentIter.next();
+					}
+					if (idx >= names.length) {
+						throw new NoSuchElementException();
+					}
+					Binding binding = new SimpleBinding(names[idx], getValue(idx));
+					idx++;
+					return binding;
+				}
+			};
+		}
+
+		@Override
+		public Set<String> getBindingNames() {
+			Set<String> bindingNames = new LinkedHashSet<>(parent.getBindingNames());
+			bindingNames.addAll(Arrays.asList(names));
+			return bindingNames;
+		}
+
+		@Override
+		public Binding getBinding(String bindingName) {
+			int idx = indexOf(bindingName);
+			return idx >= 0 ? new SimpleBinding(bindingName, getValue(idx)) : parent.getBinding(bindingName);
+		}
+
+		@Override
+		public boolean hasBinding(String bindingName) {
+			return indexOf(bindingName) >= 0 || parent.hasBinding(bindingName);
+		}
+
+		@Override
+		public Value getValue(String bindingName) {
+			int idx = indexOf(bindingName);
+			return idx >= 0 ? getValue(idx) : parent.getValue(bindingName);
+		}
+
+		@Override
+		public int size() {
+			return parent.size() + names.length;
+		}
+
+		private Object writeReplace() throws ObjectStreamException {
+			// the values can't be looked up after deserialization
+			return new QueryBindingSet(this);
+		}
+	}
+}
@@ -12,19 +12,16 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
-import java.util.AbstractQueue;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
@@ -32,192 +29,177 @@ import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
 import org.eclipse.rdf4j.common.iteration.DelayedIteration;
 import org.eclipse.rdf4j.common.iteration.Iteration;
 import org.eclipse.rdf4j.common.iteration.LimitIteration;
+import org.eclipse.rdf4j.common.iterator.LookAheadIterator;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.BinaryBindingSetInput;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.BinaryBindingSetOutput;
 
 /**
  * Sorts the input and optionally applies limit and distinct.
+ * <p>
+ * If more solutions than the iteration sync threshold have to be sorted, the input is sorted in runs of that size,
+ * which are written to temporary files and merged afterwards.
  *
  * @author James Leigh
  * @author Arjohn Kampman
  */
 public class OrderIterator extends DelayedIteration<BindingSet, QueryEvaluationException> {
 
-	private static class SerializedQueue<E extends Serializable> extends AbstractQueue<E> implements Closeable {
-
-		private final File file;
+	/**
+	 * The maximum number of runs that are merged at once. If there are more runs, they are first merged into larger
+	 * runs.
+	 */
+	private static final int MAX_MERGE_WIDTH = 64;
 
-		private ObjectOutputStream output;
+	/**
+	 * A sorted sequence of solutions in a temporary file.
+	 */
+	private static class SortedRun implements Closeable {
 
-		private ObjectInputStream input;
+		private final File file;
 
-		private int size;
+		private BinaryBindingSetOutput output;
 
-		private E next;
+		private final List<BinaryBindingSetInput> inputs = new ArrayList<>(1);
 
-		private E last;
+		private long size;
 
-		public SerializedQueue(String prefix) throws IOException {
-			this(prefix, null);
-		}
+		private BindingSet last;
 
-		public SerializedQueue(String prefix, File directory) throws IOException {
-			file = File.createTempFile(prefix, "", directory);
-			output = new ObjectOutputStream(new FileOutputStream(file));
+		public SortedRun() throws IOException {
+			file = File.createTempFile("orderiter", ".bin");
+			output = new BinaryBindingSetOutput(new FileOutputStream(file));
 		}
 
-		public E peekLast() {
-			return last;
+		public void add(BindingSet bindings) throws IOException {
+			output.write(bindings);
+			last = bindings;
+			size++;
 		}
 
-		@Override
-		public boolean offer(E e) {
-			if (output == null) {
-				return false;
-			}
-			try {
-				output.writeObject(e);
-				last = e;
-				size++;
-				return true;
-			} catch (IOException exc) {
-				return false;
+		/**
+		 * Closes the file for writing.
+		 */
+		public void finish() throws IOException {
+			if (output != null) {
+				output.close();
+				output = null;
 			}
 		}
 
-		@Override
-		@SuppressWarnings("unchecked")
-		public E poll() {
-			try {
-				if (next != null) {
-					return next;
-				} else if (input == null) {
-					output.close();
-					input = new ObjectInputStream(new FileInputStream(file));
-				}
-				size--;
-				return (E) input.readObject();
-			} catch (IOException | ClassNotFoundException exc) {
-				return null;
-			} finally {
-				next = null;
-			}
+		public long size() {
+			return size;
 		}
 
-		@Override
-		public E peek() {
-			if (size <= 0) {
-				return null;
-			} else if (next != null) {
-				return next;
-			} else {
-				return next = poll();
-			}
+		public BindingSet peekLast() {
+			return last;
 		}
 
-		@Override
-		public Iterator<E> iterator() {
-			return new Iterator<E>() {
-
-				@Override
-				public boolean hasNext() {
-					return peek() != null;
-				}
+		public Iterator<BindingSet> iterator() throws IOException {
+			finish();
+			BinaryBindingSetInput input = new BinaryBindingSetInput(new FileInputStream(file));
+			inputs.add(input);
+			return new LookAheadIterator<BindingSet>() {
 
 				@Override
-				public E next() {
-					return poll();
+				protected BindingSet getNextElement() {
+					try {
+						return input.read();
+					} catch (IOException e) {
+						throw new QueryEvaluationException(e);
+					}
 				}
 			};
 		}
 
-		@Override
-		public int size() {
-			if (next == null) {
-				return (int) size;
-			} else {
-				return (int) size + 1;
-			}
-		}
-
 		@Override
 		public void close() throws IOException {
-			if (output != null) {
-				output.close();
-			}
-			if (input != null) {
-				input.close();
+			try {
+				finish();
+				for (BinaryBindingSetInput input : inputs) {
+					input.close();
+				}
+			} finally {
+				file.delete();
 			}
-			file.delete();
 		}
-
 	}
 
-	private static class SortedIterators<E> implements Iterator<E> {
+	/**
+	 * Merges sorted iterators, using a heap of their current elements.
+	 */
+	private static class SortedIterators<E> extends LookAheadIterator<E> {
 
 		private final List<Iterator<E>> iterators;
 
-		private final TreeMap<E, List<Integer>> head;
+		private final Comparator<E> comparator;
+
+		private final PriorityQueue<Head<E>> heap;
 
 		private final boolean distinct;
 
-		private E next;
+		/**
+		 * The elements that have been returned and that are equal to the last one according to the comparator, to
+		 * detect duplicates if distinct.
+		 */
+		private final Set<E> ties;
+
+		private E last;
 
 		public SortedIterators(Comparator<E> comparator, boolean distinct, List<Iterator<E>> iterators) {
 			this.iterators = iterators;
+			this.comparator = comparator;
 			this.distinct = distinct;
-			head = new TreeMap<>(comparator);
-		}
-
-		@Override
-		public boolean hasNext() {
-			if (next != null) {
-				return true;
-			} else {
-				next = next();
-				return next != null;
+			this.ties = distinct ? new HashSet<>() : null;
+			// equal elements are returned in the order of the iterators
+			heap = new PriorityQueue<>(Math.max(1, iterators.size()), (a, b) -> {
+				int result = comparator.compare(a.element, b.element);
+				return result != 0 ? result : Integer.compare(a.index, b.index);
+			});
+			for (int i = 0; i < iterators.size(); i++) {
+				advance(i);
 			}
 		}
 
 		@Override
-		public E next() {
-			if (next != null) {
-				try {
-					return next;
-				} finally {
-					next = null;
-				}
-			}
-			if (head.isEmpty()) {
-				for (int i = 0, n = iterators.size(); i < n; i++) {
-					advance(i);
-				}
-			}
-			if (head.isEmpty()) {
-				return null;
-			} else {
-				Entry<E, List<Integer>> e = head.firstEntry();
-				advance(e.getValue().remove(0));
-				if (e.getValue().isEmpty()) {
-					head.remove(e.getKey());
+		protected E getNextElement() {
+			Head<E> head;
+			while ((head = heap.poll()) != null) {
+				E next = head.element;
+				advance(head.index);
+				if (distinct) {
+					if (last == null || comparator.compare(last, next) != 0) {
+						ties.clear();
+					} else if (ties.contains(next)) {
+						continue;
+					}
+					ties.add(next);
+					last = next;
 				}
-				return e.getKey();
+				return next;
 			}
+			return null;
 		}
 
-		private void advance(int i) {
-			while (iterators.get(i).hasNext()) {
-				E key = iterators.get(i).next();
-				if (!head.containsKey(key)) {
-					head.put(key, new LinkedList<>(Arrays.asList(i)));
-					break;
-				} else if (!distinct) {
-					head.get(key).add(i);
-					break;
-				}
+		private void advance(int index) {
+			Iterator<E> iterator = iterators.get(index);
+			if (iterator.hasNext()) {
+				heap.add(new Head<>(iterator.next(), index));
 			}
 		}
 
+		private static class Head<E> {
+
+			final E element;
+
+			final int index;
+
+			Head(E element, int index) {
+				this.element = element;
+				this.index = index;
+			}
+		}
 	}
 
 	/*-----------*
@@ -232,7 +214,7 @@ public class OrderIterator extends DelayedIteration<BindingSet, QueryEvaluationE
 
 	private final boolean distinct;
 
-	private final List<SerializedQueue<BindingSet>> serialized = new LinkedList<>();
+	private final List<SortedRun> serialized = new LinkedList<>();
 
 	/**
 	 * Number of items cached before internal collection is synced to disk. If set to 0, no disk-syncing is done and all
@@ -276,10 +258,14 @@ public class OrderIterator extends DelayedIteration<BindingSet, QueryEvaluationE
 		try {
 			while (iter.hasNext()) {
 				if (list.size() >= syncThreshold && list.size() < limit) {
-					SerializedQueue<BindingSet> queue = new SerializedQueue<>("orderiter");
-					sort(list).forEach(bs -> queue.add(bs));
-					serialized.add(queue);
-					decrement(list.size() - queue.size());
+					SortedRun run = new SortedRun();
+					serialized.add(run);
+					Iterator<BindingSet> sorted = sort(list).iterator();
+					while (sorted.hasNext()) {
+						run.add(sorted.next());
+					}
+					run.finish();
+					decrement((int) (list.size() - run.size()));
 					list = new ArrayList<>(list.size());
 					if (threshold == null && serialized.stream().mapToLong(q -> q.size()).sum() >= limit) {
 						Stream<BindingSet> stream = serialized.stream().map(q -> q.peekLast());
@@ -300,17 +286,52 @@ public class OrderIterator extends DelayedIteration<BindingSet, QueryEvaluationE
 					increment();
 				}
 			}
+
+			while (serialized.size() >= MAX_MERGE_WIDTH) {
+				mergeRuns(MAX_MERGE_WIDTH);
+			}
+
+			List<Iterator<BindingSet>> iterators = new ArrayList<>(serialized.size() + 1);
+			for (SortedRun run : serialized) {
+				iterators.add(run.iterator());
+			}
+			iterators.add(sort(list).iterator());
+			Iterator<BindingSet> iterator;
+			if (iterators.size() == 1) {
+				iterator = iterators.get(0);
+			} else {
+				iterator = new SortedIterators<>(comparator, distinct, iterators);
+			}
+			return new LimitIteration<>(new CloseableIteratorIteration<>(iterator), limit);
 		} catch (IOException e) {
 			throw new QueryEvaluationException(e);
 		} finally {
 			iter.close();
 		}
-		SortedIterators<BindingSet> iterator;
-		List<Iterator<BindingSet>> iterators = new ArrayList<>(serialized.size() + 1);
-		serialized.forEach(queue -> iterators.add(queue.iterator()));
-		iterators.add(sort(list).iterator());
-		iterator = new SortedIterators<>(comparator, distinct, iterators);
-		return new LimitIteration<>(new CloseableIteratorIteration<>(iterator), limit);
+	}
+
+	/**
+	 * Merges the first runs into a single run, which is added after the remaining runs.
+	 */
+	private void mergeRuns(int count) throws IOException {
+		List<SortedRun> runs = new ArrayList<>(serialized.subList(0, count));
+		List<Iterator<BindingSet>> iterators = new ArrayList<>(count);
+		for (SortedRun run : runs) {
+			iterators.add(run.iterator());
+		}
+
+		SortedRun merged = new SortedRun();
+		serialized.add(merged);
+		SortedIterators<BindingSet> iterator = new SortedIterators<>(comparator, distinct, iterators);
+		while (iterator.hasNext() && merged.size() < limit) {
+			merged.add(iterator.next());
+		}
+		merged.finish();
+
+		serialized.removeAll(runs);
+		for (SortedRun run : runs) {
+			run.close();
+		}
 	}
 
 	protected void increment() throws QueryEvaluationException {
@@ -347,9 +368,9 @@ public class OrderIterator extends DelayedIteration<BindingSet, QueryEvaluationE
 			try {
 				iter.close();
 			} finally {
-				serialized.stream().map(queue -> {
+				serialized.stream().map(run -> {
 					try {
-						queue.close();
+						run.close();
 						return null;
 					} catch (IOException e) {
 						return e;
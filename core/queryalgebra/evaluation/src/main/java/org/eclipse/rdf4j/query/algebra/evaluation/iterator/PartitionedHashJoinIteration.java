@@ -0,0 +1,483 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.rdf4j.common.io.FileUtil;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.common.iterator.UnionIterator;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.BinaryBindingSetInput;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.BinaryBindingSetOutput;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.MemoryBudget;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
+
+/**
+ * A hash join that partitions both of its arguments to temporary files by the hash of their join attributes, like a
+ * grace hash join, and then joins the partitions one at a time. It is used by {@link HashJoinIteration} once its hash
+ * table would exceed the {@link MemoryBudget} of the query.
+ * <p>
+ * The right argument is used to build the hash table of each partition, the left argument is scanned. A partition
+ * that still does not fit in memory is partitioned again. If that does not help, because most of its solutions have
+ * the same join attributes, the hash table is built in chunks and the left partition is scanned once per chunk.
+ */
+class PartitionedHashJoinIteration extends LookAheadIteration<BindingSet, QueryEvaluationException> {
+
+	/**
+	 * The number of partitions that a partition is split into.
+	 */
+	static final int FANOUT = 32;
+
+	/**
+	 * The number of times that a partition that does not fit in memory is partitioned again.
+	 */
+	static final int MAX_DEPTH = 2;
+
+	private final String[] joinAttributes;
+
+	private final boolean leftJoin;
+
+	private final MemoryBudget memoryBudget;
+
+	private final File dir;
+
+	/**
+	 * The partitions that still have to be joined.
+	 */
+	private final Deque<Partition> partitions = new ArrayDeque<>();
+
+	private Partition partition;
+
+	private BinaryBindingSetInput buildInput;
+
+	private long buildRead;
+
+	private boolean lastChunk;
+
+	private Map<BindingSetHashKey, List<BindingSet>> hashTable;
+
+	/**
+	 * The number of bytes reserved for the hash table.
+	 */
+	private long reserved;
+
+	/**
+	 * The scanned solutions of a left join that have a match in one of the chunks of the hash table, or <tt>null</tt>
+	 * if the hash table of the partition has a single chunk.
+	 */
+	private BitSet matched;
+
+	/**
+	 * Set when the scanned solutions of a left join without a match in any chunk are returned.
+	 */
+	private boolean unmatchedScan;
+
+	private BinaryBindingSetInput scanInput;
+
+	private int scanIndex;
+
+	private BindingSet currentScanElem;
+
+	private Iterator<BindingSet> hashTableValues;
+
+	/**
+	 * Partitions the arguments of a join, including the solutions that have already been read from them.
+	 */
+	PartitionedHashJoinIteration(Collection<BindingSet> leftCache,
+			CloseableIteration<BindingSet, QueryEvaluationException> leftIter, Collection<BindingSet> rightCache,
+			CloseableIteration<BindingSet, QueryEvaluationException> rightIter, String[] joinAttributes,
+			boolean leftJoin, MemoryBudget memoryBudget) throws QueryEvaluationException {
+		this.joinAttributes = joinAttributes;
+		this.leftJoin = leftJoin;
+		this.memoryBudget = memoryBudget;
+		try {
+			dir = Files.createTempDirectory("rdf4j-hashjoin").toFile();
+		} catch (IOException e) {
+			throw new QueryEvaluationException(e);
+		}
+
+		try {
+			PartitionWriter writer = new PartitionWriter(0);
+			try {
+				for (BindingSet b : rightCache) {
+					writer.addBuild(b);
+				}
+				while (rightIter.hasNext()) {
+					writer.addBuild(rightIter.next());
+				}
+				for (BindingSet b : leftCache) {
+					writer.addScan(b);
+				}
+				while (leftIter.hasNext()) {
+					writer.addScan(leftIter.next());
+				}
+			} finally {
+				writer.close();
+			}
+		} catch (IOException | RuntimeException e) {
+			FileUtil.deltree(dir);
+			throw e instanceof QueryEvaluationException ? (QueryEvaluationException) e
+					: new QueryEvaluationException(e);
+		}
+	}
+
+	@Override
+	protected BindingSet getNextElement() throws QueryEvaluationException {
+		try {
+			while (true) {
+				if (hashTableValues != null) {
+					if (hashTableValues.hasNext()) {
+						return join(currentScanElem, hashTableValues.next());
+					}
+					hashTableValues = null;
+				}
+
+				if (scanInput != null) {
+					BindingSet next = scanInput.read();
+					if (next != null) {
+						BindingSet result = scan(next, scanIndex++);
+						if (result != null) {
+							return result;
+						}
+					} else {
+						scanInput.close();
+						scanInput = null;
+						endScan();
+					}
+				} else {
+					Partition next = partitions.poll();
+					if (next == null) {
+						return null;
+					}
+					startPartition(next);
+				}
+			}
+		} catch (IOException e) {
+			throw new QueryEvaluationException(e);
+		}
+	}
+
+	/**
+	 * Looks up a solution of the scanned partition in the hash table.
+	 *
+	 * @return A solution to return, or <tt>null</tt> if there is none or if the matches are returned by
+	 *         {@link #hashTableValues}.
+	 */
+	private BindingSet scan(BindingSet scanElem, int index) {
+		// the empty binding set is merged with all binding sets in the hash table
+		boolean empty = scanElem instanceof EmptyBindingSet;
+		if (unmatchedScan) {
+			return empty || matched.get(index) ? null : scanElem;
+		}
+
+		Iterator<BindingSet> values;
+		if (empty) {
+			values = new UnionIterator<>(hashTable.values());
+		} else {
+			List<BindingSet> hashValue = hashTable.get(BindingSetHashKey.create(joinAttributes, scanElem));
+			values = hashValue != null ? hashValue.iterator() : null;
+		}
+
+		if (values != null && values.hasNext()) {
+			if (matched != null) {
+				matched.set(index);
+			}
+			currentScanElem = scanElem;
+			hashTableValues = values;
+			return null;
+		} else if (leftJoin && matched == null && !empty) {
+			return scanElem;
+		}
+		return null;
+	}
+
+	private BindingSet join(BindingSet scanElem, BindingSet hashTableValue) {
+		QueryBindingSet result = new QueryBindingSet(scanElem);
+		for (String name : hashTableValue.getBindingNames()) {
+			if (!result.hasBinding(name)) {
+				Value v = hashTableValue.getValue(name);
+				if (v != null) {
+					result.addBinding(name, v);
+				}
+			}
+		}
+		return result;
+	}
+
+	private void startPartition(Partition next) throws IOException {
+		partition = next;
+		buildInput = new BinaryBindingSetInput(new FileInputStream(next.build));
+		buildRead = 0;
+		loadChunk();
+
+		if (!lastChunk && next.depth < MAX_DEPTH && joinAttributes.length > 0) {
+			// the partition doesn't fit in memory
+			endPartition();
+			repartition(next);
+			return;
+		}
+
+		matched = leftJoin && !lastChunk ? new BitSet() : null;
+		unmatchedScan = false;
+		startScan();
+	}
+
+	/**
+	 * Fills the hash table with the next solutions of the partition, as far as the memory budget allows.
+	 */
+	private void loadChunk() throws IOException {
+		releaseHashTable();
+		hashTable = new HashMap<>();
+		BindingSet b;
+		while (buildRead < partition.buildSize && (b = buildInput.read()) != null) {
+			buildRead++;
+			BindingSetHashKey key = BindingSetHashKey.create(joinAttributes, b);
+			List<BindingSet> hashValue = hashTable.get(key);
+			if (hashValue == null) {
+				hashValue = new ArrayList<>(1);
+				hashTable.put(key, hashValue);
+			}
+			hashValue.add(b);
+
+			// a chunk always holds at least one solution, so that the join makes progress
+			long size = MemoryBudget.estimateSize(b);
+			if (!memoryBudget.tryReserve(size)) {
+				break;
+			}
+			reserved += size;
+		}
+		lastChunk = buildRead == partition.buildSize;
+	}
+
+	private void startScan() throws IOException {
+		scanInput = new BinaryBindingSetInput(new FileInputStream(partition.scan));
+		scanIndex = 0;
+	}
+
+	/**
+	 * Continues with the next chunk of the hash table after the scanned partition has been read.
+	 */
+	private void endScan() throws IOException {
+		if (!lastChunk) {
+			loadChunk();
+			startScan();
+		} else if (matched != null && !unmatchedScan) {
+			releaseHashTable();
+			unmatchedScan = true;
+			startScan();
+		} else {
+			endPartition();
+			partition.delete();
+		}
+	}
+
+	private void endPartition() throws IOException {
+		try {
+			if (buildInput != null) {
+				buildInput.close();
+				buildInput = null;
+			}
+			if (scanInput != null) {
+				scanInput.close();
+				scanInput = null;
+			}
+		} finally {
+			releaseHashTable();
+			matched = null;
+			hashTableValues = null;
+			currentScanElem = null;
+		}
+	}
+
+	private void repartition(Partition oversized) throws IOException {
+		PartitionWriter writer = new PartitionWriter(oversized.depth + 1);
+		try {
+			try (BinaryBindingSetInput in = new BinaryBindingSetInput(new FileInputStream(oversized.build))) {
+				BindingSet b;
+				while ((b = in.read()) != null) {
+					writer.addBuild(b);
+				}
+			}
+			try (BinaryBindingSetInput in = new BinaryBindingSetInput(new FileInputStream(oversized.scan))) {
+				BindingSet b;
+				while ((b = in.read()) != null) {
+					writer.addScan(b);
+				}
+			}
+		} finally {
+			writer.close();
+		}
+		oversized.delete();
+	}
+
+	private void releaseHashTable() {
+		hashTable = null;
+		memoryBudget.release(reserved);
+		reserved = 0;
+	}
+
+	@Override
+	protected void handleClose() throws QueryEvaluationException {
+		try {
+			super.handleClose();
+		} finally {
+			try {
+				endPartition();
+			} catch (IOException e) {
+				throw new QueryEvaluationException(e);
+			} finally {
+				partitions.clear();
+				FileUtil.deltree(dir);
+			}
+		}
+	}
+
+	/**
+	 * A pair of temporary files with the solutions of the arguments that have the same hash.
+	 */
+	private static class Partition {
+
+		final File build;
+
+		final File scan;
+
+		final long buildSize;
+
+		final int depth;
+
+		Partition(File build, File scan, long buildSize, int depth) {
+			this.build = build;
+			this.scan = scan;
+			this.buildSize = buildSize;
+			this.depth = depth;
+		}
+
+		void delete() {
+			build.delete();
+			scan.delete();
+		}
+	}
+
+	/**
+	 * Writes solutions to partitions by the hash of their join attributes.
+	 */
+	private class PartitionWriter {
+
+		private final int depth;
+
+		private final File[] buildFiles;
+
+		private final File[] scanFiles;
+
+		private final BinaryBindingSetOutput[] buildOutputs;
+
+		private final BinaryBindingSetOutput[] scanOutputs;
+
+		private final long[] buildSizes;
+
+		private final long[] scanSizes;
+
+		PartitionWriter(int depth) throws IOException {
+			this.depth = depth;
+			// without join attributes, all solutions would end up in the same partition
+			int fanout = joinAttributes.length > 0 ? FANOUT : 1;
+			buildFiles = new File[fanout];
+			scanFiles = new File[fanout];
+			buildOutputs = new BinaryBindingSetOutput[fanout];
+			scanOutputs = new BinaryBindingSetOutput[fanout];
+			buildSizes = new long[fanout];
+			scanSizes = new long[fanout];
+			for (int i = 0; i < fanout; i++) {
+				buildFiles[i] = File.createTempFile("build", ".bin", dir);
+				buildOutputs[i] = new BinaryBindingSetOutput(new FileOutputStream(buildFiles[i]));
+				scanFiles[i] = File.createTempFile("scan", ".bin", dir);
+				scanOutputs[i] = new BinaryBindingSetOutput(new FileOutputStream(scanFiles[i]));
+			}
+		}
+
+		void addBuild(BindingSet b) throws IOException {
+			int i = getPartition(b);
+			buildOutputs[i].write(b);
+			buildSizes[i]++;
+		}
+
+		void addScan(BindingSet b) throws IOException {
+			if (b instanceof EmptyBindingSet) {
+				// the empty binding set is merged with the binding sets of all partitions
+				for (int i = 0; i < scanOutputs.length; i++) {
+					scanOutputs[i].write(b);
+					scanSizes[i]++;
+				}
+			} else {
+				int i = getPartition(b);
+				scanOutputs[i].write(b);
+				scanSizes[i]++;
+			}
+		}
+
+		private int getPartition(BindingSet b) {
+			if (buildOutputs.length == 1) {
+				return 0;
+			}
+			// mix the bits of the hash code, so that each depth partitions differently
+			int h = BindingSetHashKey.create(joinAttributes, b).hashCode() + depth * 0x9E3779B9;
+			h ^= h >>> 16;
+			h *= 0x85EBCA6B;
+			h ^= h >>> 13;
+			h *= 0xC2B2AE35;
+			h ^= h >>> 16;
+			return (h & Integer.MAX_VALUE) % buildOutputs.length;
+		}
+
+		/**
+		 * Closes the files and adds the partitions that can produce results to the partitions to join.
+		 */
+		void close() throws IOException {
+			IOException exception = null;
+			for (int i = 0; i < buildOutputs.length; i++) {
+				try {
+					buildOutputs[i].close();
+					scanOutputs[i].close();
+				} catch (IOException e) {
+					exception = e;
+				}
+			}
+			if (exception != null) {
+				throw exception;
+			}
+
+			for (int i = buildOutputs.length - 1; i >= 0; i--) {
+				Partition p = new Partition(buildFiles[i], scanFiles[i], buildSizes[i], depth);
+				if (scanSizes[i] > 0 && (buildSizes[i] > 0 || leftJoin)) {
+					// joined before the partitions of a lower depth, which frees disk space sooner
+					partitions.addFirst(p);
+				} else {
+					p.delete();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+
+/**
+ * Returns the rows of an iteration of {@link BindingSetBatch}es as binding sets. The rows are views on the batches,
+ * so they are not copied.
+ */
+public class UnbatchingIteration extends LookAheadIteration<BindingSet, QueryEvaluationException> {
+
+	private final CloseableIteration<BindingSetBatch, QueryEvaluationException> iter;
+
+	private BindingSetBatch batch;
+
+	private int row;
+
+	public UnbatchingIteration(CloseableIteration<BindingSetBatch, QueryEvaluationException> iter) {
+		this.iter = iter;
+	}
+
+	@Override
+	protected BindingSet getNextElement() throws QueryEvaluationException {
+		while (batch == null || row >= batch.size()) {
+			if (!iter.hasNext()) {
+				batch = null;
+				return null;
+			}
+			batch = iter.next();
+			row = 0;
+		}
+		return batch.getRow(row++);
+	}
+
+	@Override
+	protected void handleClose() throws QueryEvaluationException {
+		try {
+			super.handleClose();
+		} finally {
+			batch = null;
+			iter.close();
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.util;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
+
+/**
+ * Reads binding sets that have been written with a {@link BinaryBindingSetOutput}.
+ */
+public class BinaryBindingSetInput implements Closeable {
+
+	private final InputStream in;
+
+	private final ValueFactory vf;
+
+	private final List<String> dictionary = new ArrayList<>();
+
+	public BinaryBindingSetInput(InputStream in) {
+		this(in, SimpleValueFactory.getInstance());
+	}
+
+	public BinaryBindingSetInput(InputStream in, ValueFactory vf) {
+		this.in = new BufferedInputStream(in, 16 * 1024);
+		this.vf = vf;
+	}
+
+	/**
+	 * Reads the next binding set.
+	 *
+	 * @return The binding set, or <tt>null</tt> if the end of the stream has been reached. Binding sets without
+	 *         bindings are returned as {@link EmptyBindingSet}.
+	 */
+	public BindingSet read() throws IOException {
+		int first = in.read();
+		if (first < 0) {
+			return null;
+		}
+		int size = readInt(first);
+		if (size == 0) {
+			return EmptyBindingSet.getInstance();
+		}
+		QueryBindingSet bindings = new QueryBindingSet(size);
+		for (int i = 0; i < size; i++) {
+			String name = readString();
+			bindings.setBinding(name, readValue());
+		}
+		return bindings;
+	}
+
+	private Value readValue() throws IOException {
+		int type = readByte();
+		switch (type) {
+		case BinaryBindingSetOutput.NULL:
+			return null;
+		case BinaryBindingSetOutput.IRI:
+			String namespace = readString();
+			return vf.createIRI(namespace, readUTF());
+		case BinaryBindingSetOutput.BNODE:
+			return vf.createBNode(readUTF());
+		case BinaryBindingSetOutput.STRING_LITERAL:
+			return vf.createLiteral(readUTF());
+		case BinaryBindingSetOutput.LANG_LITERAL:
+			String label = readUTF();
+			return vf.createLiteral(label, readString());
+		case BinaryBindingSetOutput.TYPED_LITERAL:
+			String typedLabel = readUTF();
+			return vf.createLiteral(typedLabel, vf.createIRI(readString()));
+		case BinaryBindingSetOutput.TRIPLE:
+			Resource subj = (Resource) readValue();
+			IRI pred = (IRI) readValue();
+			return vf.createTriple(subj, pred, readValue());
+		default:
+			throw new IOException("Unknown value type: " + type);
+		}
+	}
+
+	private String readString() throws IOException {
+		int index = readInt(readByte());
+		if (index > 0) {
+			return dictionary.get(index - 1);
+		}
+		String s = readUTF();
+		if (dictionary.size() < BinaryBindingSetOutput.MAX_DICTIONARY_SIZE) {
+			dictionary.add(s);
+		}
+		return s;
+	}
+
+	private String readUTF() throws IOException {
+		int length = readInt(readByte());
+		byte[] bytes = new byte[length];
+		int offset = 0;
+		while (offset < length) {
+			int n = in.read(bytes, offset, length - offset);
+			if (n < 0) {
+				throw new EOFException();
+			}
+			offset += n;
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int readByte() throws IOException {
+		int b = in.read();
+		if (b < 0) {
+			throw new EOFException();
+		}
+		return b;
+	}
+
+	/**
+	 * Reads a variable-length integer.
+	 *
+	 * @param first The first byte of the integer, which has already been read.
+	 */
+	private int readInt(int first) throws IOException {
+		int value = first & 0x7F;
+		int b = first;
+		for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+			b = readByte();
+			value |= (b & 0x7F) << shift;
+		}
+		return value;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.util;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Triple;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+import org.eclipse.rdf4j.query.BindingSet;
+
+/**
+ * Writes binding sets to a stream in a compact binary format, which can be read with {@link BinaryBindingSetInput}.
+ * It is meant for intermediate results that are temporarily moved to disk, and is not suitable for exchanging data.
+ * <p>
+ * Binding names, datatypes, languages and IRI namespaces are written once per stream and referenced by number
+ * afterwards. Numbers and lengths are written as variable-length integers.
+ */
+public class BinaryBindingSetOutput implements Closeable, Flushable {
+
+	static final int NULL = 0;
+
+	static final int IRI = 1;
+
+	static final int BNODE = 2;
+
+	static final int STRING_LITERAL = 3;
+
+	static final int LANG_LITERAL = 4;
+
+	static final int TYPED_LITERAL = 5;
+
+	static final int TRIPLE = 6;
+
+	/**
+	 * The maximum number of strings that are referenced by number, which limits the memory used by very diverse
+	 * values.
+	 */
+	static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+	private final OutputStream out;
+
+	private final Map<String, Integer> dictionary = new HashMap<>();
+
+	public BinaryBindingSetOutput(OutputStream out) {
+		this.out = new BufferedOutputStream(out, 16 * 1024);
+	}
+
+	/**
+	 * Writes a binding set. Bindings that have explicitly been set to no value are retained.
+	 */
+	public void write(BindingSet bindings) throws IOException {
+		Set<String> names = bindings.getBindingNames();
+		writeInt(names.size());
+		for (String name : names) {
+			writeString(name);
+			writeValue(bindings.getValue(name));
+		}
+	}
+
+	private void writeValue(Value value) throws IOException {
+		if (value == null) {
+			out.write(NULL);
+		} else if (value instanceof IRI) {
+			IRI iri = (IRI) value;
+			out.write(IRI);
+			writeString(iri.getNamespace());
+			writeUTF(iri.getLocalName());
+		} else if (value instanceof BNode) {
+			out.write(BNODE);
+			writeUTF(((BNode) value).getID());
+		} else if (value instanceof Literal) {
+			Literal literal = (Literal) value;
+			Optional<String> language = literal.getLanguage();
+			if (language.isPresent() && RDF.LANGSTRING.equals(literal.getDatatype())) {
+				out.write(LANG_LITERAL);
+				writeUTF(literal.getLabel());
+				writeString(language.get());
+			} else if (XSD.STRING.equals(literal.getDatatype())) {
+				out.write(STRING_LITERAL);
+				writeUTF(literal.getLabel());
+			} else {
+				out.write(TYPED_LITERAL);
+				writeUTF(literal.getLabel());
+				writeString(literal.getDatatype().stringValue());
+			}
+		} else if (value instanceof Triple) {
+			Triple triple = (Triple) value;
+			out.write(TRIPLE);
+			writeValue(triple.getSubject());
+			writeValue(triple.getPredicate());
+			writeValue(triple.getObject());
+		} else {
+			throw new IOException("Unsupported value type: " + value.getClass());
+		}
+	}
+
+	/**
+	 * Writes a reference to a string that has been written before, or the string itself.
+	 */
+	private void writeString(String s) throws IOException {
+		Integer index = dictionary.get(s);
+		if (index != null) {
+			writeInt(index + 1);
+		} else {
+			writeInt(0);
+			writeUTF(s);
+			if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+				dictionary.put(s, dictionary.size());
+			}
+		}
+	}
+
+	private void writeUTF(String s) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private void writeInt(int value) throws IOException {
+		int v = value;
+		while ((v & ~0x7F) != 0) {
+			out.write((v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		out.write(v);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
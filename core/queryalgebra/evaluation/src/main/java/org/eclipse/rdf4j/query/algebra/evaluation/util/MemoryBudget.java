@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Triple;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.Binding;
+import org.eclipse.rdf4j.query.BindingSet;
+
+/**
+ * The amount of memory that the operators of a query may use to hold intermediate results. Operators that exceed the
+ * budget move their intermediate results to disk. The sizes are estimates in bytes, based on the lengths of the
+ * values that are held.
+ */
+public class MemoryBudget {
+
+	/**
+	 * Estimated overhead of an object in bytes.
+	 */
+	private static final int OBJECT_OVERHEAD = 16;
+
+	/**
+	 * Estimated overhead of a binding in a binding set in bytes, which includes the binding name and the reference to
+	 * its value.
+	 */
+	private static final int BINDING_OVERHEAD = 32;
+
+	private final long limit;
+
+	private final AtomicLong used = new AtomicLong();
+
+	/**
+	 * @param limit The maximum number of bytes that can be reserved.
+	 */
+	public MemoryBudget(long limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("limit must be positive");
+		}
+		this.limit = limit;
+	}
+
+	public long getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return The number of bytes that is currently reserved.
+	 */
+	public long getUsed() {
+		return used.get();
+	}
+
+	/**
+	 * Reserves memory, if the budget allows it.
+	 *
+	 * @param bytes The number of bytes to reserve.
+	 * @return <tt>true</tt> if the memory has been reserved, <tt>false</tt> if the reservation would exceed the limit.
+	 */
+	public boolean tryReserve(long bytes) {
+		if (used.addAndGet(bytes) > limit) {
+			used.addAndGet(-bytes);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Releases memory that has been reserved with {@link #tryReserve(long)}.
+	 */
+	public void release(long bytes) {
+		used.addAndGet(-bytes);
+	}
+
+	/**
+	 * Estimates the memory that a binding set occupies.
+	 *
+	 * @return The estimated number of bytes.
+	 */
+	public static long estimateSize(BindingSet bindings) {
+		long size = OBJECT_OVERHEAD;
+		for (Binding binding : bindings) {
+			size += BINDING_OVERHEAD + estimateSize(binding.getValue());
+		}
+		return size;
+	}
+
+	/**
+	 * Estimates the memory that a value occupies.
+	 *
+	 * @return The estimated number of bytes.
+	 */
+	public static long estimateSize(Value value) {
+		if (value == null) {
+			return 0;
+		} else if (value instanceof Literal) {
+			// the datatype and language are typically shared with other literals
+			return 2 * OBJECT_OVERHEAD + 2L * ((Literal) value).getLabel().length();
+		} else if (value instanceof Triple) {
+			Triple triple = (Triple) value;
+			return OBJECT_OVERHEAD + estimateSize(triple.getSubject()) + estimateSize(triple.getPredicate())
+					+ estimateSize(triple.getObject());
+		} else if (value instanceof BNode) {
+			return 2 * OBJECT_OVERHEAD + 2L * ((BNode) value).getID().length();
+		} else {
+			return 2 * OBJECT_OVERHEAD + 2L * value.stringValue().length();
+		}
+	}
+}
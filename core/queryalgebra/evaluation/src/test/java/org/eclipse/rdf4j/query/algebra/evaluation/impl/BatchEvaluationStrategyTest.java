@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.Compare.CompareOp;
+import org.eclipse.rdf4j.query.algebra.Extension;
+import org.eclipse.rdf4j.query.algebra.ExtensionElem;
+import org.eclipse.rdf4j.query.algebra.Filter;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.Projection;
+import org.eclipse.rdf4j.query.algebra.ProjectionElem;
+import org.eclipse.rdf4j.query.algebra.ProjectionElemList;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Str;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.ValueConstant;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Verifies that a {@link BatchEvaluationStrategy} produces the same results as a {@link StrictEvaluationStrategy}.
+ */
+public class BatchEvaluationStrategyTest {
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	private final IRI knows = vf.createIRI("urn:knows");
+
+	private final IRI age = vf.createIRI("urn:age");
+
+	private final IRI graph = vf.createIRI("urn:graph");
+
+	private final Model model = new LinkedHashModel();
+
+	private EvaluationStrategy strict;
+
+	private EvaluationStrategy batch;
+
+	@Before
+	public void setUp() {
+		for (int i = 0; i < 20; i++) {
+			IRI person = vf.createIRI("urn:person" + i);
+			model.add(person, age, vf.createLiteral(i));
+			model.add(person, knows, vf.createIRI("urn:person" + (i + 1) % 20), i % 3 == 0 ? graph : null);
+			model.add(person, knows, vf.createIRI("urn:person" + (i * 7) % 20));
+		}
+
+		TripleSource tripleSource = new TripleSource() {
+
+			@Override
+			public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(Resource subj,
+					IRI pred, Value obj, Resource... contexts) {
+				return new CloseableIteratorIteration<>(model.filter(subj, pred, obj, contexts).iterator());
+			}
+
+			@Override
+			public ValueFactory getValueFactory() {
+				return vf;
+			}
+		};
+
+		strict = new StrictEvaluationStrategy(tripleSource, null);
+		// a small batch size, so results span several batches
+		batch = new BatchEvaluationStrategy(tripleSource, null, null, 0, new EvaluationStatistics(), false, 3);
+	}
+
+	@Test
+	public void testJoin() {
+		assertSameResults(new Join(pattern("a", knows, "b"), pattern("b", knows, "c")));
+		assertSameResults(new Join(new Join(pattern("a", knows, "b"), pattern("b", knows, "c")),
+				pattern("c", age, "age")));
+	}
+
+	@Test
+	public void testContext() {
+		StatementPattern sp = new StatementPattern(new Var("a"), constant(knows), new Var("b"), new Var("g"));
+		assertSameResults(new Join(sp, pattern("b", age, "age")));
+	}
+
+	@Test
+	public void testFilter() {
+		Filter filter = new Filter(new Join(pattern("a", knows, "b"), pattern("b", age, "age")),
+				new Compare(new Var("age"), new ValueConstant(vf.createLiteral(10)), CompareOp.LT));
+		assertSameResults(filter);
+
+		// the right argument of the join is not a statement pattern
+		assertSameResults(new Join(pattern("a", knows, "b"), filter));
+	}
+
+	@Test
+	public void testProjectionAndExtension() {
+		Extension extension = new Extension(new Join(pattern("a", knows, "b"), pattern("b", age, "age")),
+				new ExtensionElem(new Str(new Var("b")), "name"));
+		Projection projection = new Projection(extension,
+				new ProjectionElemList(new ProjectionElem("name"), new ProjectionElem("age", "years")));
+		assertSameResults(projection);
+	}
+
+	@Test
+	public void testBindings() {
+		QueryBindingSet bindings = new QueryBindingSet();
+		bindings.addBinding("a", vf.createIRI("urn:person3"));
+		assertSameResults(new Join(pattern("a", knows, "b"), pattern("b", knows, "c")), bindings);
+
+		// a variable that must remain unbound
+		bindings.setBinding("b", null);
+		assertSameResults(new Join(pattern("a", knows, "b"), pattern("b", knows, "c")), bindings);
+	}
+
+	private void assertSameResults(TupleExpr expr) {
+		assertSameResults(expr, EmptyBindingSet.getInstance());
+	}
+
+	private void assertSameResults(TupleExpr expr, BindingSet bindings) {
+		List<String> expected = evaluate(strict, expr, bindings);
+		List<String> actual = evaluate(batch, expr, bindings);
+		assertEquals(expected, actual);
+	}
+
+	private List<String> evaluate(EvaluationStrategy strategy, TupleExpr expr, BindingSet bindings) {
+		List<String> result = new ArrayList<>();
+		try (CloseableIteration<BindingSet, QueryEvaluationException> iter = strategy.evaluate(expr, bindings)) {
+			while (iter.hasNext()) {
+				BindingSet solution = iter.next();
+				Map<String, Value> values = new TreeMap<>();
+				for (String name : solution.getBindingNames()) {
+					values.put(name, solution.getValue(name));
+				}
+				result.add(values.toString());
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	private StatementPattern pattern(String subj, IRI pred, String obj) {
+		return new StatementPattern(new Var(subj), constant(pred), new Var(obj));
+	}
+
+	private Var constant(Value value) {
+		Var var = new Var("_const_" + value.stringValue(), value);
+		var.setConstant(true);
+		return var;
+	}
+}
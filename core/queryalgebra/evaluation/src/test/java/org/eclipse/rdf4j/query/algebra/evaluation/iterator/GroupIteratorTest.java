@@ -11,7 +11,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.model.vocabulary.XSD;
@@ -150,4 +154,39 @@ public class GroupIteratorTest {
 
 		assertThat(gi.next().getBinding("sum").getValue()).isEqualTo(vf.createLiteral("45", XSD.INTEGER));
 	}
+
+	@Test
+	public void testGroupsOnDisk() throws QueryEvaluationException {
+		List<BindingSet> list = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			QueryBindingSet bindings = new QueryBindingSet();
+			bindings.addBinding("g", vf.createLiteral(i % 100));
+			bindings.addBinding("a", vf.createLiteral(i));
+			list.add(bindings);
+		}
+		BindingSetAssignment assignment = new BindingSetAssignment();
+		assignment.setBindingSets(list);
+
+		Group group = new Group(assignment);
+		group.addGroupBindingName("g");
+		group.addGroupElement(new GroupElem("count", new Count(new Var("a"))));
+		group.addGroupElement(new GroupElem("sum", new Sum(new Var("a"))));
+
+		// at most 10 groups are kept in memory
+		GroupIterator gi = new GroupIterator(evaluator, group, EmptyBindingSet.getInstance(), 10);
+		Set<Integer> groups = new HashSet<>();
+		try {
+			while (gi.hasNext()) {
+				BindingSet solution = gi.next();
+				int g = ((Literal) solution.getValue("g")).intValue();
+				assertThat(groups.add(g)).isTrue();
+				assertThat(solution.getValue("count")).isEqualTo(vf.createLiteral("10", XSD.INTEGER));
+				// the sum of g, g + 100, ..., g + 900
+				assertThat(((Literal) solution.getValue("sum")).intValue()).isEqualTo(10 * g + 4500);
+			}
+		} finally {
+			gi.close();
+		}
+		assertThat(groups).hasSize(100);
+	}
 }
@@ -10,7 +10,10 @@ package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.model.impl.ValueFactoryImpl;
@@ -20,6 +23,7 @@ import org.eclipse.rdf4j.query.algebra.BindingSetAssignment;
 import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
 import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.StrictEvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.MemoryBudget;
 import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
 import org.junit.Test;
 
@@ -106,4 +110,77 @@ public class HashJoinIterationTest {
 		assertEquals("x", actual.getValue("i").stringValue());
 		assertFalse(actual.hasBinding("b"));
 	}
+
+	@Test
+	public void testPartitionedJoin() throws QueryEvaluationException {
+		BindingSetAssignment left = assignment("a", "i", 200, 150);
+		BindingSetAssignment right = assignment("b", "i", 300, 100);
+
+		assertSameResults(left, right, false);
+		assertSameResults(left, right, true);
+	}
+
+	@Test
+	public void testPartitionedCartesianJoin() throws QueryEvaluationException {
+		BindingSetAssignment left = assignment("a", "i", 20, 20);
+		BindingSetAssignment right = assignment("b", "j", 30, 30);
+
+		assertSameResults(left, right, false);
+		assertSameResults(left, right, true);
+	}
+
+	@Test
+	public void testPartitionedJoinWithSkew() throws QueryEvaluationException {
+		// all solutions of the right argument have the same join attribute, so the hash table is built in chunks
+		BindingSetAssignment left = assignment("a", "i", 50, 2);
+		BindingSetAssignment right = assignment("b", "i", 100, 1);
+
+		assertSameResults(left, right, false);
+		assertSameResults(left, right, true);
+	}
+
+	private void assertSameResults(BindingSetAssignment left, BindingSetAssignment right, boolean leftJoin)
+			throws QueryEvaluationException {
+		List<String> expected = evaluate(
+				new HashJoinIteration(evaluator, left, right, EmptyBindingSet.getInstance(), leftJoin));
+
+		MemoryBudget budget = new MemoryBudget(1000);
+		List<String> actual = evaluate(
+				new HashJoinIteration(evaluator, left, right, EmptyBindingSet.getInstance(), leftJoin, budget));
+
+		assertEquals(expected, actual);
+		assertEquals(0, budget.getUsed());
+	}
+
+	private List<String> evaluate(HashJoinIteration iter) throws QueryEvaluationException {
+		List<String> result = new ArrayList<>();
+		try {
+			while (iter.hasNext()) {
+				BindingSet next = iter.next();
+				List<String> bindings = new ArrayList<>();
+				for (String name : next.getBindingNames()) {
+					bindings.add(name + "=" + next.getValue(name));
+				}
+				Collections.sort(bindings);
+				result.add(bindings.toString());
+			}
+		} finally {
+			iter.close();
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	private BindingSetAssignment assignment(String name, String joinName, int size, int joinValues) {
+		List<BindingSet> bindingSets = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			QueryBindingSet b = new QueryBindingSet();
+			b.addBinding(name, vf.createIRI("urn:" + name + i));
+			b.addBinding(joinName, vf.createLiteral(i % joinValues));
+			bindingSets.add(b);
+		}
+		BindingSetAssignment assignment = new BindingSetAssignment();
+		assignment.setBindingSets(bindingSets);
+		return assignment;
+	}
 }
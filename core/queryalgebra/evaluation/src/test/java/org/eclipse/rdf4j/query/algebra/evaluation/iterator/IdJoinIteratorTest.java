@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.Compare.CompareOp;
+import org.eclipse.rdf4j.query.algebra.Filter;
+import org.eclipse.rdf4j.query.algebra.Join;
+import org.eclipse.rdf4j.query.algebra.LeftJoin;
+import org.eclipse.rdf4j.query.algebra.Not;
+import org.eclipse.rdf4j.query.algebra.SameTerm;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.StatementPattern.Scope;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.ValueConstant;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.IdTripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.QuadIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for {@link IdJoinIterator}.
+ */
+public class IdJoinIteratorTest {
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	private final IRI alice = vf.createIRI("urn:alice");
+
+	private final IRI bob = vf.createIRI("urn:bob");
+
+	private final IRI carol = vf.createIRI("urn:carol");
+
+	private final IRI knows = vf.createIRI("urn:knows");
+
+	private final IRI name = vf.createIRI("urn:name");
+
+	private final IRI graph = vf.createIRI("urn:graph");
+
+	private ListIdTripleSource source;
+
+	@Before
+	public void setUp() {
+		source = new ListIdTripleSource();
+		source.add(alice, name, vf.createLiteral("Alice"), null);
+		source.add(alice, knows, bob, null);
+		source.add(alice, knows, alice, null);
+		source.add(bob, name, vf.createLiteral("Bob"), null);
+		source.add(bob, knows, carol, graph);
+		source.add(carol, name, vf.createLiteral("Carol"), graph);
+	}
+
+	@Test
+	public void testJoin() {
+		TupleExpr expr = new Join(pattern("p", knows, "q"), pattern("q", name, "name"));
+		assertEquals(list("Alice", "Bob", "Carol"), evaluate(expr, EmptyBindingSet.getInstance(), "name"));
+	}
+
+	@Test
+	public void testBindings() {
+		QueryBindingSet bindings = new QueryBindingSet();
+		bindings.addBinding("p", alice);
+		TupleExpr expr = new Join(pattern("p", knows, "q"), pattern("q", name, "name"));
+		assertEquals(list("Alice", "Bob"), evaluate(expr, bindings, "name"));
+
+		bindings.setBinding("p", vf.createIRI("urn:unknown"));
+		assertEquals(list(), evaluate(expr, bindings, "name"));
+	}
+
+	@Test
+	public void testContexts() {
+		StatementPattern named = new StatementPattern(Scope.NAMED_CONTEXTS, new Var("p"), constant(knows),
+				new Var("q"), new Var("g"));
+		assertEquals(list("urn:bob"), evaluate(named, EmptyBindingSet.getInstance(), "p"));
+
+		// the context variable remains unbound for the default context
+		StatementPattern all = new StatementPattern(new Var("p"), constant(knows), new Var("q"), new Var("g"));
+		List<BindingSet> result = Iterations.asList(IdJoinIterator.create(source, all, EmptyBindingSet.getInstance()));
+		assertEquals(3, result.size());
+		int bound = 0;
+		for (BindingSet bindings : result) {
+			if (bindings.hasBinding("g")) {
+				assertEquals(graph, bindings.getValue("g"));
+				bound++;
+			}
+		}
+		assertEquals(1, bound);
+	}
+
+	@Test
+	public void testRepeatedVariable() {
+		StatementPattern sp = new StatementPattern(new Var("p"), constant(knows), new Var("p"));
+		assertEquals(list("urn:alice"), evaluate(sp, EmptyBindingSet.getInstance(), "p"));
+	}
+
+	@Test
+	public void testFilter() {
+		Filter filter = new Filter(pattern("p", knows, "q"), new Not(new SameTerm(new Var("p"), new Var("q"))));
+		assertEquals(list("urn:bob", "urn:carol"), evaluate(filter, EmptyBindingSet.getInstance(), "q"));
+
+		filter = new Filter(pattern("p", knows, "q"), new Compare(new Var("p"), new ValueConstant(alice)));
+		assertEquals(list("urn:alice", "urn:bob"), evaluate(filter, EmptyBindingSet.getInstance(), "q"));
+
+		filter = new Filter(pattern("p", knows, "q"),
+				new Compare(new Var("q"), new ValueConstant(vf.createIRI("urn:unknown")), CompareOp.NE));
+		assertEquals(list("urn:alice", "urn:bob", "urn:carol"),
+				evaluate(filter, EmptyBindingSet.getInstance(), "q"));
+	}
+
+	@Test
+	public void testUnsupported() {
+		// comparing literals by value can't be done on IDs
+		Filter filter = new Filter(pattern("p", name, "name"),
+				new Compare(new Var("name"), new ValueConstant(vf.createLiteral("Alice"))));
+		assertNull(IdJoinIterator.create(source, filter, EmptyBindingSet.getInstance()));
+
+		LeftJoin leftJoin = new LeftJoin(pattern("p", knows, "q"), pattern("q", name, "name"));
+		assertNull(IdJoinIterator.create(source, leftJoin, EmptyBindingSet.getInstance()));
+	}
+
+	private StatementPattern pattern(String subj, IRI pred, String obj) {
+		return new StatementPattern(new Var(subj), constant(pred), new Var(obj));
+	}
+
+	private Var constant(Value value) {
+		Var var = new Var("_const_" + value.stringValue(), value);
+		var.setConstant(true);
+		return var;
+	}
+
+	private List<String> evaluate(TupleExpr expr, BindingSet bindings, String bindingName)
+			throws QueryEvaluationException {
+		IdJoinIterator iter = IdJoinIterator.create(source, expr, bindings);
+		List<String> result = new ArrayList<>();
+		try {
+			while (iter.hasNext()) {
+				result.add(iter.next().getValue(bindingName).stringValue());
+			}
+		} finally {
+			iter.close();
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	private static List<String> list(String... values) {
+		List<String> list = new ArrayList<>();
+		Collections.addAll(list, values);
+		return list;
+	}
+
+	/**
+	 * An {@link IdTripleSource} that stores its quads in a list.
+	 */
+	private static class ListIdTripleSource implements IdTripleSource {
+
+		private final List<Value> values = new ArrayList<>();
+
+		private final List<int[]> quads = new ArrayList<>();
+
+		ListIdTripleSource() {
+			// reserve the ID of the default context
+			values.add(null);
+		}
+
+		void add(Resource subj, IRI pred, Value obj, Resource context) {
+			quads.add(new int[] { id(subj), id(pred), id(obj), context == null ? DEFAULT_CONTEXT_ID : id(context) });
+		}
+
+		private int id(Value value) {
+			int id = values.indexOf(value);
+			if (id < 0) {
+				id = values.size();
+				values.add(value);
+			}
+			return id;
+		}
+
+		@Override
+		public int getID(Value value) {
+			int id = values.indexOf(value);
+			return id > 0 ? id : UNKNOWN_ID;
+		}
+
+		@Override
+		public Value getValue(int id) {
+			return values.get(id);
+		}
+
+		@Override
+		public QuadIterator getQuads(int subj, int pred, int obj, int context) {
+			int[] pattern = { subj, pred, obj, context };
+			return new QuadIterator() {
+
+				private int next;
+
+				@Override
+				public boolean next(int[] quad) {
+					while (next < quads.size()) {
+						int[] candidate = quads.get(next++);
+						boolean matches = true;
+						for (int i = 0; i < 4; i++) {
+							matches &= pattern[i] == WILDCARD || pattern[i] == candidate[i];
+						}
+						if (matches) {
+							System.arraycopy(candidate, 0, quad, 0, 4);
+							return true;
+						}
+					}
+					return false;
+				}
+
+				@Override
+				public void close() {
+					next = quads.size();
+				}
+			};
+		}
+	}
+}
@@ -16,10 +16,14 @@ import java.util.List;
 import java.util.Set;
 
 import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.query.Binding;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
 
 import junit.framework.TestCase;
 
@@ -181,6 +185,50 @@ public class OrderIteratorTest extends TestCase {
 		assertFalse(order.hasNext());
 	}
 
+	public void testSortingOnDisk() throws Exception {
+		ValueFactory vf = SimpleValueFactory.getInstance();
+		List<BindingSet> solutions = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			QueryBindingSet b = new QueryBindingSet();
+			b.addBinding("x", vf.createLiteral(i * 7919 % 500));
+			b.addBinding("y", vf.createLiteral(i < 500 ? "first" : "second"));
+			solutions.add(b);
+		}
+		Comparator<BindingSet> byX = Comparator.comparing(b -> ((Literal) b.getValue("x")).intValue());
+
+		// runs of 10 solutions, which are merged in more than one pass
+		List<BindingSet> result = sort(solutions, byX, Long.MAX_VALUE, false, 10);
+		assertEquals(1000, result.size());
+		for (int i = 1; i < result.size(); i++) {
+			assertTrue(byX.compare(result.get(i - 1), result.get(i)) <= 0);
+		}
+
+		result = sort(solutions, byX, 15, false, 10);
+		assertEquals(15, result.size());
+		assertEquals(7, ((Literal) result.get(14).getValue("x")).intValue());
+
+		// solutions that are equal according to the comparator are still distinct
+		List<BindingSet> duplicated = new ArrayList<>(solutions);
+		duplicated.addAll(solutions);
+		result = sort(duplicated, byX, Long.MAX_VALUE, true, 10);
+		assertEquals(1000, result.size());
+	}
+
+	private List<BindingSet> sort(List<BindingSet> solutions, Comparator<BindingSet> comparator, long limit,
+			boolean distinct, long syncThreshold) throws QueryEvaluationException {
+		OrderIterator iter = new OrderIterator(new CloseableIteratorIteration<>(solutions.iterator()), comparator,
+				limit, distinct, syncThreshold);
+		List<BindingSet> result = new ArrayList<>();
+		try {
+			while (iter.hasNext()) {
+				result.add(iter.next());
+			}
+		} finally {
+			iter.close();
+		}
+		return result;
+	}
+
 	@Override
 	protected void setUp() throws Exception {
 		list = Arrays.asList(b3, b5, b2, b1, b4, b2);
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.query.algebra.evaluation.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
+import org.junit.Test;
+
+/**
+ * Tests for {@link BinaryBindingSetOutput} and {@link BinaryBindingSetInput}.
+ */
+public class BinaryBindingSetOutputTest {
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		IRI iri = vf.createIRI("http://example.org/ns#", "local");
+		StringBuilder longLabel = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			longLabel.append("é中");
+		}
+
+		QueryBindingSet first = new QueryBindingSet();
+		first.addBinding("iri", iri);
+		first.addBinding("bnode", vf.createBNode("b1"));
+		first.addBinding("string", vf.createLiteral(longLabel.toString()));
+		first.addBinding("lang", vf.createLiteral("chat", "fr"));
+		first.addBinding("typed", vf.createLiteral(42));
+		first.addBinding("triple", vf.createTriple(iri, iri, vf.createLiteral("o")));
+		first.setBinding("unbound", null);
+
+		QueryBindingSet second = new QueryBindingSet();
+		second.addBinding("iri", vf.createIRI("http://example.org/ns#", "other"));
+		second.addBinding("typed", vf.createLiteral("1.5", XSD.DECIMAL));
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (BinaryBindingSetOutput out = new BinaryBindingSetOutput(bytes)) {
+			out.write(first);
+			out.write(EmptyBindingSet.getInstance());
+			out.write(second);
+		}
+
+		try (BinaryBindingSetInput in = new BinaryBindingSetInput(new ByteArrayInputStream(bytes.toByteArray()))) {
+			BindingSet result = in.read();
+			assertEquals(first, result);
+			assertTrue(result.hasBinding("unbound"));
+			assertNull(result.getValue("unbound"));
+
+			assertSame(EmptyBindingSet.getInstance(), in.read());
+			assertEquals(second, in.read());
+			assertNull(in.read());
+		}
+	}
+
+	@Test
+	public void testDictionary() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (BinaryBindingSetOutput out = new BinaryBindingSetOutput(bytes)) {
+			QueryBindingSet bindings = new QueryBindingSet();
+			bindings.addBinding("name", vf.createIRI("http://example.org/long/namespace/", "a"));
+			out.write(bindings);
+			out.flush();
+			int firstSize = bytes.size();
+
+			out.write(bindings);
+			out.flush();
+			// the binding name and the namespace are referenced by number
+			assertFalse(bytes.size() - firstSize > 6);
+		}
+	}
+}
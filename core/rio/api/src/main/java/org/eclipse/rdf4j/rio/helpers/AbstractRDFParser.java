@@ -356,6 +356,48 @@ public abstract class AbstractRDFParser implements RDFParser {
 		initializeNamespaceTableFromConfiguration();
 	}
 
+	/**
+	 * Prepares this parser to parse a part of the document that the supplied parser is parsing, possibly on another
+	 * thread. This parser takes over the configuration, value factory, base URI and namespaces of the other parser, and
+	 * creates the same blank nodes for the same identifiers. Errors are reported to the error listener of the other
+	 * parser, one at a time.
+	 */
+	protected void initializeFrom(AbstractRDFParser parser) {
+		setParserConfig(parser.getParserConfig());
+		originalValueFactory = parser.originalValueFactory;
+		valueFactory = parser.valueFactory;
+		nextBNodePrefix = parser.nextBNodePrefix;
+		baseURI = parser.baseURI;
+		namespaceTable.clear();
+		namespaceTable.putAll(parser.namespaceTable);
+		ParseErrorListener listener = parser.getParseErrorListener();
+		if (listener != null) {
+			setParseErrorListener(new ParseErrorListener() {
+
+				@Override
+				public void warning(String msg, long lineNo, long colNo) {
+					synchronized (listener) {
+						listener.warning(msg, lineNo, colNo);
+					}
+				}
+
+				@Override
+				public void error(String msg, long lineNo, long colNo) {
+					synchronized (listener) {
+						listener.error(msg, lineNo, colNo);
+					}
+				}
+
+				@Override
+				public void fatalError(String msg, long lineNo, long colNo) {
+					synchronized (listener) {
+						listener.fatalError(msg, lineNo, colNo);
+					}
+				}
+			});
+		}
+	}
+
 	protected void initializeNamespaceTableFromConfiguration() {
 		for (Namespace aNS : getParserConfig().get(BasicParserSettings.NAMESPACES)) {
 			namespaceTable.put(aNS.getPrefix(), aNS.getName());
@@ -307,6 +307,32 @@ public class BasicParserSettings {
 			"org.eclipse.rdf4j.rio.process_encoded_rdf_star",
 			"Converts RDF* triples encoded as RDF-compatible IRIs back to triple values", Boolean.TRUE);
 
+	/**
+	 * The number of threads that a parser can use to parse a document. Parsers that support this setting split the
+	 * document into chunks of complete statements, which are parsed concurrently. Currently supported by the N-Triples,
+	 * N-Quads and Turtle parsers.
+	 * <p>
+	 * Defaults to 1, which parses the document on the calling thread.
+	 * <p>
+	 * Can be overridden by setting system property {@code org.eclipse.rdf4j.rio.parser_threads}.
+	 */
+	public static final RioSetting<Integer> PARSER_THREADS = new IntegerRioSetting(
+			"org.eclipse.rdf4j.rio.parser_threads", "Number of threads to parse a document with", 1);
+
+	/**
+	 * Boolean setting for parser to determine whether the statements of a document that is parsed on several threads
+	 * (see {@link #PARSER_THREADS}) are reported in the order of the document. If false, the chunks of the document are
+	 * reported in the order in which their parsing finishes, but the statements of one chunk are still reported in
+	 * order.
+	 * <p>
+	 * Defaults to true.
+	 * <p>
+	 * Can be overridden by setting system property {@code org.eclipse.rdf4j.rio.preserve_statement_order}.
+	 */
+	public static final RioSetting<Boolean> PRESERVE_STATEMENT_ORDER = new BooleanRioSetting(
+			"org.eclipse.rdf4j.rio.preserve_statement_order", "Report statements in the order of the document",
+			Boolean.TRUE);
+
 	static {
 		List<DatatypeHandler> defaultDatatypeHandlers = new ArrayList<>(5);
 		try {
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.helpers;
+
+import org.eclipse.rdf4j.rio.RioSetting;
+
+/**
+ * WriterSettings for the HDT writer features.
+ */
+public class HDTWriterSettings {
+
+	/**
+	 * The approximate number of bytes the HDT writer keeps in memory for sorting the values and the triples of a
+	 * document. Larger documents are sorted in runs, which are written to temporary files and merged afterwards.
+	 * <p>
+	 * Defaults to 64 MB.
+	 * <p>
+	 * Can be overridden by setting system property {@code org.eclipse.rdf4j.rio.hdt.sort_buffer_size}.
+	 */
+	public static final RioSetting<Long> SORT_BUFFER_SIZE = new LongRioSetting(
+			"org.eclipse.rdf4j.rio.hdt.sort_buffer_size", "Number of bytes to sort in memory", 64L * 1024 * 1024);
+
+	/**
+	 * Private constructor
+	 */
+	private HDTWriterSettings() {
+	}
+
+}
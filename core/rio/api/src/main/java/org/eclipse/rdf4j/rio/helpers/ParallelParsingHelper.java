@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.helpers;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.rdf4j.model.Namespace;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.impl.SimpleNamespace;
+import org.eclipse.rdf4j.rio.ParserConfig;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFParseException;
+
+/**
+ * Parses a document on several threads. The document is split into chunks of complete statements by a
+ * {@link ChunkReader} on the calling thread, the chunks are parsed on a pool of
+ * {@link BasicParserSettings#PARSER_THREADS} threads, and the statements, namespaces and comments of each chunk are
+ * reported to the {@link RDFHandler} on the calling thread. The chunks are reported in the order of the document,
+ * unless {@link BasicParserSettings#PRESERVE_STATEMENT_ORDER} is disabled.
+ */
+public class ParallelParsingHelper {
+
+	/**
+	 * The number of characters after which a document is split at the next statement boundary.
+	 */
+	public static final int CHUNK_SIZE = 1 << 20;
+
+	private static final AtomicInteger threadCount = new AtomicInteger();
+
+	/**
+	 * A part of a document that consists of complete statements.
+	 */
+	public static class Chunk {
+
+		private final String prologue;
+
+		private final String text;
+
+		private final long lineNo;
+
+		/**
+		 * @param prologue the text that needs to be parsed before the chunk to set up the state of the parser, for
+		 *                 example the namespace declarations that precede the chunk in the document, or <tt>null</tt>.
+		 * @param text     the statements of the chunk.
+		 * @param lineNo   the line number of the first line of the chunk in the document.
+		 */
+		public Chunk(String prologue, String text, long lineNo) {
+			this.prologue = prologue;
+			this.text = text;
+			this.lineNo = lineNo;
+		}
+
+		public String getPrologue() {
+			return prologue;
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		public long getLineNo() {
+			return lineNo;
+		}
+	}
+
+	/**
+	 * Splits a document into {@link Chunk}s.
+	 */
+	@FunctionalInterface
+	public interface ChunkReader {
+
+		/**
+		 * @return the next chunk of the document, or <tt>null</tt> if the end of the document has been reached.
+		 */
+		Chunk next() throws IOException, RDFParseException;
+	}
+
+	/**
+	 * Parses a {@link Chunk}, typically with a parser of its own that was initialized from the parser of the document
+	 * with {@link AbstractRDFParser#initializeFrom(AbstractRDFParser)}.
+	 */
+	@FunctionalInterface
+	public interface ChunkParser {
+
+		void parse(Chunk chunk, RDFHandler handler) throws IOException, RDFParseException, RDFHandlerException;
+	}
+
+	/**
+	 * Parses the chunks of a document on several threads and reports them to the handler on the calling thread.
+	 *
+	 * @param reader  splits the document into chunks.
+	 * @param parser  parses a chunk, which is called concurrently.
+	 * @param handler the handler of the document, or <tt>null</tt>. Its {@link RDFHandler#startRDF()} and
+	 *                {@link RDFHandler#endRDF()} methods are not called.
+	 * @param config  the configuration of the parser.
+	 */
+	public static void parse(ChunkReader reader, ChunkParser parser, RDFHandler handler, ParserConfig config)
+			throws IOException, RDFParseException, RDFHandlerException {
+		int threads = Math.max(1, config.get(BasicParserSettings.PARSER_THREADS));
+		boolean ordered = config.get(BasicParserSettings.PRESERVE_STATEMENT_ORDER);
+		// chunks that are being parsed, or that have been parsed but not reported yet
+		int maxPending = threads * 2;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads, PARSER_THREAD_FACTORY);
+		CompletionService<ChunkEvents> completion = new ExecutorCompletionService<>(executor);
+		Deque<Future<ChunkEvents>> pending = new ArrayDeque<>(maxPending);
+		try {
+			Chunk chunk = reader.next();
+			while (chunk != null || !pending.isEmpty()) {
+				while (chunk != null && pending.size() < maxPending) {
+					Chunk next = chunk;
+					pending.add(completion.submit(() -> {
+						ChunkEvents events = new ChunkEvents();
+						parser.parse(next, events);
+						return events;
+					}));
+					chunk = reader.next();
+				}
+				Future<ChunkEvents> done;
+				if (ordered) {
+					done = pending.removeFirst();
+				} else {
+					done = completion.take();
+					pending.remove(done);
+				}
+				ChunkEvents events = getEvents(done);
+				if (handler != null) {
+					events.reportTo(handler);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while parsing");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Creates a {@link ChunkReader} for line-based formats, which splits the document at the first line break after
+	 * every {@link #CHUNK_SIZE} characters.
+	 */
+	public static ChunkReader lineChunks(Reader reader) {
+		return new ChunkReader() {
+
+			private final char[] buffer = new char[8192];
+
+			private StringBuilder text = new StringBuilder(CHUNK_SIZE + buffer.length);
+
+			private long lineNo = 1;
+
+			private boolean eof;
+
+			@Override
+			public Chunk next() throws IOException {
+				int end = -1;
+				while (end < 0 && !eof) {
+					int read = reader.read(buffer);
+					if (read == -1) {
+						eof = true;
+					} else {
+						text.append(buffer, 0, read);
+						if (text.length() >= CHUNK_SIZE) {
+							end = text.lastIndexOf("\n") + 1;
+							if (end == 0) {
+								// a line that is longer than a chunk
+								end = -1;
+							}
+						}
+					}
+				}
+				if (eof) {
+					end = text.length();
+				}
+				if (end == 0) {
+					return null;
+				}
+				String chunkText = text.substring(0, end);
+				Chunk chunk = new Chunk(null, chunkText, lineNo);
+				lineNo += countLines(chunkText);
+				StringBuilder rest = new StringBuilder(CHUNK_SIZE + buffer.length);
+				rest.append(text, end, text.length());
+				text = rest;
+				return chunk;
+			}
+		};
+	}
+
+	/**
+	 * @return the number of line feed characters in the text.
+	 */
+	public static int countLines(String text) {
+		int count = 0;
+		for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+			count++;
+		}
+		return count;
+	}
+
+	private static ChunkEvents getEvents(Future<ChunkEvents> future)
+			throws IOException, RDFParseException, RDFHandlerException, InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RDFParseException(cause);
+		}
+	}
+
+	private static final ThreadFactory PARSER_THREAD_FACTORY = r -> {
+		Thread thread = new Thread(r, "rdf4j-parser-" + threadCount.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	};
+
+	/**
+	 * Collects the events of a chunk, to report them to the handler of the document on the calling thread.
+	 */
+	private static class ChunkEvents extends AbstractRDFHandler {
+
+		private final List<Object> events = new ArrayList<>();
+
+		@Override
+		public void handleNamespace(String prefix, String uri) throws RDFHandlerException {
+			events.add(new SimpleNamespace(prefix, uri));
+		}
+
+		@Override
+		public void handleStatement(Statement st) throws RDFHandlerException {
+			events.add(st);
+		}
+
+		@Override
+		public void handleComment(String comment) throws RDFHandlerException {
+			events.add(comment);
+		}
+
+		void reportTo(RDFHandler handler) throws RDFHandlerException {
+			for (Object event : events) {
+				if (event instanceof Statement) {
+					handler.handleStatement((Statement) event);
+				} else if (event instanceof Namespace) {
+					Namespace namespace = (Namespace) event;
+					handler.handleNamespace(namespace.getPrefix(), namespace.getName());
+				} else {
+					handler.handleComment((String) event);
+				}
+			}
+		}
+	}
+}
@@ -9,9 +9,7 @@ package org.eclipse.rdf4j.rio.hdt;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.CheckedInputStream;
-
-import org.eclipse.rdf4j.common.io.UncloseableInputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Log64
@@ -31,7 +29,7 @@ import org.eclipse.rdf4j.common.io.UncloseableInputStream;
  * @author Bart Hanssens
  */
 class HDTArrayLog64 extends HDTArray {
-	private byte buffer[];
+	private ByteBuffer buffer;
 
 	@Override
 	protected int getType() {
@@ -41,8 +39,9 @@ class HDTArrayLog64 extends HDTArray {
 	@Override
 	protected int get(int i) {
 		// start byte of the value, and start bit in that start byte
-		int bytePos = (i * nrbits) / 8;
-		int bitPos = (i * nrbits) % 8;
+		long bitStart = (long) i * nrbits;
+		int bytePos = (int) (bitStart / 8);
+		int bitPos = (int) (bitStart % 8);
 
 		// value bits may be encoded across boundaries of bytes
 		int tmplen = (bitPos + nrbits + 7) / 8;
@@ -50,7 +49,7 @@ class HDTArrayLog64 extends HDTArray {
 		long val = 0L;
 		// little-endian to big-endian
 		for (int j = 0; j < tmplen; j++) {
-			val |= (buffer[bytePos + j] & 0xFFL) << (j * 8);
+			val |= (buffer.get(bytePos + j) & 0xFFL) << (j * 8);
 		}
 
 		val >>= bitPos;
@@ -63,19 +62,11 @@ class HDTArrayLog64 extends HDTArray {
 	protected void parse(InputStream is) throws IOException {
 		super.parse(is);
 
-		// don't close CheckedInputStream, as it will close the underlying inputstream
-		try (UncloseableInputStream uis = new UncloseableInputStream(is);
-				CheckedInputStream cis = new CheckedInputStream(uis, new CRC32())) {
-			// read bytes, minimum 1
-			long bytes = (nrbits * entries + 7) / 8;
-			if (bytes > Integer.MAX_VALUE) {
-				throw new UnsupportedOperationException("Maximum number of bytes in array exceeded: " + bytes);
-			}
-
-			buffer = new byte[(int) bytes];
-			cis.read(buffer);
-
-			checkCRC(cis, is, 4);
+		// read bytes, minimum 1
+		long bytes = ((long) nrbits * entries + 7) / 8;
+		if (bytes > Integer.MAX_VALUE) {
+			throw new UnsupportedOperationException("Maximum number of bytes in array exceeded: " + bytes);
 		}
+		buffer = readData(is, bytes);
 	}
 }
@@ -9,19 +9,32 @@ package org.eclipse.rdf4j.rio.hdt;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.zip.CheckedInputStream;
 
 import org.eclipse.rdf4j.common.io.UncloseableInputStream;
 
 /**
+ * HDT Bitmap
+ *
+ * Bits are stored little-endian: bit <code>i</code> is bit <code>i % 8</code> of byte <code>i / 8</code>.
+ *
+ * For random access, a directory with the number of 1-bits preceding each block of {@link #BLOCK_BITS} bits is built
+ * the first time one of the {@link #select1(int)} or {@link #countOnes()} methods is used.
  *
  * @author Bart Hanssens
  */
 class HDTBitmap extends HDTPart {
 	protected final static int BITMAP1 = 1;
 
+	// number of bits per block of the select directory
+	private final static int BLOCK_BITS = 2048;
+	private final static int BLOCK_WORDS = BLOCK_BITS / 64;
+
 	private int bits;
-	private byte[] buffer;
+	private ByteBuffer buffer;
+
+	private volatile int[] directory;
 
 	/**
 	 * Get bit
@@ -33,10 +46,127 @@ class HDTBitmap extends HDTPart {
 		int bytePos = i / 8;
 		int bitPos = i % 8;
 
-		byte b = buffer[bytePos];
+		byte b = buffer.get(bytePos);
 		return ((b & 0xFF) >> bitPos) & 1;
 	}
 
+	/**
+	 * Get the position of the n-th 1-bit
+	 *
+	 * @param n one-based rank of the 1-bit
+	 * @return zero-based position, or -1 if there are less than n 1-bits
+	 */
+	protected int select1(int n) {
+		int[] dir = getDirectory();
+		if (n < 1 || n > dir[dir.length - 1]) {
+			return -1;
+		}
+
+		// last block with less than n 1-bits before it
+		int low = 0;
+		int high = dir.length - 2;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (dir[mid] < n) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		int remaining = n - dir[low];
+		for (int w = low * BLOCK_WORDS;; w++) {
+			long word = getWord(w);
+			int cnt = Long.bitCount(word);
+			if (cnt >= remaining) {
+				// clear the lowest 1-bits until the one we're looking for
+				for (int i = 1; i < remaining; i++) {
+					word &= word - 1;
+				}
+				return w * 64 + Long.numberOfTrailingZeros(word);
+			}
+			remaining -= cnt;
+		}
+	}
+
+	/**
+	 * Get the position of the first 1-bit at or after a given position
+	 *
+	 * @param i zero-based position to start from
+	 * @return zero-based position, or -1 if there is no such 1-bit
+	 */
+	protected int nextOne(int i) {
+		int words = (int) ((bits + 63L) / 64);
+		int w = i / 64;
+		if (w >= words) {
+			return -1;
+		}
+		long word = getWord(w) & (-1L << (i % 64));
+		while (word == 0) {
+			if (++w >= words) {
+				return -1;
+			}
+			word = getWord(w);
+		}
+		return w * 64 + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * Get the number of 1-bits in this bitmap
+	 *
+	 * @return positive integer value
+	 */
+	protected int countOnes() {
+		int[] dir = getDirectory();
+		return dir[dir.length - 1];
+	}
+
+	/**
+	 * Get the 64 bits starting at bit <code>w * 64</code>, bits beyond the size of the bitmap are set to 0.
+	 *
+	 * @param w zero-based index of the word
+	 * @return word
+	 */
+	private long getWord(int w) {
+		int bytePos = w * 8;
+		long word;
+		if (bytePos + 8 <= buffer.limit()) {
+			word = buffer.getLong(bytePos);
+		} else {
+			word = 0L;
+			for (int j = 0; bytePos + j < buffer.limit(); j++) {
+				word |= (buffer.get(bytePos + j) & 0xFFL) << (j * 8);
+			}
+		}
+		int valid = bits - w * 64;
+		return (valid >= 64) ? word : word & ((1L << valid) - 1);
+	}
+
+	/**
+	 * Get the cumulative number of 1-bits before each block, the last entry contains the total number of 1-bits.
+	 *
+	 * @return array of counts
+	 */
+	private int[] getDirectory() {
+		int[] dir = directory;
+		if (dir == null) {
+			int words = (int) ((bits + 63L) / 64);
+			int blocks = (words + BLOCK_WORDS - 1) / BLOCK_WORDS;
+
+			dir = new int[blocks + 1];
+			int cnt = 0;
+			for (int w = 0; w < words; w++) {
+				if (w % BLOCK_WORDS == 0) {
+					dir[w / BLOCK_WORDS] = cnt;
+				}
+				cnt += Long.bitCount(getWord(w));
+			}
+			dir[blocks] = cnt;
+			directory = dir;
+		}
+		return dir;
+	}
+
 	/**
 	 * Get number of entries in this bitmap
 	 *
@@ -60,24 +190,16 @@ class HDTBitmap extends HDTPart {
 						", but only bitmap v1 is supported");
 			}
 
-			long b = (int) VByte.decode(cis);
+			long b = VByte.decode(cis);
 			if (b > Integer.MAX_VALUE) {
 				throw new UnsupportedOperationException("Maximum number of entries in bitmap exceeded: " + b);
 			}
 			bits = (int) b;
-			bytes = (bits + 7) / 8;
+			bytes = (bits + 7L) / 8;
 
 			checkCRC(cis, is, 1);
 		}
 
-		// don't close CheckedInputStream, as it will close the underlying inputstream
-		try (UncloseableInputStream uis = new UncloseableInputStream(is);
-				CheckedInputStream cis = new CheckedInputStream(uis, new CRC32())) {
-
-			buffer = new byte[(int) bytes];
-			cis.read(buffer);
-
-			checkCRC(cis, is, 4);
-		}
+		buffer = readData(is, bytes);
 	}
 }
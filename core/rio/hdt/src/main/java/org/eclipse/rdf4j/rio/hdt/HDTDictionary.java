@@ -37,6 +37,7 @@ class HDTDictionary extends HDTPart {
 			.getBytes(StandardCharsets.US_ASCII);
 	protected final static String DICT_MAPPING = "mapping";
 	protected final static String DICT_ELEMENTS = "elements";
+	protected final static String DICT_SIZE_STRINGS = "sizeStrings";
 
 	@Override
 	protected void parse(InputStream is) throws IOException {
@@ -49,6 +49,14 @@ abstract class HDTDictionarySection extends HDTPart {
 	 */
 	protected abstract byte[] get(int i) throws IOException;
 
+	/**
+	 * Find the position of an entry
+	 *
+	 * @param str entry
+	 * @return one-based index, or 0 if not found
+	 */
+	protected abstract int find(byte[] str) throws IOException;
+
 	/**
 	 * Constructor
 	 *
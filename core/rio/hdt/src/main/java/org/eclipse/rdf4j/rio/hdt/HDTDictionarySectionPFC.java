@@ -9,6 +9,7 @@ package org.eclipse.rdf4j.rio.hdt;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
@@ -40,6 +41,8 @@ import org.eclipse.rdf4j.common.io.UncloseableInputStream;
  *
  * E.g. <code>abcdef 2 gh 3 ij</code> will result in <code>abcde, abgh, abgij</code>.
  *
+ * The strings are sorted, which allows looking up the position of a string with {@link #find(byte[])}.
+ *
  * Buffer structure:
  *
  * <pre>
@@ -51,7 +54,7 @@ import org.eclipse.rdf4j.common.io.UncloseableInputStream;
  * @author Bart Hanssens
  */
 class HDTDictionarySectionPFC extends HDTDictionarySection {
-	private byte[] buffer;
+	private ByteBuffer buffer;
 
 	private int totalStrings;
 	private int stringsBlock;
@@ -86,16 +89,60 @@ class HDTDictionarySectionPFC extends HDTDictionarySection {
 		// HDT index start counting from 1
 		int idx = i - 1;
 
-		// get the block this string belongs to, and maintain the cache of recently used blocks
+		// get the block this string belongs to
 		int block = idx / stringsBlock;
+		return getBlock(block).get(idx - (block * stringsBlock));
+	}
+
+	@Override
+	protected int find(byte[] str) throws IOException {
+		if (totalStrings == 0) {
+			return 0;
+		}
 
-		ArrayList<byte[]> strings = cache.get(block);
-		if (strings == null) {
-			int blockStart = blockStarts.get(block);
-			strings = decodeBlock(block, blockStart);
-			cache.put(block, strings);
+		// binary search for the last block starting with a string that is not greater than the string to find
+		int low = 0;
+		int high = (totalStrings - 1) / stringsBlock;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			int start = blockStarts.get(mid);
+			if (compare(start, HDTPart.countToNull(buffer, start), str) <= 0) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		ArrayList<byte[]> strings = getBlock(low);
+		for (int j = 0; j < strings.size(); j++) {
+			int cmp = compare(strings.get(j), str);
+			if (cmp == 0) {
+				return low * stringsBlock + j + 1;
+			}
+			if (cmp > 0) {
+				break;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Get the decoded strings of a block, and maintain the cache of recently used blocks
+	 *
+	 * @param block block number
+	 * @return list of decoded byte strings
+	 * @throws IOException
+	 */
+	private ArrayList<byte[]> getBlock(int block) throws IOException {
+		synchronized (cache) {
+			ArrayList<byte[]> strings = cache.get(block);
+			if (strings == null) {
+				int blockStart = blockStarts.get(block);
+				strings = decodeBlock(block, blockStart);
+				cache.put(block, strings);
+			}
+			return strings;
 		}
-		return strings.get(idx - (block * stringsBlock));
 	}
 
 	@Override
@@ -135,14 +182,7 @@ class HDTDictionarySectionPFC extends HDTDictionarySection {
 		blockStarts = HDTArrayFactory.parse(is);
 		blockStarts.parse(is);
 
-		// don't close CheckedInputStream, as it will close the underlying inputstream
-		try (UncloseableInputStream uis = new UncloseableInputStream(is);
-				CheckedInputStream cis = new CheckedInputStream(uis, new CRC32())) {
-
-			buffer = new byte[buflen];
-			cis.read(buffer);
-			checkCRC(cis, is, 4);
-		}
+		buffer = readData(is, buflen);
 	}
 
 	/**
@@ -159,7 +199,7 @@ class HDTDictionarySectionPFC extends HDTDictionarySection {
 		// initial string
 		int idx = start;
 		int end = HDTPart.countToNull(buffer, idx);
-		byte[] str = Arrays.copyOfRange(buffer, idx, end);
+		byte[] str = copyOfRange(idx, end, 0, new byte[end - idx]);
 		arr.add(str);
 		idx = end + 1;
 
@@ -167,17 +207,53 @@ class HDTDictionarySectionPFC extends HDTDictionarySection {
 		int remaining = totalStrings - (block * stringsBlock);
 		for (int j = 1; j < stringsBlock && j < remaining; j++) {
 			int common = (int) VByte.decodeFrom(buffer, idx);
-			idx += VByte.encodedLength(common);
+			while (VByte.hasNext(buffer.get(idx))) {
+				idx++;
+			}
+			idx++;
 			end = HDTPart.countToNull(buffer, idx);
-			byte[] suffix = Arrays.copyOfRange(buffer, idx, end);
 
 			// copy the common part and add the suffix
-			str = Arrays.copyOf(str, common + suffix.length);
-			System.arraycopy(suffix, 0, str, common, suffix.length);
+			str = copyOfRange(idx, end, common, Arrays.copyOf(str, common + end - idx));
 			arr.add(str);
 
 			idx = end + 1;
 		}
 		return arr;
 	}
+
+	/**
+	 * Copy a range of the buffer into a byte array
+	 *
+	 * @param from start position in the buffer
+	 * @param to   end position in the buffer (exclusive)
+	 * @param pos  position in the byte array
+	 * @param dest byte array
+	 * @return byte array
+	 */
+	private byte[] copyOfRange(int from, int to, int pos, byte[] dest) {
+		for (int i = from; i < to; i++) {
+			dest[pos++] = buffer.get(i);
+		}
+		return dest;
+	}
+
+	/**
+	 * Compare a null terminated string in the buffer to a byte string, comparing bytes as unsigned values
+	 *
+	 * @param from start position in the buffer
+	 * @param to   end position in the buffer (exclusive)
+	 * @param str  byte string
+	 * @return negative, zero or positive value
+	 */
+	private int compare(int from, int to, byte[] str) {
+		int len = Math.min(to - from, str.length);
+		for (int i = 0; i < len; i++) {
+			int cmp = (buffer.get(from + i) & 0xFF) - (str[i] & 0xFF);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return (to - from) - str.length;
+	}
 }
@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.hdt;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+
+/**
+ * Random access to the triples of an HDT v1.0 file, without loading them into memory. This class is thread-safe.
+ *
+ * The dictionaries, bitmaps and arrays of the file are memory-mapped, only the properties of the different parts are
+ * read when opening the file. The CRCs of the mapped data are therefore not verified.
+ *
+ * Triples are looked up as numeric IDs, which can be converted to and from RDF values using the dictionaries. Subjects
+ * and objects share the IDs of the "shared" dictionary, followed by the IDs of the subject or object dictionary. IDs
+ * start counting from 1, 0 is used for an unknown value or as a wildcard.
+ *
+ * Triple patterns with a subject are looked up directly, other patterns are answered by scanning the predicates or
+ * objects of the triples.
+ *
+ * @see HDTParser
+ */
+public class HDTDocument implements Closeable {
+	private final HDTMappedInputStream in;
+	private final ValueFactory valueFactory;
+
+	private final HDTDictionarySection shared;
+	private final HDTDictionarySection subjects;
+	private final HDTDictionarySection predicates;
+	private final HDTDictionarySection objects;
+	private final HDTTriplesSectionBitmap triples;
+
+	private volatile int[] predicateCounts;
+
+	/**
+	 * Open an HDT file, using a {@link SimpleValueFactory} to create RDF model objects.
+	 *
+	 * @param file HDT file
+	 * @return document
+	 * @throws IOException
+	 */
+	public static HDTDocument open(File file) throws IOException {
+		return open(file, SimpleValueFactory.getInstance());
+	}
+
+	/**
+	 * Open an HDT file, using the supplied ValueFactory to create RDF model objects.
+	 *
+	 * @param file         HDT file
+	 * @param valueFactory value factory
+	 * @return document
+	 * @throws IOException
+	 */
+	public static HDTDocument open(File file, ValueFactory valueFactory) throws IOException {
+		HDTMappedInputStream in = new HDTMappedInputStream(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+		try {
+			return new HDTDocument(in, valueFactory);
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param in           input stream
+	 * @param valueFactory value factory
+	 * @throws IOException
+	 */
+	private HDTDocument(HDTMappedInputStream in, ValueFactory valueFactory) throws IOException {
+		this.in = in;
+		this.valueFactory = valueFactory;
+
+		new HDTGlobal().parse(in);
+		new HDTHeader().parse(in);
+		new HDTDictionary().parse(in);
+
+		shared = HDTDictionarySectionFactory.parse(in, "S+O", -1);
+		shared.parse(in);
+		subjects = HDTDictionarySectionFactory.parse(in, "S", -1);
+		subjects.parse(in);
+		predicates = HDTDictionarySectionFactory.parse(in, "P", -1);
+		predicates.parse(in);
+		objects = HDTDictionarySectionFactory.parse(in, "O", -1);
+		objects.parse(in);
+
+		HDTTriples t = new HDTTriples();
+		t.parse(in);
+		triples = (HDTTriplesSectionBitmap) HDTTriplesSectionFactory.parse(new String(HDTTriples.FORMAT_BITMAP));
+		triples.parse(in, t.getOrder());
+	}
+
+	/**
+	 * Get the number of triples
+	 *
+	 * @return number of triples
+	 */
+	public int size() {
+		return triples.size();
+	}
+
+	/**
+	 * Get the number of distinct subjects
+	 *
+	 * @return number of subjects
+	 */
+	public int getSubjectCount() {
+		return triples.getSubjectCount();
+	}
+
+	/**
+	 * Get the number of distinct predicates
+	 *
+	 * @return number of predicates
+	 */
+	public int getPredicateCount() {
+		return predicates.size();
+	}
+
+	/**
+	 * Get the number of distinct objects
+	 *
+	 * @return number of objects
+	 */
+	public int getObjectCount() {
+		return shared.size() + objects.size();
+	}
+
+	/**
+	 * Get the number of distinct subject-predicate pairs
+	 *
+	 * @return number of subject-predicate pairs
+	 */
+	public int getSubjectPredicateCount() {
+		return triples.getSubjectPredicateCount();
+	}
+
+	/**
+	 * Get the number of triples with a subject, and optionally a predicate
+	 *
+	 * @param subj subject ID
+	 * @param pred predicate ID, or 0 for any predicate
+	 * @return number of triples
+	 */
+	public int count(int subj, int pred) {
+		return triples.count(subj, pred);
+	}
+
+	/**
+	 * Get the number of triples with a predicate. The counts of all predicates are computed by a scan over the
+	 * triples when this method is first called.
+	 *
+	 * @param pred predicate ID
+	 * @return number of triples
+	 */
+	public int countPredicate(int pred) {
+		int[] counts = predicateCounts;
+		if (counts == null) {
+			synchronized (this) {
+				counts = predicateCounts;
+				if (counts == null) {
+					predicateCounts = counts = triples.countPredicates(getPredicateCount());
+				}
+			}
+		}
+		return (pred > 0 && pred < counts.length) ? counts[pred] : 0;
+	}
+
+	/**
+	 * Get the triples matching a pattern
+	 *
+	 * @param subj subject ID, or 0 for any subject
+	 * @param pred predicate ID, or 0 for any predicate
+	 * @param obj  object ID, or 0 for any object
+	 * @return iterator of subject, predicate and object IDs
+	 */
+	public Iterator<int[]> getTriples(int subj, int pred, int obj) {
+		return triples.search(subj, pred, obj);
+	}
+
+	/**
+	 * Get the ID of a subject
+	 *
+	 * @param value value
+	 * @return ID, or 0 if the value is not a subject
+	 * @throws IOException
+	 */
+	public int getSubjectID(Value value) throws IOException {
+		if (!(value instanceof Resource)) {
+			return 0;
+		}
+		return findResource(value, subjects);
+	}
+
+	/**
+	 * Get the ID of a predicate
+	 *
+	 * @param value value
+	 * @return ID, or 0 if the value is not a predicate
+	 * @throws IOException
+	 */
+	public int getPredicateID(Value value) throws IOException {
+		if (!(value instanceof IRI)) {
+			return 0;
+		}
+		return predicates.find(HDTValues.encode(value));
+	}
+
+	/**
+	 * Get the ID of an object
+	 *
+	 * @param value value
+	 * @return ID, or 0 if the value is not an object
+	 * @throws IOException
+	 */
+	public int getObjectID(Value value) throws IOException {
+		return findResource(value, objects);
+	}
+
+	/**
+	 * Get the subject with an ID
+	 *
+	 * @param id subject ID
+	 * @return IRI or blank node
+	 * @throws IOException
+	 */
+	public Resource getSubject(int id) throws IOException {
+		return HDTValues.createSubject(valueFactory, getSO(id, subjects));
+	}
+
+	/**
+	 * Get the predicate with an ID
+	 *
+	 * @param id predicate ID
+	 * @return IRI
+	 * @throws IOException
+	 */
+	public IRI getPredicate(int id) throws IOException {
+		return HDTValues.createPredicate(valueFactory, predicates.get(id));
+	}
+
+	/**
+	 * Get the object with an ID
+	 *
+	 * @param id object ID
+	 * @return literal, IRI or blank node
+	 * @throws IOException
+	 */
+	public Value getObject(int id) throws IOException {
+		return HDTValues.createObject(valueFactory, getSO(id, objects));
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * Find the ID of a subject or object value, including blank nodes that were read from a <code>genid</code> term
+	 *
+	 * @param value value
+	 * @param other specific Dictionary
+	 * @return ID or 0
+	 */
+	private int findResource(Value value, HDTDictionarySection other) throws IOException {
+		byte[] str = HDTValues.encode(value);
+		if (str == null) {
+			return 0;
+		}
+		int id = findSO(str, other);
+		if (id == 0) {
+			byte[] genID = HDTValues.encodeGenID(value);
+			if (genID != null) {
+				id = findSO(genID, other);
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Find the ID of a subject or object in the shared HDT Dictionary or (if not found) in the specific HDT Dictionary
+	 *
+	 * @param str   byte string
+	 * @param other specific Dictionary
+	 * @return ID or 0
+	 */
+	private int findSO(byte[] str, HDTDictionarySection other) throws IOException {
+		int id = shared.find(str);
+		if (id == 0) {
+			id = other.find(str);
+			if (id != 0) {
+				id += shared.size();
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Get subject or object from shared HDT Dictionary or (if not found) from specific HDT Dictionary
+	 *
+	 * @param id    ID
+	 * @param other specific Dictionary
+	 * @return byte string
+	 */
+	private byte[] getSO(int id, HDTDictionarySection other) throws IOException {
+		return (id <= shared.size()) ? shared.get(id) : other.get(id - shared.size());
+	}
+}
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.hdt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream on an HDT file, which can memory-map the data of the bitmaps, arrays and dictionary sections instead of
+ * copying it to the heap.
+ *
+ * The small parts (properties, CRCs...) are read through a buffer, the bulk data is mapped with {@link #map(int)}.
+ */
+class HDTMappedInputStream extends InputStream {
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+
+	// position in the file of the first byte of the buffer
+	private long bufferPos;
+
+	/**
+	 * Constructor
+	 *
+	 * @param channel file channel, starting at position 0
+	 */
+	protected HDTMappedInputStream(FileChannel channel) {
+		this.channel = channel;
+		buffer.limit(0);
+	}
+
+	/**
+	 * Map the next bytes of the file into memory, and skip them in this stream.
+	 *
+	 * @param len number of bytes
+	 * @return read-only little-endian buffer
+	 * @throws IOException
+	 */
+	protected ByteBuffer map(int len) throws IOException {
+		long start = bufferPos + buffer.position();
+		if (start + len > channel.size()) {
+			throw new IOException("Unexpected end of file: " + len + " bytes needed at byte " + start);
+		}
+		ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, len);
+
+		bufferPos = start + len;
+		buffer.clear().limit(0);
+		return mapped.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (!buffer.hasRemaining() && !fill()) {
+			return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+
+	/**
+	 * Read bytes into an array, only returning less than the requested number of bytes at the end of the file, as the
+	 * HDT parts do not check the number of bytes read.
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		int read = 0;
+		while (read < len && (buffer.hasRemaining() || fill())) {
+			int n = Math.min(len - read, buffer.remaining());
+			buffer.get(b, off + read, n);
+			read += n;
+		}
+		return (read == 0) ? -1 : read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+		long start = bufferPos + buffer.position();
+		long skipped = Math.min(n, Math.max(0, channel.size() - start));
+
+		bufferPos = start + skipped;
+		buffer.clear().limit(0);
+		return skipped;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Fill the buffer with the next part of the file
+	 *
+	 * @return false when the end of the file was reached
+	 * @throws IOException
+	 */
+	private boolean fill() throws IOException {
+		bufferPos += buffer.limit();
+		buffer.clear();
+		int read;
+		do {
+			read = channel.read(buffer, bufferPos + buffer.position());
+		} while (read == 0);
+		buffer.flip();
+		return read > 0;
+	}
+}
@@ -9,11 +9,18 @@ package org.eclipse.rdf4j.rio.hdt;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
+
+import org.apache.commons.io.IOUtils;
+import org.eclipse.rdf4j.common.io.UncloseableInputStream;
 
 /**
  * Helper class for different HDT parts.
@@ -182,6 +189,74 @@ abstract class HDTPart {
 		throw new IOException("No null byte found in buffer starting at byte " + start);
 	}
 
+	/**
+	 * Get the first position of the NULL byte within a buffer
+	 *
+	 * @param b     buffer
+	 * @param start position to start from
+	 * @return position of first NULL byte
+	 */
+	protected static int countToNull(ByteBuffer b, int start) throws IOException {
+		for (int i = start; i < b.limit(); i++) {
+			if (b.get(i) == 0b00) {
+				return i;
+			}
+		}
+		throw new IOException("No null byte found in buffer starting at byte " + start);
+	}
+
+	/**
+	 * Compare two byte strings, comparing bytes as unsigned values. This is the order of the strings in the
+	 * dictionary sections.
+	 *
+	 * @param a byte string
+	 * @param b byte string
+	 * @return negative, zero or positive value
+	 */
+	protected static int compare(byte[] a, byte[] b) {
+		int len = Math.min(a.length, b.length);
+		for (int i = 0; i < len; i++) {
+			int cmp = (a[i] & 0xFF) - (b[i] & 0xFF);
+			if (cmp != 0) {
+				return cmp;
+			}
+		}
+		return a.length - b.length;
+	}
+
+	/**
+	 * Read a block of data, followed by the 32-bit CRC calculated over this data.
+	 *
+	 * The data of an {@link HDTMappedInputStream} is memory-mapped instead, and its CRC is skipped without being
+	 * verified, since that would require reading the entire block.
+	 *
+	 * @param is  input stream
+	 * @param len number of bytes
+	 * @return little-endian buffer
+	 * @throws IOException
+	 */
+	protected static ByteBuffer readData(InputStream is, long len) throws IOException {
+		if (len > Integer.MAX_VALUE) {
+			throw new UnsupportedOperationException("Maximum number of bytes in block exceeded: " + len);
+		}
+		if (is instanceof HDTMappedInputStream) {
+			ByteBuffer buffer = ((HDTMappedInputStream) is).map((int) len);
+			IOUtils.skipFully(is, 4);
+			return buffer;
+		}
+
+		// don't close CheckedInputStream, as it will close the underlying inputstream
+		try (UncloseableInputStream uis = new UncloseableInputStream(is);
+				CheckedInputStream cis = new CheckedInputStream(uis, new CRC32())) {
+
+			byte[] buffer = new byte[(int) len];
+			IOUtils.readFully(cis, buffer);
+
+			checkCRC(cis, is, 4);
+			return ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+		}
+	}
+
 	/**
 	 * Get the properties from the input stream, reading at most BUFLEN bytes. The properties are encoded as a
 	 * <code>key=value;</code> string and must be <code>null</code> terminated.
@@ -241,6 +316,62 @@ abstract class HDTPart {
 		return len;
 	}
 
+	/**
+	 * Write <code>$HDT</code> and the byte indicating the type, the inverse of
+	 * {@link #checkControl(InputStream, Type)}
+	 *
+	 * @param os    output stream
+	 * @param ctype control type
+	 * @throws IOException
+	 */
+	protected static void writeControl(OutputStream os, HDTPart.Type ctype) throws IOException {
+		os.write(COOKIE);
+		os.write(ctype.getValue());
+	}
+
+	/**
+	 * Write <code>null</code> terminated format string.
+	 *
+	 * @param os     output stream
+	 * @param format format
+	 * @throws IOException
+	 */
+	protected static void writeFormat(OutputStream os, byte[] format) throws IOException {
+		os.write(format);
+		os.write(0b00);
+	}
+
+	/**
+	 * Write the properties as a <code>null</code> terminated <code>key=value;</code> string.
+	 *
+	 * @param os    output stream
+	 * @param props key, value map
+	 * @throws IOException
+	 */
+	protected static void writeProperties(OutputStream os, Map<String, String> props) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (Map.Entry<String, String> e : props.entrySet()) {
+			sb.append(e.getKey()).append('=').append(e.getValue()).append(';');
+		}
+		os.write(sb.toString().getBytes(StandardCharsets.US_ASCII));
+		os.write(0b00);
+	}
+
+	/**
+	 * Write the calculated checksum, little-endian like HDT-It does.
+	 *
+	 * @param os  output stream
+	 * @param crc checksum
+	 * @param len number of bytes of the checksum
+	 * @throws IOException
+	 */
+	protected static void writeCRC(OutputStream os, Checksum crc, int len) throws IOException {
+		long val = crc.getValue();
+		for (int i = 0; i < len; i++) {
+			os.write((int) (val >>> (i * 8)) & 0xFF);
+		}
+	}
+
 	/**
 	 * Compare the calculated checksum to the expected one.
 	 *
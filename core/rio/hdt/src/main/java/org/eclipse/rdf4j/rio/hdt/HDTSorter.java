@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.hdt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * External merge sort of byte string records, in the unsigned byte order of {@link HDTPart#compare(byte[], byte[])}.
+ *
+ * Records are sorted in memory, until their (approximate) size exceeds a maximum. Then the sorted records are written
+ * to a temporary file as a "run", and the runs are merged when the sorted records are read. At most {@link #MAX_RUNS}
+ * runs are merged at once, more runs are first merged into larger runs, to bound the number of open files.
+ *
+ * The temporary files are deleted when the sorter is closed.
+ *
+ * Optionally, duplicate records are removed.
+ */
+class HDTSorter implements Closeable {
+	// estimate of the memory used by an array and the reference to it
+	private final static int OVERHEAD = 24;
+
+	// the maximum number of runs that are merged at once
+	protected final static int MAX_RUNS = 64;
+
+	private final long maxBytes;
+	private final boolean distinct;
+
+	private List<byte[]> records = new ArrayList<>();
+	private long bytes;
+
+	private final List<File> files = new ArrayList<>();
+	private final List<DataInputStream> inputs = new ArrayList<>();
+
+	// iterating over the sorted records, either in memory or by merging the runs
+	private int pos = -1;
+	private PriorityQueue<Run> queue;
+	private byte[] last;
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxBytes maximum number of bytes to sort in memory
+	 * @param distinct true to remove duplicate records
+	 */
+	protected HDTSorter(long maxBytes, boolean distinct) {
+		this.maxBytes = maxBytes;
+		this.distinct = distinct;
+	}
+
+	/**
+	 * Add a record, no records can be added after calling {@link #next()}.
+	 *
+	 * @param record byte string
+	 * @throws IOException
+	 */
+	protected void add(byte[] record) throws IOException {
+		records.add(record);
+		bytes += record.length + OVERHEAD;
+		if (bytes > maxBytes) {
+			spill();
+		}
+	}
+
+	/**
+	 * Get the next record in sorted order
+	 *
+	 * @return byte string, or null when all records were read
+	 * @throws IOException
+	 */
+	protected byte[] next() throws IOException {
+		byte[] record;
+		do {
+			record = nextRecord();
+		} while (distinct && record != null && last != null && HDTPart.compare(record, last) == 0);
+		last = record;
+		return record;
+	}
+
+	@Override
+	public void close() throws IOException {
+		records = null;
+		try {
+			for (DataInputStream input : inputs) {
+				input.close();
+			}
+		} finally {
+			inputs.clear();
+			for (File file : files) {
+				Files.deleteIfExists(file.toPath());
+			}
+			files.clear();
+		}
+	}
+
+	private byte[] nextRecord() throws IOException {
+		if (pos < 0 && queue == null) {
+			if (files.isEmpty()) {
+				records.sort(HDTPart::compare);
+				pos = 0;
+			} else {
+				if (!records.isEmpty()) {
+					spill();
+				}
+				records = null;
+				mergeRuns();
+			}
+		}
+		if (queue == null) {
+			if (pos < records.size()) {
+				return records.get(pos++);
+			}
+			records.clear();
+			return null;
+		}
+
+		Run run = queue.poll();
+		if (run == null) {
+			return null;
+		}
+		byte[] record = run.current;
+		if (run.advance()) {
+			queue.add(run);
+		}
+		return record;
+	}
+
+	/**
+	 * Write the records in memory to a temporary file, as a sorted run
+	 *
+	 * @throws IOException
+	 */
+	private void spill() throws IOException {
+		records.sort(HDTPart::compare);
+
+		try (DataOutputStream out = createRun()) {
+			byte[] prev = null;
+			for (byte[] record : records) {
+				if (distinct && prev != null && HDTPart.compare(record, prev) == 0) {
+					continue;
+				}
+				out.writeInt(record.length);
+				out.write(record);
+				prev = record;
+			}
+		}
+		records = new ArrayList<>();
+		bytes = 0;
+	}
+
+	/**
+	 * Create a temporary file for a new run
+	 *
+	 * @return output stream to the file
+	 * @throws IOException
+	 */
+	private DataOutputStream createRun() throws IOException {
+		File file = File.createTempFile("rdf4j-hdt-", ".run");
+		files.add(file);
+		return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+	}
+
+	/**
+	 * Merge the runs in passes of at most {@link #MAX_RUNS} runs, until the remaining runs can be merged while the
+	 * records are read.
+	 *
+	 * @throws IOException
+	 */
+	private void mergeRuns() throws IOException {
+		while (files.size() > MAX_RUNS) {
+			List<File> merged = new ArrayList<>(files.subList(0, MAX_RUNS));
+			PriorityQueue<Run> runs = openRuns(merged);
+			try (DataOutputStream out = createRun()) {
+				byte[] prev = null;
+				Run run;
+				while ((run = runs.poll()) != null) {
+					byte[] record = run.current;
+					if (run.advance()) {
+						runs.add(run);
+					}
+					if (distinct && prev != null && HDTPart.compare(record, prev) == 0) {
+						continue;
+					}
+					out.writeInt(record.length);
+					out.write(record);
+					prev = record;
+				}
+			}
+			for (DataInputStream input : inputs) {
+				input.close();
+			}
+			inputs.clear();
+			for (File file : merged) {
+				Files.deleteIfExists(file.toPath());
+				files.remove(file);
+			}
+		}
+		queue = openRuns(files);
+	}
+
+	private PriorityQueue<Run> openRuns(List<File> runFiles) throws IOException {
+		PriorityQueue<Run> runs = new PriorityQueue<>(runFiles.size(), (a, b) -> HDTPart.compare(a.current, b.current));
+		for (File file : runFiles) {
+			DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			inputs.add(input);
+			Run run = new Run(input);
+			if (run.advance()) {
+				runs.add(run);
+			}
+		}
+		return runs;
+	}
+
+	/**
+	 * Sorted run in a temporary file
+	 */
+	private static class Run {
+		private final DataInputStream input;
+		private byte[] current;
+
+		private Run(DataInputStream input) {
+			this.input = input;
+		}
+
+		/**
+		 * Read the next record of this run
+		 *
+		 * @return false at the end of the run
+		 * @throws IOException
+		 */
+		private boolean advance() throws IOException {
+			int len;
+			try {
+				len = input.readInt();
+			} catch (EOFException e) {
+				current = null;
+				return false;
+			}
+			current = new byte[len];
+			input.readFully(current);
+			return true;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.hdt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Output stream for data of which the size must be known before it can be written, like the buffer of a dictionary
+ * section or the bits of a bitmap.
+ *
+ * The data is kept in memory, until it becomes too large and is moved to a temporary file instead. Closing the spool
+ * deletes the temporary file.
+ */
+class HDTSpool extends OutputStream {
+	private final static int MAX_MEMORY = 1024 * 1024;
+
+	private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+	private File file;
+	private OutputStream fileOut;
+	private long size;
+
+	@Override
+	public void write(int b) throws IOException {
+		getOutputStream(1).write(b);
+		size++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		getOutputStream(len).write(b, off, len);
+		size += len;
+	}
+
+	/**
+	 * Get the number of bytes written
+	 *
+	 * @return number of bytes
+	 */
+	protected long size() {
+		return size;
+	}
+
+	/**
+	 * Get an input stream for reading the data written so far, no more data can be written afterwards.
+	 *
+	 * @return input stream
+	 * @throws IOException
+	 */
+	protected InputStream getInputStream() throws IOException {
+		if (file == null) {
+			return new ByteArrayInputStream(memory.toByteArray());
+		}
+		fileOut.close();
+		return new BufferedInputStream(new FileInputStream(file));
+	}
+
+	/**
+	 * Copy the data written so far to an output stream
+	 *
+	 * @param os output stream
+	 * @throws IOException
+	 */
+	protected void copyTo(OutputStream os) throws IOException {
+		if (file == null) {
+			memory.writeTo(os);
+			return;
+		}
+		fileOut.close();
+		Files.copy(file.toPath(), os);
+	}
+
+	@Override
+	public void close() throws IOException {
+		memory = null;
+		if (file != null) {
+			try {
+				fileOut.close();
+			} finally {
+				Files.deleteIfExists(file.toPath());
+			}
+		}
+	}
+
+	/**
+	 * Get the stream to write to, moving the data to a temporary file when needed
+	 *
+	 * @param len number of bytes to be written
+	 * @return output stream
+	 * @throws IOException
+	 */
+	private OutputStream getOutputStream(int len) throws IOException {
+		if (file == null && size + len > MAX_MEMORY) {
+			file = File.createTempFile("rdf4j-hdt-", ".tmp");
+			fileOut = new BufferedOutputStream(new FileOutputStream(file));
+			memory.writeTo(fileOut);
+			memory = null;
+		}
+		return (file == null) ? memory : fileOut;
+	}
+}
@@ -9,6 +9,8 @@ package org.eclipse.rdf4j.rio.hdt;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * HDT Triples section.
@@ -26,6 +28,9 @@ import java.io.InputStream;
  *
  * E.g. Y-bitmap <code>0 1 1</code> and Y-array <code>1 2 3</code> results in <code>S1-P1 S1-P2 S2-P3</code>
  *
+ * Besides iterating over all triples, triple patterns can be looked up with {@link #search(int, int, int)}: the
+ * positions of the predicates of a subject and the objects of a subject-predicate pair are found by selecting the
+ * 1-bits in the bitmaps, the sorted predicates and objects within these positions are searched using binary search.
  *
  * Structure:
  *
@@ -75,6 +80,151 @@ class HDTTriplesSectionBitmap extends HDTTriplesSection {
 		return new int[] { x, y, z };
 	}
 
+	/**
+	 * Get the number of triples
+	 *
+	 * @return positive integer value
+	 */
+	protected int size() {
+		return sizeZ;
+	}
+
+	/**
+	 * Get the number of distinct subjects
+	 *
+	 * @return positive integer value
+	 */
+	protected int getSubjectCount() {
+		return bitmapY.countOnes();
+	}
+
+	/**
+	 * Get the number of distinct subject-predicate pairs
+	 *
+	 * @return positive integer value
+	 */
+	protected int getSubjectPredicateCount() {
+		return sizeY;
+	}
+
+	/**
+	 * Get the number of triples of a subject, optionally combined with a predicate
+	 *
+	 * @param subj subject ID
+	 * @param pred predicate ID, or 0 for any predicate
+	 * @return number of triples
+	 */
+	protected int count(int subj, int pred) {
+		int[] range = getRangeY(subj, pred);
+		if (range[0] >= range[1]) {
+			return 0;
+		}
+		return getRangeZ(range[1] - 1)[1] - getRangeZ(range[0])[0];
+	}
+
+	/**
+	 * Count the triples of every predicate, by a scan over the predicates and objects of this section
+	 *
+	 * @param predicateCount number of distinct predicates
+	 * @return number of triples, indexed by predicate ID
+	 */
+	protected int[] countPredicates(int predicateCount) {
+		int[] counts = new int[predicateCount + 1];
+		int y = 0;
+		for (int z = 0; z < sizeZ; z++) {
+			counts[arrY.get(y)]++;
+			if (bitmapZ.get(z) == 1) {
+				y++;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Get the triples matching a pattern, independently of the iteration over all triples of this section
+	 *
+	 * @param subj subject ID, or 0 for any subject
+	 * @param pred predicate ID, or 0 for any predicate
+	 * @param obj  object ID, or 0 for any object
+	 * @return iterator of subject, predicate and object IDs
+	 */
+	protected Iterator<int[]> search(int subj, int pred, int obj) {
+		if (subj > 0) {
+			int[] range = getRangeY(subj, pred);
+			return new TripleIterator(subj, range[0], range[1], pred, obj);
+		}
+		return new TripleIterator(0, 0, sizeY, pred, obj);
+	}
+
+	/**
+	 * Get the Y positions of a subject, optionally combined with a predicate
+	 *
+	 * @param subj subject ID
+	 * @param pred predicate ID, or 0 for any predicate
+	 * @return start (inclusive) and end (exclusive) position
+	 */
+	private int[] getRangeY(int subj, int pred) {
+		int end = bitmapY.select1(subj);
+		if (end < 0) {
+			return new int[] { 0, 0 };
+		}
+		int start = (subj == 1) ? 0 : bitmapY.select1(subj - 1) + 1;
+		end++;
+
+		if (pred > 0) {
+			int pos = find(arrY, start, end, pred);
+			return (pos < 0) ? new int[] { 0, 0 } : new int[] { pos, pos + 1 };
+		}
+		return new int[] { start, end };
+	}
+
+	/**
+	 * Get the Z positions of a Y position
+	 *
+	 * @param y Y position
+	 * @return start (inclusive) and end (exclusive) position
+	 */
+	private int[] getRangeZ(int y) {
+		int start = getStartZ(y);
+		return new int[] { start, bitmapZ.nextOne(start) + 1 };
+	}
+
+	/**
+	 * Get the first Z position of a Y position
+	 *
+	 * @param y Y position
+	 * @return start position
+	 */
+	private int getStartZ(int y) {
+		return (y == 0) ? 0 : bitmapZ.select1(y) + 1;
+	}
+
+	/**
+	 * Binary search for a value within a sorted range of an array
+	 *
+	 * @param arr   array
+	 * @param start start position (inclusive)
+	 * @param end   end position (exclusive)
+	 * @param value value to search for
+	 * @return position of the value, or -1 if not found
+	 */
+	private static int find(HDTArray arr, int start, int end, int value) {
+		int low = start;
+		int high = end - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int val = arr.get(mid);
+			if (val < value) {
+				low = mid + 1;
+			} else if (val > value) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
 	@Override
 	protected void parse(InputStream is) throws IOException {
 		parse(is, HDTTriples.Order.SPO);
@@ -96,4 +246,87 @@ class HDTTriplesSectionBitmap extends HDTTriplesSection {
 		arrZ = HDTArrayFactory.parse(is);
 		arrZ.parse(is);
 	}
+
+	/**
+	 * Iterator over a range of Y positions, which only reads the predicates and objects matching the pattern.
+	 */
+	private class TripleIterator implements Iterator<int[]> {
+		private final int pred;
+		private final int obj;
+		private final boolean anySubject;
+		private final int endY;
+
+		private int x;
+		private int y;
+		private int z;
+		private int endZ;
+		// Z positions of the current Y position are known, so the next Y position starts at endZ
+		private boolean contiguous;
+		private int[] next;
+
+		/**
+		 * Constructor
+		 *
+		 * @param subj   subject ID, or 0 for any subject
+		 * @param startY start position (inclusive)
+		 * @param endY   end position (exclusive)
+		 * @param pred   predicate ID, or 0 for any predicate
+		 * @param obj    object ID, or 0 for any object
+		 */
+		private TripleIterator(int subj, int startY, int endY, int pred, int obj) {
+			this.anySubject = (subj == 0);
+			this.x = anySubject ? 1 : subj;
+			this.y = startY - 1;
+			this.endY = endY;
+			this.pred = pred;
+			this.obj = obj;
+			this.next = computeNext();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public int[] next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			int[] t = next;
+			next = computeNext();
+			return t;
+		}
+
+		private int[] computeNext() {
+			while (true) {
+				if (z < endZ) {
+					if (obj == 0) {
+						return new int[] { x, arrY.get(y), arrZ.get(z++) };
+					}
+					int pos = find(arrZ, z, endZ, obj);
+					z = endZ;
+					if (pos >= 0) {
+						return new int[] { x, arrY.get(y), obj };
+					}
+					continue;
+				}
+
+				if (++y >= endY) {
+					return null;
+				}
+				// the subject changes after each 1-bit in bitmap Y
+				if (anySubject && y > 0 && bitmapY.get(y - 1) == 1) {
+					x++;
+				}
+				if (pred > 0 && arrY.get(y) != pred) {
+					contiguous = false;
+					continue;
+				}
+				z = contiguous ? endZ : getStartZ(y);
+				endZ = bitmapZ.nextOne(z) + 1;
+				contiguous = true;
+			}
+		}
+	}
 }
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.hdt;
+
+import java.nio.charset.StandardCharsets;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+
+/**
+ * Helper class for converting the byte strings of the HDT dictionaries to RDF values and back.
+ *
+ * IRIs are stored as-is, blank nodes are always stored with a <code>_:</code> prefix and literals are stored in
+ * N-Triples syntax, without escaping. Terms that start with <code>genid</code> are read as blank nodes as well.
+ */
+class HDTValues {
+
+	private static final byte[] BNODE_PREFIX = "_:".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] GENID_PREFIX = "genid".getBytes(StandardCharsets.US_ASCII);
+
+	private static boolean startsWith(byte[] b, byte[] prefix) {
+		if (b.length < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (b[i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Create an IRI or blank node
+	 *
+	 * @param vf value factory
+	 * @param b  byte buffer
+	 * @return IRI or blank node
+	 */
+	private static Resource createResource(ValueFactory vf, byte[] b) {
+		if (startsWith(b, BNODE_PREFIX)) {
+			return vf.createBNode(new String(b, BNODE_PREFIX.length, b.length - BNODE_PREFIX.length,
+					StandardCharsets.UTF_8));
+		}
+		String str = new String(b, StandardCharsets.UTF_8);
+		// HDT-It generates "genid" for blank nodes in RDF/XML
+		return startsWith(b, GENID_PREFIX) ? vf.createBNode(str) : vf.createIRI(str);
+	}
+
+	/**
+	 * Create subject IRI or blank node
+	 *
+	 * @param vf value factory
+	 * @param b  byte buffer
+	 * @return IRI or blank node
+	 */
+	protected static Resource createSubject(ValueFactory vf, byte[] b) {
+		return createResource(vf, b);
+	}
+
+	/**
+	 * Create predicate IRI
+	 *
+	 * @param vf value factory
+	 * @param b  byte buffer
+	 * @return IRI
+	 */
+	protected static IRI createPredicate(ValueFactory vf, byte[] b) {
+		return vf.createIRI(new String(b, StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Create object (typed) literal, IRI or blank node
+	 *
+	 * @param vf value factory
+	 * @param b  byte buffer
+	 * @return literal, IRI or blank node
+	 */
+	protected static Value createObject(ValueFactory vf, byte[] b) {
+		if (b[0] == '"') {
+			int i = b.length - 1;
+			for (; i > 1 && b[i] != '"'; i--) {
+				if (b[i] == '@') {
+					String lang = new String(b, i + 1, b.length - i - 1, StandardCharsets.US_ASCII);
+					return vf.createLiteral(new String(b, 1, i - 2, StandardCharsets.UTF_8), lang);
+				} else if (b[i] == '^') {
+					IRI datatype = vf.createIRI(new String(b, i + 2, b.length - i - 3, StandardCharsets.US_ASCII));
+					return vf.createLiteral(new String(b, 1, i - 3, StandardCharsets.UTF_8), datatype);
+				}
+			}
+			return vf.createLiteral(new String(b, 1, i - 1, StandardCharsets.UTF_8));
+		}
+		return createResource(vf, b);
+	}
+
+	/**
+	 * Get the byte string of a value, as stored in the dictionaries
+	 *
+	 * @param value IRI, blank node or literal
+	 * @return byte string, or null for other values
+	 */
+	protected static byte[] encode(Value value) {
+		String str;
+		if (value instanceof IRI) {
+			str = value.stringValue();
+		} else if (value instanceof BNode) {
+			str = "_:" + ((BNode) value).getID();
+		} else if (value instanceof Literal) {
+			Literal lit = (Literal) value;
+			StringBuilder sb = new StringBuilder(lit.getLabel().length() + 2);
+			sb.append('"').append(lit.getLabel()).append('"');
+			if (lit.getLanguage().isPresent()) {
+				sb.append('@').append(lit.getLanguage().get());
+			} else if (!XSD.STRING.equals(lit.getDatatype()) && !RDF.LANGSTRING.equals(lit.getDatatype())) {
+				sb.append("^^<").append(lit.getDatatype().stringValue()).append('>');
+			}
+			str = sb.toString();
+		} else {
+			return null;
+		}
+		return str.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Get the byte string of a blank node that was read from a <code>genid</code> term
+	 *
+	 * @param value value
+	 * @return byte string without <code>_:</code> prefix, or null if the value is not such a blank node
+	 */
+	protected static byte[] encodeGenID(Value value) {
+		if (value instanceof BNode) {
+			byte[] b = ((BNode) value).getID().getBytes(StandardCharsets.UTF_8);
+			if (startsWith(b, GENID_PREFIX)) {
+				return b;
+			}
+		}
+		return null;
+	}
+}
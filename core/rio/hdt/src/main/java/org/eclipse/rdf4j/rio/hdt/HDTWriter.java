@@ -0,0 +1,733 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.hdt;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CheckedOutputStream;
+
+import org.eclipse.rdf4j.common.io.ByteSink;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFWriter;
+import org.eclipse.rdf4j.rio.RioSetting;
+import org.eclipse.rdf4j.rio.helpers.AbstractRDFWriter;
+import org.eclipse.rdf4j.rio.helpers.HDTWriterSettings;
+
+/**
+ * RDF writer for HDT v1.0 files, using the same formats as HDT-It: four dictionary sections with plain front coding,
+ * and bitmap triples in SPO order.
+ *
+ * The dictionary sections contain sorted values, and the triples are written as sorted numeric references to these
+ * values. Therefore nothing can be written before all statements are known: they are collected until
+ * {@link #endRDF()}, and sorted using a limited amount of memory (see {@link HDTWriterSettings#SORT_BUFFER_SIZE}).
+ * Larger documents are sorted using temporary files, which are deleted by {@link #endRDF()}. If a document is
+ * abandoned before {@link #endRDF()} is called, {@link #close()} deletes them.
+ *
+ * HDT does not support named graphs, so the contexts of the statements are ignored, and duplicate statements are only
+ * written once.
+ *
+ * @see HDTParser
+ */
+public class HDTWriter extends AbstractRDFWriter implements RDFWriter, ByteSink, Closeable {
+	// number of strings per block of a dictionary section
+	private final static int STRINGS_BLOCK = 16;
+
+	// kind of value records, the object marker is sorted before the subject records of the same value
+	private final static byte OBJECT_MARKER = 0;
+	private final static byte SUBJECT = 1;
+	private final static byte PREDICATE = 2;
+	private final static byte OBJECT = 3;
+
+	private final static String HDT = "http://purl.org/HDT/hdt#";
+	private final static String VOID = "http://rdfs.org/ns/void#";
+
+	private final OutputStream out;
+	private final String baseURI;
+
+	private HDTSorter values;
+	private long statements;
+
+	/**
+	 * Creates a new HDTWriter that will write to the supplied OutputStream.
+	 *
+	 * @param out The OutputStream to write the HDT document to.
+	 */
+	public HDTWriter(OutputStream out) {
+		this(out, null);
+	}
+
+	/**
+	 * Creates a new HDTWriter that will write to the supplied OutputStream.
+	 *
+	 * @param out     The OutputStream to write the HDT document to.
+	 * @param baseURI The base URI stored in the document, may be null.
+	 */
+	public HDTWriter(OutputStream out, String baseURI) {
+		this.out = new BufferedOutputStream(out);
+		this.baseURI = baseURI;
+	}
+
+	@Override
+	public RDFFormat getRDFFormat() {
+		return RDFFormat.HDT;
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return out;
+	}
+
+	@Override
+	public Collection<RioSetting<?>> getSupportedSettings() {
+		Set<RioSetting<?>> result = new HashSet<>(super.getSupportedSettings());
+		result.add(HDTWriterSettings.SORT_BUFFER_SIZE);
+		return result;
+	}
+
+	@Override
+	public void startRDF() throws RDFHandlerException {
+		super.startRDF();
+		statements = 0;
+		values = new HDTSorter(getWriterConfig().get(HDTWriterSettings.SORT_BUFFER_SIZE), true);
+	}
+
+	@Override
+	public void handleComment(String comment) throws RDFHandlerException {
+		checkWritingStarted();
+		// comments are not supported by HDT
+	}
+
+	@Override
+	protected void consumeStatement(Statement st) {
+		checkNotClosed();
+		byte[] subj = encode(st.getSubject());
+		byte[] pred = encode(st.getPredicate());
+		byte[] obj = encode(st.getObject());
+		try {
+			values.add(valueRecord(subj, SUBJECT, statements));
+			values.add(valueRecord(pred, PREDICATE, statements));
+			values.add(valueRecord(obj, OBJECT_MARKER, -1));
+			values.add(valueRecord(obj, OBJECT, statements));
+		} catch (IOException e) {
+			// the document can't be completed anymore
+			try {
+				close();
+			} catch (IOException closeException) {
+				e.addSuppressed(closeException);
+			}
+			throw new RDFHandlerException(e);
+		}
+		statements++;
+	}
+
+	@Override
+	public void endRDF() throws RDFHandlerException {
+		checkWritingStarted();
+		checkNotClosed();
+		long maxBytes = getWriterConfig().get(HDTWriterSettings.SORT_BUFFER_SIZE);
+
+		try (HDTSorter ids = new HDTSorter(maxBytes, false);
+				HDTSorter triples = new HDTSorter(maxBytes, true);
+				DictionarySection shared = new DictionarySection();
+				DictionarySection subjects = new DictionarySection();
+				DictionarySection predicates = new DictionarySection();
+				DictionarySection objects = new DictionarySection()) {
+
+			buildDictionary(ids, shared, subjects, predicates, objects);
+			values.close();
+
+			// replace the values by their IDs, and sort the triples in SPO order
+			byte[] s;
+			while ((s = ids.next()) != null) {
+				byte[] p = ids.next();
+				byte[] o = ids.next();
+				triples.add(ByteBuffer.allocate(12)
+						.putInt(getID(s, shared))
+						.putInt(getID(p, shared))
+						.putInt(getID(o, shared))
+						.array());
+			}
+
+			try (TriplesSection section = new TriplesSection(predicates.size, shared.size + objects.size)) {
+				byte[] t;
+				while ((t = triples.next()) != null) {
+					ByteBuffer buf = ByteBuffer.wrap(t);
+					section.add(buf.getInt(0), buf.getInt(4), buf.getInt(8));
+				}
+				section.finish();
+
+				Map<String, String> props = new LinkedHashMap<>();
+				if (baseURI != null && !baseURI.isEmpty()) {
+					props.put(HDTGlobal.GLOBAL_BASEURI, baseURI);
+				}
+				writePart(HDTPart.Type.GLOBAL, HDTGlobal.GLOBAL_FORMAT, props);
+
+				byte[] header = getHeader(section.size, shared, subjects, predicates, objects);
+				props = new LinkedHashMap<>();
+				props.put(HDTHeader.HEADER_LENGTH, String.valueOf(header.length));
+				writePart(HDTPart.Type.HEADER, HDTHeader.HEADER_FORMAT, props);
+				out.write(header);
+
+				props = new LinkedHashMap<>();
+				props.put(HDTDictionary.DICT_MAPPING, "1");
+				props.put(HDTDictionary.DICT_SIZE_STRINGS, String.valueOf(getSizeStrings(shared, subjects,
+						predicates, objects)));
+				writePart(HDTPart.Type.DICTIONARY, HDTDictionary.DICT_FORMAT, props);
+				shared.write(out);
+				subjects.write(out);
+				predicates.write(out);
+				objects.write(out);
+
+				props = new LinkedHashMap<>();
+				props.put(HDTTriples.ORDER, String.valueOf(HDTTriples.Order.SPO.getValue()));
+				writePart(HDTPart.Type.TRIPLES, HDTTriples.FORMAT_BITMAP, props);
+				section.write(out);
+			}
+			out.flush();
+		} catch (IOException e) {
+			throw new RDFHandlerException(e);
+		} finally {
+			try {
+				close();
+			} catch (IOException e) {
+				throw new RDFHandlerException(e);
+			}
+		}
+	}
+
+	private void checkNotClosed() {
+		if (values == null) {
+			throw new RDFHandlerException("Document writing has failed or was abandoned");
+		}
+	}
+
+	/**
+	 * Deletes the temporary files of the current document. This is done by {@link #endRDF()}, and is only needed if the
+	 * document is abandoned before, e.g. because producing its statements failed.
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		if (values != null) {
+			HDTSorter toClose = values;
+			values = null;
+			toClose.close();
+		}
+	}
+
+	/**
+	 * Get the byte string of a value, as stored in the dictionaries
+	 *
+	 * @param value value
+	 * @return byte string
+	 * @throws RDFHandlerException when the value can't be stored in HDT
+	 */
+	private static byte[] encode(Value value) throws RDFHandlerException {
+		byte[] str = HDTValues.encode(value);
+		if (str == null) {
+			throw new RDFHandlerException("Value not supported by HDT: " + value);
+		}
+		for (byte b : str) {
+			if (b == 0b00) {
+				throw new RDFHandlerException("NULL character not supported by HDT: " + value);
+			}
+		}
+		return str;
+	}
+
+	/**
+	 * Create a record with the (NULL terminated) byte string of a value, the kind of record and the statement it
+	 * belongs to. Sorting these records groups the records of a value.
+	 *
+	 * @param value     byte string
+	 * @param kind      kind of record
+	 * @param statement statement number, not used for object markers
+	 * @return record
+	 */
+	private static byte[] valueRecord(byte[] value, byte kind, long statement) {
+		ByteBuffer buf = ByteBuffer.allocate(value.length + ((kind == OBJECT_MARKER) ? 2 : 10));
+		buf.put(value).put((byte) 0b00).put(kind);
+		if (kind != OBJECT_MARKER) {
+			buf.putLong(statement);
+		}
+		return buf.array();
+	}
+
+	/**
+	 * Add the sorted values to the dictionary sections, and create a record with the ID of the value for every
+	 * subject, predicate and object of the statements. Subjects that are also objects are added to the shared section.
+	 *
+	 * @param ids        sorter for the ID records
+	 * @param shared     shared section
+	 * @param subjects   subject section
+	 * @param predicates predicate section
+	 * @param objects    object section
+	 * @throws IOException
+	 */
+	private void buildDictionary(HDTSorter ids, DictionarySection shared, DictionarySection subjects,
+			DictionarySection predicates, DictionarySection objects) throws IOException {
+		byte[] value = null;
+		boolean object = false;
+		int subjID = 0;
+		int predID = 0;
+		int objID = 0;
+
+		byte[] record;
+		while ((record = values.next()) != null) {
+			int len = HDTPart.countToNull(record, 0);
+			if (value == null || !isValue(record, len, value)) {
+				value = new byte[len];
+				System.arraycopy(record, 0, value, 0, len);
+				object = false;
+				subjID = 0;
+				predID = 0;
+				objID = 0;
+			}
+
+			byte kind = record[len + 1];
+			if (kind == OBJECT_MARKER) {
+				object = true;
+				continue;
+			}
+			long statement = ByteBuffer.wrap(record).getLong(len + 2);
+			switch (kind) {
+			case SUBJECT:
+				if (subjID == 0) {
+					subjID = object ? shared.add(value) : subjects.add(value);
+				}
+				ids.add(idRecord(statement, kind, object, subjID));
+				break;
+			case PREDICATE:
+				if (predID == 0) {
+					predID = predicates.add(value);
+				}
+				ids.add(idRecord(statement, kind, false, predID));
+				break;
+			default:
+				if (objID == 0) {
+					objID = (subjID != 0) ? subjID : objects.add(value);
+				}
+				ids.add(idRecord(statement, kind, subjID != 0, objID));
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Check if a record contains a value
+	 *
+	 * @param record record
+	 * @param len    length of the value in the record
+	 * @param value  byte string
+	 * @return true if the record contains the value
+	 */
+	private static boolean isValue(byte[] record, int len, byte[] value) {
+		if (len != value.length) {
+			return false;
+		}
+		for (int i = 0; i < len; i++) {
+			if (record[i] != value[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Create a record with the ID of the subject, predicate or object of a statement. Sorting these records groups the
+	 * IDs of a statement in SPO order.
+	 *
+	 * @param statement statement number
+	 * @param kind      kind of value
+	 * @param shared    true when the ID is an ID of the shared section
+	 * @param id        ID within the dictionary section
+	 * @return record
+	 */
+	private static byte[] idRecord(long statement, byte kind, boolean shared, int id) {
+		return ByteBuffer.allocate(14).putLong(statement).put(kind).put((byte) (shared ? 1 : 0)).putInt(id).array();
+	}
+
+	/**
+	 * Get the ID of a value in an ID record, the IDs of the subject and object sections follow the shared IDs.
+	 *
+	 * @param record ID record
+	 * @param shared shared section
+	 * @return ID
+	 */
+	private static int getID(byte[] record, DictionarySection shared) {
+		int id = ByteBuffer.wrap(record).getInt(10);
+		return (record[8] == PREDICATE || record[9] == 1) ? id : shared.size + id;
+	}
+
+	/**
+	 * Write the properties of a part
+	 *
+	 * @param type   type of the part
+	 * @param format format of the part
+	 * @param props  properties
+	 * @throws IOException
+	 */
+	private void writePart(HDTPart.Type type, byte[] format, Map<String, String> props) throws IOException {
+		CRC16 crc16 = new CRC16();
+		CheckedOutputStream cos = new CheckedOutputStream(out, crc16);
+		HDTPart.writeControl(cos, type);
+		HDTPart.writeFormat(cos, format);
+		HDTPart.writeProperties(cos, props);
+		HDTPart.writeCRC(out, crc16, 2);
+	}
+
+	/**
+	 * Get the metadata of the header, as N-Triples
+	 *
+	 * @param triples    number of triples
+	 * @param shared     shared section
+	 * @param subjects   subject section
+	 * @param predicates predicate section
+	 * @param objects    object section
+	 * @return byte array
+	 */
+	private byte[] getHeader(int triples, DictionarySection shared, DictionarySection subjects,
+			DictionarySection predicates, DictionarySection objects) {
+		String root = (baseURI != null && !baseURI.isEmpty()) ? "<" + baseURI + ">" : "_:dataset";
+
+		StringBuilder sb = new StringBuilder();
+		headerTriple(sb, root, "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>", "<" + HDT + "Dataset>");
+		headerTriple(sb, root, "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>", "<" + VOID + "Dataset>");
+		headerTriple(sb, root, "<" + VOID + "triples>", "\"" + triples + "\"");
+		headerTriple(sb, root, "<" + VOID + "properties>", "\"" + predicates.size + "\"");
+		headerTriple(sb, root, "<" + VOID + "distinctSubjects>", "\"" + (shared.size + subjects.size) + "\"");
+		headerTriple(sb, root, "<" + VOID + "distinctObjects>", "\"" + (shared.size + objects.size) + "\"");
+		headerTriple(sb, root, "<" + HDT + "formatInformation>", "_:format");
+		headerTriple(sb, "_:format", "<" + HDT + "dictionary>", "_:dictionary");
+		headerTriple(sb, "_:format", "<" + HDT + "triples>", "_:triples");
+		headerTriple(sb, "_:dictionary", "<http://purl.org/dc/terms/format>", "<" + HDT + "dictionaryFour>");
+		headerTriple(sb, "_:dictionary", "<" + HDT + "dictionarynumSharedSubjectObject>", "\"" + shared.size + "\"");
+		headerTriple(sb, "_:dictionary", "<" + HDT + "dictionarymapping>", "\"1\"");
+		headerTriple(sb, "_:dictionary", "<" + HDT + "dictionarysizeStrings>",
+				"\"" + getSizeStrings(shared, subjects, predicates, objects) + "\"");
+		headerTriple(sb, "_:dictionary", "<" + HDT + "dictionaryblockSize>", "\"" + STRINGS_BLOCK + "\"");
+		headerTriple(sb, "_:triples", "<http://purl.org/dc/terms/format>", "<" + HDT + "triplesBitmap>");
+		headerTriple(sb, "_:triples", "<" + HDT + "triplesnumTriples>", "\"" + triples + "\"");
+		headerTriple(sb, "_:triples", "<" + HDT + "triplesOrder>", "\"SPO\"");
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void headerTriple(StringBuilder sb, String subj, String pred, String obj) {
+		sb.append(subj).append(' ').append(pred).append(' ').append(obj).append(" .\n");
+	}
+
+	private static long getSizeStrings(DictionarySection... sections) {
+		long size = 0;
+		for (DictionarySection section : sections) {
+			size += section.sizeStrings;
+		}
+		return size;
+	}
+
+	/**
+	 * Get the number of bits needed to encode values up to a maximum, with a minimum of 1 bit
+	 *
+	 * @param max maximum value
+	 * @return number of bits
+	 */
+	private static int getNrBits(long max) {
+		return Math.max(1, 64 - Long.numberOfLeadingZeros(max));
+	}
+
+	/**
+	 * Write a bitmap, the inverse of {@link HDTBitmap#parse(java.io.InputStream)}
+	 *
+	 * @param os   output stream
+	 * @param data packed bits
+	 * @param bits number of bits
+	 * @throws IOException
+	 */
+	private static void writeBitmap(OutputStream os, HDTSpool data, long bits) throws IOException {
+		CRC8 crc8 = new CRC8();
+		CheckedOutputStream cos = new CheckedOutputStream(os, crc8);
+		cos.write(HDTBitmap.BITMAP1);
+		VByte.encode(cos, bits);
+		HDTPart.writeCRC(os, crc8, 1);
+
+		writeData(os, data);
+	}
+
+	/**
+	 * Write a Log64 array, the inverse of {@link HDTArrayLog64#parse(java.io.InputStream)}
+	 *
+	 * @param os      output stream
+	 * @param data    packed entries
+	 * @param nrbits  number of bits per entry
+	 * @param entries number of entries
+	 * @throws IOException
+	 */
+	private static void writeArray(OutputStream os, HDTSpool data, int nrbits, long entries) throws IOException {
+		CRC8 crc8 = new CRC8();
+		CheckedOutputStream cos = new CheckedOutputStream(os, crc8);
+		cos.write(HDTArray.Type.LOG64.getValue());
+		cos.write(nrbits);
+		VByte.encode(cos, entries);
+		HDTPart.writeCRC(os, crc8, 1);
+
+		writeData(os, data);
+	}
+
+	/**
+	 * Write a block of data, followed by the 32-bit CRC calculated over this data
+	 *
+	 * @param os   output stream
+	 * @param data data
+	 * @throws IOException
+	 */
+	private static void writeData(OutputStream os, HDTSpool data) throws IOException {
+		CRC32 crc32 = new CRC32();
+		data.copyTo(new CheckedOutputStream(os, crc32));
+		HDTPart.writeCRC(os, crc32, 4);
+	}
+
+	/**
+	 * Packs values with a fixed number of bits, little-endian like the bitmaps and Log64 arrays of HDT-It.
+	 */
+	private static class BitOutput {
+		private final OutputStream os;
+		private long buffer;
+		private int bufferBits;
+		private long entries;
+
+		private BitOutput(OutputStream os) {
+			this.os = os;
+		}
+
+		/**
+		 * Write a value
+		 *
+		 * @param value  value, using at most 56 bits
+		 * @param nrbits number of bits
+		 * @throws IOException
+		 */
+		private void write(long value, int nrbits) throws IOException {
+			buffer |= value << bufferBits;
+			bufferBits += nrbits;
+			while (bufferBits >= 8) {
+				os.write((int) buffer & 0xFF);
+				buffer >>>= 8;
+				bufferBits -= 8;
+			}
+			entries++;
+		}
+
+		/**
+		 * Write the remaining bits, padded with zeroes
+		 *
+		 * @throws IOException
+		 */
+		private void finish() throws IOException {
+			if (bufferBits > 0) {
+				os.write((int) buffer & 0xFF);
+				buffer = 0;
+				bufferBits = 0;
+			}
+		}
+	}
+
+	/**
+	 * Dictionary section with plain front coding, the inverse of {@link HDTDictionarySectionPFC}. Strings must be
+	 * added in sorted order.
+	 */
+	private static class DictionarySection implements Closeable {
+		private final HDTSpool buffer = new HDTSpool();
+		private final HDTSpool blocks = new HDTSpool();
+		private final DataOutputStream blockStarts = new DataOutputStream(blocks);
+
+		private byte[] prev;
+		private int size;
+		private long sizeStrings;
+
+		/**
+		 * Add a string
+		 *
+		 * @param str byte string
+		 * @return ID of the string
+		 * @throws IOException
+		 */
+		private int add(byte[] str) throws IOException {
+			if (size % STRINGS_BLOCK == 0) {
+				blockStarts.writeLong(buffer.size());
+				buffer.write(str);
+			} else {
+				int common = 0;
+				int len = Math.min(prev.length, str.length);
+				while (common < len && prev[common] == str[common]) {
+					common++;
+				}
+				VByte.encode(buffer, common);
+				buffer.write(str, common, str.length - common);
+			}
+			buffer.write(0b00);
+
+			prev = str;
+			sizeStrings += str.length;
+			return ++size;
+		}
+
+		/**
+		 * Write this section
+		 *
+		 * @param os output stream
+		 * @throws IOException
+		 */
+		private void write(OutputStream os) throws IOException {
+			CRC8 crc8 = new CRC8();
+			CheckedOutputStream cos = new CheckedOutputStream(os, crc8);
+			cos.write(HDTDictionarySection.Type.FRONT.getValue());
+			VByte.encode(cos, size);
+			VByte.encode(cos, buffer.size());
+			VByte.encode(cos, STRINGS_BLOCK);
+			HDTPart.writeCRC(os, crc8, 1);
+
+			// like HDT-It, also store the end of the last block
+			blockStarts.writeLong(buffer.size());
+			int nrbits = getNrBits(buffer.size());
+
+			try (HDTSpool packed = new HDTSpool();
+					DataInputStream dis = new DataInputStream(blocks.getInputStream())) {
+				BitOutput bits = new BitOutput(packed);
+				for (long i = blocks.size() / 8; i > 0; i--) {
+					bits.write(dis.readLong(), nrbits);
+				}
+				bits.finish();
+				writeArray(os, packed, nrbits, bits.entries);
+			}
+			writeData(os, buffer);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				buffer.close();
+			} finally {
+				blocks.close();
+			}
+		}
+	}
+
+	/**
+	 * Bitmap triples section, the inverse of {@link HDTTriplesSectionBitmap}. Triples must be added in SPO order.
+	 */
+	private static class TriplesSection implements Closeable {
+		private final HDTSpool dataY = new HDTSpool();
+		private final HDTSpool dataZ = new HDTSpool();
+		private final HDTSpool dataArrY = new HDTSpool();
+		private final HDTSpool dataArrZ = new HDTSpool();
+
+		private final BitOutput bitmapY = new BitOutput(dataY);
+		private final BitOutput bitmapZ = new BitOutput(dataZ);
+		private final BitOutput arrY = new BitOutput(dataArrY);
+		private final BitOutput arrZ = new BitOutput(dataArrZ);
+
+		private final int nrbitsY;
+		private final int nrbitsZ;
+
+		private int prevS;
+		private int prevP;
+		private int size;
+
+		/**
+		 * Constructor
+		 *
+		 * @param predicates number of predicates
+		 * @param objects    number of objects
+		 */
+		private TriplesSection(int predicates, int objects) {
+			nrbitsY = getNrBits(predicates);
+			nrbitsZ = getNrBits(objects);
+		}
+
+		/**
+		 * Add a triple, the bits of the bitmaps mark the last predicate of a subject and the last object of a
+		 * subject-predicate pair, so they are only known when adding the next triple.
+		 *
+		 * @param s subject ID
+		 * @param p predicate ID
+		 * @param o object ID
+		 * @throws IOException
+		 */
+		private void add(int s, int p, int o) throws IOException {
+			boolean newPair = (s != prevS || p != prevP);
+			if (prevS != 0) {
+				bitmapZ.write(newPair ? 1 : 0, 1);
+				if (newPair) {
+					bitmapY.write(s != prevS ? 1 : 0, 1);
+				}
+			}
+			if (newPair) {
+				arrY.write(p, nrbitsY);
+			}
+			arrZ.write(o, nrbitsZ);
+
+			prevS = s;
+			prevP = p;
+			size++;
+		}
+
+		/**
+		 * Finish the section, after adding the last triple
+		 *
+		 * @throws IOException
+		 */
+		private void finish() throws IOException {
+			if (prevS != 0) {
+				bitmapZ.write(1, 1);
+				bitmapY.write(1, 1);
+			}
+			bitmapY.finish();
+			bitmapZ.finish();
+			arrY.finish();
+			arrZ.finish();
+		}
+
+		/**
+		 * Write this section
+		 *
+		 * @param os output stream
+		 * @throws IOException
+		 */
+		private void write(OutputStream os) throws IOException {
+			writeBitmap(os, dataY, bitmapY.entries);
+			writeBitmap(os, dataZ, bitmapZ.entries);
+			writeArray(os, dataArrY, nrbitsY, arrY.entries);
+			writeArray(os, dataArrZ, nrbitsZ, arrZ.entries);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				dataY.close();
+				dataZ.close();
+			} finally {
+				dataArrY.close();
+				dataArrZ.close();
+			}
+		}
+	}
+}
@@ -9,6 +9,8 @@ package org.eclipse.rdf4j.rio.hdt;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * Variable byte encoding for numbers.
@@ -92,6 +94,39 @@ public class VByte {
 		return decode(buffer, i);
 	}
 
+	/**
+	 * Decode a maximum of 8 bytes from a buffer.
+	 *
+	 * @param b     buffer
+	 * @param start starting position
+	 * @return decode value
+	 * @throws IOException
+	 */
+	public static long decodeFrom(ByteBuffer b, int start) throws IOException {
+		byte[] buffer = new byte[8];
+
+		int i = 0;
+		do {
+			buffer[i] = b.get(start + i);
+		} while (i < buffer.length && hasNext(buffer[i++]));
+		return decode(buffer, i);
+	}
+
+	/**
+	 * Encode a value to the output stream.
+	 *
+	 * @param os    output stream
+	 * @param value (unsigned) numeric value
+	 * @throws IOException
+	 */
+	public static void encode(OutputStream os, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			os.write((int) (value & 0x7F));
+			value >>>= 7;
+		}
+		os.write((int) value | 0x80);
+	}
+
 	/**
 	 * Calculate the number of bytes needed for encoding a value
 	 *
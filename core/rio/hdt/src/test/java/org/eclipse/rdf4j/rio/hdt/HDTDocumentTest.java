@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.hdt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.helpers.StatementCollector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HDTDocumentTest {
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	private Model orig;
+	private HDTDocument doc;
+
+	@Before
+	public void setUp() throws Exception {
+		orig = new LinkedHashModel();
+		try (InputStream is = HDTDocumentTest.class.getResourceAsStream("/test-orig.nt")) {
+			RDFParser nt = Rio.createParser(RDFFormat.NTRIPLES);
+			nt.setRDFHandler(new StatementCollector(orig));
+			nt.parse(is, "");
+		}
+		doc = HDTDocument.open(new File(HDTDocumentTest.class.getResource("/test.hdt").toURI()));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		doc.close();
+	}
+
+	@Test
+	public void testAllTriples() throws Exception {
+		assertEquals(43, doc.size());
+		assertEquals(orig, toModel(doc.getTriples(0, 0, 0)));
+	}
+
+	@Test
+	public void testPatterns() throws Exception {
+		for (Statement st : orig) {
+			int s = doc.getSubjectID(st.getSubject());
+			int p = doc.getPredicateID(st.getPredicate());
+			int o = doc.getObjectID(st.getObject());
+
+			assertEquals(st.getSubject(), doc.getSubject(s));
+			assertEquals(st.getPredicate(), doc.getPredicate(p));
+			assertEquals(st.getObject(), doc.getObject(o));
+
+			assertPattern(st.getSubject(), null, null, s, 0, 0);
+			assertPattern(null, st.getPredicate(), null, 0, p, 0);
+			assertPattern(null, null, st.getObject(), 0, 0, o);
+			assertPattern(st.getSubject(), st.getPredicate(), null, s, p, 0);
+			assertPattern(st.getSubject(), null, st.getObject(), s, 0, o);
+			assertPattern(null, st.getPredicate(), st.getObject(), 0, p, o);
+			assertPattern(st.getSubject(), st.getPredicate(), st.getObject(), s, p, o);
+
+			assertEquals(orig.filter(st.getSubject(), null, null).size(), doc.count(s, 0));
+			assertEquals(orig.filter(st.getSubject(), st.getPredicate(), null).size(), doc.count(s, p));
+			assertEquals(orig.filter(null, st.getPredicate(), null).size(), doc.countPredicate(p));
+		}
+	}
+
+	@Test
+	public void testUnknownValues() throws Exception {
+		IRI unknown = vf.createIRI("http://example.org/unknown");
+		assertEquals(0, doc.getSubjectID(unknown));
+		assertEquals(0, doc.getPredicateID(unknown));
+		assertEquals(0, doc.getObjectID(unknown));
+		assertEquals(0, doc.getObjectID(vf.createLiteral("unknown")));
+		assertEquals(0, doc.getSubjectID(vf.createLiteral("unknown")));
+		assertEquals(0, doc.countPredicate(doc.getPredicateCount() + 1));
+		assertFalse(doc.getTriples(doc.size() + 1, 0, 0).hasNext());
+	}
+
+	private void assertPattern(Resource subj, IRI pred, Value obj, int s, int p, int o) throws Exception {
+		assertEquals(orig.filter(subj, pred, obj), toModel(doc.getTriples(s, p, o)));
+	}
+
+	private Model toModel(Iterator<int[]> it) throws Exception {
+		Model m = new LinkedHashModel();
+		while (it.hasNext()) {
+			int[] t = it.next();
+			m.add(doc.getSubject(t[0]), doc.getPredicate(t[1]), doc.getObject(t[2]));
+		}
+		return m;
+	}
+}
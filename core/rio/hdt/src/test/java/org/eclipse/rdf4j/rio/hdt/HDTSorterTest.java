@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.hdt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class HDTSorterTest {
+
+	@Test
+	public void testMergePasses() throws Exception {
+		Set<Integer> expected = new TreeSet<>();
+		Random random = new Random(42);
+		Set<String> before = getRunFiles();
+		// every record is spilled to a run of its own
+		try (HDTSorter sorter = new HDTSorter(1, true)) {
+			for (int i = 0; i < HDTSorter.MAX_RUNS * HDTSorter.MAX_RUNS + 10; i++) {
+				int value = random.nextInt(1000000);
+				expected.add(value);
+				sorter.add(ByteBuffer.allocate(4).putInt(value).array());
+			}
+			for (int value : expected) {
+				assertArrayEquals(ByteBuffer.allocate(4).putInt(value).array(), sorter.next());
+			}
+			assertNull(sorter.next());
+		}
+		assertEquals(before, getRunFiles());
+	}
+
+	@Test
+	public void testCloseWithoutReading() throws Exception {
+		Set<String> before = getRunFiles();
+		try (HDTSorter sorter = new HDTSorter(1, false)) {
+			for (int i = 0; i < 10; i++) {
+				sorter.add(new byte[] { (byte) i });
+			}
+		}
+		assertEquals(before, getRunFiles());
+	}
+
+	static Set<String> getRunFiles() {
+		Set<String> names = new TreeSet<>();
+		File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().startsWith("rdf4j-hdt-") && file.getName().endsWith(".run")) {
+					names.add(file.getName());
+				}
+			}
+		}
+		return names;
+	}
+}
@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.hdt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Set;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.util.Models;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.eclipse.rdf4j.rio.RDFWriter;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.WriterConfig;
+import org.eclipse.rdf4j.rio.helpers.HDTWriterSettings;
+import org.eclipse.rdf4j.rio.helpers.StatementCollector;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HDTWriterTest {
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	@Rule
+	public TemporaryFolder tmpDir = new TemporaryFolder();
+
+	private Model orig;
+
+	@Before
+	public void setUp() throws Exception {
+		orig = new LinkedHashModel();
+		try (InputStream is = HDTWriterTest.class.getResourceAsStream("/test-orig.nt")) {
+			RDFParser nt = Rio.createParser(RDFFormat.NTRIPLES);
+			nt.setRDFHandler(new StatementCollector(orig));
+			nt.parse(is, "");
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		assertEquals(orig, parse(write(orig, new WriterConfig())));
+	}
+
+	@Test
+	public void testExternalSort() throws Exception {
+		WriterConfig config = new WriterConfig();
+		config.set(HDTWriterSettings.SORT_BUFFER_SIZE, 256L);
+
+		assertArrayEquals(write(orig, new WriterConfig()), write(orig, config));
+	}
+
+	@Test
+	public void testDocument() throws Exception {
+		File file = tmpDir.newFile("test.hdt");
+		Files.write(file.toPath(), write(orig, new WriterConfig()));
+
+		try (HDTDocument doc = HDTDocument.open(file)) {
+			assertEquals(orig.size(), doc.size());
+			assertEquals(orig.subjects().size(), doc.getSubjectCount());
+			assertEquals(orig.predicates().size(), doc.getPredicateCount());
+			assertEquals(orig.objects().size(), doc.getObjectCount());
+
+			for (Statement st : orig) {
+				int s = doc.getSubjectID(st.getSubject());
+				int p = doc.getPredicateID(st.getPredicate());
+				int o = doc.getObjectID(st.getObject());
+				assertTrue(doc.getTriples(s, p, o).hasNext());
+			}
+		}
+	}
+
+	@Test
+	public void testValues() throws Exception {
+		IRI ex = vf.createIRI("http://example.org/ex");
+		BNode b1 = vf.createBNode();
+		BNode b2 = vf.createBNode();
+
+		Model model = new LinkedHashModel();
+		model.add(b1, ex, b2);
+		model.add(b2, ex, vf.createLiteral("plain"));
+		model.add(b2, ex, vf.createLiteral("quoted \"label\"\nwith a new line"));
+		model.add(b2, ex, vf.createLiteral("taal", "nl"));
+		model.add(b2, ex, vf.createLiteral("42", XSD.INT));
+		model.add(ex, ex, vf.createLiteral("été"));
+		// contexts are ignored, duplicates are only written once
+		model.add(ex, ex, ex, vf.createIRI("http://example.org/graph"));
+		model.add(ex, ex, vf.createLiteral("été"), vf.createIRI("http://example.org/graph"));
+
+		Model expected = new LinkedHashModel();
+		model.forEach(st -> expected.add(st.getSubject(), st.getPredicate(), st.getObject()));
+
+		Model m = parse(write(model, new WriterConfig()));
+		assertEquals(7, m.size());
+		assertTrue(Models.isomorphic(expected, m));
+	}
+
+	@Test
+	public void testIRIsThatLookLikeBlankNodes() throws Exception {
+		IRI ex = vf.createIRI("http://example.org/ex");
+		IRI geo = vf.createIRI("geo:52.37,4.89");
+		IRI gene = vf.createIRI("gene:BRCA1");
+		BNode genid = vf.createBNode("genid42");
+		BNode underscore = vf.createBNode("_x");
+
+		Model model = new LinkedHashModel();
+		model.add(geo, ex, gene);
+		model.add(gene, ex, genid);
+		model.add(genid, ex, underscore);
+
+		byte[] hdt = write(model, new WriterConfig());
+		Model m = parse(hdt);
+		assertTrue(m.contains(geo, ex, gene));
+		assertTrue(Models.isomorphic(model, m));
+
+		File file = tmpDir.newFile("test.hdt");
+		Files.write(file.toPath(), hdt);
+		try (HDTDocument doc = HDTDocument.open(file)) {
+			for (Statement st : m) {
+				int s = doc.getSubjectID(st.getSubject());
+				int p = doc.getPredicateID(st.getPredicate());
+				int o = doc.getObjectID(st.getObject());
+				assertTrue(doc.getTriples(s, p, o).hasNext());
+				assertEquals(st.getSubject(), doc.getSubject(s));
+				assertEquals(st.getObject(), doc.getObject(o));
+			}
+		}
+	}
+
+	@Test
+	public void testAbandoned() throws Exception {
+		Set<String> before = HDTSorterTest.getRunFiles();
+		WriterConfig config = new WriterConfig();
+		config.set(HDTWriterSettings.SORT_BUFFER_SIZE, 256L);
+		try (HDTWriter writer = new HDTWriter(new ByteArrayOutputStream())) {
+			writer.setWriterConfig(config);
+			writer.startRDF();
+			for (Statement st : orig) {
+				writer.handleStatement(st);
+			}
+		}
+		assertEquals(before, HDTSorterTest.getRunFiles());
+	}
+
+	@Test
+	public void testEmpty() throws Exception {
+		assertTrue(parse(write(new LinkedHashModel(), new WriterConfig())).isEmpty());
+	}
+
+	private byte[] write(Model model, WriterConfig config) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		RDFWriter writer = Rio.createWriter(RDFFormat.HDT, out);
+		writer.setWriterConfig(config);
+		writer.startRDF();
+		for (Statement st : model) {
+			writer.handleStatement(st);
+		}
+		writer.endRDF();
+		return out.toByteArray();
+	}
+
+	private Model parse(byte[] hdt) throws Exception {
+		return Rio.parse(new ByteArrayInputStream(hdt), "", RDFFormat.HDT);
+	}
+}
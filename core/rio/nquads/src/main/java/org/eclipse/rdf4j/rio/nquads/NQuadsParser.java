@@ -8,14 +8,7 @@
 package org.eclipse.rdf4j.rio.nquads;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.PushbackReader;
-import java.io.Reader;
-import java.io.UnsupportedEncodingException;
-import java.nio.charset.StandardCharsets;
-
-import org.apache.commons.io.input.BOMInputStream;
+
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.rio.RDFFormat;
@@ -41,62 +34,29 @@ public class NQuadsParser extends NTriplesParser {
 	}
 
 	@Override
-	public synchronized void parse(final InputStream inputStream, final String baseURI)
-			throws IOException, RDFParseException, RDFHandlerException {
-		if (inputStream == null) {
-			throw new IllegalArgumentException("Input stream can not be 'null'");
-		}
-
-		try {
-			parse(new InputStreamReader(new BOMInputStream(inputStream, false), StandardCharsets.UTF_8), baseURI);
-		} catch (UnsupportedEncodingException e) {
-			// Every platform should support the UTF-8 encoding...
-			throw new RuntimeException(e);
-		}
+	protected NTriplesParser createChunkParser() {
+		return getClass() == NQuadsParser.class ? new NQuadsParser() : null;
 	}
 
 	@Override
-	public synchronized void parse(final Reader reader, final String baseURI)
-			throws IOException, RDFParseException, RDFHandlerException {
-		clear();
-
-		try {
-			if (reader == null) {
-				throw new IllegalArgumentException("Reader can not be 'null'");
-			}
-
-			if (rdfHandler != null) {
-				rdfHandler.startRDF();
-			}
-
-			this.reader = new PushbackReader(reader);
-			lineNo = 1;
-
-			reportLocation(lineNo, 1);
-
-			int c = readCodePoint();
-			c = skipWhitespace(c);
+	protected boolean supportsByteParsing() {
+		return getClass() == NQuadsParser.class;
+	}
 
-			while (c != -1) {
-				if (c == '#') {
-					// Comment, ignore
-					c = skipLine(c);
-				} else if (c == '\r' || c == '\n') {
-					// Empty line, ignore
-					c = skipLine(c);
-				} else {
-					c = parseQuad(c);
-				}
+	@Override
+	protected int parseComment(int c) throws IOException {
+		// Comment, ignore
+		return skipLine(c);
+	}
 
-				c = skipWhitespace(c);
-			}
-		} finally {
-			clear();
-		}
+	@Override
+	protected void reportComment(String comment) {
+		// Comment, ignore
+	}
 
-		if (rdfHandler != null) {
-			rdfHandler.endRDF();
-		}
+	@Override
+	protected int parseStatement(int c) throws IOException, RDFParseException, RDFHandlerException {
+		return parseQuad(c);
 	}
 
 	private int parseQuad(int c) throws IOException, RDFParseException, RDFHandlerException {
@@ -128,12 +88,8 @@ public class NQuadsParser extends NTriplesParser {
 
 			c = assertLineTerminates(c);
 		} catch (RDFParseException rdfpe) {
-			if (getParserConfig().isNonFatalError(NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES)) {
-				reportError(rdfpe, NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES);
-				ignoredAnError = true;
-			} else {
-				throw rdfpe;
-			}
+			handleStatementError(rdfpe);
+			ignoredAnError = true;
 		}
 
 		c = skipLine(c);
@@ -153,6 +109,15 @@ public class NQuadsParser extends NTriplesParser {
 		return c;
 	}
 
+	@Override
+	protected void handleStatementError(RDFParseException rdfpe) throws RDFParseException {
+		if (getParserConfig().isNonFatalError(NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES)) {
+			reportError(rdfpe, NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES);
+		} else {
+			throw rdfpe;
+		}
+	}
+
 	protected int parseContext(int c) throws IOException, RDFParseException {
 		StringBuilder sb = new StringBuilder(100);
 
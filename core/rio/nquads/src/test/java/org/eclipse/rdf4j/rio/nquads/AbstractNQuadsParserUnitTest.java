@@ -15,7 +15,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.eclipse.rdf4j.model.BNode;
 import org.eclipse.rdf4j.model.IRI;
@@ -637,7 +640,29 @@ public abstract class AbstractNQuadsParserUnitTest {
 
 	@Test
 	public void testSupportedSettings() throws Exception {
-		assertThat(parser.getSupportedSettings()).hasSize(13);
+		assertThat(parser.getSupportedSettings()).hasSize(15);
+	}
+
+	@Test
+	public void testParallelParsing() throws Exception {
+		StringBuilder document = new StringBuilder();
+		for (int i = 0; i < 50000; i++) {
+			document.append("<urn:s").append(i).append("> <urn:p> \"literal ").append(i).append("\" <urn:g")
+					.append(i % 3).append("> .\n");
+			if (i % 1000 == 0) {
+				document.append("# comment\n");
+			}
+		}
+		parser.parse(new StringReader(document.toString()), "http://example/");
+		List<Statement> expected = new ArrayList<>(rdfHandler.getStatements());
+
+		List<Statement> statements = new ArrayList<>();
+		parser.getParserConfig().set(BasicParserSettings.PARSER_THREADS, 4);
+		parser.setRDFHandler(new StatementCollector(statements));
+		parser.parse(new StringReader(document.toString()), "http://example/");
+
+		Assert.assertEquals(50000, statements.size());
+		Assert.assertEquals(expected, statements);
 	}
 
 	protected abstract RDFParser createRDFParser();
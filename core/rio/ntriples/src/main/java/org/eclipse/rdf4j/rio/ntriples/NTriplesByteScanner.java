@@ -0,0 +1,471 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.ntriples;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.rio.helpers.NTriplesUtil;
+
+/**
+ * Scans the lines of a UTF-8 encoded N-Triples or N-Quads document as bytes. The terms of a statement are only decoded
+ * into strings when their values are created, after the whole line has been recognized, and recently seen IRIs are
+ * taken from a cache instead of being created again. The scanner only recognizes well-formed lines, anything else is
+ * left to the character based parser.
+ */
+class NTriplesByteScanner {
+
+	/**
+	 * The number of IRIs in the cache, a power of two.
+	 */
+	private static final int CACHE_SIZE = 4096;
+
+	// the kinds of lines
+
+	public static final int UNKNOWN = 0;
+
+	public static final int EMPTY = 1;
+
+	public static final int COMMENT = 2;
+
+	public static final int STATEMENT = 3;
+
+	// the positions of the terms of a statement
+
+	public static final int SUBJECT = 0;
+
+	public static final int PREDICATE = 1;
+
+	public static final int OBJECT = 2;
+
+	public static final int CONTEXT = 3;
+
+	public static final int DATATYPE = 4;
+
+	// the kinds of terms
+
+	public static final int NONE = 0;
+
+	public static final int URI_REF = 1;
+
+	public static final int NODE_ID = 2;
+
+	public static final int LITERAL = 3;
+
+	private final InputStream in;
+
+	private final Function<String, IRI> iriFactory;
+
+	private byte[] buffer = new byte[1 << 16];
+
+	/**
+	 * The end of the bytes that have been read into the buffer.
+	 */
+	private int limit;
+
+	private boolean eof;
+
+	private int lineStart;
+
+	/**
+	 * The end of the current line, without its line break.
+	 */
+	private int lineEnd;
+
+	private int nextLineStart;
+
+	private boolean lineBreak;
+
+	/**
+	 * The number of carriage returns in the current line, other than the one of a CR LF line break.
+	 */
+	private int carriageReturns;
+
+	private int pos;
+
+	private int commentStart;
+
+	// the terms of the statement on the current line, by position
+
+	private final int[] kinds = new int[5];
+
+	private final int[] starts = new int[5];
+
+	private final int[] ends = new int[5];
+
+	private final int[] hashes = new int[5];
+
+	private final boolean[] ascii = new boolean[5];
+
+	private final boolean[] escaped = new boolean[5];
+
+	private int languageStart;
+
+	private int languageEnd;
+
+	private final byte[][] cachedKeys = new byte[CACHE_SIZE][];
+
+	private final IRI[] cachedIRIs = new IRI[CACHE_SIZE];
+
+	/**
+	 * @param in         the UTF-8 encoded document.
+	 * @param iriFactory creates the IRIs from the (still escaped) text between the angle brackets.
+	 */
+	public NTriplesByteScanner(InputStream in, Function<String, IRI> iriFactory) {
+		this.in = in;
+		this.iriFactory = iriFactory;
+	}
+
+	/**
+	 * Advances to the next line of the document.
+	 *
+	 * @return <tt>false</tt> if the end of the document has been reached.
+	 */
+	public boolean nextLine() throws IOException {
+		lineStart = nextLineStart;
+		carriageReturns = 0;
+		int i = lineStart;
+		while (true) {
+			for (; i < limit; i++) {
+				byte b = buffer[i];
+				if (b == '\n') {
+					endLine(i, i + 1);
+					return true;
+				} else if (b == '\r') {
+					carriageReturns++;
+				}
+			}
+			int shift = lineStart;
+			if (!fill()) {
+				break;
+			}
+			i -= shift;
+		}
+		if (lineStart == limit) {
+			return false;
+		}
+		endLine(limit, limit);
+		return true;
+	}
+
+	private void endLine(int end, int next) {
+		if (end > lineStart && buffer[end - 1] == '\r') {
+			end--;
+			carriageReturns--;
+		}
+		lineEnd = end;
+		nextLineStart = next;
+		lineBreak = next > end;
+		pos = lineStart;
+	}
+
+	/**
+	 * Reads more bytes into the buffer, after moving the current line to the start of the buffer.
+	 *
+	 * @return <tt>false</tt> if the end of the document has been reached.
+	 */
+	private boolean fill() throws IOException {
+		if (eof) {
+			return false;
+		}
+		if (lineStart > 0) {
+			System.arraycopy(buffer, lineStart, buffer, 0, limit - lineStart);
+			limit -= lineStart;
+			lineStart = 0;
+		}
+		if (limit == buffer.length) {
+			// a line that is longer than the buffer
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		int read = in.read(buffer, limit, buffer.length - limit);
+		if (read == -1) {
+			eof = true;
+			return false;
+		}
+		limit += read;
+		return true;
+	}
+
+	/**
+	 * @return <tt>true</tt> if the current line ends with a line break, rather than with the end of the document.
+	 */
+	public boolean hasLineBreak() {
+		return lineBreak;
+	}
+
+	/**
+	 * Scans the current line.
+	 *
+	 * @param contexts whether statements may have a context.
+	 * @return {@link #EMPTY}, {@link #COMMENT}, {@link #STATEMENT}, or {@link #UNKNOWN} if the line is not recognized.
+	 */
+	public int scanLine(boolean contexts) {
+		if (carriageReturns > 0) {
+			// the character based parser treats a carriage return as the end of a line
+			return UNKNOWN;
+		}
+		skipWhitespace();
+		if (pos >= lineEnd) {
+			return EMPTY;
+		} else if (buffer[pos] == '#') {
+			commentStart = pos + 1;
+			return COMMENT;
+		}
+
+		kinds[CONTEXT] = NONE;
+		kinds[DATATYPE] = NONE;
+		languageStart = -1;
+		if (!scanResource(SUBJECT)) {
+			return UNKNOWN;
+		}
+		skipWhitespace();
+		if (!scanIRI(PREDICATE)) {
+			return UNKNOWN;
+		}
+		skipWhitespace();
+		if (!(scanResource(OBJECT) || scanLiteral(OBJECT))) {
+			return UNKNOWN;
+		}
+		skipWhitespace();
+		if (contexts && pos < lineEnd && buffer[pos] != '.') {
+			if (!scanResource(CONTEXT)) {
+				return UNKNOWN;
+			}
+			skipWhitespace();
+		}
+		if (pos >= lineEnd || buffer[pos++] != '.') {
+			return UNKNOWN;
+		}
+		skipWhitespace();
+		return pos >= lineEnd || buffer[pos] == '#' ? STATEMENT : UNKNOWN;
+	}
+
+	/**
+	 * @return the text of the comment on the current line, without the leading '#'.
+	 */
+	public String getComment() {
+		return decode(commentStart, lineEnd, false);
+	}
+
+	/**
+	 * @return the kind of the term at the supplied position of the statement on the current line: {@link #URI_REF},
+	 *         {@link #NODE_ID}, {@link #LITERAL} or {@link #NONE}.
+	 */
+	public int getKind(int term) {
+		return kinds[term];
+	}
+
+	/**
+	 * Creates the IRI at the supplied position of the statement on the current line, or takes it from the cache.
+	 */
+	public IRI getIRI(int term) {
+		int start = starts[term];
+		int end = ends[term];
+		if (escaped[term]) {
+			// not cached, as unescaping may report an error
+			return iriFactory.apply(decode(start, end, ascii[term]));
+		}
+		int slot = (hashes[term] ^ (hashes[term] >>> 16)) & (CACHE_SIZE - 1);
+		byte[] key = cachedKeys[slot];
+		if (key != null && matches(key, start, end)) {
+			return cachedIRIs[slot];
+		}
+		IRI iri = iriFactory.apply(decode(start, end, ascii[term]));
+		if (iri != null) {
+			cachedKeys[slot] = Arrays.copyOfRange(buffer, start, end);
+			cachedIRIs[slot] = iri;
+		}
+		return iri;
+	}
+
+	/**
+	 * @return the blank node label, or the still escaped literal label, at the supplied position of the statement on
+	 *         the current line.
+	 */
+	public String getLabel(int term) {
+		return decode(starts[term], ends[term], ascii[term]);
+	}
+
+	/**
+	 * @return the language tag of the literal object of the statement on the current line, or <tt>null</tt>.
+	 */
+	public String getLanguageTag() {
+		return languageStart < 0 ? null : decode(languageStart, languageEnd, true);
+	}
+
+	/**
+	 * @return the bytes of the document from the start of the current line.
+	 */
+	public InputStream remaining() {
+		return new SequenceInputStream(new ByteArrayInputStream(buffer, lineStart, limit - lineStart), in);
+	}
+
+	private void skipWhitespace() {
+		while (pos < lineEnd && (buffer[pos] == ' ' || buffer[pos] == '\t')) {
+			pos++;
+		}
+	}
+
+	private boolean scanResource(int term) {
+		return scanIRI(term) || scanNodeID(term);
+	}
+
+	private boolean scanIRI(int term) {
+		if (pos >= lineEnd || buffer[pos] != '<') {
+			return false;
+		}
+		int start = pos + 1;
+		int hash = 0;
+		boolean isAscii = true;
+		boolean isEscaped = false;
+		int i = start;
+		for (;; i++) {
+			if (i >= lineEnd) {
+				return false;
+			}
+			byte b = buffer[i];
+			if (b == '>') {
+				break;
+			} else if (b == ' ') {
+				return false;
+			} else if (b == '\\') {
+				if (i + 1 >= lineEnd || buffer[i + 1] != 'u' && buffer[i + 1] != 'U') {
+					return false;
+				}
+				isEscaped = true;
+			} else if (b < 0) {
+				isAscii = false;
+			}
+			hash = 31 * hash + b;
+		}
+		setTerm(term, URI_REF, start, i, isAscii, isEscaped);
+		hashes[term] = hash;
+		pos = i + 1;
+		return true;
+	}
+
+	/**
+	 * Scans a blank node label with ASCII characters only.
+	 */
+	private boolean scanNodeID(int term) {
+		int start = pos + 2;
+		if (start >= lineEnd || buffer[pos] != '_' || buffer[pos + 1] != ':' || !isLabelChar(buffer[start])
+				|| buffer[start] == '-') {
+			return false;
+		}
+		int i = start + 1;
+		for (; i < lineEnd; i++) {
+			byte b = buffer[i];
+			if (b < 0) {
+				return false;
+			} else if (b == '.') {
+				if (i + 1 < lineEnd && buffer[i + 1] < 0) {
+					return false;
+				} else if (i + 1 >= lineEnd || buffer[i + 1] != '.' && !isLabelChar(buffer[i + 1])) {
+					// a trailing dot is not part of the label
+					break;
+				}
+			} else if (!isLabelChar(b)) {
+				break;
+			}
+		}
+		setTerm(term, NODE_ID, start, i, true, false);
+		pos = i;
+		return true;
+	}
+
+	private static boolean isLabelChar(byte b) {
+		return b >= 'a' && b <= 'z' || b >= 'A' && b <= 'Z' || b >= '0' && b <= '9' || b == '_' || b == '-';
+	}
+
+	/**
+	 * Scans a literal with an optional language tag or datatype.
+	 */
+	private boolean scanLiteral(int term) {
+		if (pos >= lineEnd || buffer[pos] != '"') {
+			return false;
+		}
+		int start = pos + 1;
+		boolean isAscii = true;
+		int i = start;
+		for (;; i++) {
+			if (i >= lineEnd) {
+				return false;
+			}
+			byte b = buffer[i];
+			if (b == '"') {
+				break;
+			} else if (b == '\\') {
+				i++;
+			} else if (b < 0) {
+				isAscii = false;
+			}
+		}
+		setTerm(term, LITERAL, start, i, isAscii, false);
+		pos = i + 1;
+
+		if (pos < lineEnd && buffer[pos] == '@') {
+			return scanLanguageTag();
+		} else if (pos + 2 < lineEnd && buffer[pos] == '^' && buffer[pos + 1] == '^') {
+			pos += 2;
+			return scanIRI(DATATYPE);
+		}
+		return pos >= lineEnd || buffer[pos] != '^';
+	}
+
+	/**
+	 * Scans a language tag that needs to be followed by whitespace or a '.'.
+	 */
+	private boolean scanLanguageTag() {
+		int start = pos + 1;
+		int i = start;
+		if (i >= lineEnd || !(buffer[i] >= 'a' && buffer[i] <= 'z' || buffer[i] >= 'A' && buffer[i] <= 'Z')) {
+			return false;
+		}
+		while (i < lineEnd && isLabelChar(buffer[i]) && buffer[i] != '_') {
+			i++;
+		}
+		if (i >= lineEnd || buffer[i] != ' ' && buffer[i] != '\t' && buffer[i] != '.') {
+			return false;
+		}
+		languageStart = start;
+		languageEnd = i;
+		pos = i;
+		return true;
+	}
+
+	private void setTerm(int term, int kind, int start, int end, boolean isAscii, boolean isEscaped) {
+		kinds[term] = kind;
+		starts[term] = start;
+		ends[term] = end;
+		ascii[term] = isAscii;
+		escaped[term] = isEscaped;
+	}
+
+	private boolean matches(byte[] key, int start, int end) {
+		if (key.length != end - start) {
+			return false;
+		}
+		for (int i = 0; i < key.length; i++) {
+			if (key[i] != buffer[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String decode(int start, int end, boolean ascii) {
+		return new String(buffer, start, end - start, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+	}
+}
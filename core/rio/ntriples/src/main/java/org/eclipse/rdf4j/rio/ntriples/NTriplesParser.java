@@ -12,6 +12,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PushbackReader;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
@@ -27,6 +28,7 @@ import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandler;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
 import org.eclipse.rdf4j.rio.RDFParseException;
 import org.eclipse.rdf4j.rio.RioSetting;
@@ -34,6 +36,7 @@ import org.eclipse.rdf4j.rio.helpers.AbstractRDFParser;
 import org.eclipse.rdf4j.rio.helpers.BasicParserSettings;
 import org.eclipse.rdf4j.rio.helpers.NTriplesParserSettings;
 import org.eclipse.rdf4j.rio.helpers.NTriplesUtil;
+import org.eclipse.rdf4j.rio.helpers.ParallelParsingHelper;
 
 /**
  * RDF parser for N-Triples files. A specification of NTriples can be found in
@@ -87,11 +90,30 @@ public class NTriplesParser extends AbstractRDFParser {
 			throw new IllegalArgumentException("Input stream can not be 'null'");
 		}
 
+		if (!supportsByteParsing() || getParserConfig().get(BasicParserSettings.PARSER_THREADS) > 1) {
+			try {
+				parse(new InputStreamReader(new BOMInputStream(in, false), StandardCharsets.UTF_8), baseURI);
+			} catch (UnsupportedEncodingException e) {
+				// Every platform should support the UTF-8 encoding...
+				throw new RuntimeException(e);
+			}
+			return;
+		}
+
+		clear();
+
 		try {
-			parse(new InputStreamReader(new BOMInputStream(in, false), StandardCharsets.UTF_8), baseURI);
-		} catch (UnsupportedEncodingException e) {
-			// Every platform should support the UTF-8 encoding...
-			throw new RuntimeException(e);
+			if (rdfHandler != null) {
+				rdfHandler.startRDF();
+			}
+
+			parseBytes(new BOMInputStream(in, false));
+		} finally {
+			clear();
+		}
+
+		if (rdfHandler != null) {
+			rdfHandler.endRDF();
 		}
 	}
 
@@ -109,35 +131,158 @@ public class NTriplesParser extends AbstractRDFParser {
 				rdfHandler.startRDF();
 			}
 
-			// Allow 1 characters to be pushed back
-			this.reader = new PushbackReader(reader);
-			lineNo = 1;
+			if (getParserConfig().get(BasicParserSettings.PARSER_THREADS) > 1 && createChunkParser() != null) {
+				ParallelParsingHelper.parse(ParallelParsingHelper.lineChunks(reader), this::parseChunk, rdfHandler,
+						getParserConfig());
+			} else {
+				parseLines(reader, 1);
+			}
+		} finally {
+			clear();
+		}
 
-			reportLocation(lineNo, 1);
+		if (rdfHandler != null) {
+			rdfHandler.endRDF();
+		}
+	}
+
+	/**
+	 * Parses the lines that the reader provides, starting at the supplied line number.
+	 */
+	protected void parseLines(Reader reader, long lineNo) throws IOException, RDFParseException, RDFHandlerException {
+		// Allow 1 characters to be pushed back
+		this.reader = new PushbackReader(reader);
+		this.lineNo = lineNo;
+
+		reportLocation(lineNo, 1);
+
+		parseRemainingLines();
+	}
+
+	/**
+	 * Parses the lines that the reader provides, starting at the current line number.
+	 */
+	private void parseRemainingLines() throws IOException, RDFParseException, RDFHandlerException {
+		int c = readCodePoint();
+		c = skipWhitespace(c);
+
+		while (c != -1) {
+			if (c == '#') {
+				// Comment
+				c = parseComment(c);
+			} else if (c == '\r' || c == '\n') {
+				// Empty line, ignore
+				c = skipLine(c);
+			} else {
+				c = parseStatement(c);
+			}
 
-			int c = readCodePoint();
 			c = skipWhitespace(c);
+		}
+	}
 
-			while (c != -1) {
-				if (c == '#') {
-					// Comment
-					c = parseComment(c);
-				} else if (c == '\r' || c == '\n') {
-					// Empty line, ignore
-					c = skipLine(c);
-				} else {
-					c = parseTriple(c);
+	/**
+	 * Parses the lines of a UTF-8 encoded input stream with a {@link NTriplesByteScanner}. As soon as a line is not
+	 * recognized by the scanner, that line and the rest of the document are parsed character by character, which
+	 * reports any errors in them.
+	 */
+	private void parseBytes(InputStream in) throws IOException, RDFParseException, RDFHandlerException {
+		NTriplesByteScanner scanner = new NTriplesByteScanner(in, this::createURI);
+		boolean contexts = getRDFFormat().supportsContexts();
+		lineNo = 1;
+		reportLocation(lineNo, 1);
+
+		while (scanner.nextLine()) {
+			int line = scanner.scanLine(contexts);
+			if (line == NTriplesByteScanner.UNKNOWN) {
+				reader = new PushbackReader(new InputStreamReader(scanner.remaining(), StandardCharsets.UTF_8));
+				parseRemainingLines();
+				return;
+			}
+
+			boolean ignoredAnError = false;
+			Resource context = null;
+			if (line == NTriplesByteScanner.COMMENT) {
+				reportComment(scanner.getComment());
+			} else if (line == NTriplesByteScanner.STATEMENT) {
+				try {
+					subject = createResource(scanner, NTriplesByteScanner.SUBJECT);
+					predicate = scanner.getIRI(NTriplesByteScanner.PREDICATE);
+					object = createObject(scanner);
+					if (scanner.getKind(NTriplesByteScanner.CONTEXT) != NTriplesByteScanner.NONE) {
+						context = createResource(scanner, NTriplesByteScanner.CONTEXT);
+					}
+				} catch (RDFParseException rdfpe) {
+					handleStatementError(rdfpe);
+					ignoredAnError = true;
 				}
+			}
 
-				c = skipWhitespace(c);
+			if (scanner.hasLineBreak()) {
+				lineNo++;
+				reportLocation(lineNo, 1);
 			}
-		} finally {
-			clear();
+
+			if (line == NTriplesByteScanner.STATEMENT && !ignoredAnError) {
+				Statement st = contexts ? createStatement(subject, predicate, object, context)
+						: createStatement(subject, predicate, object);
+				if (rdfHandler != null) {
+					rdfHandler.handleStatement(st);
+				}
+			}
+			subject = null;
+			predicate = null;
+			object = null;
 		}
+	}
 
-		if (rdfHandler != null) {
-			rdfHandler.endRDF();
+	private Value createObject(NTriplesByteScanner scanner) throws RDFParseException {
+		if (scanner.getKind(NTriplesByteScanner.OBJECT) != NTriplesByteScanner.LITERAL) {
+			return createResource(scanner, NTriplesByteScanner.OBJECT);
+		}
+		String label;
+		try {
+			label = NTriplesUtil.unescapeString(scanner.getLabel(NTriplesByteScanner.OBJECT));
+		} catch (IllegalArgumentException e) {
+			throw new RDFParseException(e, lineNo, -1);
+		}
+		IRI datatype = null;
+		if (scanner.getKind(NTriplesByteScanner.DATATYPE) != NTriplesByteScanner.NONE) {
+			datatype = scanner.getIRI(NTriplesByteScanner.DATATYPE);
+		}
+		return createLiteral(label, scanner.getLanguageTag(), datatype, lineNo, -1);
+	}
+
+	private Resource createResource(NTriplesByteScanner scanner, int term) throws RDFParseException {
+		if (scanner.getKind(term) == NTriplesByteScanner.URI_REF) {
+			return scanner.getIRI(term);
 		}
+		return createNode(scanner.getLabel(term));
+	}
+
+	/**
+	 * Returns <tt>true</tt> if input streams can be parsed by scanning their UTF-8 bytes, instead of decoding them
+	 * into characters first. Subclasses that change the syntax need to override this method.
+	 */
+	protected boolean supportsByteParsing() {
+		return getClass() == NTriplesParser.class;
+	}
+
+	/**
+	 * Creates a parser for the chunks of a document that is parsed on several threads, or returns <tt>null</tt> if
+	 * documents can only be parsed on the calling thread. Subclasses that change the syntax need to override this
+	 * method to create a parser of their own class.
+	 */
+	protected NTriplesParser createChunkParser() {
+		return getClass() == NTriplesParser.class ? new NTriplesParser() : null;
+	}
+
+	private void parseChunk(ParallelParsingHelper.Chunk chunk, RDFHandler handler)
+			throws IOException, RDFParseException, RDFHandlerException {
+		NTriplesParser parser = createChunkParser();
+		parser.initializeFrom(this);
+		parser.setRDFHandler(handler);
+		parser.parseLines(new StringReader(chunk.getText()), chunk.getLineNo());
 	}
 
 	/**
@@ -227,16 +372,26 @@ public class NTriplesParser extends AbstractRDFParser {
 		return skipLine(c, null);
 	}
 
-	private int parseComment(int c) throws IOException {
+	protected int parseComment(int c) throws IOException {
 		StringBuilder sb = new StringBuilder(100);
 		int res = skipLine(c, sb);
+		reportComment(sb.toString());
+		return res;
+	}
+
+	/**
+	 * Reports the text of a comment, without the leading '#', to the RDF handler.
+	 */
+	protected void reportComment(String comment) throws RDFHandlerException {
 		if (rdfHandler != null) {
-			rdfHandler.handleComment(sb.toString());
+			rdfHandler.handleComment(comment);
 		}
-		return res;
 	}
 
-	private int parseTriple(int c) throws IOException, RDFParseException, RDFHandlerException {
+	/**
+	 * Parses the statement that starts with the supplied code point, up to and including the line break that ends it.
+	 */
+	protected int parseStatement(int c) throws IOException, RDFParseException, RDFHandlerException {
 		boolean ignoredAnError = false;
 		try {
 			c = parseSubject(c);
@@ -255,13 +410,8 @@ public class NTriplesParser extends AbstractRDFParser {
 
 			c = assertLineTerminates(c);
 		} catch (RDFParseException rdfpe) {
-			if (!getParserConfig().get(NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES)
-					|| getParserConfig().isNonFatalError(NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES)) {
-				reportError(rdfpe, NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES);
-				ignoredAnError = true;
-			} else {
-				throw rdfpe;
-			}
+			handleStatementError(rdfpe);
+			ignoredAnError = true;
 		}
 
 		c = skipLine(c);
@@ -280,6 +430,19 @@ public class NTriplesParser extends AbstractRDFParser {
 		return c;
 	}
 
+	/**
+	 * Handles an error in the statement on the current line. The error is either reported, after which the line is
+	 * ignored, or rethrown, depending on {@link NTriplesParserSettings#FAIL_ON_NTRIPLES_INVALID_LINES}.
+	 */
+	protected void handleStatementError(RDFParseException rdfpe) throws RDFParseException {
+		if (!getParserConfig().get(NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES)
+				|| getParserConfig().isNonFatalError(NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES)) {
+			reportError(rdfpe, NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES);
+		} else {
+			throw rdfpe;
+		}
+	}
+
 	protected int parseSubject(int c) throws IOException, RDFParseException {
 		StringBuilder sb = new StringBuilder(100);
 
@@ -672,6 +835,10 @@ public class NTriplesParser extends AbstractRDFParser {
 		Collection<RioSetting<?>> result = new HashSet<>(super.getSupportedSettings());
 
 		result.add(NTriplesParserSettings.FAIL_ON_INVALID_LINES);
+		if (createChunkParser() != null) {
+			result.add(BasicParserSettings.PARSER_THREADS);
+			result.add(BasicParserSettings.PRESERVE_STATEMENT_ORDER);
+		}
 
 		return result;
 	}
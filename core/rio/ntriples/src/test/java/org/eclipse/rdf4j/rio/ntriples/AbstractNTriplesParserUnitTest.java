@@ -8,10 +8,14 @@
 package org.eclipse.rdf4j.rio.ntriples;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -20,11 +24,13 @@ import java.util.List;
 import java.util.TreeSet;
 
 import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.impl.LinkedHashModel;
 import org.eclipse.rdf4j.model.util.Models;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
 import org.eclipse.rdf4j.rio.RDFParseException;
 import org.eclipse.rdf4j.rio.RDFParser;
+import org.eclipse.rdf4j.rio.helpers.BasicParserSettings;
 import org.eclipse.rdf4j.rio.helpers.NTriplesParserSettings;
 import org.eclipse.rdf4j.rio.helpers.StatementCollector;
 import org.junit.Test;
@@ -289,7 +295,7 @@ public abstract class AbstractNTriplesParserUnitTest {
 
 	@Test
 	public void testSupportedSettings() throws Exception {
-		assertEquals(13, createRDFParser().getSupportedSettings().size());
+		assertEquals(15, createRDFParser().getSupportedSettings().size());
 	}
 
 	@Test
@@ -494,5 +500,122 @@ public abstract class AbstractNTriplesParserUnitTest {
 		assertEquals(Arrays.asList(commentStr), cc.comments);
 	}
 
+	@Test
+	public void testParallelParsing() throws Exception {
+		StringBuilder document = new StringBuilder();
+		document.append("_:node <urn:p> \"first\" .\n");
+		for (int i = 0; i < 50000; i++) {
+			if (i % 1000 == 0) {
+				document.append("# comment ").append(i).append('\n');
+			}
+			document.append("<urn:s").append(i).append("> <urn:p> \"literal ").append(i).append(" .\\n\"@en .\n");
+		}
+		document.append("_:node <urn:p> \"last\" .\n");
+
+		List<Statement> expected = new ArrayList<>();
+		CommentCollector expectedComments = new CommentCollector(new LinkedHashModel());
+		RDFParser parser = createRDFParser();
+		parser.setRDFHandler(new StatementCollector(expected) {
+
+			@Override
+			public void handleComment(String comment) throws RDFHandlerException {
+				expectedComments.handleComment(comment);
+			}
+		});
+		parser.parse(new StringReader(document.toString()), "http://example/");
+
+		List<Statement> statements = new ArrayList<>();
+		CommentCollector comments = new CommentCollector(new LinkedHashModel());
+		parser = createRDFParser();
+		parser.getParserConfig().set(BasicParserSettings.PARSER_THREADS, 4);
+		parser.setRDFHandler(new StatementCollector(statements) {
+
+			@Override
+			public void handleComment(String comment) throws RDFHandlerException {
+				comments.handleComment(comment);
+			}
+		});
+		parser.parse(new StringReader(document.toString()), "http://example/");
+
+		assertEquals(expected.size(), statements.size());
+		assertEquals(expected.subList(1, expected.size() - 1), statements.subList(1, statements.size() - 1));
+		assertEquals(expectedComments.comments, comments.comments);
+		// the same blank node in different chunks
+		assertEquals(statements.get(0).getSubject(), statements.get(statements.size() - 1).getSubject());
+
+		try {
+			parser.parse(new StringReader(document.toString() + "<urn:s> <urn:p> .\n"), "http://example/");
+			fail("expected a parse error");
+		} catch (RDFParseException e) {
+			assertEquals(50000 + 50 + 3, e.getLineNumber());
+		}
+	}
+
+	@Test
+	public void testByteParsing() throws Exception {
+		String document = "# comment\r\n"
+				+ "<urn:s> <urn:p> <urn:o> .\n"
+				+ "\t<urn:s>\t<urn:p>\t\"tab\"\t.\t# end of line comment\n"
+				+ "\n"
+				+ "_:b1 <urn:p> \"caf\u00e9 \\\"quoted\\\" \\u00E9\"@fr-BE .\r\n"
+				+ "<urn:s\\u00E9> <urn:p> \"1\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n"
+				+ "<urn:\u00e9> <urn:p> _:b.1 .\n"
+				+ "_:b1 <urn:p> \"2\"^^<http://www.w3.org/2001/XMLSchema#integer>.\n"
+				+ "<urn:s> <urn:p> \"multi\rline\" .\n"
+				+ "<urn:s> <urn:p> \"last\" .";
+
+		List<Statement> expected = new ArrayList<>();
+		CommentCollector expectedComments = new CommentCollector(new LinkedHashModel());
+		RDFParser parser = createRDFParser();
+		parser.setRDFHandler(new StatementCollector(expected) {
+
+			@Override
+			public void handleComment(String comment) throws RDFHandlerException {
+				expectedComments.handleComment(comment);
+			}
+		});
+		parser.parse(new StringReader(document), "http://example/");
+
+		List<Statement> statements = new ArrayList<>();
+		CommentCollector comments = new CommentCollector(new LinkedHashModel());
+		parser = createRDFParser();
+		parser.setRDFHandler(new StatementCollector(statements) {
+
+			@Override
+			public void handleComment(String comment) throws RDFHandlerException {
+				comments.handleComment(comment);
+			}
+		});
+		parser.parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)), "http://example/");
+
+		assertEquals(8, expected.size());
+		assertEquals(expected.size(), statements.size());
+		assertTrue(Models.isomorphic(expected, statements));
+		assertEquals(expectedComments.comments, comments.comments);
+		// a cached IRI
+		assertSame(statements.get(0).getPredicate(), statements.get(1).getPredicate());
+	}
+
+	@Test
+	public void testByteParsingWithInvalidLines() throws Exception {
+		String document = "<urn:s> <urn:p> <urn:o1> .\n"
+				+ "<urn:s> <urn:p> .\n"
+				+ "<urn:s> <urn:p> <urn:o2> .\n";
+		List<Statement> statements = new ArrayList<>();
+		RDFParser parser = createRDFParser();
+		parser.getParserConfig().addNonFatalError(NTriplesParserSettings.FAIL_ON_NTRIPLES_INVALID_LINES);
+		parser.setRDFHandler(new StatementCollector(statements));
+		parser.parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)), "http://example/");
+		assertEquals(2, statements.size());
+
+		parser = createRDFParser();
+		try {
+			parser.parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)), "http://example/");
+			fail("expected a parse error");
+		} catch (RDFParseException e) {
+			assertEquals(2, e.getLineNumber());
+		}
+	}
+
 	protected abstract RDFParser createRDFParser();
 }
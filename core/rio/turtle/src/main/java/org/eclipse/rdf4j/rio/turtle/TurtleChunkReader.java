@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.turtle;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.rdf4j.rio.helpers.ParallelParsingHelper;
+import org.eclipse.rdf4j.rio.helpers.ParallelParsingHelper.Chunk;
+
+/**
+ * Splits a Turtle document into chunks of complete statements. The document is only scanned for the tokens that can
+ * contain a statement terminator: IRIs, strings, comments and blank node property lists or collections. A chunk ends
+ * with a '.' that is not nested in any of them and that ends a line, which always terminates a statement. The
+ * directives that precede a chunk are passed as the prologue of the chunk, in the order of the document, to set up the
+ * base URI and namespaces.
+ */
+class TurtleChunkReader implements ParallelParsingHelper.ChunkReader {
+
+	private final Reader reader;
+
+	private final char[] readBuffer = new char[8192];
+
+	private StringBuilder text = new StringBuilder(ParallelParsingHelper.CHUNK_SIZE + readBuffer.length);
+
+	private boolean eof;
+
+	/**
+	 * The position in the text up to which it has been scanned.
+	 */
+	private int pos;
+
+	/**
+	 * The position after the last string, to tell a language tag from a directive.
+	 */
+	private int stringEnd = -1;
+
+	/**
+	 * The nesting of blank node property lists and collections at {@link #pos}.
+	 */
+	private int depth;
+
+	private long lineNo = 1;
+
+	/**
+	 * The directives so far in the order of the document, <tt>null</tt> for a prefix directive that was overridden.
+	 */
+	private final List<String> directives = new ArrayList<>();
+
+	/**
+	 * The index in {@link #directives} of the last directive for each prefix.
+	 */
+	private final Map<String, Integer> prefixDirectives = new HashMap<>();
+
+	private String prologue;
+
+	public TurtleChunkReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	@Override
+	public Chunk next() throws IOException {
+		int end = scan();
+		if (end == 0) {
+			return null;
+		}
+		String chunkText = text.substring(0, end);
+		Chunk chunk = new Chunk(prologue, chunkText, lineNo);
+		lineNo += ParallelParsingHelper.countLines(chunkText);
+		prologue = getPrologue();
+
+		StringBuilder rest = new StringBuilder(ParallelParsingHelper.CHUNK_SIZE + readBuffer.length);
+		rest.append(text, end, text.length());
+		text = rest;
+		pos -= end;
+		stringEnd -= end;
+		return chunk;
+	}
+
+	/**
+	 * @return the end of the next chunk in the text.
+	 */
+	private int scan() throws IOException {
+		while (ensure(1)) {
+			char c = text.charAt(pos);
+			switch (c) {
+			case '#':
+				skipComment();
+				break;
+			case '<':
+				if (ensure(2) && text.charAt(pos + 1) == '<') {
+					// the start of an embedded triple
+					pos += 2;
+				} else {
+					skipIRI();
+				}
+				break;
+			case '"':
+			case '\'':
+				skipString(c);
+				break;
+			case '\\':
+				// an escaped character of a local name
+				pos += 2;
+				break;
+			case '@':
+				if (pos == stringEnd) {
+					// a language tag
+					pos++;
+				} else {
+					skipDirective();
+				}
+				break;
+			case '[':
+			case '(':
+			case '{':
+				depth++;
+				pos++;
+				break;
+			case ']':
+			case ')':
+			case '}':
+				depth--;
+				pos++;
+				break;
+			case '.':
+				pos++;
+				if (depth == 0 && pos >= ParallelParsingHelper.CHUNK_SIZE && ensure(1)) {
+					char next = text.charAt(pos);
+					if (next == '\n' || next == '\r') {
+						return pos;
+					}
+				}
+				break;
+			default:
+				if (isLetter(c) && (pos == 0 || isDelimiter(text.charAt(pos - 1)))) {
+					skipWord();
+				} else {
+					pos++;
+				}
+			}
+		}
+		// the rest of the document
+		pos = Math.min(pos, text.length());
+		return text.length();
+	}
+
+	private void skipComment() throws IOException {
+		while (ensure(1)) {
+			char c = text.charAt(pos);
+			if (c == '\n' || c == '\r') {
+				return;
+			}
+			pos++;
+		}
+	}
+
+	private void skipIRI() throws IOException {
+		pos++;
+		while (ensure(1)) {
+			char c = text.charAt(pos++);
+			if (c == '>') {
+				return;
+			} else if (c == '\\') {
+				pos++;
+			}
+		}
+	}
+
+	private void skipString(char quote) throws IOException {
+		boolean longString = ensure(3) && text.charAt(pos + 1) == quote && text.charAt(pos + 2) == quote;
+		if (longString) {
+			pos += 3;
+			while (ensure(1)) {
+				char c = text.charAt(pos);
+				if (c == '\\') {
+					pos += 2;
+				} else if (c == quote && ensure(3) && text.charAt(pos + 1) == quote
+						&& text.charAt(pos + 2) == quote) {
+					pos += 3;
+					break;
+				} else {
+					pos++;
+				}
+			}
+		} else {
+			pos++;
+			while (ensure(1)) {
+				char c = text.charAt(pos++);
+				if (c == '\\') {
+					pos++;
+				} else if (c == quote) {
+					break;
+				}
+			}
+		}
+		stringEnd = pos;
+	}
+
+	/**
+	 * Skips a directive that starts with '@' and ends with a '.'. A '.' before the IRI of the directive may be part of
+	 * a prefix name, which can't end with a '.' though.
+	 */
+	private void skipDirective() throws IOException {
+		int start = pos;
+		pos++;
+		boolean afterIRI = false;
+		while (ensure(1)) {
+			char c = text.charAt(pos);
+			if (c == '<') {
+				skipIRI();
+				afterIRI = true;
+			} else if (c == '#') {
+				skipComment();
+			} else {
+				pos++;
+				if (c == '.' && (afterIRI || !ensure(1) || !isNameChar(text.charAt(pos)))) {
+					break;
+				}
+			}
+		}
+		addDirective(start);
+	}
+
+	/**
+	 * Skips a word, or a SPARQL style directive that ends with an IRI if the word is PREFIX or BASE.
+	 */
+	private void skipWord() throws IOException {
+		int start = pos;
+		while (ensure(1) && isLetter(text.charAt(pos))) {
+			pos++;
+		}
+		String word = text.substring(start, pos);
+		if ((word.equalsIgnoreCase("prefix") || word.equalsIgnoreCase("base")) && ensure(1)
+				&& isDelimiter(text.charAt(pos))) {
+			while (ensure(1)) {
+				char c = text.charAt(pos);
+				if (c == '<') {
+					skipIRI();
+					break;
+				} else if (c == '#') {
+					skipComment();
+				} else {
+					pos++;
+				}
+			}
+			addDirective(start);
+		}
+	}
+
+	private void addDirective(int start) {
+		String directive = text.substring(start, Math.min(pos, text.length()));
+		String prefix = getPrefix(directive);
+		if (prefix != null) {
+			// an earlier directive for the prefix has no effect any more
+			Integer index = prefixDirectives.put(prefix, directives.size());
+			if (index != null) {
+				directives.set(index, null);
+			}
+		}
+		directives.add(directive);
+	}
+
+	/**
+	 * @return the prefix that the supplied directive declares, or <tt>null</tt> if it is not a prefix directive or the
+	 *         prefix can't be told reliably
+	 */
+	private static String getPrefix(String directive) {
+		int start;
+		if (directive.startsWith("@prefix")) {
+			start = "@prefix".length();
+		} else if (directive.regionMatches(true, 0, "prefix", 0, "prefix".length())) {
+			start = "prefix".length();
+		} else {
+			return null;
+		}
+		int end = directive.indexOf(':', start);
+		if (end == -1) {
+			return null;
+		}
+		String prefix = directive.substring(start, end).trim();
+		for (int i = 0; i < prefix.length(); i++) {
+			if (!isNameChar(prefix.charAt(i))) {
+				// e.g. a comment
+				return null;
+			}
+		}
+		return prefix;
+	}
+
+	private String getPrologue() {
+		if (directives.size() > 2 * prefixDirectives.size() + 16) {
+			// drop the overridden directives
+			directives.removeIf(Objects::isNull);
+			prefixDirectives.clear();
+			for (int i = 0; i < directives.size(); i++) {
+				String prefix = getPrefix(directives.get(i));
+				if (prefix != null) {
+					prefixDirectives.put(prefix, i);
+				}
+			}
+		}
+		StringBuilder prologue = new StringBuilder();
+		for (String directive : directives) {
+			if (directive != null) {
+				prologue.append(directive).append('\n');
+			}
+		}
+		return prologue.length() == 0 ? null : prologue.toString();
+	}
+
+	/**
+	 * Reads from the reader until the text has the supplied number of characters after the scanned position.
+	 *
+	 * @return <tt>false</tt> if the end of the document was reached before.
+	 */
+	private boolean ensure(int count) throws IOException {
+		while (pos + count > text.length()) {
+			if (eof) {
+				return false;
+			}
+			int read = reader.read(readBuffer);
+			if (read == -1) {
+				eof = true;
+			} else {
+				text.append(readBuffer, 0, read);
+			}
+		}
+		return true;
+	}
+
+	private static boolean isLetter(char c) {
+		return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+	}
+
+	private static boolean isNameChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c >= 0x80;
+	}
+
+	private static boolean isDelimiter(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '.';
+	}
+}
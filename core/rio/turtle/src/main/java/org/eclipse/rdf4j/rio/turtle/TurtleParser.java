@@ -12,6 +12,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PushbackReader;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -32,11 +33,13 @@ import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.model.vocabulary.RDF;
 import org.eclipse.rdf4j.model.vocabulary.XSD;
 import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandler;
 import org.eclipse.rdf4j.rio.RDFHandlerException;
 import org.eclipse.rdf4j.rio.RDFParseException;
 import org.eclipse.rdf4j.rio.RioSetting;
 import org.eclipse.rdf4j.rio.helpers.AbstractRDFParser;
 import org.eclipse.rdf4j.rio.helpers.BasicParserSettings;
+import org.eclipse.rdf4j.rio.helpers.ParallelParsingHelper;
 import org.eclipse.rdf4j.rio.helpers.TurtleParserSettings;
 
 /**
@@ -105,6 +108,10 @@ public class TurtleParser extends AbstractRDFParser {
 		Set<RioSetting<?>> result = new HashSet<>(super.getSupportedSettings());
 		result.add(TurtleParserSettings.CASE_INSENSITIVE_DIRECTIVES);
 		result.add(TurtleParserSettings.ACCEPT_TURTLESTAR);
+		if (createChunkParser() != null) {
+			result.add(BasicParserSettings.PARSER_THREADS);
+			result.add(BasicParserSettings.PRESERVE_STATEMENT_ORDER);
+		}
 		return result;
 	}
 
@@ -140,9 +147,6 @@ public class TurtleParser extends AbstractRDFParser {
 			// Start counting lines at 1:
 			lineNumber = 1;
 
-			// Allow at most 8 characters to be pushed back:
-			this.reader = new PushbackReader(reader, 10);
-
 			if (baseURI != null) {
 				// Store normalized base URI
 				setBaseURI(baseURI);
@@ -150,11 +154,13 @@ public class TurtleParser extends AbstractRDFParser {
 
 			reportLocation();
 
-			int c = skipWSC();
-
-			while (c != -1) {
-				parseStatement();
-				c = skipWSC();
+			if (getParserConfig().get(BasicParserSettings.PARSER_THREADS) > 1 && createChunkParser() != null) {
+				ParallelParsingHelper.parse(new TurtleChunkReader(reader), this::parseChunk, rdfHandler,
+						getParserConfig());
+			} else {
+				// Allow at most 8 characters to be pushed back:
+				this.reader = new PushbackReader(reader, 10);
+				parseStatements();
 			}
 		} finally {
 			clear();
@@ -165,6 +171,39 @@ public class TurtleParser extends AbstractRDFParser {
 		}
 	}
 
+	private void parseStatements() throws IOException, RDFParseException, RDFHandlerException {
+		int c = skipWSC();
+
+		while (c != -1) {
+			parseStatement();
+			c = skipWSC();
+		}
+	}
+
+	/**
+	 * Creates a parser for the chunks of a document that is parsed on several threads, or returns <tt>null</tt> if
+	 * documents can only be parsed on the calling thread. Subclasses that change the syntax need to override this
+	 * method to create a parser of their own class.
+	 */
+	protected TurtleParser createChunkParser() {
+		return getClass() == TurtleParser.class ? new TurtleParser() : null;
+	}
+
+	private void parseChunk(ParallelParsingHelper.Chunk chunk, RDFHandler handler)
+			throws IOException, RDFParseException, RDFHandlerException {
+		TurtleParser parser = createChunkParser();
+		parser.initializeFrom(this);
+		if (chunk.getPrologue() != null) {
+			// the directives have been reported by the chunks that contain them
+			parser.reader = new PushbackReader(new StringReader(chunk.getPrologue()), 10);
+			parser.parseStatements();
+		}
+		parser.setRDFHandler(handler);
+		parser.lineNumber = (int) chunk.getLineNo();
+		parser.reader = new PushbackReader(new StringReader(chunk.getText()), 10);
+		parser.parseStatements();
+	}
+
 	protected void parseStatement() throws IOException, RDFParseException, RDFHandlerException {
 
 		StringBuilder sb = new StringBuilder(8);
@@ -15,12 +15,19 @@ import static org.junit.Assert.fail;
 
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.eclipse.rdf4j.model.BNode;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Model;
 import org.eclipse.rdf4j.model.Namespace;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.model.impl.LinkedHashModel;
 import org.eclipse.rdf4j.model.impl.SimpleNamespace;
@@ -185,7 +192,7 @@ public class CustomTurtleParserTest {
 
 	@Test
 	public void testSupportedSettings() throws Exception {
-		assertThat(parser.getSupportedSettings()).hasSize(14);
+		assertThat(parser.getSupportedSettings()).hasSize(16);
 	}
 
 	@Test
@@ -477,4 +484,103 @@ public class CustomTurtleParserTest {
 		Model m = Rio.parse(new StringReader(ttl), "http://ex/", RDFFormat.TURTLE);
 		assertEquals(1.2d, Models.objectLiteral(m).get().doubleValue(), 0.01);
 	}
+
+	@Test
+	public void testParallelParsing() throws Exception {
+		StringBuilder ttl = new StringBuilder();
+		ttl.append("@base <http://example.org/> .\n");
+		ttl.append("@prefix ex: <ns1/> .\n");
+		ttl.append("PREFIX dc: <http://purl.org/dc/terms/>\n");
+		for (int i = 0; i < 20000; i++) {
+			if (i == 10000) {
+				ttl.append("@prefix ex: <ns2/> .\n");
+			}
+			ttl.append("ex:s").append(i).append(" a ex:Thing ;\n");
+			ttl.append("\tdc:title \"\"\"title ").append(i).append(" .\n\"\"\"@en ; # a comment .\n");
+			ttl.append("\tex:list ( 1 2.5 'x' ) ;\n");
+			ttl.append("\tex:node [ ex:p _:shared ] .\n");
+		}
+
+		List<Statement> expected = new ArrayList<>();
+		StatementCollector expectedCollector = new StatementCollector(expected);
+		RDFParser parser = Rio.createParser(RDFFormat.TURTLE);
+		parser.setRDFHandler(expectedCollector);
+		parser.parse(new StringReader(ttl.toString()), "http://example.org/");
+
+		List<Statement> statements = new ArrayList<>();
+		StatementCollector collector = new StatementCollector(statements);
+		parser = Rio.createParser(RDFFormat.TURTLE);
+		parser.getParserConfig().set(BasicParserSettings.PARSER_THREADS, 4);
+		parser.setRDFHandler(collector);
+		parser.parse(new StringReader(ttl.toString()), "http://example.org/");
+
+		assertEquals(20000 * 11, statements.size());
+		assertEquals(withBNodeLabels(expected), withBNodeLabels(statements));
+		assertEquals(expectedCollector.getNamespaces(), collector.getNamespaces());
+		// the prefix is redefined halfway
+		assertTrue(statements.contains(vf.createStatement(vf.createIRI("http://example.org/ns1/s0"), RDF.TYPE,
+				vf.createIRI("http://example.org/ns1/Thing"))));
+		assertTrue(statements.contains(vf.createStatement(vf.createIRI("http://example.org/ns2/s19999"), RDF.TYPE,
+				vf.createIRI("http://example.org/ns2/Thing"))));
+	}
+
+	@Test
+	public void testParallelParsingDirectives() throws Exception {
+		StringBuilder ttl = new StringBuilder();
+		ttl.append("@base <http://a.example/> .\n");
+		ttl.append("@prefix ex.a: <ns/> .\n");
+		ttl.append("@prefix x: <x#> .\n");
+		ttl.append("@base <http://b.example/> .\n");
+		ttl.append("@prefix y: <y#> .\n");
+		ttl.append("@base <http://a.example/> .\n");
+		// several chunks
+		for (int i = 0; i < 100000; i++) {
+			if (i == 60000) {
+				ttl.append("@prefix y: <y2#> .\n");
+			}
+			ttl.append("ex.a:s").append(i).append(" x:p <o> ;\n");
+			ttl.append("\ty:p \"").append(i).append("\" .\n");
+		}
+
+		List<Statement> expected = new ArrayList<>();
+		RDFParser parser = Rio.createParser(RDFFormat.TURTLE);
+		parser.setRDFHandler(new StatementCollector(expected));
+		parser.parse(new StringReader(ttl.toString()), "http://example.org/");
+
+		List<Statement> statements = new ArrayList<>();
+		parser = Rio.createParser(RDFFormat.TURTLE);
+		parser.getParserConfig().set(BasicParserSettings.PARSER_THREADS, 4);
+		parser.setRDFHandler(new StatementCollector(statements));
+		parser.parse(new StringReader(ttl.toString()), "http://example.org/");
+
+		assertEquals(expected, statements);
+		assertTrue(statements.contains(vf.createStatement(vf.createIRI("http://a.example/ns/s59999"),
+				vf.createIRI("http://a.example/x#p"), vf.createIRI("http://a.example/o"))));
+		// the prefix y was first declared while the second base was in effect
+		assertTrue(statements.contains(vf.createStatement(vf.createIRI("http://a.example/ns/s59999"),
+				vf.createIRI("http://b.example/y#p"), vf.createLiteral("59999"))));
+		assertTrue(statements.contains(vf.createStatement(vf.createIRI("http://a.example/ns/s99999"),
+				vf.createIRI("http://a.example/y2#p"), vf.createLiteral("99999"))));
+	}
+
+	/**
+	 * Replaces the blank nodes by labels in the order of their first occurrence.
+	 */
+	private List<String> withBNodeLabels(List<Statement> statements) {
+		Map<Value, String> labels = new HashMap<>();
+		List<String> result = new ArrayList<>(statements.size());
+		for (Statement st : statements) {
+			StringBuilder sb = new StringBuilder();
+			for (Value value : new Value[] { st.getSubject(), st.getPredicate(), st.getObject() }) {
+				if (value instanceof BNode) {
+					sb.append(labels.computeIfAbsent(value, v -> "_:" + labels.size()));
+				} else {
+					sb.append(value);
+				}
+				sb.append(' ');
+			}
+			result.add(sb.toString());
+		}
+		return result;
+	}
 }
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.rio.turtle.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
+import org.eclipse.rdf4j.rio.helpers.BasicParserSettings;
+import org.eclipse.rdf4j.rio.ntriples.NTriplesParser;
+import org.eclipse.rdf4j.rio.turtle.TurtleParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Parses an N-Triples and a Turtle document of one million statements with a varying number of threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = { "-Xms4G", "-Xmx4G" })
+public class ParallelParsingBenchmark {
+
+	private static final int STATEMENTS = 1_000_000;
+
+	@Param({ "1", "2", "4", "8" })
+	public int threads;
+
+	@Param({ "true", "false" })
+	public boolean preserveOrder;
+
+	private String ntriples;
+
+	private String turtle;
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ParallelParsingBenchmark.class.getSimpleName())
+				.build()
+		).run();
+	}
+
+	@Setup
+	public void setUp() {
+		StringBuilder nt = new StringBuilder();
+		StringBuilder ttl = new StringBuilder("@prefix ex: <http://example.org/> .\n");
+		for (int i = 0; i < STATEMENTS / 2; i++) {
+			nt.append("<http://example.org/s").append(i).append("> <http://example.org/label> \"label ")
+					.append(i).append("\"@en .\n");
+			nt.append("<http://example.org/s").append(i).append("> <http://example.org/value> \"")
+					.append(i).append("\"^^<http://www.w3.org/2001/XMLSchema#integer> .\n");
+			ttl.append("ex:s").append(i).append(" ex:label \"label ").append(i).append("\"@en ;\n\tex:value ")
+					.append(i).append(" .\n");
+		}
+		ntriples = nt.toString();
+		turtle = ttl.toString();
+	}
+
+	@Benchmark
+	public long parseNTriples() throws IOException {
+		return parse(new NTriplesParser(), ntriples);
+	}
+
+	@Benchmark
+	public long parseTurtle() throws IOException {
+		return parse(new TurtleParser(), turtle);
+	}
+
+	private long parse(RDFParser parser, String document) throws IOException {
+		parser.getParserConfig().set(BasicParserSettings.PARSER_THREADS, threads);
+		parser.getParserConfig().set(BasicParserSettings.PRESERVE_STATEMENT_ORDER, preserveOrder);
+		CountingHandler handler = new CountingHandler();
+		parser.setRDFHandler(handler);
+		parser.parse(new StringReader(document), "");
+		return handler.count;
+	}
+
+	private static class CountingHandler extends AbstractRDFHandler {
+
+		long count;
+
+		@Override
+		public void handleStatement(Statement st) {
+			count++;
+		}
+	}
+}
@@ -9,7 +9,6 @@ package org.eclipse.rdf4j.sail.base;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -18,16 +17,15 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import org.eclipse.rdf4j.IsolationLevels;
 import org.eclipse.rdf4j.model.IRI;
-import org.eclipse.rdf4j.model.Model;
 import org.eclipse.rdf4j.model.ModelFactory;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Triple;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.query.algebra.StatementPattern;
 import org.eclipse.rdf4j.query.algebra.Var;
 import org.eclipse.rdf4j.sail.SailConflictException;
@@ -35,6 +33,10 @@ import org.eclipse.rdf4j.sail.SailException;
 
 /**
  * Set of changes applied to an {@link SailSourceBranch} awaiting to be flushed into its backing {@link SailSource}.
+ * <p>
+ * Changes are made while holding the lock of the changeset, but the approved and deprecated statements are kept in
+ * {@link StatementBuffer}s that can be read without it, so that datasets that read the pending changes do not block
+ * each other or the transaction.
  *
  * @author James Leigh
  */
@@ -59,28 +61,27 @@ abstract class Changeset implements SailSink, ModelFactory {
 	private Set<StatementPattern> observations;
 
 	/**
-	 * Statements that have been added as part of a transaction, but has not yet been committed.
-	 *
-	 * DO NOT EXPOSE THE MODEL OUTSIDE OF THIS CLASS BECAUSE IT IS NOT THREAD-SAFE
+	 * The {@link #observations} that are known to have had results, or to have had none.
 	 */
-	private Model approved;
+	private Set<StatementPattern> nonEmptyObservations;
+
+	private Set<StatementPattern> emptyObservations;
 
 	/**
-	 * Explicit statements that have been removed as part of a transaction, but have not yet been committed.
-	 *
-	 * DO NOT EXPOSE THE MODEL OUTSIDE OF THIS CLASS BECAUSE IT IS NOT THREAD-SAFE
+	 * Statements that have been added as part of a transaction, but has not yet been committed.
 	 */
-	private Model deprecated;
+	private volatile StatementBuffer approved;
 
 	/**
-	 * Set of contexts of the {@link #approved} statements.
+	 * Explicit statements that have been removed as part of a transaction, but have not yet been committed.
 	 */
-	private Set<Resource> approvedContexts;
+	private volatile StatementBuffer deprecated;
 
 	/**
-	 * Set of contexts that were passed to {@link #clear(Resource...)}.
+	 * Set of contexts that were passed to {@link #clear(Resource...)}. The set is replaced rather than modified, so
+	 * that it can be read without locking.
 	 */
-	private Set<Resource> deprecatedContexts;
+	private volatile Set<Resource> deprecatedContexts;
 
 	/**
 	 * Additional namespaces added.
@@ -100,30 +101,48 @@ abstract class Changeset implements SailSink, ModelFactory {
 	/**
 	 * If all statements were removed, other than {@link #approved}.
 	 */
-	private boolean statementCleared;
+	private volatile boolean statementCleared;
 
 	@Override
 	public void close() throws SailException {
 		// no-op
 	}
 
+	/**
+	 * Checks the observations against the statements of the {@link Changeset}s that have been flushed since this
+	 * object was created. Rather than querying every changeset for every observation, the observations are indexed and
+	 * every changed statement is looked up in the index. A statement that another changeset deprecated can only have
+	 * changed the results of an observation that had results.
+	 */
 	@Override
 	public void prepare() throws SailException {
-		if (prepend != null && observations != null) {
-			for (StatementPattern p : observations) {
-				Resource subj = (Resource) p.getSubjectVar().getValue();
-				IRI pred = (IRI) p.getPredicateVar().getValue();
-				Value obj = p.getObjectVar().getValue();
-				Var ctxVar = p.getContextVar();
-				Resource[] contexts;
-				if (ctxVar == null) {
-					contexts = new Resource[0];
-				} else {
-					contexts = new Resource[] { (Resource) ctxVar.getValue() };
+		Set<StatementPattern> observations;
+		Set<StatementPattern> emptyObservations;
+		List<Changeset> prepend;
+		synchronized (this) {
+			if (this.prepend == null || this.observations == null) {
+				return;
+			}
+			observations = this.observations;
+			emptyObservations = getEmptyObservations();
+			prepend = new ArrayList<>(this.prepend);
+		}
+		ObservationIndex observed = new ObservationIndex(observations);
+		ObservationIndex observedResults = observed;
+		if (!emptyObservations.isEmpty()) {
+			Set<StatementPattern> nonEmpty = new HashSet<>(observations);
+			nonEmpty.removeAll(emptyObservations);
+			observedResults = new ObservationIndex(nonEmpty);
+		}
+		for (Changeset changeset : prepend) {
+			for (Statement st : changeset.getApprovedStatements()) {
+				if (observed.matches(st)) {
+					throw new SailConflictException("Observed State has Changed");
 				}
-				for (Changeset changeset : prepend) {
-					if (changeset.hasApproved(subj, pred, obj, contexts)
-							|| (changeset.hasDeprecated(subj, pred, obj, contexts))) {
+			}
+			if (!observedResults.isEmpty()) {
+				for (Statement st : changeset.getDeprecatedStatements()) {
+					if (observedResults.matches(st)) {
 						throw new SailConflictException("Observed State has Changed");
 					}
 				}
@@ -131,7 +150,17 @@ abstract class Changeset implements SailSink, ModelFactory {
 		}
 	}
 
-	synchronized boolean hasApproved(Resource subj, IRI pred, Value obj, Resource[] contexts) {
+	/**
+	 * @return <tt>true</tt> if the statements of this changeset can be held in memory, in which case they are
+	 *         appended to compact buffers that are only indexed in models of {@link #createEmptyModel()} when they are
+	 *         queried. Otherwise they are added to models of {@link #createEmptyModel()} directly.
+	 */
+	protected boolean isBufferedInMemory() {
+		return true;
+	}
+
+	boolean hasApproved(Resource subj, IRI pred, Value obj, Resource[] contexts) {
+		StatementBuffer approved = this.approved;
 		if (approved == null) {
 			return false;
 		}
@@ -139,7 +168,8 @@ abstract class Changeset implements SailSink, ModelFactory {
 		return approved.contains(subj, pred, obj, contexts);
 	}
 
-	synchronized boolean hasDeprecated(Resource subj, IRI pred, Value obj, Resource[] contexts) {
+	boolean hasDeprecated(Resource subj, IRI pred, Value obj, Resource[] contexts) {
+		StatementBuffer deprecated = this.deprecated;
 		if (deprecated == null) {
 			return false;
 		}
@@ -211,16 +241,40 @@ abstract class Changeset implements SailSink, ModelFactory {
 		if (observations == null) {
 			observations = new HashSet<>();
 		}
+		observations.addAll(createPatterns(subj, pred, obj, contexts));
+	}
+
+	/**
+	 * Records whether an observed statement pattern had any results.
+	 */
+	synchronized void observeResults(boolean hasResults, Resource subj, IRI pred, Value obj, Resource... contexts) {
+		if (hasResults) {
+			if (nonEmptyObservations == null) {
+				nonEmptyObservations = new HashSet<>();
+			}
+			nonEmptyObservations.addAll(createPatterns(subj, pred, obj, contexts));
+		} else {
+			if (emptyObservations == null) {
+				emptyObservations = new HashSet<>();
+			}
+			emptyObservations.addAll(createPatterns(subj, pred, obj, contexts));
+		}
+	}
+
+	private List<StatementPattern> createPatterns(Resource subj, IRI pred, Value obj, Resource... contexts) {
 		if (contexts == null) {
-			observations.add(new StatementPattern(new Var("s", subj), new Var("p", pred), new Var("o", obj),
-					new Var("g", null)));
+			return Collections.singletonList(new StatementPattern(new Var("s", subj), new Var("p", pred),
+					new Var("o", obj), new Var("g", null)));
 		} else if (contexts.length == 0) {
-			observations.add(new StatementPattern(new Var("s", subj), new Var("p", pred), new Var("o", obj)));
+			return Collections.singletonList(
+					new StatementPattern(new Var("s", subj), new Var("p", pred), new Var("o", obj)));
 		} else {
+			List<StatementPattern> patterns = new ArrayList<>(contexts.length);
 			for (Resource ctx : contexts) {
-				observations.add(new StatementPattern(new Var("s", subj), new Var("p", pred), new Var("o", obj),
+				patterns.add(new StatementPattern(new Var("s", subj), new Var("p", pred), new Var("o", obj),
 						new Var("g", ctx)));
 			}
+			return patterns;
 		}
 	}
 
@@ -230,39 +284,23 @@ abstract class Changeset implements SailSink, ModelFactory {
 			if (approved != null) {
 				approved.clear();
 			}
-			if (approvedContexts != null) {
-				approvedContexts.clear();
-			}
 			statementCleared = true;
 		} else {
 			if (approved != null) {
 				approved.remove(null, null, null, contexts);
 			}
-			if (approvedContexts != null) {
-				approvedContexts.removeAll(Arrays.asList(contexts));
-			}
-			if (deprecatedContexts == null) {
-				deprecatedContexts = new HashSet<>();
+			Set<Resource> deprecatedContexts = new HashSet<>();
+			if (this.deprecatedContexts != null) {
+				deprecatedContexts.addAll(this.deprecatedContexts);
 			}
 			deprecatedContexts.addAll(Arrays.asList(contexts));
+			this.deprecatedContexts = deprecatedContexts;
 		}
 	}
 
 	@Override
-	public synchronized void approve(Resource subj, IRI pred, Value obj, Resource ctx) {
-		if (deprecated != null) {
-			deprecated.remove(subj, pred, obj, ctx);
-		}
-		if (approved == null) {
-			approved = createEmptyModel();
-		}
-		approved.add(subj, pred, obj, ctx);
-		if (ctx != null) {
-			if (approvedContexts == null) {
-				approvedContexts = new HashSet<>();
-			}
-			approvedContexts.add(ctx);
-		}
+	public void approve(Resource subj, IRI pred, Value obj, Resource ctx) {
+		approve(SimpleValueFactory.getInstance().createStatement(subj, pred, obj, ctx));
 	}
 
 	@Override
@@ -271,15 +309,9 @@ abstract class Changeset implements SailSink, ModelFactory {
 			deprecated.remove(statement);
 		}
 		if (approved == null) {
-			approved = createEmptyModel();
+			approved = new StatementBuffer(this, isBufferedInMemory());
 		}
 		approved.add(statement);
-		if (statement.getContext() != null) {
-			if (approvedContexts == null) {
-				approvedContexts = new HashSet<>();
-			}
-			approvedContexts.add(statement.getContext());
-		}
 	}
 
 	@Override
@@ -288,13 +320,9 @@ abstract class Changeset implements SailSink, ModelFactory {
 			approved.remove(statement);
 		}
 		if (deprecated == null) {
-			deprecated = createEmptyModel();
+			deprecated = new StatementBuffer(this, isBufferedInMemory());
 		}
 		deprecated.add(statement);
-		Resource ctx = statement.getContext();
-		if (approvedContexts != null && approvedContexts.contains(ctx) && !approved.contains(null, null, null, ctx)) {
-			approvedContexts.remove(ctx);
-		}
 	}
 
 	@Override
@@ -339,9 +367,10 @@ abstract class Changeset implements SailSink, ModelFactory {
 
 	protected void setChangeset(Changeset from) {
 		this.observations = from.observations;
+		this.nonEmptyObservations = from.nonEmptyObservations;
+		this.emptyObservations = from.emptyObservations;
 		this.approved = from.approved;
 		this.deprecated = from.deprecated;
-		this.approvedContexts = from.approvedContexts;
 		this.deprecatedContexts = from.deprecatedContexts;
 		this.addedNamespaces = from.addedNamespaces;
 		this.removedPrefixes = from.removedPrefixes;
@@ -355,15 +384,33 @@ abstract class Changeset implements SailSink, ModelFactory {
 
 	}
 
-	public synchronized Set<Resource> getApprovedContexts() {
-		return cloneSet(approvedContexts);
+	/**
+	 * @return The observations that only had empty results.
+	 */
+	synchronized Set<StatementPattern> getEmptyObservations() {
+		if (emptyObservations == null) {
+			return Collections.emptySet();
+		}
+		Set<StatementPattern> result = new HashSet<>(emptyObservations);
+		if (nonEmptyObservations != null) {
+			result.removeAll(nonEmptyObservations);
+		}
+		return result;
 	}
 
-	public synchronized Set<Resource> getDeprecatedContexts() {
+	public Set<Resource> getApprovedContexts() {
+		StatementBuffer approved = this.approved;
+		if (approved == null) {
+			return null;
+		}
+		return approved.getContexts();
+	}
+
+	public Set<Resource> getDeprecatedContexts() {
 		return cloneSet(deprecatedContexts);
 	}
 
-	public synchronized boolean isStatementCleared() {
+	public boolean isStatementCleared() {
 		return statementCleared;
 	}
 
@@ -379,70 +426,67 @@ abstract class Changeset implements SailSink, ModelFactory {
 		return namespaceCleared;
 	}
 
-	public synchronized boolean hasDeprecated() {
+	public boolean hasDeprecated() {
+		StatementBuffer deprecated = this.deprecated;
 		return deprecated != null && !deprecated.isEmpty();
 	}
 
 	boolean isChanged() {
-		return approved != null || deprecated != null || approvedContexts != null
+		return approved != null || deprecated != null
 				|| deprecatedContexts != null || addedNamespaces != null
 				|| removedPrefixes != null || statementCleared || namespaceCleared
 				|| observations != null;
 	}
 
-	synchronized List<Statement> getDeprecatedStatements() {
+	List<Statement> getDeprecatedStatements() {
+		StatementBuffer deprecated = this.deprecated;
 		if (deprecated == null) {
 			return Collections.emptyList();
 		}
-		return new ArrayList<>(deprecated);
+		return deprecated.toList();
 	}
 
-	synchronized List<Statement> getApprovedStatements() {
+	List<Statement> getApprovedStatements() {
+		StatementBuffer approved = this.approved;
 		if (approved == null) {
 			return Collections.emptyList();
 		}
-		return new ArrayList<>(approved);
+		return approved.toList();
 	}
 
-	synchronized boolean hasDeprecated(Statement statement) {
+	boolean hasDeprecated(Statement statement) {
+		StatementBuffer deprecated = this.deprecated;
 		if (deprecated == null) {
 			return false;
 		}
 		return deprecated.contains(statement);
 	}
 
-	synchronized boolean hasApproved() {
+	boolean hasApproved() {
+		StatementBuffer approved = this.approved;
 		return approved != null && !approved.isEmpty();
 	}
 
-	synchronized Iterable<Statement> getApprovedStatements(Resource subj, IRI pred, Value obj,
-			Resource[] contexts) {
-
+	Iterable<Statement> getApprovedStatements(Resource subj, IRI pred, Value obj, Resource[] contexts) {
+		StatementBuffer approved = this.approved;
 		if (approved == null) {
 			return Collections.emptyList();
 		}
 
-		Iterable<Statement> statements = approved.getStatements(subj, pred, obj, contexts);
-
-		// This is a synchronized context, users of this method will be allowed to use the results at their leisure. We
-		// provide a copy of the data so that there will be no concurrent modification exceptions!
-		if (statements instanceof Collection) {
-			return new ArrayList<>((Collection<? extends Statement>) statements);
-		} else {
-			return StreamSupport
-					.stream(statements.spliterator(), false)
-					.collect(Collectors.toList());
-		}
+		// users of this method will be allowed to use the results at their leisure, so the buffer provides a copy
+		return approved.getStatements(subj, pred, obj, contexts);
 	}
 
-	synchronized Iterable<Triple> getApprovedTriples(Resource subj, IRI pred, Value obj) {
+	Iterable<Triple> getApprovedTriples(Resource subj, IRI pred, Value obj) {
+		StatementBuffer approved = this.approved;
 		if (approved == null) {
 			return Collections.emptyList();
 		}
+		List<Statement> statements = approved.toList();
 
 		// TODO none of this is particularly well thought-out in terms of performance, but we are aiming
 		// for functionally complete first.
-		Stream<Triple> approvedSubjectTriples = approved.parallelStream()
+		Stream<Triple> approvedSubjectTriples = statements.parallelStream()
 				.filter(st -> st.getSubject() instanceof Triple)
 				.map(st -> (Triple) st.getSubject())
 				.filter(t -> {
@@ -458,7 +502,7 @@ abstract class Changeset implements SailSink, ModelFactory {
 					return true;
 				});
 
-		Stream<Triple> approvedObjectTriples = approved.parallelStream()
+		Stream<Triple> approvedObjectTriples = statements.parallelStream()
 				.filter(st -> st.getObject() instanceof Triple)
 				.map(st -> (Triple) st.getObject())
 				.filter(t -> {
@@ -477,7 +521,8 @@ abstract class Changeset implements SailSink, ModelFactory {
 		return Stream.concat(approvedSubjectTriples, approvedObjectTriples).collect(Collectors.toList());
 	}
 
-	synchronized void removeApproved(Statement next) {
+	void removeApproved(Statement next) {
+		StatementBuffer approved = this.approved;
 		if (approved != null) {
 			approved.remove(next);
 		}
@@ -14,6 +14,7 @@ import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Triple;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.evaluation.IdTripleSource;
 import org.eclipse.rdf4j.sail.SailException;
 
 /**
@@ -70,4 +71,9 @@ abstract class DelegatingSailDataset implements SailDataset {
 			Value obj) throws SailException {
 		return delegate.getTriples(subj, pred, obj);
 	}
+
+	@Override
+	public IdTripleSource getIdTripleSource() throws SailException {
+		return delegate.getIdTripleSource();
+	}
 }
@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.base;
+
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.IdTripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.QuadIterator;
+
+/**
+ * A {@link SailDatasetTripleSource} that also provides the statements of the {@link SailDataset} by ID.
+ *
+ * @see SailDataset#getIdTripleSource()
+ */
+class IdSailDatasetTripleSource extends SailDatasetTripleSource implements IdTripleSource {
+
+	private final IdTripleSource idSource;
+
+	public IdSailDatasetTripleSource(ValueFactory vf, SailDataset dataset, IdTripleSource idSource) {
+		super(vf, dataset);
+		this.idSource = idSource;
+	}
+
+	@Override
+	public int getID(Value value) throws QueryEvaluationException {
+		return idSource.getID(value);
+	}
+
+	@Override
+	public Value getValue(int id) throws QueryEvaluationException {
+		return idSource.getValue(id);
+	}
+
+	@Override
+	public QuadIterator getQuads(int subj, int pred, int obj, int context) throws QueryEvaluationException {
+		return idSource.getQuads(subj, pred, obj, context);
+	}
+}
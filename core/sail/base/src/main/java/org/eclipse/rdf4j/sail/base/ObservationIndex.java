@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.base;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+
+/**
+ * Indexes observed {@link StatementPattern}s by one of their bound values, so that the patterns that a statement
+ * matches can be found without comparing the statement to every pattern. A pattern is indexed by its subject, object,
+ * context or predicate, whichever is bound first in that order.
+ */
+class ObservationIndex {
+
+	private final Map<Value, List<StatementPattern>> bySubject = new HashMap<>();
+
+	private final Map<Value, List<StatementPattern>> byObject = new HashMap<>();
+
+	private final Map<Value, List<StatementPattern>> byContext = new HashMap<>();
+
+	private final Map<Value, List<StatementPattern>> byPredicate = new HashMap<>();
+
+	/**
+	 * Patterns that do not have any bound value, which match every statement.
+	 */
+	private final List<StatementPattern> unbound = new ArrayList<>();
+
+	public ObservationIndex(Collection<StatementPattern> patterns) {
+		for (StatementPattern pattern : patterns) {
+			add(pattern);
+		}
+	}
+
+	private void add(StatementPattern pattern) {
+		Var ctxVar = pattern.getContextVar();
+		if (pattern.getSubjectVar().getValue() != null) {
+			add(bySubject, pattern.getSubjectVar().getValue(), pattern);
+		} else if (pattern.getObjectVar().getValue() != null) {
+			add(byObject, pattern.getObjectVar().getValue(), pattern);
+		} else if (ctxVar != null) {
+			// a context variable without a value stands for the default graph
+			add(byContext, ctxVar.getValue(), pattern);
+		} else if (pattern.getPredicateVar().getValue() != null) {
+			add(byPredicate, pattern.getPredicateVar().getValue(), pattern);
+		} else {
+			unbound.add(pattern);
+		}
+	}
+
+	private void add(Map<Value, List<StatementPattern>> index, Value value, StatementPattern pattern) {
+		index.computeIfAbsent(value, v -> new ArrayList<>(1)).add(pattern);
+	}
+
+	public boolean isEmpty() {
+		return bySubject.isEmpty() && byObject.isEmpty() && byContext.isEmpty() && byPredicate.isEmpty()
+				&& unbound.isEmpty();
+	}
+
+	/**
+	 * @return <tt>true</tt> if the statement matches any of the patterns.
+	 */
+	public boolean matches(Statement st) {
+		return !unbound.isEmpty()
+				|| matches(bySubject.get(st.getSubject()), st)
+				|| matches(byObject.get(st.getObject()), st)
+				|| matches(byContext.get(st.getContext()), st)
+				|| matches(byPredicate.get(st.getPredicate()), st);
+	}
+
+	private boolean matches(List<StatementPattern> patterns, Statement st) {
+		if (patterns != null) {
+			for (StatementPattern pattern : patterns) {
+				if (matches(pattern, st)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private boolean matches(StatementPattern pattern, Statement st) {
+		Value subj = pattern.getSubjectVar().getValue();
+		Value pred = pattern.getPredicateVar().getValue();
+		Value obj = pattern.getObjectVar().getValue();
+		Var ctxVar = pattern.getContextVar();
+		return (subj == null || subj.equals(st.getSubject()))
+				&& (pred == null || pred.equals(st.getPredicate()))
+				&& (obj == null || obj.equals(st.getObject()))
+				&& (ctxVar == null || Objects.equals(ctxVar.getValue(), st.getContext()));
+	}
+}
@@ -9,10 +9,12 @@ package org.eclipse.rdf4j.sail.base;
 
 import org.eclipse.rdf4j.IsolationLevels;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.IterationWrapper;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.evaluation.IdTripleSource;
 import org.eclipse.rdf4j.sail.SailException;
 
 /**
@@ -64,7 +66,33 @@ class ObservingSailDataset extends DelegatingSailDataset {
 	public CloseableIteration<? extends Statement, SailException> getStatements(Resource subj, IRI pred, Value obj,
 			Resource... contexts) throws SailException {
 		observer.observe(subj, pred, obj, contexts);
-		return super.getStatements(subj, pred, obj, contexts);
+		CloseableIteration<? extends Statement, SailException> statements = super.getStatements(subj, pred, obj,
+				contexts);
+		if (!(observer instanceof Changeset)) {
+			return statements;
+		}
+		// record whether the pattern had results, a pattern without results can not be changed by removals
+		Changeset changeset = (Changeset) observer;
+		return new IterationWrapper<Statement, SailException>(statements) {
+
+			private boolean observed;
+
+			@Override
+			public boolean hasNext() throws SailException {
+				boolean hasNext = super.hasNext();
+				if (!observed) {
+					observed = true;
+					changeset.observeResults(hasNext, subj, pred, obj, contexts);
+				}
+				return hasNext;
+			}
+		};
+	}
+
+	@Override
+	public IdTripleSource getIdTripleSource() throws SailException {
+		// the observed statement patterns are only tracked for calls to getStatements
+		return null;
 	}
 
 }
@@ -15,6 +15,7 @@ import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Triple;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.evaluation.IdTripleSource;
 import org.eclipse.rdf4j.sail.SailException;
 
 /**
@@ -91,4 +92,15 @@ public interface SailDataset extends SailClosable {
 		throw new SailException("RDF* triple retrieval not supported by this store");
 	}
 
+	/**
+	 * Gets a source of the statements of this dataset at the level of the IDs that the store uses internally, which
+	 * remains usable until this dataset is closed.
+	 *
+	 * @return The source, or <tt>null</tt> if the statements of this dataset are not (all) available by ID.
+	 * @throws SailException If this object encountered an error or unexpected situation internally.
+	 */
+	default IdTripleSource getIdTripleSource() throws SailException {
+		return null;
+	}
+
 }
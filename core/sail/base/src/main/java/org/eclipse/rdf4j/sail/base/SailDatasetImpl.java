@@ -32,6 +32,7 @@ import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Triple;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.model.impl.SimpleNamespace;
+import org.eclipse.rdf4j.query.algebra.evaluation.IdTripleSource;
 import org.eclipse.rdf4j.sail.SailException;
 
 /**
@@ -290,6 +291,17 @@ class SailDatasetImpl implements SailDataset {
 		}
 	}
 
+	@Override
+	public IdTripleSource getIdTripleSource() throws SailException {
+		Set<Resource> deprecatedContexts = changes.getDeprecatedContexts();
+		if (changes.isStatementCleared() || changes.hasApproved() || changes.hasDeprecated()
+				|| deprecatedContexts != null && !deprecatedContexts.isEmpty()) {
+			// the changes are not available by ID
+			return null;
+		}
+		return derivedFrom.getIdTripleSource();
+	}
+
 	@SuppressWarnings("unchecked")
 	@Override
 	public CloseableIteration<? extends Triple, SailException> getTriples(Resource subj, IRI pred, Value obj)
@@ -192,6 +192,12 @@ class SailSourceBranch implements SailSource {
 			public Model createEmptyModel() {
 				return modelFactory.createEmptyModel();
 			}
+
+			@Override
+			protected boolean isBufferedInMemory() {
+				// other model factories may keep the statements out of memory
+				return modelFactory instanceof DynamicModelFactory;
+			}
 		};
 		try {
 			semaphore.lock();
@@ -434,6 +440,20 @@ class SailSourceBranch implements SailSource {
 					sink.observe(subj, pred, obj, (Resource) ctxVar.getValue());
 				}
 			}
+			if (sink instanceof Changeset) {
+				// keep track of the patterns without results, unless the sink observed them with results
+				for (StatementPattern p : change.getEmptyObservations()) {
+					Resource subj = (Resource) p.getSubjectVar().getValue();
+					IRI pred = (IRI) p.getPredicateVar().getValue();
+					Value obj = p.getObjectVar().getValue();
+					Var ctxVar = p.getContextVar();
+					if (ctxVar == null) {
+						((Changeset) sink).observeResults(false, subj, pred, obj);
+					} else {
+						((Changeset) sink).observeResults(false, subj, pred, obj, (Resource) ctxVar.getValue());
+					}
+				}
+			}
 		}
 	}
 
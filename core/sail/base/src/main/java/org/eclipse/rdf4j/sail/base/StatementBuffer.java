@@ -0,0 +1,440 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.base;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.ModelFactory;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+
+/**
+ * The statements that a {@link Changeset} has approved or deprecated.
+ * <p>
+ * Statements are appended to an array, which readers can copy without locking. The array is only indexed once the
+ * statements are queried by pattern, and then only on the position of the statement that the query binds. The index
+ * maps each value to the positions in the array of the statements that use it, and is kept up to date lazily by
+ * indexing the statements that have been appended since it was last used. A removed statement leaves a gap in the
+ * array, which the index skips, until more than half of the array consists of gaps and it is compacted.
+ * <p>
+ * If the statements can not be held in memory, they are added to a model of the {@link ModelFactory} instead, which
+ * is locked for every access.
+ */
+class StatementBuffer {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * The number of gaps that the array needs to have before it is compacted.
+	 */
+	private static final int MIN_COMPACTION_GAPS = 1024;
+
+	private static final int SUBJECT = 0;
+
+	private static final int PREDICATE = 1;
+
+	private static final int OBJECT = 2;
+
+	private static final int CONTEXT = 3;
+
+	/**
+	 * The model that holds the statements if they are not buffered, otherwise <tt>null</tt>.
+	 */
+	private final Model model;
+
+	/**
+	 * The array of the appended statements.
+	 */
+	private volatile Buffer buffer = new Buffer(new Statement[INITIAL_CAPACITY], 0);
+
+	/**
+	 * The position of each statement in the array.
+	 */
+	private final Map<Statement, Integer> positions = new ConcurrentHashMap<>();
+
+	/**
+	 * The number of statements in each named graph.
+	 */
+	private final Map<Resource, Integer> contexts = new ConcurrentHashMap<>();
+
+	/**
+	 * The number of gaps in the array.
+	 */
+	private int gaps;
+
+	/**
+	 * Guards the {@link #indexes}. Updating an index or compacting the array requires the write lock.
+	 */
+	private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+
+	/**
+	 * The index of each position of a statement, or <tt>null</tt> if the position has not been queried yet.
+	 */
+	private final Index[] indexes = new Index[4];
+
+	public StatementBuffer(ModelFactory modelFactory, boolean buffered) {
+		this.model = buffered ? null : modelFactory.createEmptyModel();
+	}
+
+	public synchronized boolean add(Statement st) {
+		if (model != null) {
+			return model.add(st);
+		}
+		Buffer buffer = this.buffer;
+		int size = buffer.size;
+		if (positions.putIfAbsent(st, size) != null) {
+			return false;
+		}
+		if (size == buffer.statements.length) {
+			buffer = this.buffer = new Buffer(Arrays.copyOf(buffer.statements, size + (size >> 1)), size);
+		}
+		buffer.statements[size] = st;
+		if (st.getContext() != null) {
+			contexts.merge(st.getContext(), 1, Integer::sum);
+		}
+		buffer.size = size + 1;
+		return true;
+	}
+
+	public synchronized boolean remove(Statement st) {
+		if (model != null) {
+			return model.remove(st);
+		}
+		Integer position = positions.remove(st);
+		if (position == null) {
+			return false;
+		}
+		buffer.statements[position] = null;
+		if (st.getContext() != null) {
+			contexts.computeIfPresent(st.getContext(), (ctx, count) -> count == 1 ? null : count - 1);
+		}
+		if (++gaps >= MIN_COMPACTION_GAPS && gaps > buffer.size / 2) {
+			compact();
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all statements that match the pattern.
+	 */
+	public synchronized void remove(Resource subj, IRI pred, Value obj, Resource... contexts) {
+		if (model != null) {
+			model.remove(subj, pred, obj, contexts);
+			return;
+		}
+		for (Statement st : getStatements(subj, pred, obj, contexts)) {
+			remove(st);
+		}
+	}
+
+	public synchronized void clear() {
+		if (model != null) {
+			model.clear();
+			return;
+		}
+		Lock writeLock = indexLock.writeLock();
+		writeLock.lock();
+		try {
+			buffer = new Buffer(new Statement[INITIAL_CAPACITY], 0);
+			positions.clear();
+			contexts.clear();
+			gaps = 0;
+			Arrays.fill(indexes, null);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	public boolean contains(Statement st) {
+		if (model != null) {
+			synchronized (this) {
+				return model.contains(st);
+			}
+		}
+		return positions.containsKey(st);
+	}
+
+	public boolean contains(Resource subj, IRI pred, Value obj, Resource... contexts) {
+		if (model != null) {
+			synchronized (this) {
+				return model.contains(subj, pred, obj, contexts);
+			}
+		}
+		return !find(subj, pred, obj, contexts, true).isEmpty();
+	}
+
+	public boolean isEmpty() {
+		if (model != null) {
+			synchronized (this) {
+				return model.isEmpty();
+			}
+		}
+		return positions.isEmpty();
+	}
+
+	public int size() {
+		if (model != null) {
+			synchronized (this) {
+				return model.size();
+			}
+		}
+		return positions.size();
+	}
+
+	/**
+	 * @return The named graphs of the statements.
+	 */
+	public Set<Resource> getContexts() {
+		if (model != null) {
+			synchronized (this) {
+				Set<Resource> result = new HashSet<>(model.contexts());
+				result.remove(null);
+				return result;
+			}
+		}
+		return new HashSet<>(contexts.keySet());
+	}
+
+	/**
+	 * @return A copy of all statements, in the order in which they were added.
+	 */
+	public List<Statement> toList() {
+		if (model != null) {
+			synchronized (this) {
+				return new ArrayList<>(model);
+			}
+		}
+		Buffer buffer = this.buffer;
+		int size = buffer.size;
+		Statement[] statements = buffer.statements;
+		List<Statement> result = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			Statement st = statements[i];
+			if (st != null) {
+				result.add(st);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return A copy of the statements that match the pattern.
+	 */
+	public List<Statement> getStatements(Resource subj, IRI pred, Value obj, Resource... contexts) {
+		if (model != null) {
+			synchronized (this) {
+				List<Statement> result = new ArrayList<>();
+				for (Statement st : model.getStatements(subj, pred, obj, contexts)) {
+					result.add(st);
+				}
+				return result;
+			}
+		}
+		return find(subj, pred, obj, contexts, false);
+	}
+
+	private List<Statement> find(Resource subj, IRI pred, Value obj, Resource[] contexts, boolean first) {
+		int component;
+		Value value;
+		if (subj != null) {
+			component = SUBJECT;
+			value = subj;
+		} else if (obj != null) {
+			component = OBJECT;
+			value = obj;
+		} else if (contexts != null && contexts.length == 1) {
+			component = CONTEXT;
+			value = contexts[0];
+		} else if (pred != null) {
+			component = PREDICATE;
+			value = pred;
+		} else {
+			List<Statement> result = new ArrayList<>();
+			for (Statement st : toList()) {
+				if (matches(st, subj, pred, obj, contexts)) {
+					result.add(st);
+					if (first) {
+						break;
+					}
+				}
+			}
+			return result;
+		}
+
+		Lock readLock = lockIndex(component);
+		try {
+			Positions list = indexes[component].positions.get(value);
+			if (list == null) {
+				return new ArrayList<>(0);
+			}
+			Statement[] statements = buffer.statements;
+			List<Statement> result = new ArrayList<>(Math.min(list.size, 16));
+			for (int i = 0; i < list.size; i++) {
+				Statement st = statements[list.positions[i]];
+				// removed statements leave a gap
+				if (st != null && matches(st, subj, pred, obj, contexts)) {
+					result.add(st);
+					if (first) {
+						break;
+					}
+				}
+			}
+			return result;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Acquires the read lock of the indexes, after indexing the statements that have been appended since the index of
+	 * the component was last used.
+	 */
+	private Lock lockIndex(int component) {
+		Lock readLock = indexLock.readLock();
+		readLock.lock();
+		Index index = indexes[component];
+		if (index != null && index.indexedSize >= buffer.size) {
+			return readLock;
+		}
+		readLock.unlock();
+		Lock writeLock = indexLock.writeLock();
+		writeLock.lock();
+		try {
+			index = indexes[component];
+			if (index == null) {
+				index = indexes[component] = new Index();
+			}
+			Buffer buffer = this.buffer;
+			int size = buffer.size;
+			for (int i = index.indexedSize; i < size; i++) {
+				Statement st = buffer.statements[i];
+				if (st != null) {
+					index.positions.computeIfAbsent(getValue(st, component), v -> new Positions()).add(i);
+				}
+			}
+			index.indexedSize = size;
+			// downgrade to the read lock
+			readLock.lock();
+			return readLock;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the gaps from the array, which invalidates the indexes.
+	 */
+	private void compact() {
+		Lock writeLock = indexLock.writeLock();
+		writeLock.lock();
+		try {
+			Buffer buffer = this.buffer;
+			int size = buffer.size;
+			Statement[] statements = new Statement[Math.max(INITIAL_CAPACITY, (size - gaps) * 3 / 2)];
+			int count = 0;
+			for (int i = 0; i < size; i++) {
+				Statement st = buffer.statements[i];
+				if (st != null) {
+					statements[count] = st;
+					positions.put(st, count);
+					count++;
+				}
+			}
+			this.buffer = new Buffer(statements, count);
+			Arrays.fill(indexes, null);
+			gaps = 0;
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private static Value getValue(Statement st, int component) {
+		switch (component) {
+		case SUBJECT:
+			return st.getSubject();
+		case PREDICATE:
+			return st.getPredicate();
+		case OBJECT:
+			return st.getObject();
+		default:
+			return st.getContext();
+		}
+	}
+
+	private static boolean matches(Statement st, Resource subj, IRI pred, Value obj, Resource... contexts) {
+		if (subj != null && !subj.equals(st.getSubject()) || pred != null && !pred.equals(st.getPredicate())
+				|| obj != null && !obj.equals(st.getObject())) {
+			return false;
+		}
+		if (contexts == null || contexts.length == 0) {
+			return true;
+		}
+		for (Resource ctx : contexts) {
+			if (Objects.equals(ctx, st.getContext())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * An array and the number of its positions that are in use. A reader always sees a size that belongs to the array,
+	 * because a new buffer is created whenever the array is replaced.
+	 */
+	private static final class Buffer {
+
+		final Statement[] statements;
+
+		volatile int size;
+
+		Buffer(Statement[] statements, int size) {
+			this.statements = statements;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Maps the values of one position of a statement to the positions of the statements in the array.
+	 */
+	private static final class Index {
+
+		final Map<Value, Positions> positions = new HashMap<>();
+
+		/**
+		 * The number of positions of the array that have been indexed.
+		 */
+		int indexedSize;
+	}
+
+	private static final class Positions {
+
+		int[] positions = new int[2];
+
+		int size;
+
+		void add(int position) {
+			if (size == positions.length) {
+				positions = Arrays.copyOf(positions, size * 2);
+			}
+			positions[size++] = position;
+		}
+	}
+}
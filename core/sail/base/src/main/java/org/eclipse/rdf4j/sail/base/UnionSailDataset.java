@@ -17,6 +17,7 @@ import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Triple;
 import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.evaluation.IdTripleSource;
 import org.eclipse.rdf4j.sail.SailException;
 
 /**
@@ -105,6 +106,22 @@ class UnionSailDataset implements SailDataset {
 		return union(result);
 	}
 
+	@Override
+	public IdTripleSource getIdTripleSource() throws SailException {
+		IdTripleSource result = null;
+		for (SailDataset dataset : datasets) {
+			IdTripleSource source = dataset.getIdTripleSource();
+			if (source == null) {
+				return null;
+			}
+			result = result == null ? source : result.union(source);
+			if (result == null) {
+				return null;
+			}
+		}
+		return result;
+	}
+
 	private <T> CloseableIteration<? extends T, SailException> union(
 			CloseableIteration<? extends T, SailException>[] items) {
 		return new UnionIteration<>(items);
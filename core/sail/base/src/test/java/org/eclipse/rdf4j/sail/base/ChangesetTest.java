@@ -7,6 +7,12 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.base;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
@@ -15,6 +21,7 @@ import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Model;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
@@ -22,6 +29,7 @@ import org.eclipse.rdf4j.model.impl.LinkedHashModel;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.model.vocabulary.RDF;
 import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.sail.SailConflictException;
 import org.eclipse.rdf4j.sail.SailException;
 import org.junit.Test;
 
@@ -108,6 +116,110 @@ public class ChangesetTest {
 		executorService.shutdownNow();
 	}
 
+	@Test
+	public void testApprovedStatementsAreIndexedLazily() {
+		Changeset changeset = getChangeset();
+		IRI graph = vf.createIRI("urn:graph");
+		for (int i = 0; i < 5000; i++) {
+			changeset.approve(vf.createIRI("urn:s" + i), RDF.TYPE, RDFS.RESOURCE, graph);
+		}
+		assertEquals(1, count(changeset.getApprovedStatements(vf.createIRI("urn:s0"), null, null, allGraph)));
+
+		// statements that are approved or deprecated after the index was built
+		changeset.approve(vf.createIRI("urn:s5000"), RDF.TYPE, RDFS.RESOURCE, null);
+		for (int i = 0; i < 4000; i++) {
+			changeset.deprecate(vf.createStatement(vf.createIRI("urn:s" + i), RDF.TYPE, RDFS.RESOURCE, graph));
+		}
+
+		assertEquals(1, count(changeset.getApprovedStatements(vf.createIRI("urn:s5000"), null, null, allGraph)));
+		assertEquals(0, count(changeset.getApprovedStatements(vf.createIRI("urn:s0"), null, null, allGraph)));
+		assertEquals(1000, count(changeset.getApprovedStatements(null, RDF.TYPE, null, new Resource[] { graph })));
+		assertEquals(1001, changeset.getApprovedStatements().size());
+		assertEquals(4000, changeset.getDeprecatedStatements().size());
+		assertTrue(changeset.hasDeprecated(vf.createStatement(vf.createIRI("urn:s0"), RDF.TYPE, RDFS.RESOURCE, graph)));
+		assertEquals(Collections.singleton(graph), changeset.getApprovedContexts());
+
+		changeset.clear(graph);
+		assertEquals(1, changeset.getApprovedStatements().size());
+		assertTrue(changeset.getApprovedContexts().isEmpty());
+		assertFalse(changeset.hasApproved(null, null, null, new Resource[] { graph }));
+	}
+
+	@Test(expected = SailConflictException.class)
+	public void testConflictWithApprovedStatement() {
+		Changeset changeset = getChangeset();
+		changeset.observe(null, RDF.TYPE, RDFS.CLASS);
+		changeset.observeResults(false, null, RDF.TYPE, RDFS.CLASS);
+
+		Changeset concurrent = getChangeset();
+		concurrent.approve(vf.createIRI("urn:a"), RDF.TYPE, RDFS.CLASS, null);
+		changeset.prepend(concurrent);
+
+		changeset.prepare();
+	}
+
+	@Test(expected = SailConflictException.class)
+	public void testConflictWithDeprecatedStatement() {
+		Changeset changeset = getChangeset();
+		changeset.observe(vf.createIRI("urn:a"), null, null);
+		changeset.observeResults(true, vf.createIRI("urn:a"), null, null);
+
+		Changeset concurrent = getChangeset();
+		concurrent.deprecate(vf.createStatement(vf.createIRI("urn:a"), RDF.TYPE, RDFS.CLASS));
+		changeset.prepend(concurrent);
+
+		changeset.prepare();
+	}
+
+	@Test
+	public void testNoConflictWithDeprecatedStatementIfObservationWasEmpty() {
+		Changeset changeset = getChangeset();
+		IRI graph = vf.createIRI("urn:graph");
+		changeset.observe(null, null, null, graph);
+		changeset.observeResults(false, null, null, null, graph);
+
+		Changeset concurrent = getChangeset();
+		concurrent.deprecate(vf.createStatement(vf.createIRI("urn:a"), RDF.TYPE, RDFS.CLASS, graph));
+		changeset.prepend(concurrent);
+
+		changeset.prepare();
+	}
+
+	@Test
+	public void testNoConflictWithUnrelatedStatements() {
+		Changeset changeset = getChangeset();
+		for (int i = 0; i < 1000; i++) {
+			changeset.observe(vf.createIRI("urn:s" + i), RDF.TYPE, null);
+		}
+		changeset.observe(null, RDFS.LABEL, vf.createLiteral("a"));
+		changeset.observe(null, null, null, (Resource) null);
+
+		Changeset concurrent = getChangeset();
+		concurrent.approve(vf.createIRI("urn:s0"), RDFS.LABEL, vf.createLiteral("b"), vf.createIRI("urn:graph"));
+		concurrent.deprecate(vf.createStatement(vf.createIRI("urn:other"), RDF.TYPE, RDFS.CLASS,
+				vf.createIRI("urn:graph")));
+		changeset.prepend(concurrent);
+
+		changeset.prepare();
+
+		// the default graph
+		concurrent.approve(vf.createIRI("urn:other"), RDF.TYPE, RDFS.CLASS, null);
+		try {
+			changeset.prepare();
+		} catch (SailConflictException e) {
+			return;
+		}
+		fail("the observed default graph has changed");
+	}
+
+	private int count(Iterable<Statement> statements) {
+		int count = 0;
+		for (Statement st : statements) {
+			count++;
+		}
+		return count;
+	}
+
 	private Changeset getChangeset() {
 		return new Changeset() {
 			@Override
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.hdt;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.rio.hdt.HDTDocument;
+import org.eclipse.rdf4j.sail.SailException;
+
+/**
+ * Uses the structure of the triples of an {@link HDTDocument} to give cost estimates. The number of statements of a
+ * subject, or a subject and predicate, is known exactly from the bitmaps of the triples. The number of statements of
+ * each predicate is counted once per document. For patterns with only an object, the average number of statements per
+ * object is used.
+ */
+class HDTEvaluationStatistics extends EvaluationStatistics {
+
+	private final HDTDocument document;
+
+	HDTEvaluationStatistics(HDTDocument document) {
+		this.document = document;
+	}
+
+	@Override
+	protected CardinalityCalculator createCardinalityCalculator() {
+		return new HDTCardinalityCalculator();
+	}
+
+	protected class HDTCardinalityCalculator extends CardinalityCalculator {
+
+		@Override
+		public double getCardinality(StatementPattern sp) {
+			if (getConstantValue(sp.getContextVar()) != null) {
+				// all statements are in the default graph
+				return 0.0;
+			}
+			Value subj = getConstantValue(sp.getSubjectVar());
+			Value pred = getConstantValue(sp.getPredicateVar());
+			Value obj = getConstantValue(sp.getObjectVar());
+
+			try {
+				int s = (subj == null) ? 0 : document.getSubjectID(subj);
+				int p = (pred == null) ? 0 : document.getPredicateID(pred);
+				int o = (obj == null) ? 0 : document.getObjectID(obj);
+				if (subj != null && s == 0 || pred != null && p == 0 || obj != null && o == 0) {
+					// non-existent subject, predicate or object
+					return 0.0;
+				}
+
+				if (s > 0) {
+					if (o > 0) {
+						// bounded by the number of predicates of the subject
+						int count = 0;
+						for (Iterator<int[]> it = document.getTriples(s, p, o); it.hasNext(); it.next()) {
+							count++;
+						}
+						return count;
+					}
+					return document.count(s, p);
+				}
+
+				double cardinality = document.size();
+				if (p > 0) {
+					cardinality = document.countPredicate(p);
+				}
+				if (o > 0) {
+					cardinality = Math.min(cardinality, (double) document.size() / document.getObjectCount());
+				}
+				return cardinality;
+			} catch (IOException e) {
+				throw new SailException(e);
+			}
+		}
+
+		protected Value getConstantValue(Var var) {
+			if (var != null) {
+				return var.getValue();
+			}
+
+			return null;
+		}
+	}
+}
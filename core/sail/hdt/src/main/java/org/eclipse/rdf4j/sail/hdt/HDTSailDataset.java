@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.hdt;
+
+import java.io.IOException;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Namespace;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.rio.hdt.HDTDocument;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.base.SailDataset;
+
+/**
+ * The statements of an {@link HDTDocument}, which are all in the default graph. The document does not contain any
+ * namespaces.
+ */
+class HDTSailDataset implements SailDataset {
+
+	private final HDTDocument document;
+
+	private final ValueFactory valueFactory;
+
+	/**
+	 * @param document     the HDT document, or <tt>null</tt> for a dataset without any statements.
+	 * @param valueFactory the value factory of the statements.
+	 */
+	HDTSailDataset(HDTDocument document, ValueFactory valueFactory) {
+		this.document = document;
+		this.valueFactory = valueFactory;
+	}
+
+	@Override
+	public void close() throws SailException {
+		// no-op
+	}
+
+	@Override
+	public CloseableIteration<? extends Namespace, SailException> getNamespaces() throws SailException {
+		return new EmptyIteration<>();
+	}
+
+	@Override
+	public String getNamespace(String prefix) throws SailException {
+		return null;
+	}
+
+	@Override
+	public CloseableIteration<? extends Resource, SailException> getContextIDs() throws SailException {
+		return new EmptyIteration<>();
+	}
+
+	@Override
+	public CloseableIteration<? extends Statement, SailException> getStatements(Resource subj, IRI pred, Value obj,
+			Resource... contexts) throws SailException {
+		if (document == null || !containsDefaultGraph(contexts)) {
+			return new EmptyIteration<>();
+		}
+		try {
+			int s = (subj == null) ? 0 : document.getSubjectID(subj);
+			int p = (pred == null) ? 0 : document.getPredicateID(pred);
+			int o = (obj == null) ? 0 : document.getObjectID(obj);
+			if (subj != null && s == 0 || pred != null && p == 0 || obj != null && o == 0) {
+				return new EmptyIteration<>();
+			}
+			return new HDTStatementIteration(document, valueFactory, document.getTriples(s, p, o), subj, pred,
+					obj);
+		} catch (IOException e) {
+			throw new SailException(e);
+		}
+	}
+
+	private static boolean containsDefaultGraph(Resource... contexts) {
+		if (contexts == null || contexts.length == 0) {
+			return true;
+		}
+		for (Resource context : contexts) {
+			if (context == null) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
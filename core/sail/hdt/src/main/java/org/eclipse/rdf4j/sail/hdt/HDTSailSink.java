@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.hdt;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.SailReadOnlyException;
+import org.eclipse.rdf4j.sail.base.SailSink;
+
+/**
+ * A {@link SailSink} of a read-only {@link HDTSailSource}. Observations are ignored, since the statements never change
+ * and therefore can not conflict, and an empty sink can be prepared and flushed. All changes are rejected with a
+ * {@link SailReadOnlyException}.
+ */
+class HDTSailSink implements SailSink {
+
+	@Override
+	public void prepare() throws SailException {
+		// no-op
+	}
+
+	@Override
+	public void flush() throws SailException {
+		// no-op
+	}
+
+	@Override
+	public void close() throws SailException {
+		// no-op
+	}
+
+	@Override
+	public void observe(Resource subj, IRI pred, Value obj, Resource... contexts) throws SailException {
+		// no-op
+	}
+
+	@Override
+	public void setNamespace(String prefix, String name) throws SailException {
+		throw readOnly();
+	}
+
+	@Override
+	public void removeNamespace(String prefix) throws SailException {
+		throw readOnly();
+	}
+
+	@Override
+	public void clearNamespaces() throws SailException {
+		throw readOnly();
+	}
+
+	@Override
+	public void clear(Resource... contexts) throws SailException {
+		throw readOnly();
+	}
+
+	@Override
+	public void approve(Resource subj, IRI pred, Value obj, Resource ctx) throws SailException {
+		throw readOnly();
+	}
+
+	@Override
+	public void deprecate(Statement statement) throws SailException {
+		throw readOnly();
+	}
+
+	private SailReadOnlyException readOnly() {
+		return new SailReadOnlyException("HDTStore is read-only");
+	}
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.hdt;
+
+import org.eclipse.rdf4j.IsolationLevel;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.rio.hdt.HDTDocument;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.base.BackingSailSource;
+import org.eclipse.rdf4j.sail.base.SailDataset;
+import org.eclipse.rdf4j.sail.base.SailSink;
+
+/**
+ * A read-only source of the statements of an {@link HDTDocument}. As the document never changes, every dataset
+ * returns the same statements, regardless of the isolation level. The sinks only accept observations, which are
+ * needed to read with the {@link org.eclipse.rdf4j.IsolationLevels#SERIALIZABLE} isolation level.
+ */
+class HDTSailSource extends BackingSailSource {
+
+	private final HDTDocument document;
+
+	private final ValueFactory valueFactory;
+
+	/**
+	 * @param document     the HDT document, or <tt>null</tt> for a source without any statements.
+	 * @param valueFactory the value factory of the statements.
+	 */
+	HDTSailSource(HDTDocument document, ValueFactory valueFactory) {
+		this.document = document;
+		this.valueFactory = valueFactory;
+	}
+
+	@Override
+	public SailSink sink(IsolationLevel level) throws SailException {
+		return new HDTSailSink();
+	}
+
+	@Override
+	public SailDataset dataset(IsolationLevel level) throws SailException {
+		return new HDTSailDataset(document, valueFactory);
+	}
+}
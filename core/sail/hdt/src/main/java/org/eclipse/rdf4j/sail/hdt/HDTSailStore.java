@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.hdt;
+
+import java.io.IOException;
+
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.rio.hdt.HDTDocument;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.base.SailSource;
+import org.eclipse.rdf4j.sail.base.SailStore;
+
+/**
+ * A {@link SailStore} on an {@link HDTDocument}, of which all statements are explicit.
+ */
+class HDTSailStore implements SailStore {
+
+	private final HDTDocument document;
+
+	private final ValueFactory valueFactory;
+
+	private final SailSource explicit;
+
+	private final SailSource inferred;
+
+	private final EvaluationStatistics statistics;
+
+	HDTSailStore(HDTDocument document, ValueFactory valueFactory) {
+		this.document = document;
+		this.valueFactory = valueFactory;
+		this.explicit = new HDTSailSource(document, valueFactory);
+		this.inferred = new HDTSailSource(null, valueFactory);
+		this.statistics = new HDTEvaluationStatistics(document);
+	}
+
+	@Override
+	public ValueFactory getValueFactory() {
+		return valueFactory;
+	}
+
+	@Override
+	public EvaluationStatistics getEvaluationStatistics() {
+		return statistics;
+	}
+
+	@Override
+	public SailSource getExplicitSailSource() {
+		return explicit;
+	}
+
+	@Override
+	public SailSource getInferredSailSource() {
+		return inferred;
+	}
+
+	@Override
+	public void close() throws SailException {
+		try {
+			document.close();
+		} catch (IOException e) {
+			throw new SailException(e);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.hdt;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.rio.hdt.HDTDocument;
+import org.eclipse.rdf4j.sail.SailException;
+
+/**
+ * Converts the IDs of the matching triples of an {@link HDTDocument} to statements. The values of the pattern are
+ * reused, the other values are only looked up in the dictionaries when their ID differs from the previous statement,
+ * which is often the case for the subject and predicate since the triples are sorted.
+ */
+class HDTStatementIteration extends LookAheadIteration<Statement, SailException> {
+
+	private final HDTDocument document;
+
+	private final ValueFactory valueFactory;
+
+	private final Iterator<int[]> triples;
+
+	private Resource subj;
+
+	private IRI pred;
+
+	private Value obj;
+
+	private final boolean subjBound;
+
+	private final boolean predBound;
+
+	private final boolean objBound;
+
+	private int subjID;
+
+	private int predID;
+
+	private int objID;
+
+	HDTStatementIteration(HDTDocument document, ValueFactory valueFactory, Iterator<int[]> triples, Resource subj,
+			IRI pred, Value obj) {
+		this.document = document;
+		this.valueFactory = valueFactory;
+		this.triples = triples;
+		this.subj = subj;
+		this.pred = pred;
+		this.obj = obj;
+		this.subjBound = subj != null;
+		this.predBound = pred != null;
+		this.objBound = obj != null;
+	}
+
+	@Override
+	protected Statement getNextElement() throws SailException {
+		if (!triples.hasNext()) {
+			return null;
+		}
+		int[] t = triples.next();
+		try {
+			if (!subjBound && t[0] != subjID) {
+				subj = document.getSubject(t[0]);
+				subjID = t[0];
+			}
+			if (!predBound && t[1] != predID) {
+				pred = document.getPredicate(t[1]);
+				predID = t[1];
+			}
+			if (!objBound && t[2] != objID) {
+				obj = document.getObject(t[2]);
+				objID = t[2];
+			}
+		} catch (IOException e) {
+			throw new SailException(e);
+		}
+		return valueFactory.createStatement(subj, pred, obj);
+	}
+}
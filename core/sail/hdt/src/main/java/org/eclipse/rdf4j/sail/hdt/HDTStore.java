@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.hdt;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategyFactory;
+import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolver;
+import org.eclipse.rdf4j.query.algebra.evaluation.federation.FederatedServiceResolverClient;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.StrictEvaluationStrategyFactory;
+import org.eclipse.rdf4j.repository.sparql.federation.SPARQLServiceResolver;
+import org.eclipse.rdf4j.rio.hdt.HDTDocument;
+import org.eclipse.rdf4j.sail.NotifyingSailConnection;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.helpers.AbstractNotifyingSail;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A read-only Sail implementation that answers queries directly from an HDT file. The file is memory-mapped and its
+ * dictionary values are only decoded for matching statements, so that large files can be queried without loading them
+ * into a store first, with a small heap.
+ *
+ * Triple patterns with a subject are looked up directly in the triples of the file, other patterns are answered by
+ * scanning them. All statements are in the default graph.
+ *
+ * @see HDTDocument
+ */
+public class HDTStore extends AbstractNotifyingSail implements FederatedServiceResolverClient {
+
+	private static final Logger logger = LoggerFactory.getLogger(HDTStore.class);
+
+	private File hdtFile;
+
+	private volatile HDTSailStore store;
+
+	private EvaluationStrategyFactory evalStratFactory;
+
+	/**
+	 * independent life cycle
+	 */
+	private FederatedServiceResolver serviceResolver;
+
+	/**
+	 * dependent life cycle
+	 */
+	private SPARQLServiceResolver dependentServiceResolver;
+
+	/**
+	 * Creates a new HDTStore, the HDT file needs to be set with {@link #setHDTFile(File)}.
+	 */
+	public HDTStore() {
+	}
+
+	/**
+	 * Creates a new HDTStore for an HDT file.
+	 *
+	 * @param hdtFile the HDT file.
+	 */
+	public HDTStore(File hdtFile) {
+		this.hdtFile = hdtFile;
+	}
+
+	/**
+	 * Sets the HDT file. A relative path is resolved against the data directory of the store, if it has one.
+	 *
+	 * @param hdtFile the HDT file.
+	 */
+	public void setHDTFile(File hdtFile) {
+		if (isInitialized()) {
+			throw new IllegalStateException("sail has already been initialized");
+		}
+		this.hdtFile = hdtFile;
+	}
+
+	public File getHDTFile() {
+		return hdtFile;
+	}
+
+	/**
+	 * @return Returns the {@link EvaluationStrategyFactory}.
+	 */
+	public synchronized EvaluationStrategyFactory getEvaluationStrategyFactory() {
+		if (evalStratFactory == null) {
+			evalStratFactory = new StrictEvaluationStrategyFactory(getFederatedServiceResolver());
+		}
+		evalStratFactory.setQuerySolutionCacheThreshold(getIterationCacheSyncThreshold());
+		evalStratFactory.setTrackResultSize(isTrackResultSize());
+		return evalStratFactory;
+	}
+
+	/**
+	 * Sets the {@link EvaluationStrategyFactory} to use.
+	 */
+	public synchronized void setEvaluationStrategyFactory(EvaluationStrategyFactory factory) {
+		evalStratFactory = factory;
+	}
+
+	/**
+	 * @return Returns the SERVICE resolver.
+	 */
+	public synchronized FederatedServiceResolver getFederatedServiceResolver() {
+		if (serviceResolver == null) {
+			if (dependentServiceResolver == null) {
+				dependentServiceResolver = new SPARQLServiceResolver();
+			}
+			setFederatedServiceResolver(dependentServiceResolver);
+		}
+		return serviceResolver;
+	}
+
+	/**
+	 * Overrides the {@link FederatedServiceResolver} used by this instance, but the given resolver is not shutDown when
+	 * this instance is.
+	 *
+	 * @param resolver The SERVICE resolver to set.
+	 */
+	@Override
+	public synchronized void setFederatedServiceResolver(FederatedServiceResolver resolver) {
+		this.serviceResolver = resolver;
+		if (resolver != null && evalStratFactory instanceof FederatedServiceResolverClient) {
+			((FederatedServiceResolverClient) evalStratFactory).setFederatedServiceResolver(resolver);
+		}
+	}
+
+	@Override
+	protected void initializeInternal() throws SailException {
+		if (hdtFile == null) {
+			throw new SailException("HDT file not set");
+		}
+		File file = hdtFile;
+		if (!file.isAbsolute() && getDataDir() != null) {
+			file = new File(getDataDir(), file.getPath());
+		}
+		logger.debug("Opening HDT file {}...", file);
+
+		try {
+			ValueFactory vf = getValueFactory();
+			store = new HDTSailStore(HDTDocument.open(file, vf), vf);
+		} catch (IOException | RuntimeException e) {
+			throw new SailException("Unable to open HDT file: " + file, e);
+		}
+		logger.debug("HDTStore initialized");
+	}
+
+	@Override
+	protected void shutDownInternal() throws SailException {
+		try {
+			if (store != null) {
+				store.close();
+				store = null;
+			}
+		} finally {
+			if (dependentServiceResolver != null) {
+				dependentServiceResolver.shutDown();
+			}
+		}
+	}
+
+	/**
+	 * An HDTStore is never writable.
+	 */
+	@Override
+	public boolean isWritable() {
+		return false;
+	}
+
+	@Override
+	protected NotifyingSailConnection getConnectionInternal() throws SailException {
+		return new HDTStoreConnection(this);
+	}
+
+	@Override
+	public ValueFactory getValueFactory() {
+		return SimpleValueFactory.getInstance();
+	}
+
+	HDTSailStore getSailStore() {
+		return store;
+	}
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.hdt.config;
+
+import java.io.File;
+
+import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategyFactory;
+import org.eclipse.rdf4j.sail.Sail;
+import org.eclipse.rdf4j.sail.config.SailConfigException;
+import org.eclipse.rdf4j.sail.config.SailFactory;
+import org.eclipse.rdf4j.sail.config.SailImplConfig;
+import org.eclipse.rdf4j.sail.hdt.HDTStore;
+
+/**
+ * A {@link SailFactory} that creates {@link HDTStore}s based on RDF configuration data.
+ */
+public class HDTStoreFactory implements SailFactory {
+
+	/**
+	 * The type of repositories that are created by this factory.
+	 *
+	 * @see SailFactory#getSailType()
+	 */
+	public static final String SAIL_TYPE = "rdf4j:HDTStore";
+
+	/**
+	 * Returns the Sail's type: <tt>rdf4j:HDTStore</tt>.
+	 */
+	@Override
+	public String getSailType() {
+		return SAIL_TYPE;
+	}
+
+	@Override
+	public SailImplConfig getConfig() {
+		return new HDTStoreConfig();
+	}
+
+	@Override
+	public Sail getSail(SailImplConfig config) throws SailConfigException {
+		if (!SAIL_TYPE.equals(config.getType())) {
+			throw new SailConfigException("Invalid Sail type: " + config.getType());
+		}
+
+		HDTStore hdtStore = new HDTStore();
+
+		if (config instanceof HDTStoreConfig) {
+			HDTStoreConfig hdtConfig = (HDTStoreConfig) config;
+
+			if (hdtConfig.getHDTFile() != null) {
+				hdtStore.setHDTFile(new File(hdtConfig.getHDTFile()));
+			}
+
+			if (hdtConfig.getIterationCacheSyncThreshold() > 0) {
+				hdtStore.setIterationCacheSyncThreshold(hdtConfig.getIterationCacheSyncThreshold());
+			}
+
+			EvaluationStrategyFactory evalStratFactory = hdtConfig.getEvaluationStrategyFactory();
+			if (evalStratFactory != null) {
+				hdtStore.setEvaluationStrategyFactory(evalStratFactory);
+			}
+		}
+
+		return hdtStore;
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * A read-only implementation of the RDF SAIL API that queries a memory-mapped HDT file.
+ */
+package org.eclipse.rdf4j.sail.hdt;
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.hdt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.InputStream;
+
+import org.eclipse.rdf4j.IsolationLevel;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.query.QueryResults;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.eclipse.rdf4j.repository.RepositoryResult;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.Rio;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HDTStoreTest {
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	private Model orig;
+	private HDTStore sail;
+	private SailRepository repo;
+
+	@Before
+	public void setUp() throws Exception {
+		try (InputStream is = HDTStoreTest.class.getResourceAsStream("/test-orig.nt")) {
+			orig = Rio.parse(is, "", RDFFormat.NTRIPLES);
+		}
+		sail = new HDTStore(new File(HDTStoreTest.class.getResource("/test.hdt").toURI()));
+		repo = new SailRepository(sail);
+		repo.init();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		repo.shutDown();
+	}
+
+	@Test
+	public void testGetStatements() throws Exception {
+		try (SailRepositoryConnection conn = repo.getConnection()) {
+			assertEquals(43, conn.size());
+			for (Statement st : orig) {
+				assertEquals(orig.filter(st.getSubject(), null, null),
+						toModel(conn.getStatements(st.getSubject(), null, null)));
+				assertEquals(orig.filter(null, st.getPredicate(), null),
+						toModel(conn.getStatements(null, st.getPredicate(), null)));
+				assertEquals(orig.filter(null, null, st.getObject()),
+						toModel(conn.getStatements(null, null, st.getObject())));
+				assertFalse(conn.hasStatement(st.getSubject(), st.getPredicate(), st.getObject(), false,
+						vf.createIRI("http://example.org/graph")));
+			}
+			assertFalse(conn.hasStatement(vf.createIRI("http://example.org/unknown"), null, null, false));
+		}
+	}
+
+	@Test
+	public void testQuery() throws Exception {
+		int expected = 0;
+		for (Statement st : orig) {
+			if (st.getObject() instanceof Resource) {
+				expected += orig.filter((Resource) st.getObject(), null, null).size();
+			}
+		}
+
+		try (SailRepositoryConnection conn = repo.getConnection()) {
+			String query = "SELECT * WHERE { ?s ?p ?o . ?o ?p2 ?o2 }";
+			try (TupleQueryResult result = conn.prepareTupleQuery(query).evaluate()) {
+				assertEquals(expected, QueryResults.asList(result).size());
+			}
+		}
+	}
+
+	@Test
+	public void testIsolationLevels() throws Exception {
+		Statement st = orig.iterator().next();
+		for (IsolationLevel level : sail.getSupportedIsolationLevels()) {
+			try (SailRepositoryConnection conn = repo.getConnection()) {
+				conn.begin(level);
+				assertEquals(level.toString(), orig.filter(st.getSubject(), null, null),
+						toModel(conn.getStatements(st.getSubject(), null, null)));
+				assertEquals(level.toString(), 43, conn.size());
+				try (TupleQueryResult result = conn.prepareTupleQuery("SELECT * WHERE { ?s ?p ?o }").evaluate()) {
+					assertEquals(level.toString(), 43, QueryResults.asList(result).size());
+				}
+				conn.commit();
+			}
+		}
+	}
+
+	@Test
+	public void testReadOnly() throws Exception {
+		IRI subj = vf.createIRI("http://example.org/s");
+		try (SailRepositoryConnection conn = repo.getConnection()) {
+			conn.begin();
+			try {
+				conn.add(subj, RDFS.LABEL, vf.createLiteral("label"));
+				conn.commit();
+				fail("HDTStore should be read-only");
+			} catch (RepositoryException e) {
+				conn.rollback();
+			}
+			assertFalse(conn.hasStatement(subj, null, null, false));
+		}
+	}
+
+	@Test
+	public void testCardinality() throws Exception {
+		EvaluationStatistics statistics = sail.getSailStore().getEvaluationStatistics();
+		for (Statement st : orig) {
+			StatementPattern sp = new StatementPattern(new Var("s", st.getSubject()), new Var("p"), new Var("o"));
+			assertEquals(orig.filter(st.getSubject(), null, null).size(), statistics.getCardinality(sp), 0.0);
+
+			sp = new StatementPattern(new Var("s", st.getSubject()), new Var("p", st.getPredicate()), new Var("o"));
+			assertEquals(orig.filter(st.getSubject(), st.getPredicate(), null).size(),
+					statistics.getCardinality(sp), 0.0);
+
+			sp = new StatementPattern(new Var("s"), new Var("p", st.getPredicate()), new Var("o"));
+			assertEquals(orig.filter(null, st.getPredicate(), null).size(), statistics.getCardinality(sp), 0.0);
+		}
+		StatementPattern sp = new StatementPattern(new Var("s"), new Var("p"), new Var("o"));
+		assertEquals(43, statistics.getCardinality(sp), 0.0);
+
+		sp = new StatementPattern(new Var("s"), new Var("p", vf.createIRI("http://example.org/unknown")), new Var("o"));
+		assertEquals(0, statistics.getCardinality(sp), 0.0);
+	}
+
+	private Model toModel(RepositoryResult<Statement> result) {
+		return QueryResults.asModel(result);
+	}
+}
@@ -244,6 +244,15 @@ public class LuceneSail extends NotifyingSailWrapper {
 	 */
 	public static final String MAX_DOCUMENTS_KEY = "maxDocuments";
 
+	/**
+	 * Set the key "commitInterval=&lt;n&gt;" as sail parameter to commit the Lucene index durably at most every n
+	 * milliseconds, instead of once per transaction. Committed transactions are visible to searches immediately, but
+	 * are only written to disk periodically and on shutdown, which avoids the cost of a sync to disk for every small
+	 * transaction. If the index was not shut down properly, it is rebuilt from the sail on initialization. The default
+	 * is 0, i.e. every transaction is committed durably.
+	 */
+	public static final String COMMIT_INTERVAL_KEY = "commitInterval";
+
 	/**
 	 * Set this key to configure which fields contain WKT and should be spatially indexed. The value should be a
 	 * space-separated list of URIs. Default is http://www.opengis.net/ont/geosparql#asWKT.
@@ -391,6 +400,10 @@ public class LuceneSail extends NotifyingSailWrapper {
 			if (luceneIndex == null) {
 				initializeLuceneIndex();
 			}
+			if (luceneIndex.isRecoveryRequired()) {
+				logger.warn("Lucene index may have lost committed changes, recovering from the sail");
+				reindex();
+			}
 		} catch (Exception e) {
 			throw new SailException("Could not initialize LuceneSail: " + e.getMessage(), e);
 		}
@@ -257,9 +257,9 @@ public class LuceneSailConnection extends NotifyingSailConnectionWrapper {
 		try {
 			luceneIndex.addRemoveStatements(toAdd, toRemove);
 			luceneIndex.commit();
-		} catch (IOException e) {
+		} catch (IOException | RuntimeException e) {
 			logger.error("Rolling back", e);
-			luceneIndex.rollback();
+			rollbackIndex(e);
 			throw e;
 		}
 	}
@@ -270,13 +270,32 @@ public class LuceneSailConnection extends NotifyingSailConnectionWrapper {
 		try {
 			luceneIndex.clearContexts(contexts);
 			luceneIndex.commit();
-		} catch (IOException e) {
+		} catch (IOException | RuntimeException e) {
 			logger.error("Rolling back", e);
-			luceneIndex.rollback();
+			rollbackIndex(e);
 			throw e;
 		}
 	}
 
+	/**
+	 * Rolls back the changes of a failed update of the index. If the rollback has discarded committed transactions as
+	 * well, the index is rebuilt from the sail immediately, as searches would otherwise miss their statements.
+	 *
+	 * @param cause the failure of the update, to which failures of the rollback are added
+	 */
+	private void rollbackIndex(Exception cause) {
+		try {
+			luceneIndex.rollback();
+			if (luceneIndex.isRecoveryRequired()) {
+				logger.warn("Lucene index has lost committed changes, recovering from the sail");
+				sail.reindex();
+			}
+		} catch (Exception e) {
+			logger.error("Could not recover the Lucene index, it will be rebuilt on the next initialization", e);
+			cause.addSuppressed(e);
+		}
+	}
+
 	// //////////////////////////////// Methods related to querying
 
 	@Override
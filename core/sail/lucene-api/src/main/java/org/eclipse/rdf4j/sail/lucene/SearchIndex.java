@@ -79,6 +79,17 @@ public interface SearchIndex {
 
 	void rollback() throws IOException;
 
+	/**
+	 * Returns whether the index may have lost changes of committed transactions, e.g. because it was not shut down
+	 * properly while changes had not yet been written durably, or because a {@link #rollback()} discarded them. The
+	 * LuceneSail reindexes the sail on initialization and after a failed update if this is the case.
+	 *
+	 * @return true if the index has to be rebuilt from the sail
+	 */
+	default boolean isRecoveryRequired() {
+		return false;
+	}
+
 	/**
 	 * Indexes the specified Statement.This should be called from within a begin-commit-rollback block.
 	 *
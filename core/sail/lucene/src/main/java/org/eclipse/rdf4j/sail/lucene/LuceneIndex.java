@@ -22,6 +22,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -48,6 +51,7 @@ import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.ParseException;
@@ -57,6 +61,7 @@ import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.highlight.Formatter;
@@ -95,6 +100,12 @@ import com.google.common.collect.Sets;
 /**
  * A LuceneIndex is a one-stop-shop abstraction of a Lucene index. It takes care of proper synchronization of
  * IndexReaders, IndexWriters and IndexSearchers in a way that is suitable for a LuceneSail.
+ * <p>
+ * IndexSearchers are near-real-time searchers obtained from the IndexWriter, which are refreshed whenever a transaction
+ * is committed. By default each transaction is also committed durably. If a {@link LuceneSail#COMMIT_INTERVAL_KEY} is
+ * configured, changes are instead committed durably in the background at the given interval and on shutdown. The
+ * state of the index is recorded in the commit user data, such that an index which was not shut down properly is
+ * detected on restart (see {@link #isRecoveryRequired()}).
  *
  * @see LuceneSail
  */
@@ -109,6 +120,13 @@ public class LuceneIndex extends AbstractLuceneIndex {
 	private static final String GEO_FIELD_PREFIX = "_geo_";
 	private static final String POINT_FIELD_PREFIX = "_pt_";
 
+	/**
+	 * The key of the commit user data recording whether the durable index contains all committed transactions.
+	 */
+	private static final String INDEX_STATE_KEY = "rdf4j.indexState";
+	private static final String INDEX_STATE_CLEAN = "clean";
+	private static final String INDEX_STATE_DIRTY = "dirty";
+
 	private final Logger logger = LoggerFactory.getLogger(getClass());
 
 	/**
@@ -130,11 +148,41 @@ public class LuceneIndex extends AbstractLuceneIndex {
 	 */
 	private volatile IndexWriter indexWriter;
 
+	/**
+	 * Provides near-real-time IndexSearchers of the IndexWriter. Created together with the IndexWriter.
+	 */
+	private volatile SearcherManager searcherManager;
+
 	/**
 	 * This holds IndexReader and IndexSearcher.
 	 */
 	protected volatile ReaderMonitor currentMonitor;
 
+	/**
+	 * The interval in milliseconds at which committed transactions are written durably, or 0 to commit each
+	 * transaction durably.
+	 */
+	private volatile long commitInterval = 0;
+
+	private volatile ScheduledExecutorService commitScheduler;
+
+	/**
+	 * The index state recorded in the commit user data of the current IndexWriter.
+	 */
+	private String indexState;
+
+	/**
+	 * Whether the current transaction has changed the index.
+	 */
+	private boolean uncommittedChanges = false;
+
+	/**
+	 * Whether committed transactions have not yet been written durably.
+	 */
+	private boolean pendingCommit = false;
+
+	private volatile boolean recoveryRequired = false;
+
 	private volatile Function<? super String, ? extends SpatialStrategy> geoStrategyMapper;
 
 	private final AtomicBoolean closed = new AtomicBoolean(false);
@@ -180,6 +228,9 @@ public class LuceneIndex extends AbstractLuceneIndex {
 		// Map<Object,Object>
 		// even though it is effectively Map<String,String>
 		this.geoStrategyMapper = createSpatialStrategyMapper((Map<String, String>) (Map<?, ?>) parameters);
+		if (parameters.containsKey(LuceneSail.COMMIT_INTERVAL_KEY)) {
+			this.commitInterval = Long.parseLong(parameters.getProperty(LuceneSail.COMMIT_INTERVAL_KEY));
+		}
 
 		postInit();
 	}
@@ -230,6 +281,26 @@ public class LuceneIndex extends AbstractLuceneIndex {
 			indexWriterConfig.setOpenMode(OpenMode.CREATE);
 			IndexWriter writer = new IndexWriter(directory, indexWriterConfig);
 			writer.close();
+		} else {
+			Map<String, String> userData = SegmentInfos.readLatestCommit(directory).getUserData();
+			if (INDEX_STATE_DIRTY.equals(userData.get(INDEX_STATE_KEY))) {
+				logger.warn("Lucene index in directory {} was not shut down properly and may have lost changes",
+						directory);
+				recoveryRequired = true;
+			}
+		}
+
+		if (commitInterval > 0 && commitScheduler == null) {
+			// record that the index is in use, such that a crash before the next durable commit is detected
+			durableCommit(getIndexWriter(), false);
+
+			commitScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "rdf4j-lucene-commit");
+				thread.setDaemon(true);
+				return thread;
+			});
+			commitScheduler.scheduleWithFixedDelay(this::commitPending, commitInterval, commitInterval,
+					TimeUnit.MILLISECONDS);
 		}
 	}
 
@@ -297,7 +368,11 @@ public class LuceneIndex extends AbstractLuceneIndex {
 			throw new SailException("Index has been closed");
 		}
 		if (currentMonitor == null) {
-			currentMonitor = new ReaderMonitor(this, directory);
+			try {
+				currentMonitor = new ReaderMonitor(this, getSearcherManager());
+			} catch (IOException e) {
+				throw new SailException(e);
+			}
 		}
 		return currentMonitor;
 	}
@@ -307,18 +382,52 @@ public class LuceneIndex extends AbstractLuceneIndex {
 			throw new SailException("Index has been closed");
 		}
 		if (indexWriter == null || !indexWriter.isOpen()) {
+			closeSearcherManager();
 			IndexWriterConfig indexWriterConfig = getIndexWriterConfig();
 			indexWriter = new IndexWriter(directory, indexWriterConfig);
+			indexState = null;
+			// open the searchers before any changes are made, such that they only see committed transactions
+			searcherManager = new SearcherManager(indexWriter, null);
 		}
 		return indexWriter;
 	}
 
+	/**
+	 * Returns the SearcherManager providing near-real-time IndexSearchers of the current IndexWriter. The searchers are
+	 * refreshed on each {@link #commit()}.
+	 *
+	 * @return the SearcherManager
+	 * @throws IOException
+	 */
+	public synchronized SearcherManager getSearcherManager() throws IOException {
+		getIndexWriter();
+		return searcherManager;
+	}
+
+	/**
+	 * Returns whether the index was not shut down properly while committed transactions had not yet been written
+	 * durably, or whether such transactions had to be discarded by a {@link #rollback()}. The index has to be rebuilt
+	 * from the sail in this case, which the {@link LuceneSail} does on initialization and as soon as a rollback
+	 * discards committed transactions.
+	 *
+	 * @return true if the index may have lost committed changes
+	 */
+	@Override
+	public boolean isRecoveryRequired() {
+		return recoveryRequired;
+	}
+
 	@Override
 	public void shutDown() throws IOException {
 		// try-finally setup ensures that closing of an instance is not skipped
 		// when an earlier instance resulted in an IOException
 		// FIXME: is there a more elegant way to ensure this?
 		if (closed.compareAndSet(false, true)) {
+			ScheduledExecutorService toShutDownCommitScheduler = commitScheduler;
+			commitScheduler = null;
+			if (toShutDownCommitScheduler != null) {
+				toShutDownCommitScheduler.shutdown();
+			}
 			try {
 				// This close oldMonitors which hold InderReader and
 				// IndexSeracher
@@ -348,14 +457,14 @@ public class LuceneIndex extends AbstractLuceneIndex {
 					}
 				} finally {
 					try {
-						IndexWriter toCloseIndexWriter = indexWriter;
-						indexWriter = null;
-						if (toCloseIndexWriter != null) {
-							toCloseIndexWriter.close();
-						}
+						closeSearcherManager();
 					} finally {
-						if (!exceptions.isEmpty()) {
-							throw new UndeclaredThrowableException(exceptions.get(0));
+						try {
+							closeIndexWriter();
+						} finally {
+							if (!exceptions.isEmpty()) {
+								throw new UndeclaredThrowableException(exceptions.get(0));
+							}
 						}
 					}
 				}
@@ -363,6 +472,63 @@ public class LuceneIndex extends AbstractLuceneIndex {
 		}
 	}
 
+	private synchronized void closeIndexWriter() throws IOException {
+		IndexWriter toCloseIndexWriter = indexWriter;
+		indexWriter = null;
+		if (toCloseIndexWriter != null) {
+			try {
+				if (commitInterval > 0 && toCloseIndexWriter.isOpen()) {
+					// write pending transactions, and record that the index is complete
+					durableCommit(toCloseIndexWriter, true);
+				}
+			} finally {
+				toCloseIndexWriter.close();
+			}
+		}
+	}
+
+	private void closeSearcherManager() throws IOException {
+		SearcherManager toCloseSearcherManager = searcherManager;
+		searcherManager = null;
+		if (toCloseSearcherManager != null) {
+			toCloseSearcherManager.close();
+		}
+	}
+
+	/**
+	 * Commits all changes of the IndexWriter durably, recording in the commit user data whether the durable index
+	 * contains all committed transactions even if the index is not shut down properly.
+	 *
+	 * @param writer   the IndexWriter to commit
+	 * @param shutdown whether the index is shut down, i.e. no further transactions follow
+	 * @throws IOException
+	 */
+	private void durableCommit(IndexWriter writer, boolean shutdown) throws IOException {
+		boolean clean = (shutdown || commitInterval <= 0) && !recoveryRequired;
+		String state = clean ? INDEX_STATE_CLEAN : INDEX_STATE_DIRTY;
+		if (!state.equals(indexState)) {
+			writer.setLiveCommitData(Collections.singletonMap(INDEX_STATE_KEY, state).entrySet());
+			indexState = state;
+		}
+		writer.commit();
+		pendingCommit = false;
+	}
+
+	/**
+	 * Writes committed transactions durably, invoked periodically if a commit interval is configured.
+	 */
+	private synchronized void commitPending() {
+		// changes of a running transaction must not be written before the transaction is committed
+		if (closed.get() || !pendingCommit || uncommittedChanges) {
+			return;
+		}
+		try {
+			durableCommit(getIndexWriter(), false);
+		} catch (IOException | RuntimeException e) {
+			logger.error("Could not commit the Lucene index", e);
+		}
+	}
+
 	// //////////////////////////////// Methods for updating the index
 
 	@Override
@@ -402,16 +568,19 @@ public class LuceneIndex extends AbstractLuceneIndex {
 
 	@Override
 	protected synchronized void addDocument(SearchDocument doc) throws IOException {
+		uncommittedChanges = true;
 		getIndexWriter().addDocument(((LuceneDocument) doc).getDocument());
 	}
 
 	@Override
 	protected synchronized void updateDocument(SearchDocument doc) throws IOException {
+		uncommittedChanges = true;
 		getIndexWriter().updateDocument(idTerm(doc.getId()), ((LuceneDocument) doc).getDocument());
 	}
 
 	@Override
 	protected synchronized void deleteDocument(SearchDocument doc) throws IOException {
+		uncommittedChanges = true;
 		getIndexWriter().deleteDocuments(idTerm(doc.getId()));
 	}
 
@@ -673,18 +842,53 @@ public class LuceneIndex extends AbstractLuceneIndex {
 	/**
 	 * Commits any changes done to the LuceneIndex since the last commit. The semantics is synchronous to
 	 * SailConnection.commit(), i.e. the LuceneIndex should be committed/rollbacked whenever the LuceneSailConnection is
-	 * committed/rollbacked.
+	 * committed/rollbacked. The changes are visible to new searchers immediately, but only written durably with the
+	 * next periodic commit if a {@link LuceneSail#COMMIT_INTERVAL_KEY} is configured.
 	 */
 	@Override
 	public synchronized void commit() throws IOException {
-		getIndexWriter().commit();
+		IndexWriter writer = getIndexWriter();
+		uncommittedChanges = false;
+		if (commitInterval > 0) {
+			pendingCommit = writer.hasUncommittedChanges();
+		} else {
+			durableCommit(writer, false);
+		}
+		getSearcherManager().maybeRefreshBlocking();
 		// the old IndexReaders/Searchers are not outdated
 		invalidateReaders();
 	}
 
+	/**
+	 * Discards the changes done to the LuceneIndex since the last commit. As Lucene can only roll back to the last
+	 * durable commit, committed transactions which have not yet been written durably are discarded as well if the
+	 * current transaction has changed the index. The index then requires recovery, see {@link #isRecoveryRequired()}.
+	 */
 	@Override
 	public synchronized void rollback() throws IOException {
-		getIndexWriter().rollback();
+		// the transaction ends here, even if the rollback fails, such that pending commits are not blocked forever
+		boolean transactionChanges = uncommittedChanges;
+		uncommittedChanges = false;
+
+		IndexWriter writer = indexWriter;
+		if (writer == null || !writer.isOpen() || !writer.hasUncommittedChanges()) {
+			// nothing to roll back
+			return;
+		}
+		if (pendingCommit) {
+			if (!transactionChanges) {
+				// only committed transactions are pending, keep them
+				return;
+			}
+			logger.warn("Rolling back the Lucene index discards committed transactions which were not yet written "
+					+ "durably, the index has to be recovered");
+			recoveryRequired = true;
+			pendingCommit = false;
+		}
+		closeSearcherManager();
+		writer.rollback();
+		// the old IndexReaders/Searchers may contain discarded changes
+		invalidateReaders();
 	}
 
 	// //////////////////////////////// Methods for querying the index
@@ -1039,6 +1243,7 @@ public class LuceneIndex extends AbstractLuceneIndex {
 			// }
 
 			// now delete all documents from the deleted context
+			uncommittedChanges = true;
 			getIndexWriter().deleteDocuments(contextTerm);
 		}
 
@@ -1074,6 +1279,7 @@ public class LuceneIndex extends AbstractLuceneIndex {
 		// clear
 		// the old IndexReaders/Searchers are not outdated
 		invalidateReaders();
+		closeSearcherManager();
 		if (indexWriter != null) {
 			indexWriter.close();
 		}
@@ -1082,8 +1288,13 @@ public class LuceneIndex extends AbstractLuceneIndex {
 		IndexWriterConfig indexWriterConfig = getIndexWriterConfig();
 		indexWriterConfig.setOpenMode(OpenMode.CREATE);
 		indexWriter = new IndexWriter(directory, indexWriterConfig);
+		// the cleared index is complete only once it has been filled again and committed
+		indexWriter.setLiveCommitData(Collections.singletonMap(INDEX_STATE_KEY, INDEX_STATE_DIRTY).entrySet());
 		indexWriter.close();
 		indexWriter = null;
+		uncommittedChanges = false;
+		pendingCommit = false;
+		recoveryRequired = false;
 
 	}
 
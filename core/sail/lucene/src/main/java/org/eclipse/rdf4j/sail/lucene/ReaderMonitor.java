@@ -12,6 +12,7 @@ import java.io.IOException;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.store.Directory;
 
 /**
@@ -27,6 +28,11 @@ public class ReaderMonitor extends AbstractReaderMonitor {
 	 */
 	private IndexSearcher indexSearcher;
 
+	/**
+	 * The SearcherManager the IndexSearcher was acquired from, if any.
+	 */
+	private SearcherManager searcherManager;
+
 	private IOException indexSearcherCreateException;
 
 	/**
@@ -45,6 +51,23 @@ public class ReaderMonitor extends AbstractReaderMonitor {
 		}
 	}
 
+	/**
+	 * Acquires the current IndexSearcher of the given SearcherManager, which is released again when the monitor is
+	 * closed. If an exception occurs it will be thrown on getIndexSearcher.
+	 *
+	 * @param index
+	 * @param searcherManager the SearcherManager providing the IndexSearcher
+	 */
+	public ReaderMonitor(final LuceneIndex index, SearcherManager searcherManager) {
+		super(index);
+		this.searcherManager = searcherManager;
+		try {
+			indexSearcher = searcherManager.acquire();
+		} catch (IOException e) {
+			indexSearcherCreateException = e;
+		}
+	}
+
 	/**
 	 * @throws IOException
 	 */
@@ -52,10 +75,15 @@ public class ReaderMonitor extends AbstractReaderMonitor {
 	protected void handleClose() throws IOException {
 		try {
 			if (indexSearcher != null) {
-				indexSearcher.getIndexReader().close();
+				if (searcherManager != null) {
+					searcherManager.release(indexSearcher);
+				} else {
+					indexSearcher.getIndexReader().close();
+				}
 			}
 		} finally {
 			indexSearcher = null;
+			searcherManager = null;
 		}
 	}
 
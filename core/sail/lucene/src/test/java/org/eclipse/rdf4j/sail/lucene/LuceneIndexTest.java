@@ -16,6 +16,7 @@ import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.Properties;
 import java.util.Set;
 
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
@@ -25,12 +26,15 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.MultiFields;
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SegmentInfos;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.RAMDirectory;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Literal;
@@ -40,6 +44,7 @@ import org.eclipse.rdf4j.model.ValueFactory;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.repository.sail.SailRepository;
 import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.eclipse.rdf4j.sail.SailConnection;
 import org.eclipse.rdf4j.sail.memory.MemoryStore;
 import org.junit.After;
 import org.junit.Before;
@@ -388,6 +393,79 @@ public class LuceneIndexTest {
 		}
 	}
 
+	@Test
+	public void testCommitInterval() throws Exception {
+		LuceneIndex deferredIndex = createDeferredIndex();
+		try {
+			deferredIndex.begin();
+			deferredIndex.addStatement(statement11);
+			deferredIndex.commit();
+
+			// the transaction is visible to searches
+			assertEquals(1, deferredIndex.getIndexReader().numDocs());
+			assertNotNull(deferredIndex.getDocument(subject, null));
+
+			// but not yet written durably
+			try (DirectoryReader reader = DirectoryReader.open(deferredIndex.getDirectory())) {
+				assertEquals(0, reader.numDocs());
+			}
+		} finally {
+			deferredIndex.shutDown();
+		}
+
+		// pending transactions are written on shutdown
+		try (DirectoryReader reader = DirectoryReader.open(deferredIndex.getDirectory())) {
+			assertEquals(1, reader.numDocs());
+		}
+		LuceneIndex reopenedIndex = new LuceneIndex(deferredIndex.getDirectory(), analyzer);
+		try {
+			assertFalse(reopenedIndex.isRecoveryRequired());
+			assertNotNull(reopenedIndex.getDocument(subject, null));
+		} finally {
+			reopenedIndex.shutDown();
+		}
+	}
+
+	@Test
+	public void testRecovery() throws Exception {
+		LuceneIndex deferredIndex = createDeferredIndex();
+		Directory crashedDirectory;
+		try {
+			deferredIndex.begin();
+			deferredIndex.addStatement(statement11);
+			deferredIndex.commit();
+
+			// simulate a crash: only the durable state of the index survives
+			crashedDirectory = copyLatestCommit(deferredIndex.getDirectory());
+		} finally {
+			deferredIndex.shutDown();
+		}
+
+		LuceneIndex recoveredIndex = new LuceneIndex(crashedDirectory, analyzer);
+		assertTrue(recoveredIndex.isRecoveryRequired());
+		assertNull(recoveredIndex.getDocument(subject, null));
+
+		// the LuceneSail rebuilds the index from the base sail on initialization
+		MemoryStore memoryStore = new MemoryStore();
+		memoryStore.init();
+		try (SailConnection connection = memoryStore.getConnection()) {
+			connection.begin();
+			connection.addStatement(subject, predicate1, object1);
+			connection.commit();
+		}
+		LuceneSail sail = new LuceneSail();
+		sail.setBaseSail(memoryStore);
+		sail.setLuceneIndex(recoveredIndex);
+		SailRepository repository = new SailRepository(sail);
+		repository.initialize();
+		try {
+			assertFalse(recoveredIndex.isRecoveryRequired());
+			assertNotNull(recoveredIndex.getDocument(subject, null));
+		} finally {
+			repository.shutDown();
+		}
+	}
+
 	@Test
 	public void testRejectedDatatypes() {
 		IRI STRING = vf.createIRI("http://www.w3.org/2001/XMLSchema#string");
@@ -402,6 +480,24 @@ public class LuceneIndexTest {
 		assertEquals("Is the fourth literal accepted?", false, index.accept(literal4));
 	}
 
+	private LuceneIndex createDeferredIndex() throws Exception {
+		Properties parameters = new Properties();
+		parameters.setProperty(LuceneSail.LUCENE_RAMDIR_KEY, "true");
+		// longer than the test, such that changes are only committed durably on shutdown
+		parameters.setProperty(LuceneSail.COMMIT_INTERVAL_KEY, "3600000");
+		LuceneIndex deferredIndex = new LuceneIndex();
+		deferredIndex.initialize(parameters);
+		return deferredIndex;
+	}
+
+	private static Directory copyLatestCommit(Directory directory) throws IOException {
+		Directory copy = new RAMDirectory();
+		for (String file : SegmentInfos.readLatestCommit(directory).files(true)) {
+			copy.copyFrom(directory, file, file, IOContext.DEFAULT);
+		}
+		return copy;
+	}
+
 	private void assertStatement(Statement statement) throws Exception {
 		Document document = index.getDocument(statement.getSubject(), statement.getContext());
 		if (document == null) {
@@ -0,0 +1,941 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.rdf4j.IsolationLevel;
+import org.eclipse.rdf4j.IsolationLevels;
+import org.eclipse.rdf4j.common.concurrent.locks.Lock;
+import org.eclipse.rdf4j.common.concurrent.locks.LockingIteration;
+import org.eclipse.rdf4j.common.concurrent.locks.ReadPrefReadWriteLockManager;
+import org.eclipse.rdf4j.common.concurrent.locks.ReadWriteLockManager;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Namespace;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Triple;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.ContextStatement;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.sail.SailConflictException;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.base.BackingSailSource;
+import org.eclipse.rdf4j.sail.base.SailDataset;
+import org.eclipse.rdf4j.sail.base.SailSink;
+import org.eclipse.rdf4j.sail.base.SailSource;
+import org.eclipse.rdf4j.sail.base.SailStore;
+import org.eclipse.rdf4j.sail.memory.QuadTable.Columns;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of {@link SailStore} that keeps committed statements in a {@link QuadTable}, as an alternative to
+ * {@link MemorySailStore} for large datasets. Values are stored once in a {@link ValueDictionary} and statements are
+ * rows of value IDs, so that a statement takes a few dozen bytes of primitive arrays instead of several objects.
+ * Statement objects are only created when statements are read.
+ * <p>
+ * Statements are versioned with snapshots in the same way as in {@link MemorySailStore}. Removed statements are
+ * dropped from the table in the background once enough of them have accumulated. Values are not removed from the
+ * dictionary.
+ */
+class ColumnarSailStore implements SailStore {
+
+	/**
+	 * The fraction of the rows that needs to be removed before the table is compacted.
+	 */
+	private static final int COMPACTION_RATIO = 8;
+
+	private final Logger logger = LoggerFactory.getLogger(ColumnarSailStore.class);
+
+	private final ValueFactory valueFactory = SimpleValueFactory.getInstance();
+
+	private final ValueDictionary dictionary = new ValueDictionary(valueFactory);
+
+	/**
+	 * Table containing all available statements.
+	 */
+	private final QuadTable table = new QuadTable();
+
+	/**
+	 * The number of rows that have been removed from a snapshot since the table was last compacted.
+	 */
+	private final AtomicInteger deprecatedRows = new AtomicInteger();
+
+	/**
+	 * The duration of the last compaction of the table in milliseconds.
+	 */
+	private volatile long lastCleanupDuration;
+
+	/**
+	 * Identifies the current snapshot.
+	 */
+	private volatile int currentSnapshot;
+
+	/**
+	 * Store for namespace prefix info.
+	 */
+	private final MemNamespaceStore namespaceStore = new MemNamespaceStore();
+
+	/**
+	 * Lock manager used to give the snapshot cleanup thread exclusive access to the table.
+	 */
+	private final ReadWriteLockManager statementListLockManager;
+
+	/**
+	 * Lock manager used to prevent concurrent writes.
+	 */
+	private final ReentrantLock txnLockManager = new ReentrantLock();
+
+	/**
+	 * Cleanup thread that compacts the table when no other threads are accessing it. See
+	 * {@link #scheduleSnapshotCleanup()}.
+	 */
+	private volatile Thread snapshotCleanupThread;
+
+	/**
+	 * Lock object used to synchronize concurrent access to {@link #snapshotCleanupThread}.
+	 */
+	private final Object snapshotCleanupThreadLockObject = new Object();
+
+	public ColumnarSailStore(boolean debug) {
+		statementListLockManager = new ReadPrefReadWriteLockManager(debug);
+	}
+
+	@Override
+	public ValueFactory getValueFactory() {
+		return valueFactory;
+	}
+
+	@Override
+	public void close() {
+		try {
+			Lock stLock = statementListLockManager.getWriteLock();
+			try {
+				table.clear();
+				dictionary.clear();
+			} finally {
+				stLock.release();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public EvaluationStatistics getEvaluationStatistics() {
+		return new ColumnarEvaluationStatistics();
+	}
+
+	@Override
+	public SailSource getExplicitSailSource() {
+		return new ColumnarSailSource(true);
+	}
+
+	@Override
+	public SailSource getInferredSailSource() {
+		return new ColumnarSailSource(false);
+	}
+
+	private Lock openStatementsReadLock() throws SailException {
+		try {
+			return statementListLockManager.getReadLock();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SailException(e);
+		}
+	}
+
+	/**
+	 * @return The ID of the value, <tt>0</tt> for <tt>null</tt> or <tt>-1</tt> for values that are not in the
+	 *         dictionary.
+	 */
+	private int getId(Value value) {
+		if (value == null) {
+			return 0;
+		}
+		int id = dictionary.getId(value);
+		return id == 0 ? -1 : id;
+	}
+
+	/**
+	 * Creates an iterator over the rows that match the specified pattern of subject, predicate, object, context.
+	 * Inferred statements are excluded when <tt>explicit</tt> is <tt>true</tt> and explicit statements when it is
+	 * <tt>false</tt>. A negative snapshot includes the rows of all snapshots.
+	 */
+	private CloseableIteration<ColumnarStatement, SailException> createStatementIterator(Resource subj, IRI pred,
+			Value obj, Boolean explicit, int snapshot, Resource... contexts) {
+		int s = getId(subj);
+		int p = getId(pred);
+		int o = getId(obj);
+		if (s < 0 || p < 0 || o < 0) {
+			// non-existent subject, predicate or object
+			return new EmptyIteration<>();
+		}
+
+		int[] ctxs = null;
+		if (contexts.length > 0) {
+			Set<Integer> contextSet = new HashSet<>(2 * contexts.length);
+			for (Resource context : contexts) {
+				int id = getId(context);
+				if (id >= 0) {
+					contextSet.add(id);
+				}
+			}
+			if (contextSet.isEmpty()) {
+				// no known contexts specified
+				return new EmptyIteration<>();
+			}
+			ctxs = contextSet.stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		return new RowIterator(s, p, o, ctxs, explicit, snapshot);
+	}
+
+	/**
+	 * Finds the row of a statement that has not been removed.
+	 *
+	 * @return The row, or <tt>-1</tt>.
+	 */
+	private int findRow(int subj, int pred, int obj, int context) {
+		int size = table.size();
+		Columns c = table.columns();
+		int[] ids = { subj, pred, obj, context };
+		int pos = smallestChain(c, ids, size, context);
+		for (int row = c.first(pos, ids[pos]); row >= 0 && row < size; row = c.next[pos][row]) {
+			if (c.till[row] == Integer.MAX_VALUE && c.values[QuadTable.SUBJ][row] == subj
+					&& c.values[QuadTable.PRED][row] == pred && c.values[QuadTable.OBJ][row] == obj
+					&& c.values[QuadTable.CTX][row] == context) {
+				return row;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param ids     The value IDs per position, where <tt>0</tt> means any value for the subject, predicate and
+	 *                object.
+	 * @param context The context, if the statements are in a single context, or <tt>-1</tt>.
+	 * @return The position with the fewest rows for its value, or <tt>-1</tt> if all rows need to be scanned.
+	 */
+	private static int smallestChain(Columns c, int[] ids, int size, int context) {
+		int smallest = -1;
+		int smallestCount = size;
+		for (int pos = QuadTable.SUBJ; pos <= QuadTable.CTX; pos++) {
+			if (pos == QuadTable.CTX ? context >= 0 : ids[pos] > 0) {
+				int count = c.count(pos, pos == QuadTable.CTX ? context : ids[pos]);
+				if (count < smallestCount || smallest < 0 && count == smallestCount) {
+					smallest = pos;
+					smallestCount = count;
+				}
+			}
+		}
+		return smallest;
+	}
+
+	/**
+	 * Creates an iteration over the triples that occur as subject or object in the statements of the snapshot and
+	 * that match the specified pattern of subject, predicate, object.
+	 */
+	private CloseableIteration<Triple, SailException> createTripleIterator(Resource subj, IRI pred, Value obj,
+			int snapshot) {
+		if (getId(subj) < 0 || getId(pred) < 0 || getId(obj) < 0) {
+			// non-existent subject, predicate or object
+			return new EmptyIteration<>();
+		}
+		int size = table.size();
+		Columns c = table.columns();
+
+		// there is no separate index for triples, so we iterate over all rows to find matches.
+		return new LookAheadIteration<Triple, SailException>() {
+
+			private int row = -1;
+
+			@Override
+			protected Triple getNextElement() {
+				while (++row < size) {
+					if (c.isInSnapshot(row, snapshot)) {
+						int id = c.values[QuadTable.SUBJ][row];
+						if (!dictionary.isTriple(id)) {
+							id = c.values[QuadTable.OBJ][row];
+						}
+						if (dictionary.isTriple(id)) {
+							Triple triple = (Triple) dictionary.getValue(id);
+							if (matches(triple)) {
+								return triple;
+							}
+						}
+					}
+				}
+				return null;
+			}
+
+			private boolean matches(Triple triple) {
+				return (subj == null || subj.equals(triple.getSubject()))
+						&& (pred == null || pred.equals(triple.getPredicate()))
+						&& (obj == null || obj.equals(triple.getObject()));
+			}
+		};
+	}
+
+	/**
+	 * @return The number of statements that have been deprecated, but that are still held in memory.
+	 */
+	long getDeprecatedStatementCount() {
+		return deprecatedRows.get();
+	}
+
+	/**
+	 * @return The duration of the last compaction of the table in milliseconds.
+	 */
+	long getLastCleanupDuration() {
+		return lastCleanupDuration;
+	}
+
+	/**
+	 * Removes statements from old snapshots from the table, if enough of them have accumulated. The remaining rows
+	 * are copied while transactions continue, the write lock is only held to install the copy.
+	 *
+	 * @throws InterruptedException
+	 */
+	protected void cleanSnapshots() throws InterruptedException {
+		if (deprecatedRows.get() * COMPACTION_RATIO < table.size()) {
+			return;
+		}
+		long startTime = System.currentTimeMillis();
+		QuadTable.Compaction compaction = table.startCompaction(currentSnapshot);
+		if (compaction == null) {
+			return;
+		}
+		int removed;
+		long lockTime;
+		Lock stWriteLock = statementListLockManager.getWriteLock();
+		try {
+			lockTime = System.currentTimeMillis();
+			removed = compaction.swap();
+			deprecatedRows.addAndGet(-removed);
+		} finally {
+			stWriteLock.release();
+		}
+		long endTime = System.currentTimeMillis();
+		lastCleanupDuration = endTime - startTime;
+		logger.debug("removed {} statements from the table in {} ms, {} ms of which under the write lock", removed,
+				lastCleanupDuration, endTime - lockTime);
+	}
+
+	protected void scheduleSnapshotCleanup() {
+		synchronized (snapshotCleanupThreadLockObject) {
+			Thread toCheckSnapshotCleanupThread = snapshotCleanupThread;
+			if (toCheckSnapshotCleanupThread == null || !toCheckSnapshotCleanupThread.isAlive()) {
+				Runnable runnable = () -> {
+					try {
+						cleanSnapshots();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						logger.warn("snapshot cleanup interrupted");
+					}
+				};
+
+				toCheckSnapshotCleanupThread = snapshotCleanupThread = new Thread(runnable,
+						"MemoryStore snapshot cleanup");
+				toCheckSnapshotCleanupThread.setDaemon(true);
+				toCheckSnapshotCleanupThread.start();
+			}
+		}
+	}
+
+	/**
+	 * A statement that has been read from a row of the table. The row is used to remove the statement without
+	 * searching for it, as long as the rows have not been renumbered.
+	 */
+	private static final class ColumnarStatement extends ContextStatement {
+
+		private static final long serialVersionUID = 5376283837839407283L;
+
+		private final int row;
+
+		private final int generation;
+
+		ColumnarStatement(Resource subject, IRI predicate, Value object, Resource context, int row,
+				int generation) {
+			super(subject, predicate, object, context);
+			this.row = row;
+			this.generation = generation;
+		}
+	}
+
+	/**
+	 * Iterates over the rows that match a pattern, by following the chain of the most selective bound value or by
+	 * scanning all rows.
+	 */
+	private final class RowIterator extends LookAheadIteration<ColumnarStatement, SailException> {
+
+		private final int[] ids;
+
+		/**
+		 * The allowed contexts, or <tt>null</tt> if any context is allowed.
+		 */
+		private final int[] contexts;
+
+		private final Boolean explicit;
+
+		private final int snapshot;
+
+		private final int size;
+
+		private final Columns columns;
+
+		private final int generation;
+
+		/**
+		 * The position of the chain that is followed, or <tt>-1</tt> to scan all rows.
+		 */
+		private final int pos;
+
+		private int row;
+
+		RowIterator(int subj, int pred, int obj, int[] contexts, Boolean explicit, int snapshot) {
+			this.ids = new int[] { subj, pred, obj };
+			this.contexts = contexts;
+			this.explicit = explicit;
+			this.snapshot = snapshot;
+			this.generation = table.getGeneration();
+			this.size = table.size();
+			this.columns = table.columns();
+			this.pos = smallestChain(columns, ids, size, contexts != null && contexts.length == 1 ? contexts[0] : -1);
+			this.row = pos < 0 ? -1 : -2;
+		}
+
+		@Override
+		protected ColumnarStatement getNextElement() {
+			Columns c = columns;
+			while (advance()) {
+				if (snapshot >= 0 && !c.isInSnapshot(row, snapshot)
+						|| explicit != null && explicit != c.explicit[row]) {
+					continue;
+				}
+				int subj = c.values[QuadTable.SUBJ][row];
+				int pred = c.values[QuadTable.PRED][row];
+				int obj = c.values[QuadTable.OBJ][row];
+				int context = c.values[QuadTable.CTX][row];
+				if (ids[0] > 0 && ids[0] != subj || ids[1] > 0 && ids[1] != pred || ids[2] > 0 && ids[2] != obj
+						|| !matchesContext(context)) {
+					continue;
+				}
+				return new ColumnarStatement((Resource) dictionary.getValue(subj), (IRI) dictionary.getValue(pred),
+						dictionary.getValue(obj), context == 0 ? null : (Resource) dictionary.getValue(context), row,
+						generation);
+			}
+			return null;
+		}
+
+		/**
+		 * Moves to the next candidate row.
+		 *
+		 * @return <tt>false</tt> if there are no more rows.
+		 */
+		private boolean advance() {
+			if (pos < 0) {
+				row++;
+			} else if (row == -2) {
+				int id = pos == QuadTable.CTX ? contexts[0] : ids[pos];
+				row = columns.first(pos, id);
+			} else {
+				row = columns.next[pos][row];
+			}
+			return row >= 0 && row < size;
+		}
+
+		private boolean matchesContext(int context) {
+			if (contexts == null) {
+				return true;
+			}
+			for (int c : contexts) {
+				if (c == context) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Uses the number of rows per value to give cost estimates based on the size of the expected results.
+	 */
+	private final class ColumnarEvaluationStatistics extends EvaluationStatistics {
+
+		@Override
+		protected CardinalityCalculator createCardinalityCalculator() {
+			return new ColumnarCardinalityCalculator();
+		}
+
+		private class ColumnarCardinalityCalculator extends CardinalityCalculator {
+
+			@Override
+			public double getCardinality(StatementPattern sp) {
+				Value subj = getConstantValue(sp.getSubjectVar());
+				if (!(subj instanceof Resource)) {
+					// can happen when a previous optimizer has inlined a comparison operator
+					subj = null;
+				}
+				Value pred = getConstantValue(sp.getPredicateVar());
+				if (!(pred instanceof IRI)) {
+					pred = null;
+				}
+				Value obj = getConstantValue(sp.getObjectVar());
+				Value context = getConstantValue(sp.getContextVar());
+				if (!(context instanceof Resource)) {
+					context = null;
+				}
+
+				int[] ids = { getId(subj), getId(pred), getId(obj), getId(context) };
+				int size = table.size();
+				Columns c = table.columns();
+				double cardinality = size;
+				for (int pos = QuadTable.SUBJ; pos <= QuadTable.CTX; pos++) {
+					if (ids[pos] < 0) {
+						// non-existent subject, predicate, object or context
+						return 0.0;
+					} else if (ids[pos] > 0) {
+						cardinality = Math.min(cardinality, c.count(pos, ids[pos]));
+					}
+				}
+				return cardinality;
+			}
+
+			private Value getConstantValue(Var var) {
+				if (var != null) {
+					return var.getValue();
+				}
+
+				return null;
+			}
+		}
+	}
+
+	private final class ColumnarSailSource extends BackingSailSource {
+
+		private final boolean explicit;
+
+		public ColumnarSailSource(boolean explicit) {
+			this.explicit = explicit;
+		}
+
+		@Override
+		public SailSink sink(IsolationLevel level) throws SailException {
+			return new ColumnarSailSink(explicit, level.isCompatibleWith(IsolationLevels.SERIALIZABLE));
+		}
+
+		@Override
+		public ColumnarSailDataset dataset(IsolationLevel level) throws SailException {
+			if (level.isCompatibleWith(IsolationLevels.SNAPSHOT_READ)) {
+				return new ColumnarSailDataset(explicit, currentSnapshot);
+			} else {
+				return new ColumnarSailDataset(explicit);
+			}
+		}
+	}
+
+	private final class ColumnarSailSink implements SailSink {
+
+		private final boolean explicit;
+
+		private final int serializable;
+
+		private final Lock txnStLock;
+
+		private volatile int nextSnapshot;
+
+		private volatile Set<StatementPattern> observations;
+
+		private volatile boolean txnLock;
+
+		private boolean requireCleanup;
+
+		public ColumnarSailSink(boolean explicit, boolean serializable) throws SailException {
+			this.explicit = explicit;
+			if (serializable) {
+				this.serializable = currentSnapshot;
+			} else {
+				this.serializable = Integer.MAX_VALUE;
+			}
+			txnStLock = openStatementsReadLock();
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			if (explicit) {
+				sb.append("explicit ");
+			} else {
+				sb.append("inferred ");
+			}
+			if (txnLock) {
+				sb.append("snapshot ").append(nextSnapshot);
+			} else {
+				sb.append(super.toString());
+			}
+			return sb.toString();
+		}
+
+		@Override
+		public synchronized void prepare() throws SailException {
+			acquireExclusiveTransactionLock();
+			if (observations != null) {
+				for (StatementPattern p : observations) {
+					Resource subj = (Resource) p.getSubjectVar().getValue();
+					IRI pred = (IRI) p.getPredicateVar().getValue();
+					Value obj = p.getObjectVar().getValue();
+					Var ctxVar = p.getContextVar();
+					Resource[] contexts;
+					if (ctxVar == null) {
+						contexts = new Resource[0];
+					} else {
+						contexts = new Resource[] { (Resource) ctxVar.getValue() };
+					}
+					try (CloseableIteration<ColumnarStatement, SailException> iter = createStatementIterator(subj,
+							pred, obj, null, -1, contexts)) {
+						Columns c = table.columns();
+						while (iter.hasNext()) {
+							int row = iter.next().row;
+							int since = c.since[row];
+							int till = c.till[row];
+							if (serializable < since && since < nextSnapshot
+									|| serializable < till && till < nextSnapshot) {
+								throw new SailConflictException("Observed State has Changed");
+							}
+						}
+					}
+				}
+			}
+		}
+
+		@Override
+		public synchronized void flush() throws SailException {
+			if (txnLock) {
+				currentSnapshot = Math.max(currentSnapshot, nextSnapshot);
+				if (requireCleanup) {
+					scheduleSnapshotCleanup();
+				}
+			}
+		}
+
+		@Override
+		public void close() {
+			try {
+				boolean toCloseTxnLock = txnLock;
+				txnLock = false;
+				if (toCloseTxnLock) {
+					txnLockManager.unlock();
+				}
+			} finally {
+				if (txnStLock != null) {
+					txnStLock.release();
+				}
+			}
+		}
+
+		@Override
+		public synchronized void setNamespace(String prefix, String name) throws SailException {
+			acquireExclusiveTransactionLock();
+			namespaceStore.setNamespace(prefix, name);
+		}
+
+		@Override
+		public synchronized void removeNamespace(String prefix) throws SailException {
+			acquireExclusiveTransactionLock();
+			namespaceStore.removeNamespace(prefix);
+		}
+
+		@Override
+		public synchronized void clearNamespaces() throws SailException {
+			acquireExclusiveTransactionLock();
+			namespaceStore.clear();
+		}
+
+		@Override
+		public synchronized void observe(Resource subj, IRI pred, Value obj, Resource... contexts)
+				throws SailException {
+			if (observations == null) {
+				observations = new HashSet<>();
+			}
+			if (contexts == null) {
+				observations.add(new StatementPattern(new Var("s", subj), new Var("p", pred), new Var("o", obj),
+						new Var("g", null)));
+			} else if (contexts.length == 0) {
+				observations.add(new StatementPattern(new Var("s", subj), new Var("p", pred), new Var("o", obj)));
+			} else {
+				for (Resource ctx : contexts) {
+					observations.add(new StatementPattern(new Var("s", subj), new Var("p", pred), new Var("o", obj),
+							new Var("g", ctx)));
+				}
+			}
+		}
+
+		@Override
+		public synchronized void clear(Resource... contexts) throws SailException {
+			acquireExclusiveTransactionLock();
+			requireCleanup = true;
+			deprecate(createStatementIterator(null, null, null, explicit, nextSnapshot, contexts));
+		}
+
+		@Override
+		public synchronized void approve(Resource subj, IRI pred, Value obj, Resource ctx) throws SailException {
+			acquireExclusiveTransactionLock();
+			addStatement(subj, pred, obj, ctx, explicit);
+		}
+
+		@Override
+		public synchronized void deprecate(Statement statement) throws SailException {
+			acquireExclusiveTransactionLock();
+			requireCleanup = true;
+			if (statement instanceof LinkedHashModel.ModelStatement) {
+				// The Changeset uses a LinkedHashModel to store it's changes. It still keeps a reference to the
+				// original statement that can be retrieved here.
+				Statement original = ((LinkedHashModel.ModelStatement) statement).getStatement();
+				if (original instanceof ColumnarStatement) {
+					statement = original;
+				}
+			}
+			if (statement instanceof ColumnarStatement
+					&& ((ColumnarStatement) statement).generation == table.getGeneration()) {
+				int row = ((ColumnarStatement) statement).row;
+				Columns c = table.columns();
+				if ((nextSnapshot < 0 || c.isInSnapshot(row, nextSnapshot)) && c.explicit[row] == explicit) {
+					deprecateRow(row);
+				}
+			} else {
+				deprecate(createStatementIterator(statement.getSubject(), statement.getPredicate(),
+						statement.getObject(), explicit, nextSnapshot, statement.getContext()));
+			}
+		}
+
+		private boolean deprecate(CloseableIteration<ColumnarStatement, SailException> iter) {
+			boolean deprecated = false;
+			try {
+				while (iter.hasNext()) {
+					deprecated = true;
+					deprecateRow(iter.next().row);
+				}
+			} finally {
+				iter.close();
+			}
+			return deprecated;
+		}
+
+		private void deprecateRow(int row) {
+			table.setTillSnapshot(row, nextSnapshot);
+			deprecatedRows.incrementAndGet();
+		}
+
+		private void acquireExclusiveTransactionLock() throws SailException {
+			if (!txnLock) {
+				txnLockManager.lock();
+				nextSnapshot = currentSnapshot + 1;
+				txnLock = true;
+			}
+		}
+
+		private void addStatement(Resource subj, IRI pred, Value obj, Resource context, boolean explicit)
+				throws SailException {
+			int s = dictionary.getOrCreateId(subj);
+			int p = dictionary.getOrCreateId(pred);
+			int o = dictionary.getOrCreateId(obj);
+			int c = context == null ? 0 : dictionary.getOrCreateId(context);
+
+			int row = findRow(s, p, o, c);
+			if (row >= 0) {
+				// statement is already present, update its transaction status if appropriate
+				Columns columns = table.columns();
+				if (!columns.explicit[row] && explicit) {
+					// Implicit statement is now added explicitly
+					deprecateRow(row);
+				} else if (!columns.isInSnapshot(row, nextSnapshot)) {
+					table.setSinceSnapshot(row, nextSnapshot);
+					return;
+				} else {
+					// statement already exists
+					return;
+				}
+			}
+
+			// completely new statement
+			table.add(s, p, o, c, explicit, nextSnapshot);
+		}
+
+		@Override
+		public boolean deprecateByQuery(Resource subj, IRI pred, Value obj, Resource[] contexts) {
+			acquireExclusiveTransactionLock();
+			requireCleanup = true;
+			return deprecate(createStatementIterator(subj, pred, obj, explicit, nextSnapshot, contexts));
+		}
+	}
+
+	private final class ColumnarSailDataset implements SailDataset {
+
+		private final boolean explicit;
+
+		private final int snapshot;
+
+		private final Lock lock;
+
+		public ColumnarSailDataset(boolean explicit) throws SailException {
+			this.explicit = explicit;
+			this.snapshot = -1;
+			this.lock = null;
+		}
+
+		public ColumnarSailDataset(boolean explicit, int snapshot) throws SailException {
+			this.explicit = explicit;
+			this.snapshot = snapshot;
+			this.lock = openStatementsReadLock();
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			if (explicit) {
+				sb.append("explicit ");
+			} else {
+				sb.append("inferred ");
+			}
+			if (snapshot >= 0) {
+				sb.append("snapshot ").append(snapshot);
+			} else {
+				sb.append(super.toString());
+			}
+			return sb.toString();
+		}
+
+		@Override
+		public void close() {
+			if (lock != null) {
+				// serializable read or higher isolation
+				lock.release();
+			}
+		}
+
+		@Override
+		public String getNamespace(String prefix) throws SailException {
+			return namespaceStore.getNamespace(prefix);
+		}
+
+		@Override
+		public CloseableIteration<? extends Namespace, SailException> getNamespaces() {
+			return new CloseableIteratorIteration<Namespace, SailException>(namespaceStore.iterator());
+		}
+
+		@Override
+		public CloseableIteration<? extends Resource, SailException> getContextIDs() throws SailException {
+			ArrayList<Resource> contextIDs = new ArrayList<>(32);
+
+			Lock stLock = openStatementsReadLock();
+			try {
+				int snapshot = getCurrentSnapshot();
+				int size = table.size();
+				Columns c = table.columns();
+				int[] next = c.next[QuadTable.CTX];
+				for (int id = 1, n = Math.min(dictionary.size() + 1, c.valueCapacity()); id < n; id++) {
+					for (int row = c.first(QuadTable.CTX, id); row >= 0 && row < size; row = next[row]) {
+						if (c.isInSnapshot(row, snapshot)) {
+							contextIDs.add((Resource) dictionary.getValue(id));
+							break;
+						}
+					}
+				}
+			} finally {
+				stLock.release();
+			}
+
+			return new CloseableIteratorIteration<>(contextIDs.iterator());
+		}
+
+		@Override
+		public CloseableIteration<? extends Statement, SailException> getStatements(Resource subj, IRI pred, Value obj,
+				Resource... contexts) throws SailException {
+			CloseableIteration<? extends Statement, SailException> stIter1 = null;
+			CloseableIteration<? extends Statement, SailException> stIter2 = null;
+			boolean allGood = false;
+			Lock stLock = openStatementsReadLock();
+			try {
+				stIter1 = createStatementIterator(subj, pred, obj, explicit, getCurrentSnapshot(), contexts);
+				stIter2 = new LockingIteration<Statement, SailException>(stLock, stIter1);
+				allGood = true;
+				return stIter2;
+			} finally {
+				if (!allGood) {
+					try {
+						stLock.release();
+					} finally {
+						try {
+							if (stIter2 != null) {
+								stIter2.close();
+							}
+						} finally {
+							if (stIter1 != null) {
+								stIter1.close();
+							}
+						}
+					}
+				}
+			}
+		}
+
+		@Override
+		public CloseableIteration<? extends Triple, SailException> getTriples(Resource subj, IRI pred, Value obj)
+				throws SailException {
+			CloseableIteration<? extends Triple, SailException> stIter1 = null;
+			CloseableIteration<? extends Triple, SailException> stIter2 = null;
+			boolean allGood = false;
+			Lock stLock = openStatementsReadLock();
+			try {
+				stIter1 = createTripleIterator(subj, pred, obj, getCurrentSnapshot());
+				stIter2 = new LockingIteration<Triple, SailException>(stLock, stIter1);
+				allGood = true;
+				return stIter2;
+			} finally {
+				if (!allGood) {
+					try {
+						stLock.release();
+					} finally {
+						try {
+							if (stIter2 != null) {
+								stIter2.close();
+							}
+						} finally {
+							if (stIter1 != null) {
+								stIter1.close();
+							}
+						}
+					}
+				}
+			}
+		}
+
+		private int getCurrentSnapshot() {
+			if (snapshot >= 0) {
+				return snapshot;
+			} else {
+				return currentSnapshot;
+			}
+		}
+	}
+}
@@ -7,12 +7,17 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.memory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
@@ -20,7 +25,17 @@ import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -32,15 +47,15 @@ import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Namespace;
 import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Triple;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
 import org.eclipse.rdf4j.model.util.Literals;
 import org.eclipse.rdf4j.sail.SailException;
 import org.eclipse.rdf4j.sail.base.SailDataset;
 import org.eclipse.rdf4j.sail.base.SailSink;
-import org.eclipse.rdf4j.sail.memory.model.MemIRI;
-import org.eclipse.rdf4j.sail.memory.model.MemResource;
-import org.eclipse.rdf4j.sail.memory.model.MemValue;
+import org.eclipse.rdf4j.sail.memory.model.MemValueFactory;
 
 /**
  * Functionality to read and write MemoryStore to/from a file.
@@ -60,7 +75,15 @@ class FileIO {
 	// Version 1: initial version
 	// Version 2: don't use read/writeUTF() to remove 64k limit on strings,
 	// removed dummy "up-to-date status" boolean for namespace records
-	private static final int BMSF_VERSION = 2;
+	// Version 3: split into separately compressed chunks that have their own value table, so that they can be decoded
+	// in parallel. Only written if chunked data files are requested, as earlier versions can not read it.
+	private static final int BMSF_VERSION = 3;
+
+	/** The version number of the format that is written if chunked data files are not requested. */
+	private static final int UNCHUNKED_BMSF_VERSION = 2;
+
+	/** The maximum number of statements in a chunk. */
+	private static final int CHUNK_SIZE = 64 * 1024;
 
 	/* RECORD TYPES */
 	public static final int NAMESPACE_MARKER = 1;
@@ -83,6 +106,31 @@ class FileIO {
 
 	public static final int DATATYPE_LITERAL_MARKER = 10;
 
+	public static final int TRIPLE_MARKER = 11;
+
+	public static final int NULL_MARKER = 12;
+
+	/* RECORD TYPES THAT ONLY OCCUR IN A CHANGE LOG */
+	public static final int REMOVE_NAMESPACE_MARKER = 13;
+
+	public static final int CLEAR_NAMESPACES_MARKER = 14;
+
+	public static final int EXPL_REMOVED_TRIPLE_MARKER = 15;
+
+	public static final int EXPL_REMOVED_QUAD_MARKER = 16;
+
+	public static final int INF_REMOVED_TRIPLE_MARKER = 17;
+
+	public static final int INF_REMOVED_QUAD_MARKER = 18;
+
+	public static final int EXPL_CLEAR_MARKER = 19;
+
+	public static final int INF_CLEAR_MARKER = 20;
+
+	public static final int EXPL_REMOVE_PATTERN_MARKER = 21;
+
+	public static final int INF_REMOVE_PATTERN_MARKER = 22;
+
 	public static final int EOF_MARKER = 127;
 
 	/*-----------*
@@ -97,12 +145,33 @@ class FileIO {
 
 	private int formatVersion;
 
+	/**
+	 * Flag indicating whether data files are written in chunks (format version 3) instead of in the format of version
+	 * 2.
+	 */
+	private final boolean chunked;
+
+	/**
+	 * The number of threads that decode the chunks of a data file.
+	 */
+	private final int loaderThreads;
+
 	/*--------------*
 	 * Constructors *
 	 *--------------*/
 
 	public FileIO(ValueFactory vf) {
+		this(vf, false);
+	}
+
+	public FileIO(ValueFactory vf, boolean chunked) {
+		this(vf, chunked, Runtime.getRuntime().availableProcessors());
+	}
+
+	public FileIO(ValueFactory vf, boolean chunked, int loaderThreads) {
 		this.vf = vf;
+		this.chunked = chunked;
+		this.loaderThreads = Math.max(1, loaderThreads);
 	}
 
 	/*---------*
@@ -132,15 +201,51 @@ class FileIO {
 	}
 
 	private void write(SailDataset explicit, SailDataset inferred, File dataFile) throws IOException, SailException {
+		if (!chunked) {
+			writeUnchunked(explicit, inferred, dataFile);
+			return;
+		}
+		try (DataOutputStream dataOut = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(dataFile.toPath())))) {
+			// Write header
+			dataOut.write(MAGIC_NUMBER);
+			dataOut.writeByte(BMSF_VERSION);
+
+			// The rest of the data is split into GZIP-compressed chunks
+			ChunkWriter chunkWriter = new ChunkWriter(dataOut);
+			try (CloseableIteration<? extends Namespace, SailException> iter = explicit.getNamespaces();) {
+				while (iter.hasNext()) {
+					Namespace ns = iter.next();
+					chunkWriter.addNamespace(ns.getPrefix(), ns.getName());
+				}
+			}
+			// write explicit only statements
+			chunkWriter.addStatements(explicit.getStatements(null, null, null), EXPL_TRIPLE_MARKER, EXPL_QUAD_MARKER);
+			// write inferred only statements
+			chunkWriter.addStatements(inferred.getStatements(null, null, null), INF_TRIPLE_MARKER, INF_QUAD_MARKER);
+			chunkWriter.close();
+		}
+	}
+
+	private void writeUnchunked(SailDataset explicit, SailDataset inferred, File dataFile)
+			throws IOException, SailException {
 		try (OutputStream out = Files.newOutputStream(dataFile.toPath())) {
 			// Write header
 			out.write(MAGIC_NUMBER);
-			out.write(BMSF_VERSION);
+			out.write(UNCHUNKED_BMSF_VERSION);
 			out.flush();
 			// The rest of the data is GZIP-compressed
 			try (DataOutputStream dataOut = new DataOutputStream(new GZIPOutputStream(out));) {
-				writeNamespaces(explicit, dataOut);
-				writeStatements(explicit, inferred, dataOut);
+				try (CloseableIteration<? extends Namespace, SailException> iter = explicit.getNamespaces();) {
+					while (iter.hasNext()) {
+						Namespace ns = iter.next();
+						writeNamespace(ns.getPrefix(), ns.getName(), dataOut);
+					}
+				}
+				// write explicit only statements
+				writeStatement(explicit.getStatements(null, null, null), EXPL_TRIPLE_MARKER, EXPL_QUAD_MARKER, dataOut);
+				// write inferred only statements
+				writeStatement(inferred.getStatements(null, null, null), INF_TRIPLE_MARKER, INF_QUAD_MARKER, dataOut);
 
 				dataOut.writeByte(EOF_MARKER);
 			}
@@ -160,6 +265,11 @@ class FileIO {
 				throw new IOException("Incompatible format version: " + formatVersion);
 			}
 
+			if (formatVersion >= 3) {
+				readChunks(new DataInputStream(new BufferedInputStream(in)), explicit, inferred);
+				return;
+			}
+
 			// The rest of the data is GZIP-compressed
 			try (DataInputStream dataIn = new DataInputStream(new GZIPInputStream(in));) {
 				int recordTypeMarker;
@@ -188,17 +298,206 @@ class FileIO {
 		}
 	}
 
-	private void writeNamespaces(SailDataset store, DataOutputStream dataOut) throws IOException, SailException {
-		try (CloseableIteration<? extends Namespace, SailException> iter = store.getNamespaces();) {
-			while (iter.hasNext()) {
-				Namespace ns = iter.next();
-				dataOut.writeByte(NAMESPACE_MARKER);
-				writeString(ns.getPrefix(), dataOut);
-				writeString(ns.getName(), dataOut);
+	/**
+	 * Reads the chunks of a data file. A pool of threads inflates the chunks and decodes their values into plain
+	 * {@link Value} objects, without touching the value factory. The calling thread then adds the decoded chunks to the
+	 * sinks in the order of the file, which maps their values to the values of the store once per chunk. As the sinks
+	 * are not safe for concurrent use, this part of the load is not parallelized.
+	 */
+	private void readChunks(DataInputStream dataIn, SailSink explicit, SailSink inferred)
+			throws IOException, SailException {
+		ExecutorService executor = Executors.newFixedThreadPool(loaderThreads, r -> {
+			Thread t = Executors.defaultThreadFactory().newThread(r);
+			t.setName("MemoryStore loader " + t.getName());
+			t.setDaemon(true);
+			return t;
+		});
+		// limits the number of decoded chunks that are waiting to be added
+		int maxPending = loaderThreads * 2;
+		Deque<Future<Chunk>> pending = new ArrayDeque<>(maxPending + 1);
+		try {
+			int chunkLength;
+			while ((chunkLength = dataIn.readInt()) > 0) {
+				byte[] compressed = new byte[chunkLength];
+				dataIn.readFully(compressed);
+				// the decoders have their own charset decoder, and don't contend on the value factory's lock
+				pending.add(executor.submit(() -> new FileIO(SimpleValueFactory.getInstance()).readChunk(compressed)));
+				if (pending.size() > maxPending) {
+					getChunk(pending.poll()).addTo(vf, explicit, inferred);
+				}
+			}
+			while (!pending.isEmpty()) {
+				getChunk(pending.poll()).addTo(vf, explicit, inferred);
+			}
+		} finally {
+			for (Future<Chunk> future : pending) {
+				future.cancel(true);
+			}
+			executor.shutdownNow();
+		}
+	}
+
+	private Chunk getChunk(Future<Chunk> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while reading data file");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	private Chunk readChunk(byte[] compressed) throws IOException, ClassCastException {
+		formatVersion = BMSF_VERSION;
+		try (DataInputStream dataIn = new DataInputStream(
+				new GZIPInputStream(new ByteArrayInputStream(compressed), compressed.length))) {
+			String[] namespaces = new String[dataIn.readInt() * 2];
+			for (int i = 0; i < namespaces.length; i++) {
+				namespaces[i] = readString(dataIn);
+			}
+			Value[] values = new Value[dataIn.readInt()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = readValue(dataIn);
+			}
+			int statementCount = dataIn.readInt();
+			byte[] markers = new byte[statementCount];
+			int[] ids = new int[statementCount * 4];
+			for (int i = 0; i < statementCount; i++) {
+				int marker = dataIn.readByte();
+				if (marker != EXPL_TRIPLE_MARKER && marker != EXPL_QUAD_MARKER && marker != INF_TRIPLE_MARKER
+						&& marker != INF_QUAD_MARKER) {
+					throw new IOException("Invalid record type marker: " + marker);
+				}
+				markers[i] = (byte) marker;
+				ids[i * 4] = dataIn.readInt();
+				ids[i * 4 + 1] = dataIn.readInt();
+				ids[i * 4 + 2] = dataIn.readInt();
+				boolean hasContext = marker == EXPL_QUAD_MARKER || marker == INF_QUAD_MARKER;
+				ids[i * 4 + 3] = hasContext ? dataIn.readInt() : -1;
+			}
+			return new Chunk(namespaces, values, markers, ids);
+		}
+	}
+
+	/**
+	 * Reads the records of a change log, up to the next {@link #EOF_MARKER}, and applies them to the sinks.
+	 */
+	public synchronized void readChanges(DataInputStream dataIn, SailSink explicit, SailSink inferred)
+			throws IOException, SailException {
+		formatVersion = BMSF_VERSION;
+		int recordTypeMarker;
+		while ((recordTypeMarker = dataIn.readByte()) != EOF_MARKER) {
+			switch (recordTypeMarker) {
+			case NAMESPACE_MARKER:
+				readNamespace(dataIn, explicit);
+				break;
+			case REMOVE_NAMESPACE_MARKER:
+				explicit.removeNamespace(readString(dataIn));
+				break;
+			case CLEAR_NAMESPACES_MARKER:
+				explicit.clearNamespaces();
+				break;
+			case EXPL_TRIPLE_MARKER:
+				readStatement(false, true, dataIn, explicit, inferred);
+				break;
+			case EXPL_QUAD_MARKER:
+				readStatement(true, true, dataIn, explicit, inferred);
+				break;
+			case INF_TRIPLE_MARKER:
+				readStatement(false, false, dataIn, explicit, inferred);
+				break;
+			case INF_QUAD_MARKER:
+				readStatement(true, false, dataIn, explicit, inferred);
+				break;
+			case EXPL_REMOVED_TRIPLE_MARKER:
+				readRemovedStatement(false, dataIn, explicit);
+				break;
+			case EXPL_REMOVED_QUAD_MARKER:
+				readRemovedStatement(true, dataIn, explicit);
+				break;
+			case INF_REMOVED_TRIPLE_MARKER:
+				readRemovedStatement(false, dataIn, inferred);
+				break;
+			case INF_REMOVED_QUAD_MARKER:
+				readRemovedStatement(true, dataIn, inferred);
+				break;
+			case EXPL_CLEAR_MARKER:
+				explicit.clear(readContexts(dataIn));
+				break;
+			case INF_CLEAR_MARKER:
+				inferred.clear(readContexts(dataIn));
+				break;
+			case EXPL_REMOVE_PATTERN_MARKER:
+				readRemovedPattern(dataIn, explicit);
+				break;
+			case INF_REMOVE_PATTERN_MARKER:
+				readRemovedPattern(dataIn, inferred);
+				break;
+			default:
+				throw new IOException("Invalid record type marker: " + recordTypeMarker);
 			}
 		}
 	}
 
+	public synchronized void writeNamespace(String prefix, String name, DataOutputStream dataOut) throws IOException {
+		dataOut.writeByte(NAMESPACE_MARKER);
+		writeString(prefix, dataOut);
+		writeString(name, dataOut);
+	}
+
+	public synchronized void writeRemovedNamespace(String prefix, DataOutputStream dataOut) throws IOException {
+		dataOut.writeByte(REMOVE_NAMESPACE_MARKER);
+		writeString(prefix, dataOut);
+	}
+
+	public synchronized void writeClearedNamespaces(DataOutputStream dataOut) throws IOException {
+		dataOut.writeByte(CLEAR_NAMESPACES_MARKER);
+	}
+
+	public synchronized void writeStatement(Resource subj, IRI pred, Value obj, Resource context, boolean explicit,
+			DataOutputStream dataOut) throws IOException {
+		if (explicit) {
+			writeStatement(subj, pred, obj, context, EXPL_TRIPLE_MARKER, EXPL_QUAD_MARKER, dataOut);
+		} else {
+			writeStatement(subj, pred, obj, context, INF_TRIPLE_MARKER, INF_QUAD_MARKER, dataOut);
+		}
+	}
+
+	public synchronized void writeRemovedStatement(Statement st, boolean explicit, DataOutputStream dataOut)
+			throws IOException {
+		if (explicit) {
+			writeStatement(st.getSubject(), st.getPredicate(), st.getObject(), st.getContext(),
+					EXPL_REMOVED_TRIPLE_MARKER, EXPL_REMOVED_QUAD_MARKER, dataOut);
+		} else {
+			writeStatement(st.getSubject(), st.getPredicate(), st.getObject(), st.getContext(),
+					INF_REMOVED_TRIPLE_MARKER, INF_REMOVED_QUAD_MARKER, dataOut);
+		}
+	}
+
+	public synchronized void writeClear(Resource[] contexts, boolean explicit, DataOutputStream dataOut)
+			throws IOException {
+		dataOut.writeByte(explicit ? EXPL_CLEAR_MARKER : INF_CLEAR_MARKER);
+		writeContexts(contexts, dataOut);
+	}
+
+	public synchronized void writeRemovedPattern(Resource subj, IRI pred, Value obj, Resource[] contexts,
+			boolean explicit, DataOutputStream dataOut) throws IOException {
+		dataOut.writeByte(explicit ? EXPL_REMOVE_PATTERN_MARKER : INF_REMOVE_PATTERN_MARKER);
+		writeNullableValue(subj, dataOut);
+		writeNullableValue(pred, dataOut);
+		writeNullableValue(obj, dataOut);
+		writeContexts(contexts, dataOut);
+	}
+
 	private void readNamespace(DataInputStream dataIn, SailSink store) throws IOException, SailException {
 		String prefix = readString(dataIn);
 		String name = readString(dataIn);
@@ -211,51 +510,94 @@ class FileIO {
 		store.setNamespace(prefix, name);
 	}
 
-	private void writeStatements(final SailDataset explicit, SailDataset inferred, DataOutputStream dataOut)
-			throws IOException, SailException {
-		// write explicit only statements
-		writeStatement(explicit.getStatements(null, null, null), EXPL_TRIPLE_MARKER, EXPL_QUAD_MARKER, dataOut);
-		// write inferred only statements
-		writeStatement(inferred.getStatements(null, null, null), INF_TRIPLE_MARKER, INF_QUAD_MARKER, dataOut);
-	}
-
 	public void writeStatement(CloseableIteration<? extends Statement, SailException> stIter, int tripleMarker,
 			int quadMarker, DataOutputStream dataOut) throws IOException, SailException {
 		try {
 			while (stIter.hasNext()) {
 				Statement st = stIter.next();
-				Resource context = st.getContext();
-				if (context == null) {
-					dataOut.writeByte(tripleMarker);
-				} else {
-					dataOut.writeByte(quadMarker);
-				}
-				writeValue(st.getSubject(), dataOut);
-				writeValue(st.getPredicate(), dataOut);
-				writeValue(st.getObject(), dataOut);
-				if (context != null) {
-					writeValue(context, dataOut);
-				}
+				writeStatement(st.getSubject(), st.getPredicate(), st.getObject(), st.getContext(), tripleMarker,
+						quadMarker, dataOut);
 			}
 		} finally {
 			stIter.close();
 		}
 	}
 
+	private void writeStatement(Resource subj, IRI pred, Value obj, Resource context, int tripleMarker,
+			int quadMarker, DataOutputStream dataOut) throws IOException {
+		if (context == null) {
+			dataOut.writeByte(tripleMarker);
+		} else {
+			dataOut.writeByte(quadMarker);
+		}
+		writeValue(subj, dataOut);
+		writeValue(pred, dataOut);
+		writeValue(obj, dataOut);
+		if (context != null) {
+			writeValue(context, dataOut);
+		}
+	}
+
 	private void readStatement(boolean hasContext, boolean isExplicit, DataInputStream dataIn, SailSink explicit,
 			SailSink inferred) throws IOException, ClassCastException, SailException {
-		MemResource memSubj = (MemResource) readValue(dataIn);
-		MemIRI memPred = (MemIRI) readValue(dataIn);
-		MemValue memObj = (MemValue) readValue(dataIn);
-		MemResource memContext = null;
+		Resource subj = (Resource) readValue(dataIn);
+		IRI pred = (IRI) readValue(dataIn);
+		Value obj = readValue(dataIn);
+		Resource context = null;
 		if (hasContext) {
-			memContext = (MemResource) readValue(dataIn);
+			context = (Resource) readValue(dataIn);
 		}
 
 		if (isExplicit) {
-			explicit.approve(memSubj, memPred, memObj, memContext);
+			explicit.approve(subj, pred, obj, context);
+		} else {
+			inferred.approve(subj, pred, obj, context);
+		}
+	}
+
+	private void readRemovedStatement(boolean hasContext, DataInputStream dataIn, SailSink sink)
+			throws IOException, ClassCastException, SailException {
+		Resource subj = (Resource) readValue(dataIn);
+		IRI pred = (IRI) readValue(dataIn);
+		Value obj = readValue(dataIn);
+		Resource context = null;
+		if (hasContext) {
+			context = (Resource) readValue(dataIn);
+		}
+
+		sink.deprecate(vf.createStatement(subj, pred, obj, context));
+	}
+
+	private void readRemovedPattern(DataInputStream dataIn, SailSink sink)
+			throws IOException, ClassCastException, SailException {
+		Resource subj = (Resource) readValue(dataIn);
+		IRI pred = (IRI) readValue(dataIn);
+		Value obj = readValue(dataIn);
+		Resource[] contexts = readContexts(dataIn);
+
+		sink.deprecateByQuery(subj, pred, obj, contexts);
+	}
+
+	private void writeContexts(Resource[] contexts, DataOutputStream dataOut) throws IOException {
+		dataOut.writeInt(contexts.length);
+		for (Resource context : contexts) {
+			writeNullableValue(context, dataOut);
+		}
+	}
+
+	private Resource[] readContexts(DataInputStream dataIn) throws IOException, ClassCastException {
+		Resource[] contexts = new Resource[dataIn.readInt()];
+		for (int i = 0; i < contexts.length; i++) {
+			contexts[i] = (Resource) readValue(dataIn);
+		}
+		return contexts;
+	}
+
+	private void writeNullableValue(Value value, DataOutputStream dataOut) throws IOException {
+		if (value == null) {
+			dataOut.writeByte(NULL_MARKER);
 		} else {
-			inferred.approve(memSubj, memPred, memObj, memContext);
+			writeValue(value, dataOut);
 		}
 	}
 
@@ -281,6 +623,12 @@ class FileIO {
 				writeString(label, dataOut);
 				writeValue(datatype, dataOut);
 			}
+		} else if (value instanceof Triple) {
+			Triple triple = (Triple) value;
+			dataOut.writeByte(TRIPLE_MARKER);
+			writeValue(triple.getSubject(), dataOut);
+			writeValue(triple.getPredicate(), dataOut);
+			writeValue(triple.getObject(), dataOut);
 		} else {
 			throw new IllegalArgumentException("unexpected value type: " + value.getClass());
 		}
@@ -306,6 +654,13 @@ class FileIO {
 			String label = readString(dataIn);
 			IRI datatype = (IRI) readValue(dataIn);
 			return vf.createLiteral(label, datatype);
+		} else if (valueTypeMarker == TRIPLE_MARKER) {
+			Resource subj = (Resource) readValue(dataIn);
+			IRI pred = (IRI) readValue(dataIn);
+			Value obj = readValue(dataIn);
+			return vf.createTriple(subj, pred, obj);
+		} else if (valueTypeMarker == NULL_MARKER) {
+			return null;
 		} else {
 			throw new IOException("Invalid value type marker: " + valueTypeMarker);
 		}
@@ -350,4 +705,151 @@ class FileIO {
 
 		return charBuf.toString();
 	}
+
+	/**
+	 * Writes chunks of at most {@link #CHUNK_SIZE} statements. A chunk is GZIP-compressed on its own and is preceded by
+	 * its compressed length. It consists of its namespaces, a table of the values that its statements use, and the
+	 * statements, which refer to the values by their index in the table.
+	 */
+	private final class ChunkWriter {
+
+		private final DataOutputStream dataOut;
+
+		private final List<String> namespaces = new ArrayList<>();
+
+		private final Map<Value, Integer> valueIds = new HashMap<>();
+
+		private final ByteArrayOutputStream valueBuffer = new ByteArrayOutputStream();
+
+		private final DataOutputStream valueOut = new DataOutputStream(valueBuffer);
+
+		private final ByteArrayOutputStream statementBuffer = new ByteArrayOutputStream();
+
+		private final DataOutputStream statementOut = new DataOutputStream(statementBuffer);
+
+		private int statementCount;
+
+		public ChunkWriter(DataOutputStream dataOut) {
+			this.dataOut = dataOut;
+		}
+
+		public void addNamespace(String prefix, String name) {
+			namespaces.add(prefix);
+			namespaces.add(name);
+		}
+
+		public void addStatements(CloseableIteration<? extends Statement, SailException> stIter, int tripleMarker,
+				int quadMarker) throws IOException, SailException {
+			try {
+				while (stIter.hasNext()) {
+					Statement st = stIter.next();
+					Resource context = st.getContext();
+					statementOut.writeByte(context == null ? tripleMarker : quadMarker);
+					statementOut.writeInt(getId(st.getSubject()));
+					statementOut.writeInt(getId(st.getPredicate()));
+					statementOut.writeInt(getId(st.getObject()));
+					if (context != null) {
+						statementOut.writeInt(getId(context));
+					}
+					if (++statementCount == CHUNK_SIZE) {
+						writeChunk();
+					}
+				}
+			} finally {
+				stIter.close();
+			}
+		}
+
+		private int getId(Value value) throws IOException {
+			Integer id = valueIds.get(value);
+			if (id == null) {
+				id = valueIds.size();
+				valueIds.put(value, id);
+				writeValue(value, valueOut);
+			}
+			return id;
+		}
+
+		private void writeChunk() throws IOException {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(statementBuffer.size());
+			try (DataOutputStream chunkOut = new DataOutputStream(new GZIPOutputStream(compressed))) {
+				chunkOut.writeInt(namespaces.size() / 2);
+				for (String s : namespaces) {
+					writeString(s, chunkOut);
+				}
+				chunkOut.writeInt(valueIds.size());
+				valueOut.flush();
+				valueBuffer.writeTo(chunkOut);
+				chunkOut.writeInt(statementCount);
+				statementOut.flush();
+				statementBuffer.writeTo(chunkOut);
+			}
+			dataOut.writeInt(compressed.size());
+			compressed.writeTo(dataOut);
+
+			namespaces.clear();
+			valueIds.clear();
+			valueBuffer.reset();
+			statementBuffer.reset();
+			statementCount = 0;
+		}
+
+		/**
+		 * Writes the last chunk, followed by a zero length.
+		 */
+		public void close() throws IOException {
+			if (statementCount > 0 || !namespaces.isEmpty()) {
+				writeChunk();
+			}
+			dataOut.writeInt(0);
+		}
+	}
+
+	/**
+	 * A decoded chunk of a data file.
+	 */
+	private static final class Chunk {
+
+		private final String[] namespaces;
+
+		private final Value[] values;
+
+		private final byte[] markers;
+
+		private final int[] ids;
+
+		public Chunk(String[] namespaces, Value[] values, byte[] markers, int[] ids) {
+			this.namespaces = namespaces;
+			this.values = values;
+			this.markers = markers;
+			this.ids = ids;
+		}
+
+		public void addTo(ValueFactory vf, SailSink explicit, SailSink inferred)
+				throws ClassCastException, SailException {
+			for (int i = 0; i < namespaces.length; i += 2) {
+				explicit.setNamespace(namespaces[i], namespaces[i + 1]);
+			}
+			if (vf instanceof MemValueFactory) {
+				// look up every value of the table once, instead of once for every statement that uses it
+				MemValueFactory memValueFactory = (MemValueFactory) vf;
+				for (int i = 0; i < values.length; i++) {
+					values[i] = memValueFactory.getOrCreateMemValue(values[i]);
+				}
+			}
+			for (int i = 0; i < markers.length; i++) {
+				Resource subj = (Resource) values[ids[i * 4]];
+				IRI pred = (IRI) values[ids[i * 4 + 1]];
+				Value obj = values[ids[i * 4 + 2]];
+				int contextId = ids[i * 4 + 3];
+				Resource context = contextId < 0 ? null : (Resource) values[contextId];
+
+				if (markers[i] == EXPL_TRIPLE_MARKER || markers[i] == EXPL_QUAD_MARKER) {
+					explicit.approve(subj, pred, obj, context);
+				} else {
+					inferred.approve(subj, pred, obj, context);
+				}
+			}
+		}
+	}
 }
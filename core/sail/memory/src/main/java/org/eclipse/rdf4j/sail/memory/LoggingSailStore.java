@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.eclipse.rdf4j.IsolationLevel;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.base.BackingSailSource;
+import org.eclipse.rdf4j.sail.base.SailDataset;
+import org.eclipse.rdf4j.sail.base.SailSink;
+import org.eclipse.rdf4j.sail.base.SailSource;
+import org.eclipse.rdf4j.sail.base.SailStore;
+
+/**
+ * A {@link SailStore} that records the changes made through the sinks of another store, and appends them to a
+ * {@link WriteAheadLog} when the sinks are flushed. The log is locked while a change set is appended and flushed to
+ * the other store, so that the order of the change sets in the log is the order in which they were committed.
+ * <p>
+ * The change sets that a thread flushes between {@link #beginCommit()} and {@link #endCommit(boolean)} belong to one
+ * transaction, which is only replayed once its commit marker has been appended to the log.
+ */
+class LoggingSailStore implements SailStore {
+
+	private final SailStore store;
+
+	private final WriteAheadLog log;
+
+	/**
+	 * The transaction of the commit that the current thread performs, if any.
+	 */
+	private final ThreadLocal<Transaction> transactions = new ThreadLocal<>();
+
+	public LoggingSailStore(SailStore store, WriteAheadLog log) {
+		this.store = store;
+		this.log = log;
+	}
+
+	@Override
+	public ValueFactory getValueFactory() {
+		return store.getValueFactory();
+	}
+
+	@Override
+	public EvaluationStatistics getEvaluationStatistics() {
+		return store.getEvaluationStatistics();
+	}
+
+	@Override
+	public SailSource getExplicitSailSource() {
+		return new LoggingSailSource(store.getExplicitSailSource(), true);
+	}
+
+	@Override
+	public SailSource getInferredSailSource() {
+		return new LoggingSailSource(store.getInferredSailSource(), false);
+	}
+
+	@Override
+	public void close() throws SailException {
+		store.close();
+	}
+
+	/**
+	 * Starts a transaction for the change sets that the current thread flushes until {@link #endCommit(boolean)}.
+	 */
+	void beginCommit() {
+		transactions.set(new Transaction(log.nextTransaction()));
+	}
+
+	/**
+	 * Ends the transaction of the current thread, and appends its commit marker to the log if all of its change sets
+	 * have been flushed.
+	 *
+	 * @param completed <tt>true</tt> if the commit succeeded.
+	 */
+	void endCommit(boolean completed) throws SailException {
+		Transaction transaction = transactions.get();
+		transactions.remove();
+		if (completed && transaction != null && transaction.logged) {
+			try {
+				log.commit(transaction.id);
+			} catch (IOException e) {
+				throw new SailException("Failed to append to the MemoryStore log", e);
+			}
+		}
+	}
+
+	private final class LoggingSailSource extends BackingSailSource {
+
+		private final SailSource source;
+
+		private final boolean explicit;
+
+		public LoggingSailSource(SailSource source, boolean explicit) {
+			this.source = source;
+			this.explicit = explicit;
+		}
+
+		@Override
+		public SailSink sink(IsolationLevel level) throws SailException {
+			return new LoggingSailSink(source.sink(level), explicit);
+		}
+
+		@Override
+		public SailDataset dataset(IsolationLevel level) throws SailException {
+			return source.dataset(level);
+		}
+	}
+
+	private final class LoggingSailSink implements SailSink {
+
+		private final SailSink sink;
+
+		private final boolean explicit;
+
+		private final FileIO fileIO = new FileIO(store.getValueFactory());
+
+		private final RecordBuffer buffer = new RecordBuffer();
+
+		private final DataOutputStream out = new DataOutputStream(buffer);
+
+		public LoggingSailSink(SailSink sink, boolean explicit) {
+			this.sink = sink;
+			this.explicit = explicit;
+		}
+
+		@Override
+		public void prepare() throws SailException {
+			sink.prepare();
+		}
+
+		@Override
+		public synchronized void flush() throws SailException {
+			try {
+				synchronized (log) {
+					if (buffer.size() > 0) {
+						out.writeByte(FileIO.EOF_MARKER);
+						out.flush();
+						Transaction transaction = transactions.get();
+						if (transaction != null) {
+							transaction.logged = true;
+							buffer.appendTo(log, transaction.id);
+						} else {
+							buffer.appendTo(log, WriteAheadLog.NO_TRANSACTION);
+						}
+					}
+					sink.flush();
+				}
+				buffer.reset();
+			} catch (IOException e) {
+				throw new SailException("Failed to append to the MemoryStore log", e);
+			}
+		}
+
+		@Override
+		public synchronized void setNamespace(String prefix, String name) throws SailException {
+			sink.setNamespace(prefix, name);
+			try {
+				fileIO.writeNamespace(prefix, name, out);
+			} catch (IOException e) {
+				throw new SailException(e);
+			}
+		}
+
+		@Override
+		public synchronized void removeNamespace(String prefix) throws SailException {
+			sink.removeNamespace(prefix);
+			try {
+				fileIO.writeRemovedNamespace(prefix, out);
+			} catch (IOException e) {
+				throw new SailException(e);
+			}
+		}
+
+		@Override
+		public synchronized void clearNamespaces() throws SailException {
+			sink.clearNamespaces();
+			try {
+				fileIO.writeClearedNamespaces(out);
+			} catch (IOException e) {
+				throw new SailException(e);
+			}
+		}
+
+		@Override
+		public synchronized void clear(Resource... contexts) throws SailException {
+			sink.clear(contexts);
+			try {
+				fileIO.writeClear(contexts, explicit, out);
+			} catch (IOException e) {
+				throw new SailException(e);
+			}
+		}
+
+		@Override
+		public void observe(Resource subj, IRI pred, Value obj, Resource... contexts) throws SailException {
+			sink.observe(subj, pred, obj, contexts);
+		}
+
+		@Override
+		public synchronized void approve(Resource subj, IRI pred, Value obj, Resource ctx) throws SailException {
+			sink.approve(subj, pred, obj, ctx);
+			try {
+				fileIO.writeStatement(subj, pred, obj, ctx, explicit, out);
+			} catch (IOException e) {
+				throw new SailException(e);
+			}
+		}
+
+		@Override
+		public synchronized void deprecate(Statement statement) throws SailException {
+			sink.deprecate(statement);
+			try {
+				fileIO.writeRemovedStatement(statement, explicit, out);
+			} catch (IOException e) {
+				throw new SailException(e);
+			}
+		}
+
+		@Override
+		public synchronized boolean deprecateByQuery(Resource subj, IRI pred, Value obj, Resource[] contexts) {
+			boolean deprecated = sink.deprecateByQuery(subj, pred, obj, contexts);
+			if (deprecated) {
+				try {
+					fileIO.writeRemovedPattern(subj, pred, obj, contexts, explicit, out);
+				} catch (IOException e) {
+					throw new SailException(e);
+				}
+			}
+			return deprecated;
+		}
+
+		@Override
+		public boolean supportsDeprecateByQuery() {
+			return sink.supportsDeprecateByQuery();
+		}
+
+		@Override
+		public void close() throws SailException {
+			sink.close();
+		}
+	}
+
+	/**
+	 * Gives access to the buffer of a {@link ByteArrayOutputStream}, to append it to the log without copying it.
+	 */
+	private static final class RecordBuffer extends ByteArrayOutputStream {
+
+		public void appendTo(WriteAheadLog log, long transaction) throws IOException {
+			log.append(transaction, buf, count);
+		}
+	}
+
+	private static final class Transaction {
+
+		private final long id;
+
+		/**
+		 * Whether a change set of this transaction has been appended to the log.
+		 */
+		private boolean logged;
+
+		public Transaction(long id) {
+			this.id = id;
+		}
+	}
+}
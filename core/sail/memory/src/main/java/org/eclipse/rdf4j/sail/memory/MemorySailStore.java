@@ -10,7 +10,11 @@ package org.eclipse.rdf4j.sail.memory;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.rdf4j.IsolationLevel;
@@ -58,6 +62,17 @@ import org.slf4j.LoggerFactory;
  */
 class MemorySailStore implements SailStore {
 
+	/**
+	 * The number of statements that the snapshot cleanup checks before it hands the statement lists back to other
+	 * threads.
+	 */
+	private static final int CLEANUP_BATCH_SIZE = 1024;
+
+	/**
+	 * The fraction of the statements that needs to be deprecated before they are removed from {@link #statements}.
+	 */
+	private static final int STATEMENT_LIST_CLEANUP_RATIO = 8;
+
 	private final Logger logger = LoggerFactory.getLogger(MemorySailStore.class);
 
 	/**
@@ -101,6 +116,22 @@ class MemorySailStore implements SailStore {
 	 */
 	private final Object snapshotCleanupThreadLockObject = new Object();
 
+	/**
+	 * Statements that have been deprecated, but that have not been removed from the statement lists of their values
+	 * yet.
+	 */
+	private final Queue<MemStatement> deprecatedStatements = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * The number of deprecated statements in {@link #statements}.
+	 */
+	private final AtomicLong deprecatedStatementCount = new AtomicLong();
+
+	/**
+	 * The duration of the last snapshot cleanup in milliseconds.
+	 */
+	private volatile long lastCleanupDuration;
+
 	public MemorySailStore(boolean debug) {
 		statementListLockManager = new ReadPrefReadWriteLockManager(debug);
 	}
@@ -117,6 +148,8 @@ class MemorySailStore implements SailStore {
 			try {
 				valueFactory.clear();
 				statements.clear();
+				deprecatedStatements.clear();
+				deprecatedStatementCount.set(0);
 			} finally {
 				stLock.release();
 			}
@@ -266,79 +299,105 @@ class MemorySailStore implements SailStore {
 	}
 
 	/**
-	 * Removes statements from old snapshots from the main statement list and resets the snapshot to 1 for the rest of
-	 * the statements.
+	 * @return The number of statements that have been deprecated, but that are still held in memory.
+	 */
+	long getDeprecatedStatementCount() {
+		return deprecatedStatementCount.get();
+	}
+
+	/**
+	 * @return The duration of the last snapshot cleanup in milliseconds.
+	 */
+	long getLastCleanupDuration() {
+		return lastCleanupDuration;
+	}
+
+	/**
+	 * Removes statements from old snapshots from the statement lists of their values, and from the main statement list
+	 * once enough of them have accumulated there. The lists are cleaned up in batches of
+	 * {@link #CLEANUP_BATCH_SIZE} statements, and the write lock is released between batches so that transactions
+	 * are not blocked for the duration of the whole cleanup.
 	 *
 	 * @throws InterruptedException
 	 */
 	protected void cleanSnapshots() throws InterruptedException {
-		// System.out.println("cleanSnapshots() starting...");
-		// long startTime = System.currentTimeMillis();
-
-		// Sets used to keep track of which lists have already been processed
-		HashSet<MemValue> processedSubjects = new HashSet<>();
-		HashSet<MemValue> processedPredicates = new HashSet<>();
-		HashSet<MemValue> processedObjects = new HashSet<>();
-		HashSet<MemValue> processedContexts = new HashSet<>();
-
-		int lastStmtPos;
-		Lock stReadLock = statementListLockManager.getReadLock();
-		try {
-			lastStmtPos = statements.size() - 1;
-		} finally {
-			stReadLock.release();
-		}
-
-		/*
-		 * The order of the statement list won't change from lastStmtPos down while we don't have the write lock (it
-		 * might shrink or grow) as (1) new statements are always appended last, (2) we are the only process that
-		 * removes statements, (3) this list is cleared on close.
-		 */
-
+		long startTime = System.currentTimeMillis();
 		int nextSnapshot = currentSnapshot;
-		for (int i = lastStmtPos; i >= 0; i--) {
-			// As we are running in the background, yield the write lock frequently to other writers.
-			Lock stWriteLock = statementListLockManager.getWriteLock();
-			try {
-				// guard against shrinkage, e.g. clear() on close()
-				lastStmtPos = statements.size() - 1;
-				i = Math.min(i, lastStmtPos);
-				if (i >= 0) {
-					MemStatement st = statements.get(i);
-
-					if (st.getTillSnapshot() <= nextSnapshot) {
-						MemResource subj = st.getSubject();
-						if (processedSubjects.add(subj)) {
-							subj.cleanSnapshotsFromSubjectStatements(nextSnapshot);
-						}
-
-						MemIRI pred = st.getPredicate();
-						if (processedPredicates.add(pred)) {
-							pred.cleanSnapshotsFromPredicateStatements(nextSnapshot);
-						}
 
-						MemValue obj = st.getObject();
-						if (processedObjects.add(obj)) {
-							obj.cleanSnapshotsFromObjectStatements(nextSnapshot);
-						}
+		// Sets used to keep track of which lists need to be processed
+		Set<MemResource> subjects = new HashSet<>();
+		Set<MemIRI> predicates = new HashSet<>();
+		Set<MemValue> objects = new HashSet<>();
+		Set<MemResource> contexts = new HashSet<>();
+
+		// statements deprecated by transactions that have not been flushed yet are kept for a later cleanup
+		List<MemStatement> pending = new ArrayList<>();
+		for (MemStatement st = deprecatedStatements.poll(); st != null; st = deprecatedStatements.poll()) {
+			if (st.getTillSnapshot() <= nextSnapshot) {
+				subjects.add(st.getSubject());
+				predicates.add(st.getPredicate());
+				objects.add(st.getObject());
+				if (st.getContext() != null) {
+					contexts.add(st.getContext());
+				}
+			} else {
+				pending.add(st);
+			}
+		}
+		deprecatedStatements.addAll(pending);
 
-						MemResource context = st.getContext();
-						if (context != null && processedContexts.add(context)) {
-							context.cleanSnapshotsFromContextStatements(nextSnapshot);
-						}
+		long removed = 0;
+		try (CleanupBatch batch = new CleanupBatch()) {
+			for (MemResource subj : subjects) {
+				cleanSnapshots(subj.getSubjectStatementList(), nextSnapshot, batch,
+						() -> subj.cleanSnapshotsFromSubjectStatements(nextSnapshot));
+			}
+			for (MemIRI pred : predicates) {
+				cleanSnapshots(pred.getPredicateStatementList(), nextSnapshot, batch,
+						() -> pred.cleanSnapshotsFromPredicateStatements(nextSnapshot));
+			}
+			for (MemValue obj : objects) {
+				cleanSnapshots(obj.getObjectStatementList(), nextSnapshot, batch,
+						() -> obj.cleanSnapshotsFromObjectStatements(nextSnapshot));
+			}
+			for (MemResource context : contexts) {
+				cleanSnapshots(context.getContextStatementList(), nextSnapshot, batch,
+						() -> context.cleanSnapshotsFromContextStatements(nextSnapshot));
+			}
 
-						// stale statement
-						statements.remove(i);
-					}
+			// deprecated statements are skipped when iterating over all statements, so they are only removed from the
+			// main list when they take up a significant part of it
+			if (deprecatedStatementCount.get() * STATEMENT_LIST_CLEANUP_RATIO >= statements.size()) {
+				for (int i = statements.size() - 1; i >= 0;) {
+					batch.reserve(CLEANUP_BATCH_SIZE);
+					int size = statements.size();
+					i = statements.cleanSnapshots(nextSnapshot, i, CLEANUP_BATCH_SIZE);
+					removed += size - statements.size();
 				}
-			} finally {
-				stWriteLock.release();
+				deprecatedStatementCount.addAndGet(-removed);
 			}
 		}
 
-		// long endTime = System.currentTimeMillis();
-		// System.out.println("cleanSnapshots() took " + (endTime - startTime) +
-		// " ms");
+		lastCleanupDuration = System.currentTimeMillis() - startTime;
+		logger.debug("snapshot cleanup took {} ms, removed {} statements from the statement list",
+				lastCleanupDuration, removed);
+	}
+
+	/**
+	 * Removes the statements from old snapshots from a statement list of a value. Small lists are cleaned up by the
+	 * value itself, which releases the list once it is empty.
+	 */
+	private void cleanSnapshots(MemStatementList list, int nextSnapshot, CleanupBatch batch, Runnable cleanup)
+			throws InterruptedException {
+		if (list.size() <= CLEANUP_BATCH_SIZE) {
+			batch.reserve(list.size());
+			cleanup.run();
+		} else {
+			for (int i = list.size() - 1; i >= 0;) {
+				batch.reserve(CLEANUP_BATCH_SIZE);
+				i = list.cleanSnapshots(nextSnapshot, i, CLEANUP_BATCH_SIZE);
+			}
+		}
 	}
 
 	protected void scheduleSnapshotCleanup() {
@@ -362,6 +421,43 @@ class MemorySailStore implements SailStore {
 		}
 	}
 
+	/**
+	 * Holds the write lock of the statement lists during a snapshot cleanup, and hands it to other threads after
+	 * every {@link #CLEANUP_BATCH_SIZE} statements.
+	 */
+	private final class CleanupBatch implements AutoCloseable {
+
+		private Lock lock;
+
+		private int remaining = CLEANUP_BATCH_SIZE;
+
+		public CleanupBatch() throws InterruptedException {
+			lock = statementListLockManager.getWriteLock();
+		}
+
+		/**
+		 * Makes sure that the specified number of statements can be processed in the current batch, starting a new
+		 * batch if necessary.
+		 */
+		public void reserve(int statementCount) throws InterruptedException {
+			if (statementCount > remaining) {
+				lock.release();
+				lock = null;
+				Thread.yield();
+				lock = statementListLockManager.getWriteLock();
+				remaining = CLEANUP_BATCH_SIZE;
+			}
+			remaining -= statementCount;
+		}
+
+		@Override
+		public void close() {
+			if (lock != null) {
+				lock.release();
+			}
+		}
+	}
+
 	private final class MemorySailSource extends BackingSailSource {
 
 		private final boolean explicit;
@@ -527,8 +623,7 @@ class MemorySailStore implements SailStore {
 			try (CloseableIteration<MemStatement, SailException> iter = createStatementIterator(null, null, null,
 					explicit, nextSnapshot, contexts);) {
 				while (iter.hasNext()) {
-					MemStatement st = iter.next();
-					st.setTillSnapshot(nextSnapshot);
+					deprecateStatement(iter.next());
 				}
 			}
 		}
@@ -547,7 +642,7 @@ class MemorySailStore implements SailStore {
 				MemStatement toDeprecate = (MemStatement) statement;
 				if ((nextSnapshot < 0 || toDeprecate.isInSnapshot(nextSnapshot))
 						&& toDeprecate.isExplicit() == explicit) {
-					toDeprecate.setTillSnapshot(nextSnapshot);
+					deprecateStatement(toDeprecate);
 				}
 			} else if (statement instanceof LinkedHashModel.ModelStatement
 					&& ((LinkedHashModel.ModelStatement) statement).getStatement() instanceof MemStatement) {
@@ -556,7 +651,7 @@ class MemorySailStore implements SailStore {
 				MemStatement toDeprecate = (MemStatement) ((LinkedHashModel.ModelStatement) statement).getStatement();
 				if ((nextSnapshot < 0 || toDeprecate.isInSnapshot(nextSnapshot))
 						&& toDeprecate.isExplicit() == explicit) {
-					toDeprecate.setTillSnapshot(nextSnapshot);
+					deprecateStatement(toDeprecate);
 				}
 			} else {
 				try (CloseableIteration<MemStatement, SailException> iter = createStatementIterator(
@@ -564,13 +659,18 @@ class MemorySailStore implements SailStore {
 						statement.getPredicate(), statement.getObject(),
 						explicit, nextSnapshot, statement.getContext())) {
 					while (iter.hasNext()) {
-						MemStatement st = iter.next();
-						st.setTillSnapshot(nextSnapshot);
+						deprecateStatement(iter.next());
 					}
 				}
 			}
 		}
 
+		private void deprecateStatement(MemStatement st) {
+			st.setTillSnapshot(nextSnapshot);
+			deprecatedStatements.add(st);
+			deprecatedStatementCount.incrementAndGet();
+		}
+
 		private void acquireExclusiveTransactionLock() throws SailException {
 			if (!txnLock) {
 				txnLockManager.lock();
@@ -601,7 +701,7 @@ class MemorySailStore implements SailStore {
 
 						if (!st.isExplicit() && explicit) {
 							// Implicit statement is now added explicitly
-							st.setTillSnapshot(nextSnapshot);
+							deprecateStatement(st);
 						} else if (!st.isInSnapshot(nextSnapshot)) {
 							st.setSinceSnapshot(nextSnapshot);
 						} else {
@@ -628,8 +728,7 @@ class MemorySailStore implements SailStore {
 					explicit, nextSnapshot, contexts)) {
 				while (iter.hasNext()) {
 					deprecated = true;
-					MemStatement st = iter.next();
-					st.setTillSnapshot(nextSnapshot);
+					deprecateStatement(iter.next());
 				}
 			}
 
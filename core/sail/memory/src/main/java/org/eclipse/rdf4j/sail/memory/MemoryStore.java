@@ -40,7 +40,8 @@ import org.slf4j.LoggerFactory;
  *
  * The MemoryStore is designed for datasets with fewer than 100,000 triples. The MemoryStore uses hash tables, and when
  * these hash tables fill up it copies the values to larger hash tables. This can cause strain on the garbage collector
- * due to lots of memory being allocated and freed.
+ * due to lots of memory being allocated and freed. Larger datasets can be kept in a columnar layout, see
+ * {@link #setColumnar(boolean)}.
  *
  * @author Arjohn Kampman
  * @author jeen
@@ -57,6 +58,11 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 
 	protected static final String SYNC_FILE_NAME = "memorystore.sync";
 
+	/**
+	 * The size that the log needs to reach before it is compacted into the data file, unless the data file is larger.
+	 */
+	private static final long MIN_LOG_COMPACTION_SIZE = 16 * 1024 * 1024;
+
 	/*-----------*
 	 * Variables *
 	 *-----------*/
@@ -68,6 +74,10 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 
 	private volatile boolean persist = false;
 
+	private volatile boolean columnar = false;
+
+	private volatile boolean chunkedDataFile = false;
+
 	/**
 	 * The file used for data persistence, null if this is a volatile RDF store.
 	 */
@@ -83,6 +93,26 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 	 */
 	private volatile Lock dirLock;
 
+	/**
+	 * The log of the changes that are not in the data file yet, null if this is read-only or a volatile RDF store.
+	 */
+	private volatile WriteAheadLog log;
+
+	/**
+	 * The store that connections write to, which appends the changes to {@link #log}.
+	 */
+	private volatile SailStore loggingStore;
+
+	/**
+	 * The thread that writes a new data file and deletes the old log, if any.
+	 */
+	private volatile Thread logCompactionThread;
+
+	/**
+	 * Lock object used to synchronize concurrent access to {@link #logCompactionThread}.
+	 */
+	private final Object logCompactionLockObject = new Object();
+
 	/**
 	 * Flag indicating whether the contents of this repository have changed.
 	 */
@@ -164,6 +194,48 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 		return persist;
 	}
 
+	/**
+	 * Sets whether statements are stored in primitive columns instead of as statement objects. The columnar layout
+	 * needs a fraction of the memory per statement and puts much less strain on the garbage collector, which makes it
+	 * suitable for datasets with millions of statements. Statement objects are then created when statements are read.
+	 * <p>
+	 * The default value for this parameter is <tt>false</tt>.
+	 *
+	 * @param columnar <tt>true</tt> to store statements in columns.
+	 */
+	public void setColumnar(boolean columnar) {
+		if (isInitialized()) {
+			throw new IllegalStateException("sail has already been initialized");
+		}
+
+		this.columnar = columnar;
+	}
+
+	public boolean isColumnar() {
+		return columnar;
+	}
+
+	/**
+	 * Sets whether a persistent store writes its data file in chunks that can be decoded by several threads when the
+	 * store is initialized. Data files in this format (version 3) can not be read by versions of the MemoryStore that
+	 * predate it. Data files in either format are read regardless of this setting.
+	 * <p>
+	 * The default value for this parameter is <tt>false</tt>, which keeps the data file readable by earlier versions.
+	 *
+	 * @param chunkedDataFile <tt>true</tt> to write the data file in chunks.
+	 */
+	public void setChunkedDataFile(boolean chunkedDataFile) {
+		if (isInitialized()) {
+			throw new IllegalStateException("sail has already been initialized");
+		}
+
+		this.chunkedDataFile = chunkedDataFile;
+	}
+
+	public boolean isChunkedDataFile() {
+		return chunkedDataFile;
+	}
+
 	/**
 	 * Sets the time (in milliseconds) to wait after a transaction was commited before writing the changed data to file.
 	 * Setting this variable to 0 will force a file sync immediately after each commit. A negative value will deactivate
@@ -249,7 +321,11 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 	protected void initializeInternal() throws SailException {
 		logger.debug("Initializing MemoryStore...");
 
-		this.store = new MemorySailStore(debugEnabled());
+		if (columnar) {
+			this.store = new ColumnarSailStore(debugEnabled());
+		} else {
+			this.store = new MemorySailStore(debugEnabled());
+		}
 
 		if (persist) {
 			File dataDir = getDataDir();
@@ -309,7 +385,8 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 					logger.debug("Initializing data file...");
 					try (SailDataset explicit = store.getExplicitSailSource().dataset(IsolationLevels.SNAPSHOT);
 							SailDataset inferred = store.getInferredSailSource().dataset(IsolationLevels.SNAPSHOT)) {
-						new FileIO(store.getValueFactory()).write(explicit, inferred, syncFile, dataFile);
+						new FileIO(store.getValueFactory(), chunkedDataFile).write(explicit, inferred, syncFile,
+								dataFile);
 					}
 					logger.debug("Data file initialized");
 				} catch (IOException | SailException e) {
@@ -317,6 +394,36 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 					throw new SailException("Failed to initialize data file " + dataFile, e);
 				}
 			}
+
+			WriteAheadLog log = new WriteAheadLog(dataDir);
+			if (WriteAheadLog.exists(dataDir)) {
+				logger.debug("Replaying log...");
+				SailSink explicit = store.getExplicitSailSource().sink(IsolationLevels.NONE);
+				SailSink inferred = store.getInferredSailSource().sink(IsolationLevels.NONE);
+				try {
+					int count = log.replay(store.getValueFactory(), explicit, inferred);
+					logger.debug("Replayed {} change sets from the log", count);
+				} catch (IOException e) {
+					logger.error("Failed to replay log", e);
+					throw new SailException(e);
+				} finally {
+					explicit.prepare();
+					explicit.flush();
+					explicit.close();
+					inferred.prepare();
+					inferred.flush();
+					inferred.close();
+				}
+			}
+			if (dirLock != null) {
+				try {
+					log.open();
+				} catch (IOException e) {
+					throw new SailException("Failed to open log in " + dataDir, e);
+				}
+				this.log = log;
+				loggingStore = new LoggingSailStore(store, log);
+			}
 		}
 
 		contentsChanged = false;
@@ -329,6 +436,7 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 		try {
 			cancelSyncTimer();
 			sync();
+			closeLog();
 
 			store.close();
 			dataFile = null;
@@ -366,6 +474,38 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 		return store.getValueFactory();
 	}
 
+	/**
+	 * Gets the number of statements that have been removed from this store, but that are still held in memory because
+	 * the background snapshot cleanup has not reclaimed them yet.
+	 *
+	 * @return The number of removed statements that are still held in memory, or <tt>0</tt> if this store has not
+	 *         been initialized.
+	 */
+	public long getDeprecatedStatementCount() {
+		SailStore store = this.store;
+		if (store instanceof MemorySailStore) {
+			return ((MemorySailStore) store).getDeprecatedStatementCount();
+		} else if (store instanceof ColumnarSailStore) {
+			return ((ColumnarSailStore) store).getDeprecatedStatementCount();
+		}
+		return 0;
+	}
+
+	/**
+	 * Gets the time that the last background snapshot cleanup took.
+	 *
+	 * @return The duration in milliseconds, or <tt>0</tt> if no cleanup has run yet.
+	 */
+	public long getLastSnapshotCleanupDuration() {
+		SailStore store = this.store;
+		if (store instanceof MemorySailStore) {
+			return ((MemorySailStore) store).getLastCleanupDuration();
+		} else if (store instanceof ColumnarSailStore) {
+			return ((ColumnarSailStore) store).getLastCleanupDuration();
+		}
+		return 0;
+	}
+
 	@Override
 	public void notifySailChanged(SailChangedEvent event) {
 		super.notifySailChanged(event);
@@ -434,17 +574,35 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 	/**
 	 * Synchronizes the contents of this repository with the data that is stored on disk. Data will only be written when
 	 * the contents of the repository and data in the file are out of sync.
+	 * <p>
+	 * Committed changes are appended to a log next to the data file, so synchronizing only needs to force the log to
+	 * disk. Once the log has grown larger than the data file, a new data file is written in the background and the
+	 * changes in the log no longer need to be replayed on initialization.
 	 */
 	public void sync() throws SailException {
 		// syncSemaphore prevents concurrent file synchronizations
 		synchronized (syncSemaphore) {
-			if (persist && contentsChanged) {
+			WriteAheadLog log = this.log;
+			if (persist && contentsChanged && log != null) {
+				logger.debug("syncing log to file...");
+				try {
+					log.force();
+					contentsChanged = false;
+					if (log.size() > Math.max(MIN_LOG_COMPACTION_SIZE, dataFile.length())) {
+						scheduleLogCompaction();
+					}
+				} catch (IOException e) {
+					logger.error("Failed to sync log to file", e);
+					throw new SailException(e);
+				}
+			} else if (persist && contentsChanged) {
 				logger.debug("syncing data to file...");
 				try {
 					IsolationLevels level = IsolationLevels.SNAPSHOT;
 					try (SailDataset explicit = store.getExplicitSailSource().dataset(level);
 							SailDataset inferred = store.getInferredSailSource().dataset(level)) {
-						new FileIO(store.getValueFactory()).write(explicit, inferred, syncFile, dataFile);
+						new FileIO(store.getValueFactory(), chunkedDataFile).write(explicit, inferred, syncFile,
+								dataFile);
 					}
 					contentsChanged = false;
 					logger.debug("Data synced to file");
@@ -456,7 +614,100 @@ public class MemoryStore extends AbstractNotifyingSail implements FederatedServi
 		}
 	}
 
+	/**
+	 * Waits for a running log compaction and writes the changes that are still in the log to the data file, so that
+	 * the data file contains the complete store again.
+	 */
+	private void closeLog() throws SailException {
+		WriteAheadLog log = this.log;
+		if (log == null) {
+			return;
+		}
+		Thread thread = logCompactionThread;
+		if (thread != null) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SailException(e);
+			}
+		}
+		try {
+			if (log.isEmpty() && !log.hasOldLog()) {
+				log.delete();
+			} else {
+				logger.debug("syncing log to data file...");
+				try (SailDataset explicit = store.getExplicitSailSource().dataset(IsolationLevels.SNAPSHOT);
+						SailDataset inferred = store.getInferredSailSource().dataset(IsolationLevels.SNAPSHOT)) {
+					new FileIO(store.getValueFactory(), chunkedDataFile).write(explicit, inferred, syncFile, dataFile);
+				}
+				log.delete();
+			}
+		} catch (IOException e) {
+			logger.error("Failed to sync log to data file", e);
+			throw new SailException(e);
+		} finally {
+			this.log = null;
+			loggingStore = null;
+		}
+	}
+
+	protected void scheduleLogCompaction() {
+		synchronized (logCompactionLockObject) {
+			Thread thread = logCompactionThread;
+			if (thread == null || !thread.isAlive()) {
+				Runnable runnable = () -> {
+					try {
+						compactLog();
+					} catch (IOException | SailException e) {
+						logger.error("Failed to compact log", e);
+					}
+				};
+
+				thread = logCompactionThread = new Thread(runnable, "MemoryStore log compaction");
+				thread.setDaemon(true);
+				thread.start();
+			}
+		}
+	}
+
+	/**
+	 * Writes a new data file with the current contents of the store, so that the changes that have been logged so far
+	 * no longer need to be replayed. The log is rotated while it is locked, so that the data file contains exactly the
+	 * changes of the old log, and transactions can continue to append to the new log while the data file is written.
+	 */
+	void compactLog() throws IOException, SailException {
+		WriteAheadLog log = this.log;
+		if (log == null) {
+			return;
+		}
+		logger.debug("compacting log...");
+		SailDataset explicit = null;
+		SailDataset inferred = null;
+		try {
+			synchronized (log) {
+				// a previous compaction may have failed, in which case its old log is kept
+				if (!log.hasOldLog()) {
+					log.rotate();
+				}
+				explicit = store.getExplicitSailSource().dataset(IsolationLevels.SNAPSHOT);
+				inferred = store.getInferredSailSource().dataset(IsolationLevels.SNAPSHOT);
+			}
+			new FileIO(store.getValueFactory(), chunkedDataFile).write(explicit, inferred, syncFile, dataFile);
+		} finally {
+			if (explicit != null) {
+				explicit.close();
+			}
+			if (inferred != null) {
+				inferred.close();
+			}
+		}
+		log.deleteOldLog();
+		logger.debug("Log compacted");
+	}
+
 	SailStore getSailStore() {
-		return store;
+		SailStore loggingStore = this.loggingStore;
+		return loggingStore != null ? loggingStore : store;
 	}
 }
@@ -14,6 +14,7 @@ import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.sail.SailException;
 import org.eclipse.rdf4j.sail.SailReadOnlyException;
 import org.eclipse.rdf4j.sail.base.SailSourceConnection;
+import org.eclipse.rdf4j.sail.base.SailStore;
 import org.eclipse.rdf4j.sail.helpers.DefaultSailChangedEvent;
 
 /**
@@ -32,13 +33,23 @@ public class MemoryStoreConnection extends SailSourceConnection {
 
 	private volatile DefaultSailChangedEvent sailChangedEvent;
 
+	/**
+	 * The store that appends the commits of this connection to the log, null if the changes are not logged.
+	 */
+	private final LoggingSailStore loggingStore;
+
 	/*--------------*
 	 * Constructors *
 	 *--------------*/
 
 	protected MemoryStoreConnection(MemoryStore sail) {
-		super(sail, sail.getSailStore(), sail.getEvaluationStrategyFactory());
+		this(sail, sail.getSailStore());
+	}
+
+	private MemoryStoreConnection(MemoryStore sail, SailStore store) {
+		super(sail, store, sail.getEvaluationStrategyFactory());
 		this.sail = sail;
+		this.loggingStore = store instanceof LoggingSailStore ? (LoggingSailStore) store : null;
 		sailChangedEvent = new DefaultSailChangedEvent(sail);
 	}
 
@@ -57,7 +68,18 @@ public class MemoryStoreConnection extends SailSourceConnection {
 
 	@Override
 	protected void commitInternal() throws SailException {
-		super.commitInternal();
+		if (loggingStore == null) {
+			super.commitInternal();
+		} else {
+			boolean completed = false;
+			loggingStore.beginCommit();
+			try {
+				super.commitInternal();
+				completed = true;
+			} finally {
+				loggingStore.endCommit(completed);
+			}
+		}
 
 		sail.notifySailChanged(sailChangedEvent);
 		sail.scheduleSyncTask();
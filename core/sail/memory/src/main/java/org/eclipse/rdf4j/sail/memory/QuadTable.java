@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import java.util.Arrays;
+
+/**
+ * A table of quads that is stored in primitive columns. Each row holds the {@link ValueDictionary} IDs of the subject,
+ * predicate, object and context of a statement (<tt>0</tt> for the default context), the snapshots in which the
+ * statement was added and removed and whether it is explicit.
+ * <p>
+ * For each position of a quad, the rows that share a value are chained together in insertion order: the table records
+ * the first and the last row and the number of rows per value, and every row records the next row with the same value.
+ * Rows are only removed by a {@link Compaction}, which renumbers the remaining rows.
+ * <p>
+ * Rows are appended by a single writer at a time. Readers first call {@link #size()} and then {@link #columns()}, and
+ * only look at rows below that size.
+ */
+class QuadTable {
+
+	static final int SUBJ = 0;
+
+	static final int PRED = 1;
+
+	static final int OBJ = 2;
+
+	static final int CTX = 3;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private volatile Columns columns = new Columns(INITIAL_CAPACITY, INITIAL_CAPACITY);
+
+	private volatile int size;
+
+	/**
+	 * Incremented whenever rows are renumbered.
+	 */
+	private volatile int generation;
+
+	/**
+	 * @return The number of rows, which needs to be read before {@link #columns()}.
+	 */
+	int size() {
+		return size;
+	}
+
+	Columns columns() {
+		return columns;
+	}
+
+	int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Appends a row.
+	 *
+	 * @return The number of the row.
+	 */
+	int add(int subj, int pred, int obj, int context, boolean explicit, int sinceSnapshot) {
+		int row = size;
+		Columns c = columns;
+		int maxId = Math.max(Math.max(subj, pred), Math.max(obj, context));
+		if (row == c.capacity() || maxId >= c.valueCapacity()) {
+			c = c.grow(row == c.capacity() ? grow(c.capacity()) : c.capacity(),
+					maxId >= c.valueCapacity() ? Math.max(grow(c.valueCapacity()), maxId + 1) : c.valueCapacity());
+			columns = c;
+		}
+		c.values[SUBJ][row] = subj;
+		c.values[PRED][row] = pred;
+		c.values[OBJ][row] = obj;
+		c.values[CTX][row] = context;
+		c.since[row] = sinceSnapshot;
+		c.till[row] = Integer.MAX_VALUE;
+		c.explicit[row] = explicit;
+		c.link(row);
+		size = row + 1;
+		return row;
+	}
+
+	/**
+	 * Grows arrays by half of their size, which wastes less memory than doubling them for large tables.
+	 */
+	private static int grow(int capacity) {
+		return capacity + (capacity >> 1);
+	}
+
+	void setSinceSnapshot(int row, int snapshot) {
+		columns.since[row] = snapshot;
+	}
+
+	void setTillSnapshot(int row, int snapshot) {
+		columns.till[row] = snapshot;
+	}
+
+	/**
+	 * Copies the rows that are still visible in the specified snapshot or any later snapshot into new columns, without
+	 * changing the table. Readers and the writer may access the table in the meantime; the copy is only installed by
+	 * {@link Compaction#swap()}.
+	 *
+	 * @return The compaction, or <tt>null</tt> if no rows can be removed.
+	 */
+	Compaction startCompaction(int snapshot) {
+		int startGeneration = generation;
+		int count = size;
+		Columns c = columns;
+		int live = 0;
+		for (int row = 0; row < count; row++) {
+			if (c.till[row] > snapshot) {
+				live++;
+			}
+		}
+		if (live == count) {
+			return null;
+		}
+
+		Columns compacted = new Columns(Math.max(INITIAL_CAPACITY, grow(live)), c.valueCapacity());
+		int[] sourceRows = new int[live];
+		int to = 0;
+		for (int row = 0; row < count; row++) {
+			if (c.till[row] > snapshot) {
+				for (int pos = SUBJ; pos <= CTX; pos++) {
+					compacted.values[pos][to] = c.values[pos][row];
+				}
+				compacted.explicit[to] = c.explicit[row];
+				compacted.link(to);
+				sourceRows[to++] = row;
+			}
+		}
+		return new Compaction(startGeneration, count, compacted, sourceRows);
+	}
+
+	void clear() {
+		generation++;
+		columns = new Columns(INITIAL_CAPACITY, INITIAL_CAPACITY);
+		size = 0;
+	}
+
+	/**
+	 * The rows of the table that have been copied by {@link QuadTable#startCompaction(int)}.
+	 */
+	final class Compaction {
+
+		private final int startGeneration;
+
+		/**
+		 * The number of rows of the table when the compaction started.
+		 */
+		private final int count;
+
+		private Columns compacted;
+
+		/**
+		 * The row of the table that has been copied to each row of the compacted columns.
+		 */
+		private final int[] sourceRows;
+
+		private Compaction(int startGeneration, int count, Columns compacted, int[] sourceRows) {
+			this.startGeneration = startGeneration;
+			this.count = count;
+			this.compacted = compacted;
+			this.sourceRows = sourceRows;
+		}
+
+		/**
+		 * Replaces the columns of the table by the compacted columns, and renumbers the rows. The snapshots of the
+		 * copied rows are updated and the rows that have been added since the compaction started are appended, so
+		 * this takes time in proportion to the changes in the meantime. Rows that have been removed from all later
+		 * snapshots in the meantime are kept until the next compaction. This must not be called while any other
+		 * thread accesses the table.
+		 *
+		 * @return The number of rows that have been removed, or <tt>0</tt> if the table has been cleared or compacted
+		 *         in the meantime.
+		 */
+		int swap() {
+			if (generation != startGeneration) {
+				return 0;
+			}
+			Columns c = columns;
+			int live = sourceRows.length;
+			for (int to = 0; to < live; to++) {
+				compacted.since[to] = c.since[sourceRows[to]];
+				compacted.till[to] = c.till[sourceRows[to]];
+			}
+			int to = live;
+			int newSize = live + size - count;
+			for (int row = count; row < size; row++, to++) {
+				int maxId = Math.max(Math.max(c.values[SUBJ][row], c.values[PRED][row]),
+						Math.max(c.values[OBJ][row], c.values[CTX][row]));
+				if (to == compacted.capacity() || maxId >= compacted.valueCapacity()) {
+					compacted = compacted.grow(Math.max(compacted.capacity(), grow(newSize)),
+							Math.max(compacted.valueCapacity(), c.valueCapacity()));
+				}
+				for (int pos = SUBJ; pos <= CTX; pos++) {
+					compacted.values[pos][to] = c.values[pos][row];
+				}
+				compacted.since[to] = c.since[row];
+				compacted.till[to] = c.till[row];
+				compacted.explicit[to] = c.explicit[row];
+				compacted.link(to);
+			}
+			int removed = size - newSize;
+			generation++;
+			columns = compacted;
+			size = newSize;
+			return removed;
+		}
+	}
+
+	/**
+	 * The arrays of a {@link QuadTable}. They are replaced as a whole when the table grows.
+	 */
+	static final class Columns {
+
+		/**
+		 * The value IDs per position, indexed by row.
+		 */
+		final int[][] values;
+
+		/**
+		 * The next row with the same value per position, <tt>-1</tt> for the last row.
+		 */
+		final int[][] next;
+
+		final int[] since;
+
+		final int[] till;
+
+		final boolean[] explicit;
+
+		/**
+		 * The first row with a value per position, indexed by value ID.
+		 */
+		final int[][] first;
+
+		/**
+		 * The last row with a value per position, indexed by value ID.
+		 */
+		final int[][] last;
+
+		/**
+		 * The number of rows with a value per position, indexed by value ID.
+		 */
+		final int[][] counts;
+
+		private Columns(int capacity, int valueCapacity) {
+			values = new int[4][capacity];
+			next = new int[4][capacity];
+			since = new int[capacity];
+			till = new int[capacity];
+			explicit = new boolean[capacity];
+			first = new int[4][valueCapacity];
+			last = new int[4][valueCapacity];
+			counts = new int[4][valueCapacity];
+		}
+
+		private Columns(Columns c, int capacity, int valueCapacity) {
+			values = new int[4][];
+			next = new int[4][];
+			first = new int[4][];
+			last = new int[4][];
+			counts = new int[4][];
+			for (int pos = SUBJ; pos <= CTX; pos++) {
+				values[pos] = Arrays.copyOf(c.values[pos], capacity);
+				next[pos] = Arrays.copyOf(c.next[pos], capacity);
+				first[pos] = Arrays.copyOf(c.first[pos], valueCapacity);
+				last[pos] = Arrays.copyOf(c.last[pos], valueCapacity);
+				counts[pos] = Arrays.copyOf(c.counts[pos], valueCapacity);
+			}
+			since = Arrays.copyOf(c.since, capacity);
+			till = Arrays.copyOf(c.till, capacity);
+			explicit = Arrays.copyOf(c.explicit, capacity);
+		}
+
+		int capacity() {
+			return since.length;
+		}
+
+		int valueCapacity() {
+			return counts[SUBJ].length;
+		}
+
+		/**
+		 * @return The number of rows with the value at the position, which includes rows that are no longer visible.
+		 */
+		int count(int pos, int id) {
+			return id < valueCapacity() ? counts[pos][id] : 0;
+		}
+
+		/**
+		 * @return The first row with the value at the position, or <tt>-1</tt>.
+		 */
+		int first(int pos, int id) {
+			return count(pos, id) == 0 ? -1 : first[pos][id];
+		}
+
+		boolean isInSnapshot(int row, int snapshot) {
+			return snapshot >= since[row] && snapshot < till[row];
+		}
+
+		private Columns grow(int capacity, int valueCapacity) {
+			return new Columns(this, capacity, valueCapacity);
+		}
+
+		private void link(int row) {
+			for (int pos = SUBJ; pos <= CTX; pos++) {
+				int id = values[pos][row];
+				next[pos][row] = -1;
+				if (counts[pos][id] == 0) {
+					first[pos][id] = row;
+				} else {
+					next[pos][last[pos][id]] = row;
+				}
+				last[pos][id] = row;
+				counts[pos][id]++;
+			}
+		}
+	}
+}
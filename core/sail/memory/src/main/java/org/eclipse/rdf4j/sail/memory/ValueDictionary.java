@@ -0,0 +1,374 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Triple;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+
+/**
+ * Assigns dense integer IDs to values. Values are not kept as objects, but encoded one after the other in a single byte
+ * array, where the datatype of a literal and the components of a triple are referenced by ID. The IDs are found through
+ * an open addressing hash table of <tt>int</tt>s, so that the dictionary consists of a handful of arrays, regardless of
+ * the number of values. ID <tt>0</tt> is never assigned and can be used to represent the absence of a value.
+ * <p>
+ * Value objects are created by {@link #getValue(int)}, which caches recently created values. Look-ups of IDs are
+ * synchronized, but {@link #getValue(int)} can be called concurrently with {@link #getOrCreateId} for IDs that have
+ * been handed out before.
+ */
+class ValueDictionary {
+
+	private static final byte IRI = 1;
+
+	private static final byte BNODE = 2;
+
+	private static final byte STRING_LITERAL = 3;
+
+	private static final byte LANG_LITERAL = 4;
+
+	private static final byte TYPED_LITERAL = 5;
+
+	private static final byte TRIPLE = 6;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private static final int CACHE_SIZE = 1 << 12;
+
+	private final ValueFactory vf;
+
+	/**
+	 * The encoded values.
+	 */
+	private volatile byte[] data = new byte[INITIAL_CAPACITY * 32];
+
+	/**
+	 * The offset of each value in {@link #data}, indexed by ID. The value ends where the next value starts.
+	 */
+	private volatile int[] offsets = new int[INITIAL_CAPACITY + 1];
+
+	/**
+	 * The hash codes of the encoded values, indexed by ID.
+	 */
+	private int[] hashes = new int[INITIAL_CAPACITY];
+
+	/**
+	 * Hash table containing the IDs of the values, <tt>0</tt> for empty slots.
+	 */
+	private int[] table = new int[INITIAL_CAPACITY * 2];
+
+	/**
+	 * The next ID to assign.
+	 */
+	private int nextId = 1;
+
+	/**
+	 * Holds the value that is being looked up.
+	 */
+	private byte[] buffer = new byte[256];
+
+	private int length;
+
+	private final CachedValue[] cache = new CachedValue[CACHE_SIZE];
+
+	ValueDictionary(ValueFactory vf) {
+		this.vf = vf;
+	}
+
+	/**
+	 * @return The value with the specified ID.
+	 */
+	Value getValue(int id) {
+		CachedValue cached = cache[id & (CACHE_SIZE - 1)];
+		if (cached != null && cached.id == id) {
+			return cached.value;
+		}
+		Value value = decode(id);
+		cache[id & (CACHE_SIZE - 1)] = new CachedValue(id, value);
+		return value;
+	}
+
+	/**
+	 * @return <tt>true</tt> if the value with the specified ID is a {@link Triple}.
+	 */
+	boolean isTriple(int id) {
+		int offset = offsets[id];
+		return data[offset] == TRIPLE;
+	}
+
+	/**
+	 * @return The ID of the value, or <tt>0</tt> if the value is not in this dictionary.
+	 */
+	synchronized int getId(Value value) {
+		if (!encode(value, false)) {
+			return 0;
+		}
+		int hash = hash(buffer, 0, length);
+		int mask = table.length - 1;
+		for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+			int id = table[slot];
+			if (id == 0 || hashes[id] == hash && matches(id)) {
+				return id;
+			}
+		}
+	}
+
+	/**
+	 * @return The ID of the value, which is assigned if the value is not in this dictionary yet.
+	 */
+	synchronized int getOrCreateId(Value value) {
+		encode(value, true);
+		int hash = hash(buffer, 0, length);
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		for (int id = table[slot]; id != 0; id = table[slot]) {
+			if (hashes[id] == hash && matches(id)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		int id = nextId;
+		int[] offs = offsets;
+		if (id + 1 == offs.length) {
+			offs = Arrays.copyOf(offs, grow(offs.length));
+			hashes = Arrays.copyOf(hashes, offs.length);
+		}
+		int offset = offs[id];
+		if (offset + length < 0) {
+			throw new IllegalStateException("Value dictionary is full");
+		}
+		byte[] d = data;
+		if (offset + length > d.length) {
+			d = Arrays.copyOf(d, Math.max(grow(d.length), offset + length));
+		}
+		System.arraycopy(buffer, 0, d, offset, length);
+		offs[id + 1] = offset + length;
+		hashes[id] = hash;
+		// publishes the value before the ID can be handed out
+		data = d;
+		offsets = offs;
+		table[slot] = id;
+		nextId++;
+		if (nextId * 2 > table.length) {
+			rehash(table.length * 2);
+		}
+		return id;
+	}
+
+	/**
+	 * @return The number of values in this dictionary.
+	 */
+	synchronized int size() {
+		return nextId - 1;
+	}
+
+	synchronized void clear() {
+		data = new byte[INITIAL_CAPACITY * 32];
+		offsets = new int[INITIAL_CAPACITY + 1];
+		hashes = new int[INITIAL_CAPACITY];
+		table = new int[INITIAL_CAPACITY * 2];
+		nextId = 1;
+		Arrays.fill(cache, null);
+	}
+
+	private static int grow(int capacity) {
+		return capacity + (capacity >> 1);
+	}
+
+	private void rehash(int capacity) {
+		int[] newTable = new int[capacity];
+		int mask = capacity - 1;
+		for (int id = 1; id < nextId; id++) {
+			int slot = hashes[id] & mask;
+			while (newTable[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			newTable[slot] = id;
+		}
+		table = newTable;
+	}
+
+	/**
+	 * Encodes a value into {@link #buffer}.
+	 *
+	 * @param create Whether to assign IDs to the datatype or the components of the value.
+	 * @return <tt>false</tt> if the datatype or a component of the value is not in this dictionary.
+	 */
+	private boolean encode(Value value, boolean create) {
+		if (value instanceof IRI) {
+			start(IRI);
+			writeUTF(value.stringValue());
+		} else if (value instanceof BNode) {
+			start(BNODE);
+			writeUTF(((BNode) value).getID());
+		} else if (value instanceof Literal) {
+			Literal literal = (Literal) value;
+			Optional<String> language = literal.getLanguage();
+			if (language.isPresent()) {
+				byte[] lang = language.get().getBytes(StandardCharsets.UTF_8);
+				start(LANG_LITERAL);
+				write(lang.length >>> 8);
+				write(lang.length);
+				write(lang, lang.length);
+			} else if (XSD.STRING.equals(literal.getDatatype())) {
+				start(STRING_LITERAL);
+			} else {
+				int datatype = create ? getOrCreateId(literal.getDatatype()) : getId(literal.getDatatype());
+				if (datatype == 0) {
+					return false;
+				}
+				start(TYPED_LITERAL);
+				writeInt(datatype);
+			}
+			writeUTF(literal.getLabel());
+		} else if (value instanceof Triple) {
+			Triple triple = (Triple) value;
+			int subj = create ? getOrCreateId(triple.getSubject()) : getId(triple.getSubject());
+			int pred = create ? getOrCreateId(triple.getPredicate()) : getId(triple.getPredicate());
+			int obj = create ? getOrCreateId(triple.getObject()) : getId(triple.getObject());
+			if (subj == 0 || pred == 0 || obj == 0) {
+				return false;
+			}
+			start(TRIPLE);
+			writeInt(subj);
+			writeInt(pred);
+			writeInt(obj);
+		} else {
+			throw new IllegalArgumentException("Unsupported value type: " + value.getClass());
+		}
+		return true;
+	}
+
+	private void start(byte type) {
+		length = 0;
+		write(type);
+	}
+
+	private void writeUTF(String s) {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		write(bytes, bytes.length);
+	}
+
+	private void writeInt(int value) {
+		write(value >>> 24);
+		write(value >>> 16);
+		write(value >>> 8);
+		write(value);
+	}
+
+	private void write(int b) {
+		if (length == buffer.length) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		buffer[length++] = (byte) b;
+	}
+
+	private void write(byte[] bytes, int len) {
+		if (length + len > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + len));
+		}
+		System.arraycopy(bytes, 0, buffer, length, len);
+		length += len;
+	}
+
+	/**
+	 * Computes the hash code of an encoded value. Language tags are compared case-insensitively, like
+	 * {@link Literal#equals(Object)} does.
+	 */
+	private static int hash(byte[] bytes, int offset, int len) {
+		int langEnd = bytes[offset] == LANG_LITERAL ? offset + 3 + readShort(bytes, offset + 1) : offset;
+		int h = 1;
+		for (int i = offset; i < offset + len; i++) {
+			h = 31 * h + (i < langEnd ? toLowerCase(bytes[i]) : bytes[i]);
+		}
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * @return <tt>true</tt> if the value with the ID is the value in {@link #buffer}.
+	 */
+	private boolean matches(int id) {
+		int offset = offsets[id];
+		if (offsets[id + 1] - offset != length) {
+			return false;
+		}
+		byte[] d = data;
+		int langEnd = buffer[0] == LANG_LITERAL ? 3 + readShort(buffer, 1) : 0;
+		for (int i = 0; i < length; i++) {
+			byte a = buffer[i];
+			byte b = d[offset + i];
+			if (a != b && (i >= langEnd || toLowerCase(a) != toLowerCase(b))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int toLowerCase(byte b) {
+		return b >= 'A' && b <= 'Z' ? b + ('a' - 'A') : b;
+	}
+
+	private Value decode(int id) {
+		byte[] d = data;
+		int[] offs = offsets;
+		int offset = offs[id];
+		int end = offs[id + 1];
+		switch (d[offset]) {
+		case IRI:
+			return vf.createIRI(readUTF(d, offset + 1, end));
+		case BNODE:
+			return vf.createBNode(readUTF(d, offset + 1, end));
+		case STRING_LITERAL:
+			return vf.createLiteral(readUTF(d, offset + 1, end));
+		case LANG_LITERAL:
+			int langEnd = offset + 3 + readShort(d, offset + 1);
+			return vf.createLiteral(readUTF(d, langEnd, end), readUTF(d, offset + 3, langEnd));
+		case TYPED_LITERAL:
+			return vf.createLiteral(readUTF(d, offset + 5, end), (IRI) getValue(readInt(d, offset + 1)));
+		case TRIPLE:
+			return vf.createTriple((Resource) getValue(readInt(d, offset + 1)), (IRI) getValue(readInt(d, offset + 5)),
+					getValue(readInt(d, offset + 9)));
+		default:
+			throw new IllegalStateException("Unknown value type: " + d[offset]);
+		}
+	}
+
+	private static String readUTF(byte[] bytes, int offset, int end) {
+		return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+	}
+
+	private static int readShort(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xFF) << 8 | bytes[offset + 1] & 0xFF;
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16 | (bytes[offset + 2] & 0xFF) << 8
+				| bytes[offset + 3] & 0xFF;
+	}
+
+	private static final class CachedValue {
+
+		final int id;
+
+		final Value value;
+
+		CachedValue(int id, Value value) {
+			this.id = id;
+			this.value = value;
+		}
+	}
+}
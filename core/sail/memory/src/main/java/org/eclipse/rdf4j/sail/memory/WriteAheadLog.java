@@ -0,0 +1,388 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.base.SailSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only log of the changes that have been made to a persistent {@link MemoryStore} since its data file was
+ * written. Every flushed change set is appended as a frame that consists of the length of the records, the transaction
+ * of the change set, the records as written by {@link FileIO} and a checksum. A frame that was only partly written
+ * when the process stopped is detected by its length or checksum, and is dropped when the log is replayed.
+ * <p>
+ * The change sets that are flushed by a commit belong to a transaction, which is only replayed if its commit marker has
+ * been appended after all of its change sets. This way a commit is never replayed partly, for example without the
+ * inferred statements that belong to its explicit statements.
+ * <p>
+ * To compact the log, it is renamed to the old log and a new log is started, after which a new data file can be
+ * written in the background. The old log is deleted once the data file has been replaced. Replaying both logs on top of
+ * the data file gives the same result, whether or not the data file already contains the changes of the old log.
+ */
+class WriteAheadLog {
+
+	static final String LOG_FILE_NAME = "memorystore.log";
+
+	static final String OLD_LOG_FILE_NAME = "memorystore.log.old";
+
+	/** Magic number for Binary Memory Store Logs */
+	private static final byte[] MAGIC_NUMBER = new byte[] { 'B', 'M', 'S', 'L' };
+
+	private static final int VERSION = 2;
+
+	private static final int HEADER_SIZE = MAGIC_NUMBER.length + 1;
+
+	/**
+	 * The size of the length, the transaction and the checksum of a frame.
+	 */
+	static final int FRAME_OVERHEAD = 20;
+
+	/**
+	 * The transaction of change sets that do not need a commit marker.
+	 */
+	static final long NO_TRANSACTION = 0;
+
+	private final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+	private final File logFile;
+
+	private final File oldLogFile;
+
+	private FileChannel channel;
+
+	/**
+	 * The number of bytes of the log that contain complete frames.
+	 */
+	private long size;
+
+	/**
+	 * The largest transaction identifier in the logs.
+	 */
+	private long lastTransaction = NO_TRANSACTION;
+
+	private final CRC32 crc = new CRC32();
+
+	public WriteAheadLog(File dataDir) {
+		logFile = new File(dataDir, LOG_FILE_NAME);
+		oldLogFile = new File(dataDir, OLD_LOG_FILE_NAME);
+	}
+
+	/**
+	 * Applies the committed changes of the old log and of the log to the sinks.
+	 *
+	 * @return The number of change sets that have been replayed.
+	 */
+	public synchronized int replay(ValueFactory vf, SailSink explicit, SailSink inferred)
+			throws IOException, SailException {
+		List<File> files = new ArrayList<>(2);
+		if (oldLogFile.exists()) {
+			files.add(oldLogFile);
+		}
+		if (logFile.exists()) {
+			files.add(logFile);
+		}
+
+		// a transaction may have been committed in the log after it was flushed to the old log
+		Set<Long> committed = new HashSet<>();
+		for (File file : files) {
+			scan(file, committed);
+		}
+
+		FileIO fileIO = new FileIO(vf);
+		int count = 0;
+		for (File file : files) {
+			count += replay(file, committed, fileIO, explicit, inferred);
+		}
+		return count;
+	}
+
+	/**
+	 * Collects the transactions that have been committed in the given log, and determines the size of its complete
+	 * frames.
+	 */
+	private void scan(File file, Set<Long> committed) throws IOException {
+		long validSize = 0;
+		long fileSize = file.length();
+		try (DataInputStream in = openLog(file)) {
+			validSize = HEADER_SIZE;
+
+			Frame frame;
+			while ((frame = readFrame(in, fileSize - validSize)) != null) {
+				if (frame.isCommit()) {
+					committed.add(frame.transaction);
+				}
+				lastTransaction = Math.max(lastTransaction, frame.transaction);
+				validSize += frame.records.length + FRAME_OVERHEAD;
+			}
+		} catch (EOFException e) {
+			// the header is incomplete, so no change set has been committed to this log
+		}
+		if (file.equals(logFile)) {
+			size = validSize;
+		}
+	}
+
+	private int replay(File file, Set<Long> committed, FileIO fileIO, SailSink explicit, SailSink inferred)
+			throws IOException, SailException {
+		int count = 0;
+		int skipped = 0;
+		long position = 0;
+		long fileSize = file.length();
+		try (DataInputStream in = openLog(file)) {
+			position = HEADER_SIZE;
+
+			Frame frame;
+			while ((frame = readFrame(in, fileSize - position)) != null) {
+				position += frame.records.length + FRAME_OVERHEAD;
+				if (frame.isCommit()) {
+					continue;
+				}
+				if (frame.transaction != NO_TRANSACTION && !committed.contains(frame.transaction)) {
+					// the process stopped before all change sets of the transaction were appended
+					skipped++;
+					continue;
+				}
+				try (DataInputStream frameIn = new DataInputStream(new ByteArrayInputStream(frame.records))) {
+					fileIO.readChanges(frameIn, explicit, inferred);
+				}
+				count++;
+			}
+		} catch (EOFException e) {
+			// the header is incomplete, so no change set has been committed to this log
+		}
+		if (skipped > 0) {
+			logger.warn("Ignoring {} change sets of uncommitted transactions in {}", skipped, file);
+		}
+		logger.debug("Replayed {} change sets from {}", count, file);
+		return count;
+	}
+
+	private DataInputStream openLog(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())));
+		try {
+			byte[] magicNumber = new byte[MAGIC_NUMBER.length];
+			in.readFully(magicNumber);
+			if (!Arrays.equals(magicNumber, MAGIC_NUMBER)) {
+				throw new IOException("File is not a MemoryStore log: " + file);
+			}
+			int version = in.read();
+			if (version != VERSION) {
+				throw new IOException("Incompatible log format version: " + version);
+			}
+			return in;
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param remaining The number of bytes until the end of the file.
+	 * @return The next frame, or <tt>null</tt> if there is no further complete frame.
+	 */
+	private Frame readFrame(DataInputStream in, long remaining) throws IOException {
+		try {
+			int length = in.readInt();
+			if (length < 0 || length > remaining - FRAME_OVERHEAD) {
+				return null;
+			}
+			long transaction = in.readLong();
+			byte[] records = new byte[length];
+			in.readFully(records);
+			long checksum = in.readLong();
+			if (checksum(transaction, records, length) != checksum) {
+				logger.warn("Ignoring corrupt change set at the end of the MemoryStore log");
+				return null;
+			}
+			return new Frame(transaction, records);
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	private long checksum(long transaction, byte[] records, int length) {
+		crc.reset();
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			crc.update((int) (transaction >>> shift));
+		}
+		crc.update(records, 0, length);
+		return crc.getValue();
+	}
+
+	/**
+	 * Opens the log for appending, dropping any incomplete frame at its end. {@link #replay} needs to be called first
+	 * if the log already exists.
+	 */
+	public synchronized void open() throws IOException {
+		channel = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		if (size < HEADER_SIZE) {
+			channel.truncate(0);
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.put(MAGIC_NUMBER).put((byte) VERSION).flip();
+			write(header);
+			size = HEADER_SIZE;
+		} else {
+			channel.truncate(size);
+			channel.position(size);
+		}
+	}
+
+	/**
+	 * @return A new identifier for the change sets of a transaction, which is larger than the identifiers that are
+	 *         already in the logs.
+	 */
+	public synchronized long nextTransaction() {
+		return ++lastTransaction;
+	}
+
+	/**
+	 * Appends a change set to the log. The change set is not guaranteed to be on disk before {@link #force()} is
+	 * called.
+	 *
+	 * @param transaction The transaction that the change set belongs to, or {@link #NO_TRANSACTION} if it is replayed
+	 *                    without a commit marker.
+	 */
+	public synchronized void append(long transaction, byte[] records, int length) throws IOException {
+		ByteBuffer frame = ByteBuffer.allocate(length + FRAME_OVERHEAD);
+		frame.putInt(length).putLong(transaction).put(records, 0, length);
+		frame.putLong(checksum(transaction, records, length)).flip();
+		write(frame);
+		size += length + FRAME_OVERHEAD;
+	}
+
+	/**
+	 * Appends the commit marker of a transaction, after which its change sets are replayed.
+	 */
+	public synchronized void commit(long transaction) throws IOException {
+		append(transaction, new byte[0], 0);
+	}
+
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Forces the appended change sets to disk.
+	 */
+	public synchronized void force() throws IOException {
+		if (channel != null) {
+			channel.force(false);
+		}
+	}
+
+	/**
+	 * @return <tt>true</tt> if the log does not contain any change sets.
+	 */
+	public synchronized boolean isEmpty() {
+		return size <= HEADER_SIZE;
+	}
+
+	/**
+	 * @return The size of the log in bytes.
+	 */
+	public synchronized long size() {
+		return size;
+	}
+
+	/**
+	 * @return <tt>true</tt> if the old log still exists, because the data file has not been replaced yet.
+	 */
+	public boolean hasOldLog() {
+		return oldLogFile.exists();
+	}
+
+	/**
+	 * Renames the log to the old log and starts a new log.
+	 */
+	public synchronized void rotate() throws IOException {
+		if (oldLogFile.exists()) {
+			throw new IOException("Previous log has not been compacted yet: " + oldLogFile);
+		}
+		channel.force(false);
+		channel.close();
+		channel = null;
+		if (!logFile.renameTo(oldLogFile)) {
+			throw new IOException("Could not rename " + logFile + " to " + oldLogFile.getName());
+		}
+		size = 0;
+		open();
+	}
+
+	/**
+	 * Deletes the old log, once the data file contains its changes.
+	 */
+	public void deleteOldLog() throws IOException {
+		Files.deleteIfExists(oldLogFile.toPath());
+	}
+
+	public synchronized void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	/**
+	 * Closes and deletes both logs, once the data file contains all their changes.
+	 */
+	public synchronized void delete() throws IOException {
+		close();
+		deleteOldLog();
+		Files.deleteIfExists(logFile.toPath());
+		size = 0;
+	}
+
+	/**
+	 * @return <tt>true</tt> if there is a log in the directory.
+	 */
+	static boolean exists(File dataDir) {
+		return new File(dataDir, LOG_FILE_NAME).exists() || new File(dataDir, OLD_LOG_FILE_NAME).exists();
+	}
+
+	private static final class Frame {
+
+		private final long transaction;
+
+		private final byte[] records;
+
+		public Frame(long transaction, byte[] records) {
+			this.transaction = transaction;
+			this.records = records;
+		}
+
+		/**
+		 * @return <tt>true</tt> if this is the commit marker of its transaction.
+		 */
+		public boolean isCommit() {
+			return records.length == 0 && transaction != NO_TRANSACTION;
+		}
+	}
+}
@@ -7,6 +7,8 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.memory.config;
 
+import static org.eclipse.rdf4j.sail.memory.config.MemoryStoreSchema.CHUNKED_DATA_FILE;
+import static org.eclipse.rdf4j.sail.memory.config.MemoryStoreSchema.COLUMNAR;
 import static org.eclipse.rdf4j.sail.memory.config.MemoryStoreSchema.NAMESPACE;
 import static org.eclipse.rdf4j.sail.memory.config.MemoryStoreSchema.PERSIST;
 import static org.eclipse.rdf4j.sail.memory.config.MemoryStoreSchema.SYNC_DELAY;
@@ -29,6 +31,10 @@ public class MemoryStoreConfig extends BaseSailConfig {
 
 	private long syncDelay = 0L;
 
+	private boolean columnar = false;
+
+	private boolean chunkedDataFile = false;
+
 	public MemoryStoreConfig() {
 		super(MemoryStoreFactory.SAIL_TYPE);
 	}
@@ -59,6 +65,22 @@ public class MemoryStoreConfig extends BaseSailConfig {
 		this.syncDelay = syncDelay;
 	}
 
+	public boolean isColumnar() {
+		return columnar;
+	}
+
+	public void setColumnar(boolean columnar) {
+		this.columnar = columnar;
+	}
+
+	public boolean isChunkedDataFile() {
+		return chunkedDataFile;
+	}
+
+	public void setChunkedDataFile(boolean chunkedDataFile) {
+		this.chunkedDataFile = chunkedDataFile;
+	}
+
 	@Override
 	public Resource export(Model graph) {
 		Resource implNode = super.export(graph);
@@ -72,6 +94,14 @@ public class MemoryStoreConfig extends BaseSailConfig {
 			graph.add(implNode, SYNC_DELAY, SimpleValueFactory.getInstance().createLiteral(syncDelay));
 		}
 
+		if (columnar) {
+			graph.add(implNode, COLUMNAR, BooleanLiteral.TRUE);
+		}
+
+		if (chunkedDataFile) {
+			graph.add(implNode, CHUNKED_DATA_FILE, BooleanLiteral.TRUE);
+		}
+
 		return implNode;
 	}
 
@@ -98,6 +128,24 @@ public class MemoryStoreConfig extends BaseSailConfig {
 							"Long integer value required for " + SYNC_DELAY + " property, found " + syncDelayValue);
 				}
 			});
+
+			Models.objectLiteral(graph.getStatements(implNode, COLUMNAR, null)).ifPresent(columnarValue -> {
+				try {
+					setColumnar(columnarValue.booleanValue());
+				} catch (IllegalArgumentException e) {
+					throw new SailConfigException(
+							"Boolean value required for " + COLUMNAR + " property, found " + columnarValue);
+				}
+			});
+
+			Models.objectLiteral(graph.getStatements(implNode, CHUNKED_DATA_FILE, null)).ifPresent(chunkedValue -> {
+				try {
+					setChunkedDataFile(chunkedValue.booleanValue());
+				} catch (IllegalArgumentException e) {
+					throw new SailConfigException(
+							"Boolean value required for " + CHUNKED_DATA_FILE + " property, found " + chunkedValue);
+				}
+			});
 		} catch (ModelException e) {
 			throw new SailConfigException(e.getMessage(), e);
 		}
@@ -29,9 +29,17 @@ public class MemoryStoreSchema {
 	/** <tt>http://www.openrdf.org/config/sail/memory#syncDelay</tt> */
 	public final static IRI SYNC_DELAY;
 
+	/** <tt>http://www.openrdf.org/config/sail/memory#columnar</tt> */
+	public final static IRI COLUMNAR;
+
+	/** <tt>http://www.openrdf.org/config/sail/memory#chunkedDataFile</tt> */
+	public final static IRI CHUNKED_DATA_FILE;
+
 	static {
 		ValueFactory factory = SimpleValueFactory.getInstance();
 		PERSIST = factory.createIRI(NAMESPACE, "persist");
 		SYNC_DELAY = factory.createIRI(NAMESPACE, "syncDelay");
+		COLUMNAR = factory.createIRI(NAMESPACE, "columnar");
+		CHUNKED_DATA_FILE = factory.createIRI(NAMESPACE, "chunkedDataFile");
 	}
 }
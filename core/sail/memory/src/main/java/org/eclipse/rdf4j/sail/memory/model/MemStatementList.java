@@ -139,6 +139,26 @@ public class MemStatementList {
 		}
 	}
 
+	/**
+	 * Removes the deprecated statements from a part of this list, so that a large list can be cleaned up in several
+	 * steps. Statements are checked from the specified index downwards. A deprecated statement is replaced by the last
+	 * statement of the list, which has already been checked when the list is cleaned up from the end.
+	 *
+	 * @param currentSnapshot The current snapshot version.
+	 * @param index           The index of the first statement to check.
+	 * @param count           The maximum number of statements to check.
+	 * @return The index of the next statement to check, or <tt>-1</tt> if the start of the list has been reached.
+	 */
+	public int cleanSnapshots(int currentSnapshot, int index, int count) {
+		int end = Math.max(index - count, -1);
+		for (int i = Math.min(index, size - 1); i > end; i--) {
+			if (statements[i].getTillSnapshot() <= currentSnapshot) {
+				remove(i);
+			}
+		}
+		return end;
+	}
+
 	private void growArray(int newSize) {
 		MemStatement[] newArray = new MemStatement[newSize];
 		System.arraycopy(statements, 0, newArray, 0, size);
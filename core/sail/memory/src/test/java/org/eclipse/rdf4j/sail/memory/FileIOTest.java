@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.rdf4j.IsolationLevels;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the data file format of a persistent {@link MemoryStore}.
+ */
+public class FileIOTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	@Test
+	public void testChunkedRoundTrip() throws Exception {
+		File dataDir = tempDir.newFolder();
+		MemoryStore store = new MemoryStore(dataDir);
+		store.setChunkedDataFile(true);
+		store.init();
+		ValueFactory vf = store.getValueFactory();
+		IRI graph = vf.createIRI(EX_NS, "graph");
+		// enough statements for several chunks
+		int count = 150000;
+		try (SailConnection con = store.getConnection()) {
+			con.begin(IsolationLevels.NONE);
+			con.setNamespace("ex", EX_NS);
+			for (int i = 0; i < count; i++) {
+				IRI subj = vf.createIRI(EX_NS, "s" + i);
+				con.addStatement(subj, RDF.TYPE, RDFS.RESOURCE);
+				con.addStatement(subj, RDFS.LABEL, vf.createLiteral(i), graph);
+			}
+			con.addStatement(vf.createTriple(graph, RDF.TYPE, RDFS.RESOURCE), RDFS.COMMENT,
+					vf.createLiteral("triple", "en"));
+			con.commit();
+		}
+		store.shutDown();
+		assertEquals(3, getFormatVersion(dataDir));
+
+		store = new MemoryStore(dataDir);
+		store.init();
+		vf = store.getValueFactory();
+		try (SailConnection con = store.getConnection()) {
+			assertEquals(count * 2 + 1, con.size());
+			assertEquals(EX_NS, con.getNamespace("ex"));
+			assertTrue(con.hasStatement(vf.createIRI(EX_NS, "s0"), RDF.TYPE, RDFS.RESOURCE, false));
+			assertTrue(con.hasStatement(vf.createIRI(EX_NS, "s" + (count - 1)), RDFS.LABEL,
+					vf.createLiteral(count - 1), false, vf.createIRI(EX_NS, "graph")));
+			assertTrue(con.hasStatement(vf.createTriple(vf.createIRI(EX_NS, "graph"), RDF.TYPE, RDFS.RESOURCE),
+					RDFS.COMMENT, vf.createLiteral("triple", "en"), false));
+		} finally {
+			store.shutDown();
+		}
+	}
+
+	@Test
+	public void testWriteVersion2ByDefault() throws Exception {
+		File dataDir = tempDir.newFolder();
+		MemoryStore store = new MemoryStore(dataDir);
+		store.init();
+		ValueFactory vf = store.getValueFactory();
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			con.setNamespace("ex", EX_NS);
+			con.addStatement(vf.createIRI(EX_NS, "a"), RDF.TYPE, RDFS.CLASS, vf.createIRI(EX_NS, "graph"));
+			con.commit();
+		}
+		store.shutDown();
+		assertEquals(2, getFormatVersion(dataDir));
+
+		store = new MemoryStore(dataDir);
+		store.init();
+		try (SailConnection con = store.getConnection()) {
+			assertEquals(1, con.size());
+			assertEquals(EX_NS, con.getNamespace("ex"));
+		} finally {
+			store.shutDown();
+		}
+	}
+
+	@Test
+	public void testReadVersion2() throws Exception {
+		File dataDir = tempDir.newFolder();
+		try (OutputStream out = Files.newOutputStream(new File(dataDir, MemoryStore.DATA_FILE_NAME).toPath())) {
+			out.write(new byte[] { 'B', 'M', 'S', 'F', 2 });
+			try (DataOutputStream dataOut = new DataOutputStream(new GZIPOutputStream(out))) {
+				dataOut.writeByte(FileIO.NAMESPACE_MARKER);
+				writeString("ex", dataOut);
+				writeString(EX_NS, dataOut);
+
+				dataOut.writeByte(FileIO.EXPL_TRIPLE_MARKER);
+				dataOut.writeByte(FileIO.URI_MARKER);
+				writeString(EX_NS + "a", dataOut);
+				dataOut.writeByte(FileIO.URI_MARKER);
+				writeString(RDF.TYPE.stringValue(), dataOut);
+				dataOut.writeByte(FileIO.URI_MARKER);
+				writeString(RDFS.CLASS.stringValue(), dataOut);
+
+				dataOut.writeByte(FileIO.INF_QUAD_MARKER);
+				dataOut.writeByte(FileIO.URI_MARKER);
+				writeString(EX_NS + "a", dataOut);
+				dataOut.writeByte(FileIO.URI_MARKER);
+				writeString(RDFS.LABEL.stringValue(), dataOut);
+				dataOut.writeByte(FileIO.LANG_LITERAL_MARKER);
+				writeString("a", dataOut);
+				writeString("en", dataOut);
+				dataOut.writeByte(FileIO.BNODE_MARKER);
+				writeString("graph", dataOut);
+
+				dataOut.writeByte(FileIO.EOF_MARKER);
+			}
+		}
+
+		MemoryStore store = new MemoryStore(dataDir);
+		store.init();
+		ValueFactory vf = store.getValueFactory();
+		try (SailConnection con = store.getConnection()) {
+			assertEquals(1, con.size());
+			assertEquals(EX_NS, con.getNamespace("ex"));
+			assertTrue(con.hasStatement(vf.createIRI(EX_NS, "a"), RDF.TYPE, RDFS.CLASS, false));
+			assertTrue(con.hasStatement(vf.createIRI(EX_NS, "a"), RDFS.LABEL, vf.createLiteral("a", "en"), true,
+					vf.createBNode("graph")));
+		} finally {
+			store.shutDown();
+		}
+	}
+
+	private int getFormatVersion(File dataDir) throws IOException {
+		byte[] header = Files.readAllBytes(new File(dataDir, MemoryStore.DATA_FILE_NAME).toPath());
+		return header[4];
+	}
+
+	private void writeString(String s, DataOutputStream dataOut) throws IOException {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		dataOut.writeInt(bytes.length);
+		dataOut.write(bytes);
+	}
+}
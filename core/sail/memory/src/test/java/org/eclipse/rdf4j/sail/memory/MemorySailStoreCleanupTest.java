@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.rdf4j.IsolationLevels;
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the snapshot cleanup of {@link MemorySailStore}.
+ */
+public class MemorySailStoreCleanupTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	private MemoryStore store;
+
+	private ValueFactory vf;
+
+	@Before
+	public void setUp() throws Exception {
+		store = new MemoryStore();
+		store.initialize();
+		vf = store.getValueFactory();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		store.shutDown();
+	}
+
+	@Test
+	public void testCleanupInBatches() throws Exception {
+		IRI type = vf.createIRI(EX_NS, "Type");
+		// the statement list of rdf:type is larger than a batch of the cleanup
+		try (SailConnection con = store.getConnection()) {
+			con.begin(IsolationLevels.NONE);
+			for (int i = 0; i < 5000; i++) {
+				con.addStatement(vf.createIRI(EX_NS, "s" + i), RDF.TYPE, type);
+				con.addStatement(vf.createIRI(EX_NS, "s" + i), RDFS.LABEL, vf.createLiteral(i));
+			}
+			con.commit();
+
+			con.begin(IsolationLevels.NONE);
+			for (int i = 0; i < 5000; i += 2) {
+				con.removeStatements(vf.createIRI(EX_NS, "s" + i), RDF.TYPE, type);
+			}
+			con.commit();
+		}
+
+		// 2500 of 10000 statements are enough for the background cleanup to clean up the main statement list as well
+		long timeout = System.currentTimeMillis() + 10000;
+		while (store.getDeprecatedStatementCount() > 0 && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		assertEquals(0, store.getDeprecatedStatementCount());
+		try (SailConnection con = store.getConnection()) {
+			assertEquals(2500, Iterations.asList(con.getStatements(null, RDF.TYPE, type, false)).size());
+			assertEquals(7500, con.size());
+			assertFalse(con.hasStatement(vf.createIRI(EX_NS, "s0"), RDF.TYPE, type, false));
+			assertTrue(con.hasStatement(vf.createIRI(EX_NS, "s1"), RDF.TYPE, type, false));
+		}
+	}
+
+	@Test
+	public void testMainListCleanupIsDeferred() throws Exception {
+		try (SailConnection con = store.getConnection()) {
+			con.begin(IsolationLevels.NONE);
+			for (int i = 0; i < 100; i++) {
+				con.addStatement(vf.createIRI(EX_NS, "s" + i), RDF.TYPE, RDFS.RESOURCE);
+			}
+			con.commit();
+
+			con.begin(IsolationLevels.NONE);
+			con.removeStatements(vf.createIRI(EX_NS, "s0"), null, null);
+			con.commit();
+		}
+
+		MemorySailStore sailStore = (MemorySailStore) store.getSailStore();
+		sailStore.cleanSnapshots();
+
+		// a single removed statement stays in the main statement list, but is no longer visible
+		assertEquals(1, store.getDeprecatedStatementCount());
+		try (SailConnection con = store.getConnection()) {
+			assertEquals(99, con.size());
+			assertEquals(99, Iterations.asList(con.getStatements(null, null, null, false)).size());
+			assertFalse(con.hasStatement(vf.createIRI(EX_NS, "s0"), null, null, false));
+		}
+	}
+}
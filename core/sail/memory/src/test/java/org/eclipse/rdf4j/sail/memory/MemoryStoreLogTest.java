@@ -0,0 +1,287 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import org.eclipse.rdf4j.IsolationLevels;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the log of the changes to a persistent {@link MemoryStore}.
+ */
+public class MemoryStoreLogTest {
+
+	private static final String EX_NS = "http://example.org/";
+
+	@Rule
+	public TemporaryFolder tempDir = new TemporaryFolder();
+
+	private File dataDir;
+
+	private MemoryStore store;
+
+	private ValueFactory vf;
+
+	private IRI graph;
+
+	@Before
+	public void setUp() throws Exception {
+		dataDir = tempDir.newFolder("store");
+		store = new MemoryStore(dataDir);
+		store.init();
+		vf = store.getValueFactory();
+		graph = vf.createIRI(EX_NS, "graph");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		store.shutDown();
+	}
+
+	@Test
+	public void testReplay() throws Exception {
+		long dataFileSize = new File(dataDir, MemoryStore.DATA_FILE_NAME).length();
+		addStatements();
+
+		// commits only append to the log
+		assertEquals(dataFileSize, new File(dataDir, MemoryStore.DATA_FILE_NAME).length());
+		assertTrue(new File(dataDir, WriteAheadLog.LOG_FILE_NAME).length() > 0);
+
+		MemoryStore restored = restoreCopy();
+		try {
+			assertContents(restored);
+		} finally {
+			restored.shutDown();
+		}
+	}
+
+	@Test
+	public void testReplayIgnoresIncompleteChangeSet() throws Exception {
+		addStatements();
+		File copy = copyFiles();
+		try (OutputStream out = Files.newOutputStream(new File(copy, WriteAheadLog.LOG_FILE_NAME).toPath(),
+				StandardOpenOption.APPEND)) {
+			// the length of a change set that was not written completely
+			out.write(new byte[] { 0, 0, 1, 0, FileIO.EXPL_TRIPLE_MARKER });
+		}
+
+		MemoryStore restored = new MemoryStore(copy);
+		restored.init();
+		try {
+			assertContents(restored);
+
+			// the incomplete change set is dropped before new change sets are appended
+			try (SailConnection con = restored.getConnection()) {
+				con.begin();
+				con.addStatement(vf.createIRI(EX_NS, "d"), RDF.TYPE, RDFS.RESOURCE);
+				con.commit();
+			}
+			File copyOfCopy = tempDir.newFolder();
+			copyFiles(copy, copyOfCopy);
+			MemoryStore restoredAgain = new MemoryStore(copyOfCopy);
+			restoredAgain.init();
+			try (SailConnection con = restoredAgain.getConnection()) {
+				assertTrue(con.hasStatement(vf.createIRI(EX_NS, "d"), RDF.TYPE, RDFS.RESOURCE, false));
+			} finally {
+				restoredAgain.shutDown();
+			}
+		} finally {
+			restored.shutDown();
+		}
+	}
+
+	@Test
+	public void testReplayIgnoresIncompleteTransaction() throws Exception {
+		addStatements();
+		File logFile = new File(dataDir, WriteAheadLog.LOG_FILE_NAME);
+		long committedSize = logFile.length();
+
+		IRI d = vf.createIRI(EX_NS, "d");
+		try (MemoryStoreConnection con = (MemoryStoreConnection) store.getConnection()) {
+			con.begin();
+			con.addStatement(d, RDF.TYPE, RDFS.CLASS);
+			con.addInferredStatement(d, RDFS.SUBCLASSOF, RDFS.RESOURCE);
+			con.commit();
+		}
+
+		// the explicit and the inferred change set, followed by the commit marker
+		long firstFrameSize;
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(logFile.toPath()))) {
+			in.skipBytes((int) committedSize);
+			firstFrameSize = in.readInt() + WriteAheadLog.FRAME_OVERHEAD;
+		}
+		long markerOffset = logFile.length() - WriteAheadLog.FRAME_OVERHEAD;
+		assertTrue(committedSize + firstFrameSize < markerOffset);
+
+		for (long length : new long[] { committedSize + firstFrameSize, markerOffset }) {
+			File copy = copyFiles();
+			try (FileChannel channel = FileChannel.open(new File(copy, WriteAheadLog.LOG_FILE_NAME).toPath(),
+					StandardOpenOption.WRITE)) {
+				channel.truncate(length);
+			}
+
+			MemoryStore restored = new MemoryStore(copy);
+			restored.init();
+			try {
+				assertContents(restored);
+				try (SailConnection con = restored.getConnection()) {
+					assertFalse(con.hasStatement(d, null, null, true));
+
+					// the transactions of the restored store are not confused with the incomplete one
+					con.begin();
+					con.addStatement(vf.createIRI(EX_NS, "e"), RDF.TYPE, RDFS.CLASS);
+					con.commit();
+				}
+				File copyOfCopy = tempDir.newFolder();
+				copyFiles(copy, copyOfCopy);
+				MemoryStore restoredAgain = new MemoryStore(copyOfCopy);
+				restoredAgain.init();
+				try (SailConnection con = restoredAgain.getConnection()) {
+					assertTrue(con.hasStatement(vf.createIRI(EX_NS, "e"), RDF.TYPE, RDFS.CLASS, false));
+					assertFalse(con.hasStatement(d, null, null, true));
+				} finally {
+					restoredAgain.shutDown();
+				}
+			} finally {
+				restored.shutDown();
+			}
+		}
+
+		MemoryStore restored = restoreCopy();
+		try (SailConnection con = restored.getConnection()) {
+			assertTrue(con.hasStatement(d, RDF.TYPE, RDFS.CLASS, false));
+			assertTrue(con.hasStatement(d, RDFS.SUBCLASSOF, RDFS.RESOURCE, true));
+		} finally {
+			restored.shutDown();
+		}
+	}
+
+	@Test
+	public void testCompaction() throws Exception {
+		addStatements();
+		store.compactLog();
+
+		assertFalse(new File(dataDir, WriteAheadLog.OLD_LOG_FILE_NAME).exists());
+		MemoryStore restored = restoreCopy();
+		try (SailConnection con = restored.getConnection()) {
+			assertEquals(3, con.size());
+		} finally {
+			restored.shutDown();
+		}
+
+		// changes after the compaction are logged to the new log
+		try (SailConnection con = store.getConnection()) {
+			con.begin();
+			con.removeStatements(null, RDF.TYPE, null);
+			con.commit();
+		}
+		restored = restoreCopy();
+		try (SailConnection con = restored.getConnection()) {
+			assertEquals(2, con.size());
+		} finally {
+			restored.shutDown();
+		}
+	}
+
+	@Test
+	public void testShutDownWritesDataFile() throws Exception {
+		addStatements();
+		store.shutDown();
+
+		assertFalse(new File(dataDir, WriteAheadLog.LOG_FILE_NAME).exists());
+		assertFalse(new File(dataDir, WriteAheadLog.OLD_LOG_FILE_NAME).exists());
+
+		store = new MemoryStore(dataDir);
+		store.init();
+		assertContents(store);
+	}
+
+	private void addStatements() {
+		IRI a = vf.createIRI(EX_NS, "a");
+		IRI b = vf.createIRI(EX_NS, "b");
+		IRI c = vf.createIRI(EX_NS, "c");
+		try (SailConnection con = store.getConnection()) {
+			con.begin(IsolationLevels.SNAPSHOT);
+			con.setNamespace("ex", EX_NS);
+			con.addStatement(a, RDF.TYPE, RDFS.CLASS);
+			con.addStatement(b, RDF.TYPE, RDFS.CLASS);
+			con.addStatement(c, RDFS.LABEL, vf.createLiteral("c", "en"), graph);
+			con.addStatement(c, RDFS.COMMENT, vf.createTriple(a, RDFS.SUBCLASSOF, b), graph);
+			con.commit();
+
+			con.begin(IsolationLevels.SNAPSHOT);
+			con.removeStatements(b, null, null);
+			con.clear(graph);
+			con.addStatement(c, RDFS.LABEL, vf.createLiteral(42), graph);
+			con.commit();
+
+			con.begin(IsolationLevels.NONE);
+			con.addStatement(b, RDFS.SUBCLASSOF, a);
+			con.commit();
+		}
+	}
+
+	private void assertContents(MemoryStore restored) {
+		IRI a = vf.createIRI(EX_NS, "a");
+		IRI b = vf.createIRI(EX_NS, "b");
+		IRI c = vf.createIRI(EX_NS, "c");
+		try (SailConnection con = restored.getConnection()) {
+			assertEquals(3, con.size());
+			assertTrue(con.hasStatement(a, RDF.TYPE, RDFS.CLASS, false));
+			assertTrue(con.hasStatement(b, RDFS.SUBCLASSOF, a, false));
+			assertTrue(con.hasStatement(c, RDFS.LABEL, vf.createLiteral(42), false, graph));
+			assertFalse(con.hasStatement(b, RDF.TYPE, null, false));
+			assertEquals(EX_NS, con.getNamespace("ex"));
+		}
+	}
+
+	/**
+	 * Restores a copy of the files of the store, as they would be found if the process had stopped.
+	 */
+	private MemoryStore restoreCopy() throws IOException {
+		MemoryStore restored = new MemoryStore(copyFiles());
+		restored.init();
+		return restored;
+	}
+
+	private File copyFiles() throws IOException {
+		File copy = tempDir.newFolder();
+		copyFiles(dataDir, copy);
+		return copy;
+	}
+
+	private void copyFiles(File from, File to) throws IOException {
+		for (String name : new String[] { MemoryStore.DATA_FILE_NAME, WriteAheadLog.LOG_FILE_NAME,
+				WriteAheadLog.OLD_LOG_FILE_NAME }) {
+			File file = new File(from, name);
+			if (file.exists()) {
+				Files.copy(file.toPath(), new File(to, name).toPath());
+			}
+		}
+	}
+}
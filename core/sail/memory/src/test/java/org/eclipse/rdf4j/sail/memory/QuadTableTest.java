@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.memory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.eclipse.rdf4j.sail.memory.QuadTable.Columns;
+import org.junit.Test;
+
+/**
+ * Tests the compaction of {@link QuadTable}.
+ */
+public class QuadTableTest {
+
+	@Test
+	public void testCompactionKeepsConcurrentChanges() {
+		QuadTable table = new QuadTable();
+		for (int i = 1; i <= 10; i++) {
+			table.add(i, 100, 200, 0, true, 1);
+		}
+		for (int row = 0; row < 10; row += 2) {
+			table.setTillSnapshot(row, 2);
+		}
+
+		QuadTable.Compaction compaction = table.startCompaction(2);
+		assertNotNull(compaction);
+
+		// changes of the writer while the rows are copied
+		table.setTillSnapshot(1, 3);
+		table.add(1000, 100, 200, 0, false, 3);
+		assertEquals(11, table.size());
+
+		assertEquals(5, compaction.swap());
+		assertEquals(6, table.size());
+		Columns c = table.columns();
+		assertEquals(2, c.values[QuadTable.SUBJ][0]);
+		assertEquals(3, c.till[0]);
+		assertEquals(Integer.MAX_VALUE, c.till[1]);
+		assertEquals(1000, c.values[QuadTable.SUBJ][5]);
+		assertEquals(3, c.since[5]);
+		assertEquals(false, c.explicit[5]);
+
+		// the chains only link the remaining rows
+		assertEquals(6, c.count(QuadTable.PRED, 100));
+		int rows = 0;
+		for (int row = c.first(QuadTable.PRED, 100); row >= 0; row = c.next[QuadTable.PRED][row]) {
+			rows++;
+		}
+		assertEquals(6, rows);
+		assertEquals(5, c.first(QuadTable.SUBJ, 1000));
+	}
+
+	@Test
+	public void testCompactionWithoutRemovedRows() {
+		QuadTable table = new QuadTable();
+		table.add(1, 2, 3, 0, true, 1);
+		assertNull(table.startCompaction(1));
+	}
+
+	@Test
+	public void testCompactionAfterClear() {
+		QuadTable table = new QuadTable();
+		table.add(1, 2, 3, 0, true, 1);
+		table.setTillSnapshot(0, 2);
+
+		QuadTable.Compaction compaction = table.startCompaction(2);
+		table.clear();
+		assertEquals(0, compaction.swap());
+		assertEquals(0, table.size());
+	}
+}
@@ -29,6 +29,7 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
@@ -47,7 +48,14 @@ public class MemoryBenchmark {
 	@Param({ "NONE", "READ_UNCOMMITTED", "READ_COMMITTED", "SNAPSHOT_READ", "SNAPSHOT", "SERIALIZABLE" })
 	public String isolationLevel;
 
-	private List<Statement> statementList = getStatements();
+	@Param({ "false", "true" })
+	public boolean columnar;
+
+	private List<Statement> statementList = getStatements(1000);
+
+	private MemoryStore queryStore;
+
+	private List<IRI> subjects;
 
 	public static void main(String[] args) throws RunnerException {
 		Options opt = new OptionsBuilder()
@@ -64,11 +72,72 @@ public class MemoryBenchmark {
 		System.gc();
 	}
 
+	@Setup(Level.Trial)
+	public void setUpQueryStore() {
+		List<Statement> statements = getStatements(100_000);
+		ValueFactory vf = SimpleValueFactory.getInstance();
+		subjects = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			subjects.add(vf.createIRI("http://ex/" + i * 100));
+		}
+
+		long before = usedMemory();
+		queryStore = createStore();
+		try (NotifyingSailConnection connection = queryStore.getConnection()) {
+			connection.begin(IsolationLevels.NONE);
+			statements.forEach(
+					st -> connection.addStatement(st.getSubject(), st.getPredicate(), st.getObject(), st.getContext()));
+			connection.commit();
+		}
+		long bytes = usedMemory() - before;
+		System.out.printf("%ncolumnar=%s: %d statements, %.1f bytes per triple%n", columnar, statements.size(),
+				(double) bytes / statements.size());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownQueryStore() {
+		queryStore.shutDown();
+	}
+
 	@Benchmark
-	public void load() {
+	public long query() {
+		try (NotifyingSailConnection connection = queryStore.getConnection()) {
+			connection.begin(IsolationLevels.valueOf(isolationLevel));
+			long count = 0;
+			for (IRI subject : subjects) {
+				try (Stream<? extends Statement> stream = connection.getStatements(subject, FOAF.KNOWS, null, false)
+						.stream()) {
+					count += stream.count();
+				}
+			}
+			try (Stream<? extends Statement> stream = connection.getStatements(null, FOAF.AGE, null, false)
+					.stream()) {
+				count += stream.count();
+			}
+			connection.commit();
+			return count;
+		}
+	}
 
+	private MemoryStore createStore() {
 		MemoryStore memoryStore = new MemoryStore();
+		memoryStore.setColumnar(columnar);
 		memoryStore.initialize();
+		return memoryStore;
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	@Benchmark
+	public void load() {
+
+		MemoryStore memoryStore = createStore();
 
 		try (NotifyingSailConnection connection = memoryStore.getConnection()) {
 			connection.begin(IsolationLevels.valueOf(isolationLevel));
@@ -83,8 +152,7 @@ public class MemoryBenchmark {
 	@Benchmark
 	public long size() {
 
-		MemoryStore memoryStore = new MemoryStore();
-		memoryStore.initialize();
+		MemoryStore memoryStore = createStore();
 
 		try (NotifyingSailConnection connection = memoryStore.getConnection()) {
 			connection.begin(IsolationLevels.valueOf(isolationLevel));
@@ -101,8 +169,7 @@ public class MemoryBenchmark {
 	@Benchmark
 	public long duplicates() {
 
-		MemoryStore memoryStore = new MemoryStore();
-		memoryStore.initialize();
+		MemoryStore memoryStore = createStore();
 
 		try (NotifyingSailConnection connection = memoryStore.getConnection()) {
 			connection.begin(IsolationLevels.valueOf(isolationLevel));
@@ -132,8 +199,7 @@ public class MemoryBenchmark {
 	@Benchmark
 	public long duplicatesFlush() {
 
-		MemoryStore memoryStore = new MemoryStore();
-		memoryStore.initialize();
+		MemoryStore memoryStore = createStore();
 
 		try (NotifyingSailConnection connection = memoryStore.getConnection()) {
 			connection.begin(IsolationLevels.valueOf(isolationLevel));
@@ -165,8 +231,7 @@ public class MemoryBenchmark {
 	@Benchmark
 	public long duplicatesAndNewStatements() {
 
-		MemoryStore memoryStore = new MemoryStore();
-		memoryStore.initialize();
+		MemoryStore memoryStore = createStore();
 
 		try (NotifyingSailConnection connection = memoryStore.getConnection()) {
 			connection.begin(IsolationLevels.valueOf(isolationLevel));
@@ -199,8 +264,7 @@ public class MemoryBenchmark {
 	@Benchmark
 	public long duplicatesAndNewStatementsGetFirst() {
 
-		MemoryStore memoryStore = new MemoryStore();
-		memoryStore.initialize();
+		MemoryStore memoryStore = createStore();
 
 		try (NotifyingSailConnection connection = memoryStore.getConnection()) {
 			connection.begin(IsolationLevels.valueOf(isolationLevel));
@@ -236,8 +300,7 @@ public class MemoryBenchmark {
 	@Benchmark
 	public long singleTransactionGetFirstStatement() {
 
-		MemoryStore memoryStore = new MemoryStore();
-		memoryStore.initialize();
+		MemoryStore memoryStore = createStore();
 
 		try (NotifyingSailConnection connection = memoryStore.getConnection()) {
 			connection.begin(IsolationLevels.valueOf(isolationLevel));
@@ -263,8 +326,7 @@ public class MemoryBenchmark {
 	@Benchmark
 	public long duplicatesAndNewStatementsIteratorMatchesNothing() {
 
-		MemoryStore memoryStore = new MemoryStore();
-		memoryStore.initialize();
+		MemoryStore memoryStore = createStore();
 
 		try (NotifyingSailConnection connection = memoryStore.getConnection()) {
 			connection.begin(IsolationLevels.valueOf(isolationLevel));
@@ -305,14 +367,13 @@ public class MemoryBenchmark {
 		return count;
 	}
 
-	private static List<Statement> getStatements() {
+	private static List<Statement> getStatements(int size) {
 		Random random = new Random();
 
 		ValueFactory vf = SimpleValueFactory.getInstance();
 
 		List<Statement> statementList = new ArrayList<>();
 
-		int size = 1000;
 		for (int i = 0; i < size; i++) {
 
 			IRI subject = vf.createIRI("http://ex/" + i);
@@ -0,0 +1,502 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+import org.eclipse.rdf4j.sail.nativerdf.btree.RecordIterator;
+
+/**
+ * Sorts quads of value IDs on disk, in the orders of one or more triple indexes. Quads are collected in a buffer; each
+ * time the buffer is full, it is sorted once for every index and written to a sorted run file per index. The sorted
+ * quads of an index are produced by merging its runs, dropping any duplicates on the way.
+ * <p>
+ * In memory and in the run files, a quad is encoded as two longs whose (unsigned) order is the order of the index: the
+ * first long holds the first two IDs of the index's field sequence, the second long the last two.
+ */
+class ExternalQuadSorter implements Closeable {
+
+	/**
+	 * The maximum number of runs that are merged at the same time. Indexes with more runs are merged in several passes.
+	 */
+	private static final int MAX_MERGE_FAN_IN = 64;
+
+	private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+	private final File tmpDir;
+
+	private final char[][] fieldSeqs;
+
+	/**
+	 * The sorted runs of each index.
+	 */
+	private final List<List<Run>> runs = new ArrayList<>();
+
+	/**
+	 * The quads that have been added since the last flush, as consecutive subject, predicate, object and context IDs.
+	 */
+	private final int[] quads;
+
+	/**
+	 * The encoded keys of the buffered quads, reused for the sort of each index.
+	 */
+	private final long[] keys;
+
+	private int quadCount;
+
+	private int runCount;
+
+	/**
+	 * Creates a new sorter.
+	 *
+	 * @param parentDir  The directory in which a directory for the run files is created.
+	 * @param fieldSeqs  The field sequences (e.g. "spoc") of the indexes for which the quads are sorted.
+	 * @param bufferSize The number of quads that are sorted in memory. The sorter allocates 32 bytes per quad.
+	 */
+	ExternalQuadSorter(File parentDir, List<String> fieldSeqs, int bufferSize) throws IOException {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("buffer size must be larger than 0");
+		}
+
+		this.tmpDir = Files.createTempDirectory(parentDir.toPath(), "bulkload").toFile();
+		this.fieldSeqs = new char[fieldSeqs.size()][];
+		for (int i = 0; i < this.fieldSeqs.length; i++) {
+			this.fieldSeqs[i] = fieldSeqs.get(i).toCharArray();
+			runs.add(new ArrayList<>());
+		}
+		this.quads = new int[4 * bufferSize];
+		this.keys = new long[2 * bufferSize];
+	}
+
+	public void add(int subj, int pred, int obj, int context) throws IOException {
+		if (4 * quadCount == quads.length) {
+			flush();
+		}
+
+		int offset = 4 * quadCount++;
+		quads[offset] = subj;
+		quads[offset + 1] = pred;
+		quads[offset + 2] = obj;
+		quads[offset + 3] = context;
+	}
+
+	/**
+	 * Counts the number of distinct quads that have been added.
+	 *
+	 * @param contextSizes A map to which the number of distinct quads per context is added, excluding the default
+	 *                     context (ID <tt>0</tt>).
+	 */
+	public long countDistinct(Map<Integer, Long> contextSizes) throws IOException {
+		int indexNo = 0;
+		int contextPos = new String(fieldSeqs[indexNo]).indexOf('c');
+
+		long count = 0L;
+		try (RunMerger merger = openMerger(indexNo)) {
+			while (merger.next()) {
+				count++;
+
+				long key = contextPos < 2 ? merger.hi : merger.lo;
+				int context = (int) (contextPos % 2 == 0 ? key >>> 32 : key);
+				if (context != 0) {
+					contextSizes.merge(context, 1L, Long::sum);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the distinct quads that have been added, sorted in the order of the specified index. The quads are returned
+	 * as triple store records that are flagged as explicit statements.
+	 */
+	public RecordIterator getSortedRecords(String fieldSeq) throws IOException {
+		for (int i = 0; i < fieldSeqs.length; i++) {
+			if (fieldSeq.equals(new String(fieldSeqs[i]))) {
+				return new SortedRecordIterator(openMerger(i), getRecordOffsets(fieldSeqs[i]));
+			}
+		}
+		throw new IllegalArgumentException("Not an index of this sorter: " + fieldSeq);
+	}
+
+	/**
+	 * Deletes all run files.
+	 */
+	@Override
+	public void close() throws IOException {
+		FileUtils.deleteDirectory(tmpDir);
+	}
+
+	private RunMerger openMerger(int indexNo) throws IOException {
+		flush();
+
+		List<Run> indexRuns = runs.get(indexNo);
+		while (indexRuns.size() > MAX_MERGE_FAN_IN) {
+			List<Run> mergedRuns = new ArrayList<>();
+			for (int i = 0; i < indexRuns.size(); i += MAX_MERGE_FAN_IN) {
+				List<Run> group = indexRuns.subList(i, Math.min(i + MAX_MERGE_FAN_IN, indexRuns.size()));
+				try (RunMerger merger = new RunMerger(group); RunWriter writer = new RunWriter(newRunFile())) {
+					while (merger.next()) {
+						writer.write(merger.hi, merger.lo);
+					}
+					mergedRuns.add(writer.toRun());
+				}
+				for (Run run : group) {
+					Files.delete(run.file.toPath());
+				}
+			}
+			indexRuns.clear();
+			indexRuns.addAll(mergedRuns);
+		}
+
+		return new RunMerger(indexRuns);
+	}
+
+	/**
+	 * Sorts the buffered quads for every index and writes them to new runs.
+	 */
+	private void flush() throws IOException {
+		if (quadCount == 0) {
+			return;
+		}
+
+		for (int indexNo = 0; indexNo < fieldSeqs.length; indexNo++) {
+			int[] quadPositions = getQuadPositions(fieldSeqs[indexNo]);
+			for (int i = 0; i < quadCount; i++) {
+				int offset = 4 * i;
+				keys[2 * i] = toLong(quads[offset + quadPositions[0]], quads[offset + quadPositions[1]]);
+				keys[2 * i + 1] = toLong(quads[offset + quadPositions[2]], quads[offset + quadPositions[3]]);
+			}
+
+			sort(keys, 0, quadCount);
+
+			try (RunWriter writer = new RunWriter(newRunFile())) {
+				for (int i = 0; i < quadCount; i++) {
+					writer.write(keys[2 * i], keys[2 * i + 1]);
+				}
+				runs.get(indexNo).add(writer.toRun());
+			}
+		}
+
+		quadCount = 0;
+	}
+
+	private File newRunFile() {
+		return new File(tmpDir, "run" + runCount++ + ".dat");
+	}
+
+	private static long toLong(int high, int low) {
+		return ((long) high << 32) | (low & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Gets the positions of the fields of a quad in the order of the specified field sequence.
+	 */
+	private static int[] getQuadPositions(char[] fieldSeq) {
+		int[] positions = new int[4];
+		for (int i = 0; i < 4; i++) {
+			positions[i] = "spoc".indexOf(fieldSeq[i]);
+		}
+		return positions;
+	}
+
+	/**
+	 * Gets the offsets in a triple store record of the fields in the order of the specified field sequence.
+	 */
+	private static int[] getRecordOffsets(char[] fieldSeq) {
+		int[] recordOffsets = { TripleStore.SUBJ_IDX, TripleStore.PRED_IDX, TripleStore.OBJ_IDX,
+				TripleStore.CONTEXT_IDX };
+		int[] quadPositions = getQuadPositions(fieldSeq);
+		int[] offsets = new int[4];
+		for (int i = 0; i < 4; i++) {
+			offsets[i] = recordOffsets[quadPositions[i]];
+		}
+		return offsets;
+	}
+
+	private static int compare(long hi1, long lo1, long hi2, long lo2) {
+		int diff = Long.compareUnsigned(hi1, hi2);
+		return diff != 0 ? diff : Long.compareUnsigned(lo1, lo2);
+	}
+
+	/**
+	 * Sorts the keys in the range <tt>[from, to)</tt>, where a key occupies two consecutive longs. Uses a quicksort
+	 * with three-way partitioning, which handles the many duplicate keys of typical RDF data well.
+	 */
+	static void sort(long[] keys, int from, int to) {
+		while (to - from > 16) {
+			int pivot = medianOfThree(keys, from, (from + to) >>> 1, to - 1);
+			long pivotHi = keys[2 * pivot];
+			long pivotLo = keys[2 * pivot + 1];
+
+			int lt = from;
+			int gt = to - 1;
+			int i = from;
+			while (i <= gt) {
+				int diff = compare(keys[2 * i], keys[2 * i + 1], pivotHi, pivotLo);
+				if (diff < 0) {
+					swap(keys, lt++, i++);
+				} else if (diff > 0) {
+					swap(keys, i, gt--);
+				} else {
+					i++;
+				}
+			}
+
+			// recurse into the smaller partition, iterate over the larger one to bound the stack depth
+			if (lt - from < to - gt - 1) {
+				sort(keys, from, lt);
+				from = gt + 1;
+			} else {
+				sort(keys, gt + 1, to);
+				to = lt;
+			}
+		}
+
+		// insertion sort for small ranges
+		for (int i = from + 1; i < to; i++) {
+			for (int j = i; j > from; j--) {
+				if (compare(keys[2 * j - 2], keys[2 * j - 1], keys[2 * j], keys[2 * j + 1]) <= 0) {
+					break;
+				}
+				swap(keys, j - 1, j);
+			}
+		}
+	}
+
+	private static int medianOfThree(long[] keys, int a, int b, int c) {
+		int ab = compare(keys[2 * a], keys[2 * a + 1], keys[2 * b], keys[2 * b + 1]);
+		int bc = compare(keys[2 * b], keys[2 * b + 1], keys[2 * c], keys[2 * c + 1]);
+		int ac = compare(keys[2 * a], keys[2 * a + 1], keys[2 * c], keys[2 * c + 1]);
+		if (ab < 0) {
+			return bc < 0 ? b : ac < 0 ? c : a;
+		} else {
+			return bc > 0 ? b : ac > 0 ? c : a;
+		}
+	}
+
+	private static void swap(long[] keys, int i, int j) {
+		long hi = keys[2 * i];
+		long lo = keys[2 * i + 1];
+		keys[2 * i] = keys[2 * j];
+		keys[2 * i + 1] = keys[2 * j + 1];
+		keys[2 * j] = hi;
+		keys[2 * j + 1] = lo;
+	}
+
+	/**
+	 * A file with sorted, distinct keys.
+	 */
+	private static class Run {
+
+		final File file;
+
+		final long size;
+
+		Run(File file, long size) {
+			this.file = file;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Writes sorted keys to a run file, skipping consecutive duplicates.
+	 */
+	private static class RunWriter implements Closeable {
+
+		private final File file;
+
+		private final DataOutputStream out;
+
+		private long size;
+
+		private long lastHi;
+
+		private long lastLo;
+
+		RunWriter(File file) throws IOException {
+			this.file = file;
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER_SIZE));
+		}
+
+		void write(long hi, long lo) throws IOException {
+			if (size > 0 && hi == lastHi && lo == lastLo) {
+				return;
+			}
+			out.writeLong(hi);
+			out.writeLong(lo);
+			lastHi = hi;
+			lastLo = lo;
+			size++;
+		}
+
+		Run toRun() throws IOException {
+			out.flush();
+			return new Run(file, size);
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads the keys of a run file.
+	 */
+	private static class RunReader implements Closeable {
+
+		private final DataInputStream in;
+
+		private long remaining;
+
+		long hi;
+
+		long lo;
+
+		RunReader(Run run) throws IOException {
+			this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(run.file), IO_BUFFER_SIZE));
+			this.remaining = run.size;
+		}
+
+		boolean next() throws IOException {
+			if (remaining == 0) {
+				return false;
+			}
+			hi = in.readLong();
+			lo = in.readLong();
+			remaining--;
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	/**
+	 * Merges a number of runs into a single sorted sequence of distinct keys.
+	 */
+	private static class RunMerger implements Closeable {
+
+		private final List<RunReader> readers = new ArrayList<>();
+
+		private final PriorityQueue<RunReader> queue = new PriorityQueue<>(
+				(r1, r2) -> compare(r1.hi, r1.lo, r2.hi, r2.lo));
+
+		private boolean first = true;
+
+		long hi;
+
+		long lo;
+
+		RunMerger(List<Run> runs) throws IOException {
+			try {
+				for (Run run : runs) {
+					RunReader reader = new RunReader(run);
+					readers.add(reader);
+					if (reader.next()) {
+						queue.add(reader);
+					}
+				}
+			} catch (IOException e) {
+				close();
+				throw e;
+			}
+		}
+
+		boolean next() throws IOException {
+			while (!queue.isEmpty()) {
+				RunReader reader = queue.poll();
+				long nextHi = reader.hi;
+				long nextLo = reader.lo;
+				if (reader.next()) {
+					queue.add(reader);
+				}
+
+				if (first || nextHi != hi || nextLo != lo) {
+					first = false;
+					hi = nextHi;
+					lo = nextLo;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public void close() throws IOException {
+			IOException exception = null;
+			for (RunReader reader : readers) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					exception = e;
+				}
+			}
+			if (exception != null) {
+				throw exception;
+			}
+		}
+	}
+
+	/**
+	 * Converts the merged keys of an index to triple store records.
+	 */
+	private static class SortedRecordIterator implements RecordIterator {
+
+		private final RunMerger merger;
+
+		private final int[] recordOffsets;
+
+		SortedRecordIterator(RunMerger merger, int[] recordOffsets) {
+			this.merger = merger;
+			this.recordOffsets = recordOffsets;
+		}
+
+		@Override
+		public byte[] next() throws IOException {
+			if (!merger.next()) {
+				return null;
+			}
+
+			byte[] record = new byte[TripleStore.RECORD_LENGTH];
+			ByteArrayUtil.putInt((int) (merger.hi >>> 32), record, recordOffsets[0]);
+			ByteArrayUtil.putInt((int) merger.hi, record, recordOffsets[1]);
+			ByteArrayUtil.putInt((int) (merger.lo >>> 32), record, recordOffsets[2]);
+			ByteArrayUtil.putInt((int) merger.lo, record, recordOffsets[3]);
+			record[TripleStore.FLAG_IDX] = TripleStore.EXPLICIT_FLAG;
+			return record;
+		}
+
+		@Override
+		public void set(byte[] record) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void close() throws IOException {
+			merger.close();
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.rdf4j.common.concurrent.locks.Lock;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.sail.SailException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads a large amount of statements into an empty {@link NativeStore}, much faster than adding them through a
+ * connection. The values of the statements are resolved in batches, the resulting quads of value IDs are sorted on
+ * disk in the order of every triple index, and each index is then written bottom-up from its sorted quads, with
+ * completely filled nodes.
+ * <p>
+ * A bulk loader is created with {@link NativeStore#createBulkLoader()}, while the store itself is not initialized.
+ * The added statements are written to the store when the loader is {@link #close() closed}, after which the store can
+ * be initialized as usual:
+ *
+ * <pre>
+ * try (NativeBulkLoader loader = nativeStore.createBulkLoader()) {
+ * 	for (Statement st : statements) {
+ * 		loader.add(st);
+ * 	}
+ * }
+ * nativeStore.init();
+ * </pre>
+ *
+ * If the statements can not be added completely, for example because the data can not be parsed, the loader should
+ * be {@link #abort() aborted} instead, which leaves the store without any statements. Writing the statements is not
+ * transactional though: if closing the loader fails, the contents of the data directory are undefined and the
+ * directory should be discarded.
+ */
+public class NativeBulkLoader implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(NativeBulkLoader.class);
+
+	/**
+	 * The default number of quads that are sorted in memory: 4M quads, requiring 128MB of memory.
+	 */
+	public static final int DEFAULT_SORT_BUFFER_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * The number of statements whose values are resolved together.
+	 */
+	private static final int VALUE_BATCH_SIZE = 64 * 1024;
+
+	private final NativeSailStore store;
+
+	private final ValueStore valueStore;
+
+	private final ExternalQuadSorter sorter;
+
+	private final Lock dirLock;
+
+	/**
+	 * The subject, predicate, object and context of the statements of the current batch.
+	 */
+	private final Value[] batch = new Value[4 * VALUE_BATCH_SIZE];
+
+	private final int[] batchIDs = new int[4 * VALUE_BATCH_SIZE];
+
+	private final Map<Value, Integer> batchValueIDs = new HashMap<>();
+
+	private int batchSize;
+
+	private long statementCount;
+
+	private boolean closed;
+
+	NativeBulkLoader(NativeSailStore store, ExternalQuadSorter sorter, Lock dirLock) {
+		this.store = store;
+		this.valueStore = store.getValueStore();
+		this.sorter = sorter;
+		this.dirLock = dirLock;
+	}
+
+	/**
+	 * Adds a statement to the store.
+	 */
+	public void add(Statement st) throws SailException {
+		add(st.getSubject(), st.getPredicate(), st.getObject(), st.getContext());
+	}
+
+	/**
+	 * Adds a statement to the store.
+	 *
+	 * @param context The context of the statement, or <tt>null</tt> for the default context.
+	 */
+	public void add(Resource subj, IRI pred, Value obj, Resource context) throws SailException {
+		if (closed) {
+			throw new IllegalStateException("Bulk loader has been closed");
+		}
+
+		statementCount++;
+		int offset = 4 * batchSize++;
+		batch[offset] = subj;
+		batch[offset + 1] = pred;
+		batch[offset + 2] = obj;
+		batch[offset + 3] = context;
+
+		if (batchSize == VALUE_BATCH_SIZE) {
+			try {
+				flushBatch();
+			} catch (IOException e) {
+				throw new SailException(e);
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of statements that have been added, including any duplicates.
+	 */
+	public long getStatementCount() {
+		return statementCount;
+	}
+
+	/**
+	 * Resolves the IDs of the values of the current batch, looking up every distinct value only once, and passes the
+	 * resulting quads to the sorter.
+	 */
+	private void flushBatch() throws IOException {
+		int valueCount = 4 * batchSize;
+		for (int i = 0; i < valueCount; i++) {
+			Value value = batch[i];
+			if (value == null) {
+				// default context
+				batchIDs[i] = 0;
+			} else {
+				Integer id = batchValueIDs.get(value);
+				if (id == null) {
+					id = valueStore.storeValue(value);
+					batchValueIDs.put(value, id);
+				}
+				batchIDs[i] = id;
+			}
+			batch[i] = null;
+		}
+
+		for (int i = 0; i < valueCount; i += 4) {
+			sorter.add(batchIDs[i], batchIDs[i + 1], batchIDs[i + 2], batchIDs[i + 3]);
+		}
+
+		batchSize = 0;
+		batchValueIDs.clear();
+	}
+
+	/**
+	 * Writes the added statements to the store and releases the store's data directory. Has no effect if the loader
+	 * has been {@link #abort() aborted}.
+	 */
+	@Override
+	public void close() throws SailException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			flushBatch();
+			logger.debug("Resolved the values of {} statements, building triple indexes", statementCount);
+			store.bulkLoad(sorter);
+			logger.debug("Bulk load of {} statements completed", statementCount);
+		} catch (IOException e) {
+			throw new SailException(e);
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Discards the added statements, including their values and the temporary files of the sorter, and releases the
+	 * store's data directory. The store is left without any statements, as it was before the bulk load. Has no effect
+	 * if the loader has already been closed.
+	 */
+	public void abort() throws SailException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+
+		try {
+			logger.debug("Bulk load aborted after {} statements", statementCount);
+			batchSize = 0;
+			Arrays.fill(batch, null);
+			// the store did not contain any statements before, so none of its values are in use
+			valueStore.clear();
+		} catch (IOException e) {
+			throw new SailException(e);
+		} finally {
+			release();
+		}
+	}
+
+	private void release() throws SailException {
+		try {
+			try {
+				sorter.close();
+			} catch (IOException e) {
+				logger.warn("Failed to delete temporary files of bulk load", e);
+			} finally {
+				store.close();
+			}
+		} finally {
+			dirLock.release();
+		}
+	}
+}
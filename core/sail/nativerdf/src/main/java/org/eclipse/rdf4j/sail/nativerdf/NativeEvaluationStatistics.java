@@ -8,6 +8,7 @@
 package org.eclipse.rdf4j.sail.nativerdf;
 
 import java.io.IOException;
+import java.util.Set;
 
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
@@ -41,6 +42,44 @@ class NativeEvaluationStatistics extends EvaluationStatistics {
 		return new NativeCardinalityCalculator();
 	}
 
+	/**
+	 * Estimates the cardinality of a statement pattern for a single binding of the variables that are bound by
+	 * previously evaluated expressions, using the number of distinct subjects and objects per predicate.
+	 */
+	@Override
+	public double getCardinality(StatementPattern sp, Set<String> boundVars) {
+		if (!tripleStore.getStatistics().isAvailable()) {
+			// the statistics are still being built from the indexes
+			return -1;
+		}
+		try {
+			Var[] vars = { sp.getSubjectVar(), sp.getPredicateVar(), sp.getObjectVar(), sp.getContextVar() };
+			int[] ids = new int[vars.length];
+			for (int i = 0; i < vars.length; i++) {
+				ids[i] = -1;
+				if (vars[i] != null && vars[i].hasValue()) {
+					ids[i] = valueStore.getID(vars[i].getValue());
+					if (ids[i] == NativeValue.UNKNOWN_ID) {
+						// the value is not in the store, so the pattern can't match
+						return 0;
+					}
+				}
+			}
+
+			return tripleStore.getStatistics()
+					.getCardinality(ids[0], ids[1], ids[2], ids[3], isBound(vars[0], boundVars),
+							isBound(vars[1], boundVars), isBound(vars[2], boundVars), isBound(vars[3], boundVars));
+		} catch (IOException e) {
+			log.error("Failed to estimate statement pattern cardinality, falling back to generic implementation",
+					e);
+			return -1;
+		}
+	}
+
+	private static boolean isBound(Var var, Set<String> boundVars) {
+		return var != null && !var.hasValue() && boundVars.contains(var.getName());
+	}
+
 	protected class NativeCardinalityCalculator extends CardinalityCalculator {
 
 		@Override
@@ -11,6 +11,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -20,6 +21,7 @@ import java.util.concurrent.locks.ReentrantLock;
 
 import org.eclipse.rdf4j.IsolationLevel;
 import org.eclipse.rdf4j.OpenRDFUtil;
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
 import org.eclipse.rdf4j.common.iteration.ConvertingIteration;
@@ -32,6 +34,9 @@ import org.eclipse.rdf4j.model.Resource;
 import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.IdTripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.QuadIterator;
 import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
 import org.eclipse.rdf4j.sail.SailException;
 import org.eclipse.rdf4j.sail.base.BackingSailSource;
@@ -77,8 +82,8 @@ class NativeSailStore implements SailStore {
 	 * Creates a new {@link NativeSailStore} with the default cache sizes.
 	 */
 	public NativeSailStore(File dataDir, String tripleIndexes) throws IOException, SailException {
-		this(dataDir, tripleIndexes, false, ValueStore.VALUE_CACHE_SIZE, ValueStore.VALUE_ID_CACHE_SIZE,
-				ValueStore.NAMESPACE_CACHE_SIZE, ValueStore.NAMESPACE_ID_CACHE_SIZE);
+		this(dataDir, tripleIndexes, false, false, -1, -1, ValueStore.VALUE_CACHE_MEMORY,
+				ValueStore.VALUE_ID_CACHE_MEMORY, ValueStore.NAMESPACE_CACHE_SIZE, ValueStore.NAMESPACE_ID_CACHE_SIZE);
 	}
 
 	/**
@@ -86,12 +91,36 @@ class NativeSailStore implements SailStore {
 	 */
 	public NativeSailStore(File dataDir, String tripleIndexes, boolean forceSync, int valueCacheSize,
 			int valueIDCacheSize, int namespaceCacheSize, int namespaceIDCacheSize) throws IOException, SailException {
+		this(dataDir, tripleIndexes, forceSync, false, valueCacheSize, valueIDCacheSize, ValueStore.VALUE_CACHE_MEMORY,
+				ValueStore.VALUE_ID_CACHE_MEMORY, namespaceCacheSize, namespaceIDCacheSize);
+	}
+
+	/**
+	 * Creates a new {@link NativeSailStore}, optionally reading the triple indexes through a memory mapping and with
+	 * value caches bounded by their memory footprint.
+	 */
+	public NativeSailStore(File dataDir, String tripleIndexes, boolean forceSync, boolean memoryMapped,
+			int valueCacheSize, int valueIDCacheSize, long valueCacheMemory, long valueIDCacheMemory,
+			int namespaceCacheSize, int namespaceIDCacheSize) throws IOException, SailException {
+		this(dataDir, tripleIndexes, forceSync, memoryMapped, null, valueCacheSize, valueIDCacheSize,
+				valueCacheMemory, valueIDCacheMemory, namespaceCacheSize, namespaceIDCacheSize);
+	}
+
+	/**
+	 * Creates a new {@link NativeSailStore}, optionally reading the triple indexes through a memory mapping, storing
+	 * them in compressed form and with value caches bounded by their memory footprint. If <tt>compressedIndexes</tt>
+	 * is <tt>null</tt>, existing triple indexes keep their format.
+	 */
+	public NativeSailStore(File dataDir, String tripleIndexes, boolean forceSync, boolean memoryMapped,
+			Boolean compressedIndexes, int valueCacheSize, int valueIDCacheSize, long valueCacheMemory,
+			long valueIDCacheMemory, int namespaceCacheSize, int namespaceIDCacheSize)
+			throws IOException, SailException {
 		boolean initialized = false;
 		try {
 			namespaceStore = new NamespaceStore(dataDir);
-			valueStore = new ValueStore(dataDir, forceSync, valueCacheSize, valueIDCacheSize, namespaceCacheSize,
-					namespaceIDCacheSize);
-			tripleStore = new TripleStore(dataDir, tripleIndexes, forceSync);
+			valueStore = new ValueStore(dataDir, forceSync, valueCacheSize, valueIDCacheSize, valueCacheMemory,
+					valueIDCacheMemory, namespaceCacheSize, namespaceIDCacheSize);
+			tripleStore = new TripleStore(dataDir, tripleIndexes, forceSync, memoryMapped, compressedIndexes);
 			contextStore = new ContextStore(this, dataDir);
 			initialized = true;
 		} finally {
@@ -137,6 +166,44 @@ class NativeSailStore implements SailStore {
 		}
 	}
 
+	ValueStore getValueStore() {
+		return valueStore;
+	}
+
+	/**
+	 * Creates a sorter for the quads that are to be {@link #bulkLoad(ExternalQuadSorter) bulk loaded} into this store.
+	 *
+	 * @param tmpDir     The directory in which the sorter stores its temporary files.
+	 * @param bufferSize The number of quads that the sorter sorts in memory.
+	 * @throws IllegalStateException If the store already contains statements.
+	 */
+	ExternalQuadSorter createQuadSorter(File tmpDir, int bufferSize) throws IOException {
+		if (!tripleStore.isEmpty()) {
+			throw new IllegalStateException("Bulk loading requires an empty store");
+		}
+		return new ExternalQuadSorter(tmpDir, tripleStore.getIndexFieldSeqs(), bufferSize);
+	}
+
+	/**
+	 * Fills this store, which must not contain any statements yet, with the quads from the supplied sorter. The quads'
+	 * values must have been stored in this store's {@link ValueStore}. The triple indexes are built bottom-up instead
+	 * of through a (transactional) insert of every statement.
+	 *
+	 * @throws IllegalStateException If the store already contains statements.
+	 */
+	void bulkLoad(ExternalQuadSorter quads) throws IOException {
+		Map<Integer, Long> contextSizes = new HashMap<>();
+		long quadCount = quads.countDistinct(contextSizes);
+
+		valueStore.sync();
+		tripleStore.load(quads, quadCount);
+
+		for (Entry<Integer, Long> entry : contextSizes.entrySet()) {
+			contextStore.incrementBy((Resource) valueStore.getValue(entry.getKey()), entry.getValue());
+		}
+		contextStore.sync();
+	}
+
 	@Override
 	public EvaluationStatistics getEvaluationStatistics() {
 		return new NativeEvaluationStatistics(valueStore, tripleStore);
@@ -612,6 +679,121 @@ class NativeSailStore implements SailStore {
 				throw new SailException("Unable to get statements", e);
 			}
 		}
+
+		@Override
+		public IdTripleSource getIdTripleSource() {
+			return new NativeIdTripleSource(explicit);
+		}
+	}
+
+	/**
+	 * Provides the explicit and/or inferred statements of this store by the IDs of the {@link ValueStore}.
+	 */
+	private final class NativeIdTripleSource implements IdTripleSource {
+
+		/**
+		 * Whether to provide the explicit or the inferred statements, or <tt>null</tt> for both.
+		 */
+		private final Boolean explicit;
+
+		public NativeIdTripleSource(Boolean explicit) {
+			this.explicit = explicit;
+		}
+
+		@Override
+		public int getID(Value value) throws QueryEvaluationException {
+			try {
+				int id = valueStore.getID(value);
+				return id == NativeValue.UNKNOWN_ID ? UNKNOWN_ID : id;
+			} catch (IOException e) {
+				throw new QueryEvaluationException(e);
+			}
+		}
+
+		@Override
+		public Value getValue(int id) throws QueryEvaluationException {
+			try {
+				return valueStore.getValue(id);
+			} catch (IOException e) {
+				throw new QueryEvaluationException(e);
+			}
+		}
+
+		@Override
+		public QuadIterator getQuads(int subj, int pred, int obj, int context) throws QueryEvaluationException {
+			try {
+				RecordIterator btreeIter;
+				if (explicit == null) {
+					btreeIter = tripleStore.getTriples(subj, pred, obj, context, false);
+				} else {
+					btreeIter = tripleStore.getTriples(subj, pred, obj, context, explicit, false);
+				}
+				return new NativeQuadIterator(btreeIter);
+			} catch (IOException e) {
+				throw new QueryEvaluationException(e);
+			}
+		}
+
+		@Override
+		public IdTripleSource union(IdTripleSource other) {
+			if (other instanceof NativeIdTripleSource && ((NativeIdTripleSource) other).getStore() == getStore()
+					&& explicit != null && ((NativeIdTripleSource) other).explicit != null
+					&& !explicit.equals(((NativeIdTripleSource) other).explicit)) {
+				return new NativeIdTripleSource(null);
+			}
+			return null;
+		}
+
+		private NativeSailStore getStore() {
+			return NativeSailStore.this;
+		}
+	}
+
+	/**
+	 * Copies the IDs of the records of a {@link RecordIterator} into quad arrays.
+	 */
+	private static final class NativeQuadIterator implements QuadIterator {
+
+		private final RecordIterator btreeIter;
+
+		private boolean closed;
+
+		public NativeQuadIterator(RecordIterator btreeIter) {
+			this.btreeIter = btreeIter;
+		}
+
+		@Override
+		public boolean next(int[] quad) throws QueryEvaluationException {
+			if (closed) {
+				return false;
+			}
+			try {
+				byte[] record = btreeIter.next();
+				if (record == null) {
+					close();
+					return false;
+				}
+				quad[SUBJ_IDX] = ByteArrayUtil.getInt(record, TripleStore.SUBJ_IDX);
+				quad[PRED_IDX] = ByteArrayUtil.getInt(record, TripleStore.PRED_IDX);
+				quad[OBJ_IDX] = ByteArrayUtil.getInt(record, TripleStore.OBJ_IDX);
+				quad[CONTEXT_IDX] = ByteArrayUtil.getInt(record, TripleStore.CONTEXT_IDX);
+				return true;
+			} catch (IOException e) {
+				throw new QueryEvaluationException(e);
+			}
+		}
+
+		@Override
+		public void close() throws QueryEvaluationException {
+			if (!closed) {
+				closed = true;
+				try {
+					btreeIter.close();
+				} catch (IOException e) {
+					throw new QueryEvaluationException(e);
+				}
+			}
+		}
 	}
 
 }
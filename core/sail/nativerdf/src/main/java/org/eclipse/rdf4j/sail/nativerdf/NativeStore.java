@@ -65,9 +65,32 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 	 */
 	private volatile boolean forceSync = false;
 
-	private volatile int valueCacheSize = ValueStore.VALUE_CACHE_SIZE;
+	/**
+	 * Flag indicating whether the triple indexes should be read through a memory mapping of the index files. By
+	 * default, this feature is disabled.
+	 */
+	private volatile boolean memoryMapped = false;
 
-	private volatile int valueIDCacheSize = ValueStore.VALUE_ID_CACHE_SIZE;
+	/**
+	 * Flag indicating whether the triple indexes should be stored in compressed form, <tt>null</tt> if existing
+	 * indexes keep their format and new stores use uncompressed indexes.
+	 */
+	private volatile Boolean compressedIndexes;
+
+	/**
+	 * Maximum number of entries in the value cache, <tt>-1</tt> if the cache is bounded by its memory footprint only.
+	 */
+	private volatile int valueCacheSize = -1;
+
+	/**
+	 * Maximum number of entries in the value id cache, <tt>-1</tt> if the cache is bounded by its memory footprint
+	 * only.
+	 */
+	private volatile int valueIDCacheSize = -1;
+
+	private volatile long valueCacheMemory = ValueStore.VALUE_CACHE_MEMORY;
+
+	private volatile long valueIDCacheMemory = ValueStore.VALUE_ID_CACHE_MEMORY;
 
 	private volatile int namespaceCacheSize = ValueStore.NAMESPACE_CACHE_SIZE;
 
@@ -164,6 +187,40 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 		return forceSync;
 	}
 
+	/**
+	 * Specifies whether the triple indexes should be read through a memory mapping of the index files, must be called
+	 * before initialization. Enabling this feature speeds up lookups and scans on stores whose indexes fit in the
+	 * operating system's page cache, but consumes virtual address space proportional to the size of the indexes. By
+	 * default, this feature is disabled.
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	public boolean getMemoryMapped() {
+		return memoryMapped;
+	}
+
+	/**
+	 * Specifies whether the triple indexes should be stored in compressed form, must be called before initialization.
+	 * Compressed indexes store the fields of consecutive statements as differences from the previous statement, which
+	 * typically fits several times more statements in a block. This reduces the size of the indexes and the amount of
+	 * I/O needed to scan them, at the cost of some CPU time for (de)compressing index nodes. Existing indexes are
+	 * converted to the specified format when the store is initialized. If this method is not called, existing indexes
+	 * keep the format they were created with and new stores use uncompressed indexes.
+	 */
+	public void setCompressedIndexes(boolean compressedIndexes) {
+		this.compressedIndexes = compressedIndexes;
+	}
+
+	/**
+	 * @return whether the triple indexes should be stored in compressed form, or <tt>null</tt> if existing indexes
+	 *         keep their format
+	 */
+	public Boolean getCompressedIndexes() {
+		return compressedIndexes;
+	}
+
 	public void setValueCacheSize(int valueCacheSize) {
 		this.valueCacheSize = valueCacheSize;
 	}
@@ -172,6 +229,33 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 		this.valueIDCacheSize = valueIDCacheSize;
 	}
 
+	/**
+	 * Sets the maximum estimated memory footprint (in bytes) of the value cache, must be called before
+	 * initialization. By default, this is 1/64th of the maximum heap size, up to 256MB.
+	 *
+	 * @throws IllegalArgumentException if the memory footprint is not larger than 0
+	 */
+	public void setValueCacheMemory(long valueCacheMemory) {
+		if (valueCacheMemory <= 0) {
+			throw new IllegalArgumentException("value cache memory must be larger than 0, found " + valueCacheMemory);
+		}
+		this.valueCacheMemory = valueCacheMemory;
+	}
+
+	/**
+	 * Sets the maximum estimated memory footprint (in bytes) of the value id cache, must be called before
+	 * initialization. By default, this is 1/128th of the maximum heap size, up to 128MB.
+	 *
+	 * @throws IllegalArgumentException if the memory footprint is not larger than 0
+	 */
+	public void setValueIDCacheMemory(long valueIDCacheMemory) {
+		if (valueIDCacheMemory <= 0) {
+			throw new IllegalArgumentException(
+					"value id cache memory must be larger than 0, found " + valueIDCacheMemory);
+		}
+		this.valueIDCacheMemory = valueIDCacheMemory;
+	}
+
 	public void setNamespaceCacheSize(int namespaceCacheSize) {
 		this.namespaceCacheSize = namespaceCacheSize;
 	}
@@ -262,8 +346,9 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 			if (!VERSION.equals(version) && upgradeStore(dataDir, version)) {
 				FileUtils.writeStringToFile(versionFile, VERSION);
 			}
-			final NativeSailStore mainStore = new NativeSailStore(dataDir, tripleIndexes, forceSync, valueCacheSize,
-					valueIDCacheSize, namespaceCacheSize, namespaceIDCacheSize);
+			final NativeSailStore mainStore = new NativeSailStore(dataDir, tripleIndexes, forceSync, memoryMapped,
+					compressedIndexes, valueCacheSize, valueIDCacheSize, valueCacheMemory, valueIDCacheMemory,
+					namespaceCacheSize, namespaceIDCacheSize);
 			this.store = new SnapshotSailStore(mainStore, () -> new MemoryOverflowModel() {
 
 				@Override
@@ -305,6 +390,62 @@ public class NativeStore extends AbstractNotifyingSail implements FederatedServi
 		logger.debug("NativeStore initialized");
 	}
 
+	/**
+	 * Creates a {@link NativeBulkLoader} for the initial load of a large amount of data, using a sort buffer of
+	 * {@link NativeBulkLoader#DEFAULT_SORT_BUFFER_SIZE} quads.
+	 *
+	 * @see #createBulkLoader(int)
+	 */
+	public NativeBulkLoader createBulkLoader() throws SailException {
+		return createBulkLoader(NativeBulkLoader.DEFAULT_SORT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a {@link NativeBulkLoader} for the initial load of a large amount of data. The store must not have been
+	 * initialized and must not contain any statements yet. The data directory is locked until the bulk loader is
+	 * closed, after which the store can be initialized.
+	 *
+	 * @param sortBufferSize The number of quads that the bulk loader sorts in memory, each quad requiring 32 bytes.
+	 * @throws IllegalStateException If the store has already been initialized.
+	 */
+	public NativeBulkLoader createBulkLoader(int sortBufferSize) throws SailException {
+		if (isInitialized()) {
+			throw new IllegalStateException("sail has already been intialized");
+		}
+
+		File dataDir = getDataDir();
+		if (dataDir == null) {
+			throw new SailException("Data dir has not been set");
+		} else if (!dataDir.exists() && !dataDir.mkdirs()) {
+			throw new SailException("Unable to create data directory: " + dataDir);
+		}
+
+		Lock bulkLoadLock = new DirectoryLockManager(dataDir).lockOrFail();
+		NativeSailStore mainStore = null;
+		boolean created = false;
+		try {
+			mainStore = new NativeSailStore(dataDir, tripleIndexes, forceSync, false, compressedIndexes,
+					valueCacheSize, valueIDCacheSize, valueCacheMemory, valueIDCacheMemory, namespaceCacheSize,
+					namespaceIDCacheSize);
+			NativeBulkLoader loader = new NativeBulkLoader(mainStore,
+					mainStore.createQuadSorter(dataDir, sortBufferSize), bulkLoadLock);
+			created = true;
+			return loader;
+		} catch (IOException e) {
+			throw new SailException(e);
+		} finally {
+			if (!created) {
+				try {
+					if (mainStore != null) {
+						mainStore.close();
+					}
+				} finally {
+					bulkLoadLock.release();
+				}
+			}
+		}
+	}
+
 	@Override
 	protected void shutDownInternal() throws SailException {
 		logger.debug("Shutting down NativeStore...");
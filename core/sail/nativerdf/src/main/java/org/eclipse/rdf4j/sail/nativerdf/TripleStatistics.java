@@ -0,0 +1,1039 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+import org.eclipse.rdf4j.common.io.IOUtil;
+import org.eclipse.rdf4j.sail.nativerdf.btree.RecordComparator;
+import org.eclipse.rdf4j.sail.nativerdf.btree.RecordIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Statistics about the triples in a {@link TripleStore}, used to estimate the cardinality of statement patterns. For
+ * the store as a whole, for each predicate and for each context, the statistics keep track of the number of triples and
+ * the (approximate) number of distinct subjects and objects. For each predicate, the most frequent objects are tracked
+ * as well, as the distribution of objects is often heavily skewed (think of <tt>rdf:type</tt>). Stores can have very
+ * many predicates and contexts, so only the first {@link #MAX_PREDICATE_SUMMARIES} predicates and
+ * {@link #MAX_CONTEXT_SUMMARIES} contexts get statistics of their own, all other predicates and contexts share a single
+ * summary.
+ * <p>
+ * The statistics are updated incrementally when a transaction is committed. They are only stored in a file next to the
+ * indexes when the triple store is closed, and the file is deleted once it has been loaded again, so that the
+ * statistics are rebuilt from the indexes when the store is not closed properly. Statistics that are built from the
+ * indexes are built in a background thread. Until they are complete, they are not {@link #isAvailable() available}
+ * and cardinalities need to be estimated without them.
+ * <p>
+ * Distinct values are counted with small HyperLogLog sketches, which cannot forget values. The distinct counts are
+ * therefore capped by the number of triples, and all statistics are rebuilt from the indexes once a significant part
+ * of the triples has been removed since the last rebuild. This rebuild runs in a background thread, while the old
+ * statistics remain in use. Triples that are committed during the rebuild are also applied to the new statistics if
+ * the scan of the index has already passed them.
+ * <p>
+ * The statistics file has a 4-byte header consisting of a three byte magic number and the file format version,
+ * followed by the number of triples removed since the last rebuild and the statistics of the store, the predicates,
+ * the remaining predicates, the contexts and the remaining contexts.
+ */
+class TripleStatistics {
+
+	private static final Logger logger = LoggerFactory.getLogger(TripleStatistics.class);
+
+	private static final String FILE_NAME = "triples.stats";
+
+	/**
+	 * Magic number "Native Triple Statistics" to detect whether the file is actually a statistics file.
+	 */
+	private static final byte[] MAGIC_NUMBER = new byte[] { 'n', 't', 's' };
+
+	private static final byte FILE_FORMAT_VERSION = 3;
+
+	/**
+	 * The fraction of the triples that may be removed before the statistics are rebuilt.
+	 */
+	private static final double REBUILD_THRESHOLD = 0.25;
+
+	/**
+	 * The minimum number of removed triples for the statistics to be rebuilt, which avoids frequent rebuilds of the
+	 * statistics of small stores.
+	 */
+	private static final long MIN_REBUILD_REMOVALS = 10_000;
+
+	/**
+	 * The maximum number of predicates that have statistics of their own.
+	 */
+	static final int MAX_PREDICATE_SUMMARIES = 1024;
+
+	/**
+	 * The maximum number of contexts that have statistics of their own.
+	 */
+	static final int MAX_CONTEXT_SUMMARIES = 1024;
+
+	/**
+	 * The statistics file, or <tt>null</tt> for statistics that are being rebuilt.
+	 */
+	private final File file;
+
+	private Summary total = new Summary(false);
+
+	private Map<Integer, Summary> predicates = new HashMap<>();
+
+	/**
+	 * The statistics of the predicates that are not in {@link #predicates}.
+	 */
+	private Summary otherPredicates = new Summary(false);
+
+	/**
+	 * The IDs of the predicates that are not in {@link #predicates}. Once there are any, new predicates are never added
+	 * to {@link #predicates} anymore, so that the triples of a predicate are always in the same summary.
+	 */
+	private DistinctCounter otherPredicateIds = new DistinctCounter();
+
+	private Map<Integer, Summary> contexts = new HashMap<>();
+
+	/**
+	 * The statistics of the contexts that are not in {@link #contexts}.
+	 */
+	private Summary otherContexts = new Summary(false);
+
+	/**
+	 * The IDs of the contexts that are not in {@link #contexts}. Once there are any, new contexts are never added to
+	 * {@link #contexts} anymore, so that the triples of a context are always in the same summary.
+	 */
+	private DistinctCounter otherContextIds = new DistinctCounter();
+
+	private long removedSinceRebuild;
+
+	/**
+	 * Flag indicating whether the statistics are different from what is stored on disk.
+	 */
+	private boolean changed;
+
+	/**
+	 * Flag indicating whether the statistics file exists and contains the current statistics.
+	 */
+	private boolean stored;
+
+	/**
+	 * Flag indicating whether the statistics describe the triples in the store, which is not the case while they are
+	 * built from the indexes for the first time.
+	 */
+	private boolean available = true;
+
+	/**
+	 * The rebuild in progress, if any.
+	 */
+	private Rebuild rebuild;
+
+	private Thread rebuildThread;
+
+	TripleStatistics(File dataDir) {
+		this.file = new File(dataDir, FILE_NAME);
+	}
+
+	private TripleStatistics() {
+		this.file = null;
+	}
+
+	/**
+	 * Registers a triple that has been added to the store.
+	 *
+	 * @param data The record of the triple.
+	 */
+	synchronized void added(byte[] data) {
+		if (rebuild != null && rebuild.isPassed(data)) {
+			rebuild.statistics.added(data);
+		}
+		if (!available) {
+			return;
+		}
+
+		int subj = ByteArrayUtil.getInt(data, TripleStore.SUBJ_IDX);
+		int pred = ByteArrayUtil.getInt(data, TripleStore.PRED_IDX);
+		int obj = ByteArrayUtil.getInt(data, TripleStore.OBJ_IDX);
+		int context = ByteArrayUtil.getInt(data, TripleStore.CONTEXT_IDX);
+
+		total.added(subj, obj);
+
+		Summary predicateSummary = predicates.get(pred);
+		if (predicateSummary == null && predicates.size() < MAX_PREDICATE_SUMMARIES && otherPredicateIds.isEmpty()) {
+			predicateSummary = new Summary(true);
+			predicates.put(pred, predicateSummary);
+		}
+		if (predicateSummary != null) {
+			predicateSummary.added(subj, obj);
+		} else {
+			otherPredicates.added(subj, obj);
+			otherPredicateIds.add(pred);
+		}
+
+		Summary contextSummary = contexts.get(context);
+		if (contextSummary == null && contexts.size() < MAX_CONTEXT_SUMMARIES && otherContextIds.isEmpty()) {
+			contextSummary = new Summary(false);
+			contexts.put(context, contextSummary);
+		}
+		if (contextSummary != null) {
+			contextSummary.added(subj, obj);
+		} else {
+			otherContexts.added(subj, obj);
+			otherContextIds.add(context);
+		}
+		changed = true;
+	}
+
+	/**
+	 * Registers a triple that has been removed from the store.
+	 *
+	 * @param data The record of the triple.
+	 */
+	synchronized void removed(byte[] data) {
+		if (rebuild != null && rebuild.isPassed(data)) {
+			rebuild.statistics.removed(data);
+		}
+		if (!available) {
+			return;
+		}
+
+		int pred = ByteArrayUtil.getInt(data, TripleStore.PRED_IDX);
+		int obj = ByteArrayUtil.getInt(data, TripleStore.OBJ_IDX);
+		int context = ByteArrayUtil.getInt(data, TripleStore.CONTEXT_IDX);
+
+		total.removed(obj);
+		if (predicates.containsKey(pred)) {
+			removed(predicates, pred, obj);
+		} else {
+			otherPredicates.removed(obj);
+		}
+		if (contexts.containsKey(context)) {
+			removed(contexts, context, obj);
+		} else {
+			otherContexts.removed(obj);
+		}
+		removedSinceRebuild++;
+		changed = true;
+	}
+
+	private static void removed(Map<Integer, Summary> summaries, int id, int obj) {
+		Summary summary = summaries.get(id);
+		if (summary != null) {
+			summary.removed(obj);
+			if (summary.count == 0) {
+				summaries.remove(id);
+			}
+		}
+	}
+
+	/**
+	 * Checks whether so many triples have been removed since the last rebuild that the statistics should be rebuilt,
+	 * and they are not being rebuilt already.
+	 */
+	synchronized boolean isRebuildNeeded() {
+		return rebuild == null && removedSinceRebuild >= MIN_REBUILD_REMOVALS
+				&& removedSinceRebuild >= REBUILD_THRESHOLD * (total.count + removedSinceRebuild);
+	}
+
+	/**
+	 * Checks whether the statistics are being rebuilt in the background.
+	 */
+	synchronized boolean isRebuilding() {
+		return rebuild != null;
+	}
+
+	/**
+	 * Checks whether the statistics describe the triples in the store. If not, they are being built from the indexes,
+	 * and all cardinalities are estimated as 0.
+	 */
+	synchronized boolean isAvailable() {
+		return available;
+	}
+
+	/**
+	 * Rebuilds the statistics from scratch.
+	 *
+	 * @param iter An iterator over the records of all committed triples, which will be closed by this method.
+	 */
+	synchronized void rebuild(RecordIterator iter) throws IOException {
+		clearInternal();
+		available = true;
+		try {
+			byte[] data;
+			while ((data = iter.next()) != null) {
+				if (isCommitted(data)) {
+					added(data);
+				}
+			}
+		} finally {
+			iter.close();
+		}
+	}
+
+	/**
+	 * Starts rebuilding the statistics from scratch in a background thread. The current statistics are used, and
+	 * updated, until the rebuild is complete.
+	 *
+	 * @param iter       An iterator over the records of all triples in the order of the supplied comparator, which
+	 *                   will be closed when the rebuild is complete. Triples that are committed while the statistics
+	 *                   are rebuilt, must be registered with {@link #added(byte[])} or {@link #removed(byte[])} while
+	 *                   holding the lock of this object, at the same time as they are updated in the index that is
+	 *                   being iterated.
+	 * @param comparator The comparator of the records of the iterator.
+	 */
+	synchronized void startRebuild(RecordIterator iter, RecordComparator comparator) {
+		rebuild = new Rebuild(iter, comparator);
+		rebuildThread = new Thread(rebuild, "rdf4j-nativestore-statistics-" + file.getParentFile().getName());
+		rebuildThread.setDaemon(true);
+		rebuildThread.start();
+	}
+
+	/**
+	 * Starts building the statistics from scratch in a background thread, for statistics that could not be loaded.
+	 * The statistics are not available until the build is complete.
+	 *
+	 * @param iter       An iterator over the records of all triples in the order of the supplied comparator, see
+	 *                   {@link #startRebuild(RecordIterator, RecordComparator)}.
+	 * @param comparator The comparator of the records of the iterator.
+	 */
+	synchronized void startBuild(RecordIterator iter, RecordComparator comparator) {
+		clearInternal();
+		available = false;
+		startRebuild(iter, comparator);
+	}
+
+	/**
+	 * Cancels the rebuild that is in progress, if any, and waits for the background thread to finish.
+	 */
+	void cancelRebuild() {
+		Thread thread;
+		synchronized (this) {
+			rebuild = null;
+			thread = rebuildThread;
+			rebuildThread = null;
+		}
+		if (thread != null) {
+			boolean interrupted = false;
+			while (thread.isAlive()) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a record belongs to a committed triple, i.e. it has not been added by a pending transaction.
+	 */
+	private static boolean isCommitted(byte[] data) {
+		return (data[TripleStore.FLAG_IDX] & TripleStore.ADDED_FLAG) == 0;
+	}
+
+	void clear() {
+		cancelRebuild();
+		synchronized (this) {
+			clearInternal();
+			available = true;
+		}
+	}
+
+	private void clearInternal() {
+		total.clear();
+		predicates.clear();
+		otherPredicates.clear();
+		otherPredicateIds.clear();
+		contexts.clear();
+		otherContexts.clear();
+		otherContextIds.clear();
+		removedSinceRebuild = 0;
+		changed = true;
+	}
+
+	/**
+	 * Replaces these statistics by rebuilt ones.
+	 */
+	private void replaceBy(TripleStatistics rebuilt) {
+		total = rebuilt.total;
+		predicates = rebuilt.predicates;
+		otherPredicates = rebuilt.otherPredicates;
+		otherPredicateIds = rebuilt.otherPredicateIds;
+		contexts = rebuilt.contexts;
+		otherContexts = rebuilt.otherContexts;
+		otherContextIds = rebuilt.otherContextIds;
+		removedSinceRebuild = 0;
+		changed = true;
+		available = true;
+	}
+
+	/**
+	 * Gets the number of triples in the store.
+	 */
+	synchronized long getTripleCount() {
+		return total.count;
+	}
+
+	/**
+	 * Gets the (approximate) number of distinct predicates in the store.
+	 */
+	synchronized long getPredicateCount() {
+		return predicates.size() + otherPredicateIds.estimate();
+	}
+
+	/**
+	 * Gets the (approximate) number of distinct contexts in the store, including the default context.
+	 */
+	synchronized long getContextCount() {
+		return contexts.size() + otherContextIds.estimate();
+	}
+
+	/**
+	 * Estimates the number of triples that match a pattern.
+	 *
+	 * @param subj    The subject of the pattern, or <tt>-1</tt> for a wildcard.
+	 * @param pred    The predicate of the pattern, or <tt>-1</tt> for a wildcard.
+	 * @param obj     The object of the pattern, or <tt>-1</tt> for a wildcard.
+	 * @param context The context of the pattern, or <tt>-1</tt> for a wildcard.
+	 */
+	synchronized double getCardinality(int subj, int pred, int obj, int context) {
+		if (!available || total.count == 0) {
+			return 0;
+		}
+
+		Summary summary = total;
+		double cardinality = total.count;
+
+		if (pred >= 0) {
+			summary = predicates.get(pred);
+			if (summary != null) {
+				cardinality = summary.count;
+			} else if (otherPredicates.count > 0) {
+				// assume that the predicate is one of the predicates without statistics of their own, of average size
+				summary = otherPredicates;
+				cardinality = (double) otherPredicates.count / Math.max(1, otherPredicateIds.estimate());
+			} else {
+				return 0;
+			}
+		}
+
+		if (context >= 0) {
+			Summary contextSummary = contexts.get(context);
+			double contextCount;
+			if (contextSummary != null) {
+				contextCount = contextSummary.count;
+			} else if (otherContexts.count > 0) {
+				// assume that the context is one of the contexts without statistics of their own, of average size
+				contextSummary = otherContexts;
+				contextCount = (double) otherContexts.count / Math.max(1, otherContextIds.estimate());
+			} else {
+				return 0;
+			}
+			// assume that the predicate and context are independent
+			cardinality = cardinality * contextCount / total.count;
+			if (pred < 0) {
+				summary = contextSummary;
+			}
+		}
+
+		if (subj >= 0) {
+			cardinality /= summary.getDistinctSubjects();
+		}
+		if (obj >= 0) {
+			cardinality *= summary.getObjectSelectivity(obj);
+		}
+
+		return cardinality;
+	}
+
+	/**
+	 * Estimates the number of triples that match a pattern for a single value of each of the specified variables.
+	 *
+	 * @param subj      The subject of the pattern, or <tt>-1</tt> for a wildcard.
+	 * @param pred      The predicate of the pattern, or <tt>-1</tt> for a wildcard.
+	 * @param obj       The object of the pattern, or <tt>-1</tt> for a wildcard.
+	 * @param context   The context of the pattern, or <tt>-1</tt> for a wildcard.
+	 * @param boundSubj Whether the subject is bound to an (unknown) value, only applies if <tt>subj</tt> is a wildcard.
+	 * @param boundPred Whether the predicate is bound to an (unknown) value, only applies if <tt>pred</tt> is a
+	 *                  wildcard.
+	 * @param boundObj  Whether the object is bound to an (unknown) value, only applies if <tt>obj</tt> is a wildcard.
+	 * @param boundCtx  Whether the context is bound to an (unknown) value, only applies if <tt>context</tt> is a
+	 *                  wildcard.
+	 */
+	synchronized double getCardinality(int subj, int pred, int obj, int context, boolean boundSubj,
+			boolean boundPred, boolean boundObj, boolean boundCtx) {
+		double cardinality = getCardinality(subj, pred, obj, context);
+		if (cardinality == 0) {
+			return 0;
+		}
+
+		Summary summary = total;
+		if (pred >= 0) {
+			summary = predicates.getOrDefault(pred, otherPredicates);
+		}
+
+		if (boundSubj && subj < 0) {
+			cardinality /= summary.getDistinctSubjects();
+		}
+		if (boundObj && obj < 0) {
+			cardinality /= summary.getDistinctObjects();
+		}
+		if (boundPred && pred < 0) {
+			cardinality /= Math.max(1, getPredicateCount());
+		}
+		if (boundCtx && context < 0) {
+			cardinality /= Math.max(1, getContextCount());
+		}
+
+		return cardinality;
+	}
+
+	/**
+	 * Loads the statistics from disk, and deletes the file as it will be outdated by the next commit.
+	 *
+	 * @throws FileNotFoundException If the statistics have not been stored yet.
+	 * @throws IOException           If the statistics could not be read.
+	 */
+	synchronized void load() throws IOException {
+		if (!file.exists()) {
+			throw new FileNotFoundException("statistics file " + file + " does not exist");
+		}
+
+		clearInternal();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			byte[] magicNumber = IOUtil.readBytes(in, MAGIC_NUMBER.length);
+			if (!Arrays.equals(magicNumber, MAGIC_NUMBER)) {
+				throw new IOException("File doesn't contain compatible statistics");
+			}
+
+			byte version = in.readByte();
+			if (version != FILE_FORMAT_VERSION) {
+				throw new IOException("Unable to read statistics file; invalid file format version: " + version);
+			}
+
+			removedSinceRebuild = in.readLong();
+			total.read(in);
+			readSummaries(in, predicates, true);
+			otherPredicates.read(in);
+			otherPredicateIds.read(in);
+			readSummaries(in, contexts, false);
+			otherContexts.read(in);
+			otherContextIds.read(in);
+		} catch (IOException e) {
+			clearInternal();
+			throw e;
+		}
+		available = true;
+		Files.delete(file.toPath());
+		changed = false;
+		stored = false;
+	}
+
+	/**
+	 * Stores the statistics on disk, if they have changed and are available.
+	 */
+	synchronized void sync() throws IOException {
+		if (!changed && stored || !available) {
+			return;
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.write(MAGIC_NUMBER);
+			out.writeByte(FILE_FORMAT_VERSION);
+			out.writeLong(removedSinceRebuild);
+			total.write(out);
+			writeSummaries(out, predicates);
+			otherPredicates.write(out);
+			otherPredicateIds.write(out);
+			writeSummaries(out, contexts);
+			otherContexts.write(out);
+			otherContextIds.write(out);
+		}
+		changed = false;
+		stored = true;
+	}
+
+	/**
+	 * Cancels a rebuild that is in progress and stores the statistics on disk.
+	 */
+	void close() throws IOException {
+		cancelRebuild();
+		sync();
+	}
+
+	private static void readSummaries(DataInputStream in, Map<Integer, Summary> summaries, boolean trackObjects)
+			throws IOException {
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			int id = in.readInt();
+			Summary summary = new Summary(trackObjects);
+			summary.read(in);
+			summaries.put(id, summary);
+		}
+	}
+
+	private static void writeSummaries(DataOutputStream out, Map<Integer, Summary> summaries) throws IOException {
+		out.writeInt(summaries.size());
+		for (Map.Entry<Integer, Summary> entry : summaries.entrySet()) {
+			out.writeInt(entry.getKey());
+			entry.getValue().write(out);
+		}
+	}
+
+	/*---------------------*
+	 * Inner class Rebuild *
+	 *---------------------*/
+
+	/**
+	 * Builds new statistics from a scan over an index, and replaces the statistics by them once the scan is complete.
+	 * The scan holds the lock of the statistics while it advances, so that the triples that are committed concurrently
+	 * are either applied to the new statistics because the scan has already passed them, or found by the scan.
+	 */
+	private class Rebuild implements Runnable {
+
+		private final TripleStatistics statistics = new TripleStatistics();
+
+		private final RecordIterator iter;
+
+		private final RecordComparator comparator;
+
+		/**
+		 * The last record of the scan, or <tt>null</tt> if the scan has not started yet.
+		 */
+		private byte[] position;
+
+		Rebuild(RecordIterator iter, RecordComparator comparator) {
+			this.iter = iter;
+			this.comparator = comparator;
+		}
+
+		/**
+		 * Checks whether the scan has already passed the specified record.
+		 */
+		boolean isPassed(byte[] data) {
+			return position != null && comparator.compareBTreeValues(data, position, 0, position.length) <= 0;
+		}
+
+		@Override
+		public void run() {
+			try {
+				logger.debug("Rebuilding triple statistics from the index");
+				while (next()) {
+					// continue
+				}
+			} catch (IOException | RuntimeException e) {
+				logger.warn("Failed to rebuild triple statistics", e);
+				synchronized (TripleStatistics.this) {
+					if (rebuild == this) {
+						rebuild = null;
+					}
+				}
+			} finally {
+				try {
+					iter.close();
+				} catch (IOException e) {
+					logger.warn("Failed to close index iterator", e);
+				}
+			}
+		}
+
+		/**
+		 * Advances the scan by one record.
+		 *
+		 * @return <tt>false</tt> if the scan is complete or has been cancelled.
+		 */
+		private boolean next() throws IOException {
+			synchronized (TripleStatistics.this) {
+				if (rebuild != this) {
+					return false;
+				}
+				byte[] data = iter.next();
+				if (data == null) {
+					replaceBy(statistics);
+					rebuild = null;
+					logger.debug("Triple statistics rebuilt");
+					return false;
+				}
+				if (isCommitted(data)) {
+					statistics.added(data);
+				}
+				position = data;
+				return true;
+			}
+		}
+	}
+
+	/*---------------------*
+	 * Inner class Summary *
+	 *---------------------*/
+
+	/**
+	 * The statistics of a subset of the triples.
+	 */
+	private static class Summary {
+
+		long count;
+
+		final DistinctCounter subjects = new DistinctCounter();
+
+		final DistinctCounter objects = new DistinctCounter();
+
+		final HeavyHitters frequentObjects;
+
+		Summary(boolean trackObjects) {
+			frequentObjects = trackObjects ? new HeavyHitters() : null;
+		}
+
+		void added(int subj, int obj) {
+			count++;
+			subjects.add(subj);
+			objects.add(obj);
+			if (frequentObjects != null) {
+				frequentObjects.add(obj);
+			}
+		}
+
+		void removed(int obj) {
+			count--;
+			if (frequentObjects != null) {
+				frequentObjects.remove(obj);
+			}
+		}
+
+		double getDistinctSubjects() {
+			return Math.max(1, Math.min(count, subjects.estimate()));
+		}
+
+		double getDistinctObjects() {
+			return Math.max(1, Math.min(count, objects.estimate()));
+		}
+
+		/**
+		 * Estimates the fraction of the triples that have the specified object.
+		 */
+		double getObjectSelectivity(int obj) {
+			if (count == 0) {
+				return 0;
+			}
+			if (frequentObjects == null) {
+				return 1 / getDistinctObjects();
+			}
+
+			long frequency = frequentObjects.getCount(obj);
+			if (frequency > 0) {
+				return Math.min(frequency, count) / (double) count;
+			}
+
+			// spread the triples that don't have a frequent object over the remaining objects, but never estimate more
+			// triples than those of the least frequent tracked object
+			double remainingTriples = Math.max(1, count - frequentObjects.getTotalCount());
+			double remainingObjects = Math.max(1, getDistinctObjects() - frequentObjects.size());
+			double estimate = remainingTriples / remainingObjects;
+			if (frequentObjects.isFull()) {
+				estimate = Math.min(estimate, frequentObjects.getMinCount());
+			}
+			return estimate / count;
+		}
+
+		void clear() {
+			count = 0;
+			subjects.clear();
+			objects.clear();
+			if (frequentObjects != null) {
+				frequentObjects.clear();
+			}
+		}
+
+		void read(DataInputStream in) throws IOException {
+			count = in.readLong();
+			subjects.read(in);
+			objects.read(in);
+			if (frequentObjects != null) {
+				frequentObjects.read(in);
+			}
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeLong(count);
+			subjects.write(out);
+			objects.write(out);
+			if (frequentObjects != null) {
+				frequentObjects.write(out);
+			}
+		}
+	}
+
+	/*-----------------------------*
+	 * Inner class DistinctCounter *
+	 *-----------------------------*/
+
+	/**
+	 * Counts the number of distinct IDs. Small sets of IDs are counted exactly, larger ones are estimated using a
+	 * HyperLogLog sketch with a standard error of some 6.5%.
+	 */
+	static class DistinctCounter {
+
+		/**
+		 * The maximum number of IDs that is counted exactly.
+		 */
+		private static final int EXACT_LIMIT = 64;
+
+		private static final int REGISTER_BITS = 8;
+
+		private static final int REGISTER_COUNT = 1 << REGISTER_BITS;
+
+		private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTER_COUNT);
+
+		/**
+		 * The sorted IDs, as long as they are counted exactly.
+		 */
+		private int[] ids = new int[4];
+
+		private int size;
+
+		private byte[] registers;
+
+		void add(int id) {
+			if (registers != null) {
+				addToSketch(id);
+				return;
+			}
+
+			int idx = Arrays.binarySearch(ids, 0, size, id);
+			if (idx >= 0) {
+				return;
+			}
+
+			if (size == EXACT_LIMIT) {
+				registers = new byte[REGISTER_COUNT];
+				for (int i = 0; i < size; i++) {
+					addToSketch(ids[i]);
+				}
+				addToSketch(id);
+				ids = null;
+				size = 0;
+				return;
+			}
+
+			idx = -idx - 1;
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, Math.min(2 * size, EXACT_LIMIT));
+			}
+			System.arraycopy(ids, idx, ids, idx + 1, size - idx);
+			ids[idx] = id;
+			size++;
+		}
+
+		private void addToSketch(int id) {
+			long hash = hash(id);
+			int register = (int) (hash >>> (64 - REGISTER_BITS));
+			byte rank = (byte) (Long.numberOfLeadingZeros(hash << REGISTER_BITS | (1L << (REGISTER_BITS - 1))) + 1);
+			if (rank > registers[register]) {
+				registers[register] = rank;
+			}
+		}
+
+		boolean isEmpty() {
+			return registers == null && size == 0;
+		}
+
+		long estimate() {
+			if (registers == null) {
+				return size;
+			}
+
+			double sum = 0;
+			int zeroRegisters = 0;
+			for (byte rank : registers) {
+				sum += 1.0 / (1L << rank);
+				if (rank == 0) {
+					zeroRegisters++;
+				}
+			}
+
+			double estimate = ALPHA * REGISTER_COUNT * REGISTER_COUNT / sum;
+			if (estimate <= 2.5 * REGISTER_COUNT && zeroRegisters > 0) {
+				// use linear counting for small cardinalities
+				estimate = REGISTER_COUNT * Math.log((double) REGISTER_COUNT / zeroRegisters);
+			}
+			return Math.round(estimate);
+		}
+
+		void clear() {
+			ids = new int[4];
+			size = 0;
+			registers = null;
+		}
+
+		void read(DataInputStream in) throws IOException {
+			int n = in.readInt();
+			if (n < 0) {
+				ids = null;
+				size = 0;
+				registers = IOUtil.readBytes(in, REGISTER_COUNT);
+			} else if (n <= EXACT_LIMIT) {
+				registers = null;
+				ids = new int[Math.max(4, n)];
+				size = n;
+				for (int i = 0; i < n; i++) {
+					ids[i] = in.readInt();
+				}
+			} else {
+				throw new IOException("Invalid distinct value count in statistics file: " + n);
+			}
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			if (registers != null) {
+				out.writeInt(-1);
+				out.write(registers);
+			} else {
+				out.writeInt(size);
+				for (int i = 0; i < size; i++) {
+					out.writeInt(ids[i]);
+				}
+			}
+		}
+
+		private static long hash(int id) {
+			// finalization step of MurmurHash3, spreads the (often sequential) IDs over all bits
+			long h = id * 0x9E3779B97F4A7C15L;
+			h ^= h >>> 33;
+			h *= 0xFF51AFD7ED558CCDL;
+			h ^= h >>> 33;
+			h *= 0xC4CEB9FE1A85EC53L;
+			h ^= h >>> 33;
+			return h;
+		}
+	}
+
+	/*--------------------------*
+	 * Inner class HeavyHitters *
+	 *--------------------------*/
+
+	/**
+	 * Tracks the most frequent IDs using the Space-Saving algorithm. The count of a tracked ID is an upper bound of its
+	 * actual frequency, that overestimates it by at most the count of the least frequent ID at the time it started
+	 * being tracked.
+	 */
+	static class HeavyHitters {
+
+		private static final int CAPACITY = 16;
+
+		private final int[] ids = new int[CAPACITY];
+
+		private final long[] counts = new long[CAPACITY];
+
+		private int size;
+
+		void add(int id) {
+			int idx = indexOf(id);
+			if (idx >= 0) {
+				counts[idx]++;
+			} else if (size < CAPACITY) {
+				ids[size] = id;
+				counts[size] = 1;
+				size++;
+			} else {
+				// replace the least frequent ID, inheriting its count as the maximum error
+				idx = getMinIdx();
+				ids[idx] = id;
+				counts[idx]++;
+			}
+		}
+
+		void remove(int id) {
+			int idx = indexOf(id);
+			if (idx >= 0 && --counts[idx] == 0) {
+				size--;
+				ids[idx] = ids[size];
+				counts[idx] = counts[size];
+			}
+		}
+
+		long getCount(int id) {
+			int idx = indexOf(id);
+			return idx >= 0 ? counts[idx] : 0;
+		}
+
+		long getTotalCount() {
+			long total = 0;
+			for (int i = 0; i < size; i++) {
+				total += counts[i];
+			}
+			return total;
+		}
+
+		long getMinCount() {
+			return size > 0 ? counts[getMinIdx()] : 0;
+		}
+
+		int size() {
+			return size;
+		}
+
+		boolean isFull() {
+			return size == CAPACITY;
+		}
+
+		void clear() {
+			size = 0;
+		}
+
+		private int indexOf(int id) {
+			for (int i = 0; i < size; i++) {
+				if (ids[i] == id) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private int getMinIdx() {
+			int minIdx = 0;
+			for (int i = 1; i < size; i++) {
+				if (counts[i] < counts[minIdx]) {
+					minIdx = i;
+				}
+			}
+			return minIdx;
+		}
+
+		void read(DataInputStream in) throws IOException {
+			size = in.readUnsignedByte();
+			if (size > CAPACITY) {
+				throw new IOException("Invalid number of frequent values in statistics file: " + size);
+			}
+			for (int i = 0; i < size; i++) {
+				ids[i] = in.readInt();
+				counts[i] = in.readLong();
+			}
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeByte(size);
+			for (int i = 0; i < size; i++) {
+				out.writeInt(ids[i]);
+				out.writeLong(counts[i]);
+			}
+		}
+	}
+}
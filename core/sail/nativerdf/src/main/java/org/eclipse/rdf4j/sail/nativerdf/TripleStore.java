@@ -10,10 +10,13 @@ package org.eclipse.rdf4j.sail.nativerdf;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -23,6 +26,10 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.rdf4j.common.io.ByteArrayUtil;
 import org.eclipse.rdf4j.sail.SailException;
@@ -79,6 +86,12 @@ class TripleStore implements Closeable {
 	 */
 	private static final int SCHEME_VERSION = 10;
 
+	/**
+	 * The minimum number of updated triples for which the indexes are committed in parallel. Smaller transactions are
+	 * committed sequentially, as handing them off to other threads costs more than it saves.
+	 */
+	private static final int PARALLEL_COMMIT_THRESHOLD = 64;
+
 	// 17 bytes are used to represent a triple:
 	// byte 0-3 : subject
 	// byte 4-7 : predicate
@@ -141,10 +154,30 @@ class TripleStore implements Closeable {
 
 	private final boolean forceSync;
 
+	/**
+	 * Flag indicating whether the index files should be read through a memory mapping.
+	 */
+	private final boolean memoryMapped;
+
+	/**
+	 * Flag indicating whether the nodes of the indexes should be stored in compressed form.
+	 */
+	private boolean compressedIndexes;
+
 	private final TxnStatusFile txnStatusFile;
 
 	private volatile RecordCache updatedTriplesCache;
 
+	/**
+	 * Statistics about the committed triples, used for estimating the cardinality of patterns.
+	 */
+	private final TripleStatistics statistics;
+
+	/**
+	 * Executor for committing the indexes in parallel, created when it is first needed.
+	 */
+	private ExecutorService commitExecutor;
+
 	/*--------------*
 	 * Constructors *
 	 *--------------*/
@@ -154,9 +187,28 @@ class TripleStore implements Closeable {
 	}
 
 	public TripleStore(File dir, String indexSpecStr, boolean forceSync) throws IOException, SailException {
+		this(dir, indexSpecStr, forceSync, false);
+	}
+
+	public TripleStore(File dir, String indexSpecStr, boolean forceSync, boolean memoryMapped)
+			throws IOException, SailException {
+		this(dir, indexSpecStr, forceSync, memoryMapped, null);
+	}
+
+	/**
+	 * Creates a triple store in the specified directory. If the directory contains indexes with a different format
+	 * than requested through <tt>compressedIndexes</tt>, these indexes are rebuilt in the requested format. If
+	 * <tt>compressedIndexes</tt> is <tt>null</tt>, the format of the existing indexes is kept, and new stores use
+	 * uncompressed indexes.
+	 */
+	public TripleStore(File dir, String indexSpecStr, boolean forceSync, boolean memoryMapped,
+			Boolean compressedIndexes) throws IOException, SailException {
 		this.dir = dir;
 		this.forceSync = forceSync;
+		this.memoryMapped = memoryMapped;
+		this.compressedIndexes = Boolean.TRUE.equals(compressedIndexes);
 		this.txnStatusFile = new TxnStatusFile(dir);
+		this.statistics = new TripleStatistics(dir);
 
 		File propFile = new File(dir, PROPERTIES_FILE);
 
@@ -182,6 +234,11 @@ class TripleStore implements Closeable {
 			Set<String> indexSpecs = getIndexSpecs();
 			initIndexes(indexSpecs);
 
+			if (compressedIndexes == null && !indexes.isEmpty()) {
+				// No format specified, keep the one of the existing indexes
+				this.compressedIndexes = indexes.get(0).getBTree().isCompressed();
+			}
+
 			// Check transaction status
 			TxnStatus txnStatus = txnStatusFile.getTxnStatus();
 			if (txnStatus == TxnStatus.NONE) {
@@ -196,10 +253,16 @@ class TripleStore implements Closeable {
 			if (reqIndexSpecs.isEmpty()) {
 				// No indexes specified, use the existing ones
 				indexSpecStr = properties.getProperty(INDEXES_KEY);
-			} else if (!reqIndexSpecs.equals(indexSpecs)) {
-				// Set of indexes needs to be changed
+				reqIndexSpecs = indexSpecs;
+			}
+
+			if (!reqIndexSpecs.equals(indexSpecs) || indexes.stream()
+					.anyMatch(index -> index.getBTree().isCompressed() != this.compressedIndexes)) {
+				// Set of indexes or their format needs to be changed
 				reindex(indexSpecs, reqIndexSpecs);
 			}
+
+			initStatistics(txnStatus == TxnStatus.NONE);
 		}
 
 		if (!String.valueOf(SCHEME_VERSION).equals(properties.getProperty(VERSION_KEY))
@@ -278,6 +341,29 @@ class TripleStore implements Closeable {
 		return indexes;
 	}
 
+	/**
+	 * Loads the statistics of the triples from disk. If they are missing or may be out of date, they are built from the
+	 * indexes in the background, and cardinalities are estimated from the indexes until then.
+	 *
+	 * @param consistent Whether the store was closed properly, if not the stored statistics may be out of date.
+	 */
+	private void initStatistics(boolean consistent) throws IOException {
+		if (consistent) {
+			try {
+				statistics.load();
+				return;
+			} catch (FileNotFoundException e) {
+				logger.debug("triple statistics have not been created yet");
+			} catch (IOException e) {
+				logger.info("could not read triple statistics: " + e.getMessage(), e);
+			}
+		}
+
+		logger.debug("building triple statistics from the indexes in the background");
+		TripleIndex index = indexes.get(0);
+		statistics.startBuild(index.getBTree().iterateAll(), index.tripleComparator);
+	}
+
 	private void initIndexes(Set<String> indexSpecs) throws IOException {
 		for (String fieldSeq : indexSpecs) {
 			logger.trace("Initializing index '{}'...", fieldSeq);
@@ -375,6 +461,16 @@ class TripleStore implements Closeable {
 			logger.debug("New index(es) initialized");
 		}
 
+		// Rebuild the existing indexes that are stored in a different format than requested
+		for (String fieldSeq : newIndexSpecs) {
+			TripleIndex index = currentIndexes.get(fieldSeq);
+			if (index.getBTree().isCompressed() != compressedIndexes) {
+				logger.debug("Converting index '{}' to {} format...", fieldSeq,
+						compressedIndexes ? "compressed" : "uncompressed");
+				currentIndexes.put(fieldSeq, convertIndex(index));
+			}
+		}
+
 		// Determine the set of removed indexes
 		Set<String> removedIndexSpecs = new HashSet<>(currentIndexSpecs);
 		removedIndexSpecs.removeAll(newIndexSpecs);
@@ -408,10 +504,63 @@ class TripleStore implements Closeable {
 		}
 	}
 
+	/**
+	 * Rebuilds an index in the requested format. The new index is built bottom-up from the records of the existing
+	 * index under a temporary name and then replaces the existing index files.
+	 *
+	 * @return The rebuilt index.
+	 */
+	private TripleIndex convertIndex(TripleIndex index) throws IOException {
+		String fieldSeq = new String(index.getFieldSeq());
+		String filenamePrefix = getFilenamePrefix(fieldSeq);
+		String tmpFilenamePrefix = filenamePrefix + "-converted";
+
+		// Remove any files left behind by an aborted conversion
+		Files.deleteIfExists(new File(dir, tmpFilenamePrefix + ".dat").toPath());
+		Files.deleteIfExists(new File(dir, tmpFilenamePrefix + ".alloc").toPath());
+
+		BTree btree = index.getBTree();
+		long recordCount = 0;
+		try (RecordIterator iter = btree.iterateAll()) {
+			while (iter.next() != null) {
+				recordCount++;
+			}
+		}
+
+		TripleIndex convertedIndex = new TripleIndex(fieldSeq, tmpFilenamePrefix);
+		BTree convertedBTree = convertedIndex.getBTree();
+		try {
+			try (RecordIterator iter = btree.iterateAll()) {
+				convertedBTree.load(iter, recordCount);
+			}
+		} finally {
+			convertedBTree.close();
+		}
+		btree.close();
+
+		// Replace the data file atomically. The allocated nodes file is deleted first, if it is missing the
+		// allocated nodes are determined from the data file.
+		Files.deleteIfExists(new File(dir, filenamePrefix + ".alloc").toPath());
+		Files.move(new File(dir, tmpFilenamePrefix + ".dat").toPath(), new File(dir, filenamePrefix + ".dat").toPath(),
+				StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		Files.move(new File(dir, tmpFilenamePrefix + ".alloc").toPath(),
+				new File(dir, filenamePrefix + ".alloc").toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		logger.debug("Converted index '{}' with {} records", fieldSeq, recordCount);
+
+		return new TripleIndex(fieldSeq);
+	}
+
 	@Override
 	public void close() throws IOException {
 		try {
 			List<Throwable> caughtExceptions = new ArrayList<>();
+			try {
+				statistics.close();
+			} catch (Throwable e) {
+				logger.warn("Failed to store triple statistics");
+				caughtExceptions.add(e);
+			}
 			for (TripleIndex index : indexes) {
 				try {
 					index.getBTree().close();
@@ -424,6 +573,9 @@ class TripleStore implements Closeable {
 				throw new IOException(caughtExceptions.get(0));
 			}
 		} finally {
+			if (commitExecutor != null) {
+				commitExecutor.shutdown();
+			}
 			try {
 				txnStatusFile.close();
 			} finally {
@@ -619,7 +771,8 @@ class TripleStore implements Closeable {
 
 		double rangeSize;
 
-		if (index.getPatternScore(subj, pred, obj, context) == 0) {
+		int score = index.getPatternScore(subj, pred, obj, context);
+		if (score == 0) {
 			rangeSize = btree.getValueCountEstimate();
 		} else {
 			byte[] minValue = getMinValue(subj, pred, obj, context);
@@ -627,30 +780,109 @@ class TripleStore implements Closeable {
 			rangeSize = btree.getValueCountEstimate(minValue, maxValue);
 		}
 
+		if (score < getBoundFieldCount(subj, pred, obj, context)) {
+			// the index range includes triples that don't match the pattern, the statistics may know better. These
+			// don't include uncommitted triples though, so ignore them if they don't know the pattern at all.
+			double estimate = statistics.getCardinality(subj, pred, obj, context);
+			if (estimate > 0) {
+				rangeSize = Math.min(rangeSize, estimate);
+			}
+		}
+
 		return rangeSize;
 	}
 
+	/**
+	 * Gets the statistics about the committed triples in this store.
+	 */
+	TripleStatistics getStatistics() {
+		return statistics;
+	}
+
 	protected TripleIndex getBestIndex(int subj, int pred, int obj, int context) {
 		int bestScore = -1;
 		TripleIndex bestIndex = null;
+		double bestRangeSize = Double.POSITIVE_INFINITY;
 
 		for (TripleIndex index : indexes) {
 			int score = index.getPatternScore(subj, pred, obj, context);
 			if (score > bestScore) {
 				bestScore = score;
 				bestIndex = index;
+				bestRangeSize = Double.POSITIVE_INFINITY;
+			} else if (score == bestScore && score > 0) {
+				// indexes match the same number of fields, prefer the one that has to scan the fewest triples
+				if (bestRangeSize == Double.POSITIVE_INFINITY) {
+					bestRangeSize = bestIndex.getRangeSizeEstimate(subj, pred, obj, context);
+				}
+				double rangeSize = index.getRangeSizeEstimate(subj, pred, obj, context);
+				if (rangeSize < bestRangeSize) {
+					bestIndex = index;
+					bestRangeSize = rangeSize;
+				}
 			}
 		}
 
 		return bestIndex;
 	}
 
+	private static int getBoundFieldCount(int subj, int pred, int obj, int context) {
+		int count = 0;
+		for (int id : new int[] { subj, pred, obj, context }) {
+			if (id >= 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
 	public void clear() throws IOException {
+		// stop a rebuild of the statistics from the indexes first
+		statistics.clear();
 		for (TripleIndex index : indexes) {
 			index.getBTree().clear();
 		}
 	}
 
+	/**
+	 * Checks whether this triple store contains any records, including those of uncommitted transactions.
+	 */
+	boolean isEmpty() throws IOException {
+		try (RecordIterator iter = indexes.get(0).getBTree().iterateAll()) {
+			return iter.next() == null;
+		}
+	}
+
+	/**
+	 * Gets the field sequences (e.g. "spoc") of the indexes of this triple store.
+	 */
+	List<String> getIndexFieldSeqs() {
+		List<String> fieldSeqs = new ArrayList<>(indexes.size());
+		for (TripleIndex index : indexes) {
+			fieldSeqs.add(new String(index.getFieldSeq()));
+		}
+		return fieldSeqs;
+	}
+
+	/**
+	 * Fills the empty indexes of this triple store with the quads from the supplied sorter. Bypassing transactions and
+	 * the regular insertion of records, each index is built bottom-up from the quads in its sort order.
+	 *
+	 * @param quads     A sorter with the quads for all indexes of this triple store.
+	 * @param quadCount The number of distinct quads in the sorter.
+	 * @throws IllegalStateException If the triple store already contains data.
+	 */
+	void load(ExternalQuadSorter quads, long quadCount) throws IOException {
+		for (TripleIndex index : indexes) {
+			try (RecordIterator records = quads.getSortedRecords(new String(index.getFieldSeq()))) {
+				index.getBTree().load(records, quadCount);
+			}
+			index.getBTree().sync();
+		}
+
+		statistics.rebuild(indexes.get(0).getBTree().iterateAll());
+	}
+
 	public boolean storeTriple(int subj, int pred, int obj, int context) throws IOException {
 		return storeTriple(subj, pred, obj, context, true);
 	}
@@ -864,58 +1096,178 @@ class TripleStore implements Closeable {
 		// updatedTriplesCache will be null when recovering from a crashed commit
 		boolean validCache = updatedTriplesCache != null && updatedTriplesCache.isValid();
 
-		for (TripleIndex index : indexes) {
-			BTree btree = index.getBTree();
+		if (indexes.size() > 1 && getCommitExecutor() != null
+				&& (!validCache || updatedTriplesCache.getRecordCount() >= PARALLEL_COMMIT_THRESHOLD)) {
+			commitIndexesInParallel(validCache);
+		} else {
+			for (TripleIndex index : indexes) {
+				commitIndex(index, validCache);
+			}
+		}
 
-			RecordIterator iter;
-			if (validCache) {
-				// Use the cached set of updated triples
-				iter = updatedTriplesCache.getRecords();
-			} else {
-				// Cache is invalid; too much updates(?). Iterate over all triples
-				iter = btree.iterateAll();
+		if (updatedTriplesCache != null) {
+			updatedTriplesCache.clear();
+		}
+
+		if (statistics.isRebuildNeeded()) {
+			TripleIndex index = indexes.get(0);
+			statistics.startRebuild(index.getBTree().iterateAll(), index.tripleComparator);
+		}
+
+		txnStatusFile.setTxnStatus(TxnStatus.NONE);
+		// checkAllCommitted();
+	}
+
+	/**
+	 * Applies the pending changes to all indexes concurrently. The indexes are independent files, each protected by its
+	 * own lock, so the only shared resource is the updated triples cache, which supports concurrent iteration. The
+	 * transaction status is only updated once all indexes have been committed, so an interrupted commit is completed
+	 * on restart as before.
+	 */
+	private void commitIndexesInParallel(boolean validCache) throws IOException {
+		List<Future<Void>> futures = new ArrayList<>(indexes.size() - 1);
+		for (TripleIndex index : indexes.subList(1, indexes.size())) {
+			futures.add(getCommitExecutor().submit(() -> {
+				commitIndex(index, validCache);
+				return null;
+			}));
+		}
+
+		// commit the first index in the current thread
+		Throwable failure = null;
+		try {
+			commitIndex(indexes.get(0), validCache);
+		} catch (IOException | RuntimeException e) {
+			failure = e;
+		}
+
+		// always wait for all indexes, the transaction status may not change while an index is being updated
+		boolean interrupted = false;
+		for (Future<Void> future : futures) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause();
+					}
+					break;
+				}
 			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
 
-			try {
-				byte[] data;
-				while ((data = iter.next()) != null) {
-					byte flags = data[FLAG_IDX];
-					boolean wasAdded = (flags & ADDED_FLAG) != 0;
-					boolean wasRemoved = (flags & REMOVED_FLAG) != 0;
-					boolean wasToggled = (flags & TOGGLE_EXPLICIT_FLAG) != 0;
+		if (failure instanceof IOException) {
+			throw (IOException) failure;
+		} else if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		} else if (failure != null) {
+			throw new IOException(failure);
+		}
+	}
 
-					if (wasRemoved) {
-						btree.remove(data);
-					} else if (wasAdded || wasToggled) {
-						if (wasToggled) {
-							data[FLAG_IDX] ^= EXPLICIT_FLAG;
-						}
-						if (wasAdded) {
-							data[FLAG_IDX] ^= ADDED_FLAG;
-						}
+	/**
+	 * Applies the pending changes to an index and syncs it to disk. The changes to the first index are also applied to
+	 * the statistics.
+	 */
+	private void commitIndex(TripleIndex index, boolean validCache) throws IOException {
+		BTree btree = index.getBTree();
+		boolean updateStatistics = index == indexes.get(0);
+
+		RecordIterator iter;
+		if (validCache) {
+			// Use the cached set of updated triples
+			iter = updatedTriplesCache.getRecords();
+		} else {
+			// Cache is invalid; too much updates(?). Iterate over all triples
+			iter = btree.iterateAll();
+		}
 
-						if (validCache) {
-							// We're iterating the cache
-							btree.insert(data);
+		try {
+			byte[] data;
+			while ((data = iter.next()) != null) {
+				byte flags = data[FLAG_IDX];
+				boolean wasAdded = (flags & ADDED_FLAG) != 0;
+				boolean wasRemoved = (flags & REMOVED_FLAG) != 0;
+
+				if (updateStatistics && wasAdded != wasRemoved) {
+					// triples that are both added and removed in the transaction never existed. The statistics may be
+					// rebuilt from this index concurrently, which requires both to be updated while holding their lock
+					synchronized (statistics) {
+						if (wasAdded) {
+							statistics.added(data);
 						} else {
-							// We're iterating the BTree itself
-							iter.set(data);
+							statistics.removed(data);
 						}
+						commitRecord(btree, iter, data, validCache);
 					}
+				} else {
+					commitRecord(btree, iter, data, validCache);
 				}
-			} finally {
-				iter.close();
 			}
+		} finally {
+			iter.close();
 		}
 
-		if (updatedTriplesCache != null) {
-			updatedTriplesCache.clear();
-		}
+		btree.sync();
+	}
 
-		sync();
+	/**
+	 * Applies the pending change of a record to an index.
+	 *
+	 * @param iter       The iterator that returned the record, used to update it if the index itself is iterated.
+	 * @param validCache Whether the record was returned by the updated triples cache instead of the index.
+	 */
+	private void commitRecord(BTree btree, RecordIterator iter, byte[] data, boolean validCache) throws IOException {
+		byte flags = data[FLAG_IDX];
+		boolean wasAdded = (flags & ADDED_FLAG) != 0;
+		boolean wasRemoved = (flags & REMOVED_FLAG) != 0;
+		boolean wasToggled = (flags & TOGGLE_EXPLICIT_FLAG) != 0;
+
+		if (wasRemoved) {
+			btree.remove(data);
+		} else if (wasAdded || wasToggled) {
+			if (wasToggled) {
+				data[FLAG_IDX] ^= EXPLICIT_FLAG;
+			}
+			if (wasAdded) {
+				data[FLAG_IDX] ^= ADDED_FLAG;
+			}
 
-		txnStatusFile.setTxnStatus(TxnStatus.NONE);
-		// checkAllCommitted();
+			if (validCache) {
+				// We're iterating the cache
+				btree.insert(data);
+			} else {
+				// We're iterating the BTree itself
+				iter.set(data);
+			}
+		}
+	}
+
+	/**
+	 * Gets the executor for committing indexes in parallel, creating it if needed.
+	 *
+	 * @return The executor, or <tt>null</tt> if indexes should be committed sequentially.
+	 */
+	private ExecutorService getCommitExecutor() {
+		if (commitExecutor == null) {
+			int threads = Math.min(indexes.size() - 1, Runtime.getRuntime().availableProcessors());
+			if (threads <= 0) {
+				return null;
+			}
+			commitExecutor = Executors.newFixedThreadPool(threads, r -> {
+				Thread t = new Thread(r, "rdf4j-nativestore-commit-" + dir.getName());
+				// the executor is shut down when the triple store is closed, but must not keep the JVM alive
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return commitExecutor;
 	}
 
 	private void checkAllCommitted() throws IOException {
@@ -1082,6 +1434,10 @@ class TripleStore implements Closeable {
 		}
 	}
 
+	private static String getFilenamePrefix(String fieldSeq) {
+		return "triples-" + fieldSeq;
+	}
+
 	/*-------------------------*
 	 * Inner class TripleIndex *
 	 *-------------------------*/
@@ -1093,12 +1449,13 @@ class TripleStore implements Closeable {
 		private final BTree btree;
 
 		public TripleIndex(String fieldSeq) throws IOException {
-			tripleComparator = new TripleComparator(fieldSeq);
-			btree = new BTree(dir, getFilenamePrefix(fieldSeq), 2048, RECORD_LENGTH, tripleComparator, forceSync);
+			this(fieldSeq, getFilenamePrefix(fieldSeq));
 		}
 
-		private String getFilenamePrefix(String fieldSeq) {
-			return "triples-" + fieldSeq;
+		public TripleIndex(String fieldSeq, String filenamePrefix) throws IOException {
+			tripleComparator = new TripleComparator(fieldSeq);
+			btree = new BTree(dir, filenamePrefix, 2048, RECORD_LENGTH, tripleComparator, forceSync, memoryMapped,
+					compressedIndexes);
 		}
 
 		public char[] getFieldSeq() {
@@ -1109,6 +1466,33 @@ class TripleStore implements Closeable {
 			return btree;
 		}
 
+		/**
+		 * Estimates the number of triples that this index needs to scan for the supplied pattern of subject, predicate,
+		 * object and context IDs, based on the fields of the pattern that form a prefix of this index's field sequence.
+		 */
+		public double getRangeSizeEstimate(int subj, int pred, int obj, int context) {
+			int[] prefix = { -1, -1, -1, -1 };
+			int score = getPatternScore(subj, pred, obj, context);
+			char[] fieldSeq = getFieldSeq();
+			for (int i = 0; i < score; i++) {
+				switch (fieldSeq[i]) {
+				case 's':
+					prefix[0] = subj;
+					break;
+				case 'p':
+					prefix[1] = pred;
+					break;
+				case 'o':
+					prefix[2] = obj;
+					break;
+				case 'c':
+					prefix[3] = context;
+					break;
+				}
+			}
+			return statistics.getCardinality(prefix[0], prefix[1], prefix[2], prefix[3]);
+		}
+
 		/**
 		 * Determines the 'score' of this index on the supplied pattern of subject, predicate, object and context IDs.
 		 * The higher the score, the better the index is suited for matching the pattern. Lowest score is 0, which means
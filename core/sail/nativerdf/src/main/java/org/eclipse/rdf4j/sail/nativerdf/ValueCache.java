@@ -0,0 +1,285 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Size-bounded concurrent cache with a segmented LRU eviction policy. Newly added entries enter a probationary
+ * segment and are promoted to a protected segment when they are requested again, so that a burst of values that are
+ * used only once (e.g. during a scan) cannot flush the frequently used values out of the cache.
+ * <p>
+ * The size of the cache is bounded by the estimated memory footprint of its entries, as determined by a weigher
+ * function, and optionally also by the number of entries. The cache is split into a number of independently locked
+ * stripes to reduce contention; each stripe enforces its share of the bounds.
+ */
+public class ValueCache<K, V> {
+
+	/**
+	 * The share of a stripe's capacity that is reserved for the protected segment.
+	 */
+	private static final float PROTECTED_RATIO = 0.8f;
+
+	private static final int MAX_STRIPES = 16;
+
+	private final Stripe<K, V>[] stripes;
+
+	private final ToIntBiFunction<? super K, ? super V> weigher;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * Creates a new cache that is bounded only by the estimated memory footprint of its entries.
+	 *
+	 * @param maxWeight The maximum total weight (in bytes) of the cached entries.
+	 * @param weigher   Function estimating the memory footprint (in bytes) of an entry.
+	 */
+	public ValueCache(long maxWeight, ToIntBiFunction<? super K, ? super V> weigher) {
+		this(maxWeight, -1, weigher);
+	}
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param maxWeight  The maximum total weight (in bytes) of the cached entries.
+	 * @param maxEntries The maximum number of cached entries, or a negative value if the number of entries should not
+	 *                   be bounded.
+	 * @param weigher    Function estimating the memory footprint (in bytes) of an entry.
+	 */
+	@SuppressWarnings("unchecked")
+	public ValueCache(long maxWeight, int maxEntries, ToIntBiFunction<? super K, ? super V> weigher) {
+		if (maxWeight <= 0) {
+			throw new IllegalArgumentException("maximum weight must be larger than 0");
+		}
+		this.weigher = weigher;
+
+		// use a single stripe for small caches, where splitting the capacity would hurt the hit rate
+		int stripeCount = maxEntries >= 0 && maxEntries < 64 * MAX_STRIPES ? 1 : MAX_STRIPES;
+
+		stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe<>(Math.max(1, maxWeight / stripeCount),
+					maxEntries < 0 ? Integer.MAX_VALUE : Math.max(1, maxEntries / stripeCount));
+		}
+	}
+
+	public V get(Object key) {
+		V value = stripeFor(key).get(key);
+		if (value != null) {
+			hitCount.increment();
+		} else {
+			missCount.increment();
+		}
+		return value;
+	}
+
+	public void put(K key, V value) {
+		int evicted = stripeFor(key).put(key, value, weigher.applyAsInt(key, value));
+		if (evicted > 0) {
+			evictionCount.add(evicted);
+		}
+	}
+
+	public void clear() {
+		for (Stripe<K, V> stripe : stripes) {
+			stripe.clear();
+		}
+	}
+
+	/**
+	 * Gets the number of cached entries.
+	 */
+	public int size() {
+		int size = 0;
+		for (Stripe<K, V> stripe : stripes) {
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Gets the estimated memory footprint (in bytes) of the cached entries.
+	 */
+	public long getWeight() {
+		long weight = 0L;
+		for (Stripe<K, V> stripe : stripes) {
+			weight += stripe.getWeight();
+		}
+		return weight;
+	}
+
+	/**
+	 * Gets the number of {@link #get(Object)} calls that returned a cached value.
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * Gets the number of {@link #get(Object)} calls that did not find a cached value.
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * Gets the number of entries that have been evicted to keep the cache within its bounds.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[size=" + size() + ", weight=" + getWeight() + ", hits=" + getHitCount()
+				+ ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+	}
+
+	private Stripe<K, V> stripeFor(Object key) {
+		int h = key.hashCode();
+		// spread the higher bits, like HashMap does
+		h ^= h >>> 16;
+		return stripes[h & (stripes.length - 1)];
+	}
+
+	private static final class Entry<V> {
+
+		final V value;
+
+		final int weight;
+
+		Entry(V value, int weight) {
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+
+	/**
+	 * A segmented LRU list for a subset of the keys. Both segments are access-ordered maps, iterating from the least to
+	 * the most recently used entry.
+	 */
+	private static final class Stripe<K, V> {
+
+		private final long maxWeight;
+
+		private final long maxProtectedWeight;
+
+		private final int maxEntries;
+
+		private final LinkedHashMap<Object, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+		private final LinkedHashMap<Object, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+		private long weight;
+
+		private long protectedWeight;
+
+		Stripe(long maxWeight, int maxEntries) {
+			this.maxWeight = maxWeight;
+			this.maxProtectedWeight = (long) (maxWeight * PROTECTED_RATIO);
+			this.maxEntries = maxEntries;
+		}
+
+		synchronized V get(Object key) {
+			Entry<V> entry = protectedSegment.get(key);
+			if (entry != null) {
+				return entry.value;
+			}
+
+			entry = probation.remove(key);
+			if (entry != null) {
+				// second hit: promote the entry to the protected segment
+				protectedSegment.put(key, entry);
+				protectedWeight += entry.weight;
+				demoteProtected();
+				return entry.value;
+			}
+
+			return null;
+		}
+
+		/**
+		 * @return The number of entries that were evicted to make room for the new entry.
+		 */
+		synchronized int put(K key, V value, int entryWeight) {
+			Entry<V> newEntry = new Entry<>(value, entryWeight);
+
+			Entry<V> oldEntry = protectedSegment.get(key);
+			if (oldEntry != null) {
+				protectedSegment.put(key, newEntry);
+				protectedWeight += entryWeight - oldEntry.weight;
+				weight += entryWeight - oldEntry.weight;
+				demoteProtected();
+			} else {
+				oldEntry = probation.put(key, newEntry);
+				weight += oldEntry == null ? entryWeight : entryWeight - oldEntry.weight;
+			}
+
+			return evict();
+		}
+
+		/**
+		 * Moves the least recently used entries of the protected segment back to the probationary segment until the
+		 * protected segment is within its bounds again.
+		 */
+		private void demoteProtected() {
+			Iterator<Map.Entry<Object, Entry<V>>> iter = protectedSegment.entrySet().iterator();
+			while (protectedWeight > maxProtectedWeight && iter.hasNext()) {
+				Map.Entry<Object, Entry<V>> lru = iter.next();
+				iter.remove();
+				protectedWeight -= lru.getValue().weight;
+				probation.put(lru.getKey(), lru.getValue());
+			}
+		}
+
+		private int evict() {
+			int evicted = 0;
+
+			Iterator<Entry<V>> iter = probation.values().iterator();
+			while ((weight > maxWeight || size() > maxEntries) && iter.hasNext()) {
+				weight -= iter.next().weight;
+				iter.remove();
+				evicted++;
+			}
+
+			iter = protectedSegment.values().iterator();
+			while ((weight > maxWeight || size() > maxEntries) && iter.hasNext()) {
+				Entry<V> entry = iter.next();
+				weight -= entry.weight;
+				protectedWeight -= entry.weight;
+				iter.remove();
+				evicted++;
+			}
+
+			return evicted;
+		}
+
+		synchronized void clear() {
+			probation.clear();
+			protectedSegment.clear();
+			weight = 0L;
+			protectedWeight = 0L;
+		}
+
+		synchronized int size() {
+			return probation.size() + protectedSegment.size();
+		}
+
+		synchronized long getWeight() {
+			return weight;
+		}
+	}
+}
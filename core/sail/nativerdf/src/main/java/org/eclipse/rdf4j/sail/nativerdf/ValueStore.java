@@ -34,6 +34,8 @@ import org.eclipse.rdf4j.sail.nativerdf.model.NativeIRI;
 import org.eclipse.rdf4j.sail.nativerdf.model.NativeLiteral;
 import org.eclipse.rdf4j.sail.nativerdf.model.NativeResource;
 import org.eclipse.rdf4j.sail.nativerdf.model.NativeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * File-based indexed storage and retrieval of RDF values. ValueStore maps RDF values to integer IDs and vice-versa.
@@ -53,14 +55,30 @@ public class ValueStore extends AbstractValueFactory {
 
 	/**
 	 * The default value cache size.
+	 *
+	 * @deprecated the value cache is bounded by {@link #VALUE_CACHE_MEMORY} rather than by a number of entries.
 	 */
+	@Deprecated
 	public static final int VALUE_CACHE_SIZE = 512;
 
 	/**
 	 * The default value id cache size.
+	 *
+	 * @deprecated the value id cache is bounded by {@link #VALUE_ID_CACHE_MEMORY} rather than by a number of entries.
 	 */
+	@Deprecated
 	public static final int VALUE_ID_CACHE_SIZE = 128;
 
+	/**
+	 * The default memory budget (in bytes) for the value cache: 1/64th of the maximum heap size, up to 256MB.
+	 */
+	public static final long VALUE_CACHE_MEMORY = defaultCacheMemory(64);
+
+	/**
+	 * The default memory budget (in bytes) for the value id cache: 1/128th of the maximum heap size, up to 128MB.
+	 */
+	public static final long VALUE_ID_CACHE_MEMORY = defaultCacheMemory(128);
+
 	/**
 	 * The default namespace cache size.
 	 */
@@ -71,8 +89,16 @@ public class ValueStore extends AbstractValueFactory {
 	 */
 	public static final int NAMESPACE_ID_CACHE_SIZE = 32;
 
+	/**
+	 * Estimated memory footprint (in bytes) of a cache entry, excluding the characters of the cached value: the cache's
+	 * map entry, a value object with its string(s) and a boxed ID.
+	 */
+	private static final int CACHE_ENTRY_OVERHEAD = 160;
+
 	private static final String FILENAME_PREFIX = "values";
 
+	private static final Logger logger = LoggerFactory.getLogger(ValueStore.class);
+
 	private static final byte URI_VALUE = 0x1; // 0000 0001
 
 	private static final byte BNODE_VALUE = 0x2; // 0000 0010
@@ -101,14 +127,14 @@ public class ValueStore extends AbstractValueFactory {
 	private volatile ValueStoreRevision revision;
 
 	/**
-	 * A simple cache containing the [VALUE_CACHE_SIZE] most-recently used values stored by their ID.
+	 * A cache containing frequently used values stored by their ID, bounded by [VALUE_CACHE_MEMORY].
 	 */
-	private final ConcurrentCache<Integer, NativeValue> valueCache;
+	private final ValueCache<Integer, NativeValue> valueCache;
 
 	/**
-	 * A simple cache containing the [ID_CACHE_SIZE] most-recently used value-IDs stored by their value.
+	 * A cache containing frequently used value-IDs stored by their value, bounded by [VALUE_ID_CACHE_MEMORY].
 	 */
-	private final ConcurrentCache<NativeValue, Integer> valueIDCache;
+	private final ValueCache<NativeValue, Integer> valueIDCache;
 
 	/**
 	 * A simple cache containing the [NAMESPACE_CACHE_SIZE] most-recently used namespaces stored by their ID.
@@ -130,16 +156,33 @@ public class ValueStore extends AbstractValueFactory {
 	}
 
 	public ValueStore(File dataDir, boolean forceSync) throws IOException {
-		this(dataDir, forceSync, VALUE_CACHE_SIZE, VALUE_ID_CACHE_SIZE, NAMESPACE_CACHE_SIZE, NAMESPACE_ID_CACHE_SIZE);
+		this(dataDir, forceSync, -1, -1, VALUE_CACHE_MEMORY, VALUE_ID_CACHE_MEMORY, NAMESPACE_CACHE_SIZE,
+				NAMESPACE_ID_CACHE_SIZE);
 	}
 
 	public ValueStore(File dataDir, boolean forceSync, int valueCacheSize, int valueIDCacheSize, int namespaceCacheSize,
 			int namespaceIDCacheSize) throws IOException {
+		this(dataDir, forceSync, valueCacheSize, valueIDCacheSize, VALUE_CACHE_MEMORY, VALUE_ID_CACHE_MEMORY,
+				namespaceCacheSize, namespaceIDCacheSize);
+	}
+
+	/**
+	 * Creates a new ValueStore.
+	 *
+	 * @param valueCacheSize     The maximum number of entries in the value cache, or <tt>-1</tt> to bound the cache by
+	 *                           <tt>valueCacheMemory</tt> only.
+	 * @param valueIDCacheSize   The maximum number of entries in the value id cache, or <tt>-1</tt> to bound the cache
+	 *                           by <tt>valueIDCacheMemory</tt> only.
+	 * @param valueCacheMemory   The maximum estimated memory footprint (in bytes) of the value cache.
+	 * @param valueIDCacheMemory The maximum estimated memory footprint (in bytes) of the value id cache.
+	 */
+	public ValueStore(File dataDir, boolean forceSync, int valueCacheSize, int valueIDCacheSize, long valueCacheMemory,
+			long valueIDCacheMemory, int namespaceCacheSize, int namespaceIDCacheSize) throws IOException {
 		super();
 		dataStore = new DataStore(dataDir, FILENAME_PREFIX, forceSync);
 
-		valueCache = new ConcurrentCache<>(valueCacheSize);
-		valueIDCache = new ConcurrentCache<>(valueIDCacheSize);
+		valueCache = new ValueCache<>(valueCacheMemory, valueCacheSize, (id, value) -> estimateSize(value));
+		valueIDCache = new ValueCache<>(valueIDCacheMemory, valueIDCacheSize, (value, id) -> estimateSize(value));
 		namespaceCache = new ConcurrentCache<>(namespaceCacheSize);
 		namespaceIDCache = new ConcurrentCache<>(namespaceIDCacheSize);
 
@@ -162,6 +205,20 @@ public class ValueStore extends AbstractValueFactory {
 		return revision;
 	}
 
+	/**
+	 * Gets the cache of values by their ID, e.g. for monitoring its hit, miss and eviction counts.
+	 */
+	public ValueCache<Integer, NativeValue> getValueCache() {
+		return valueCache;
+	}
+
+	/**
+	 * Gets the cache of value IDs by their value, e.g. for monitoring its hit, miss and eviction counts.
+	 */
+	public ValueCache<NativeValue, Integer> getValueIDCache() {
+		return valueIDCache;
+	}
+
 	/**
 	 * Gets a read lock on this value store that can be used to prevent values from being removed while the lock is
 	 * active.
@@ -364,6 +421,7 @@ public class ValueStore extends AbstractValueFactory {
 	 * @exception IOException If an I/O error occurred.
 	 */
 	public void close() throws IOException {
+		logger.debug("Closing value store, value cache: {}, value id cache: {}", valueCache, valueIDCache);
 		dataStore.close();
 	}
 
@@ -521,6 +579,26 @@ public class ValueStore extends AbstractValueFactory {
 		return literalData;
 	}
 
+	/**
+	 * Estimates the memory footprint (in bytes) of a cache entry for the supplied value.
+	 */
+	private static int estimateSize(Value value) {
+		int chars = value.stringValue().length();
+		if (value instanceof Literal) {
+			chars += ((Literal) value).getLanguage().map(String::length).orElse(0);
+		}
+		return CACHE_ENTRY_OVERHEAD + 2 * chars;
+	}
+
+	private static long defaultCacheMemory(int heapFraction) {
+		long maxMemory = Runtime.getRuntime().maxMemory();
+		if (maxMemory == Long.MAX_VALUE) {
+			// no heap limit reported, fall back to a conservative budget
+			maxMemory = 1024L * 1024 * 1024;
+		}
+		return Math.min(maxMemory / heapFraction, 16L * 1024 * 1024 * 1024 / heapFraction);
+	}
+
 	private boolean isNamespaceData(byte[] data) {
 		return data[0] != URI_VALUE && data[0] != BNODE_VALUE && data[0] != LITERAL_VALUE;
 	}
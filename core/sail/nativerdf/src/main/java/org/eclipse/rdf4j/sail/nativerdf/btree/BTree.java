@@ -59,6 +59,18 @@ public class BTree implements Closeable {
 	 */
 	static final byte FILE_FORMAT_VERSION = 1;
 
+	/**
+	 * The file format version number of BTree files that store their nodes in compressed form, see
+	 * {@link NodeCodec}.
+	 */
+	static final byte COMPRESSED_FILE_FORMAT_VERSION = 2;
+
+	/**
+	 * The maximum number of values that a compressed node can hold, relative to the number of values that fit in an
+	 * uncompressed node of the same block size. This bounds the memory used by a node in the node cache.
+	 */
+	static final int COMPRESSED_CAPACITY_FACTOR = 4;
+
 	/**
 	 * The length of the header field.
 	 */
@@ -75,6 +87,11 @@ public class BTree implements Closeable {
 	 */
 	final NioFile nioFile;
 
+	/**
+	 * Read-only memory mapping of the BTree file, <tt>null</tt> if nodes are read using regular file reads.
+	 */
+	final MappedNodeFile mappedFile;
+
 	/**
 	 * Flag indicating whether file writes should be forced to disk using {@link FileChannel#force(boolean)}.
 	 */
@@ -146,6 +163,11 @@ public class BTree implements Closeable {
 	 */
 	final int nodeSize;
 
+	/**
+	 * Codec for the compressed representation of nodes on disk, <tt>null</tt> if nodes are stored uncompressed.
+	 */
+	final NodeCodec codec;
+
 	/*-----------*
 	 * Variables *
 	 *-----------*/
@@ -238,6 +260,57 @@ public class BTree implements Closeable {
 	 */
 	public BTree(File dataDir, String filenamePrefix, int blockSize, int valueSize, RecordComparator comparator,
 			boolean forceSync) throws IOException {
+		this(dataDir, filenamePrefix, blockSize, valueSize, comparator, forceSync, false);
+	}
+
+	/**
+	 * Creates a new BTree that uses the supplied <tt>RecordComparator</tt> to compare the values that are or will be
+	 * stored in the B-Tree.
+	 *
+	 * @param dataDir        The directory for the BTree data.
+	 * @param filenamePrefix The prefix for all files used by this BTree.
+	 * @param blockSize      The size (in bytes) of a file block for a single node. Ideally, the size specified is the
+	 *                       size of a block in the used file system.
+	 * @param valueSize      The size (in bytes) of the fixed-length values that are or will be stored in the B-Tree.
+	 * @param comparator     The <tt>RecordComparator</tt> to use for determining whether one value is smaller, larger
+	 *                       or equal to another.
+	 * @param forceSync      Flag indicating whether updates should be synced to disk forcefully by calling
+	 *                       {@link FileChannel#force(boolean)}. This may have a severe impact on write performance.
+	 * @param memoryMapped   Flag indicating whether nodes should be read from a memory mapping of the B-Tree file
+	 *                       instead of through regular file reads. This avoids a system call for every node that is
+	 *                       not in the node cache, at the cost of virtual address space.
+	 * @throws IOException In case the initialization of the B-Tree file failed.
+	 */
+	public BTree(File dataDir, String filenamePrefix, int blockSize, int valueSize, RecordComparator comparator,
+			boolean forceSync, boolean memoryMapped) throws IOException {
+		this(dataDir, filenamePrefix, blockSize, valueSize, comparator, forceSync, memoryMapped, false);
+	}
+
+	/**
+	 * Creates a new BTree that uses the supplied <tt>RecordComparator</tt> to compare the values that are or will be
+	 * stored in the B-Tree.
+	 *
+	 * @param dataDir        The directory for the BTree data.
+	 * @param filenamePrefix The prefix for all files used by this BTree.
+	 * @param blockSize      The size (in bytes) of a file block for a single node. Ideally, the size specified is the
+	 *                       size of a block in the used file system.
+	 * @param valueSize      The size (in bytes) of the fixed-length values that are or will be stored in the B-Tree.
+	 * @param comparator     The <tt>RecordComparator</tt> to use for determining whether one value is smaller, larger
+	 *                       or equal to another.
+	 * @param forceSync      Flag indicating whether updates should be synced to disk forcefully by calling
+	 *                       {@link FileChannel#force(boolean)}. This may have a severe impact on write performance.
+	 * @param memoryMapped   Flag indicating whether nodes should be read from a memory mapping of the B-Tree file
+	 *                       instead of through regular file reads. This avoids a system call for every node that is
+	 *                       not in the node cache, at the cost of virtual address space.
+	 * @param compressed     Flag indicating whether nodes should be stored in compressed form, which fits more values
+	 *                       in a block. Values are then treated as a sequence of 4-byte integer fields, optionally
+	 *                       followed by a few bytes that are stored as-is. This flag only applies to a newly created
+	 *                       B-Tree file, an existing file keeps the format that it was created with, see
+	 *                       {@link #isCompressed()}.
+	 * @throws IOException In case the initialization of the B-Tree file failed.
+	 */
+	public BTree(File dataDir, String filenamePrefix, int blockSize, int valueSize, RecordComparator comparator,
+			boolean forceSync, boolean memoryMapped, boolean compressed) throws IOException {
 		if (dataDir == null) {
 			throw new IllegalArgumentException("dataDir must not be null");
 		}
@@ -256,6 +329,10 @@ public class BTree implements Closeable {
 		if (comparator == null) {
 			throw new IllegalArgumentException("comparator muts not be null");
 		}
+		if (compressed && valueSize / 4 > NodeCodec.MAX_FIELD_COUNT) {
+			throw new IllegalArgumentException(
+					"value size too large for compression; at most " + NodeCodec.MAX_FIELD_COUNT + " fields supported");
+		}
 
 		File file = new File(dataDir, filenamePrefix + ".dat");
 		this.nioFile = new NioFile(file);
@@ -271,6 +348,7 @@ public class BTree implements Closeable {
 			this.valueSize = valueSize;
 			this.rootNodeID = 0;
 			this.height = 0;
+			this.codec = compressed ? new NodeCodec(valueSize) : null;
 
 			writeFileHeader();
 
@@ -290,17 +368,19 @@ public class BTree implements Closeable {
 			this.rootNodeID = buf.getInt();
 
 			if (Arrays.equals(MAGIC_NUMBER, magicNumber)) {
-				if (version > FILE_FORMAT_VERSION) {
+				if (version > COMPRESSED_FILE_FORMAT_VERSION) {
 					throw new IOException("Unable to read BTree file " + file + "; it uses a newer file format");
-				} else if (version != FILE_FORMAT_VERSION) {
+				} else if (version != FILE_FORMAT_VERSION && version != COMPRESSED_FILE_FORMAT_VERSION) {
 					throw new IOException(
 							"Unable to read BTree file " + file + "; invalid file format version: " + version);
 				}
+				this.codec = version == COMPRESSED_FILE_FORMAT_VERSION ? new NodeCodec(this.valueSize) : null;
 			} else if (Arrays.equals(OLD_MAGIC_NUMBER, magicNumber)) {
 				if (version != 1) {
 					throw new IOException(
 							"Unable to read BTree file " + file + "; invalid file format version: " + version);
 				}
+				this.codec = null;
 				// Write new magic number to file
 				logger.info("Updating file header for btree file '{}'", file.getAbsolutePath());
 				writeFileHeader();
@@ -317,11 +397,21 @@ public class BTree implements Closeable {
 
 		// Calculate derived properties
 		slotSize = 4 + this.valueSize;
-		branchFactor = 1 + (this.blockSize - 8) / slotSize;
-		// bf=30 --> mvc=14; bf=29 --> mvc=14
-		minValueCount = (branchFactor - 1) / 2;
+		if (codec == null) {
+			branchFactor = 1 + (this.blockSize - 8) / slotSize;
+			// bf=30 --> mvc=14; bf=29 --> mvc=14
+			minValueCount = (branchFactor - 1) / 2;
+		} else {
+			// Compressed nodes are full when their encoded form no longer fits in a block, their capacity in
+			// values only limits the size of a node in memory. The minimum value count is based on the largest
+			// possible encoding, so that two nodes that are merged always fit in a single block.
+			branchFactor = 1 + COMPRESSED_CAPACITY_FACTOR * ((this.blockSize - 8) / slotSize);
+			minValueCount = (codec.getMaxValueCount(this.blockSize) - 1) / 2;
+		}
 		nodeSize = 8 + (branchFactor - 1) * slotSize;
 
+		mappedFile = memoryMapped ? new MappedNodeFile(nioFile, this.blockSize) : null;
+
 		// System.out.println("blockSize=" + this.blockSize);
 		// System.out.println("valueSize=" + this.valueSize);
 		// System.out.println("slotSize=" + this.slotSize);
@@ -341,6 +431,20 @@ public class BTree implements Closeable {
 		return nioFile.getFile();
 	}
 
+	/**
+	 * Checks whether the nodes of this BTree are read from a memory mapping of its file.
+	 */
+	public boolean isMemoryMapped() {
+		return mappedFile != null;
+	}
+
+	/**
+	 * Checks whether the nodes of this BTree are stored in compressed form.
+	 */
+	public boolean isCompressed() {
+		return codec != null;
+	}
+
 	/**
 	 * Closes the BTree and then deletes its data files.
 	 *
@@ -386,6 +490,9 @@ public class BTree implements Closeable {
 					nodeCache.clear();
 				} finally {
 					try {
+						if (mappedFile != null) {
+							mappedFile.close();
+						}
 						nioFile.close();
 					} finally {
 						allocatedNodesList.close(syncChanges);
@@ -690,6 +797,201 @@ public class BTree implements Closeable {
 		return height;
 	}
 
+	/**
+	 * Fills an empty B-Tree with the supplied values. Rather than inserting the values one by one, the tree is built
+	 * bottom-up: the values are distributed evenly over the smallest possible number of nodes, so that nodes are
+	 * (almost) completely filled and no node ever needs to be split or rewritten. Compressed nodes are filled until
+	 * they are full, as the number of values that fit in them is not known in advance.
+	 *
+	 * @param values     The values to store in the B-Tree, in ascending order and without duplicates.
+	 * @param valueCount The exact number of values that <tt>values</tt> will return.
+	 * @throws IOException              If an I/O error occurred.
+	 * @throws IllegalStateException    If the B-Tree is not empty.
+	 * @throws IllegalArgumentException If the values are not in ascending order or if there are less values than
+	 *                                  specified.
+	 */
+	public void load(RecordIterator values, long valueCount) throws IOException {
+		btreeLock.writeLock().lock();
+		try {
+			if (rootNodeID != 0) {
+				throw new IllegalStateException("B-Tree is not empty: " + getFile());
+			}
+			if (valueCount <= 0L) {
+				return;
+			}
+
+			LoadState state = new LoadState(values);
+
+			if (codec == null) {
+				int treeHeight = 1;
+				while (getMaxSubtreeSize(treeHeight) < valueCount) {
+					treeHeight++;
+				}
+
+				rootNodeID = loadSubtree(state, treeHeight, valueCount);
+				height = treeHeight;
+			} else {
+				loadCompressed(state, valueCount);
+			}
+			writeFileHeader();
+
+			if (values.next() != null) {
+				throw new IllegalArgumentException("More than " + valueCount + " values supplied");
+			}
+		} finally {
+			btreeLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Creates a subtree of the specified height that contains the next <tt>valueCount</tt> values.
+	 *
+	 * @return The ID of the subtree's root node.
+	 */
+	private int loadSubtree(LoadState state, int subtreeHeight, long valueCount) throws IOException {
+		Node node = createNewNode();
+		try {
+			if (subtreeHeight == 1) {
+				for (int i = 0; i < valueCount; i++) {
+					node.insertValueNodeIDPair(i, state.next(), 0);
+				}
+			} else {
+				// use as few children as possible, each child needs a separating value in this node
+				long maxChildSize = getMaxSubtreeSize(subtreeHeight - 1);
+				int childCount = (int) ((valueCount + 1 + maxChildSize) / (maxChildSize + 1));
+				long childValueCount = valueCount - (childCount - 1);
+
+				for (int i = 0; i < childCount; i++) {
+					long childSize = childValueCount / childCount + (i < childValueCount % childCount ? 1 : 0);
+					if (i == 0) {
+						node.setChildNodeID(0, loadSubtree(state, subtreeHeight - 1, childSize));
+					} else {
+						byte[] separator = state.next();
+						node.insertValueNodeIDPair(i - 1, separator, loadSubtree(state, subtreeHeight - 1, childSize));
+					}
+				}
+			}
+			return node.getID();
+		} finally {
+			node.release();
+		}
+	}
+
+	/**
+	 * Creates a compressed tree that contains the next <tt>valueCount</tt> values. Values are appended to the
+	 * right-most leaf node until it is full, after which the next value is appended to its parent node to separate it
+	 * from a new leaf node, and so on up the tree. Afterwards, the right-most node of every level is topped up with
+	 * values from its left sibling.
+	 */
+	private void loadCompressed(LoadState state, long valueCount) throws IOException {
+		// The right-most node of every level, starting with the leaf level
+		List<Node> rightNodes = new ArrayList<>();
+		try {
+			rightNodes.add(createNewNode());
+
+			for (long i = 0; i < valueCount; i++) {
+				byte[] value = state.next();
+				Node leafNode = rightNodes.get(0);
+
+				if (leafNode.isFull()) {
+					Node newLeafNode = createNewNode();
+					appendSeparator(rightNodes, 1, value, newLeafNode.getID());
+					rightNodes.set(0, newLeafNode);
+					leafNode.release();
+				} else {
+					leafNode.insertValueNodeIDPair(leafNode.getValueCount(), value, 0);
+				}
+			}
+
+			for (int level = rightNodes.size() - 2; level >= 0; level--) {
+				Node parentNode = rightNodes.get(level + 1);
+				Node node = rightNodes.get(level);
+
+				if (node.getValueCount() < minValueCount) {
+					int nodeIdx = parentNode.getValueCount();
+					Node leftSibling = parentNode.getChildNode(nodeIdx - 1);
+					while (node.getValueCount() < minValueCount
+							&& leftSibling.getValueCount() > node.getValueCount() + 1) {
+						parentNode.rotateRight(nodeIdx, leftSibling, node);
+					}
+					leftSibling.release();
+				}
+			}
+
+			rootNodeID = rightNodes.get(rightNodes.size() - 1).getID();
+			height = rightNodes.size();
+		} finally {
+			for (Node node : rightNodes) {
+				node.release();
+			}
+		}
+	}
+
+	/**
+	 * Appends a value to the right-most node at the specified level, followed by the ID of the new node that is to
+	 * its right, see {@link #loadCompressed(LoadState, long)}.
+	 */
+	private void appendSeparator(List<Node> rightNodes, int level, byte[] value, int nodeID) throws IOException {
+		if (level == rightNodes.size()) {
+			// Add a level to the tree, its first child is the full node to the left of the value
+			Node newRootNode = createNewNode();
+			newRootNode.setChildNodeID(0, rightNodes.get(level - 1).getID());
+			rightNodes.add(newRootNode);
+		}
+
+		Node node = rightNodes.get(level);
+		if (node.isFull()) {
+			Node newNode = createNewNode();
+			newNode.setChildNodeID(0, nodeID);
+			appendSeparator(rightNodes, level + 1, value, newNode.getID());
+			rightNodes.set(level, newNode);
+			node.release();
+		} else {
+			node.insertValueNodeIDPair(node.getValueCount(), value, nodeID);
+		}
+	}
+
+	/**
+	 * Gets the maximum number of values that can be stored in a (sub)tree of the specified height.
+	 */
+	private long getMaxSubtreeSize(int subtreeHeight) {
+		long maxValues = branchFactor - 1;
+		long size = maxValues;
+		for (int i = 1; i < subtreeHeight; i++) {
+			if (size > (Long.MAX_VALUE - maxValues) / (maxValues + 1)) {
+				return Long.MAX_VALUE;
+			}
+			size = (maxValues + 1) * size + maxValues;
+		}
+		return size;
+	}
+
+	/**
+	 * Reads the values for {@link #load(RecordIterator, long)}, verifying their order.
+	 */
+	private class LoadState {
+
+		private final RecordIterator values;
+
+		private byte[] previous;
+
+		LoadState(RecordIterator values) {
+			this.values = values;
+		}
+
+		byte[] next() throws IOException {
+			byte[] value = values.next();
+			if (value == null) {
+				throw new IllegalArgumentException("Less values supplied than specified");
+			}
+			if (previous != null && comparator.compareBTreeValues(previous, value, 0, valueSize) >= 0) {
+				throw new IllegalArgumentException("Values must be in ascending order without duplicates");
+			}
+			previous = value;
+			return value;
+		}
+	}
+
 	/**
 	 * Inserts the supplied value into the B-Tree. In case an equal value is already present in the B-Tree this value is
 	 * overwritten with the new value and the old value is returned by this method.
@@ -716,18 +1018,7 @@ public class BTree implements Closeable {
 			if (insertResult.overflowValue != null) {
 				// Root node overflowed, create a new root node and insert overflow
 				// value-nodeID pair in it
-				Node newRootNode = createNewNode();
-				newRootNode.setChildNodeID(0, rootNode.getID());
-				newRootNode.insertValueNodeIDPair(0, insertResult.overflowValue, insertResult.overflowNodeID);
-
-				rootNodeID = newRootNode.getID();
-				writeFileHeader();
-				newRootNode.release();
-
-				// update the cached depth of this BTree
-				if (height >= 0) {
-					height++;
-				}
+				createNewRootNode(rootNode, insertResult.overflowValue, insertResult.overflowNodeID);
 			}
 
 			rootNode.release();
@@ -738,6 +1029,25 @@ public class BTree implements Closeable {
 		}
 	}
 
+	/**
+	 * Adds a level to the B-Tree, creating a new root node with the current root node and the supplied node as its
+	 * children, separated by the supplied value.
+	 */
+	private void createNewRootNode(Node rootNode, byte[] value, int nodeID) throws IOException {
+		Node newRootNode = createNewNode();
+		newRootNode.setChildNodeID(0, rootNode.getID());
+		newRootNode.insertValueNodeIDPair(0, value, nodeID);
+
+		rootNodeID = newRootNode.getID();
+		writeFileHeader();
+		newRootNode.release();
+
+		// update the cached depth of this BTree
+		if (height >= 0) {
+			height++;
+		}
+	}
+
 	private InsertResult insertInTree(byte[] value, int nodeID, Node node) throws IOException {
 		InsertResult insertResult = null;
 
@@ -753,6 +1063,14 @@ public class BTree implements Closeable {
 			// value to prevent possibly unnecessary disk writes
 			if (!Arrays.equals(value, insertResult.oldValue)) {
 				node.setValue(valueIdx, value);
+
+				if (node.isOverflowing()) {
+					// The new value compresses less well than the old one
+					Node newNode = createNewNode();
+					insertResult.overflowValue = node.split(newNode);
+					insertResult.overflowNodeID = newNode.getID();
+					newNode.release();
+				}
 			}
 		} else {
 			// valueIdx references the first value that is larger than the key
@@ -853,6 +1171,12 @@ public class BTree implements Closeable {
 					if (height >= 0) {
 						height--;
 					}
+				} else if (rootNode.isOverflowing()) {
+					// Root node has grown too large as a result of replacing one of its values
+					Node newNode = createNewNode();
+					byte[] medianValue = rootNode.split(newNode);
+					createNewRootNode(rootNode, medianValue, newNode.getID());
+					newNode.release();
 				}
 
 				rootNode.release();
@@ -938,7 +1262,14 @@ public class BTree implements Closeable {
 	}
 
 	private void balanceChildNode(Node parentNode, Node childNode, int childIdx) throws IOException {
-		if (childNode.getValueCount() < minValueCount) {
+		if (childNode.isOverflowing()) {
+			// Child node has grown too large as a result of replacing one of its values, which is possible for
+			// compressed nodes. Split it, which can cause the parent node to overflow in turn.
+			Node newNode = createNewNode();
+			byte[] medianValue = childNode.split(newNode);
+			parentNode.insertValueNodeIDPair(childIdx, medianValue, newNode.getID());
+			newNode.release();
+		} else if (childNode.getValueCount() < minValueCount) {
 			// Child node contains too few values, try to borrow one from its right
 			// sibling
 			Node rightSibling = (childIdx < parentNode.getValueCount()) ? parentNode.getChildNode(childIdx + 1) : null;
@@ -984,7 +1315,7 @@ public class BTree implements Closeable {
 		btreeLock.writeLock().lock();
 		try {
 			nodeCache.clear();
-			nioFile.truncate(HEADER_LENGTH);
+			truncateFile(HEADER_LENGTH);
 
 			if (rootNodeID != 0) {
 				rootNodeID = 0;
@@ -1035,7 +1366,7 @@ public class BTree implements Closeable {
 				int maxNodeID = allocatedNodesList.getMaxNodeID();
 				if (node.getID() > maxNodeID) {
 					// Shrink file
-					nioFile.truncate(nodeID2offset(maxNodeID) + nodeSize);
+					truncateFile(nodeID2offset(maxNodeID) + (codec == null ? nodeSize : blockSize));
 				}
 			}
 		} else {
@@ -1043,10 +1374,18 @@ public class BTree implements Closeable {
 		}
 	}
 
+	private void truncateFile(long size) throws IOException {
+		if (mappedFile != null) {
+			// unmap the truncated region first, it can no longer be accessed once the file has been truncated
+			mappedFile.truncate(size);
+		}
+		nioFile.truncate(size);
+	}
+
 	private void writeFileHeader() throws IOException {
 		ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH);
 		buf.put(MAGIC_NUMBER);
-		buf.put(FILE_FORMAT_VERSION);
+		buf.put(codec == null ? FILE_FORMAT_VERSION : COMPRESSED_FILE_FORMAT_VERSION);
 		buf.putInt(blockSize);
 		buf.putInt(valueSize);
 		buf.putInt(rootNodeID);
@@ -1081,9 +1420,15 @@ public class BTree implements Closeable {
 		int nodeCount = 0;
 		int valueCount = 0;
 
-		ByteBuffer buf = ByteBuffer.allocate(nodeSize);
+		ByteBuffer fileBuf = ByteBuffer.allocate(codec == null ? nodeSize : blockSize);
+		// compressed nodes are printed in their uncompressed form
+		ByteBuffer buf = codec == null ? fileBuf : ByteBuffer.allocate(nodeSize + slotSize);
 		for (long offset = blockSize; offset < nioFile.size(); offset += blockSize) {
-			nioFile.read(buf, offset);
+			nioFile.read(fileBuf, offset);
+			if (codec != null) {
+				codec.decode(fileBuf.array(), buf.array());
+				fileBuf.clear();
+			}
 			buf.rewind();
 
 			int nodeID = offset2nodeID(offset);
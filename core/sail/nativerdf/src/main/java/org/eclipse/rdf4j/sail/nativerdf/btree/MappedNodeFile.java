@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.btree;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+
+import org.eclipse.rdf4j.common.io.NioFile;
+
+/**
+ * Read-only memory mapping of a {@link BTree} file. The file is mapped in segments of a whole number of blocks, so
+ * that a node never spans two segments. Segments are mapped lazily when a node beyond the currently mapped region is
+ * requested, which lets the mapping grow with the file, and are dropped before the file is truncated.
+ * <p>
+ * Writes are not performed through the mapping but through the regular {@link NioFile}; this relies on the operating
+ * system keeping mapped pages and file writes coherent, which is the case on all platforms with a unified page cache.
+ */
+class MappedNodeFile {
+
+	/**
+	 * The (approximate) size of a mapped segment: 64MB.
+	 */
+	static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private static final MappedByteBuffer[] NO_SEGMENTS = new MappedByteBuffer[0];
+
+	private final NioFile nioFile;
+
+	/**
+	 * The size of a segment, always a multiple of the B-tree's block size.
+	 */
+	private final long segmentSize;
+
+	/**
+	 * The currently mapped segments. Only the last segment can be smaller than {@link #segmentSize}.
+	 */
+	private volatile MappedByteBuffer[] segments = NO_SEGMENTS;
+
+	MappedNodeFile(NioFile nioFile, int blockSize) {
+		this(nioFile, blockSize, DEFAULT_SEGMENT_SIZE);
+	}
+
+	MappedNodeFile(NioFile nioFile, int blockSize, int segmentSize) {
+		if (segmentSize < blockSize) {
+			throw new IllegalArgumentException("segment size must be at least one block");
+		}
+		this.nioFile = nioFile;
+		this.segmentSize = (long) (segmentSize / blockSize) * blockSize;
+	}
+
+	/**
+	 * Copies <tt>length</tt> bytes starting at <tt>offset</tt> from the mapped file to <tt>dst</tt>.
+	 *
+	 * @return <tt>true</tt> if the data was read from the mapping, <tt>false</tt> if the requested region is not
+	 *         (yet) contained in the file, in which case the caller should fall back to a regular read.
+	 */
+	boolean read(long offset, byte[] dst, int length) throws IOException {
+		int segmentIdx = (int) (offset / segmentSize);
+		int position = (int) (offset % segmentSize);
+
+		MappedByteBuffer[] segments = this.segments;
+		if (!contains(segments, segmentIdx, position + length)) {
+			segments = remap();
+			if (!contains(segments, segmentIdx, position + length)) {
+				return false;
+			}
+		}
+
+		// Use a duplicate so that concurrent readers don't interfere with each other's position
+		ByteBuffer buf = segments[segmentIdx].duplicate();
+		buf.position(position);
+		buf.get(dst, 0, length);
+		return true;
+	}
+
+	private static boolean contains(MappedByteBuffer[] segments, int segmentIdx, int end) {
+		return segmentIdx < segments.length && end <= segments[segmentIdx].capacity();
+	}
+
+	/**
+	 * Maps any parts of the file that have been added since the last time the file was mapped.
+	 */
+	private synchronized MappedByteBuffer[] remap() throws IOException {
+		long fileSize = nioFile.size();
+		int segmentCount = (int) ((fileSize + segmentSize - 1) / segmentSize);
+
+		MappedByteBuffer[] result = Arrays.copyOf(segments, segmentCount);
+		for (int i = 0; i < segmentCount; i++) {
+			long start = i * segmentSize;
+			long size = Math.min(segmentSize, fileSize - start);
+
+			if (result[i] == null || result[i].capacity() < size) {
+				result[i] = nioFile.map(MapMode.READ_ONLY, start, size);
+			}
+		}
+
+		segments = result;
+		return result;
+	}
+
+	/**
+	 * Drops all segments that extend beyond <tt>newSize</tt>. Must be called before the file is actually truncated:
+	 * accessing a mapped region beyond the end of the file results in undefined behaviour.
+	 */
+	synchronized void truncate(long newSize) {
+		int keep = (int) (newSize / segmentSize);
+		if (keep < segments.length) {
+			segments = Arrays.copyOf(segments, keep);
+		}
+	}
+
+	/**
+	 * Releases all mapped segments. The mappings themselves are released once the segments have been garbage
+	 * collected.
+	 */
+	synchronized void close() {
+		segments = NO_SEGMENTS;
+	}
+}
@@ -36,6 +36,9 @@ class Node {
 	/** Flag indicating whether the contents of data has changed. */
 	private boolean dataChanged;
 
+	/** The size of this node in compressed form, only maintained if the tree's nodes are compressed. */
+	private int encodedSize;
+
 	/** Registered listeners that want to be notified of changes to the node. */
 	private final ConcurrentLinkedDeque<NodeListener> listeners = new ConcurrentLinkedDeque<>();
 
@@ -57,6 +60,8 @@ class Node {
 		// Allocate enough room to store one more value and node ID;
 		// this greatly simplifies the algorithm for splitting a node.
 		this.data = new byte[tree.nodeSize + tree.slotSize];
+
+		updateEncodedSize();
 	}
 
 	public int getID() {
@@ -115,7 +120,21 @@ class Node {
 	}
 
 	public boolean isFull() {
-		return valueCount == tree.branchFactor - 1;
+		if (valueCount == tree.branchFactor - 1) {
+			return true;
+		}
+		// Inserting a value can grow a compressed node by the size of the value itself plus the growth of the
+		// value after it, which is then encoded relative to the inserted value
+		return tree.codec != null && encodedSize > tree.blockSize - 2 * tree.codec.maxSlotSize;
+	}
+
+	/**
+	 * Checks whether this node has grown too large to be stored, either because its encoded form no longer fits in a
+	 * block or because it contains more values than its capacity. Compressed nodes can grow by replacing a value with
+	 * a value that compresses less well. Such a node must be split before it is released.
+	 */
+	public boolean isOverflowing() {
+		return valueCount >= tree.branchFactor || tree.codec != null && encodedSize > tree.blockSize;
 	}
 
 	public byte[] getValue(int valueIdx) {
@@ -130,7 +149,13 @@ class Node {
 		assert valueIdx >= 0 : "valueIdx must be positive, is: " + valueIdx;
 		assert valueIdx < valueCount : "valueIdx out of range (" + valueIdx + " >= " + valueCount + ")";
 
-		ByteArrayUtil.put(value, data, valueIdx2offset(valueIdx));
+		if (tree.codec == null) {
+			ByteArrayUtil.put(value, data, valueIdx2offset(valueIdx));
+		} else {
+			int oldSize = getEncodedSlotsSize(valueIdx, valueIdx + 2);
+			ByteArrayUtil.put(value, data, valueIdx2offset(valueIdx));
+			encodedSize += getEncodedSlotsSize(valueIdx, valueIdx + 2) - oldSize;
+		}
 		dataChanged = true;
 	}
 
@@ -147,6 +172,8 @@ class Node {
 
 		byte[] value = getValue(valueIdx);
 
+		int oldSize = tree.codec != null ? getEncodedSlotsSize(valueIdx, valueIdx + 2) : 0;
+
 		int endOffset = valueIdx2offset(valueCount);
 
 		if (valueIdx < valueCount - 1) {
@@ -157,7 +184,13 @@ class Node {
 		// Clear last slot
 		clearData(endOffset - tree.slotSize, endOffset);
 
-		setValueCount(--valueCount);
+		if (tree.codec != null) {
+			encodedSize -= oldSize + tree.codec.getHeaderSize(data);
+			setValueCount(--valueCount);
+			encodedSize += getEncodedSlotsSize(valueIdx, valueIdx + 1) + tree.codec.getHeaderSize(data);
+		} else {
+			setValueCount(--valueCount);
+		}
 
 		dataChanged = true;
 
@@ -188,6 +221,7 @@ class Node {
 		clearData(endOffset - tree.slotSize, endOffset);
 
 		setValueCount(--valueCount);
+		updateEncodedSize();
 
 		dataChanged = true;
 
@@ -209,6 +243,7 @@ class Node {
 		assert nodeID >= 0 : "nodeID must not be negative, is: " + nodeID;
 
 		ByteArrayUtil.putInt(nodeID, data, nodeIdx2offset(nodeIdx));
+		updateEncodedSize();
 		dataChanged = true;
 	}
 
@@ -256,6 +291,9 @@ class Node {
 
 		int offset = valueIdx2offset(valueIdx);
 
+		int oldSize = tree.codec != null ? getEncodedSlotsSize(valueIdx, valueIdx + 1) + tree.codec.getHeaderSize(data)
+				: 0;
+
 		if (valueIdx < valueCount) {
 			// Shift values right of <offset> to the right
 			shiftData(offset, valueIdx2offset(valueCount), tree.slotSize);
@@ -268,6 +306,10 @@ class Node {
 		// Raise the value count
 		setValueCount(++valueCount);
 
+		if (tree.codec != null) {
+			encodedSize += getEncodedSlotsSize(valueIdx, valueIdx + 2) + tree.codec.getHeaderSize(data) - oldSize;
+		}
+
 		notifyValueAdded(valueIdx);
 
 		dataChanged = true;
@@ -290,6 +332,7 @@ class Node {
 
 		// Raise the value count
 		setValueCount(++valueCount);
+		updateEncodedSize();
 
 		notifyValueAdded(nodeIdx);
 
@@ -308,16 +351,27 @@ class Node {
 		// can be done because data got one spare slot when it was allocated.
 		insertValueNodeIDPair(newValueIdx, newValue, newNodeID);
 
-		assert valueCount == tree.branchFactor : "Node contains " + valueCount + " values, expected "
-				+ tree.branchFactor;
+		assert tree.codec != null || valueCount == tree.branchFactor : "Node contains " + valueCount
+				+ " values, expected " + tree.branchFactor;
+
+		return split(newNode);
+	}
 
-		// Node now contains exactly [branchFactor] values. The median
-		// value at index [branchFactor/2] is moved to the parent
-		// node, the values left of the median stay in this node, the
-		// values right of the median are moved to the new node.
-		int medianIdx = tree.branchFactor / 2;
+	/**
+	 * Splits the node, moving half of its values to the supplied new node and returning the median value.
+	 *
+	 * @throws IOException
+	 */
+	public byte[] split(Node newNode) throws IOException {
+		// The median value is moved to the parent node, the values left of
+		// the median stay in this node, the values right of the median are
+		// moved to the new node. For uncompressed nodes, which are split when
+		// they contain exactly [branchFactor] values, the median value is at
+		// index [branchFactor/2]. Compressed nodes are split in half by size.
+		int medianIdx = tree.codec == null ? tree.branchFactor / 2 : getSplitIdx();
 		int medianOffset = valueIdx2offset(medianIdx);
 		int splitOffset = medianOffset + tree.valueSize;
+		int newValueCount = valueCount - medianIdx - 1;
 
 		// Move all data (including the spare slot) to the right of
 		// <splitOffset> to the new node
@@ -331,7 +385,9 @@ class Node {
 
 		// Update the value counts
 		setValueCount(medianIdx);
-		newNode.setValueCount(tree.branchFactor - medianIdx - 1);
+		updateEncodedSize();
+		newNode.setValueCount(newValueCount);
+		newNode.updateEncodedSize();
 		newNode.dataChanged = true;
 
 		notifyNodeSplit(newNode, medianIdx);
@@ -355,9 +411,11 @@ class Node {
 				valueIdx2offset(rightSibling.valueCount) - 4);
 
 		setValueCount(valueCount + rightSibling.valueCount);
+		updateEncodedSize();
 
 		rightSibling.clearData(4, valueIdx2offset(rightSibling.valueCount));
 		rightSibling.setValueCount(0);
+		rightSibling.updateEncodedSize();
 		rightSibling.dataChanged = true;
 
 		rightSibling.notifyNodeMerged(this, rightIdx);
@@ -445,6 +503,16 @@ class Node {
 	}
 
 	public void read() throws IOException {
+		if (tree.codec != null) {
+			readCompressed();
+			return;
+		}
+
+		if (tree.mappedFile != null && tree.mappedFile.read(tree.nodeID2offset(id), data, tree.nodeSize)) {
+			valueCount = ByteArrayUtil.getInt(data, 0);
+			return;
+		}
+
 		ByteBuffer buf = ByteBuffer.wrap(data);
 
 		// Don't fill the spare slot in data:
@@ -457,7 +525,25 @@ class Node {
 		valueCount = ByteArrayUtil.getInt(data, 0);
 	}
 
+	private void readCompressed() throws IOException {
+		byte[] block = new byte[tree.blockSize];
+
+		if (tree.mappedFile == null || !tree.mappedFile.read(tree.nodeID2offset(id), block, block.length)) {
+			int bytesRead = tree.nioFile.read(ByteBuffer.wrap(block), tree.nodeID2offset(id));
+			assert bytesRead == block.length : "Read operation didn't read the entire node (" + bytesRead + " of "
+					+ block.length + " bytes)";
+		}
+
+		encodedSize = tree.codec.decode(block, data);
+		valueCount = ByteArrayUtil.getInt(data, 0);
+	}
+
 	public void write() throws IOException {
+		if (tree.codec != null) {
+			writeCompressed();
+			return;
+		}
+
 		ByteBuffer buf = ByteBuffer.wrap(data);
 
 		// Don't write the spare slot in data to the file:
@@ -470,6 +556,60 @@ class Node {
 		dataChanged = false;
 	}
 
+	private void writeCompressed() throws IOException {
+		if (encodedSize > tree.blockSize) {
+			throw new IOException("Node " + id + " too large to be stored in a single block of " + tree.getFile());
+		}
+
+		byte[] block = new byte[tree.blockSize];
+		int length = tree.codec.encode(data, valueCount, block);
+		assert length == encodedSize : "Encoded size of node is " + length + ", expected " + encodedSize;
+
+		int bytesWritten = tree.nioFile.write(ByteBuffer.wrap(block), tree.nodeID2offset(id));
+		assert bytesWritten == block.length : "Write operation didn't write the entire node (" + bytesWritten + " of "
+				+ block.length + " bytes)";
+
+		dataChanged = false;
+	}
+
+	/**
+	 * Gets the index of the value at which a compressed node is split: the first value at which the encoded size of
+	 * the preceding values reaches half the size of the node. Both halves get at least one value.
+	 */
+	private int getSplitIdx() {
+		boolean leaf = isLeaf();
+		int halfSize = encodedSize / 2;
+		int size = tree.codec.getHeaderSize(data);
+		int splitIdx = 0;
+		while (splitIdx < valueCount - 2 && size < halfSize) {
+			size += tree.codec.getSlotSize(data, splitIdx, leaf);
+			splitIdx++;
+		}
+		return Math.max(splitIdx, 1);
+	}
+
+	/**
+	 * Gets the encoded size of the values between <tt>fromIdx</tt> (inclusive) and <tt>toIdx</tt> (exclusive, capped
+	 * at the value count), including the node IDs to the right of them.
+	 */
+	private int getEncodedSlotsSize(int fromIdx, int toIdx) {
+		boolean leaf = isLeaf();
+		int size = 0;
+		for (int i = fromIdx; i < toIdx && i < valueCount; i++) {
+			size += tree.codec.getSlotSize(data, i, leaf);
+		}
+		return size;
+	}
+
+	/**
+	 * Recalculates the encoded size of this node, if the tree's nodes are compressed.
+	 */
+	private void updateEncodedSize() {
+		if (tree.codec != null) {
+			encodedSize = tree.codec.getEncodedSize(data, valueCount);
+		}
+	}
+
 	/**
 	 * Shifts the data between <tt>startOffset</tt> (inclusive) and <tt>endOffset</tt> (exclusive) <tt>shift</tt>
 	 * positions to the right. Negative shift values can be used to shift data to the left.
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.btree;
+
+import java.io.IOException;
+
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
+
+/**
+ * Converts the in-memory representation of a {@link Node} to and from the compressed form in which it is stored on
+ * disk. Values are treated as a sequence of 4-byte (big-endian) integer fields, followed by at most three trailing
+ * bytes. As the values in a node are sorted, consecutive values tend to share their leading fields and differ only
+ * slightly in the next one. The encoding exploits this as follows:
+ * <ul>
+ * <li>every value starts with a bit mask of the fields that are equal to the same field of the previous value (or to
+ * <tt>0</tt> for the first value in a node); these fields are not stored at all,</li>
+ * <li>each other field is stored as the zigzag-encoded difference with the same field of the previous value, using a
+ * variable-length encoding of 1 to 5 bytes,</li>
+ * <li>the trailing bytes are stored as-is, and</li>
+ * <li>node IDs and the value count are stored using the same variable-length encoding. The node IDs following the
+ * values are omitted for leaf nodes, as these are always <tt>0</tt>.</li>
+ * </ul>
+ * Because a field of a value is encoded relative to the previous value, removing a value from a node never increases
+ * the encoded size of the node, but inserting or replacing one can.
+ */
+class NodeCodec {
+
+	/**
+	 * The maximum number of integer fields in a value, limited by the size of the bit mask.
+	 */
+	static final int MAX_FIELD_COUNT = 8;
+
+	/**
+	 * The maximum size of an encoded value count or node ID.
+	 */
+	private static final int MAX_VARINT_SIZE = 5;
+
+	/**
+	 * The maximum size of the node header, consisting of the value count and the ID of the left-most child node.
+	 */
+	static final int MAX_HEADER_SIZE = 2 * MAX_VARINT_SIZE;
+
+	private final int valueSize;
+
+	private final int slotSize;
+
+	private final int fieldCount;
+
+	private final int trailingSize;
+
+	/**
+	 * The maximum size of an encoded value and the node ID to the right of it.
+	 */
+	final int maxSlotSize;
+
+	NodeCodec(int valueSize) {
+		this.valueSize = valueSize;
+		this.slotSize = valueSize + 4;
+		this.fieldCount = valueSize / 4;
+		this.trailingSize = valueSize % 4;
+		this.maxSlotSize = 1 + fieldCount * MAX_VARINT_SIZE + trailingSize + MAX_VARINT_SIZE;
+	}
+
+	/**
+	 * Gets the number of values that is guaranteed to fit in a block of the specified size, regardless of how well the
+	 * values compress.
+	 */
+	int getMaxValueCount(int blockSize) {
+		return (blockSize - MAX_HEADER_SIZE) / maxSlotSize;
+	}
+
+	/**
+	 * Gets the encoded size of the header of a node.
+	 *
+	 * @param data The in-memory representation of the node.
+	 */
+	int getHeaderSize(byte[] data) {
+		return getVarIntSize(ByteArrayUtil.getInt(data, 0)) + getVarIntSize(ByteArrayUtil.getInt(data, 4));
+	}
+
+	/**
+	 * Gets the encoded size of the value at the specified index and the node ID to the right of it.
+	 *
+	 * @param data     The in-memory representation of the node.
+	 * @param valueIdx The index of the value.
+	 * @param leaf     Whether the node is a leaf node.
+	 */
+	int getSlotSize(byte[] data, int valueIdx, boolean leaf) {
+		int offset = valueIdx2offset(valueIdx);
+		int prevOffset = valueIdx > 0 ? offset - slotSize : -1;
+
+		int size = 1 + trailingSize;
+		for (int i = 0; i < fieldCount; i++) {
+			long delta = getField(data, offset, i) - getField(data, prevOffset, i);
+			if (delta != 0L) {
+				size += getVarIntSize(zigzag(delta));
+			}
+		}
+		if (!leaf) {
+			size += getVarIntSize(ByteArrayUtil.getInt(data, offset + valueSize));
+		}
+		return size;
+	}
+
+	/**
+	 * Gets the encoded size of a complete node.
+	 *
+	 * @param data       The in-memory representation of the node.
+	 * @param valueCount The number of values in the node.
+	 */
+	int getEncodedSize(byte[] data, int valueCount) {
+		boolean leaf = ByteArrayUtil.getInt(data, 4) == 0;
+		int size = getHeaderSize(data);
+		for (int i = 0; i < valueCount; i++) {
+			size += getSlotSize(data, i, leaf);
+		}
+		return size;
+	}
+
+	/**
+	 * Encodes a node.
+	 *
+	 * @param data       The in-memory representation of the node.
+	 * @param valueCount The number of values in the node.
+	 * @param dst        The array to write the encoded node to, which must be large enough to hold it.
+	 * @return The size of the encoded node.
+	 */
+	int encode(byte[] data, int valueCount, byte[] dst) {
+		int childNodeID = ByteArrayUtil.getInt(data, 4);
+		boolean leaf = childNodeID == 0;
+
+		int pos = putVarInt(valueCount, dst, 0);
+		pos = putVarInt(childNodeID, dst, pos);
+
+		for (int valueIdx = 0; valueIdx < valueCount; valueIdx++) {
+			int offset = valueIdx2offset(valueIdx);
+			int prevOffset = valueIdx > 0 ? offset - slotSize : -1;
+
+			int maskPos = pos++;
+			int mask = 0;
+			for (int i = 0; i < fieldCount; i++) {
+				long delta = getField(data, offset, i) - getField(data, prevOffset, i);
+				if (delta == 0L) {
+					mask |= 1 << i;
+				} else {
+					pos = putVarInt(zigzag(delta), dst, pos);
+				}
+			}
+			dst[maskPos] = (byte) mask;
+
+			System.arraycopy(data, offset + 4 * fieldCount, dst, pos, trailingSize);
+			pos += trailingSize;
+
+			if (!leaf) {
+				pos = putVarInt(ByteArrayUtil.getInt(data, offset + valueSize), dst, pos);
+			}
+		}
+
+		return pos;
+	}
+
+	/**
+	 * Decodes a node.
+	 *
+	 * @param src  The encoded node.
+	 * @param data The array to write the in-memory representation of the node to.
+	 * @return The size of the encoded node.
+	 * @throws IOException If the encoded node is corrupt.
+	 */
+	int decode(byte[] src, byte[] data) throws IOException {
+		try {
+			long[] varInt = new long[1];
+
+			int pos = getVarInt(src, 0, varInt);
+			int valueCount = (int) varInt[0];
+			pos = getVarInt(src, pos, varInt);
+			int childNodeID = (int) varInt[0];
+			boolean leaf = childNodeID == 0;
+
+			if (valueCount < 0 || valueIdx2offset(valueCount) > data.length) {
+				throw new IOException("Invalid value count in compressed node: " + valueCount);
+			}
+
+			ByteArrayUtil.putInt(valueCount, data, 0);
+			ByteArrayUtil.putInt(childNodeID, data, 4);
+
+			for (int valueIdx = 0; valueIdx < valueCount; valueIdx++) {
+				int offset = valueIdx2offset(valueIdx);
+				int prevOffset = valueIdx > 0 ? offset - slotSize : -1;
+
+				int mask = src[pos++];
+				for (int i = 0; i < fieldCount; i++) {
+					long field = getField(data, prevOffset, i);
+					if ((mask & (1 << i)) == 0) {
+						pos = getVarInt(src, pos, varInt);
+						field += unzigzag(varInt[0]);
+					}
+					ByteArrayUtil.putInt((int) field, data, offset + 4 * i);
+				}
+
+				System.arraycopy(src, pos, data, offset + 4 * fieldCount, trailingSize);
+				pos += trailingSize;
+
+				if (!leaf) {
+					pos = getVarInt(src, pos, varInt);
+					ByteArrayUtil.putInt((int) varInt[0], data, offset + valueSize);
+				}
+			}
+
+			return pos;
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IOException("Corrupt compressed node", e);
+		}
+	}
+
+	private int valueIdx2offset(int valueIdx) {
+		return 8 + valueIdx * slotSize;
+	}
+
+	/**
+	 * Gets a field of the value at the specified offset, or <tt>0</tt> if the offset is negative.
+	 */
+	private static long getField(byte[] data, int offset, int fieldIdx) {
+		return offset < 0 ? 0L : ByteArrayUtil.getInt(data, offset + 4 * fieldIdx);
+	}
+
+	private static long zigzag(long n) {
+		return (n << 1) ^ (n >> 63);
+	}
+
+	private static long unzigzag(long n) {
+		return (n >>> 1) ^ -(n & 1);
+	}
+
+	/**
+	 * Gets the number of bytes needed to store the supplied non-negative number in variable-length encoding.
+	 */
+	static int getVarIntSize(long n) {
+		int size = 1;
+		while ((n >>>= 7) != 0) {
+			size++;
+		}
+		return size;
+	}
+
+	private static int putVarInt(long n, byte[] dst, int pos) {
+		while ((n & ~0x7FL) != 0) {
+			dst[pos++] = (byte) ((n & 0x7F) | 0x80);
+			n >>>= 7;
+		}
+		dst[pos++] = (byte) n;
+		return pos;
+	}
+
+	private static int getVarInt(byte[] src, int pos, long[] result) {
+		long n = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = src[pos++];
+			n |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while (b < 0);
+		result[0] = n;
+		return pos;
+	}
+}
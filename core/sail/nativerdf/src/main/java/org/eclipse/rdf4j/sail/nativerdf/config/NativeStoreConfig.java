@@ -7,12 +7,16 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.nativerdf.config;
 
+import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.COMPRESSED_INDEXES;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.FORCE_SYNC;
+import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.MEMORY_MAPPED;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.NAMESPACE;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.NAMESPACE_CACHE_SIZE;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.NAMESPACE_ID_CACHE_SIZE;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.TRIPLE_INDEXES;
+import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.VALUE_CACHE_MEMORY;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.VALUE_CACHE_SIZE;
+import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.VALUE_ID_CACHE_MEMORY;
 import static org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreSchema.VALUE_ID_CACHE_SIZE;
 
 import org.eclipse.rdf4j.model.Model;
@@ -37,10 +41,18 @@ public class NativeStoreConfig extends BaseSailConfig {
 
 	private boolean forceSync = false;
 
+	private boolean memoryMapped = false;
+
+	private Boolean compressedIndexes;
+
 	private int valueCacheSize = -1;
 
 	private int valueIDCacheSize = -1;
 
+	private long valueCacheMemory = -1;
+
+	private long valueIDCacheMemory = -1;
+
 	private int namespaceCacheSize = -1;
 
 	private int namespaceIDCacheSize = -1;
@@ -83,6 +95,26 @@ public class NativeStoreConfig extends BaseSailConfig {
 		this.forceSync = forceSync;
 	}
 
+	public boolean getMemoryMapped() {
+		return memoryMapped;
+	}
+
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	/**
+	 * @return whether the triple indexes should be stored in compressed form, or <tt>null</tt> if the format of
+	 *         existing indexes should be kept
+	 */
+	public Boolean getCompressedIndexes() {
+		return compressedIndexes;
+	}
+
+	public void setCompressedIndexes(Boolean compressedIndexes) {
+		this.compressedIndexes = compressedIndexes;
+	}
+
 	public int getValueCacheSize() {
 		return valueCacheSize;
 	}
@@ -99,6 +131,22 @@ public class NativeStoreConfig extends BaseSailConfig {
 		this.valueIDCacheSize = valueIDCacheSize;
 	}
 
+	public long getValueCacheMemory() {
+		return valueCacheMemory;
+	}
+
+	public void setValueCacheMemory(long valueCacheMemory) {
+		this.valueCacheMemory = valueCacheMemory;
+	}
+
+	public long getValueIDCacheMemory() {
+		return valueIDCacheMemory;
+	}
+
+	public void setValueIDCacheMemory(long valueIDCacheMemory) {
+		this.valueIDCacheMemory = valueIDCacheMemory;
+	}
+
 	public int getNamespaceCacheSize() {
 		return namespaceCacheSize;
 	}
@@ -127,12 +175,24 @@ public class NativeStoreConfig extends BaseSailConfig {
 		if (forceSync) {
 			m.add(implNode, FORCE_SYNC, vf.createLiteral(forceSync));
 		}
+		if (memoryMapped) {
+			m.add(implNode, MEMORY_MAPPED, vf.createLiteral(memoryMapped));
+		}
+		if (compressedIndexes != null) {
+			m.add(implNode, COMPRESSED_INDEXES, vf.createLiteral(compressedIndexes));
+		}
 		if (valueCacheSize >= 0) {
 			m.add(implNode, VALUE_CACHE_SIZE, vf.createLiteral(valueCacheSize));
 		}
 		if (valueIDCacheSize >= 0) {
 			m.add(implNode, VALUE_ID_CACHE_SIZE, vf.createLiteral(valueIDCacheSize));
 		}
+		if (valueCacheMemory >= 0) {
+			m.add(implNode, VALUE_CACHE_MEMORY, vf.createLiteral(valueCacheMemory));
+		}
+		if (valueIDCacheMemory >= 0) {
+			m.add(implNode, VALUE_ID_CACHE_MEMORY, vf.createLiteral(valueIDCacheMemory));
+		}
 		if (namespaceCacheSize >= 0) {
 			m.add(implNode, NAMESPACE_CACHE_SIZE, vf.createLiteral(namespaceCacheSize));
 		}
@@ -160,6 +220,24 @@ public class NativeStoreConfig extends BaseSailConfig {
 				}
 			});
 
+			Models.objectLiteral(m.getStatements(implNode, MEMORY_MAPPED, null)).ifPresent(lit -> {
+				try {
+					setMemoryMapped(lit.booleanValue());
+				} catch (IllegalArgumentException e) {
+					throw new SailConfigException(
+							"Boolean value required for " + MEMORY_MAPPED + " property, found " + lit);
+				}
+			});
+
+			Models.objectLiteral(m.getStatements(implNode, COMPRESSED_INDEXES, null)).ifPresent(lit -> {
+				try {
+					setCompressedIndexes(lit.booleanValue());
+				} catch (IllegalArgumentException e) {
+					throw new SailConfigException(
+							"Boolean value required for " + COMPRESSED_INDEXES + " property, found " + lit);
+				}
+			});
+
 			Models.objectLiteral(m.getStatements(implNode, VALUE_CACHE_SIZE, null)).ifPresent(lit -> {
 				try {
 					setValueCacheSize(lit.intValue());
@@ -178,6 +256,36 @@ public class NativeStoreConfig extends BaseSailConfig {
 				}
 			});
 
+			Models.objectLiteral(m.getStatements(implNode, VALUE_CACHE_MEMORY, null)).ifPresent(lit -> {
+				long memory;
+				try {
+					memory = lit.longValue();
+				} catch (NumberFormatException e) {
+					throw new SailConfigException(
+							"Long value required for " + VALUE_CACHE_MEMORY + " property, found " + lit);
+				}
+				if (memory <= 0) {
+					throw new SailConfigException(
+							"Positive value required for " + VALUE_CACHE_MEMORY + " property, found " + lit);
+				}
+				setValueCacheMemory(memory);
+			});
+
+			Models.objectLiteral(m.getStatements(implNode, VALUE_ID_CACHE_MEMORY, null)).ifPresent(lit -> {
+				long memory;
+				try {
+					memory = lit.longValue();
+				} catch (NumberFormatException e) {
+					throw new SailConfigException(
+							"Long value required for " + VALUE_ID_CACHE_MEMORY + " property, found " + lit);
+				}
+				if (memory <= 0) {
+					throw new SailConfigException(
+							"Positive value required for " + VALUE_ID_CACHE_MEMORY + " property, found " + lit);
+				}
+				setValueIDCacheMemory(memory);
+			});
+
 			Models.objectLiteral(m.getStatements(implNode, NAMESPACE_CACHE_SIZE, null)).ifPresent(lit -> {
 				try {
 					setNamespaceCacheSize(lit.intValue());
@@ -54,6 +54,10 @@ public class NativeStoreFactory implements SailFactory {
 
 			nativeStore.setTripleIndexes(nativeConfig.getTripleIndexes());
 			nativeStore.setForceSync(nativeConfig.getForceSync());
+			nativeStore.setMemoryMapped(nativeConfig.getMemoryMapped());
+			if (nativeConfig.getCompressedIndexes() != null) {
+				nativeStore.setCompressedIndexes(nativeConfig.getCompressedIndexes());
+			}
 
 			if (nativeConfig.getValueCacheSize() >= 0) {
 				nativeStore.setValueCacheSize(nativeConfig.getValueCacheSize());
@@ -61,6 +65,12 @@ public class NativeStoreFactory implements SailFactory {
 			if (nativeConfig.getValueIDCacheSize() >= 0) {
 				nativeStore.setValueIDCacheSize(nativeConfig.getValueIDCacheSize());
 			}
+			if (nativeConfig.getValueCacheMemory() > 0) {
+				nativeStore.setValueCacheMemory(nativeConfig.getValueCacheMemory());
+			}
+			if (nativeConfig.getValueIDCacheMemory() > 0) {
+				nativeStore.setValueIDCacheMemory(nativeConfig.getValueIDCacheMemory());
+			}
 			if (nativeConfig.getNamespaceCacheSize() >= 0) {
 				nativeStore.setNamespaceCacheSize(nativeConfig.getNamespaceCacheSize());
 			}
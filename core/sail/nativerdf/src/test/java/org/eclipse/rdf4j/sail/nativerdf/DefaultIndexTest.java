@@ -15,6 +15,8 @@ import java.io.InputStream;
 import java.util.Properties;
 
 import org.eclipse.rdf4j.common.io.FileUtil;
+import org.eclipse.rdf4j.common.io.NioFile;
+import org.eclipse.rdf4j.sail.nativerdf.btree.RecordIterator;
 import org.junit.Test;
 
 public class DefaultIndexTest {
@@ -43,6 +45,61 @@ public class DefaultIndexTest {
 		FileUtil.deleteDir(dir);
 	}
 
+	@Test
+	public void testConvertIndexFormat() throws Exception {
+		File dir = FileUtil.createTempDir("nativerdf");
+		TripleStore store = new TripleStore(dir, "spoc");
+		store.startTransaction();
+		for (int i = 1; i <= 2000; i++) {
+			store.storeTriple(i / 10 + 1, i % 3 + 1, i, 0);
+		}
+		store.commit();
+		store.close();
+		assertEquals(1, getFileFormatVersion(dir, "spoc"));
+
+		// the existing index is converted, the added index is created in the requested format
+		store = new TripleStore(dir, "spoc,posc", false, false, true);
+		assertEquals(2000, count(store.getTriples(-1, -1, -1, -1)));
+		assertEquals(667, count(store.getTriples(-1, 2, -1, -1)));
+		store.close();
+		assertEquals(2, getFileFormatVersion(dir, "spoc"));
+		assertEquals(2, getFileFormatVersion(dir, "posc"));
+
+		// without a requested format, the indexes keep theirs
+		store = new TripleStore(dir, null);
+		assertEquals(2000, count(store.getTriples(-1, -1, -1, -1)));
+		store.close();
+		assertEquals(2, getFileFormatVersion(dir, "spoc"));
+		assertEquals(2, getFileFormatVersion(dir, "posc"));
+
+		store = new TripleStore(dir, null, false, false, false);
+		assertEquals(2000, count(store.getTriples(-1, -1, -1, -1)));
+		assertEquals(667, count(store.getTriples(-1, 2, -1, -1)));
+		store.close();
+		assertEquals(1, getFileFormatVersion(dir, "spoc"));
+		assertEquals(1, getFileFormatVersion(dir, "posc"));
+		assertEquals("spoc,posc", findIndex(dir));
+		FileUtil.deleteDir(dir);
+	}
+
+	private int getFileFormatVersion(File dir, String index) throws Exception {
+		try (NioFile file = new NioFile(new File(dir, "triples-" + index + ".dat"), "r")) {
+			return file.readByte(3);
+		}
+	}
+
+	private int count(RecordIterator iter) throws Exception {
+		try {
+			int count = 0;
+			while (iter.next() != null) {
+				count++;
+			}
+			return count;
+		} finally {
+			iter.close();
+		}
+	}
+
 	private String findIndex(File dir) throws Exception {
 		Properties properties = new Properties();
 		try (InputStream in = new FileInputStream(new File(dir, "triples.prop"))) {
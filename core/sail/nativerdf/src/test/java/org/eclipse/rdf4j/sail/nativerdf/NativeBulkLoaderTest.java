@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for {@link NativeBulkLoader}.
+ */
+public class NativeBulkLoaderTest {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	@Test
+	public void testBulkLoad() throws Exception {
+		File dataDir = tempFolder.newFolder("dbmodel");
+		NativeStore sail = new NativeStore(dataDir, "spoc,posc,cosp");
+
+		Random random = new Random(43);
+		Set<Statement> statements = new HashSet<>();
+
+		// use a small sort buffer to force multiple merge passes
+		try (NativeBulkLoader loader = sail.createBulkLoader(100)) {
+			for (int i = 0; i < 20_000; i++) {
+				Resource subj = vf.createIRI("urn:s" + random.nextInt(1000));
+				IRI pred = vf.createIRI("urn:p" + random.nextInt(10));
+				Value obj = random.nextBoolean() ? vf.createLiteral(random.nextInt(500))
+						: vf.createIRI("urn:s" + random.nextInt(1000));
+				Resource context = random.nextInt(4) == 0 ? null : vf.createIRI("urn:g" + random.nextInt(3));
+
+				Statement st = vf.createStatement(subj, pred, obj, context);
+				loader.add(st);
+				statements.add(st);
+			}
+		}
+
+		assertThat(dataDir.list()).noneMatch(name -> name.startsWith("bulkload"));
+
+		Repository repo = new SailRepository(sail);
+		repo.init();
+		try (RepositoryConnection conn = repo.getConnection()) {
+			assertThat(conn.size()).isEqualTo(statements.size());
+			assertThat(new HashSet<>(Iterations.asList(conn.getStatements(null, null, null, true))))
+					.isEqualTo(statements);
+
+			IRI pred = vf.createIRI("urn:p3");
+			assertThat(Iterations.asList(conn.getStatements(null, pred, null, true)))
+					.hasSameSizeAs(statements.stream().filter(st -> st.getPredicate().equals(pred)).toArray());
+
+			IRI context = vf.createIRI("urn:g1");
+			assertThat(conn.size(context))
+					.isEqualTo(statements.stream().filter(st -> context.equals(st.getContext())).count());
+			assertThat(Iterations.asList(conn.getContextIDs())).hasSize(3);
+
+			// the store can be updated as usual after the bulk load
+			conn.add(vf.createIRI("urn:new"), pred, vf.createLiteral("new"));
+			assertThat(conn.size()).isEqualTo(statements.size() + 1);
+		} finally {
+			repo.shutDown();
+		}
+	}
+
+	@Test
+	public void testAbort() throws Exception {
+		File dataDir = tempFolder.newFolder("dbmodel");
+		NativeStore sail = new NativeStore(dataDir, "spoc,posc");
+
+		IRI pred = vf.createIRI("urn:p");
+		try (NativeBulkLoader loader = sail.createBulkLoader(100)) {
+			try {
+				for (int i = 0; i < 1000; i++) {
+					if (i == 500) {
+						// e.g. a parse error halfway through the data
+						throw new IllegalArgumentException("invalid data");
+					}
+					loader.add(vf.createIRI("urn:s" + i), pred, vf.createLiteral(i), null);
+				}
+			} catch (IllegalArgumentException e) {
+				loader.abort();
+			}
+		}
+
+		assertThat(dataDir.list()).noneMatch(name -> name.startsWith("bulkload"));
+
+		// the aborted statements are not loaded, and the store can still be bulk loaded
+		try (NativeBulkLoader loader = sail.createBulkLoader()) {
+			loader.add(vf.createIRI("urn:s"), pred, vf.createLiteral("o"), null);
+		}
+
+		Repository repo = new SailRepository(sail);
+		repo.init();
+		try (RepositoryConnection conn = repo.getConnection()) {
+			assertThat(conn.size()).isEqualTo(1);
+			assertThat(conn.hasStatement(vf.createIRI("urn:s0"), null, null, false)).isFalse();
+		} finally {
+			repo.shutDown();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBulkLoadRequiresEmptyStore() throws Exception {
+		File dataDir = tempFolder.newFolder("dbmodel");
+
+		Repository repo = new SailRepository(new NativeStore(dataDir));
+		repo.init();
+		try (RepositoryConnection conn = repo.getConnection()) {
+			conn.add(vf.createIRI("urn:s"), vf.createIRI("urn:p"), vf.createLiteral("o"));
+		} finally {
+			repo.shutDown();
+		}
+
+		new NativeStore(dataDir).createBulkLoader();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testBulkLoadRequiresUninitializedStore() throws Exception {
+		NativeStore sail = new NativeStore(tempFolder.newFolder("dbmodel"));
+		sail.init();
+		try {
+			sail.createBulkLoader();
+		} finally {
+			sail.shutDown();
+		}
+	}
+}
@@ -0,0 +1,339 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.eclipse.rdf4j.common.io.FileUtil;
+import org.eclipse.rdf4j.sail.nativerdf.TxnStatusFile.TxnStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the statistics maintained by a {@link TripleStore}.
+ */
+public class TripleStatisticsTest {
+
+	private File dataDir;
+
+	@Before
+	public void setUp() throws Exception {
+		dataDir = FileUtil.createTempDir("nativestore");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtil.deleteDir(dataDir);
+		dataDir = null;
+	}
+
+	@Test
+	public void testIncrementalUpdates() throws Exception {
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc,posc");
+		try {
+			tripleStore.startTransaction();
+			for (int s = 1; s <= 1000; s++) {
+				// predicate 2 has 1000 subjects with one of two objects, predicate 3 has 10 subjects in context 5
+				tripleStore.storeTriple(s, 2, s % 10 == 0 ? 4 : 3, 0);
+				if (s <= 10) {
+					tripleStore.storeTriple(s, 3, 1000 + s, 5);
+				}
+			}
+			tripleStore.commit();
+
+			TripleStatistics statistics = tripleStore.getStatistics();
+			assertEquals(1010, statistics.getTripleCount());
+			assertEquals(2, statistics.getPredicateCount());
+			assertEquals(2, statistics.getContextCount());
+			assertEquals(1000, statistics.getCardinality(-1, 2, -1, -1), 0);
+			assertEquals(10, statistics.getCardinality(-1, -1, -1, 5), 0);
+			assertEquals(900, statistics.getCardinality(-1, 2, 3, -1), 0);
+			assertEquals(100, statistics.getCardinality(-1, 2, 4, -1), 0);
+			assertEquals(1, statistics.getCardinality(-1, 3, 1001, -1), 0);
+
+			// subjects are estimated, objects of predicate 3 are counted exactly
+			assertEquals(1, statistics.getCardinality(-1, 2, -1, -1, true, false, false, false), 0.2);
+			assertEquals(1, statistics.getCardinality(-1, 3, -1, -1, false, false, true, false), 0);
+
+			// triples that are added and removed in the same transaction are ignored
+			tripleStore.startTransaction();
+			tripleStore.storeTriple(1, 6, 7, 0);
+			tripleStore.removeTriplesByContext(1, 6, 7, 0);
+			tripleStore.removeTriplesByContext(-1, 3, -1, -1);
+			tripleStore.commit();
+
+			assertEquals(1000, statistics.getTripleCount());
+			assertEquals(1, statistics.getPredicateCount());
+			assertEquals(1, statistics.getContextCount());
+			assertEquals(0, statistics.getCardinality(-1, 3, -1, -1), 0);
+		} finally {
+			tripleStore.close();
+		}
+
+		// the statistics must survive a restart
+		tripleStore = new TripleStore(dataDir, "spoc,posc");
+		try {
+			TripleStatistics statistics = tripleStore.getStatistics();
+			assertEquals(1000, statistics.getTripleCount());
+			assertEquals(900, statistics.getCardinality(-1, 2, 3, -1), 0);
+		} finally {
+			tripleStore.close();
+		}
+	}
+
+	@Test
+	public void testRebuildAfterUncompletedCommit() throws Exception {
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc");
+		try {
+			tripleStore.startTransaction();
+			tripleStore.storeTriple(1, 2, 3, 0);
+			tripleStore.commit();
+
+			tripleStore.startTransaction();
+			for (int s = 1; s <= 100; s++) {
+				tripleStore.storeTriple(s, 4, 5, 0);
+			}
+			// forget to commit or rollback
+		} finally {
+			tripleStore.close();
+		}
+
+		// Pretend that commit was called
+		TxnStatusFile txnStatusFile = new TxnStatusFile(dataDir);
+		try {
+			txnStatusFile.setTxnStatus(TxnStatus.COMMITTING);
+		} finally {
+			txnStatusFile.close();
+		}
+
+		tripleStore = new TripleStore(dataDir, "spoc");
+		try {
+			TripleStatistics statistics = awaitStatistics(tripleStore);
+			assertEquals(101, statistics.getTripleCount());
+			assertEquals(100, statistics.getCardinality(-1, 4, -1, -1), 0);
+		} finally {
+			tripleStore.close();
+		}
+	}
+
+	@Test
+	public void testCardinalityWithoutMatchingIndex() throws Exception {
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc");
+		try {
+			tripleStore.startTransaction();
+			for (int s = 1; s <= 1000; s++) {
+				tripleStore.storeTriple(s, 2 + s % 2, 4, 0);
+			}
+			tripleStore.commit();
+
+			// the spoc index can't be used for the predicate, so the estimate comes from the statistics
+			assertEquals(500, tripleStore.cardinality(-1, 2, -1, -1), 0);
+		} finally {
+			tripleStore.close();
+		}
+	}
+
+	@Test
+	public void testRebuildInBackground() throws Exception {
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc,posc");
+		try {
+			tripleStore.startTransaction();
+			for (int s = 1; s <= 20_000; s++) {
+				tripleStore.storeTriple(s, 2, 1, 0);
+				tripleStore.storeTriple(s, 2, 2, 0);
+			}
+			tripleStore.commit();
+
+			// remove half of the subjects, the distinct subject count can only be corrected by a rebuild
+			tripleStore.startTransaction();
+			for (int s = 1; s <= 10_000; s++) {
+				tripleStore.removeTriplesByContext(s, 2, -1, 0);
+			}
+			tripleStore.commit();
+
+			TripleStatistics statistics = tripleStore.getStatistics();
+			long expected = 20_000;
+			int s = 20_000;
+			while (statistics.isRebuilding()) {
+				// commits during the rebuild must be applied to the rebuilt statistics exactly once
+				tripleStore.startTransaction();
+				s++;
+				tripleStore.storeTriple(s, 2, 1, 0);
+				tripleStore.storeTriple(s, 2, 2, 0);
+				tripleStore.commit();
+				expected += 2;
+			}
+
+			assertEquals(expected, statistics.getTripleCount());
+			assertFalse(statistics.isRebuildNeeded());
+			assertEquals(2, statistics.getCardinality(-1, 2, -1, -1, true, false, false, false), 0.4);
+		} finally {
+			tripleStore.close();
+		}
+	}
+
+	@Test
+	public void testManyContexts() throws Exception {
+		int contextCount = TripleStatistics.MAX_CONTEXT_SUMMARIES + 1000;
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc");
+		try {
+			tripleStore.startTransaction();
+			for (int c = 1; c <= contextCount; c++) {
+				tripleStore.storeTriple(1, 2, 3, c);
+				tripleStore.storeTriple(1, 2, 4, c);
+			}
+			tripleStore.commit();
+
+			TripleStatistics statistics = tripleStore.getStatistics();
+			assertEquals(2 * contextCount, statistics.getTripleCount());
+			assertEquals(contextCount, statistics.getContextCount(), 100);
+			// contexts with and without statistics of their own
+			assertEquals(2, statistics.getCardinality(-1, -1, -1, 1), 0);
+			assertEquals(2, statistics.getCardinality(-1, -1, -1, contextCount), 0.2);
+		} finally {
+			tripleStore.close();
+		}
+
+		tripleStore = new TripleStore(dataDir, "spoc");
+		try {
+			TripleStatistics statistics = tripleStore.getStatistics();
+			assertEquals(2 * contextCount, statistics.getTripleCount());
+			assertEquals(2, statistics.getCardinality(-1, -1, -1, contextCount), 0.2);
+		} finally {
+			tripleStore.close();
+		}
+	}
+
+	@Test
+	public void testManyPredicates() throws Exception {
+		int predicateCount = TripleStatistics.MAX_PREDICATE_SUMMARIES + 1000;
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc");
+		try {
+			tripleStore.startTransaction();
+			for (int p = 1; p <= predicateCount; p++) {
+				tripleStore.storeTriple(1, p, 3, 0);
+				tripleStore.storeTriple(2, p, 3, 0);
+			}
+			tripleStore.commit();
+
+			TripleStatistics statistics = tripleStore.getStatistics();
+			assertEquals(2 * predicateCount, statistics.getTripleCount());
+			assertEquals(predicateCount, statistics.getPredicateCount(), 100);
+			// predicates with and without statistics of their own
+			assertEquals(2, statistics.getCardinality(-1, 1, -1, -1), 0);
+			assertEquals(2, statistics.getCardinality(-1, predicateCount, -1, -1), 0.2);
+			assertEquals(1, statistics.getCardinality(-1, predicateCount, -1, -1, true, false, false, false), 0.2);
+		} finally {
+			tripleStore.close();
+		}
+
+		tripleStore = new TripleStore(dataDir, "spoc");
+		try {
+			TripleStatistics statistics = tripleStore.getStatistics();
+			assertEquals(2 * predicateCount, statistics.getTripleCount());
+			assertEquals(2, statistics.getCardinality(-1, predicateCount, -1, -1), 0.2);
+		} finally {
+			tripleStore.close();
+		}
+	}
+
+	@Test
+	public void testStatisticsFile() throws Exception {
+		File file = new File(dataDir, "triples.stats");
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc");
+		try {
+			// commits don't write the statistics
+			tripleStore.startTransaction();
+			tripleStore.storeTriple(1, 2, 3, 0);
+			tripleStore.commit();
+			assertFalse(file.exists());
+		} finally {
+			tripleStore.close();
+		}
+		assertTrue(file.exists());
+
+		tripleStore = new TripleStore(dataDir, "spoc");
+		try {
+			// the loaded file is deleted, as it is outdated by the next commit
+			assertTrue(tripleStore.getStatistics().isAvailable());
+			assertFalse(file.exists());
+			assertEquals(1, tripleStore.getStatistics().getTripleCount());
+
+			tripleStore.startTransaction();
+			tripleStore.storeTriple(1, 2, 4, 0);
+			tripleStore.commit();
+		} finally {
+			tripleStore.close();
+		}
+
+		tripleStore = new TripleStore(dataDir, "spoc");
+		try {
+			assertEquals(2, tripleStore.getStatistics().getTripleCount());
+		} finally {
+			tripleStore.close();
+		}
+	}
+
+	@Test
+	public void testMissingStatisticsFile() throws Exception {
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc,posc");
+		try {
+			tripleStore.startTransaction();
+			for (int s = 1; s <= 1000; s++) {
+				tripleStore.storeTriple(s, 2 + s % 2, 4, 0);
+			}
+			tripleStore.commit();
+		} finally {
+			tripleStore.close();
+		}
+		// the store was not closed properly
+		assertTrue(new File(dataDir, "triples.stats").delete());
+
+		tripleStore = new TripleStore(dataDir, "spoc,posc");
+		try {
+			// the statistics are built in the background, cardinalities are estimated from the indexes meanwhile
+			assertTrue(tripleStore.cardinality(-1, 2, -1, -1) > 0);
+
+			TripleStatistics statistics = awaitStatistics(tripleStore);
+			assertEquals(1000, statistics.getTripleCount());
+			assertEquals(500, statistics.getCardinality(-1, 2, -1, -1), 0);
+		} finally {
+			tripleStore.close();
+		}
+	}
+
+	@Test
+	public void testDistinctCounter() {
+		TripleStatistics.DistinctCounter counter = new TripleStatistics.DistinctCounter();
+		for (int i = 0; i < 64; i++) {
+			counter.add(i);
+			counter.add(i);
+		}
+		assertEquals(64, counter.estimate());
+
+		for (int i = 0; i < 100_000; i++) {
+			counter.add(i);
+		}
+		long estimate = counter.estimate();
+		assertTrue("estimate too far off: " + estimate, Math.abs(estimate - 100_000) < 20_000);
+	}
+
+	private static TripleStatistics awaitStatistics(TripleStore tripleStore) throws InterruptedException {
+		TripleStatistics statistics = tripleStore.getStatistics();
+		while (statistics.isRebuilding()) {
+			Thread.sleep(10);
+		}
+		assertTrue(statistics.isAvailable());
+		return statistics;
+	}
+}
@@ -7,6 +7,7 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.nativerdf;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
@@ -91,4 +92,48 @@ public class TripleStoreRecoveryTest {
 		}
 	}
 
+	@Test
+	public void testCommitRecoveryMultipleIndexes() throws Exception {
+		TripleStore tripleStore = new TripleStore(dataDir, "spoc,posc,ospc,cspo");
+		try {
+			tripleStore.startTransaction();
+			for (int i = 1; i <= 1000; i++) {
+				tripleStore.storeTriple(i, 2, 3, 4);
+			}
+			// forget to commit or rollback
+		} finally {
+			tripleStore.close();
+		}
+
+		// Pretend that commit was called
+		TxnStatusFile txnStatusFile = new TxnStatusFile(dataDir);
+		try {
+			txnStatusFile.setTxnStatus(TxnStatus.COMMITTING);
+		} finally {
+			txnStatusFile.close();
+		}
+
+		// Try to restore from the uncompleted transaction, all indexes must contain the committed triples
+		tripleStore = new TripleStore(dataDir, "spoc,posc,ospc,cspo");
+		try {
+			assertEquals(1000, count(tripleStore.getTriples(-1, -1, -1, -1)));
+			assertEquals(1000, count(tripleStore.getTriples(-1, 2, -1, -1)));
+			assertEquals(1000, count(tripleStore.getTriples(-1, -1, 3, -1)));
+			assertEquals(1000, count(tripleStore.getTriples(-1, -1, -1, 4)));
+		} finally {
+			tripleStore.close();
+		}
+	}
+
+	private int count(RecordIterator iter) throws Exception {
+		try {
+			int count = 0;
+			while (iter.next() != null) {
+				count++;
+			}
+			return count;
+		} finally {
+			iter.close();
+		}
+	}
 }
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ValueCache}
+ */
+public class ValueCacheTest {
+
+	@Test
+	public void testBoundedByWeight() {
+		ValueCache<Integer, String> cache = new ValueCache<>(1000, (k, v) -> v.length());
+
+		for (int i = 0; i < 1000; i++) {
+			cache.put(i, "0123456789");
+		}
+
+		assertThat(cache.getWeight()).isLessThanOrEqualTo(1000);
+		assertThat(cache.getEvictionCount()).isEqualTo(1000 - cache.size());
+	}
+
+	@Test
+	public void testBoundedByEntries() {
+		ValueCache<Integer, String> cache = new ValueCache<>(Long.MAX_VALUE, 10, (k, v) -> v.length());
+
+		for (int i = 0; i < 100; i++) {
+			cache.put(i, "value" + i);
+		}
+
+		assertThat(cache.size()).isEqualTo(10);
+		assertThat(cache.getEvictionCount()).isEqualTo(90);
+	}
+
+	@Test
+	public void testFrequentlyUsedEntriesSurviveScan() {
+		ValueCache<Integer, String> cache = new ValueCache<>(Long.MAX_VALUE, 100, (k, v) -> 1);
+
+		// hot entries, requested a second time to promote them
+		for (int i = 0; i < 50; i++) {
+			cache.put(i, "hot" + i);
+			cache.get(i);
+		}
+
+		// a scan over many entries that are never requested again
+		for (int i = 1000; i < 2000; i++) {
+			cache.put(i, "cold" + i);
+		}
+
+		for (int i = 0; i < 50; i++) {
+			assertThat(cache.get(i)).isEqualTo("hot" + i);
+		}
+	}
+
+	@Test
+	public void testHitAndMissCounts() {
+		ValueCache<Integer, String> cache = new ValueCache<>(1000, (k, v) -> v.length());
+
+		cache.put(1, "one");
+		assertThat(cache.get(1)).isEqualTo("one");
+		assertThat(cache.get(2)).isNull();
+
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+
+		cache.clear();
+		assertThat(cache.size()).isEqualTo(0);
+		assertThat(cache.getWeight()).isEqualTo(0);
+	}
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+
+package org.eclipse.rdf4j.sail.nativerdf.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.assertj.core.util.Files;
+import org.eclipse.rdf4j.IsolationLevels;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.sail.SailRepositoryConnection;
+import org.eclipse.rdf4j.sail.nativerdf.NativeStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Concurrent {@link IsolationLevels#SERIALIZABLE} transactions that each read a number of statement patterns before
+ * adding a statement of their own. The transactions do not conflict, but every commit has to check its observations
+ * against the transactions that were committed concurrently.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@BenchmarkMode({ Mode.Throughput })
+@Fork(value = 1, jvmArgs = { "-Xms8G", "-Xmx8G", "-XX:+UseG1GC" })
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class SerializableContentionBenchmark {
+
+	private static final String EX_NS = "http://example.org/";
+
+	/**
+	 * The number of statement patterns that each transaction reads.
+	 */
+	@Param({ "10", "100", "1000" })
+	public int observations;
+
+	private SailRepository repository;
+	private File file;
+
+	private final AtomicInteger threads = new AtomicInteger();
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include("SerializableContentionBenchmark") // adapt to control which benchmark tests to run
+				.forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+	@Setup(Level.Iteration)
+	public void beforeClass() {
+		file = Files.newTemporaryFolder();
+
+		NativeStore sail = new NativeStore(file, "spoc,posc");
+		sail.setForceSync(false);
+		repository = new SailRepository(sail);
+
+		System.gc();
+	}
+
+	@TearDown(Level.Iteration)
+	public void afterClass() throws IOException {
+		repository.shutDown();
+		FileUtils.deleteDirectory(file);
+	}
+
+	@State(Scope.Thread)
+	public static class Writer {
+
+		SailRepositoryConnection connection;
+		IRI[] subjects;
+		int i;
+		int conflicts;
+
+		@Setup(Level.Iteration)
+		public void beforeIteration(SerializableContentionBenchmark benchmark) {
+			connection = benchmark.repository.getConnection();
+			ValueFactory vf = connection.getValueFactory();
+			int thread = benchmark.threads.incrementAndGet();
+			subjects = new IRI[benchmark.observations];
+			for (int j = 0; j < subjects.length; j++) {
+				subjects[j] = vf.createIRI(EX_NS, "thread" + thread + "-" + j);
+			}
+			i = 0;
+		}
+
+		@TearDown(Level.Iteration)
+		public void afterIteration() {
+			connection.close();
+		}
+	}
+
+	@Benchmark
+	public int serializableTransactions(Writer writer, Blackhole blackhole) {
+		SailRepositoryConnection connection = writer.connection;
+		IRI[] subjects = writer.subjects;
+		connection.begin(IsolationLevels.SERIALIZABLE);
+		try {
+			for (IRI subject : subjects) {
+				blackhole.consume(connection.hasStatement(subject, RDF.TYPE, null, false));
+			}
+			IRI subject = subjects[writer.i++ % subjects.length];
+			connection.add(subject, RDFS.LABEL, connection.getValueFactory().createLiteral(writer.i));
+			connection.commit();
+		} catch (RepositoryException e) {
+			// a conflict
+			connection.rollback();
+			writer.conflicts++;
+		}
+		return writer.conflicts;
+	}
+
+}
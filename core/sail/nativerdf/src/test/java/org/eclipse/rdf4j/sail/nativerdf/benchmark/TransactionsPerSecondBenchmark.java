@@ -26,6 +26,7 @@ import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -48,6 +49,12 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 @OutputTimeUnit(TimeUnit.SECONDS)
 public class TransactionsPerSecondBenchmark {
 
+	/**
+	 * The triple indexes of the store, the indexes are committed in parallel when there is more than one
+	 */
+	@Param({ "spoc", "spoc,posc", "spoc,ospc,psoc", "spoc,posc,cosp,opsc" })
+	public String indexes;
+
 	private SailRepository repository;
 	private File file;
 
@@ -73,7 +80,7 @@ public class TransactionsPerSecondBenchmark {
 		i = 0;
 		file = Files.newTemporaryFolder();
 
-		NativeStore sail = new NativeStore(file, "spoc,ospc,psoc");
+		NativeStore sail = new NativeStore(file, indexes);
 		sail.setForceSync(false);
 		repository = new SailRepository(sail);
 		connection = repository.getConnection();
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+
+package org.eclipse.rdf4j.sail.nativerdf.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.assertj.core.util.Files;
+import org.eclipse.rdf4j.sail.nativerdf.ValueCache;
+import org.eclipse.rdf4j.sail.nativerdf.ValueStore;
+import org.eclipse.rdf4j.sail.nativerdf.model.NativeValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks {@link ValueStore} lookups with a Zipf-distributed ID workload, i.e. a few values that are requested very
+ * often (predicates, types) and a long tail of values that are rarely requested.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@BenchmarkMode({ Mode.AverageTime })
+@Fork(value = 1, jvmArgs = { "-Xms1G", "-Xmx1G", "-XX:+UseG1GC" })
+@Measurement(iterations = 10)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ValueStoreCacheBenchmark {
+
+	private static final int RANDOM_SEED = 524826405;
+
+	private static final int VALUE_COUNT = 1_000_000;
+
+	private static final int LOOKUP_COUNT = 100_000;
+
+	@Param({ "1048576", "16777216" })
+	public long valueCacheMemory;
+
+	@Param({ "1.0" })
+	public double zipfExponent;
+
+	private File tempFolder;
+
+	private ValueStore valueStore;
+
+	private int[] ids;
+
+	private int[] lookups;
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include("ValueStoreCacheBenchmark") // adapt to control which benchmark tests to run
+				.forks(1)
+				.build();
+
+		new Runner(opt).run();
+	}
+
+	@Setup(Level.Trial)
+	public void beforeClass() throws IOException {
+		tempFolder = Files.newTemporaryFolder();
+
+		valueStore = new ValueStore(tempFolder, false, -1, -1, valueCacheMemory, valueCacheMemory,
+				ValueStore.NAMESPACE_CACHE_SIZE, ValueStore.NAMESPACE_ID_CACHE_SIZE);
+
+		ids = new int[VALUE_COUNT];
+		for (int i = 0; i < VALUE_COUNT; i++) {
+			ids[i] = valueStore.storeValue(valueStore.createIRI("http://example.org/resource/" + i));
+		}
+		valueStore.sync();
+
+		lookups = zipfSample(new Random(RANDOM_SEED), VALUE_COUNT, zipfExponent, LOOKUP_COUNT);
+
+		System.gc();
+	}
+
+	@TearDown(Level.Trial)
+	public void afterClass() throws IOException {
+		try {
+			ValueCache<Integer, NativeValue> cache = valueStore.getValueCache();
+			long hits = cache.getHitCount();
+			long requests = hits + cache.getMissCount();
+			System.out.println();
+			System.out.println(cache + ", hit rate: " + (requests == 0 ? 0 : 100 * hits / requests) + "%");
+
+			valueStore.close();
+		} finally {
+			FileUtils.deleteDirectory(tempFolder);
+		}
+	}
+
+	@Benchmark
+	public long getValue() throws IOException {
+		long sum = 0;
+		for (int rank : lookups) {
+			sum += valueStore.getValue(ids[rank]).stringValue().length();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long getID() throws IOException {
+		long sum = 0;
+		for (int rank : lookups) {
+			sum += valueStore.getID(valueStore.createIRI("http://example.org/resource/" + rank));
+		}
+		return sum;
+	}
+
+	/**
+	 * Draws <tt>count</tt> ranks in <tt>[0, n)</tt> from a Zipf distribution with the supplied exponent.
+	 */
+	private static int[] zipfSample(Random random, int n, double exponent, int count) {
+		double[] cdf = new double[n];
+		double sum = 0;
+		for (int i = 0; i < n; i++) {
+			sum += 1.0 / Math.pow(i + 1, exponent);
+			cdf[i] = sum;
+		}
+
+		int[] sample = new int[count];
+		for (int i = 0; i < count; i++) {
+			int idx = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+			sample[i] = idx >= 0 ? idx : Math.min(-idx - 1, n - 1);
+		}
+		return sample;
+	}
+}
@@ -9,6 +9,8 @@ package org.eclipse.rdf4j.sail.nativerdf.btree;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Random;
 
 import org.eclipse.rdf4j.common.io.ByteArrayUtil;
@@ -16,10 +18,13 @@ import org.eclipse.rdf4j.common.io.FileUtil;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 
 /**
  * @author Arjohn Kampman
  */
+@RunWith(Parameterized.class)
 public class BTreeBenchmark {
 
 	private static final int VALUE_COUNT = 100 * 1000;
@@ -32,6 +37,20 @@ public class BTreeBenchmark {
 
 	private BTree btree;
 
+	private final boolean memoryMapped;
+
+	private final boolean compressed;
+
+	@Parameterized.Parameters(name = "memoryMapped={0}, compressed={1}")
+	public static Collection<Object[]> parameters() {
+		return Arrays.asList(new Object[][] { { false, false }, { true, false }, { false, true }, { true, true } });
+	}
+
+	public BTreeBenchmark(boolean memoryMapped, boolean compressed) {
+		this.memoryMapped = memoryMapped;
+		this.compressed = compressed;
+	}
+
 	/*---------*
 	 * Methods *
 	 *---------*/
@@ -39,7 +58,7 @@ public class BTreeBenchmark {
 	@Before
 	public void setUp() throws Exception {
 		dir = FileUtil.createTempDir("btree");
-		btree = new BTree(dir, "test", 4096, 8);
+		btree = new BTree(dir, "test", 4096, 8, new DefaultRecordComparator(), false, memoryMapped, compressed);
 	}
 
 	@After
@@ -119,6 +138,26 @@ public class BTreeBenchmark {
 		printTime(startTime, endTime, "testFullScan");
 	}
 
+	@Test
+	public void testPointLookup() throws Exception {
+		addAscending(0L, 1L, VALUE_COUNT);
+		reopen();
+
+		byte[] data = new byte[8];
+		Random random = new Random(0L);
+
+		Thread.sleep(500L);
+		long startTime = System.currentTimeMillis();
+
+		for (int i = 0; i < VALUE_COUNT; i++) {
+			ByteArrayUtil.putLong(random.nextInt(VALUE_COUNT), data, 0);
+			btree.get(data);
+		}
+
+		long endTime = System.currentTimeMillis();
+		printTime(startTime, endTime, "testPointLookup");
+	}
+
 	@Test
 	public void testRangeScan4() throws Exception {
 		testRangeScan(4L);
@@ -136,7 +175,7 @@ public class BTreeBenchmark {
 
 	private void testRangeScan(long rangeSize) throws Exception {
 		addAscending(0L, 1L, VALUE_COUNT);
-		btree.sync();
+		reopen();
 
 		byte[] minData = new byte[8];
 		byte[] maxData = new byte[8];
@@ -158,6 +197,14 @@ public class BTreeBenchmark {
 		printTime(startTime, endTime, "testRangeScan" + rangeSize);
 	}
 
+	/**
+	 * Syncs and reopens the BTree, so that subsequent reads are not served from the node cache.
+	 */
+	private void reopen() throws IOException {
+		btree.close();
+		btree = new BTree(dir, "test", 4096, 8, new DefaultRecordComparator(), false, memoryMapped, compressed);
+	}
+
 	private void addAscending(long startValue, long increment, int valueCount) throws IOException {
 		long value = startValue;
 
@@ -211,6 +258,7 @@ public class BTreeBenchmark {
 	}
 
 	private void printTime(long startTime, long endTime, String methodName) {
-		System.out.println((endTime - startTime) + " ms for " + methodName + "()");
+		System.out.println((endTime - startTime) + " ms for " + methodName + "()"
+				+ (memoryMapped ? " (memory mapped)" : "") + (compressed ? " (compressed)" : ""));
 	}
 }
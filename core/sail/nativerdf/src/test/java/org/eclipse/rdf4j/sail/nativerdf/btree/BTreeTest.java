@@ -7,11 +7,18 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.sail.nativerdf.btree;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
+import org.eclipse.rdf4j.common.io.ByteArrayUtil;
 import org.eclipse.rdf4j.common.io.FileUtil;
 import org.junit.After;
 import org.junit.Before;
@@ -141,6 +148,149 @@ public class BTreeTest {
 		btree.clear();
 	}
 
+	@Test
+	public void testMemoryMapped() throws Exception {
+		for (byte[] value : RANDOMIZED_TEST_VALUES) {
+			btree.insert(value);
+		}
+		btree.close();
+
+		btree = new BTree(dir, "test", 85, 1, new DefaultRecordComparator(), false, true);
+		assertTrue(btree.isMemoryMapped());
+
+		for (byte[] value : TEST_VALUES) {
+			assertArrayEquals(value, btree.get(value));
+		}
+
+		// removing values shrinks the file, which must be reflected by the mapping
+		for (byte[] value : RANDOMIZED_TEST_VALUES.subList(0, 200)) {
+			btree.remove(value);
+		}
+		for (byte[] value : RANDOMIZED_TEST_VALUES.subList(0, 200)) {
+			assertNull(btree.get(value));
+		}
+		for (byte[] value : RANDOMIZED_TEST_VALUES.subList(200, 256)) {
+			assertArrayEquals(value, btree.get(value));
+		}
+
+		// adding values again grows the file beyond the mapped region
+		for (byte[] value : TEST_VALUES) {
+			btree.insert(value);
+		}
+		for (byte[] value : TEST_VALUES) {
+			assertArrayEquals(value, btree.get(value));
+		}
+	}
+
+	@Test
+	public void testLoad() throws Exception {
+		Iterator<byte[]> values = TEST_VALUES.iterator();
+		btree.load(new RecordIterator() {
+
+			@Override
+			public byte[] next() {
+				return values.hasNext() ? values.next() : null;
+			}
+
+			@Override
+			public void set(byte[] record) {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public void close() {
+			}
+		}, TEST_VALUES.size());
+
+		try (RecordIterator iter = btree.iterateAll()) {
+			for (byte[] value : TEST_VALUES) {
+				assertArrayEquals(value, iter.next());
+			}
+			assertNull(iter.next());
+		}
+
+		// the loaded tree can be modified as usual
+		for (byte[] value : RANDOMIZED_TEST_VALUES) {
+			assertArrayEquals(value, btree.remove(value));
+		}
+		try (RecordIterator iter = btree.iterateAll()) {
+			assertNull(iter.next());
+		}
+	}
+
+	@Test
+	public void testCompressed() throws Exception {
+		// values consisting of two int fields, the first of which is shared by runs of consecutive values
+		List<byte[]> values = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			byte[] value = new byte[8];
+			ByteArrayUtil.putInt(i / 20, value, 0);
+			ByteArrayUtil.putInt((i % 20) * (i % 20) * 1000, value, 4);
+			values.add(value);
+		}
+		List<byte[]> randomizedValues = new ArrayList<>(values);
+		Collections.shuffle(randomizedValues);
+
+		BTree compressed = new BTree(dir, "compressed", 128, 8, new DefaultRecordComparator(), false, false, true);
+		try {
+			assertTrue(compressed.isCompressed());
+			for (byte[] value : randomizedValues) {
+				compressed.insert(value);
+			}
+			compressed.close();
+
+			// the format is determined by the existing file
+			compressed = new BTree(dir, "compressed", 128, 8, new DefaultRecordComparator(), false, false, false);
+			assertTrue(compressed.isCompressed());
+			assertValues(compressed, values);
+
+			// removing values, which replaces values in internal nodes
+			for (byte[] value : randomizedValues.subList(0, 2500)) {
+				assertArrayEquals(value, compressed.remove(value));
+			}
+			List<byte[]> remainingValues = new ArrayList<>(values);
+			remainingValues.removeAll(randomizedValues.subList(0, 2500));
+			assertValues(compressed, remainingValues);
+		} finally {
+			compressed.delete();
+		}
+
+		BTree uncompressed = new BTree(dir, "uncompressed", 128, 8, new DefaultRecordComparator(), false, false,
+				false);
+		try {
+			assertFalse(uncompressed.isCompressed());
+			for (byte[] value : values) {
+				uncompressed.insert(value);
+			}
+			uncompressed.sync();
+
+			// load a compressed tree from the uncompressed one
+			compressed = new BTree(dir, "compressed", 128, 8, new DefaultRecordComparator(), false, false, true);
+			try (RecordIterator iter = uncompressed.iterateAll()) {
+				compressed.load(iter, values.size());
+			}
+			assertTrue(compressed.getFile().length() < uncompressed.getFile().length());
+			assertValues(compressed, values);
+
+			for (byte[] value : randomizedValues) {
+				assertArrayEquals(value, compressed.remove(value));
+			}
+			assertValues(compressed, Collections.emptyList());
+		} finally {
+			compressed.delete();
+			uncompressed.delete();
+		}
+	}
+
+	private void assertValues(BTree btree, List<byte[]> expectedValues) throws Exception {
+		try (RecordIterator iter = btree.iterateAll()) {
+			for (byte[] value : expectedValues) {
+				assertArrayEquals(value, iter.next());
+			}
+			assertNull(iter.next());
+		}
+	}
+
 	/*
 	 * Test for SES-527 public void testRootNodeSplit() throws Exception { // Fill the root node for (int i = 0; i < 15;
 	 * i++) { btree.insert(TEST_VALUES.get(i)); } // Fire up an iterator RecordIterator iter = btree.iterateAll();
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.sail.nativerdf.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.util.ModelBuilder;
+import org.eclipse.rdf4j.sail.config.SailConfigException;
+import org.eclipse.rdf4j.sail.nativerdf.NativeStore;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NativeStoreConfigTest {
+
+	private NativeStoreConfig subject;
+
+	private BNode implNode;
+
+	private ModelBuilder mb;
+
+	@Before
+	public void setUp() throws Exception {
+		subject = new NativeStoreConfig();
+		implNode = SimpleValueFactory.getInstance().createBNode();
+		mb = new ModelBuilder().subject(implNode);
+	}
+
+	@Test
+	public void parseCacheMemory() {
+		mb
+				.add(NativeStoreSchema.VALUE_CACHE_MEMORY, 1000000L)
+				.add(NativeStoreSchema.VALUE_ID_CACHE_MEMORY, 500000L);
+
+		subject.parse(mb.build(), implNode);
+
+		assertThat(subject.getValueCacheMemory()).isEqualTo(1000000L);
+		assertThat(subject.getValueIDCacheMemory()).isEqualTo(500000L);
+	}
+
+	@Test
+	public void parseZeroCacheMemoryGivesCorrectException() {
+		mb.add(NativeStoreSchema.VALUE_CACHE_MEMORY, 0L);
+
+		assertThatThrownBy(() -> subject.parse(mb.build(), implNode))
+				.isInstanceOf(SailConfigException.class)
+				.hasMessageContaining("valueCacheMemory");
+	}
+
+	@Test
+	public void zeroCacheMemoryUsesDefault() {
+		subject.setValueCacheMemory(0);
+
+		NativeStore store = (NativeStore) new NativeStoreFactory().getSail(subject);
+		assertThat(store).isNotNull();
+	}
+
+	@Test
+	public void invalidCacheMemoryIsRejectedByStore() {
+		NativeStore store = new NativeStore();
+
+		assertThatThrownBy(() -> store.setValueCacheMemory(0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> store.setValueIDCacheMemory(-1)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.Count;
+import org.eclipse.rdf4j.query.algebra.Group;
+import org.eclipse.rdf4j.query.algebra.GroupElem;
+import org.eclipse.rdf4j.query.algebra.Order;
+import org.eclipse.rdf4j.query.algebra.OrderElem;
+import org.eclipse.rdf4j.query.algebra.SingletonSet;
+import org.eclipse.rdf4j.query.algebra.Sum;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.QueryBindingSet;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.StrictEvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.GroupIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.iterator.OrderIterator;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.OrderComparator;
+import org.eclipse.rdf4j.query.algebra.evaluation.util.ValueComparator;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Designed to test the throughput of GROUP BY and ORDER BY over large intermediate results, with and without moving
+ * them to disk. The solutions are generated on the fly, so that the benchmark measures the operators rather than a
+ * store.
+ */
+@Fork(1)
+@State(Scope.Thread)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GroupOrderSpillBenchmark {
+
+	private static final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	@Param({ "10000000" })
+	public int rows = 10_000_000;
+
+	@Param({ "1000", "1000000" })
+	public int groups = 1000;
+
+	@Param({ "0", "100000" })
+	public int syncThreshold = 100_000;
+
+	private TupleExpr source;
+
+	private StrictEvaluationStrategy strategy;
+
+	@Setup
+	public void setup() {
+		source = new SingletonSet();
+		strategy = new StrictEvaluationStrategy(null, null) {
+
+			@Override
+			public CloseableIteration<BindingSet, QueryEvaluationException> evaluate(TupleExpr expr,
+					BindingSet bindings) throws QueryEvaluationException {
+				if (expr == source) {
+					return new Solutions(rows, groups);
+				}
+				return super.evaluate(expr, bindings);
+			}
+		};
+	}
+
+	@Benchmark
+	public long groupBy() throws Exception {
+		Group group = new Group(source);
+		group.addGroupBindingName("g");
+		group.addGroupElement(new GroupElem("count", new Count(new Var("x"))));
+		group.addGroupElement(new GroupElem("sum", new Sum(new Var("x"))));
+		return consume(new GroupIterator(strategy, group, EmptyBindingSet.getInstance(), syncThreshold));
+	}
+
+	@Benchmark
+	public long orderBy() throws Exception {
+		Order order = new Order(source, new OrderElem(new Var("x"), false));
+		OrderComparator comparator = new OrderComparator(strategy, order, new ValueComparator());
+		return consume(new OrderIterator(new Solutions(rows, groups), comparator, Long.MAX_VALUE, false,
+				syncThreshold));
+	}
+
+	@Benchmark
+	public long orderByDistinct() throws Exception {
+		Order order = new Order(source, new OrderElem(new Var("g"), true));
+		OrderComparator comparator = new OrderComparator(strategy, order, new ValueComparator());
+		return consume(new OrderIterator(new Solutions(rows, groups), comparator, Long.MAX_VALUE, true,
+				syncThreshold));
+	}
+
+	private long consume(CloseableIteration<BindingSet, QueryEvaluationException> iter) {
+		long count = 0;
+		try {
+			while (iter.hasNext()) {
+				iter.next();
+				count++;
+			}
+		} finally {
+			iter.close();
+		}
+		return count;
+	}
+
+	/**
+	 * Generates solutions with a group key <tt>?g</tt> and a pseudo-random number <tt>?x</tt>.
+	 */
+	private static class Solutions extends LookAheadIteration<BindingSet, QueryEvaluationException> {
+
+		private final int rows;
+
+		private final int groups;
+
+		private int row;
+
+		Solutions(int rows, int groups) {
+			this.rows = rows;
+			this.groups = groups;
+		}
+
+		@Override
+		protected BindingSet getNextElement() throws QueryEvaluationException {
+			if (row >= rows) {
+				return null;
+			}
+			int i = row++;
+			QueryBindingSet bindings = new QueryBindingSet(2);
+			bindings.addBinding("g", vf.createIRI("urn:group:", Integer.toString(i % groups)));
+			bindings.addBinding("x", vf.createLiteral((i * 0x9E3779B1) >>> 8));
+			return bindings;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		String regexp = ".*" + GroupOrderSpillBenchmark.class.getSimpleName() + ".*";
+		new Runner(new OptionsBuilder().include(regexp).build()).run();
+	}
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.console.command;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.eclipse.rdf4j.RDF4JConfigException;
+import org.eclipse.rdf4j.console.ConsoleIO;
+import org.eclipse.rdf4j.console.ConsoleState;
+import org.eclipse.rdf4j.console.Util;
+import org.eclipse.rdf4j.console.setting.ConsoleSetting;
+import org.eclipse.rdf4j.console.setting.WorkDir;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.eclipse.rdf4j.repository.config.RepositoryConfig;
+import org.eclipse.rdf4j.repository.manager.LocalRepositoryManager;
+import org.eclipse.rdf4j.repository.manager.RepositoryManager;
+import org.eclipse.rdf4j.repository.sail.config.SailRepositoryConfig;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFParseException;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.UnsupportedRDFormatException;
+import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.config.DelegatingSailImplConfig;
+import org.eclipse.rdf4j.sail.config.SailImplConfig;
+import org.eclipse.rdf4j.sail.nativerdf.NativeBulkLoader;
+import org.eclipse.rdf4j.sail.nativerdf.NativeStore;
+import org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreConfig;
+import org.eclipse.rdf4j.sail.nativerdf.config.NativeStoreFactory;
+
+/**
+ * Bulk load command, for the initial load of a large data file into an empty native store.
+ */
+public class BulkLoad extends ConsoleCommand {
+
+	@Override
+	public String getName() {
+		return "bulkload";
+	}
+
+	@Override
+	public String getHelpShort() {
+		return "Loads a large data file into an empty, local native store";
+	}
+
+	@Override
+	public String getHelpLong() {
+		return PrintHelp.USAGE + "bulkload <repositoryID> <file-or-url> [from <base-uri>] [into <context-id>]\n"
+				+ "  <repositoryID>  The ID of a local repository with an empty native store\n"
+				+ "  <file-or-url>   The path or URL identifying the data file\n"
+				+ "  <base-uri>      The base URI to use for resolving relative references, defaults to <file-or-url>\n"
+				+ "  <context-id>    The ID of the context to add the data to, e.g. foo:bar or _:n123\n"
+				+ "Loads the specified data file into the repository, bypassing transactions and building the\n"
+				+ "store's indexes directly from the sorted data. The repository must not be open.\n";
+	}
+
+	@Override
+	public String[] usesSettings() {
+		return new String[] { WorkDir.NAME };
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param consoleIO
+	 * @param state
+	 * @param settings
+	 */
+	public BulkLoad(ConsoleIO consoleIO, ConsoleState state, Map<String, ConsoleSetting> settings) {
+		super(consoleIO, state, settings);
+	}
+
+	@Override
+	public void execute(final String... tokens) {
+		RepositoryManager manager = state.getManager();
+		if (manager == null) {
+			writeError("Not connected to a repository manager");
+		} else if (!(manager instanceof LocalRepositoryManager)) {
+			writeError("Bulk loading is only supported for local repositories");
+		} else if (tokens.length < 3) {
+			writeln(getHelpLong());
+		} else {
+			String repositoryID = tokens[1];
+			String baseURI = null;
+			String context = null;
+
+			int index = 3;
+			if (tokens.length >= index + 2 && tokens[index].equalsIgnoreCase("from")) {
+				baseURI = tokens[index + 1];
+				index += 2;
+			}
+			if (tokens.length >= index + 2 && tokens[index].equalsIgnoreCase("into")) {
+				context = tokens[index + 1];
+				index += 2;
+			}
+			if (index < tokens.length) {
+				writeln(getHelpLong());
+			} else {
+				bulkLoad((LocalRepositoryManager) manager, repositoryID, tokens[2], baseURI, context);
+			}
+		}
+	}
+
+	/**
+	 * Get working dir setting.
+	 *
+	 * @return path of working dir
+	 */
+	private Path getWorkDir() {
+		return ((WorkDir) settings.get(WorkDir.NAME)).get();
+	}
+
+	/**
+	 * Bulk load a data file into a repository
+	 *
+	 * @param manager      local repository manager
+	 * @param repositoryID ID of the repository
+	 * @param dataPath     path or URL of the data file
+	 * @param baseURI      base URI (can be null)
+	 * @param context      context (can be null)
+	 */
+	private void bulkLoad(LocalRepositoryManager manager, String repositoryID, String dataPath, String baseURI,
+			String context) {
+		try {
+			if (manager.getInitializedRepositoryIDs().contains(repositoryID)) {
+				writeError("Repository '" + repositoryID + "' is in use, bulk loading requires a repository that has "
+						+ "not been opened since the console was started");
+				return;
+			}
+
+			NativeStoreConfig config = getNativeStoreConfig(manager, repositoryID);
+			if (config == null) {
+				writeError("Repository '" + repositoryID + "' is not a local native store");
+				return;
+			}
+
+			NativeStore store = (NativeStore) new NativeStoreFactory().getSail(config);
+			store.setDataDir(manager.getRepositoryDir(repositoryID));
+
+			URL dataURL = null;
+			File dataFile = null;
+			if (Util.isHttpOrFile(dataPath)) {
+				dataURL = new URL(dataPath);
+			} else {
+				dataFile = Util.getNormalizedPath(getWorkDir(), dataPath).toFile();
+			}
+
+			writeln("Loading data...");
+			final long startTime = System.nanoTime();
+			long statementCount;
+			try (NativeBulkLoader loader = store.createBulkLoader()) {
+				try {
+					addData(loader, dataURL, dataFile, baseURI, context);
+				} catch (IOException | RuntimeException e) {
+					// don't leave a partially loaded repository behind
+					loader.abort();
+					throw e;
+				}
+				statementCount = loader.getStatementCount();
+				writeln("Parsed " + statementCount + " statements, building indexes...");
+			}
+			final long endTime = System.nanoTime();
+			writeln("Data has been added to the repository (" + statementCount + " statements, "
+					+ (endTime - startTime) / 1_000_000 + " ms)");
+		} catch (MalformedURLException e) {
+			writeError("Malformed URL: " + dataPath);
+		} catch (IllegalArgumentException | IllegalStateException e) {
+			// Thrown when context URI is invalid or when the store is not empty
+			writeError(e.getMessage());
+		} catch (IOException e) {
+			writeError("Failed to load data", e);
+		} catch (UnsupportedRDFormatException e) {
+			writeError("No parser available for this RDF format");
+		} catch (RDFParseException e) {
+			writeError("Malformed document", e);
+		} catch (RepositoryException | RDF4JConfigException | SailException | RDFHandlerException e) {
+			writeError("Unable to add data to repository", e);
+		}
+	}
+
+	/**
+	 * Get the configuration of the native store of a repository
+	 *
+	 * @param manager      repository manager
+	 * @param repositoryID ID of the repository
+	 * @return native store configuration, or null if the repository does not (directly) use a native store
+	 */
+	private NativeStoreConfig getNativeStoreConfig(RepositoryManager manager, String repositoryID) {
+		RepositoryConfig repositoryConfig = manager.getRepositoryConfig(repositoryID);
+		if (repositoryConfig == null) {
+			throw new IllegalArgumentException("Unknown repository '" + repositoryID + "'");
+		}
+		if (!(repositoryConfig.getRepositoryImplConfig() instanceof SailRepositoryConfig)) {
+			return null;
+		}
+
+		SailImplConfig sailConfig = ((SailRepositoryConfig) repositoryConfig.getRepositoryImplConfig())
+				.getSailImplConfig();
+		while (sailConfig instanceof DelegatingSailImplConfig) {
+			sailConfig = ((DelegatingSailImplConfig) sailConfig).getDelegate();
+		}
+		return sailConfig instanceof NativeStoreConfig ? (NativeStoreConfig) sailConfig : null;
+	}
+
+	/**
+	 * Parse a data file from a URL or local file into the bulk loader. If the dataURL is null, then the datafile will
+	 * be used.
+	 */
+	private void addData(NativeBulkLoader loader, URL dataURL, File dataFile, String baseURI, String context)
+			throws IOException, RDFParseException {
+		String name = dataURL == null ? dataFile.getName() : dataURL.getPath();
+		RDFFormat format = Rio.getParserFormatForFileName(name)
+				.orElseThrow(Rio.unsupportedFormat(name));
+		if (baseURI == null) {
+			baseURI = dataURL == null ? dataFile.toURI().toString() : dataURL.toExternalForm();
+		}
+
+		ValueFactory vf = SimpleValueFactory.getInstance();
+		Resource contextID = null;
+		if (context != null) {
+			contextID = context.startsWith("_:") ? vf.createBNode(context.substring(2)) : vf.createIRI(context);
+		}
+		final Resource fixedContext = contextID;
+
+		RDFParser parser = Rio.createParser(format, vf);
+		parser.setRDFHandler(new AbstractRDFHandler() {
+
+			@Override
+			public void handleStatement(Statement st) throws RDFHandlerException {
+				loader.add(st.getSubject(), st.getPredicate(), st.getObject(),
+						fixedContext != null ? fixedContext : st.getContext());
+			}
+		});
+
+		try (InputStream in = dataURL == null ? Files.newInputStream(dataFile.toPath()) : dataURL.openStream()) {
+			parser.parse(in, baseURI);
+		}
+	}
+}
@@ -10,14 +10,19 @@ package org.eclipse.rdf4j.federated;
 import java.util.Optional;
 
 import org.eclipse.rdf4j.federated.cache.SourceSelectionCache;
+import org.eclipse.rdf4j.federated.cache.SourceSelectionIndex;
 import org.eclipse.rdf4j.federated.cache.SourceSelectionMemoryCache;
 import org.eclipse.rdf4j.federated.evaluation.FederationEvalStrategy;
 import org.eclipse.rdf4j.federated.evaluation.SailFederationEvalStrategy;
 import org.eclipse.rdf4j.federated.evaluation.SparqlFederationEvalStrategy;
 import org.eclipse.rdf4j.federated.evaluation.concurrent.ControlledWorkerScheduler;
 import org.eclipse.rdf4j.federated.evaluation.concurrent.TaskWrapper;
+import org.eclipse.rdf4j.federated.evaluation.concurrent.VirtualThreadScheduler;
+import org.eclipse.rdf4j.federated.evaluation.join.AdaptiveBoundJoinController;
 import org.eclipse.rdf4j.federated.monitoring.QueryLog;
 import org.eclipse.rdf4j.federated.monitoring.QueryPlanLog;
+import org.eclipse.rdf4j.federated.optimizer.DefaultFedXCostModel;
+import org.eclipse.rdf4j.federated.optimizer.StatisticsFedXCostModel;
 import org.eclipse.rdf4j.federated.write.DefaultWriteStrategyFactory;
 import org.eclipse.rdf4j.federated.write.WriteStrategyFactory;
 import org.eclipse.rdf4j.query.Operation;
@@ -58,6 +63,20 @@ public class FedXConfig {
 
 	private String sourceSelectionCacheSpec = null;
 
+	private String sourceSelectionIndexLocation = null;
+
+	private boolean enableStatisticsCostModel = false;
+
+	private boolean enableAdaptiveBoundJoinBlockSize = false;
+
+	private int boundJoinTargetResponseTime = 1000;
+
+	private int maxBoundJoinRequestsPerEndpoint = 0;
+
+	private boolean enableVirtualThreadScheduler = false;
+
+	private int maxConcurrentTasksPerEndpoint = 50;
+
 	private Class<? extends FederationEvalStrategy> sailEvaluationStrategy = SailFederationEvalStrategy.class;
 
 	private Class<? extends FederationEvalStrategy> sparqlEvaluationStrategy = SparqlFederationEvalStrategy.class;
@@ -297,6 +316,115 @@ public class FedXConfig {
 		return this;
 	}
 
+	/**
+	 * The location of the persistent {@link SourceSelectionIndex}. If set, the index is loaded from this file when the
+	 * federation is initialized, and is stored there when the federation is shut down. If not set, no persistent index
+	 * is used.
+	 *
+	 * <p>
+	 * Can only be set before federation initialization.
+	 * </p>
+	 *
+	 * @param location the path of the index file
+	 * @return the current config
+	 * @see SourceSelectionIndex
+	 */
+	public FedXConfig withSourceSelectionIndexLocation(String location) {
+		this.sourceSelectionIndexLocation = location;
+		return this;
+	}
+
+	/**
+	 * Enable the statistics based cost model. See {@link #isEnableStatisticsCostModel()}.
+	 *
+	 * <p>
+	 * Can only be set before federation initialization.
+	 * </p>
+	 *
+	 * @param flag
+	 * @return the current config
+	 */
+	public FedXConfig withEnableStatisticsCostModel(boolean flag) {
+		this.enableStatisticsCostModel = flag;
+		return this;
+	}
+
+	/**
+	 * Enable adaptive bound join block sizes. See {@link #isEnableAdaptiveBoundJoinBlockSize()}.
+	 *
+	 * <p>
+	 * Can only be set before federation initialization.
+	 * </p>
+	 *
+	 * @param flag
+	 * @return the current config
+	 */
+	public FedXConfig withEnableAdaptiveBoundJoinBlockSize(boolean flag) {
+		this.enableAdaptiveBoundJoinBlockSize = flag;
+		return this;
+	}
+
+	/**
+	 * Set the target response time of a bound join request. See {@link #getBoundJoinTargetResponseTime()}.
+	 *
+	 * <p>
+	 * Can only be set before federation initialization.
+	 * </p>
+	 *
+	 * @param responseTime the response time in milliseconds
+	 * @return the current config
+	 */
+	public FedXConfig withBoundJoinTargetResponseTime(int responseTime) {
+		this.boundJoinTargetResponseTime = responseTime;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of concurrent bound join requests per endpoint. See
+	 * {@link #getMaxBoundJoinRequestsPerEndpoint()}.
+	 *
+	 * <p>
+	 * Can only be set before federation initialization.
+	 * </p>
+	 *
+	 * @param maxRequests
+	 * @return the current config
+	 */
+	public FedXConfig withMaxBoundJoinRequestsPerEndpoint(int maxRequests) {
+		this.maxBoundJoinRequestsPerEndpoint = maxRequests;
+		return this;
+	}
+
+	/**
+	 * Enable the {@link VirtualThreadScheduler}. See {@link #isEnableVirtualThreadScheduler()}.
+	 *
+	 * <p>
+	 * Can only be set before federation initialization.
+	 * </p>
+	 *
+	 * @param flag
+	 * @return the current config
+	 */
+	public FedXConfig withEnableVirtualThreadScheduler(boolean flag) {
+		this.enableVirtualThreadScheduler = flag;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of concurrent tasks per endpoint. See {@link #getMaxConcurrentTasksPerEndpoint()}.
+	 *
+	 * <p>
+	 * Can only be set before federation initialization.
+	 * </p>
+	 *
+	 * @param maxTasks
+	 * @return the current config
+	 */
+	public FedXConfig withMaxConcurrentTasksPerEndpoint(int maxTasks) {
+		this.maxConcurrentTasksPerEndpoint = maxTasks;
+		return this;
+	}
+
 	/**
 	 * Sets a {@link TaskWrapper} which may be used for wrapping any background {@link Runnable}s. If no such wrapper is
 	 * explicitly configured, the unmodified task is returned. See {@link TaskWrapper} for more information.
@@ -450,6 +578,84 @@ public class FedXConfig {
 		return this.sourceSelectionCacheSpec;
 	}
 
+	/**
+	 * Returns the location of the persistent {@link SourceSelectionIndex}, if any.
+	 *
+	 * @return the path of the index file or <code>null</code>
+	 */
+	public String getSourceSelectionIndexLocation() {
+		return this.sourceSelectionIndexLocation;
+	}
+
+	/**
+	 * Flag to enable/disable the {@link StatisticsFedXCostModel}, which orders joins and chooses between bound joins
+	 * and hash joins based on the endpoint statistics of the {@link SourceSelectionIndex}. Requires a
+	 * {@link #getSourceSelectionIndexLocation()}. Default=false, i.e. the {@link DefaultFedXCostModel} is used.
+	 *
+	 * @return whether the statistics based cost model is enabled
+	 */
+	public boolean isEnableStatisticsCostModel() {
+		return enableStatisticsCostModel;
+	}
+
+	/**
+	 * Flag to enable/disable adaptive bound join block sizes. If enabled, the block size is adapted per endpoint, using
+	 * {@link #getBoundJoinBlockSize()} as initial size: it is decreased when requests exceed the
+	 * {@link #getBoundJoinTargetResponseTime()}, return many results or fail, and increased when requests are fast.
+	 * The first blocks of a bound join then start small and double in size up to the block size of the endpoints.
+	 * Default=false, i.e. the configured block size is used for all endpoints.
+	 *
+	 * @return whether adaptive bound join block sizes are enabled
+	 * @see AdaptiveBoundJoinController
+	 */
+	public boolean isEnableAdaptiveBoundJoinBlockSize() {
+		return enableAdaptiveBoundJoinBlockSize;
+	}
+
+	/**
+	 * The response time in milliseconds a bound join request should not exceed, if adaptive bound join block sizes are
+	 * enabled. Default is 1000.
+	 *
+	 * @return the target response time in milliseconds
+	 */
+	public int getBoundJoinTargetResponseTime() {
+		return boundJoinTargetResponseTime;
+	}
+
+	/**
+	 * The maximum number of bound join requests that are sent concurrently to a single endpoint. If the limit is
+	 * reached, a bound join waits for one of its requests to complete before sending the next block, such that a slow
+	 * endpoint does not occupy all join worker threads. Default is 0, i.e. no limit.
+	 *
+	 * @return the maximum number of concurrent bound join requests per endpoint
+	 */
+	public int getMaxBoundJoinRequestsPerEndpoint() {
+		return maxBoundJoinRequestsPerEndpoint;
+	}
+
+	/**
+	 * Flag to enable/disable the {@link VirtualThreadScheduler} for join, left join and union operations. If enabled,
+	 * each task runs on its own (virtual, if supported by the JVM) thread, and the number of concurrent tasks is
+	 * limited per endpoint by {@link #getMaxConcurrentTasksPerEndpoint()} instead of by the number of worker threads.
+	 * Default=false, i.e. a {@link ControlledWorkerScheduler} with a fixed number of worker threads is used, see e.g.
+	 * {@link #getJoinWorkerThreads()}.
+	 *
+	 * @return whether the virtual thread scheduler is enabled
+	 */
+	public boolean isEnableVirtualThreadScheduler() {
+		return enableVirtualThreadScheduler;
+	}
+
+	/**
+	 * The maximum number of tasks of a single {@link VirtualThreadScheduler} that are executed concurrently for an
+	 * endpoint. Only applies if {@link #isEnableVirtualThreadScheduler()} is set. Default is 50.
+	 *
+	 * @return the maximum number of concurrent tasks per endpoint
+	 */
+	public int getMaxConcurrentTasksPerEndpoint() {
+		return maxConcurrentTasksPerEndpoint;
+	}
+
 	/**
 	 * Returns the class of the {@link FederationEvalStrategy} implementation that is used in the case of SAIL
 	 * implementations, e.g. for native stores.
@@ -28,6 +28,7 @@ import org.eclipse.rdf4j.federated.evaluation.union.WorkerUnionBase;
 import org.eclipse.rdf4j.federated.repository.FedXRepositoryConnection;
 import org.eclipse.rdf4j.federated.structures.QueryInfo;
 import org.eclipse.rdf4j.federated.structures.QueryType;
+import org.eclipse.rdf4j.federated.structures.SubQuery;
 import org.eclipse.rdf4j.federated.util.FedXUtil;
 import org.eclipse.rdf4j.federated.write.WriteStrategy;
 import org.eclipse.rdf4j.model.IRI;
@@ -318,6 +319,16 @@ public class FedXConnection extends AbstractSailConnection {
 		} catch (RepositoryException e) {
 			throw new SailException(e);
 		}
+
+		// keep the source selection index consistent: the written endpoint must not be excluded for this pattern
+		federationContext.getManager().getSourceSelectionIndex().ifPresent(index -> {
+			SubQuery subQuery = new SubQuery(subj, pred, obj);
+			for (Endpoint e : federation.getMembers()) {
+				if (e.isWritable()) {
+					index.updateSummary(e.getId(), subQuery, true);
+				}
+			}
+		});
 	}
 
 	@Override
@@ -7,6 +7,7 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.federated;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -15,6 +16,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import org.eclipse.rdf4j.federated.cache.SourceSelectionIndex;
 import org.eclipse.rdf4j.federated.endpoint.Endpoint;
 import org.eclipse.rdf4j.federated.endpoint.EndpointClassification;
 import org.eclipse.rdf4j.federated.evaluation.FederationEvalStrategy;
@@ -25,6 +27,7 @@ import org.eclipse.rdf4j.federated.evaluation.concurrent.ControlledWorkerSchedul
 import org.eclipse.rdf4j.federated.evaluation.concurrent.NamingThreadFactory;
 import org.eclipse.rdf4j.federated.evaluation.concurrent.Scheduler;
 import org.eclipse.rdf4j.federated.evaluation.concurrent.TaskWrapper;
+import org.eclipse.rdf4j.federated.evaluation.concurrent.VirtualThreadScheduler;
 import org.eclipse.rdf4j.federated.evaluation.union.ControlledWorkerUnion;
 import org.eclipse.rdf4j.federated.evaluation.union.SynchronousWorkerUnion;
 import org.eclipse.rdf4j.federated.evaluation.union.WorkerUnionBase;
@@ -83,6 +86,7 @@ public class FederationManager {
 	private ControlledWorkerScheduler<BindingSet> joinScheduler;
 	private ControlledWorkerScheduler<BindingSet> leftJoinScheduler;
 	private ControlledWorkerScheduler<BindingSet> unionScheduler;
+	private SourceSelectionIndex sourceSelectionIndex;
 
 	public FederationManager() {
 
@@ -93,6 +97,11 @@ public class FederationManager {
 		this.federationContext = federationContext;
 		this.executor = Executors.newCachedThreadPool(new NamingThreadFactory("FedX Executor"));
 
+		String indexLocation = federationContext.getConfig().getSourceSelectionIndexLocation();
+		if (indexLocation != null) {
+			this.sourceSelectionIndex = new SourceSelectionIndex(new File(indexLocation));
+		}
+
 		updateStrategy();
 		reset();
 	}
@@ -109,26 +118,41 @@ public class FederationManager {
 		if (joinScheduler != null) {
 			joinScheduler.abort();
 		}
-		joinScheduler = new ControlledWorkerScheduler<>(federationContext.getConfig().getJoinWorkerThreads(),
-				"Join Scheduler");
+		joinScheduler = createScheduler(federationContext.getConfig().getJoinWorkerThreads(), "Join Scheduler");
 		taskWrapper.ifPresent(joinScheduler::setTaskWrapper);
 
 		if (unionScheduler != null) {
 			unionScheduler.abort();
 		}
-		unionScheduler = new ControlledWorkerScheduler<>(federationContext.getConfig().getUnionWorkerThreads(),
-				"Union Scheduler");
+		unionScheduler = createScheduler(federationContext.getConfig().getUnionWorkerThreads(), "Union Scheduler");
 		taskWrapper.ifPresent(unionScheduler::setTaskWrapper);
 
 		if (leftJoinScheduler != null) {
 			leftJoinScheduler.abort();
 		}
-		leftJoinScheduler = new ControlledWorkerScheduler<>(federationContext.getConfig().getLeftJoinWorkerThreads(),
+		leftJoinScheduler = createScheduler(federationContext.getConfig().getLeftJoinWorkerThreads(),
 				"Left Join Scheduler");
 		taskWrapper.ifPresent(leftJoinScheduler::setTaskWrapper);
 
 	}
 
+	/**
+	 * Create a scheduler with the given number of worker threads, or a {@link VirtualThreadScheduler} if enabled in the
+	 * {@link FedXConfig}.
+	 *
+	 * @param nWorkers the number of worker threads
+	 * @param name
+	 * @return the scheduler
+	 * @see FedXConfig#isEnableVirtualThreadScheduler()
+	 */
+	protected ControlledWorkerScheduler<BindingSet> createScheduler(int nWorkers, String name) {
+		FedXConfig config = federationContext.getConfig();
+		if (config.isEnableVirtualThreadScheduler()) {
+			return new VirtualThreadScheduler<>(config.getMaxConcurrentTasksPerEndpoint(), name);
+		}
+		return new ControlledWorkerScheduler<>(nWorkers, name);
+	}
+
 	/**
 	 * Returns the managed {@link Executor} which takes for properly handling any configured
 	 * {@link FedXConfig#getTaskWrapper()}
@@ -167,6 +191,17 @@ public class FederationManager {
 		return unionScheduler;
 	}
 
+	/**
+	 * The persistent {@link SourceSelectionIndex} of this federation, which is shared by all evaluation strategies and
+	 * can be used to harvest or invalidate endpoint summaries.
+	 *
+	 * @return the {@link SourceSelectionIndex}, if configured
+	 * @see FedXConfig#getSourceSelectionIndexLocation()
+	 */
+	public Optional<SourceSelectionIndex> getSourceSelectionIndex() {
+		return Optional.ofNullable(sourceSelectionIndex);
+	}
+
 	public FederationType getFederationType() {
 		return type;
 	}
@@ -296,6 +331,14 @@ public class FederationManager {
 			log.warn("Failed to shutdown left join scheduler: " + e.getMessage());
 			log.debug("Details: ", e);
 		}
+		if (sourceSelectionIndex != null) {
+			try {
+				sourceSelectionIndex.persist();
+			} catch (Exception e) {
+				log.warn("Failed to persist source selection index: " + e.getMessage());
+				log.debug("Details: ", e);
+			}
+		}
 		federationContext.getFederatedServiceResolver().shutDown();
 	}
 
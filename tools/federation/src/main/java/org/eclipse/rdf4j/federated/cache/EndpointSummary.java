@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.cache;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.rdf4j.federated.optimizer.StatisticsFedXCostModel;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+
+/**
+ * VoID-like capability profile of a single endpoint, i.e. the predicates and classes for which the endpoint does (or
+ * does not) have data.
+ *
+ * <p>
+ * A summary is <i>complete</i> if it was harvested from the endpoint, in which case any predicate or class not
+ * contained in the summary is absent from the endpoint. Otherwise the summary only contains information learned
+ * incrementally from source selection. Learned absence is only known for the default graph.
+ * </p>
+ *
+ * <p>
+ * In addition, a summary may carry VoID statistics, i.e. the number of triples per predicate and the number of
+ * instances per class, which are used by the {@link StatisticsFedXCostModel}.
+ * </p>
+ *
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @see SourceSelectionIndex
+ */
+public class EndpointSummary {
+
+	private final Map<IRI, Boolean> predicates = new ConcurrentHashMap<>();
+
+	private final Map<IRI, Boolean> classes = new ConcurrentHashMap<>();
+
+	private final Map<IRI, PredicateStatistics> predicateStatistics = new ConcurrentHashMap<>();
+
+	private final Map<IRI, Long> classStatistics = new ConcurrentHashMap<>();
+
+	private volatile boolean complete;
+
+	private volatile long triples = -1;
+
+	public EndpointSummary(boolean complete) {
+		this.complete = complete;
+	}
+
+	/**
+	 *
+	 * @return whether this summary lists all predicates and classes of the endpoint
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Whether the endpoint has statements with the given predicate.
+	 *
+	 * @param predicate
+	 * @param contexts  the contexts of the pattern, length zero array for the default graph
+	 * @return {@link Boolean#TRUE} or {@link Boolean#FALSE}, or <code>null</code> if unknown
+	 */
+	public Boolean hasPredicate(IRI predicate, Resource... contexts) {
+		return lookup(predicates, predicate, contexts);
+	}
+
+	/**
+	 * Whether the endpoint has instances of the given class.
+	 *
+	 * @param type
+	 * @param contexts the contexts of the pattern, length zero array for the default graph
+	 * @return {@link Boolean#TRUE} or {@link Boolean#FALSE}, or <code>null</code> if unknown
+	 */
+	public Boolean hasClass(IRI type, Resource... contexts) {
+		return lookup(classes, type, contexts);
+	}
+
+	/**
+	 * Record whether the endpoint has statements with the given predicate.
+	 *
+	 * @param predicate
+	 * @param present
+	 * @return <code>true</code> if the summary was changed
+	 */
+	public boolean setPredicate(IRI predicate, boolean present) {
+		return update(predicates, predicate, present);
+	}
+
+	/**
+	 * Record whether the endpoint has instances of the given class.
+	 *
+	 * @param type
+	 * @param present
+	 * @return <code>true</code> if the summary was changed
+	 */
+	public boolean setClass(IRI type, boolean present) {
+		return update(classes, type, present);
+	}
+
+	/**
+	 *
+	 * @return the known predicates, mapped to whether they are present
+	 */
+	public Map<IRI, Boolean> getPredicates() {
+		return Collections.unmodifiableMap(predicates);
+	}
+
+	/**
+	 *
+	 * @return the known classes, mapped to whether they are present
+	 */
+	public Map<IRI, Boolean> getClasses() {
+		return Collections.unmodifiableMap(classes);
+	}
+
+	/**
+	 * Record the statistics of a predicate, which implies that the predicate is present if it has triples.
+	 *
+	 * @param predicate
+	 * @param statistics
+	 */
+	public void setPredicateStatistics(IRI predicate, PredicateStatistics statistics) {
+		predicateStatistics.put(predicate, statistics);
+		if (statistics.getTriples() > 0) {
+			setPredicate(predicate, true);
+		}
+	}
+
+	/**
+	 *
+	 * @param predicate
+	 * @return the statistics of the given predicate, or <code>null</code> if unknown
+	 */
+	public PredicateStatistics getPredicateStatistics(IRI predicate) {
+		return predicateStatistics.get(predicate);
+	}
+
+	/**
+	 * Record the number of instances of a class, which implies that the class is present if it has instances.
+	 *
+	 * @param type
+	 * @param entities
+	 */
+	public void setClassStatistics(IRI type, long entities) {
+		classStatistics.put(type, entities);
+		if (entities > 0) {
+			setClass(type, true);
+		}
+	}
+
+	/**
+	 *
+	 * @param type
+	 * @return the number of instances of the given class, or <code>-1</code> if unknown
+	 */
+	public long getClassStatistics(IRI type) {
+		return classStatistics.getOrDefault(type, -1L);
+	}
+
+	/**
+	 *
+	 * @return the total number of triples of the endpoint, or <code>-1</code> if unknown
+	 */
+	public long getTriples() {
+		return triples;
+	}
+
+	public void setTriples(long triples) {
+		this.triples = triples;
+	}
+
+	/**
+	 *
+	 * @return the predicates with known statistics
+	 */
+	public Map<IRI, PredicateStatistics> getPredicateStatistics() {
+		return Collections.unmodifiableMap(predicateStatistics);
+	}
+
+	/**
+	 *
+	 * @return the classes with a known number of instances
+	 */
+	public Map<IRI, Long> getClassStatistics() {
+		return Collections.unmodifiableMap(classStatistics);
+	}
+
+	private Boolean lookup(Map<IRI, Boolean> map, IRI key, Resource... contexts) {
+		Boolean present = map.get(key);
+		if (present == null) {
+			return complete ? Boolean.FALSE : null;
+		}
+		if (!present && contexts.length > 0) {
+			// learned for the default graph only
+			return null;
+		}
+		return present;
+	}
+
+	private boolean update(Map<IRI, Boolean> map, IRI key, boolean present) {
+		if (complete && !present && !map.containsKey(key)) {
+			// already known to be absent
+			return false;
+		}
+		return !Boolean.valueOf(present).equals(map.put(key, present));
+	}
+
+	/**
+	 * Statistics of a VoID property partition
+	 */
+	public static class PredicateStatistics {
+
+		private final long triples;
+		private final long distinctSubjects;
+		private final long distinctObjects;
+
+		public PredicateStatistics(long triples, long distinctSubjects, long distinctObjects) {
+			this.triples = triples;
+			this.distinctSubjects = distinctSubjects;
+			this.distinctObjects = distinctObjects;
+		}
+
+		/**
+		 *
+		 * @return the number of triples with the predicate
+		 */
+		public long getTriples() {
+			return triples;
+		}
+
+		/**
+		 *
+		 * @return the number of distinct subjects of the predicate, or <code>-1</code> if unknown
+		 */
+		public long getDistinctSubjects() {
+			return distinctSubjects;
+		}
+
+		/**
+		 *
+		 * @return the number of distinct objects of the predicate, or <code>-1</code> if unknown
+		 */
+		public long getDistinctObjects() {
+			return distinctObjects;
+		}
+	}
+}
@@ -0,0 +1,386 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.rdf4j.federated.FedXConfig;
+import org.eclipse.rdf4j.federated.cache.EndpointSummary.PredicateStatistics;
+import org.eclipse.rdf4j.federated.endpoint.Endpoint;
+import org.eclipse.rdf4j.federated.exception.FedXRuntimeException;
+import org.eclipse.rdf4j.federated.optimizer.StatisticsFedXCostModel;
+import org.eclipse.rdf4j.federated.structures.SubQuery;
+import org.eclipse.rdf4j.federated.util.Vocabulary.FEDX;
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.util.Models;
+import org.eclipse.rdf4j.model.vocabulary.DCTERMS;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.VOID;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.Rio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent index of {@link EndpointSummary endpoint summaries}, which is used by the
+ * {@link SourceSelectionIndexCache} to answer source selection requests without contacting the endpoints.
+ *
+ * <p>
+ * Summaries are either harvested from the endpoints using {@link #harvest(Endpoint)}, imported from a published VoID
+ * description using {@link #importVoID(String, Model)}, or learned incrementally from the outcome of source selection.
+ * Harvested and imported summaries also provide the statistics for the {@link StatisticsFedXCostModel}.
+ * </p>
+ *
+ * <p>
+ * The index is stored as a VoID description in a local Turtle file, such that a federation starts with the knowledge
+ * of earlier runs. Changes are written using {@link #persist()}, which is invoked when the federation is shut down.
+ * </p>
+ *
+ * <p>
+ * Summaries can get stale when the data of an endpoint changes outside of the federation. Use
+ * {@link #invalidate(String)} or {@link #invalidateAll()} to drop the affected information.
+ * </p>
+ *
+ * @see FedXConfig#withSourceSelectionIndexLocation(String)
+ */
+public class SourceSelectionIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(SourceSelectionIndex.class);
+
+	// the default graph of some stores contains the statements of the named graphs, count distinct triples only
+	private static final String PREDICATE_QUERY = "SELECT ?p (COUNT(*) AS ?triples) "
+			+ "(COUNT(DISTINCT ?s) AS ?subjects) (COUNT(DISTINCT ?o) AS ?objects) "
+			+ "WHERE { SELECT DISTINCT ?s ?p ?o WHERE { { ?s ?p ?o } UNION { GRAPH ?g { ?s ?p ?o } } } } GROUP BY ?p";
+
+	private static final String CLASS_QUERY = "SELECT ?c (COUNT(DISTINCT ?s) AS ?entities) "
+			+ "WHERE { { ?s a ?c } UNION { GRAPH ?g { ?s a ?c } } } GROUP BY ?c";
+
+	private final File file;
+
+	private final Map<String, EndpointSummary> summaries = new ConcurrentHashMap<>();
+
+	private volatile boolean dirty = false;
+
+	/**
+	 * Create the index, and load previously persisted summaries from the given file (if it exists).
+	 *
+	 * @param file the location of the index
+	 */
+	public SourceSelectionIndex(File file) {
+		this.file = file;
+		if (file.exists()) {
+			try {
+				load();
+			} catch (Exception e) {
+				log.warn("Failed to load source selection index from " + file + ": " + e.getMessage());
+				log.debug("Details:", e);
+				summaries.clear();
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @return the location of the index
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 *
+	 * @param endpointId
+	 * @return the summary of the given endpoint, or <code>null</code> if nothing is known
+	 */
+	public EndpointSummary getSummary(String endpointId) {
+		return summaries.get(endpointId);
+	}
+
+	/**
+	 * Harvest a complete summary of the predicates and classes used by the given endpoint, including their VoID
+	 * statistics, replacing any previously known information.
+	 *
+	 * <p>
+	 * Note that this evaluates COUNT queries over all data of the endpoint, and is thus typically done offline.
+	 * </p>
+	 *
+	 * @param endpoint
+	 * @return the harvested summary
+	 */
+	public EndpointSummary harvest(Endpoint endpoint) {
+		log.debug("Harvesting source selection summary of endpoint " + endpoint.getId());
+		EndpointSummary summary = new EndpointSummary(true);
+		long triples = 0;
+		try (RepositoryConnection conn = endpoint.getConnection()) {
+			try (TupleQueryResult res = conn.prepareTupleQuery(QueryLanguage.SPARQL, PREDICATE_QUERY).evaluate()) {
+				while (res.hasNext()) {
+					BindingSet b = res.next();
+					Value predicate = b.getValue("p");
+					if (predicate instanceof IRI) {
+						PredicateStatistics statistics = new PredicateStatistics(count(b, "triples"),
+								count(b, "subjects"), count(b, "objects"));
+						summary.setPredicateStatistics((IRI) predicate, statistics);
+						triples += statistics.getTriples();
+					}
+				}
+			}
+			try (TupleQueryResult res = conn.prepareTupleQuery(QueryLanguage.SPARQL, CLASS_QUERY).evaluate()) {
+				while (res.hasNext()) {
+					BindingSet b = res.next();
+					Value type = b.getValue("c");
+					if (type instanceof IRI) {
+						summary.setClassStatistics((IRI) type, count(b, "entities"));
+					}
+				}
+			}
+		}
+		summary.setTriples(triples);
+		summaries.put(endpoint.getId(), summary);
+		dirty = true;
+		return summary;
+	}
+
+	/**
+	 * Import the statistics of an endpoint from a VoID description, e.g. as published by the dataset provider. The
+	 * first <code>void:Dataset</code> of the model is used, and replaces any previously known information.
+	 *
+	 * <p>
+	 * As a published description does not necessarily list all predicates and classes, the imported summary is not
+	 * considered complete.
+	 * </p>
+	 *
+	 * @param endpointId
+	 * @param voidDescription
+	 * @return the imported summary, or <code>null</code> if the model does not describe a dataset
+	 */
+	public EndpointSummary importVoID(String endpointId, Model voidDescription) {
+		Resource dataset = Models.subject(voidDescription.filter(null, RDF.TYPE, VOID.DATASET)).orElse(null);
+		if (dataset == null) {
+			return null;
+		}
+		EndpointSummary summary = readSummary(voidDescription, dataset, false);
+		summaries.put(endpointId, summary);
+		dirty = true;
+		return summary;
+	}
+
+	/**
+	 * Update the summary of the given endpoint with the outcome of a source selection check.
+	 *
+	 * @param endpointId
+	 * @param subQuery
+	 * @param hasStatements whether the endpoint has statements for the sub query
+	 */
+	public void updateSummary(String endpointId, SubQuery subQuery, boolean hasStatements) {
+		IRI predicate = subQuery.predicate();
+		if (predicate == null) {
+			return;
+		}
+		Value obj = subQuery.object();
+		boolean typePattern = RDF.TYPE.equals(predicate) && obj instanceof IRI;
+
+		// absence of a pattern implies absence of the predicate or class if that is all that is bound
+		boolean changed = false;
+		if (hasStatements) {
+			EndpointSummary summary = summaries.computeIfAbsent(endpointId, id -> new EndpointSummary(false));
+			changed = summary.setPredicate(predicate, true);
+			if (typePattern) {
+				changed |= summary.setClass((IRI) obj, true);
+			}
+		} else if (subQuery.subject() == null && subQuery.contexts().length == 0) {
+			if (obj == null) {
+				EndpointSummary summary = summaries.computeIfAbsent(endpointId, id -> new EndpointSummary(false));
+				changed = summary.setPredicate(predicate, false);
+			} else if (typePattern) {
+				EndpointSummary summary = summaries.computeIfAbsent(endpointId, id -> new EndpointSummary(false));
+				changed = summary.setClass((IRI) obj, false);
+			}
+		}
+		if (changed) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Drop all information about the given endpoint, e.g. because its data has changed.
+	 *
+	 * @param endpointId
+	 */
+	public void invalidate(String endpointId) {
+		if (summaries.remove(endpointId) != null) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Drop all information about all endpoints.
+	 */
+	public void invalidateAll() {
+		summaries.clear();
+		dirty = true;
+	}
+
+	/**
+	 * Write the index to its file, if it was changed since it was loaded or last persisted. The file is replaced
+	 * atomically, if supported by the file system.
+	 *
+	 * @throws FedXRuntimeException if the index cannot be written
+	 */
+	public synchronized void persist() {
+		if (!dirty) {
+			return;
+		}
+		dirty = false;
+
+		ValueFactory vf = SimpleValueFactory.getInstance();
+		Model model = new LinkedHashModel();
+		model.setNamespace("void", VOID.NAMESPACE);
+		model.setNamespace("dcterms", DCTERMS.NAMESPACE);
+		model.setNamespace("fedx", FEDX.NAMESPACE);
+		for (Map.Entry<String, EndpointSummary> entry : summaries.entrySet()) {
+			EndpointSummary summary = entry.getValue();
+			BNode dataset = vf.createBNode();
+			model.add(dataset, RDF.TYPE, VOID.DATASET);
+			model.add(dataset, DCTERMS.IDENTIFIER, vf.createLiteral(entry.getKey()));
+			model.add(dataset, FEDX.SUMMARY_COMPLETE, vf.createLiteral(summary.isComplete()));
+			addCount(model, dataset, VOID.TRIPLES, summary.getTriples());
+			summary.getPredicates().forEach((predicate, present) -> {
+				if (present) {
+					BNode partition = vf.createBNode();
+					model.add(dataset, VOID.PROPERTY_PARTITION, partition);
+					model.add(partition, VOID.PROPERTY, predicate);
+					PredicateStatistics statistics = summary.getPredicateStatistics(predicate);
+					if (statistics != null) {
+						addCount(model, partition, VOID.TRIPLES, statistics.getTriples());
+						addCount(model, partition, VOID.DISTINCT_SUBJECTS, statistics.getDistinctSubjects());
+						addCount(model, partition, VOID.DISTINCT_OBJECTS, statistics.getDistinctObjects());
+					}
+				} else {
+					model.add(dataset, FEDX.ABSENT_PROPERTY, predicate);
+				}
+			});
+			summary.getClasses().forEach((type, present) -> {
+				if (present) {
+					BNode partition = vf.createBNode();
+					model.add(dataset, VOID.CLASS_PARTITION, partition);
+					model.add(partition, VOID.CLASS, type);
+					addCount(model, partition, VOID.ENTITIES, summary.getClassStatistics(type));
+				} else {
+					model.add(dataset, FEDX.ABSENT_CLASS, type);
+				}
+			});
+		}
+
+		try {
+			File dir = file.getAbsoluteFile().getParentFile();
+			Files.createDirectories(dir.toPath());
+			File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+			try {
+				try (OutputStream out = Files.newOutputStream(tmp.toPath())) {
+					Rio.write(model, out, RDFFormat.TURTLE);
+				}
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(tmp.toPath());
+			}
+		} catch (IOException e) {
+			dirty = true;
+			throw new FedXRuntimeException("Failed to persist source selection index to " + file, e);
+		}
+		log.debug("Persisted source selection index with " + summaries.size() + " endpoints to " + file);
+	}
+
+	private void load() throws IOException {
+		Model model;
+		try (InputStream in = Files.newInputStream(file.toPath())) {
+			model = Rio.parse(in, file.toURI().toString(), RDFFormat.TURTLE);
+		}
+		for (Resource dataset : model.filter(null, RDF.TYPE, VOID.DATASET).subjects()) {
+			String endpointId = Models.objectString(model.filter(dataset, DCTERMS.IDENTIFIER, null)).orElse(null);
+			if (endpointId == null) {
+				continue;
+			}
+			boolean complete = Models.objectLiteral(model.filter(dataset, FEDX.SUMMARY_COMPLETE, null))
+					.map(Literal::booleanValue)
+					.orElse(false);
+			summaries.put(endpointId, readSummary(model, dataset, complete));
+		}
+		log.debug("Loaded source selection index with " + summaries.size() + " endpoints from " + file);
+	}
+
+	private static EndpointSummary readSummary(Model model, Resource dataset, boolean complete) {
+		EndpointSummary summary = new EndpointSummary(complete);
+		summary.setTriples(readCount(model, dataset, VOID.TRIPLES));
+		for (Resource partition : Models.objectResources(model.filter(dataset, VOID.PROPERTY_PARTITION, null))) {
+			IRI predicate = Models.objectIRI(model.filter(partition, VOID.PROPERTY, null)).orElse(null);
+			if (predicate == null) {
+				continue;
+			}
+			summary.setPredicate(predicate, true);
+			long triples = readCount(model, partition, VOID.TRIPLES);
+			if (triples >= 0) {
+				summary.setPredicateStatistics(predicate, new PredicateStatistics(triples,
+						readCount(model, partition, VOID.DISTINCT_SUBJECTS),
+						readCount(model, partition, VOID.DISTINCT_OBJECTS)));
+			}
+		}
+		for (Resource partition : Models.objectResources(model.filter(dataset, VOID.CLASS_PARTITION, null))) {
+			IRI type = Models.objectIRI(model.filter(partition, VOID.CLASS, null)).orElse(null);
+			if (type == null) {
+				continue;
+			}
+			summary.setClass(type, true);
+			long entities = readCount(model, partition, VOID.ENTITIES);
+			if (entities >= 0) {
+				summary.setClassStatistics(type, entities);
+			}
+		}
+		for (IRI predicate : Models.objectIRIs(model.filter(dataset, FEDX.ABSENT_PROPERTY, null))) {
+			summary.setPredicate(predicate, false);
+		}
+		for (IRI type : Models.objectIRIs(model.filter(dataset, FEDX.ABSENT_CLASS, null))) {
+			summary.setClass(type, false);
+		}
+		return summary;
+	}
+
+	private static long readCount(Model model, Resource subject, IRI property) {
+		return Models.objectLiteral(model.filter(subject, property, null)).map(Literal::longValue).orElse(-1L);
+	}
+
+	private static void addCount(Model model, Resource subject, IRI property, long count) {
+		if (count >= 0) {
+			model.add(subject, property, SimpleValueFactory.getInstance().createLiteral(count));
+		}
+	}
+
+	private static long count(BindingSet b, String name) {
+		Value value = b.getValue(name);
+		return value instanceof Literal ? ((Literal) value).longValue() : -1;
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.cache;
+
+import org.eclipse.rdf4j.federated.endpoint.Endpoint;
+import org.eclipse.rdf4j.federated.structures.SubQuery;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+
+/**
+ * A {@link SourceSelectionCache} which answers requests from the endpoint summaries of a persistent
+ * {@link SourceSelectionIndex}, and falls back to a delegate cache (typically a {@link SourceSelectionMemoryCache})
+ * otherwise.
+ *
+ * <p>
+ * The summaries decide on patterns with a bound predicate:
+ * </p>
+ *
+ * <ul>
+ * <li>if the predicate (or the class of an <code>rdf:type</code> pattern) is absent from the endpoint, the endpoint
+ * cannot provide statements for the pattern</li>
+ * <li>if it is present and the subject and object are unbound (or the object is the class), the endpoint has
+ * statements for the pattern</li>
+ * </ul>
+ *
+ * <p>
+ * Updates are passed to the delegate, and are used to incrementally learn the summaries.
+ * </p>
+ */
+public class SourceSelectionIndexCache implements SourceSelectionCache {
+
+	private final SourceSelectionIndex index;
+
+	private final SourceSelectionCache delegate;
+
+	public SourceSelectionIndexCache(SourceSelectionIndex index, SourceSelectionCache delegate) {
+		this.index = index;
+		this.delegate = delegate;
+	}
+
+	@Override
+	public StatementSourceAssurance getAssurance(SubQuery subQuery, Endpoint endpoint) {
+		IRI predicate = subQuery.predicate();
+		EndpointSummary summary = index.getSummary(endpoint.getId());
+		if (summary == null || predicate == null) {
+			return delegate.getAssurance(subQuery, endpoint);
+		}
+
+		if (Boolean.FALSE.equals(summary.hasPredicate(predicate, subQuery.contexts()))) {
+			return StatementSourceAssurance.NONE;
+		}
+
+		Value obj = subQuery.object();
+		Boolean present;
+		if (RDF.TYPE.equals(predicate) && obj instanceof IRI) {
+			present = summary.hasClass((IRI) obj, subQuery.contexts());
+		} else if (obj == null) {
+			present = summary.hasPredicate(predicate, subQuery.contexts());
+		} else {
+			present = null;
+		}
+
+		if (Boolean.FALSE.equals(present)) {
+			return StatementSourceAssurance.NONE;
+		}
+		if (Boolean.TRUE.equals(present) && subQuery.subject() == null && subQuery.contexts().length == 0) {
+			return StatementSourceAssurance.HAS_REMOTE_STATEMENTS;
+		}
+		return delegate.getAssurance(subQuery, endpoint);
+	}
+
+	@Override
+	public void updateInformation(SubQuery subQuery, Endpoint endpoint, boolean hasStatements) {
+		delegate.updateInformation(subQuery, endpoint, hasStatements);
+		index.updateSummary(endpoint.getId(), subQuery, hasStatements);
+	}
+}
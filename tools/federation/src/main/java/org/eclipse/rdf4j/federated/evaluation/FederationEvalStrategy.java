@@ -7,7 +7,9 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.federated.evaluation;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -35,14 +37,18 @@ import org.eclipse.rdf4j.federated.algebra.StatementSource;
 import org.eclipse.rdf4j.federated.algebra.StatementTupleExpr;
 import org.eclipse.rdf4j.federated.cache.CacheUtils;
 import org.eclipse.rdf4j.federated.cache.SourceSelectionCache;
+import org.eclipse.rdf4j.federated.cache.SourceSelectionIndex;
+import org.eclipse.rdf4j.federated.cache.SourceSelectionIndexCache;
 import org.eclipse.rdf4j.federated.cache.SourceSelectionMemoryCache;
 import org.eclipse.rdf4j.federated.endpoint.Endpoint;
 import org.eclipse.rdf4j.federated.evaluation.concurrent.ControlledWorkerScheduler;
 import org.eclipse.rdf4j.federated.evaluation.concurrent.ParallelServiceExecutor;
 import org.eclipse.rdf4j.federated.evaluation.iterator.SingleBindingSetIteration;
+import org.eclipse.rdf4j.federated.evaluation.join.AdaptiveBoundJoinController;
 import org.eclipse.rdf4j.federated.evaluation.join.ControlledWorkerBoundJoin;
 import org.eclipse.rdf4j.federated.evaluation.join.ControlledWorkerJoin;
 import org.eclipse.rdf4j.federated.evaluation.join.ControlledWorkerLeftJoin;
+import org.eclipse.rdf4j.federated.evaluation.join.HashJoin;
 import org.eclipse.rdf4j.federated.evaluation.join.SynchronousBoundJoin;
 import org.eclipse.rdf4j.federated.evaluation.join.SynchronousJoin;
 import org.eclipse.rdf4j.federated.evaluation.union.ControlledWorkerUnion;
@@ -56,17 +62,20 @@ import org.eclipse.rdf4j.federated.exception.FedXRuntimeException;
 import org.eclipse.rdf4j.federated.exception.IllegalQueryException;
 import org.eclipse.rdf4j.federated.optimizer.DefaultFedXCostModel;
 import org.eclipse.rdf4j.federated.optimizer.ExclusiveTupleExprOptimizer;
+import org.eclipse.rdf4j.federated.optimizer.FedXCostModel;
 import org.eclipse.rdf4j.federated.optimizer.FilterOptimizer;
 import org.eclipse.rdf4j.federated.optimizer.GenericInfoOptimizer;
 import org.eclipse.rdf4j.federated.optimizer.LimitOptimizer;
 import org.eclipse.rdf4j.federated.optimizer.ServiceOptimizer;
 import org.eclipse.rdf4j.federated.optimizer.SourceSelection;
 import org.eclipse.rdf4j.federated.optimizer.StatementGroupAndJoinOptimizer;
+import org.eclipse.rdf4j.federated.optimizer.StatisticsFedXCostModel;
 import org.eclipse.rdf4j.federated.optimizer.UnionOptimizer;
 import org.eclipse.rdf4j.federated.structures.FedXDataset;
 import org.eclipse.rdf4j.federated.structures.QueryInfo;
 import org.eclipse.rdf4j.federated.structures.QueryType;
 import org.eclipse.rdf4j.federated.util.FedXUtil;
+import org.eclipse.rdf4j.federated.util.QueryAlgebraUtil;
 import org.eclipse.rdf4j.federated.util.QueryStringUtil;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Resource;
@@ -79,6 +88,7 @@ import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.Dataset;
 import org.eclipse.rdf4j.query.MalformedQueryException;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.LeftJoin;
 import org.eclipse.rdf4j.query.algebra.QueryRoot;
 import org.eclipse.rdf4j.query.algebra.Service;
 import org.eclipse.rdf4j.query.algebra.TupleExpr;
@@ -118,6 +128,8 @@ public abstract class FederationEvalStrategy extends StrictEvaluationStrategy {
 
 	protected Executor executor;
 	protected SourceSelectionCache cache;
+	protected FedXCostModel costModel;
+	protected AdaptiveBoundJoinController boundJoinController;
 
 	protected FederationContext federationContext;
 
@@ -142,6 +154,8 @@ public abstract class FederationEvalStrategy extends StrictEvaluationStrategy {
 		this.federationContext = federationContext;
 		this.executor = federationContext.getManager().getExecutor();
 		this.cache = createSourceSelectionCache();
+		this.costModel = createCostModel();
+		this.boundJoinController = new AdaptiveBoundJoinController(federationContext.getConfig());
 	}
 
 	/**
@@ -149,10 +163,42 @@ public abstract class FederationEvalStrategy extends StrictEvaluationStrategy {
 	 *
 	 * @return the {@link SourceSelectionCache}
 	 * @see FedXConfig#getSourceSelectionCacheSpec()
+	 * @see FedXConfig#getSourceSelectionIndexLocation()
 	 */
 	protected SourceSelectionCache createSourceSelectionCache() {
 		String cacheSpec = federationContext.getConfig().getSourceSelectionCacheSpec();
-		return new SourceSelectionMemoryCache(cacheSpec);
+		SourceSelectionCache cache = new SourceSelectionMemoryCache(cacheSpec);
+		Optional<SourceSelectionIndex> index = federationContext.getManager().getSourceSelectionIndex();
+		if (index.isPresent()) {
+			return new SourceSelectionIndexCache(index.get(), cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Create the {@link FedXCostModel} used for join ordering
+	 *
+	 * @return the {@link FedXCostModel}
+	 * @see FedXConfig#isEnableStatisticsCostModel()
+	 */
+	protected FedXCostModel createCostModel() {
+		if (federationContext.getConfig().isEnableStatisticsCostModel()) {
+			Optional<SourceSelectionIndex> index = federationContext.getManager().getSourceSelectionIndex();
+			if (index.isPresent()) {
+				return new StatisticsFedXCostModel(index.get());
+			}
+			log.warn("The statistics cost model requires a source selection index, using the default cost model.");
+		}
+		return DefaultFedXCostModel.INSTANCE;
+	}
+
+	/**
+	 *
+	 * @return the {@link AdaptiveBoundJoinController} which controls the block sizes and concurrent requests of bound
+	 *         joins per endpoint
+	 */
+	public AdaptiveBoundJoinController getBoundJoinController() {
+		return boundJoinController;
 	}
 
 	@Override
@@ -274,7 +320,7 @@ public abstract class FederationEvalStrategy extends StrictEvaluationStrategy {
 
 	protected void optimizeJoinOrder(TupleExpr query, QueryInfo queryInfo, GenericInfoOptimizer info) {
 		// optimize statement groups and join order
-		new StatementGroupAndJoinOptimizer(queryInfo, DefaultFedXCostModel.INSTANCE).optimize(query);
+		new StatementGroupAndJoinOptimizer(queryInfo, costModel).optimize(query);
 	}
 
 	/**
@@ -451,12 +497,115 @@ public abstract class FederationEvalStrategy extends StrictEvaluationStrategy {
 
 		for (int i = 1, n = join.getNumberOfArguments(); i < n; i++) {
 
+			if (isHashJoinPreferred(join, i)) {
+				result = executeHashJoin(result, join.getArg(i), getHashJoinVariables(join, i), bindings,
+						join.getQueryInfo());
+				continue;
+			}
 			result = executeJoin(joinScheduler, result, join.getArg(i), join.getJoinVariables(i), bindings,
 					join.getQueryInfo());
 		}
 		return result;
 	}
 
+	/**
+	 * Whether the join argument with the given index is evaluated using a {@link HashJoin} rather than using
+	 * {@link #executeJoin(ControlledWorkerScheduler, CloseableIteration, TupleExpr, Set, BindingSet, QueryInfo)}.
+	 * Only the {@link StatisticsFedXCostModel} prefers hash joins, based on the estimated number of results.
+	 *
+	 * @param join
+	 * @param index the index of the join argument, starting with 1
+	 * @return whether a {@link HashJoin} is used
+	 */
+	protected boolean isHashJoinPreferred(NJoin join, int index) {
+		if (!(costModel instanceof StatisticsFedXCostModel)) {
+			return false;
+		}
+		// the hash table lookup requires that the join variables are bound on both sides
+		Set<String> leftAssuredVars = new HashSet<>();
+		for (int i = 0; i < index; i++) {
+			leftAssuredVars.addAll(getAssuredVariables(join.getArg(i)));
+		}
+		Set<String> joinVars = getHashJoinVariables(join, index);
+		if (!leftAssuredVars.containsAll(joinVars) || !getAssuredVariables(join.getArg(index)).containsAll(joinVars)) {
+			return false;
+		}
+		TupleExpr rightArg = join.getArg(index);
+		int blockSize = federationContext.getConfig().getBoundJoinBlockSize();
+		if (rightArg instanceof StatementTupleExpr) {
+			blockSize = boundJoinController
+					.getBlockSize(AdaptiveBoundJoinController.getEndpointIds((StatementTupleExpr) rightArg));
+		}
+		return ((StatisticsFedXCostModel) costModel).isHashJoinPreferred(join, index, blockSize);
+	}
+
+	/**
+	 * Execute a {@link HashJoin} of the results of the left join arguments with the given right join argument, which
+	 * is evaluated only once.
+	 *
+	 * @param leftIter
+	 * @param rightArg
+	 * @param joinVariables the variables of the right join argument which are bound by the left join arguments
+	 * @param bindings
+	 * @param queryInfo
+	 * @return the result
+	 * @throws QueryEvaluationException
+	 */
+	protected CloseableIteration<BindingSet, QueryEvaluationException> executeHashJoin(
+			CloseableIteration<BindingSet, QueryEvaluationException> leftIter, TupleExpr rightArg,
+			Set<String> joinVariables, BindingSet bindings, QueryInfo queryInfo) throws QueryEvaluationException {
+
+		HashJoin join = new HashJoin(this, leftIter, rightArg, joinVariables, bindings, queryInfo);
+		executor.execute(join);
+		return join;
+	}
+
+	/**
+	 * The variables of the join argument with the given index which are shared with any of the preceding arguments.
+	 * Note that {@link NJoin#getJoinVariables(int)} only considers the directly preceding argument.
+	 */
+	private Set<String> getHashJoinVariables(NJoin join, int index) {
+		Set<String> joinVars = new HashSet<>();
+		for (int i = 0; i < index; i++) {
+			joinVars.addAll(QueryAlgebraUtil.getFreeVars(join.getArg(i)));
+		}
+		joinVars.retainAll(QueryAlgebraUtil.getFreeVars(join.getArg(index)));
+		return joinVars;
+	}
+
+	/**
+	 * The variables which are bound in every result of the given expression, e.g. not the variables of an OPTIONAL
+	 * clause or of only one branch of a UNION. Expressions which are not known return an empty set.
+	 */
+	private static Set<String> getAssuredVariables(TupleExpr expr) {
+		if (expr instanceof StatementTupleExpr || expr instanceof ExclusiveTupleExpr) {
+			return new HashSet<>(QueryAlgebraUtil.getFreeVars(expr));
+		}
+		if (expr instanceof NJoin) {
+			Set<String> res = new HashSet<>();
+			for (TupleExpr arg : ((NJoin) expr).getArgs()) {
+				res.addAll(getAssuredVariables(arg));
+			}
+			return res;
+		}
+		if (expr instanceof NUnion) {
+			Set<String> res = null;
+			for (TupleExpr arg : ((NUnion) expr).getArgs()) {
+				Set<String> argVars = getAssuredVariables(arg);
+				if (res == null) {
+					res = argVars;
+				} else {
+					res.retainAll(argVars);
+				}
+			}
+			return res != null ? res : new HashSet<>();
+		}
+		if (expr instanceof LeftJoin) {
+			return getAssuredVariables(((LeftJoin) expr).getLeftArg());
+		}
+		return new HashSet<>();
+	}
+
 	/**
 	 * Evaluate a {@link FedXLeftJoin} (i.e. an OPTIONAL clause)
 	 *
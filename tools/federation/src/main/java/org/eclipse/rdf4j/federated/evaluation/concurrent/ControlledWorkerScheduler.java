@@ -40,13 +40,13 @@ public class ControlledWorkerScheduler<T> implements Scheduler<T>, TaskWrapperAw
 
 	private static final Logger log = LoggerFactory.getLogger(ControlledWorkerScheduler.class);
 
-	private final ExecutorService executor;
+	protected final ExecutorService executor;
 
 	private final LinkedBlockingQueue<Runnable> _taskQueue = new LinkedBlockingQueue<>();
 
-	private final int nWorkers;
-	private final String name;
-	private TaskWrapper taskWrapper;
+	protected final int nWorkers;
+	protected final String name;
+	protected TaskWrapper taskWrapper;
 
 	/**
 	 * Construct a new instance with 20 workers.
@@ -120,7 +120,12 @@ public class ControlledWorkerScheduler<T> implements Scheduler<T>, TaskWrapperAw
 		return _taskQueue.size();
 	}
 
-	private ExecutorService createExecutorService() {
+	/**
+	 * Create the {@link ExecutorService} executing the tasks. Note that this method is called from the constructor.
+	 *
+	 * @return the {@link ExecutorService}
+	 */
+	protected ExecutorService createExecutorService() {
 
 		ThreadPoolExecutor executor = new ThreadPoolExecutor(nWorkers, nWorkers, 60L, TimeUnit.SECONDS, _taskQueue,
 				new NamingThreadFactory(name));
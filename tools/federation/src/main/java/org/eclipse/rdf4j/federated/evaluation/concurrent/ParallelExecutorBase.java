@@ -99,8 +99,13 @@ public abstract class ParallelExecutorBase<T> extends LookAheadIteration<T, Quer
 		try {
 			rightQueue.put(res);
 		} catch (InterruptedException e) {
+			res.close();
 			throw new RuntimeException("Error adding element to right queue", e);
 		}
+		if (rightQueue.isClosed()) {
+			// the result is not consumed anymore, and may hold resources until it is closed
+			res.close();
+		}
 	}
 
 	@Override
@@ -7,6 +7,9 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.federated.evaluation.concurrent;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.federated.structures.QueryInfo;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
@@ -37,6 +40,16 @@ public interface ParallelTask<T> {
 		return getControl().getQueryInfo();
 	}
 
+	/**
+	 * The identifiers of the endpoints which are queried by this task, e.g. used for limiting the number of concurrent
+	 * tasks per endpoint.
+	 *
+	 * @return the endpoint identifiers, or an empty collection if unknown
+	 */
+	public default Collection<String> getEndpointIds() {
+		return Collections.emptyList();
+	}
+
 	/**
 	 * Optional implementation to cancel this task on a best effort basis
 	 */
@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.evaluation.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.rdf4j.federated.FedXConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link ControlledWorkerScheduler} which runs each task on its own thread, rather than on a fixed number of worker
+ * threads. Instead, the number of concurrent tasks is limited per endpoint (see {@link ParallelTask#getEndpointIds()}),
+ * such that highly parallel queries are not limited by the pool size, while a single endpoint is not flooded with
+ * requests. Tasks for which the endpoints are unknown share a single limit.
+ *
+ * <p>
+ * If the JVM supports virtual threads (Java 21 and later), tasks are run on virtual threads. Otherwise a new thread is
+ * created for a task if no idle thread is available, and idle threads are discarded after 60 seconds.
+ * </p>
+ *
+ * <p>
+ * Tasks wait in a FIFO queue until a permit for each of their endpoints is available. A task is not started before an
+ * earlier task which shares an endpoint with it, such that a task for several endpoints is not starved by the tasks
+ * for a single one of them. A task for an endpoint which has reached its limit does not delay the tasks for other
+ * endpoints.
+ * </p>
+ *
+ * @see FedXConfig#withEnableVirtualThreadScheduler(boolean)
+ * @see FedXConfig#getMaxConcurrentTasksPerEndpoint()
+ */
+public class VirtualThreadScheduler<T> extends ControlledWorkerScheduler<T> {
+
+	private static final Logger log = LoggerFactory.getLogger(VirtualThreadScheduler.class);
+
+	// the key of the limit for tasks with unknown endpoints
+	private static final String UNKNOWN_ENDPOINT = "";
+
+	private final int maxTasksPerEndpoint;
+
+	private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+	private final LinkedList<PendingTask> pendingTasks = new LinkedList<>();
+
+	/**
+	 * Construct a new instance with the given limit of concurrent tasks per endpoint and the given name.
+	 *
+	 * @param maxTasksPerEndpoint the maximum number of concurrent tasks per endpoint
+	 * @param name
+	 */
+	public VirtualThreadScheduler(int maxTasksPerEndpoint, String name) {
+		super(maxTasksPerEndpoint, name);
+		this.maxTasksPerEndpoint = Math.max(1, maxTasksPerEndpoint);
+	}
+
+	@Override
+	public void schedule(ParallelTask<T> task) {
+
+		FutureTask<Void> future = new FutureTask<>(new WorkerRunnable(task), null);
+
+		// register the future to the task, such that the task can be cancelled while it is pending
+		if (task instanceof ParallelTaskBase<?>) {
+			((ParallelTaskBase<?>) task).setScheduledFuture(future);
+		}
+		task.getQueryInfo().registerScheduledTask(task);
+
+		List<String> endpointIds = new ArrayList<>(task.getEndpointIds());
+		if (endpointIds.isEmpty()) {
+			endpointIds.add(UNKNOWN_ENDPOINT);
+		}
+		// permits are acquired in the order of the endpoint identifiers
+		endpointIds.sort(null);
+
+		synchronized (pendingTasks) {
+			pendingTasks.add(new PendingTask(future, endpointIds));
+		}
+		dispatch();
+	}
+
+	@Override
+	public int getNumberOfTasks() {
+		synchronized (pendingTasks) {
+			return pendingTasks.size();
+		}
+	}
+
+	@Override
+	public void abort() {
+		clearPendingTasks();
+		super.abort();
+	}
+
+	@Override
+	public void shutdown() {
+		clearPendingTasks();
+		super.shutdown();
+	}
+
+	@Override
+	protected ExecutorService createExecutorService() {
+		ExecutorService virtualThreadExecutor = createVirtualThreadExecutor();
+		if (virtualThreadExecutor != null) {
+			return virtualThreadExecutor;
+		}
+		log.debug("Virtual threads are not supported by the JVM, using a thread per task for " + name);
+		return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+				new NamingThreadFactory(name));
+	}
+
+	/**
+	 * Execute all pending tasks for which a permit of each endpoint is available, in the order in which they were
+	 * scheduled. The endpoints of a task that has to wait are reserved for it, i.e. later tasks for these endpoints
+	 * wait as well.
+	 */
+	private void dispatch() {
+		List<PendingTask> executable = new ArrayList<>();
+		synchronized (pendingTasks) {
+			Set<String> reserved = new HashSet<>();
+			Iterator<PendingTask> iter = pendingTasks.iterator();
+			while (iter.hasNext()) {
+				PendingTask pending = iter.next();
+				if (pending.future.isCancelled()) {
+					iter.remove();
+				} else if (Collections.disjoint(reserved, pending.endpointIds) && tryAcquire(pending.endpointIds)) {
+					iter.remove();
+					executable.add(pending);
+				} else {
+					reserved.addAll(pending.endpointIds);
+				}
+			}
+		}
+		for (PendingTask pending : executable) {
+			execute(pending);
+		}
+	}
+
+	private void execute(PendingTask pending) {
+		Runnable runnable = () -> {
+			try {
+				pending.future.run();
+			} finally {
+				release(pending.endpointIds);
+				dispatch();
+			}
+		};
+
+		// Note: for specific use-cases the runnable may be wrapped (e.g. to allow injection of thread-contexts). By
+		// default the unmodified runnable is used
+		if (taskWrapper != null) {
+			runnable = taskWrapper.wrap(runnable);
+		}
+
+		try {
+			executor.execute(runnable);
+		} catch (RejectedExecutionException e) {
+			// the scheduler has been shut down
+			release(pending.endpointIds);
+			pending.future.cancel(false);
+		}
+	}
+
+	private boolean tryAcquire(List<String> endpointIds) {
+		for (int i = 0; i < endpointIds.size(); i++) {
+			if (!getPermits(endpointIds.get(i)).tryAcquire()) {
+				release(endpointIds.subList(0, i));
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void release(List<String> endpointIds) {
+		for (String endpointId : endpointIds) {
+			getPermits(endpointId).release();
+		}
+	}
+
+	private Semaphore getPermits(String endpointId) {
+		return permits.computeIfAbsent(endpointId, id -> new Semaphore(maxTasksPerEndpoint));
+	}
+
+	private void clearPendingTasks() {
+		synchronized (pendingTasks) {
+			for (PendingTask pending : pendingTasks) {
+				pending.future.cancel(false);
+			}
+			pendingTasks.clear();
+		}
+	}
+
+	/**
+	 * Create an {@link ExecutorService} which runs each task on a new virtual thread, using reflection as virtual
+	 * threads are only available as of Java 21.
+	 *
+	 * @return the {@link ExecutorService}, or <code>null</code> if virtual threads are not supported
+	 */
+	private static ExecutorService createVirtualThreadExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A scheduled task, waiting for the permits of its endpoints
+	 */
+	private static class PendingTask {
+		private final FutureTask<Void> future;
+		private final List<String> endpointIds;
+
+		private PendingTask(FutureTask<Void> future, List<String> endpointIds) {
+			this.future = future;
+			this.endpointIds = endpointIds;
+		}
+	}
+}
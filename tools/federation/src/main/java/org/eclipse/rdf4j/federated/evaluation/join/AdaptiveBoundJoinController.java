@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.evaluation.join;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.rdf4j.federated.FedXConfig;
+import org.eclipse.rdf4j.federated.algebra.StatementSource;
+import org.eclipse.rdf4j.federated.algebra.StatementTupleExpr;
+import org.eclipse.rdf4j.query.QueryInterruptedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Controls the requests of bound joins per endpoint, i.e. the number of bindings that are sent in a single VALUES
+ * request, and the number of requests that are executed concurrently.
+ *
+ * <p>
+ * If {@link FedXConfig#isEnableAdaptiveBoundJoinBlockSize()} is set, the block size of each endpoint starts with the
+ * configured {@link FedXConfig#getBoundJoinBlockSize()} and is adapted with every completed request: it is reduced if
+ * the request failed or exceeded the {@link FedXConfig#getBoundJoinTargetResponseTime()}, and capped such that a
+ * response has at most {@link #MAX_RESULTS_PER_REQUEST} results. Fast requests increase the block size, up to
+ * {@link #MAX_BLOCK_SIZE_FACTOR} times the configured size.
+ * </p>
+ *
+ * <p>
+ * If {@link FedXConfig#getMaxBoundJoinRequestsPerEndpoint()} is set, a bound join has to acquire a permit of each
+ * endpoint before sending a request, and releases the permit once the endpoint has responded.
+ * </p>
+ */
+public class AdaptiveBoundJoinController {
+
+	private static final Logger log = LoggerFactory.getLogger(AdaptiveBoundJoinController.class);
+
+	/**
+	 * The maximum block size, as factor of the configured bound join block size
+	 */
+	public static final int MAX_BLOCK_SIZE_FACTOR = 8;
+
+	/**
+	 * The number of results a single bound join request should not exceed
+	 */
+	public static final int MAX_RESULTS_PER_REQUEST = 10000;
+
+	// factor applied to the block size after a fast request
+	private static final double INCREASE_FACTOR = 1.25;
+
+	private final boolean adaptive;
+	private final int initialBlockSize;
+	private final int maxBlockSize;
+	private final long targetResponseTime;
+	private final int maxRequests;
+
+	private final Map<String, EndpointState> states = new ConcurrentHashMap<>();
+
+	public AdaptiveBoundJoinController(FedXConfig config) {
+		this.adaptive = config.isEnableAdaptiveBoundJoinBlockSize();
+		this.initialBlockSize = Math.max(1, config.getBoundJoinBlockSize());
+		this.maxBlockSize = initialBlockSize * MAX_BLOCK_SIZE_FACTOR;
+		this.targetResponseTime = Math.max(1, config.getBoundJoinTargetResponseTime());
+		this.maxRequests = config.getMaxBoundJoinRequestsPerEndpoint();
+	}
+
+	/**
+	 *
+	 * @return true if the block sizes are adapted to the response times of the endpoints
+	 */
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	/**
+	 *
+	 * @param endpointIds the endpoints which are queried with a block
+	 * @return the number of bindings to send in a single request to the given endpoints
+	 */
+	public int getBlockSize(Collection<String> endpointIds) {
+		if (!adaptive || endpointIds.isEmpty()) {
+			return initialBlockSize;
+		}
+		double blockSize = maxBlockSize;
+		for (String endpointId : endpointIds) {
+			blockSize = Math.min(blockSize, getState(endpointId).blockSize);
+		}
+		return Math.max(1, (int) blockSize);
+	}
+
+	/**
+	 * Acquire a request permit of each of the given endpoints, waiting at most the given time. Permits are acquired in
+	 * the order of the endpoint identifiers, such that concurrent joins cannot block each other.
+	 *
+	 * @param endpointIds
+	 * @param timeoutMs   the maximum time to wait in milliseconds
+	 * @throws InterruptedException
+	 * @throws QueryInterruptedException if the permits could not be acquired within the given time
+	 */
+	public void acquire(Collection<String> endpointIds, long timeoutMs) throws InterruptedException {
+		if (maxRequests <= 0) {
+			return;
+		}
+		long deadline = System.currentTimeMillis() + timeoutMs;
+		List<String> acquired = new ArrayList<>(endpointIds.size());
+		try {
+			for (String endpointId : sorted(endpointIds)) {
+				long remaining = deadline - System.currentTimeMillis();
+				if (!getState(endpointId).permits.tryAcquire(remaining, TimeUnit.MILLISECONDS)) {
+					throw new QueryInterruptedException("Query evaluation has run into a timeout");
+				}
+				acquired.add(endpointId);
+			}
+		} catch (InterruptedException | RuntimeException e) {
+			release(acquired);
+			throw e;
+		}
+	}
+
+	/**
+	 * Release the request permits previously acquired with {@link #acquire(Collection, long)}.
+	 *
+	 * @param endpointIds
+	 */
+	public void release(Collection<String> endpointIds) {
+		if (maxRequests <= 0) {
+			return;
+		}
+		for (String endpointId : endpointIds) {
+			getState(endpointId).permits.release();
+		}
+	}
+
+	/**
+	 * Adapt the block size of the given endpoints to the response time of a successful request.
+	 *
+	 * @param endpointIds
+	 * @param bindings     the number of bindings of the request
+	 * @param responseTime the response time in milliseconds
+	 */
+	public void requestCompleted(Collection<String> endpointIds, int bindings, long responseTime) {
+		if (!adaptive) {
+			return;
+		}
+		for (String endpointId : endpointIds) {
+			EndpointState state = getState(endpointId);
+			synchronized (state) {
+				if (responseTime > targetResponseTime) {
+					// scale down proportionally, but at most by half per request
+					double factor = Math.max(0.5, targetResponseTime / (double) responseTime);
+					state.setBlockSize(Math.min(state.blockSize, bindings) * factor);
+				} else if (responseTime < targetResponseTime / 2 && bindings >= (int) state.blockSize) {
+					// only full blocks are evidence that larger blocks are fast as well
+					state.setBlockSize(Math.min(state.blockSize * INCREASE_FACTOR, state.maxByResults));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Halve the block size of the given endpoints after a failed request, as e.g. large requests may exceed limits of
+	 * the endpoint.
+	 *
+	 * @param endpointIds
+	 */
+	public void requestFailed(Collection<String> endpointIds) {
+		if (!adaptive) {
+			return;
+		}
+		for (String endpointId : endpointIds) {
+			EndpointState state = getState(endpointId);
+			synchronized (state) {
+				state.setBlockSize(state.blockSize / 2);
+			}
+		}
+	}
+
+	/**
+	 * Cap the block size of the given endpoints using the number of results of a request, such that responses have at
+	 * most {@link #MAX_RESULTS_PER_REQUEST} results.
+	 *
+	 * @param endpointIds
+	 * @param bindings    the number of bindings of the request
+	 * @param results     the number of results of the request
+	 */
+	public void resultsReceived(Collection<String> endpointIds, int bindings, long results) {
+		if (!adaptive || bindings <= 0) {
+			return;
+		}
+		double resultsPerBinding = results / (double) bindings;
+		for (String endpointId : endpointIds) {
+			EndpointState state = getState(endpointId);
+			synchronized (state) {
+				state.maxByResults = resultsPerBinding > 0 ? MAX_RESULTS_PER_REQUEST / resultsPerBinding
+						: maxBlockSize;
+				if (state.blockSize > state.maxByResults) {
+					state.setBlockSize(state.maxByResults);
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * @param expr
+	 * @return the identifiers of the endpoints which are queried for the given expression
+	 */
+	public static List<String> getEndpointIds(StatementTupleExpr expr) {
+		List<String> res = new ArrayList<>(expr.getStatementSources().size());
+		for (StatementSource source : expr.getStatementSources()) {
+			res.add(source.getEndpointID());
+		}
+		return res;
+	}
+
+	private EndpointState getState(String endpointId) {
+		return states.computeIfAbsent(endpointId, id -> new EndpointState());
+	}
+
+	private static List<String> sorted(Collection<String> endpointIds) {
+		List<String> res = new ArrayList<>(endpointIds);
+		res.sort(null);
+		return res;
+	}
+
+	/**
+	 * Block size and request permits of a single endpoint
+	 */
+	private class EndpointState {
+		private final Semaphore permits = new Semaphore(Math.max(1, maxRequests), true);
+		private volatile double blockSize = initialBlockSize;
+		// the block size for which MAX_RESULTS_PER_REQUEST results are expected
+		private double maxByResults = maxBlockSize;
+
+		private void setBlockSize(double blockSize) {
+			double newBlockSize = Math.max(1, Math.min(blockSize, maxBlockSize));
+			if (log.isTraceEnabled() && (int) newBlockSize != (int) this.blockSize) {
+				log.trace("Bound join block size changed from " + (int) this.blockSize + " to " + (int) newBlockSize);
+			}
+			this.blockSize = newBlockSize;
+		}
+	}
+}
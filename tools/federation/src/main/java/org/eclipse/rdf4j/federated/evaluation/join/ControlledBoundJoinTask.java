@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.evaluation.join;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.rdf4j.common.iteration.AbstractCloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.federated.evaluation.concurrent.ParallelExecutor;
+import org.eclipse.rdf4j.federated.evaluation.concurrent.ParallelTask;
+import org.eclipse.rdf4j.federated.evaluation.concurrent.ParallelTaskBase;
+import org.eclipse.rdf4j.federated.structures.QueryInfo;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+
+/**
+ * A task wrapping a bound join request, which reports the response time, failures and number of results of the
+ * request to the {@link AdaptiveBoundJoinController}, and releases the request permits of the endpoints once the
+ * result of the request has been consumed or closed (or the request has failed, or the task is cancelled).
+ *
+ * <p>
+ * The request permits must have been acquired before the task is scheduled, see
+ * {@link AdaptiveBoundJoinController#acquire(Collection, long)}.
+ * </p>
+ */
+public class ControlledBoundJoinTask extends ParallelTaskBase<BindingSet> {
+
+	protected final ParallelTask<BindingSet> task;
+	protected final AdaptiveBoundJoinController controller;
+	protected final Collection<String> endpointIds;
+	protected final int bindings;
+
+	private final AtomicBoolean released = new AtomicBoolean(false);
+
+	public ControlledBoundJoinTask(ParallelTask<BindingSet> task, AdaptiveBoundJoinController controller,
+			Collection<String> endpointIds, int bindings) {
+		this.task = task;
+		this.controller = controller;
+		this.endpointIds = endpointIds;
+		this.bindings = bindings;
+	}
+
+	@Override
+	public CloseableIteration<BindingSet, QueryEvaluationException> performTask() throws Exception {
+		long start = System.currentTimeMillis();
+		CountingIteration result = null;
+		try {
+			CloseableIteration<BindingSet, QueryEvaluationException> res = task.performTask();
+			controller.requestCompleted(endpointIds, bindings, System.currentTimeMillis() - start);
+			result = new CountingIteration(res);
+			return result;
+		} catch (Exception e) {
+			controller.requestFailed(endpointIds);
+			throw e;
+		} finally {
+			if (result == null) {
+				// otherwise the permits are released once the result has been consumed
+				release();
+			}
+		}
+	}
+
+	@Override
+	public ParallelExecutor<BindingSet> getControl() {
+		return task.getControl();
+	}
+
+	@Override
+	public Collection<String> getEndpointIds() {
+		return endpointIds;
+	}
+
+	@Override
+	public QueryInfo getQueryInfo() {
+		return task.getQueryInfo();
+	}
+
+	@Override
+	public void cancel() {
+		try {
+			super.cancel();
+		} finally {
+			// a task which is cancelled before it is executed does not release its permits otherwise
+			release();
+		}
+	}
+
+	private void release() {
+		if (released.compareAndSet(false, true)) {
+			controller.release(endpointIds);
+		}
+	}
+
+	/**
+	 * Counts the results of the request, which are reported once the iteration is exhausted. The request permits are
+	 * released when the iteration is exhausted or closed, as the remote result may still be streamed until then.
+	 */
+	private class CountingIteration extends AbstractCloseableIteration<BindingSet, QueryEvaluationException> {
+
+		private final CloseableIteration<BindingSet, QueryEvaluationException> inner;
+		private long results = 0;
+		private boolean reported = false;
+
+		private CountingIteration(CloseableIteration<BindingSet, QueryEvaluationException> inner) {
+			this.inner = inner;
+		}
+
+		@Override
+		public boolean hasNext() throws QueryEvaluationException {
+			boolean hasNext = inner.hasNext();
+			if (!hasNext && !reported) {
+				reported = true;
+				controller.resultsReceived(endpointIds, bindings, results);
+				release();
+			}
+			return hasNext;
+		}
+
+		@Override
+		public BindingSet next() throws QueryEvaluationException {
+			BindingSet next = inner.next();
+			results++;
+			return next;
+		}
+
+		@Override
+		public void remove() throws QueryEvaluationException {
+			inner.remove();
+		}
+
+		@Override
+		protected void handleClose() throws QueryEvaluationException {
+			try {
+				inner.close();
+			} finally {
+				try {
+					release();
+				} finally {
+					super.handleClose();
+				}
+			}
+		}
+	}
+}
@@ -8,6 +8,7 @@
 package org.eclipse.rdf4j.federated.evaluation.join;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -37,6 +38,9 @@ import org.slf4j.LoggerFactory;
  * This join cursor blocks until all scheduled tasks are finished, however the result iteration can be accessed from
  * different threads to allow for pipelining.
  *
+ * The number of bindings per request and the number of concurrent requests per endpoint are controlled by the
+ * {@link AdaptiveBoundJoinController} of the {@link FederationEvalStrategy}.
+ *
  * @author Andreas Schwarte
  *
  */
@@ -44,6 +48,13 @@ public class ControlledWorkerBoundJoin extends ControlledWorkerJoin {
 
 	private static final Logger log = LoggerFactory.getLogger(ControlledWorkerBoundJoin.class);
 
+	// the size of the first blocks, with adaptive block sizes the size of subsequent blocks is doubled up to the block
+	// size of the endpoints
+	private static final int INITIAL_BLOCK_SIZE = 3;
+
+	// without adaptive block sizes, the number of bindings that are sent in blocks of INITIAL_BLOCK_SIZE
+	private static final int INITIAL_BINDINGS = 10;
+
 	public ControlledWorkerBoundJoin(ControlledWorkerScheduler<BindingSet> scheduler, FederationEvalStrategy strategy,
 			CloseableIteration<BindingSet, QueryEvaluationException> leftIter,
 			TupleExpr rightArg, BindingSet bindings, QueryInfo queryInfo)
@@ -61,9 +72,12 @@ public class ControlledWorkerBoundJoin extends ControlledWorkerJoin {
 			return;
 		}
 
-		int nBindingsCfg = this.queryInfo.getFederationContext().getConfig().getBoundJoinBlockSize();
+		AdaptiveBoundJoinController controller = strategy.getBoundJoinController();
 		int totalBindings = 0; // the total number of bindings
 		TupleExpr expr = rightArg;
+		List<String> endpointIds = expr instanceof StatementTupleExpr
+				? AdaptiveBoundJoinController.getEndpointIds((StatementTupleExpr) expr)
+				: Collections.emptyList();
 
 		TaskCreator taskCreator = null;
 
@@ -89,26 +103,28 @@ public class ControlledWorkerBoundJoin extends ControlledWorkerJoin {
 			scheduler.schedule(new ParallelJoinTask(this, strategy, expr, b));
 		}
 
-		int nBindings;
+		/*
+		 * The first blocks are small, such that requests are sent while the left argument is still producing bindings.
+		 * With adaptive block sizes, the blocks grow until they reach the block size of the endpoints, such that the
+		 * requests of the blocks overlap. The block size is determined for every block, as it may be adapted by the
+		 * controller in the meantime.
+		 */
+		boolean adaptive = controller.isAdaptive();
+		int maxBindings = INITIAL_BLOCK_SIZE;
 		List<BindingSet> bindings = null;
 		while (!closed && leftIter.hasNext()) {
 
-			/*
-			 * XXX idea:
-			 *
-			 * make nBindings dependent on the number of intermediate results of the left argument.
-			 *
-			 * If many intermediate results, increase the number of bindings. This will result in less remote SPARQL
-			 * requests.
-			 *
-			 */
-
-			if (totalBindings > 10) {
-				nBindings = nBindingsCfg;
+			int nBindings;
+			if (adaptive) {
+				nBindings = Math.min(maxBindings, controller.getBlockSize(endpointIds));
+				if (maxBindings < Integer.MAX_VALUE / 2) {
+					maxBindings *= 2;
+				}
+			} else if (totalBindings > INITIAL_BINDINGS) {
+				nBindings = controller.getBlockSize(endpointIds);
 			} else {
-				nBindings = 3;
+				nBindings = INITIAL_BLOCK_SIZE;
 			}
-
 			bindings = new ArrayList<>(nBindings);
 
 			int count = 0;
@@ -119,8 +135,11 @@ public class ControlledWorkerBoundJoin extends ControlledWorkerJoin {
 
 			totalBindings += count;
 
+			// waits while the endpoints have the maximum number of concurrent requests
+			controller.acquire(endpointIds, queryInfo.getMaxRemainingTimeMS());
 			phaser.register();
-			scheduler.schedule(taskCreator.getTask(bindings));
+			scheduler.schedule(
+					new ControlledBoundJoinTask(taskCreator.getTask(bindings), controller, endpointIds, count));
 		}
 
 		scheduler.informFinish(this);
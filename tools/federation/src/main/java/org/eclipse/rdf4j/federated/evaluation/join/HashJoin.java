@@ -9,13 +9,14 @@ package org.eclipse.rdf4j.federated.evaluation.join;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.federated.evaluation.FederationEvalStrategy;
-import org.eclipse.rdf4j.federated.evaluation.iterator.LazyMutableClosableIteration;
 import org.eclipse.rdf4j.federated.structures.QueryInfo;
 import org.eclipse.rdf4j.federated.util.QueryAlgebraUtil;
 import org.eclipse.rdf4j.model.Value;
@@ -29,6 +30,12 @@ import org.eclipse.rdf4j.repository.sparql.federation.CollectionIteration;
 /**
  * Operator for a hash join of tuple expressions.
  *
+ * <p>
+ * The right join argument is evaluated once (i.e. without the bindings of the left join argument), and its results are
+ * kept in a hash table on the values of the join variables. The bindings of the left join argument are then joined by
+ * probing this table.
+ * </p>
+ *
  * @author Andreas Schwarte
  * @since 6.0
  */
@@ -50,44 +57,44 @@ public class HashJoin extends JoinExecutorBase<BindingSet> {
 		int totalBindingsRight = 0;
 		Collection<String> rightFreeVars = QueryAlgebraUtil.getFreeVars(rightArg);
 		Set<String> joinVars = getJoinVars();
+		List<String> keyVars = new ArrayList<>(joinVars);
+
+		// evaluate the right join argument and build the hash table
+		Map<List<Value>, List<BindingSet>> hashTable = new HashMap<>();
+		try (CloseableIteration<BindingSet, QueryEvaluationException> rightArgIter = strategy.evaluate(rightArg,
+				bindings)) {
+			while (!closed && rightArgIter.hasNext()) {
+				BindingSet right = rightArgIter.next();
+				hashTable.computeIfAbsent(hashKey(right, keyVars), k -> new ArrayList<>()).add(right);
+				totalBindingsRight++;
+			}
+		}
 
-		// evaluate the right join argument
-		// Note: wrapped in lazy mutable iteration for repetitive reading
-		try (LazyMutableClosableIteration rightArgIter = new LazyMutableClosableIteration(
-				strategy.evaluate(rightArg, bindings))) {
-
-			while (!closed && leftIter.hasNext()) {
-
-				int blockSizeL = 10;
-				if (totalBindingsLeft > 20) {
-					blockSizeL = 100;
-				}
-				List<BindingSet> leftBlock = new ArrayList<>(blockSizeL);
-				for (int i = 0; i < blockSizeL && leftIter.hasNext(); i++) {
-					leftBlock.add(leftIter.next());
-					totalBindingsLeft++;
-				}
-
-				int blockSizeR = 10;
-				while (!closed && rightArgIter.hasNext()) {
-					if (totalBindingsRight > 20) {
-						blockSizeR = 100;
-					}
-					Collection<BindingSet> rightBlock = new ArrayList<>(blockSizeR);
-					for (int i = 0; i < blockSizeR && rightArgIter.hasNext(); i++) {
-						rightBlock.add(rightArgIter.next());
-						totalBindingsRight++;
-					}
+		// probe the hash table with blocks of the left join argument
+		while (!closed && leftIter.hasNext()) {
 
-					performJoin(leftBlock, rightBlock, joinVars, rightFreeVars);
+			int blockSizeL = 10;
+			if (totalBindingsLeft > 20) {
+				blockSizeL = 100;
+			}
+			List<BindingSet> res = new ArrayList<>();
+			for (int i = 0; i < blockSizeL && leftIter.hasNext(); i++) {
+				BindingSet left = leftIter.next();
+				totalBindingsLeft++;
+
+				List<BindingSet> rightBlock = hashTable.get(hashKey(left, keyVars));
+				if (rightBlock != null) {
+					join(left, rightBlock, joinVars, rightFreeVars, res);
 				}
-
-				rightArgIter.resetCursor();
+			}
+			if (!res.isEmpty()) {
+				addResult(new CollectionIteration<>(res));
 			}
 		}
 
 		if (log.isDebugEnabled()) {
-			log.debug("JoinStats: left iter of " + getDisplayId() + " had " + totalBindingsLeft + " results.");
+			log.debug("JoinStats: left iter of " + getDisplayId() + " had " + totalBindingsLeft
+					+ " results, right iter had " + totalBindingsRight + " results.");
 		}
 	}
 
@@ -101,7 +108,10 @@ public class HashJoin extends JoinExecutorBase<BindingSet> {
 	 * @param rightBlock
 	 * @param joinVariables
 	 * @param freeVariablesRight
+	 * @deprecated since 3.5.1. The results of the right join argument are kept in a single hash table, which is probed
+	 *             with the left bindings in {@link #handleBindings()}.
 	 */
+	@Deprecated
 	protected void performJoin(Collection<BindingSet> leftBlock, Collection<BindingSet> rightBlock,
 			Set<String> joinVariables, Collection<String> freeVariablesRight) {
 		addResult(join(leftBlock, rightBlock, joinVariables, freeVariablesRight));
@@ -122,53 +132,75 @@ public class HashJoin extends JoinExecutorBase<BindingSet> {
 	 */
 	static CloseableIteration<BindingSet, QueryEvaluationException> join(Collection<BindingSet> leftBlock,
 			Collection<BindingSet> rightBlock, Set<String> joinVariables, Collection<String> freeVariablesRight) {
-		List<BindingSet> res = new LinkedList<>();
+		List<String> keyVars = new ArrayList<>(joinVariables);
+		Map<List<Value>, List<BindingSet>> hashTable = new HashMap<>();
+		for (BindingSet right : rightBlock) {
+			hashTable.computeIfAbsent(hashKey(right, keyVars), k -> new ArrayList<>()).add(right);
+		}
 
+		List<BindingSet> res = new LinkedList<>();
 		for (BindingSet left : leftBlock) {
+			List<BindingSet> rightBindings = hashTable.get(hashKey(left, keyVars));
+			if (rightBindings != null) {
+				join(left, rightBindings, joinVariables, freeVariablesRight, res);
+			}
+		}
 
-			for (BindingSet right : rightBlock) {
+		return new CollectionIteration<>(res);
+	}
 
-				boolean match = false;
-				// check join variables: must be equal in both operands
-				for (String joinVariable : joinVariables) {
-					Value leftValue = left.getValue(joinVariable);
-					Value rightValue = right.getValue(joinVariable);
+	private static void join(BindingSet left, Collection<BindingSet> rightBlock, Set<String> joinVariables,
+			Collection<String> freeVariablesRight, List<BindingSet> res) {
 
-					// join match
-					if (leftValue != null && leftValue.equals(rightValue)) {
-						match = true;
-						break;
-					}
+		for (BindingSet right : rightBlock) {
+
+			boolean match = true;
+			// check join variables: must be equal in both operands
+			for (String joinVariable : joinVariables) {
+				Value leftValue = left.getValue(joinVariable);
+				if (leftValue == null || !leftValue.equals(right.getValue(joinVariable))) {
+					match = false;
+					break;
 				}
+			}
 
-				// check other free variables of right expression
-				// => must be available in bindings
-				for (String freeVariable : freeVariablesRight) {
-					if (joinVariables.contains(freeVariable)) {
-						continue; // skip
-					}
-					Value leftValue = left.getValue(freeVariable);
-					Value rightValue = right.getValue(freeVariable);
-					if (leftValue != null && leftValue.equals(rightValue)) {
-						match = true;
-					}
+			// check other free variables of right expression
+			// => must be compatible with the bindings
+			for (String freeVariable : freeVariablesRight) {
+				if (!match) {
+					break;
+				}
+				if (joinVariables.contains(freeVariable)) {
+					continue; // skip
+				}
+				Value leftValue = left.getValue(freeVariable);
+				Value rightValue = right.getValue(freeVariable);
+				if (leftValue != null && rightValue != null && !leftValue.equals(rightValue)) {
+					match = false;
 				}
+			}
 
-				if (match) {
-					// emit a merged binding set
-					MapBindingSet mergedBindings = new MapBindingSet();
-					for (Binding b : left) {
-						mergedBindings.addBinding(b);
-					}
-					for (Binding b : right) {
+			if (match) {
+				// emit a merged binding set
+				MapBindingSet mergedBindings = new MapBindingSet();
+				for (Binding b : left) {
+					mergedBindings.addBinding(b);
+				}
+				for (Binding b : right) {
+					if (!mergedBindings.hasBinding(b.getName())) {
 						mergedBindings.addBinding(b);
 					}
-					res.add(mergedBindings);
 				}
+				res.add(mergedBindings);
 			}
 		}
-
-		return new CollectionIteration<>(res);
 	}
 
+	private static List<Value> hashKey(BindingSet bindings, List<String> keyVars) {
+		List<Value> key = new ArrayList<>(keyVars.size());
+		for (String var : keyVars) {
+			key.add(bindings.getValue(var));
+		}
+		return key;
+	}
 }
@@ -7,6 +7,7 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.federated.evaluation.join;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
@@ -44,6 +45,11 @@ public class ParallelBoundJoinTask extends ParallelTaskBase<BindingSet> {
 		return strategy.evaluateBoundJoinStatementPattern(expr, bindings);
 	}
 
+	@Override
+	public Collection<String> getEndpointIds() {
+		return AdaptiveBoundJoinController.getEndpointIds(expr);
+	}
+
 	@Override
 	public ParallelExecutor<BindingSet> getControl() {
 		return joinControl;
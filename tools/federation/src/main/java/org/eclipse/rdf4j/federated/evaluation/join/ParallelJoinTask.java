@@ -7,7 +7,11 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.federated.evaluation.join;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.federated.algebra.StatementTupleExpr;
 import org.eclipse.rdf4j.federated.evaluation.FederationEvalStrategy;
 import org.eclipse.rdf4j.federated.evaluation.concurrent.ParallelExecutor;
 import org.eclipse.rdf4j.federated.evaluation.concurrent.ParallelTaskBase;
@@ -40,6 +44,14 @@ public class ParallelJoinTask extends ParallelTaskBase<BindingSet> {
 		return strategy.evaluate(expr, bindings);
 	}
 
+	@Override
+	public Collection<String> getEndpointIds() {
+		if (expr instanceof StatementTupleExpr) {
+			return AdaptiveBoundJoinController.getEndpointIds((StatementTupleExpr) expr);
+		}
+		return Collections.emptyList();
+	}
+
 	@Override
 	public ParallelExecutor<BindingSet> getControl() {
 		return joinControl;
@@ -7,11 +7,14 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.federated.evaluation.join;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.federated.algebra.StatementTupleExpr;
 import org.eclipse.rdf4j.federated.evaluation.FederationEvalStrategy;
 import org.eclipse.rdf4j.federated.evaluation.concurrent.ParallelExecutor;
 import org.eclipse.rdf4j.federated.evaluation.concurrent.ParallelTaskBase;
@@ -52,6 +55,14 @@ public class ParallelLeftJoinTask extends ParallelTaskBase<BindingSet> {
 
 	}
 
+	@Override
+	public Collection<String> getEndpointIds() {
+		if (join.getRightArg() instanceof StatementTupleExpr) {
+			return AdaptiveBoundJoinController.getEndpointIds((StatementTupleExpr) join.getRightArg());
+		}
+		return Collections.emptyList();
+	}
+
 	@Override
 	public ParallelExecutor<BindingSet> getControl() {
 		return joinControl;
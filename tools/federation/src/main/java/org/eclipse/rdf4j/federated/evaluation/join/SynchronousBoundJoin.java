@@ -51,9 +51,10 @@ public class SynchronousBoundJoin extends SynchronousJoin {
 			return;
 		}
 
-		int nBindingsCfg = this.queryInfo.getFederationContext().getConfig().getBoundJoinBlockSize();
+		AdaptiveBoundJoinController controller = strategy.getBoundJoinController();
 		int totalBindings = 0; // the total number of bindings
 		StatementTupleExpr stmt = (StatementTupleExpr) rightArg;
+		List<String> endpointIds = AdaptiveBoundJoinController.getEndpointIds(stmt);
 
 		// optimization: if there is no free variable, we can avoid the bound-join
 		// first item is always sent in a non-bound way
@@ -73,17 +74,8 @@ public class SynchronousBoundJoin extends SynchronousJoin {
 		List<BindingSet> bindings = null;
 		while (!closed && leftIter.hasNext()) {
 
-			/*
-			 * XXX idea:
-			 *
-			 * make nBindings dependent on the number of intermediate results of the left argument.
-			 *
-			 * If many intermediate results, increase the number of bindings. This will result in less remote SPARQL
-			 * requests.
-			 *
-			 */
 			if (totalBindings > 10) {
-				nBindings = nBindingsCfg;
+				nBindings = controller.getBlockSize(endpointIds);
 			} else {
 				nBindings = 3;
 			}
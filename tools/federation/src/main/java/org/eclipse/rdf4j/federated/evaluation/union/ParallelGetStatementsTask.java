@@ -7,6 +7,9 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.federated.evaluation.union;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.federated.endpoint.Endpoint;
 import org.eclipse.rdf4j.federated.evaluation.TripleSource;
@@ -50,6 +53,11 @@ public class ParallelGetStatementsTask extends ParallelTaskBase<Statement> {
 
 	}
 
+	@Override
+	public Collection<String> getEndpointIds() {
+		return Collections.singletonList(endpoint.getId());
+	}
+
 	@Override
 	public ParallelExecutor<Statement> getControl() {
 		return unionControl;
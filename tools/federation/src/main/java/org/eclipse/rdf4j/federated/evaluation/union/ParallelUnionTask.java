@@ -7,6 +7,9 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.federated.evaluation.union;
 
+import java.util.Collection;
+import java.util.Collections;
+
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.federated.algebra.FilterValueExpr;
 import org.eclipse.rdf4j.federated.endpoint.Endpoint;
@@ -49,6 +52,11 @@ public class ParallelUnionTask extends ParallelTaskBase<BindingSet> {
 		return tripleSource.getStatements(stmt, bindings, filterExpr, queryInfo);
 	}
 
+	@Override
+	public Collection<String> getEndpointIds() {
+		return Collections.singletonList(endpoint.getId());
+	}
+
 	@Override
 	public ParallelExecutor<BindingSet> getControl() {
 		return unionControl;
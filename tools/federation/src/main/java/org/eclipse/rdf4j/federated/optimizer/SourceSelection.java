@@ -8,6 +8,8 @@
 package org.eclipse.rdf4j.federated.optimizer;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -335,6 +337,11 @@ public class SourceSelection {
 			}
 		}
 
+		@Override
+		public Collection<String> getEndpointIds() {
+			return Collections.singletonList(endpoint.getId());
+		}
+
 		@Override
 		public ParallelExecutor<BindingSet> getControl() {
 			return control;
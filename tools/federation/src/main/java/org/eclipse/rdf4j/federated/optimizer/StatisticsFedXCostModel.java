@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.optimizer;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.rdf4j.federated.FedXConfig;
+import org.eclipse.rdf4j.federated.algebra.ExclusiveGroup;
+import org.eclipse.rdf4j.federated.algebra.ExclusiveTupleExpr;
+import org.eclipse.rdf4j.federated.algebra.FedXService;
+import org.eclipse.rdf4j.federated.algebra.FedXStatementPattern;
+import org.eclipse.rdf4j.federated.algebra.NJoin;
+import org.eclipse.rdf4j.federated.algebra.NUnion;
+import org.eclipse.rdf4j.federated.algebra.StatementSource;
+import org.eclipse.rdf4j.federated.algebra.StatementTupleExpr;
+import org.eclipse.rdf4j.federated.cache.EndpointSummary;
+import org.eclipse.rdf4j.federated.cache.EndpointSummary.PredicateStatistics;
+import org.eclipse.rdf4j.federated.cache.SourceSelectionIndex;
+import org.eclipse.rdf4j.federated.evaluation.join.HashJoin;
+import org.eclipse.rdf4j.federated.util.QueryAlgebraUtil;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.query.algebra.BindingSetAssignment;
+import org.eclipse.rdf4j.query.algebra.Extension;
+import org.eclipse.rdf4j.query.algebra.SingletonSet;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+
+import com.google.common.collect.Iterables;
+
+/**
+ * A {@link FedXCostModel} which estimates the number of results of a {@link TupleExpr}, using the VoID statistics of
+ * the endpoints in a {@link SourceSelectionIndex}.
+ *
+ * <p>
+ * The cost of a join argument is its estimated number of results per binding of the preceding join arguments, where
+ * the join variables are considered bound. For a statement pattern this is derived from the number of triples and the
+ * number of distinct subjects and objects of its predicate (or the number of instances of a class), summed over the
+ * relevant endpoints. If no statistics are available, default selectivities are assumed.
+ * </p>
+ *
+ * <p>
+ * In addition, the model decides whether a join argument is evaluated using a bound join or a {@link HashJoin}, see
+ * {@link #isHashJoinPreferred(NJoin, int, int)}.
+ * </p>
+ *
+ * @see FedXConfig#withEnableStatisticsCostModel(boolean)
+ */
+public class StatisticsFedXCostModel implements FedXCostModel {
+
+	/**
+	 * The number of results assumed for a statement pattern without statistics
+	 */
+	public static final double DEFAULT_CARDINALITY = 1000;
+
+	/**
+	 * The maximum number of results of a join argument that is evaluated using a {@link HashJoin}
+	 */
+	public static final double MAX_HASH_JOIN_CARDINALITY = 100000;
+
+	/**
+	 * The cost of a remote request, in terms of transferred bindings
+	 */
+	public static final double REQUEST_COST = 50;
+
+	// selectivity of a bound subject or object, if no statistics are available
+	private static final double SUBJECT_SELECTIVITY = 100;
+	private static final double OBJECT_SELECTIVITY = 10;
+
+	private final SourceSelectionIndex index;
+
+	public StatisticsFedXCostModel(SourceSelectionIndex index) {
+		this.index = index;
+	}
+
+	@Override
+	public double estimateCost(TupleExpr tupleExpr, Set<String> joinVars) {
+		return estimateCardinality(tupleExpr, joinVars);
+	}
+
+	/**
+	 * Estimate the number of results of the given expression, per binding of the given variables.
+	 *
+	 * @param tupleExpr
+	 * @param boundVars the variables that are bound when the expression is evaluated
+	 * @return the estimated number of results
+	 */
+	public double estimateCardinality(TupleExpr tupleExpr, Set<String> boundVars) {
+
+		if (tupleExpr instanceof FedXStatementPattern) {
+			FedXStatementPattern stmt = (FedXStatementPattern) tupleExpr;
+			double cardinality = 0;
+			for (StatementSource source : stmt.getStatementSources()) {
+				cardinality += estimateCardinality(stmt, source.getEndpointID(), boundVars);
+			}
+			return cardinality;
+		}
+		if (tupleExpr instanceof ExclusiveGroup) {
+			return estimateCardinality((ExclusiveGroup) tupleExpr, boundVars);
+		}
+		if (tupleExpr instanceof NJoin) {
+			return estimateJoinCardinality(((NJoin) tupleExpr).getArgs(), boundVars);
+		}
+		if (tupleExpr instanceof NUnion) {
+			double cardinality = 0;
+			for (TupleExpr arg : ((NUnion) tupleExpr).getArgs()) {
+				cardinality += estimateCardinality(arg, boundVars);
+			}
+			return cardinality;
+		}
+		if (tupleExpr instanceof FedXService) {
+			// evaluate services with variable service ref late (since the service ref
+			// may be computed at evaluation time)
+			FedXService service = (FedXService) tupleExpr;
+			if (!service.getService().getServiceRef().hasValue()) {
+				return DEFAULT_CARDINALITY * DEFAULT_CARDINALITY;
+			}
+			return Collections.disjoint(service.getFreeVars(), boundVars) ? DEFAULT_CARDINALITY
+					: DEFAULT_CARDINALITY / SUBJECT_SELECTIVITY;
+		}
+		if (tupleExpr instanceof BindingSetAssignment) {
+			return Iterables.size(((BindingSetAssignment) tupleExpr).getBindingSets());
+		}
+		if (tupleExpr instanceof Extension) {
+			return estimateCardinality(((Extension) tupleExpr).getArg(), boundVars);
+		}
+		if (tupleExpr instanceof SingletonSet) {
+			return 1;
+		}
+
+		return DEFAULT_CARDINALITY;
+	}
+
+	/**
+	 * Whether the join argument with the given index is preferably evaluated using a {@link HashJoin}, i.e. by
+	 * evaluating the argument once without the bindings of the preceding arguments, instead of using a bound join.
+	 *
+	 * <p>
+	 * A hash join is only considered for statement patterns and exclusive groups for which statistics are available,
+	 * and if the argument has at most {@link #MAX_HASH_JOIN_CARDINALITY} results. It is preferred if transferring
+	 * these results is cheaper than sending the bindings of the preceding arguments in blocks of the given size.
+	 * </p>
+	 *
+	 * @param join
+	 * @param index              the index of the join argument, starting with 1
+	 * @param boundJoinBlockSize the number of bindings sent per request in a bound join
+	 * @return whether a {@link HashJoin} is preferred
+	 */
+	public boolean isHashJoinPreferred(NJoin join, int index, int boundJoinBlockSize) {
+
+		TupleExpr rightArg = join.getArg(index);
+		if (!(rightArg instanceof FedXStatementPattern || rightArg instanceof ExclusiveGroup)) {
+			return false;
+		}
+		List<StatementSource> sources = ((StatementTupleExpr) rightArg).getStatementSources();
+		for (StatementSource source : sources) {
+			EndpointSummary summary = this.index.getSummary(source.getEndpointID());
+			if (summary == null || summary.getTriples() < 0) {
+				return false;
+			}
+		}
+
+		double rightCardinality = estimateCardinality(rightArg, Collections.emptySet());
+		if (rightCardinality > MAX_HASH_JOIN_CARDINALITY) {
+			return false;
+		}
+
+		List<TupleExpr> leftArgs = join.getArgs().subList(0, index);
+		double leftCardinality = estimateJoinCardinality(leftArgs, Collections.emptySet());
+		Set<String> boundVars = new HashSet<>();
+		for (TupleExpr arg : leftArgs) {
+			boundVars.addAll(QueryAlgebraUtil.getFreeVars(arg));
+		}
+		double resultCardinality = leftCardinality * estimateCardinality(rightArg, boundVars);
+
+		double requests = Math.ceil(leftCardinality / Math.max(1, boundJoinBlockSize)) * sources.size();
+		double boundJoinCost = requests * REQUEST_COST + leftCardinality + resultCardinality;
+		double hashJoinCost = sources.size() * REQUEST_COST + rightCardinality;
+
+		return hashJoinCost < boundJoinCost;
+	}
+
+	/**
+	 * Estimate the number of results of a join, of which the arguments are already ordered.
+	 */
+	private double estimateJoinCardinality(List<TupleExpr> args, Set<String> boundVars) {
+
+		Set<String> bound = new HashSet<>(boundVars);
+		double cardinality = 1;
+		for (TupleExpr arg : args) {
+			cardinality *= estimateCardinality(arg, bound);
+			bound.addAll(QueryAlgebraUtil.getFreeVars(arg));
+		}
+		return cardinality;
+	}
+
+	private double estimateCardinality(ExclusiveGroup group, Set<String> boundVars) {
+
+		Set<String> bound = new HashSet<>(boundVars);
+		List<ExclusiveTupleExpr> left = new LinkedList<>(group.getExclusiveExpressions());
+		String endpointId = group.getOwner().getEndpointID();
+		double cardinality = 1;
+		while (!left.isEmpty()) {
+			ExclusiveTupleExpr item = null;
+			double min = Double.MAX_VALUE;
+			for (ExclusiveTupleExpr tmp : left) {
+				double current = tmp instanceof StatementPattern
+						? estimateCardinality((StatementPattern) tmp, endpointId, bound)
+						: estimateCardinality(tmp, bound);
+				if (item == null || current < min) {
+					item = tmp;
+					min = current;
+				}
+			}
+			cardinality *= min;
+			bound.addAll(item.getFreeVars());
+			left.remove(item);
+		}
+		return cardinality;
+	}
+
+	private double estimateCardinality(StatementPattern stmt, String endpointId, Set<String> boundVars) {
+
+		boolean subjectBound = isBound(stmt.getSubjectVar(), boundVars);
+		boolean objectBound = isBound(stmt.getObjectVar(), boundVars);
+
+		EndpointSummary summary = index.getSummary(endpointId);
+		if (summary == null) {
+			return selectivity(DEFAULT_CARDINALITY, -1, -1, subjectBound, objectBound);
+		}
+
+		Value predicate = stmt.getPredicateVar().getValue();
+		if (predicate instanceof IRI) {
+			if (Boolean.FALSE.equals(summary.hasPredicate((IRI) predicate))) {
+				return 0;
+			}
+
+			Value obj = stmt.getObjectVar().getValue();
+			if (RDF.TYPE.equals(predicate) && obj instanceof IRI) {
+				long entities = summary.getClassStatistics((IRI) obj);
+				if (entities >= 0) {
+					if (!subjectBound) {
+						return entities;
+					}
+					// the probability that the bound subject is an instance of the class
+					PredicateStatistics type = summary.getPredicateStatistics(RDF.TYPE);
+					if (type != null && type.getDistinctSubjects() > 0) {
+						return Math.min(1, entities / (double) type.getDistinctSubjects());
+					}
+					return 1;
+				}
+			}
+
+			PredicateStatistics statistics = summary.getPredicateStatistics((IRI) predicate);
+			if (statistics != null) {
+				return selectivity(statistics.getTriples(), statistics.getDistinctSubjects(),
+						statistics.getDistinctObjects(), subjectBound, objectBound);
+			}
+			return selectivity(DEFAULT_CARDINALITY, -1, -1, subjectBound, objectBound);
+		}
+
+		if (summary.getTriples() >= 0) {
+			double triples = summary.getTriples();
+			if (isBound(stmt.getPredicateVar(), boundVars)) {
+				triples /= Math.max(1, summary.getPredicateStatistics().size());
+			}
+			return selectivity(triples, -1, -1, subjectBound, objectBound);
+		}
+		return selectivity(DEFAULT_CARDINALITY, -1, -1, subjectBound, objectBound);
+	}
+
+	private static double selectivity(double triples, long distinctSubjects, long distinctObjects,
+			boolean subjectBound, boolean objectBound) {
+		double cardinality = triples;
+		if (subjectBound) {
+			cardinality /= distinctSubjects > 0 ? distinctSubjects : SUBJECT_SELECTIVITY;
+		}
+		if (objectBound) {
+			cardinality /= distinctObjects > 0 ? distinctObjects : OBJECT_SELECTIVITY;
+		}
+		return cardinality;
+	}
+
+	private static boolean isBound(Var var, Set<String> boundVars) {
+		return var.hasValue() || boundVars.contains(var.getName());
+	}
+}
@@ -46,6 +46,16 @@ public class Vocabulary {
 		public static final IRI REPOSITORY_NAME = vf.createIRI(NAMESPACE, "repositoryName");
 
 		public static final IRI WRITABLE = vf.createIRI(NAMESPACE, "writable");
+
+		/*
+		 * Source selection index, see SourceSelectionIndex
+		 */
+
+		public static final IRI SUMMARY_COMPLETE = vf.createIRI(NAMESPACE, "summaryComplete");
+
+		public static final IRI ABSENT_PROPERTY = vf.createIRI(NAMESPACE, "absentProperty");
+
+		public static final IRI ABSENT_CLASS = vf.createIRI(NAMESPACE, "absentClass");
 	}
 
 	/**
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.cache;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import org.eclipse.rdf4j.federated.FedXConfig;
+import org.eclipse.rdf4j.federated.FedXFactory;
+import org.eclipse.rdf4j.federated.cache.SourceSelectionCache.StatementSourceAssurance;
+import org.eclipse.rdf4j.federated.endpoint.Endpoint;
+import org.eclipse.rdf4j.federated.endpoint.EndpointFactory;
+import org.eclipse.rdf4j.federated.repository.FedXRepository;
+import org.eclipse.rdf4j.federated.structures.SubQuery;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.config.RepositoryConfig;
+import org.eclipse.rdf4j.repository.manager.LocalRepositoryManager;
+import org.eclipse.rdf4j.repository.sail.config.SailRepositoryConfig;
+import org.eclipse.rdf4j.sail.memory.config.MemoryStoreConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SourceSelectionIndexTest {
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	public void testLearnedSummary() throws Exception {
+
+		File file = new File(tempDir.toFile(), "index.ttl");
+		Endpoint ep = EndpointFactory.loadResolvableRepository("dummy");
+
+		SubQuery s1 = new SubQuery(null, FOAF.NAME, null);
+		SubQuery s2 = new SubQuery(null, FOAF.NAME, vf.createLiteral("Alan"));
+		SubQuery s3 = new SubQuery(null, FOAF.NAME, null, vf.createIRI("http://example.org/graph"));
+		SubQuery s4 = new SubQuery(null, RDF.TYPE, FOAF.PERSON);
+
+		SourceSelectionIndex index = new SourceSelectionIndex(file);
+		SourceSelectionCache cache = new SourceSelectionIndexCache(index, new SourceSelectionMemoryCache());
+		cache.updateInformation(s1, ep, false);
+		cache.updateInformation(s4, ep, true);
+		index.persist();
+
+		// a new federation starts with the persisted knowledge
+		index = new SourceSelectionIndex(file);
+		cache = new SourceSelectionIndexCache(index, new SourceSelectionMemoryCache());
+
+		Assertions.assertFalse(index.getSummary("dummy").isComplete());
+		Assertions.assertEquals(StatementSourceAssurance.NONE, cache.getAssurance(s1, ep));
+		Assertions.assertEquals(StatementSourceAssurance.NONE, cache.getAssurance(s2, ep));
+		// absence was only learned for the default graph
+		Assertions.assertEquals(StatementSourceAssurance.POSSIBLY_HAS_STATEMENTS, cache.getAssurance(s3, ep));
+		Assertions.assertEquals(StatementSourceAssurance.HAS_REMOTE_STATEMENTS, cache.getAssurance(s4, ep));
+
+		index.invalidate("dummy");
+		Assertions.assertEquals(StatementSourceAssurance.POSSIBLY_HAS_STATEMENTS, cache.getAssurance(s1, ep));
+	}
+
+	@Test
+	public void testHarvestedSummary() throws Exception {
+
+		File file = new File(tempDir.toFile(), "index.ttl");
+		IRI person = vf.createIRI("http://example.org/person1");
+
+		LocalRepositoryManager repoManager = new LocalRepositoryManager(new File(tempDir.toFile(), "data"));
+		repoManager.init();
+		try {
+			repoManager.addRepositoryConfig(
+					new RepositoryConfig("repo1", new SailRepositoryConfig(new MemoryStoreConfig())));
+			try (RepositoryConnection conn = repoManager.getRepository("repo1").getConnection()) {
+				conn.add(person, RDF.TYPE, FOAF.PERSON);
+				conn.add(person, FOAF.NAME, vf.createLiteral("Alan"), vf.createIRI("http://example.org/graph"));
+			}
+
+			FedXRepository repo = FedXFactory.newFederation()
+					.withResolvableEndpoint("repo1")
+					.withRepositoryResolver(repoManager)
+					.withConfig(new FedXConfig().withSourceSelectionIndexLocation(file.getAbsolutePath()))
+					.create();
+			repo.init();
+			try {
+				Endpoint ep = repo.getFederationContext().getEndpointManager().getEndpoint("repo1");
+				SourceSelectionIndex index = repo.getFederationContext().getManager().getSourceSelectionIndex().get();
+				index.harvest(ep);
+			} finally {
+				repo.shutDown();
+			}
+			Assertions.assertTrue(file.exists());
+
+			SourceSelectionIndex index = new SourceSelectionIndex(file);
+			EndpointSummary summary = index.getSummary("repo1");
+			Assertions.assertTrue(summary.isComplete());
+			Assertions.assertEquals(Boolean.TRUE, summary.hasPredicate(FOAF.NAME));
+			Assertions.assertEquals(Boolean.TRUE, summary.hasClass(FOAF.PERSON));
+			Assertions.assertEquals(Boolean.FALSE, summary.hasPredicate(FOAF.MBOX));
+			Assertions.assertEquals(Boolean.FALSE, summary.hasClass(FOAF.AGENT));
+
+			// statistics
+			Assertions.assertEquals(2, summary.getTriples());
+			Assertions.assertEquals(1, summary.getPredicateStatistics(FOAF.NAME).getTriples());
+			Assertions.assertEquals(1, summary.getPredicateStatistics(FOAF.NAME).getDistinctObjects());
+			Assertions.assertEquals(1, summary.getClassStatistics(FOAF.PERSON));
+		} finally {
+			repoManager.shutDown();
+		}
+	}
+}
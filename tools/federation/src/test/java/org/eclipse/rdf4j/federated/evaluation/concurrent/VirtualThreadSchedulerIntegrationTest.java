@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.evaluation.concurrent;
+
+import java.util.Arrays;
+
+import org.eclipse.rdf4j.federated.SPARQLBaseTest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class VirtualThreadSchedulerIntegrationTest extends SPARQLBaseTest {
+
+	@Override
+	protected void initFedXConfig() {
+		// a single task per endpoint, such that all tasks have to wait for their permits
+		fedxRule.withConfiguration(c -> c.withEnableVirtualThreadScheduler(true).withMaxConcurrentTasksPerEndpoint(1));
+	}
+
+	@Test
+	public void testScheduler() throws Exception {
+		prepareTest(Arrays.asList("/tests/basic/data01endpoint1.ttl", "/tests/basic/data01endpoint2.ttl"));
+		Assertions.assertTrue(
+				federationContext().getManager().getJoinScheduler() instanceof VirtualThreadScheduler);
+		execute("/tests/basic/query01.rq", "/tests/basic/query01.srx", false);
+	}
+
+	@Test
+	public void testBoundJoin() throws Exception {
+		prepareTest(Arrays.asList("/tests/data/data1.ttl", "/tests/data/data2.ttl"));
+		execute("/tests/boundjoin/query01.rq", "/tests/boundjoin/query01.srx", false);
+	}
+
+	@Test
+	public void testMedium() throws Exception {
+		prepareTest(Arrays.asList("/tests/medium/data1.ttl", "/tests/medium/data2.ttl", "/tests/medium/data3.ttl",
+				"/tests/medium/data4.ttl"));
+		for (String query : Arrays.asList("query01", "query02", "query04", "query05", "query06")) {
+			execute("/tests/medium/" + query + ".rq", "/tests/medium/" + query + ".srx", false);
+		}
+	}
+}
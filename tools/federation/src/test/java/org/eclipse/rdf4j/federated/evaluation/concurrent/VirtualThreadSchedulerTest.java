@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.evaluation.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
+import org.eclipse.rdf4j.federated.FedXConfig;
+import org.eclipse.rdf4j.federated.FederationContext;
+import org.eclipse.rdf4j.federated.QueryManager;
+import org.eclipse.rdf4j.federated.structures.QueryInfo;
+import org.eclipse.rdf4j.federated.structures.QueryType;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the permits of {@link VirtualThreadScheduler} with tasks that block until they are released.
+ */
+public class VirtualThreadSchedulerTest {
+
+	private static final long TIMEOUT_MS = 5000;
+
+	private QueryInfo queryInfo;
+
+	private TestControl control;
+
+	private VirtualThreadScheduler<BindingSet> scheduler;
+
+	private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+	@BeforeEach
+	public void setUp() {
+		FederationContext federationContext = new FederationContext(null, null, new QueryManager(), null, null,
+				new FedXConfig());
+		queryInfo = new QueryInfo("SELECT * WHERE { ?s ?p ?o }", null, QueryType.SELECT, 0, false,
+				federationContext, null);
+		control = new TestControl();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (scheduler != null) {
+			scheduler.abort();
+		}
+	}
+
+	@Test
+	public void testMaxConcurrentTasksPerEndpoint() throws Exception {
+		scheduler = new VirtualThreadScheduler<>(2, "Test Scheduler");
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		List<BlockingTask> tasks = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			BlockingTask task = new BlockingTask("task" + i, "endpoint1") {
+				@Override
+				public CloseableIteration<BindingSet, QueryEvaluationException> performTask() throws Exception {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						return super.performTask();
+					} finally {
+						running.decrementAndGet();
+					}
+				}
+			};
+			tasks.add(task);
+			scheduler.schedule(task);
+		}
+
+		tasks.get(0).awaitStarted();
+		tasks.get(1).awaitStarted();
+		Assertions.assertFalse(tasks.get(2).hasStarted(100), "the third task must wait for a permit");
+		Assertions.assertEquals(4, scheduler.getNumberOfTasks());
+
+		for (BlockingTask task : tasks) {
+			task.release();
+		}
+		control.awaitDone(6);
+		Assertions.assertEquals(2, maxRunning.get());
+	}
+
+	@Test
+	public void testSaturatedEndpoint() throws Exception {
+		scheduler = new VirtualThreadScheduler<>(1, "Test Scheduler");
+		BlockingTask first = new BlockingTask("first", "endpoint1");
+		BlockingTask waiting = new BlockingTask("waiting", "endpoint1");
+		BlockingTask other = new BlockingTask("other", "endpoint2");
+		scheduler.schedule(first);
+		scheduler.schedule(waiting);
+		scheduler.schedule(other);
+
+		first.awaitStarted();
+		// the task for the other endpoint is not blocked by the waiting task of the saturated endpoint
+		other.awaitStarted();
+		Assertions.assertFalse(waiting.hasStarted(100));
+
+		first.release();
+		waiting.awaitStarted();
+		waiting.release();
+		other.release();
+		control.awaitDone(3);
+	}
+
+	@Test
+	public void testMultipleEndpointsNotStarved() throws Exception {
+		scheduler = new VirtualThreadScheduler<>(1, "Test Scheduler");
+		BlockingTask task1 = new BlockingTask("task1", "endpoint1");
+		BlockingTask task2 = new BlockingTask("task2", "endpoint2");
+		BlockingTask both = new BlockingTask("both", "endpoint1", "endpoint2");
+		BlockingTask later = new BlockingTask("later", "endpoint1");
+		scheduler.schedule(task1);
+		scheduler.schedule(task2);
+		task1.awaitStarted();
+		task2.awaitStarted();
+		scheduler.schedule(both);
+		scheduler.schedule(later);
+
+		// the permit of endpoint1 is reserved for the earlier task, which waits for endpoint2
+		task1.release();
+		Assertions.assertFalse(later.hasStarted(100), "a later task must not take the permit of an earlier one");
+
+		task2.release();
+		both.awaitStarted();
+		Assertions.assertFalse(later.hasStarted(100));
+		both.release();
+		later.awaitStarted();
+		later.release();
+		control.awaitDone(4);
+
+		Assertions.assertEquals(Arrays.asList("task1", "task2", "both", "later"), started);
+	}
+
+	/**
+	 * A task that blocks until it is released.
+	 */
+	private class BlockingTask extends ParallelTaskBase<BindingSet> {
+
+		private final String name;
+
+		private final List<String> endpointIds;
+
+		private final CountDownLatch startedLatch = new CountDownLatch(1);
+
+		private final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+		private BlockingTask(String name, String... endpointIds) {
+			this.name = name;
+			this.endpointIds = Arrays.asList(endpointIds);
+		}
+
+		@Override
+		public CloseableIteration<BindingSet, QueryEvaluationException> performTask() throws Exception {
+			started.add(name);
+			startedLatch.countDown();
+			if (!releaseLatch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+				throw new IllegalStateException("Task " + name + " was not released");
+			}
+			return new EmptyIteration<>();
+		}
+
+		@Override
+		public ParallelExecutor<BindingSet> getControl() {
+			return control;
+		}
+
+		@Override
+		public Collection<String> getEndpointIds() {
+			return endpointIds;
+		}
+
+		private void awaitStarted() throws InterruptedException {
+			Assertions.assertTrue(startedLatch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS),
+					"Task " + name + " was not started");
+		}
+
+		private boolean hasStarted(long waitMs) throws InterruptedException {
+			return startedLatch.await(waitMs, TimeUnit.MILLISECONDS);
+		}
+
+		private void release() {
+			releaseLatch.countDown();
+		}
+	}
+
+	private class TestControl implements ParallelExecutor<BindingSet> {
+
+		private final AtomicInteger results = new AtomicInteger();
+
+		private volatile Exception exception;
+
+		@Override
+		public void run() {
+			// not used
+		}
+
+		@Override
+		public void addResult(CloseableIteration<BindingSet, QueryEvaluationException> res) {
+			res.close();
+			results.incrementAndGet();
+		}
+
+		@Override
+		public void toss(Exception e) {
+			exception = e;
+		}
+
+		@Override
+		public void done() {
+			// no-op
+		}
+
+		@Override
+		public boolean isFinished() {
+			return false;
+		}
+
+		@Override
+		public QueryInfo getQueryInfo() {
+			return queryInfo;
+		}
+
+		private void awaitDone(int expected) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+			while (results.get() < expected && exception == null && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			Assertions.assertNull(exception);
+			Assertions.assertEquals(expected, results.get());
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.evaluation.join;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.federated.FedXConfig;
+import org.eclipse.rdf4j.federated.FedXFactory;
+import org.eclipse.rdf4j.federated.evaluation.concurrent.ParallelExecutor;
+import org.eclipse.rdf4j.federated.evaluation.concurrent.ParallelTask;
+import org.eclipse.rdf4j.federated.evaluation.concurrent.ParallelTaskBase;
+import org.eclipse.rdf4j.federated.repository.FedXRepository;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.QueryInterruptedException;
+import org.eclipse.rdf4j.query.QueryResults;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.impl.EmptyBindingSet;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.config.RepositoryConfig;
+import org.eclipse.rdf4j.repository.manager.LocalRepositoryManager;
+import org.eclipse.rdf4j.repository.sail.config.SailRepositoryConfig;
+import org.eclipse.rdf4j.repository.sparql.federation.CollectionIteration;
+import org.eclipse.rdf4j.sail.memory.config.MemoryStoreConfig;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class AdaptiveBoundJoinControllerTest {
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	@TempDir
+	Path tempDir;
+
+	private final List<String> endpoint1 = Collections.singletonList("endpoint1");
+	private final List<String> endpoint2 = Collections.singletonList("endpoint2");
+
+	@Test
+	public void testFixedBlockSize() throws Exception {
+
+		AdaptiveBoundJoinController controller = new AdaptiveBoundJoinController(
+				new FedXConfig().withBoundJoinBlockSize(20));
+
+		controller.requestFailed(endpoint1);
+		controller.requestCompleted(endpoint1, 20, 10000);
+		Assertions.assertEquals(20, controller.getBlockSize(endpoint1));
+	}
+
+	@Test
+	public void testAdaptiveBlockSize() throws Exception {
+
+		AdaptiveBoundJoinController controller = new AdaptiveBoundJoinController(new FedXConfig()
+				.withBoundJoinBlockSize(20)
+				.withEnableAdaptiveBoundJoinBlockSize(true)
+				.withBoundJoinTargetResponseTime(1000));
+
+		// fast requests with full blocks increase the block size
+		controller.requestCompleted(endpoint1, 20, 100);
+		Assertions.assertEquals(25, controller.getBlockSize(endpoint1));
+		controller.requestCompleted(endpoint1, 10, 100);
+		Assertions.assertEquals(25, controller.getBlockSize(endpoint1));
+
+		// slow requests decrease the block size, at most by half
+		controller.requestCompleted(endpoint1, 25, 1250);
+		Assertions.assertEquals(20, controller.getBlockSize(endpoint1));
+		controller.requestCompleted(endpoint1, 20, 60000);
+		Assertions.assertEquals(10, controller.getBlockSize(endpoint1));
+
+		// failures halve the block size
+		controller.requestFailed(endpoint1);
+		Assertions.assertEquals(5, controller.getBlockSize(endpoint1));
+
+		// many results cap the block size
+		controller.requestCompleted(endpoint2, 20, 100);
+		controller.resultsReceived(endpoint2, 25, 25000);
+		Assertions.assertEquals(10, controller.getBlockSize(endpoint2));
+		controller.requestCompleted(endpoint2, 10, 100);
+		Assertions.assertEquals(10, controller.getBlockSize(endpoint2));
+
+		// the smallest block size of the endpoints applies
+		Assertions.assertEquals(5, controller.getBlockSize(Arrays.asList("endpoint1", "endpoint2")));
+		Assertions.assertEquals(20, controller.getBlockSize(Collections.singletonList("endpoint3")));
+	}
+
+	@Test
+	public void testMaxRequestsPerEndpoint() throws Exception {
+
+		AdaptiveBoundJoinController controller = new AdaptiveBoundJoinController(
+				new FedXConfig().withMaxBoundJoinRequestsPerEndpoint(2));
+
+		controller.acquire(endpoint1, 100);
+		controller.acquire(endpoint1, 100);
+		Assertions.assertThrows(QueryInterruptedException.class, () -> controller.acquire(endpoint1, 100));
+
+		// permits of other endpoints are independent
+		controller.acquire(endpoint2, 100);
+		Assertions.assertThrows(QueryInterruptedException.class,
+				() -> controller.acquire(Arrays.asList("endpoint1", "endpoint2"), 100));
+
+		controller.release(endpoint1);
+		controller.acquire(endpoint1, 100);
+	}
+
+	@Test
+	public void testPermitsReleasedWithResult() throws Exception {
+
+		AdaptiveBoundJoinController controller = new AdaptiveBoundJoinController(
+				new FedXConfig().withMaxBoundJoinRequestsPerEndpoint(1));
+		List<BindingSet> bindings = Arrays.asList(EmptyBindingSet.getInstance(), EmptyBindingSet.getInstance());
+		ParallelTask<BindingSet> request = new ParallelTaskBase<BindingSet>() {
+
+			@Override
+			public CloseableIteration<BindingSet, QueryEvaluationException> performTask() throws Exception {
+				return new CollectionIteration<>(bindings);
+			}
+
+			@Override
+			public ParallelExecutor<BindingSet> getControl() {
+				return null;
+			}
+		};
+
+		// the permit is held while the result is consumed
+		controller.acquire(endpoint1, 100);
+		CloseableIteration<BindingSet, QueryEvaluationException> res = new ControlledBoundJoinTask(request,
+				controller, endpoint1, 2).performTask();
+		Assertions.assertThrows(QueryInterruptedException.class, () -> controller.acquire(endpoint1, 100));
+		Assertions.assertEquals(2, QueryResults.asList(res).size());
+		controller.acquire(endpoint1, 100);
+
+		// or until it is closed
+		res = new ControlledBoundJoinTask(request, controller, endpoint1, 2).performTask();
+		res.next();
+		Assertions.assertThrows(QueryInterruptedException.class, () -> controller.acquire(endpoint1, 100));
+		res.close();
+		controller.acquire(endpoint1, 100);
+	}
+
+	@Test
+	public void testBoundJoin() throws Exception {
+
+		LocalRepositoryManager repoManager = new LocalRepositoryManager(tempDir.toFile());
+		repoManager.init();
+		try {
+			for (String id : Arrays.asList("repo1", "repo2")) {
+				repoManager.addRepositoryConfig(
+						new RepositoryConfig(id, new SailRepositoryConfig(new MemoryStoreConfig())));
+			}
+			try (RepositoryConnection conn1 = repoManager.getRepository("repo1").getConnection();
+					RepositoryConnection conn2 = repoManager.getRepository("repo2").getConnection()) {
+				for (int i = 0; i < 200; i++) {
+					IRI person = vf.createIRI("http://example.org/person" + i);
+					conn1.add(person, FOAF.NAME, vf.createLiteral("Person " + i));
+					if (i % 2 == 0) {
+						conn2.add(person, FOAF.MBOX, vf.createLiteral("person" + i + "@example.org"));
+					}
+				}
+			}
+
+			FedXRepository repo = FedXFactory.newFederation()
+					.withResolvableEndpoint("repo1")
+					.withResolvableEndpoint("repo2")
+					.withRepositoryResolver(repoManager)
+					.withConfig(new FedXConfig()
+							.withEnableAdaptiveBoundJoinBlockSize(true)
+							.withMaxBoundJoinRequestsPerEndpoint(1))
+					.create();
+			repo.init();
+			try (RepositoryConnection conn = repo.getConnection()) {
+				String query = "SELECT * WHERE { ?s <" + FOAF.NAME + "> ?name . ?s <" + FOAF.MBOX + "> ?mbox }";
+				for (int i = 0; i < 3; i++) {
+					try (TupleQueryResult res = conn.prepareTupleQuery(query).evaluate()) {
+						Assertions.assertEquals(100, QueryResults.asList(res).size());
+					}
+				}
+			} finally {
+				repo.shutDown();
+			}
+		} finally {
+			repoManager.shutDown();
+		}
+	}
+}
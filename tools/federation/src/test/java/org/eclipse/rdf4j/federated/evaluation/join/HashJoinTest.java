@@ -7,29 +7,50 @@
  *******************************************************************************/
 package org.eclipse.rdf4j.federated.evaluation.join;
 
+import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.Iterations;
+import org.eclipse.rdf4j.federated.FedXConfig;
+import org.eclipse.rdf4j.federated.FedXFactory;
+import org.eclipse.rdf4j.federated.cache.SourceSelectionIndex;
+import org.eclipse.rdf4j.federated.endpoint.Endpoint;
+import org.eclipse.rdf4j.federated.repository.FedXRepository;
 import org.eclipse.rdf4j.model.IRI;
 import org.eclipse.rdf4j.model.Literal;
 import org.eclipse.rdf4j.model.Value;
 import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
 import org.eclipse.rdf4j.query.Binding;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.QueryResults;
+import org.eclipse.rdf4j.query.TupleQueryResult;
 import org.eclipse.rdf4j.query.impl.MapBindingSet;
 import org.eclipse.rdf4j.query.impl.SimpleBinding;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.config.RepositoryConfig;
+import org.eclipse.rdf4j.repository.manager.LocalRepositoryManager;
+import org.eclipse.rdf4j.repository.sail.config.SailRepositoryConfig;
+import org.eclipse.rdf4j.sail.memory.config.MemoryStoreConfig;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 public class HashJoinTest {
 
+	@TempDir
+	Path tempDir;
+
 	@Test
 	public void testSimple() throws Exception {
 
@@ -96,6 +117,85 @@ public class HashJoinTest {
 				joinResult.get(0));
 	}
 
+	@Test
+	public void testMultipleJoinVariables() throws Exception {
+
+		List<BindingSet> leftBlock = new ArrayList<>();
+		leftBlock.add(bindingSet(binding("x", irid("p1")), binding("y", l("P1"))));
+		leftBlock.add(bindingSet(binding("x", irid("p2")), binding("y", l("P2"))));
+
+		List<BindingSet> rightBlock = new ArrayList<>();
+		rightBlock.add(bindingSet(binding("x", irid("p1")), binding("y", l("P2"))));
+		rightBlock.add(bindingSet(binding("x", irid("p2")), binding("y", l("P2")), binding("z", l("something"))));
+
+		CloseableIteration<BindingSet, QueryEvaluationException> joinResultIter = HashJoin.join(leftBlock, rightBlock,
+				Sets.newHashSet("x", "y"),
+				Lists.newArrayList("x", "y", "z"));
+		List<BindingSet> joinResult = Iterations.asList(joinResultIter);
+
+		Assertions.assertEquals(1, joinResult.size());
+		Assertions.assertEquals(
+				bindingSet(binding("x", irid("p2")), binding("y", l("P2")), binding("z", l("something"))),
+				joinResult.get(0));
+	}
+
+	@Test
+	public void testOptionalJoinVariable() throws Exception {
+
+		LocalRepositoryManager repoManager = new LocalRepositoryManager(tempDir.toFile());
+		repoManager.init();
+		try {
+			for (String id : Arrays.asList("repo1", "repo2")) {
+				repoManager.addRepositoryConfig(
+						new RepositoryConfig(id, new SailRepositoryConfig(new MemoryStoreConfig())));
+			}
+			try (RepositoryConnection conn1 = repoManager.getRepository("repo1").getConnection();
+					RepositoryConnection conn2 = repoManager.getRepository("repo2").getConnection()) {
+				for (int i = 0; i < 10; i++) {
+					IRI person = irid("person" + i);
+					conn1.add(person, FOAF.NAME, l("Person " + i));
+					if (i % 2 == 0) {
+						conn1.add(person, FOAF.MEMBER, irid("org1"));
+					}
+				}
+				// enough organizations for the statement pattern to be ordered after the left join
+				for (int i = 1; i <= 1500; i++) {
+					conn2.add(irid("org" + i), RDF.TYPE, FOAF.ORGANIZATION);
+				}
+			}
+
+			FedXRepository repo = FedXFactory.newFederation()
+					.withResolvableEndpoint("repo1")
+					.withResolvableEndpoint("repo2")
+					.withRepositoryResolver(repoManager)
+					.withConfig(new FedXConfig()
+							.withSourceSelectionIndexLocation(new File(tempDir.toFile(), "index.ttl").getPath())
+							.withEnableStatisticsCostModel(true))
+					.create();
+			repo.init();
+			try (RepositoryConnection conn = repo.getConnection()) {
+				SourceSelectionIndex index = repo.getFederationContext()
+						.getManager()
+						.getSourceSelectionIndex()
+						.get();
+				for (Endpoint endpoint : repo.getFederationContext().getEndpointManager().getAvailableEndpoints()) {
+					index.harvest(endpoint);
+				}
+
+				// ?org is unbound for the persons without membership, which are compatible with any organization
+				String query = "SELECT * WHERE { ?s <" + FOAF.NAME + "> ?name . OPTIONAL { ?s <" + FOAF.MEMBER
+						+ "> ?org } ?org a <" + FOAF.ORGANIZATION + "> }";
+				try (TupleQueryResult res = conn.prepareTupleQuery(query).evaluate()) {
+					Assertions.assertEquals(5 + 5 * 1500, QueryResults.asList(res).size());
+				}
+			} finally {
+				repo.shutDown();
+			}
+		} finally {
+			repoManager.shutDown();
+		}
+	}
+
 	protected BindingSet bindingSet(Binding... bindings) {
 		MapBindingSet bs = new MapBindingSet();
 		for (Binding b : bindings) {
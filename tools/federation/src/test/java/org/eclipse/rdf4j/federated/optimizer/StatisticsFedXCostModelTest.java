@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2020 Eclipse RDF4J contributors.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Distribution License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *******************************************************************************/
+package org.eclipse.rdf4j.federated.optimizer;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.rdf4j.federated.algebra.ExclusiveStatement;
+import org.eclipse.rdf4j.federated.algebra.NJoin;
+import org.eclipse.rdf4j.federated.algebra.StatementSource;
+import org.eclipse.rdf4j.federated.algebra.StatementSource.StatementSourceType;
+import org.eclipse.rdf4j.federated.cache.SourceSelectionIndex;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.FOAF;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.Rio;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StatisticsFedXCostModelTest {
+
+	@TempDir
+	Path tempDir;
+
+	private final ValueFactory vf = SimpleValueFactory.getInstance();
+
+	private StatisticsFedXCostModel costModel;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		String voidDescription = "@prefix void: <http://rdfs.org/ns/void#> .\n"
+				+ "[] a void:Dataset ; void:triples 110000 ;\n"
+				+ "  void:propertyPartition [ void:property <" + RDF.TYPE + "> ; void:triples 10000 ;"
+				+ " void:distinctSubjects 10000 ; void:distinctObjects 2 ] ,\n"
+				+ "    [ void:property <" + FOAF.NAME + "> ; void:triples 100000 ;"
+				+ " void:distinctSubjects 100000 ; void:distinctObjects 50000 ] ;\n"
+				+ "  void:classPartition [ void:class <" + FOAF.PERSON + "> ; void:entities 9000 ] ,\n"
+				+ "    [ void:class <" + FOAF.ORGANIZATION + "> ; void:entities 1000 ] .";
+
+		SourceSelectionIndex index = new SourceSelectionIndex(new File(tempDir.toFile(), "index.ttl"));
+		index.importVoID("endpoint1", Rio.parse(new StringReader(voidDescription), "", RDFFormat.TURTLE));
+
+		costModel = new StatisticsFedXCostModel(index);
+	}
+
+	@Test
+	public void testStatementPatternCardinality() throws Exception {
+
+		Assertions.assertEquals(100000,
+				costModel.estimateCardinality(pattern("s", FOAF.NAME, "o", "endpoint1"), Collections.emptySet()));
+		Assertions.assertEquals(1,
+				costModel.estimateCardinality(pattern("s", FOAF.NAME, "o", "endpoint1"), Collections.singleton("s")));
+		Assertions.assertEquals(2,
+				costModel.estimateCardinality(pattern("s", FOAF.NAME, "o", "endpoint1"), Collections.singleton("o")));
+		Assertions.assertEquals(2,
+				costModel.estimateCardinality(pattern("s", FOAF.NAME, vf.createLiteral("Alan"), "endpoint1"),
+						Collections.emptySet()));
+		Assertions.assertEquals(1000,
+				costModel.estimateCardinality(pattern("s", RDF.TYPE, FOAF.ORGANIZATION, "endpoint1"),
+						Collections.emptySet()));
+		Assertions.assertEquals(0.1,
+				costModel.estimateCardinality(pattern("s", RDF.TYPE, FOAF.ORGANIZATION, "endpoint1"),
+						Collections.singleton("s")));
+
+		// without statistics the default cardinality is used
+		Assertions.assertEquals(StatisticsFedXCostModel.DEFAULT_CARDINALITY,
+				costModel.estimateCardinality(pattern("s", FOAF.NAME, "o", "endpoint2"), Collections.emptySet()));
+	}
+
+	@Test
+	public void testHashJoinPreferred() throws Exception {
+
+		// few persons with a name, the bound join needs few requests
+		NJoin join = new NJoin(Arrays.asList(pattern("s", FOAF.NAME, vf.createLiteral("Alan"), "endpoint1"),
+				pattern("s", RDF.TYPE, FOAF.ORGANIZATION, "endpoint1")), null);
+		Assertions.assertFalse(costModel.isHashJoinPreferred(join, 1, 25));
+
+		// all names of all organizations, retrieving the organizations once is cheaper
+		join = new NJoin(Arrays.asList(pattern("s", FOAF.NAME, "o", "endpoint1"),
+				pattern("s", RDF.TYPE, FOAF.ORGANIZATION, "endpoint1")), null);
+		Assertions.assertTrue(costModel.isHashJoinPreferred(join, 1, 25));
+
+		// no statistics for the right argument
+		join = new NJoin(Arrays.asList(pattern("s", FOAF.NAME, "o", "endpoint1"),
+				pattern("s", RDF.TYPE, FOAF.ORGANIZATION, "endpoint2")), null);
+		Assertions.assertFalse(costModel.isHashJoinPreferred(join, 1, 25));
+	}
+
+	private ExclusiveStatement pattern(String subject, IRI predicate, String object, String endpointId) {
+		return pattern(subject, predicate, new Var(object), endpointId);
+	}
+
+	private ExclusiveStatement pattern(String subject, IRI predicate, Value object, String endpointId) {
+		return pattern(subject, predicate, new Var("_const_o", object), endpointId);
+	}
+
+	private ExclusiveStatement pattern(String subject, IRI predicate, Var object, String endpointId) {
+		StatementPattern stmt = new StatementPattern(new Var(subject), new Var("_const_p", predicate), object);
+		return new ExclusiveStatement(stmt, new StatementSource(endpointId, StatementSourceType.REMOTE), null);
+	}
+}